@@ -58,6 +58,9 @@ public class AILearningCompanionApplication {
             logger.info("  - Typical Operation Threshold: {}ms", properties.getPerformance().getTypicalOperationThresholdMs());
             logger.info("  - Memory Threshold: {}MB", properties.getPerformance().getMemoryThresholdMb());
             logger.info("  - CPU Threshold: {}%", properties.getPerformance().getCpuThresholdPercent());
+            // Warm-up may still be running here; the parser logs its times when it completes
+            logger.info("  - Parser Warm-up: {}",
+                    properties.getPerformance().isParserWarmupEnabled() ? "enabled" : "disabled");
             logger.info("");
             logger.info("Security Settings:");
             logger.info("  - Encryption Enabled: {}", properties.getSecurity().isEncryptionEnabled());
@@ -5,12 +5,23 @@ import com.ailearning.core.service.ai.*;
 import com.ailearning.core.service.ai.impl.*;
 import com.ailearning.core.service.ast.ASTParser;
 import com.ailearning.core.service.ast.DependencyGraphBuilder;
+import com.ailearning.core.service.ast.ParseBudget;
+import com.ailearning.core.service.ast.PersistentASTIndex;
 import com.ailearning.core.service.ast.impl.MultiLanguageASTParser;
 import com.ailearning.core.service.impl.*;
+import com.ailearning.core.service.semantic.impl.EmbeddingIndex;
+import com.ailearning.core.service.semantic.impl.ConventionLearner;
+import com.ailearning.core.service.semantic.impl.DefaultSemanticAnalyzer;
+import com.ailearning.core.service.semantic.impl.RelationshipIndex;
+import com.ailearning.core.service.semantic.impl.SimilarCodeIndex;
 import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.Map;
+
 /**
  * Main Spring configuration for AI Learning Companion core services.
  * Wires all components together using dependency injection.
@@ -22,8 +33,18 @@ public class AILearningCoreConfiguration {
     // ========== Context Engine Components ==========
     
     @Bean
-    public ASTParser astParser() {
-        return new MultiLanguageASTParser();
+    public ASTParser astParser(AILearningProperties properties,
+                               PerformanceMonitoringService performanceMonitoring) {
+        AILearningProperties.Performance performance = properties.getPerformance();
+        MultiLanguageASTParser parser = new MultiLanguageASTParser(ParseBudget.of(
+                performance.getParseMaxFileSizeKb() * 1024,
+                performance.getParseTimeBudgetMs()));
+        if (performance.isParserWarmupEnabled()) {
+            parser.warmUp().thenAccept(times -> times.forEach((language, initMs) ->
+                    performanceMonitoring.recordResponseTime("startup.parser.init", initMs,
+                            Map.of("language", language))));
+        }
+        return parser;
     }
     
     @Bean
@@ -32,8 +53,42 @@ public class AILearningCoreConfiguration {
     }
     
     @Bean
-    public SemanticAnalyzer semanticAnalyzer() {
-        return new com.ailearning.core.service.semantic.impl.DefaultSemanticAnalyzer();
+    public SimilarCodeIndex similarCodeIndex() {
+        return new SimilarCodeIndex();
+    }
+    
+    /**
+     * Embedding index for local semantic search. Kept next to the AST index
+     * when one is configured, so it survives restarts.
+     */
+    @Bean(destroyMethod = "persist")
+    public EmbeddingIndex embeddingIndex(AILearningProperties properties) {
+        String indexDirectory = properties.getPerformance().getAstIndexDirectory();
+        if (indexDirectory != null && !indexDirectory.isBlank()) {
+            return EmbeddingIndex.open(Paths.get(indexDirectory, "embeddings.idx"));
+        }
+        return new EmbeddingIndex();
+    }
+    
+    @Bean
+    public RelationshipIndex relationshipIndex() {
+        return new RelationshipIndex();
+    }
+    
+    @Bean
+    public ConventionLearner conventionLearner() {
+        return new ConventionLearner();
+    }
+    
+    @Bean
+    public SemanticAnalyzer semanticAnalyzer(SimilarCodeIndex similarCodeIndex, EmbeddingIndex embeddingIndex,
+                                             RelationshipIndex relationshipIndex, ConventionLearner conventionLearner) {
+        DefaultSemanticAnalyzer analyzer = new DefaultSemanticAnalyzer();
+        analyzer.setSimilarCodeIndex(similarCodeIndex);
+        analyzer.setEmbeddingIndex(embeddingIndex);
+        analyzer.setRelationshipIndex(relationshipIndex);
+        analyzer.setConventionLearner(conventionLearner);
+        return analyzer;
     }
     
     @Bean
@@ -41,24 +96,54 @@ public class AILearningCoreConfiguration {
             ASTParser astParser,
             DependencyGraphBuilder dependencyGraphBuilder,
             SemanticAnalyzer semanticAnalyzer,
+            SimilarCodeIndex similarCodeIndex,
+            EmbeddingIndex embeddingIndex,
+            RelationshipIndex relationshipIndex,
+            ConventionLearner conventionLearner,
             CacheService cacheService,
-            PerformanceMonitoringService performanceMonitoring) {
-        return new DefaultContextEngine(
+            PerformanceMonitoringService performanceMonitoring,
+            AILearningProperties properties) {
+        DefaultContextEngine engine = new DefaultContextEngine(
                 astParser,
                 dependencyGraphBuilder,
                 semanticAnalyzer,
                 cacheService,
                 performanceMonitoring
         );
+        engine.setSimilarCodeIndex(similarCodeIndex);
+        engine.setEmbeddingIndex(embeddingIndex);
+        engine.setRelationshipIndex(relationshipIndex);
+        engine.setConventionLearner(conventionLearner);
+        String indexDirectory = properties.getPerformance().getAstIndexDirectory();
+        if (indexDirectory != null && !indexDirectory.isBlank()) {
+            engine.setPersistentIndex(new PersistentASTIndex(Paths.get(indexDirectory)));
+        }
+        return engine;
     }
     
     // ========== Code Analyzer Components ==========
     
+    @Bean(destroyMethod = "shutdown")
+    public AnalysisExecutor analysisExecutor(AILearningProperties properties) {
+        AILearningProperties.Performance performance = properties.getPerformance();
+        int threads = performance.getAnalysisThreads() > 0
+                ? performance.getAnalysisThreads()
+                : Math.max(2, Runtime.getRuntime().availableProcessors());
+        return new AnalysisExecutor(threads, performance.getAnalysisQueueCapacity(),
+                Duration.ofMillis(performance.getAnalysisDeadlineMs()));
+    }
+    
+    @Bean
+    public AnalysisCache analysisCache(AILearningProperties properties) {
+        return new AnalysisCache(properties.getCache().getAnalysisMaxEntries());
+    }
+    
     @Bean
     public CodeAnalyzer codeAnalyzer(
             ContextEngine contextEngine,
-            PerformanceMonitoringService performanceMonitoring) {
-        return new DefaultCodeAnalyzer(contextEngine, performanceMonitoring);
+            AnalysisExecutor analysisExecutor,
+            AnalysisCache analysisCache) {
+        return new DefaultCodeAnalyzer(contextEngine, analysisExecutor, analysisCache);
     }
     
     // ========== Documentation Generator Components ==========
@@ -44,6 +44,13 @@ public class AILearningProperties {
         private double memoryThresholdMb = 500.0;
         private double cpuThresholdPercent = 80.0;
         private int backgroundThreadPoolSize = 4;
+        private int parseMaxFileSizeKb = 1024;
+        private long parseTimeBudgetMs = 2000;
+        private String astIndexDirectory = "";
+        private boolean parserWarmupEnabled = true;
+        private int analysisThreads = 0;
+        private int analysisQueueCapacity = 256;
+        private long analysisDeadlineMs = 30000;
         
         public long getContextUpdateThresholdMs() {
             return contextUpdateThresholdMs;
@@ -84,6 +91,66 @@ public class AILearningProperties {
         public void setBackgroundThreadPoolSize(int backgroundThreadPoolSize) {
             this.backgroundThreadPoolSize = backgroundThreadPoolSize;
         }
+        
+        public int getParseMaxFileSizeKb() {
+            return parseMaxFileSizeKb;
+        }
+        
+        public void setParseMaxFileSizeKb(int parseMaxFileSizeKb) {
+            this.parseMaxFileSizeKb = parseMaxFileSizeKb;
+        }
+        
+        public long getParseTimeBudgetMs() {
+            return parseTimeBudgetMs;
+        }
+        
+        public void setParseTimeBudgetMs(long parseTimeBudgetMs) {
+            this.parseTimeBudgetMs = parseTimeBudgetMs;
+        }
+        
+        public String getAstIndexDirectory() {
+            return astIndexDirectory;
+        }
+        
+        public void setAstIndexDirectory(String astIndexDirectory) {
+            this.astIndexDirectory = astIndexDirectory;
+        }
+        
+        public boolean isParserWarmupEnabled() {
+            return parserWarmupEnabled;
+        }
+        
+        public void setParserWarmupEnabled(boolean parserWarmupEnabled) {
+            this.parserWarmupEnabled = parserWarmupEnabled;
+        }
+        
+        /**
+         * Worker threads for code analysis; zero or less sizes the pool to
+         * the available processors.
+         */
+        public int getAnalysisThreads() {
+            return analysisThreads;
+        }
+        
+        public void setAnalysisThreads(int analysisThreads) {
+            this.analysisThreads = analysisThreads;
+        }
+        
+        public int getAnalysisQueueCapacity() {
+            return analysisQueueCapacity;
+        }
+        
+        public void setAnalysisQueueCapacity(int analysisQueueCapacity) {
+            this.analysisQueueCapacity = analysisQueueCapacity;
+        }
+        
+        public long getAnalysisDeadlineMs() {
+            return analysisDeadlineMs;
+        }
+        
+        public void setAnalysisDeadlineMs(long analysisDeadlineMs) {
+            this.analysisDeadlineMs = analysisDeadlineMs;
+        }
     }
     
     /**
@@ -222,6 +289,7 @@ public class AILearningProperties {
         private long maxSizeMb = 100;
         private int defaultTtlMinutes = 60;
         private String evictionPolicy = "LRU";
+        private int analysisMaxEntries = 512;
         
         public long getMaxSizeMb() {
             return maxSizeMb;
@@ -246,6 +314,14 @@ public class AILearningProperties {
         public void setEvictionPolicy(String evictionPolicy) {
             this.evictionPolicy = evictionPolicy;
         }
+        
+        public int getAnalysisMaxEntries() {
+            return analysisMaxEntries;
+        }
+        
+        public void setAnalysisMaxEntries(int analysisMaxEntries) {
+            this.analysisMaxEntries = analysisMaxEntries;
+        }
     }
     
     /**
@@ -1,6 +1,7 @@
 package com.ailearning.core.model;
 
 import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import jakarta.validation.constraints.Min;
 import jakarta.validation.constraints.NotNull;
@@ -86,6 +87,23 @@ public class ComplexityMetrics {
                (nestingScore * 0.2) + (sizeScore * 0.2);
     }
 
+    /**
+     * Calculates a simplified maintainability index (0.0 to 100.0, higher = more maintainable).
+     * The full formula, 171 - 5.2 * ln(Halstead Volume) - 0.23 * (Cyclomatic Complexity)
+     * - 16.2 * ln(Lines of Code), needs operand counts that are not tracked here.
+     */
+    @JsonIgnore
+    public double getMaintainabilityIndex() {
+        if (linesOfCode == 0) return 100.0;
+        
+        double complexityPenalty = cyclomaticComplexity * 2.0;
+        double sizePenalty = Math.log(linesOfCode) * 5.0;
+        double methodPenalty = numberOfMethods * 0.5;
+        
+        double index = 100.0 - complexityPenalty - sizePenalty - methodPenalty;
+        return Math.max(0.0, Math.min(100.0, index));
+    }
+
     /**
      * Determines if the code is considered highly complex
      */
@@ -1,10 +1,14 @@
 package com.ailearning.core.model.ast;
 
 import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import com.fasterxml.jackson.annotation.JsonSubTypes;
 import com.fasterxml.jackson.annotation.JsonTypeInfo;
 
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
@@ -28,6 +32,14 @@ public abstract class ASTNode {
     private final SourceLocation location;
     private final List<ASTNode> children;
     private final Map<String, Object> attributes;
+    private final NodeId id;
+    
+    // Subtree metrics, computed once from the (immutable) children at construction
+    private final int depth;
+    private final int nodeCount;
+    private final long structuralHash;
+    // Only built for subtrees that are asked for it, so leaves carry no map
+    private volatile Map<String, Integer> nodeTypeHistogram;
     
     @JsonCreator
     protected ASTNode(
@@ -41,6 +53,31 @@ public abstract class ASTNode {
         this.location = Objects.requireNonNull(location, "Location cannot be null");
         this.children = children != null ? List.copyOf(children) : List.of();
         this.attributes = attributes != null ? Map.copyOf(attributes) : Map.of();
+        this.id = NodeId.next(this.location.getFilePath());
+        
+        int maxChildDepth = 0;
+        int descendantCount = 0;
+        long hash = mix(getClass().getName().hashCode(), this.nodeType.hashCode());
+        hash = mix(hash, Objects.hashCode(this.name));
+        hash = mix(hash, this.attributes.hashCode());
+        for (ASTNode child : this.children) {
+            maxChildDepth = Math.max(maxChildDepth, child.depth);
+            descendantCount += child.nodeCount;
+            hash = mix(hash, child.structuralHash);
+        }
+        this.depth = 1 + maxChildDepth;
+        this.nodeCount = 1 + descendantCount;
+        this.structuralHash = mix(hash, this.children.size());
+    }
+    
+    /**
+     * Gets the identity of this node instance.
+     * 
+     * @return the node id, unique for every constructed node
+     */
+    @JsonIgnore
+    public NodeId getId() {
+        return id;
     }
     
     /**
@@ -139,10 +176,7 @@ public abstract class ASTNode {
      * @param visitor the visitor function to apply to each node
      */
     public void traverse(ASTVisitor visitor) {
-        visitor.visit(this);
-        for (ASTNode child : children) {
-            child.traverse(visitor);
-        }
+        ASTTraversal.walk(this, TraversalVisitor.of(visitor));
     }
     
     /**
@@ -151,13 +185,7 @@ public abstract class ASTNode {
      * @return the maximum depth of child nodes + 1
      */
     public int getDepth() {
-        if (children.isEmpty()) {
-            return 1;
-        }
-        return 1 + children.stream()
-                .mapToInt(ASTNode::getDepth)
-                .max()
-                .orElse(0);
+        return depth;
     }
     
     /**
@@ -166,27 +194,108 @@ public abstract class ASTNode {
      * @return the count of this node plus all descendants
      */
     public int getNodeCount() {
-        return 1 + children.stream()
-                .mapToInt(ASTNode::getNodeCount)
-                .sum();
+        return nodeCount;
+    }
+    
+    /**
+     * Gets how often each node type occurs in this subtree, including this node.
+     * Counted by one walk of the subtree on first use and cached on this node.
+     * 
+     * @return immutable map of node type to occurrence count
+     */
+    @JsonIgnore
+    public Map<String, Integer> getNodeTypeHistogram() {
+        Map<String, Integer> histogram = nodeTypeHistogram;
+        if (histogram == null) {
+            histogram = children.isEmpty() ? Map.of(nodeType, 1) : countNodeTypes(this);
+            nodeTypeHistogram = histogram;
+        }
+        return histogram;
+    }
+    
+    /**
+     * Gets a hash of this subtree's structure and content, ignoring source locations.
+     * Subtrees with equal structural hashes are very likely identical apart from
+     * where they appear, which makes the hash a cheap pre-filter for duplicate detection.
+     * 
+     * @return the 64-bit structural hash
+     */
+    @JsonIgnore
+    public long getStructuralHash() {
+        return structuralHash;
+    }
+    
+    private static Map<String, Integer> countNodeTypes(ASTNode root) {
+        Map<String, Integer> histogram = new HashMap<>();
+        ASTTraversal.walk(root, TraversalVisitor.of(node -> histogram.merge(node.nodeType, 1, Integer::sum)));
+        return Map.copyOf(histogram);
+    }
+    
+    private static long mix(long hash, long value) {
+        long h = (hash ^ value) * 0x9E3779B97F4A7C15L;
+        return h ^ (h >>> 32);
     }
     
+    /**
+     * Checks whether another subtree has the same structure and content as this one.
+     * Node types, names, attributes and children are compared node by node; node
+     * identities and source locations are ignored, so a copy of a method moved to
+     * another line or file is structurally equal to the original. Node pairs are
+     * compared from an explicit stack, so deep trees cannot overflow the call stack.
+     * 
+     * @param other the subtree to compare with
+     * @return true if both subtrees are structurally equal
+     */
+    public boolean structurallyEquals(ASTNode other) {
+        if (other == null) return false;
+        Deque<ASTNode> pending = new ArrayDeque<>();
+        pending.push(other);
+        pending.push(this);
+        while (!pending.isEmpty()) {
+            ASTNode left = pending.pop();
+            ASTNode right = pending.pop();
+            if (!shallowStructurallyEquals(left, right)) {
+                return false;
+            }
+            if (left == right) {
+                continue;
+            }
+            for (int i = left.children.size() - 1; i >= 0; i--) {
+                pending.push(right.children.get(i));
+                pending.push(left.children.get(i));
+            }
+        }
+        return true;
+    }
+    
+    /**
+     * Compares two nodes without descending into their children, other than
+     * through the subtree hash and size that rule out most mismatches early.
+     */
+    private static boolean shallowStructurallyEquals(ASTNode left, ASTNode right) {
+        if (left == right) return true;
+        if (left.getClass() != right.getClass()) return false;
+        if (left.structuralHash != right.structuralHash || left.nodeCount != right.nodeCount) return false;
+        return left.nodeType.equals(right.nodeType) &&
+               Objects.equals(left.name, right.name) &&
+               left.attributes.equals(right.attributes) &&
+               left.children.size() == right.children.size();
+    }
+    
+    /**
+     * Nodes are equal only if they are the same node instance, as identified by
+     * {@link #getId()}. Use {@link #structurallyEquals(ASTNode)} to compare content.
+     */
     @Override
     public boolean equals(Object obj) {
         if (this == obj) return true;
-        if (obj == null || getClass() != obj.getClass()) return false;
-        
-        ASTNode astNode = (ASTNode) obj;
-        return Objects.equals(nodeType, astNode.nodeType) &&
-               Objects.equals(name, astNode.name) &&
-               Objects.equals(location, astNode.location) &&
-               Objects.equals(children, astNode.children) &&
-               Objects.equals(attributes, astNode.attributes);
+        if (!(obj instanceof ASTNode astNode)) return false;
+        return id.equals(astNode.id);
     }
     
     @Override
     public int hashCode() {
-        return Objects.hash(nodeType, name, location, children, attributes);
+        return id.hashCode();
     }
     
     @Override
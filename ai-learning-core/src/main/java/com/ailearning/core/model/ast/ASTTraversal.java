@@ -0,0 +1,122 @@
+package com.ailearning.core.model.ast;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Iterative depth-first AST traversal that runs several visitors in a single pass.
+ * An explicit stack replaces recursion, so arbitrarily deep (e.g. generated) trees
+ * cannot overflow the call stack. Visitors are called in registration order on
+ * enter and in the same order on exit. A visitor that returns
+ * {@link TraversalVisitor.VisitResult#SKIP_CHILDREN} stops receiving that node's
+ * descendants while the other visitors keep walking; a subtree that no visitor
+ * wants is not descended into at all.
+ */
+public final class ASTTraversal {
+
+    private static final int NOT_SKIPPING = Integer.MAX_VALUE;
+    private static final int INITIAL_STACK_CAPACITY = 32;
+
+    private ASTTraversal() {
+    }
+
+    /**
+     * Walks the tree rooted at the given node with all visitors.
+     *
+     * @param root the root node
+     * @param visitors the visitors to run
+     */
+    public static void walk(ASTNode root, TraversalVisitor... visitors) {
+        walk(root, Arrays.asList(visitors));
+    }
+
+    /**
+     * Walks the tree rooted at the given node with all visitors.
+     *
+     * @param root the root node
+     * @param visitors the visitors to run
+     */
+    public static void walk(ASTNode root, List<? extends TraversalVisitor> visitors) {
+        Objects.requireNonNull(root, "Root node cannot be null");
+        Objects.requireNonNull(visitors, "Visitors cannot be null");
+        if (visitors.isEmpty()) {
+            return;
+        }
+
+        TraversalVisitor[] active = visitors.toArray(new TraversalVisitor[0]);
+        // Depth at which each visitor asked to skip children, or NOT_SKIPPING
+        int[] skipDepth = new int[active.length];
+        Arrays.fill(skipDepth, NOT_SKIPPING);
+
+        ASTNode[] nodeStack = new ASTNode[INITIAL_STACK_CAPACITY];
+        int[] nextChildStack = new int[INITIAL_STACK_CAPACITY];
+        int top = 0;
+
+        nodeStack[0] = root;
+        nextChildStack[0] = 0;
+        if (!enter(root, 0, active, skipDepth)) {
+            exit(root, 0, active, skipDepth);
+            return;
+        }
+
+        while (top >= 0) {
+            ASTNode node = nodeStack[top];
+            List<ASTNode> children = node.getChildren();
+            int next = nextChildStack[top];
+
+            if (next < children.size()) {
+                nextChildStack[top] = next + 1;
+                ASTNode child = children.get(next);
+                int childDepth = top + 1;
+                if (enter(child, childDepth, active, skipDepth)) {
+                    if (childDepth == nodeStack.length) {
+                        nodeStack = Arrays.copyOf(nodeStack, nodeStack.length * 2);
+                        nextChildStack = Arrays.copyOf(nextChildStack, nextChildStack.length * 2);
+                    }
+                    top = childDepth;
+                    nodeStack[top] = child;
+                    nextChildStack[top] = 0;
+                } else {
+                    exit(child, childDepth, active, skipDepth);
+                }
+            } else {
+                exit(node, top, active, skipDepth);
+                nodeStack[top] = null;
+                top--;
+            }
+        }
+    }
+
+    /**
+     * Delivers the enter callback to every visitor that is not skipping this depth.
+     *
+     * @return true if at least one visitor wants the node's children
+     */
+    private static boolean enter(ASTNode node, int depth, TraversalVisitor[] visitors, int[] skipDepth) {
+        boolean descend = false;
+        for (int i = 0; i < visitors.length; i++) {
+            if (skipDepth[i] < depth) {
+                continue;
+            }
+            if (visitors[i].enter(node) == TraversalVisitor.VisitResult.SKIP_CHILDREN) {
+                skipDepth[i] = depth;
+            } else {
+                descend = true;
+            }
+        }
+        return descend;
+    }
+
+    private static void exit(ASTNode node, int depth, TraversalVisitor[] visitors, int[] skipDepth) {
+        for (int i = 0; i < visitors.length; i++) {
+            if (skipDepth[i] < depth) {
+                continue;
+            }
+            visitors[i].exit(node);
+            if (skipDepth[i] == depth) {
+                skipDepth[i] = NOT_SKIPPING;
+            }
+        }
+    }
+}
@@ -56,6 +56,33 @@ public final class ExpressionNode extends ASTNode {
         return (String) getAttribute("dataType");
     }
     
+    /**
+     * Gets the name of the method invoked by a call expression.
+     * 
+     * @return the called method name, or null if not a call
+     */
+    public String getMethodName() {
+        return (String) getAttribute("methodName");
+    }
+    
+    /**
+     * Gets the source text of the receiver a method is called on.
+     * 
+     * @return the call scope, or null for unqualified calls
+     */
+    public String getCallScope() {
+        return (String) getAttribute("scope");
+    }
+    
+    /**
+     * Gets the type instantiated by an object creation expression.
+     * 
+     * @return the created type, or null if not an object creation
+     */
+    public String getCreatedType() {
+        return (String) getAttribute("createdType");
+    }
+    
     /**
      * Checks if this is a literal expression.
      * 
@@ -0,0 +1,17 @@
+package com.ailearning.core.model.ast;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * AST node representing the root of a parsed file.
+ * The node type is language specific: "compilation_unit" for Java,
+ * "script" for JavaScript and "module" for Python.
+ */
+public final class ModuleNode extends ASTNode {
+
+    public ModuleNode(String nodeType, String name, SourceLocation location,
+                      List<ASTNode> children, Map<String, Object> attributes) {
+        super(nodeType, name, location, children, attributes);
+    }
+}
@@ -0,0 +1,141 @@
+package com.ailearning.core.model.ast;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Identity of a single AST node instance.
+ * An id is the pair of a file id (interned from the node's file path) and an
+ * ordinal that is unique among the nodes created under that file id. Ids are
+ * assigned once at node construction, so hashing and comparing them is O(1)
+ * regardless of subtree size.
+ * <p>
+ * Ids identify instances, not positions in a file: reparsing a file creates
+ * nodes with new ids, so an identity-keyed cache never returns results for an
+ * older tree. Use {@link ASTNode#getStructuralHash()} to match content across
+ * parses. File ids are never reused. The path table is cleared once it holds
+ * {@link #MAX_INTERNED_FILES} paths, and a file whose ordinals run out moves
+ * to a fresh file id; in both cases {@link #fileIdOf} only reports the current
+ * id, and ids issued earlier stay distinct.
+ */
+public final class NodeId implements Comparable<NodeId> {
+
+    /** Number of file paths interned before the path table is cleared. */
+    static final int MAX_INTERNED_FILES = 1 << 16;
+
+    private static final AtomicInteger nextFileId = new AtomicInteger();
+    private static final Map<String, FileSequence> fileSequences = new ConcurrentHashMap<>();
+
+    private final int fileId;
+    private final int ordinal;
+
+    private NodeId(int fileId, int ordinal) {
+        this.fileId = fileId;
+        this.ordinal = ordinal;
+    }
+
+    /**
+     * Allocates a new id for a node in the given file.
+     *
+     * @param filePath the file the node belongs to
+     * @return new NodeId unique within this process
+     */
+    static NodeId next(String filePath) {
+        while (true) {
+            FileSequence sequence = fileSequences.get(filePath);
+            if (sequence == null) {
+                sequence = intern(filePath);
+            }
+            int ordinal = sequence.nextOrdinal.getAndIncrement();
+            if (ordinal >= 0) {
+                return new NodeId(sequence.fileId, ordinal);
+            }
+            // Ordinals wrapped around; later nodes of the file get a fresh file id
+            fileSequences.remove(filePath, sequence);
+        }
+    }
+
+    private static FileSequence intern(String filePath) {
+        if (fileSequences.size() >= MAX_INTERNED_FILES) {
+            fileSequences.clear();
+        }
+        return fileSequences.computeIfAbsent(filePath, path -> new FileSequence(nextFileId.getAndIncrement()));
+    }
+
+    static int internedFileCount() {
+        return fileSequences.size();
+    }
+
+    /**
+     * Gets the current interned id of a file path, if any node of that file has been created.
+     *
+     * @param filePath the file path
+     * @return the file id, or -1 if the file is unknown
+     */
+    public static int fileIdOf(String filePath) {
+        FileSequence sequence = fileSequences.get(filePath);
+        return sequence != null ? sequence.fileId : -1;
+    }
+
+    /**
+     * Gets the id of the file this node belongs to.
+     *
+     * @return the file id
+     */
+    public int getFileId() {
+        return fileId;
+    }
+
+    /**
+     * Gets the ordinal of this node within its file.
+     *
+     * @return the node ordinal
+     */
+    public int getOrdinal() {
+        return ordinal;
+    }
+
+    /**
+     * Packs this id into a single long, for use in primitive collections.
+     *
+     * @return file id in the high 32 bits, ordinal in the low 32 bits
+     */
+    public long asLong() {
+        return ((long) fileId << 32) | (ordinal & 0xFFFFFFFFL);
+    }
+
+    @Override
+    public int compareTo(NodeId other) {
+        int byFile = Integer.compare(fileId, other.fileId);
+        return byFile != 0 ? byFile : Integer.compare(ordinal, other.ordinal);
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) return true;
+        if (obj == null || getClass() != obj.getClass()) return false;
+
+        NodeId that = (NodeId) obj;
+        return fileId == that.fileId && ordinal == that.ordinal;
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * fileId + ordinal;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%d#%d", fileId, ordinal);
+    }
+
+    private static final class FileSequence {
+        private final int fileId;
+        private final AtomicInteger nextOrdinal = new AtomicInteger();
+
+        private FileSequence(int fileId) {
+            this.fileId = fileId;
+        }
+    }
+}
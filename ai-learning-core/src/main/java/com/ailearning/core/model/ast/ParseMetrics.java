@@ -14,17 +14,24 @@ public final class ParseMetrics {
     private final int maxDepth;
     private final int errorCount;
     private final int warningCount;
+    private final BudgetStatus budgetStatus;
     
     @JsonCreator
     public ParseMetrics(
             @JsonProperty("nodeCount") int nodeCount,
             @JsonProperty("maxDepth") int maxDepth,
             @JsonProperty("errorCount") int errorCount,
-            @JsonProperty("warningCount") int warningCount) {
+            @JsonProperty("warningCount") int warningCount,
+            @JsonProperty("budgetStatus") BudgetStatus budgetStatus) {
         this.nodeCount = Math.max(0, nodeCount);
         this.maxDepth = Math.max(0, maxDepth);
         this.errorCount = Math.max(0, errorCount);
         this.warningCount = Math.max(0, warningCount);
+        this.budgetStatus = budgetStatus != null ? budgetStatus : BudgetStatus.WITHIN_BUDGET;
+    }
+    
+    public ParseMetrics(int nodeCount, int maxDepth, int errorCount, int warningCount) {
+        this(nodeCount, maxDepth, errorCount, warningCount, BudgetStatus.WITHIN_BUDGET);
     }
     
     /**
@@ -72,6 +79,25 @@ public final class ParseMetrics {
         return warningCount;
     }
     
+    /**
+     * Gets the parse budget outcome for this file.
+     * 
+     * @return the budget status
+     */
+    public BudgetStatus getBudgetStatus() {
+        return budgetStatus;
+    }
+    
+    /**
+     * Checks if the file exceeded its size or time budget.
+     * Operators can use this to exclude pathological files from indexing.
+     * 
+     * @return true if a budget was exceeded
+     */
+    public boolean isOverBudget() {
+        return budgetStatus != BudgetStatus.WITHIN_BUDGET;
+    }
+    
     /**
      * Gets the total number of issues (errors + warnings).
      * 
@@ -112,17 +138,27 @@ public final class ParseMetrics {
         return nodeCount == that.nodeCount &&
                maxDepth == that.maxDepth &&
                errorCount == that.errorCount &&
-               warningCount == that.warningCount;
+               warningCount == that.warningCount &&
+               budgetStatus == that.budgetStatus;
     }
     
     @Override
     public int hashCode() {
-        return Objects.hash(nodeCount, maxDepth, errorCount, warningCount);
+        return Objects.hash(nodeCount, maxDepth, errorCount, warningCount, budgetStatus);
     }
     
     @Override
     public String toString() {
-        return String.format("ParseMetrics{nodes=%d, depth=%d, errors=%d, warnings=%d, complexity=%d}", 
-                           nodeCount, maxDepth, errorCount, warningCount, getComplexityScore());
+        return String.format("ParseMetrics{nodes=%d, depth=%d, errors=%d, warnings=%d, complexity=%d, budget=%s}", 
+                           nodeCount, maxDepth, errorCount, warningCount, getComplexityScore(), budgetStatus);
+    }
+    
+    /**
+     * Outcome of the per-file parse budget check.
+     */
+    public enum BudgetStatus {
+        WITHIN_BUDGET,
+        SIZE_EXCEEDED,
+        TIME_EXCEEDED
     }
 }
\ No newline at end of file
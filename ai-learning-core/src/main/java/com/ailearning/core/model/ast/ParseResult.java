@@ -22,13 +22,14 @@ public final class ParseResult {
     private final long parseTimeMs;
     private final Instant timestamp;
     private final ParseMetrics metrics;
+    private final ParseStatus status;
     
     @JsonCreator
     public ParseResult(
             @JsonProperty("rootNode") ASTNode rootNode,
             @JsonProperty("language") String language,
             @JsonProperty("filePath") String filePath,
-            @JsonProperty("successful") boolean successful,
+            @JsonProperty("status") ParseStatus status,
             @JsonProperty("errors") List<ParseError> errors,
             @JsonProperty("warnings") List<ParseWarning> warnings,
             @JsonProperty("parseTimeMs") long parseTimeMs,
@@ -37,7 +38,8 @@ public final class ParseResult {
         this.rootNode = rootNode;
         this.language = Objects.requireNonNull(language, "Language cannot be null");
         this.filePath = Objects.requireNonNull(filePath, "File path cannot be null");
-        this.successful = successful;
+        this.status = status != null ? status : ParseStatus.FAILED;
+        this.successful = this.status == ParseStatus.COMPLETE;
         this.errors = errors != null ? List.copyOf(errors) : List.of();
         this.warnings = warnings != null ? List.copyOf(warnings) : List.of();
         this.parseTimeMs = Math.max(0, parseTimeMs);
@@ -45,6 +47,13 @@ public final class ParseResult {
         this.metrics = metrics != null ? metrics : ParseMetrics.empty();
     }
     
+    public ParseResult(ASTNode rootNode, String language, String filePath, boolean successful,
+                       List<ParseError> errors, List<ParseWarning> warnings, long parseTimeMs,
+                       Instant timestamp, ParseMetrics metrics) {
+        this(rootNode, language, filePath, successful ? ParseStatus.COMPLETE : ParseStatus.FAILED,
+             errors, warnings, parseTimeMs, timestamp, metrics);
+    }
+    
     /**
      * Creates a successful parse result.
      * 
@@ -102,6 +111,68 @@ public final class ParseResult {
                               parseTimeMs, Instant.now(), metrics);
     }
     
+    /**
+     * Creates a partial parse result for a parse that ran out of time budget.
+     * The root node is the outline built before the parser stopped.
+     * 
+     * @param rootNode the partial root AST node
+     * @param language the programming language
+     * @param filePath the file path
+     * @param parseTimeMs the parsing time in milliseconds
+     * @return new partial ParseResult
+     */
+    public static ParseResult partial(ASTNode rootNode, String language, String filePath, long parseTimeMs) {
+        List<ParseWarning> warnings = List.of(ParseWarning.of(
+                "Parse time budget exceeded after " + parseTimeMs + "ms; AST is incomplete",
+                SourceLocation.at(filePath, 1, 1)));
+        ParseMetrics metrics = new ParseMetrics(
+                rootNode.getNodeCount(),
+                rootNode.getDepth(),
+                0,
+                warnings.size(),
+                ParseMetrics.BudgetStatus.TIME_EXCEEDED
+        );
+        return new ParseResult(rootNode, language, filePath, ParseStatus.PARTIAL, List.of(), warnings, 
+                              parseTimeMs, Instant.now(), metrics);
+    }
+    
+    /**
+     * Creates a failed parse result for a parse that ran out of time budget
+     * or was cancelled before any tree was built.
+     *
+     * @param language the programming language
+     * @param filePath the file path
+     * @param parseTimeMs the parsing time in milliseconds
+     * @return new failed ParseResult flagged as over budget
+     */
+    public static ParseResult timeExceeded(String language, String filePath, long parseTimeMs) {
+        List<ParseError> errors = List.of(ParseError.of(
+                "Parse stopped after " + parseTimeMs + "ms before a tree was built",
+                SourceLocation.at(filePath, 1, 1)));
+        ParseMetrics metrics = new ParseMetrics(0, 0, errors.size(), 0, ParseMetrics.BudgetStatus.TIME_EXCEEDED);
+        return new ParseResult(null, language, filePath, ParseStatus.FAILED, errors, List.of(),
+                              parseTimeMs, Instant.now(), metrics);
+    }
+
+    /**
+     * Creates a failed parse result for a file that exceeds the size budget.
+     * 
+     * @param language the programming language
+     * @param filePath the file path
+     * @param sourceSize the size of the rejected source in characters
+     * @param maxSourceSize the configured size limit
+     * @return new failed ParseResult flagged as over budget
+     */
+    public static ParseResult sizeExceeded(String language, String filePath, int sourceSize, int maxSourceSize) {
+        List<ParseError> errors = List.of(ParseError.withSuggestion(
+                "Source size " + sourceSize + " exceeds parse budget of " + maxSourceSize + " characters",
+                SourceLocation.at(filePath, 1, 1),
+                "Exclude generated or minified files from analysis"));
+        ParseMetrics metrics = new ParseMetrics(0, 0, errors.size(), 0, ParseMetrics.BudgetStatus.SIZE_EXCEEDED);
+        return new ParseResult(null, language, filePath, ParseStatus.FAILED, errors, List.of(), 
+                              0, Instant.now(), metrics);
+    }
+    
     /**
      * Gets the root AST node.
      * 
@@ -183,6 +254,33 @@ public final class ParseResult {
         return metrics;
     }
     
+    /**
+     * Gets the completion status of the parse.
+     * 
+     * @return the parse status
+     */
+    public ParseStatus getStatus() {
+        return status;
+    }
+    
+    /**
+     * Checks if the parse stopped early and carries only a partial outline.
+     * 
+     * @return true if the result is partial
+     */
+    public boolean isPartial() {
+        return status == ParseStatus.PARTIAL;
+    }
+    
+    /**
+     * Checks if a root node is available, either complete or partial.
+     * 
+     * @return true if the result carries an AST
+     */
+    public boolean hasRootNode() {
+        return rootNode != null;
+    }
+    
     /**
      * Checks if there are any errors.
      * 
@@ -216,7 +314,7 @@ public final class ParseResult {
         if (obj == null || getClass() != obj.getClass()) return false;
         
         ParseResult that = (ParseResult) obj;
-        return successful == that.successful &&
+        return status == that.status &&
                parseTimeMs == that.parseTimeMs &&
                Objects.equals(rootNode, that.rootNode) &&
                Objects.equals(language, that.language) &&
@@ -229,14 +327,23 @@ public final class ParseResult {
     
     @Override
     public int hashCode() {
-        return Objects.hash(rootNode, language, filePath, successful, errors, warnings, 
+        return Objects.hash(rootNode, language, filePath, status, errors, warnings, 
                            parseTimeMs, timestamp, metrics);
     }
     
     @Override
     public String toString() {
-        return String.format("ParseResult{language='%s', filePath='%s', successful=%s, " +
+        return String.format("ParseResult{language='%s', filePath='%s', status=%s, " +
                            "errors=%d, warnings=%d, parseTime=%dms}", 
-                           language, filePath, successful, errors.size(), warnings.size(), parseTimeMs);
+                           language, filePath, status, errors.size(), warnings.size(), parseTimeMs);
+    }
+    
+    /**
+     * Completion status of a parse.
+     */
+    public enum ParseStatus {
+        COMPLETE,
+        PARTIAL,
+        FAILED
     }
 }
\ No newline at end of file
@@ -0,0 +1,53 @@
+package com.ailearning.core.model.ast;
+
+/**
+ * Visitor with enter/exit callbacks for use with {@link ASTTraversal}.
+ * Several visitors can share one traversal; each one decides independently
+ * whether it wants to see the children of the node it just entered.
+ */
+public interface TraversalVisitor {
+
+    /**
+     * Result of entering a node.
+     */
+    enum VisitResult {
+        /** Visit the children of the node. */
+        CONTINUE,
+        /** Do not deliver the node's descendants to this visitor; {@link #exit} is still called. */
+        SKIP_CHILDREN
+    }
+
+    /**
+     * Called before any of the node's descendants are visited.
+     *
+     * @param node the node being entered
+     * @return whether this visitor wants to see the node's children
+     */
+    default VisitResult enter(ASTNode node) {
+        return VisitResult.CONTINUE;
+    }
+
+    /**
+     * Called after all of the node's descendants have been visited.
+     *
+     * @param node the node being exited
+     */
+    default void exit(ASTNode node) {
+    }
+
+    /**
+     * Adapts a simple pre-order {@link ASTVisitor} to a traversal visitor.
+     *
+     * @param visitor the visitor to call on every node
+     * @return traversal visitor that never skips children
+     */
+    static TraversalVisitor of(ASTVisitor visitor) {
+        return new TraversalVisitor() {
+            @Override
+            public VisitResult enter(ASTNode node) {
+                visitor.visit(node);
+                return VisitResult.CONTINUE;
+            }
+        };
+    }
+}
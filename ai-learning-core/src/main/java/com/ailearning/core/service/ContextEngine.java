@@ -5,8 +5,10 @@ import com.ailearning.core.model.WorkContext;
 import com.ailearning.core.model.CodeChange;
 import com.ailearning.core.model.CodeQuery;
 import com.ailearning.core.model.CodeReference;
+import com.ailearning.core.model.ast.ASTNode;
 
 import java.util.List;
+import java.util.Optional;
 import java.util.concurrent.CompletableFuture;
 
 /**
@@ -48,6 +50,17 @@ public interface ContextEngine {
      */
     CompletableFuture<List<CodeReference>> findRelatedCode(CodeQuery query);
     
+    /**
+     * Gets the AST already parsed for a file with exactly this content, so
+     * analyses of open files can reuse it instead of working from the text.
+     * 
+     * @param content the file content
+     * @return the cached tree, or empty if no file with this content is cached
+     */
+    default Optional<ASTNode> getCachedAst(String content) {
+        return Optional.empty();
+    }
+    
     /**
      * Checks if the context engine is ready to process requests.
      * 
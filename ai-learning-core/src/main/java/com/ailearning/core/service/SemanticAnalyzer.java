@@ -0,0 +1,96 @@
+package com.ailearning.core.service;
+
+import com.ailearning.core.model.CodePattern;
+import com.ailearning.core.model.CodingConvention;
+import com.ailearning.core.model.ProjectContext;
+import com.ailearning.core.model.Relationship;
+import com.ailearning.core.model.SemanticContext;
+import com.ailearning.core.model.ast.ASTNode;
+import com.ailearning.core.service.semantic.SimilarityMatrix;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Core interface for semantic code analysis.
+ * Responsible for understanding relationships between code elements,
+ * recognizing patterns and conventions, and measuring how similar code is.
+ */
+public interface SemanticAnalyzer {
+
+    /**
+     * Analyzes the relationships of a code element to the rest of the project.
+     *
+     * @param astNode the AST node to analyze
+     * @param projectContext the context of the project the node belongs to
+     * @return CompletableFuture containing the discovered relationships
+     */
+    CompletableFuture<List<Relationship>> analyzeCodeRelationships(ASTNode astNode, ProjectContext projectContext);
+
+    /**
+     * Detects design patterns and anti-patterns in an AST.
+     *
+     * @param astNode the root of the AST to scan
+     * @param language the programming language of the source
+     * @return CompletableFuture containing the detected patterns
+     */
+    CompletableFuture<List<CodePattern>> detectCodePatterns(ASTNode astNode, String language);
+
+    /**
+     * Calculates the semantic similarity between two code elements.
+     *
+     * @param node1 the first node
+     * @param node2 the second node
+     * @return CompletableFuture containing the similarity in [0, 1]
+     */
+    CompletableFuture<Double> calculateSemanticSimilarity(ASTNode node1, ASTNode node2);
+
+    /**
+     * Calculates the pairwise similarity of many code elements at once, keeping
+     * only pairs at or above the threshold. Use this instead of per-pair calls to
+     * {@link #calculateSemanticSimilarity} when grouping code for refactoring.
+     *
+     * @param nodes the nodes to compare with each other
+     * @param threshold the minimum similarity of a stored pair
+     * @return CompletableFuture containing the symmetric sparse similarity matrix
+     */
+    CompletableFuture<SimilarityMatrix> calculateSimilarityMatrix(List<ASTNode> nodes, double threshold);
+
+    /**
+     * Finds the most similar other nodes of every node in a batch.
+     *
+     * @param nodes the nodes to compare with each other
+     * @param k the maximum number of neighbors per node
+     * @param threshold the minimum similarity of a neighbor
+     * @return CompletableFuture containing a sparse matrix whose row i holds the neighbors of node i
+     */
+    CompletableFuture<SimilarityMatrix> findNearestNeighbors(List<ASTNode> nodes, int k, double threshold);
+
+    /**
+     * Learns the coding conventions used across a project.
+     *
+     * @param projectContext the project to learn from
+     * @return CompletableFuture containing the learned conventions
+     */
+    CompletableFuture<List<CodingConvention>> learnCodingConventions(ProjectContext projectContext);
+
+    /**
+     * Finds code similar to a target node.
+     *
+     * @param targetNode the node to find similar code for
+     * @param projectContext the project to search; when it lists its files, results come only from them
+     * @param threshold the minimum similarity of a result
+     * @return CompletableFuture containing similar nodes mapped to their similarity, most similar first
+     */
+    CompletableFuture<Map<ASTNode, Double>> findSimilarCode(ASTNode targetNode, ProjectContext projectContext, double threshold);
+
+    /**
+     * Builds the semantic context of a code element.
+     *
+     * @param astNode the AST node to describe
+     * @param projectContext the context of the project the node belongs to
+     * @return CompletableFuture containing the semantic context
+     */
+    CompletableFuture<SemanticContext> analyzeSemanticContext(ASTNode astNode, ProjectContext projectContext);
+}
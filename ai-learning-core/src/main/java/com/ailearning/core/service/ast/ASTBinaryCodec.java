@@ -0,0 +1,442 @@
+package com.ailearning.core.service.ast;
+
+import com.ailearning.core.model.ast.ASTNode;
+import com.ailearning.core.model.ast.ASTTraversal;
+import com.ailearning.core.model.ast.ClassNode;
+import com.ailearning.core.model.ast.ExpressionNode;
+import com.ailearning.core.model.ast.MethodNode;
+import com.ailearning.core.model.ast.ModuleNode;
+import com.ailearning.core.model.ast.SourceLocation;
+import com.ailearning.core.model.ast.StatementNode;
+import com.ailearning.core.model.ast.TraversalVisitor;
+import com.ailearning.core.model.ast.VariableNode;
+
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Compact, versioned binary encoding of AST trees.
+ * <p>
+ * Layout (all integers are unsigned LEB128 varints unless noted):
+ * <pre>
+ *   magic "ASTB" (4 bytes), format version
+ *   string table: count, then per string its UTF-8 length and bytes
+ *   node table:   count, then one record per node in post-order:
+ *     kind byte, [node type string, module nodes only], name string + 1 (0 = null),
+ *     file path string, start line, start column, end line - start line (zigzag),
+ *     end column (zigzag),
+ *     child count, attribute count, then per attribute its key string and tagged value
+ * </pre>
+ * Every name, file path, attribute key and string value is stored once in the
+ * string table and referenced by index. Post-order records let the decoder
+ * rebuild the immutable tree bottom-up with an explicit stack. Decoding reads
+ * straight from a {@link ByteBuffer}, so heap, direct and memory-mapped buffers
+ * are all read without first copying the payload.
+ */
+public final class ASTBinaryCodec {
+
+    /** Current format version written by {@link #encode(ASTNode)}. */
+    public static final int FORMAT_VERSION = 1;
+
+    private static final byte[] MAGIC = {'A', 'S', 'T', 'B'};
+
+    private static final byte KIND_CLASS = 1;
+    private static final byte KIND_METHOD = 2;
+    private static final byte KIND_VARIABLE = 3;
+    private static final byte KIND_EXPRESSION = 4;
+    private static final byte KIND_STATEMENT = 5;
+    private static final byte KIND_MODULE = 6;
+
+    private static final byte VALUE_NULL = 0;
+    private static final byte VALUE_STRING = 1;
+    private static final byte VALUE_TRUE = 2;
+    private static final byte VALUE_FALSE = 3;
+    private static final byte VALUE_INT = 4;
+    private static final byte VALUE_LONG = 5;
+    private static final byte VALUE_DOUBLE = 6;
+    private static final byte VALUE_LIST = 7;
+    private static final byte VALUE_MAP = 8;
+
+    private ASTBinaryCodec() {
+    }
+
+    /**
+     * Encodes a tree into the binary format.
+     *
+     * @param root the root of the tree to encode
+     * @return the encoded bytes
+     * @throws ASTCodecException if the tree contains an unsupported node class or attribute value
+     */
+    public static byte[] encode(ASTNode root) {
+        Objects.requireNonNull(root, "Root node cannot be null");
+
+        Map<String, Integer> strings = new LinkedHashMap<>();
+        ByteSink nodes = new ByteSink(Math.max(64, root.getNodeCount() * 12));
+        int[] nodeCount = {0};
+
+        // Exit callbacks arrive in post-order, which is exactly the record order
+        ASTTraversal.walk(root, new TraversalVisitor() {
+            @Override
+            public void exit(ASTNode node) {
+                writeNode(node, nodes, strings);
+                nodeCount[0]++;
+            }
+        });
+
+        ByteSink out = new ByteSink(nodes.size() + strings.size() * 16 + 16);
+        out.writeBytes(MAGIC, 0, MAGIC.length);
+        out.writeVarint(FORMAT_VERSION);
+        out.writeVarint(strings.size());
+        for (String value : strings.keySet()) {
+            byte[] utf8 = value.getBytes(StandardCharsets.UTF_8);
+            out.writeVarint(utf8.length);
+            out.writeBytes(utf8, 0, utf8.length);
+        }
+        out.writeVarint(nodeCount[0]);
+        out.writeBytes(nodes.buffer(), 0, nodes.size());
+        return out.toByteArray();
+    }
+
+    /**
+     * Decodes a tree from a byte array.
+     *
+     * @param data the encoded bytes
+     * @return the decoded root node
+     * @throws ASTCodecException if the data is malformed or uses an unsupported version
+     */
+    public static ASTNode decode(byte[] data) {
+        return decode(ByteBuffer.wrap(data));
+    }
+
+    /**
+     * Decodes a tree starting at the buffer's current position.
+     * The buffer itself is not modified; reads go through a duplicate view.
+     *
+     * @param buffer the buffer holding the encoded tree
+     * @return the decoded root node
+     * @throws ASTCodecException if the data is malformed or uses an unsupported version
+     */
+    public static ASTNode decode(ByteBuffer buffer) {
+        Objects.requireNonNull(buffer, "Buffer cannot be null");
+        ByteBuffer in = buffer.duplicate();
+        try {
+            for (byte expected : MAGIC) {
+                if (in.get() != expected) {
+                    throw new ASTCodecException("Not an encoded AST: bad magic");
+                }
+            }
+            int version = readVarint(in);
+            if (version < 1 || version > FORMAT_VERSION) {
+                throw new ASTCodecException("Unsupported AST format version: " + version);
+            }
+
+            String[] strings = new String[readVarint(in)];
+            for (int i = 0; i < strings.length; i++) {
+                strings[i] = readUtf8(in, readVarint(in));
+            }
+
+            int nodeCount = readVarint(in);
+            ASTNode[] stack = new ASTNode[Math.min(Math.max(nodeCount, 1), 1024)];
+            int top = 0;
+            for (int i = 0; i < nodeCount; i++) {
+                byte kind = in.get();
+                String nodeType = kind == KIND_MODULE ? strings[readVarint(in)] : null;
+                int nameIndex = readVarint(in);
+                String name = nameIndex == 0 ? null : strings[nameIndex - 1];
+                String filePath = strings[readVarint(in)];
+                int startLine = readVarint(in);
+                int startColumn = readVarint(in);
+                int endLine = (int) (startLine + unZigZag(readVarlong(in)));
+                int endColumn = (int) unZigZag(readVarlong(in));
+                SourceLocation location = new SourceLocation(filePath, startLine, startColumn, endLine, endColumn);
+
+                int childCount = readVarint(in);
+                if (childCount > top) {
+                    throw new ASTCodecException("Corrupt node table: missing children");
+                }
+                List<ASTNode> children = childCount == 0
+                        ? List.of()
+                        : Arrays.asList(Arrays.copyOfRange(stack, top - childCount, top));
+                top -= childCount;
+
+                int attributeCount = readVarint(in);
+                Map<String, Object> attributes = attributeCount == 0 ? Map.of() : new HashMap<>(attributeCount * 2);
+                for (int a = 0; a < attributeCount; a++) {
+                    attributes.put(strings[readVarint(in)], readValue(in, strings));
+                }
+
+                if (top == stack.length) {
+                    stack = Arrays.copyOf(stack, stack.length * 2);
+                }
+                stack[top++] = createNode(kind, nodeType, name, location, children, attributes);
+            }
+
+            if (top != 1) {
+                throw new ASTCodecException("Corrupt node table: expected a single root, found " + top);
+            }
+            return stack[0];
+        } catch (BufferUnderflowException | ArrayIndexOutOfBoundsException e) {
+            throw new ASTCodecException("Truncated or corrupt AST data", e);
+        }
+    }
+
+    private static void writeNode(ASTNode node, ByteSink out, Map<String, Integer> strings) {
+        out.writeByte(kindOf(node));
+        if (node instanceof ModuleNode) {
+            out.writeVarint(intern(node.getNodeType(), strings));
+        }
+        out.writeVarint(node.getName() == null ? 0 : intern(node.getName(), strings) + 1);
+
+        SourceLocation location = node.getLocation();
+        out.writeVarint(intern(location.getFilePath(), strings));
+        out.writeVarint(location.getStartLine());
+        out.writeVarint(location.getStartColumn());
+        // SourceLocation clamps the start but not the end, so both may sit below the start
+        out.writeVarlong(zigZag((long) location.getEndLine() - location.getStartLine()));
+        out.writeVarlong(zigZag(location.getEndColumn()));
+
+        out.writeVarint(node.getChildren().size());
+        Map<String, Object> attributes = node.getAttributes();
+        out.writeVarint(attributes.size());
+        for (Map.Entry<String, Object> attribute : attributes.entrySet()) {
+            out.writeVarint(intern(attribute.getKey(), strings));
+            writeValue(attribute.getValue(), out, strings);
+        }
+    }
+
+    private static void writeValue(Object value, ByteSink out, Map<String, Integer> strings) {
+        if (value == null) {
+            out.writeByte(VALUE_NULL);
+        } else if (value instanceof String text) {
+            out.writeByte(VALUE_STRING);
+            out.writeVarint(intern(text, strings));
+        } else if (value instanceof Boolean flag) {
+            out.writeByte(flag ? VALUE_TRUE : VALUE_FALSE);
+        } else if (value instanceof Integer number) {
+            out.writeByte(VALUE_INT);
+            out.writeVarlong(zigZag(number));
+        } else if (value instanceof Long number) {
+            out.writeByte(VALUE_LONG);
+            out.writeVarlong(zigZag(number));
+        } else if (value instanceof Double number) {
+            out.writeByte(VALUE_DOUBLE);
+            out.writeLong(Double.doubleToRawLongBits(number));
+        } else if (value instanceof List<?> list) {
+            out.writeByte(VALUE_LIST);
+            out.writeVarint(list.size());
+            for (Object element : list) {
+                writeValue(element, out, strings);
+            }
+        } else if (value instanceof Map<?, ?> map) {
+            out.writeByte(VALUE_MAP);
+            out.writeVarint(map.size());
+            for (Map.Entry<?, ?> entry : map.entrySet()) {
+                if (!(entry.getKey() instanceof String key)) {
+                    throw new ASTCodecException("Unsupported attribute map key: " + entry.getKey());
+                }
+                out.writeVarint(intern(key, strings));
+                writeValue(entry.getValue(), out, strings);
+            }
+        } else {
+            throw new ASTCodecException("Unsupported attribute value type: " + value.getClass().getName());
+        }
+    }
+
+    private static Object readValue(ByteBuffer in, String[] strings) {
+        byte tag = in.get();
+        switch (tag) {
+            case VALUE_NULL:
+                return null;
+            case VALUE_STRING:
+                return strings[readVarint(in)];
+            case VALUE_TRUE:
+                return Boolean.TRUE;
+            case VALUE_FALSE:
+                return Boolean.FALSE;
+            case VALUE_INT:
+                return (int) unZigZag(readVarlong(in));
+            case VALUE_LONG:
+                return unZigZag(readVarlong(in));
+            case VALUE_DOUBLE:
+                return Double.longBitsToDouble(in.getLong());
+            case VALUE_LIST: {
+                int size = readVarint(in);
+                List<Object> list = new ArrayList<>(size);
+                for (int i = 0; i < size; i++) {
+                    list.add(readValue(in, strings));
+                }
+                return Collections.unmodifiableList(list);
+            }
+            case VALUE_MAP: {
+                int size = readVarint(in);
+                Map<String, Object> map = new LinkedHashMap<>(size * 2);
+                for (int i = 0; i < size; i++) {
+                    String key = strings[readVarint(in)];
+                    map.put(key, readValue(in, strings));
+                }
+                return Collections.unmodifiableMap(map);
+            }
+            default:
+                throw new ASTCodecException("Unknown attribute value tag: " + tag);
+        }
+    }
+
+    private static byte kindOf(ASTNode node) {
+        if (node instanceof ClassNode) return KIND_CLASS;
+        if (node instanceof MethodNode) return KIND_METHOD;
+        if (node instanceof VariableNode) return KIND_VARIABLE;
+        if (node instanceof ExpressionNode) return KIND_EXPRESSION;
+        if (node instanceof StatementNode) return KIND_STATEMENT;
+        if (node instanceof ModuleNode) return KIND_MODULE;
+        throw new ASTCodecException("Unsupported node class: " + node.getClass().getName());
+    }
+
+    private static ASTNode createNode(byte kind, String nodeType, String name, SourceLocation location,
+                                      List<ASTNode> children, Map<String, Object> attributes) {
+        return switch (kind) {
+            case KIND_CLASS -> new ClassNode(name, location, children, attributes);
+            case KIND_METHOD -> new MethodNode(name, location, children, attributes);
+            case KIND_VARIABLE -> new VariableNode(name, location, children, attributes);
+            case KIND_EXPRESSION -> new ExpressionNode(name, location, children, attributes);
+            case KIND_STATEMENT -> new StatementNode(name, location, children, attributes);
+            case KIND_MODULE -> new ModuleNode(nodeType, name, location, children, attributes);
+            default -> throw new ASTCodecException("Unknown node kind: " + kind);
+        };
+    }
+
+    private static int intern(String value, Map<String, Integer> strings) {
+        Integer index = strings.get(value);
+        if (index == null) {
+            index = strings.size();
+            strings.put(value, index);
+        }
+        return index;
+    }
+
+    private static String readUtf8(ByteBuffer in, int length) {
+        if (length > in.remaining()) {
+            throw new BufferUnderflowException();
+        }
+        String value;
+        if (in.hasArray()) {
+            value = new String(in.array(), in.arrayOffset() + in.position(), length, StandardCharsets.UTF_8);
+            in.position(in.position() + length);
+        } else {
+            byte[] bytes = new byte[length];
+            in.get(bytes);
+            value = new String(bytes, StandardCharsets.UTF_8);
+        }
+        return value;
+    }
+
+    private static int readVarint(ByteBuffer in) {
+        long value = readVarlong(in);
+        if (value > Integer.MAX_VALUE) {
+            throw new ASTCodecException("Varint out of range: " + value);
+        }
+        return (int) value;
+    }
+
+    private static long readVarlong(ByteBuffer in) {
+        long result = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            byte b = in.get();
+            result |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return result;
+            }
+        }
+        throw new ASTCodecException("Malformed varint");
+    }
+
+    private static long zigZag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    private static long unZigZag(long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    /**
+     * Growable byte array with varint writers.
+     */
+    private static final class ByteSink {
+        private byte[] buffer;
+        private int size;
+
+        ByteSink(int initialCapacity) {
+            this.buffer = new byte[initialCapacity];
+        }
+
+        void writeByte(int value) {
+            ensureCapacity(1);
+            buffer[size++] = (byte) value;
+        }
+
+        void writeBytes(byte[] bytes, int offset, int length) {
+            ensureCapacity(length);
+            System.arraycopy(bytes, offset, buffer, size, length);
+            size += length;
+        }
+
+        void writeVarint(int value) {
+            writeVarlong(value & 0xFFFFFFFFL);
+        }
+
+        void writeVarlong(long value) {
+            ensureCapacity(10);
+            while ((value & ~0x7FL) != 0) {
+                buffer[size++] = (byte) ((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            buffer[size++] = (byte) value;
+        }
+
+        void writeLong(long value) {
+            ensureCapacity(8);
+            for (int shift = 56; shift >= 0; shift -= 8) {
+                buffer[size++] = (byte) (value >>> shift);
+            }
+        }
+
+        byte[] buffer() {
+            return buffer;
+        }
+
+        int size() {
+            return size;
+        }
+
+        byte[] toByteArray() {
+            return Arrays.copyOf(buffer, size);
+        }
+
+        private void ensureCapacity(int additional) {
+            if (size + additional > buffer.length) {
+                buffer = Arrays.copyOf(buffer, Math.max(buffer.length * 2, size + additional));
+            }
+        }
+    }
+
+    /**
+     * Exception thrown when a tree cannot be encoded or decoded.
+     */
+    public static class ASTCodecException extends RuntimeException {
+        public ASTCodecException(String message) {
+            super(message);
+        }
+
+        public ASTCodecException(String message, Throwable cause) {
+            super(message, cause);
+        }
+    }
+}
@@ -8,6 +8,8 @@ import java.util.concurrent.CompletableFuture;
 /**
  * Interface for Abstract Syntax Tree parsing across multiple programming languages.
  * Provides language-agnostic AST parsing capabilities for code analysis.
+ * Implementations honour a {@link ParseBudget} so that pathological files
+ * (minified bundles, huge generated sources) cannot tie up parser threads.
  */
 public interface ASTParser {
     
@@ -55,4 +57,20 @@ public interface ASTParser {
      * @return CompletableFuture containing validation result
      */
     CompletableFuture<Boolean> validateSyntax(String sourceCode, String language);
+    
+    /**
+     * Sets the per-file size and time budget applied to subsequent parses.
+     * Files over the size budget fail fast; parses over the time budget
+     * return a partial result carrying the outline built so far.
+     * 
+     * @param budget the parse budget
+     */
+    void setParseBudget(ParseBudget budget);
+    
+    /**
+     * Gets the per-file parse budget currently in effect.
+     * 
+     * @return the parse budget
+     */
+    ParseBudget getParseBudget();
 }
\ No newline at end of file
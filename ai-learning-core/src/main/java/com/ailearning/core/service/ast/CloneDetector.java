@@ -0,0 +1,336 @@
+package com.ailearning.core.service.ast;
+
+import com.ailearning.core.model.ast.ASTNode;
+import com.ailearning.core.model.ast.ASTTraversal;
+import com.ailearning.core.model.ast.ExpressionNode;
+import com.ailearning.core.model.ast.SourceLocation;
+import com.ailearning.core.model.ast.StatementNode;
+import com.ailearning.core.model.ast.TraversalVisitor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * Project-wide clone detection over parsed ASTs using Merkle-style subtree
+ * fingerprints.
+ * <p>
+ * Every subtree gets a fingerprint computed bottom-up from its node kind and
+ * its children's fingerprints. Identifiers and literal values are left out, so
+ * a copy whose variables were renamed or whose constants were changed (a
+ * "Type-2" clone) fingerprints the same as the original. Subtrees of at least
+ * {@link #getMinNodes()} nodes are bucketed by fingerprint in a single pass over
+ * all files; every bucket with two or more members is a clone group.
+ * {@link ASTNode#getStructuralHash()}, which does include names and literals,
+ * then tells exact copies apart from renamed ones.
+ * <p>
+ * A group is dropped when each member sits inside a distinct member of a larger
+ * group, so a cloned method is reported once rather than once per statement.
+ */
+public class CloneDetector {
+
+    private static final Logger logger = LoggerFactory.getLogger(CloneDetector.class);
+
+    /** Smallest subtree considered, so single calls and trivial blocks are not reported. */
+    public static final int DEFAULT_MIN_NODES = 10;
+
+    private final int minNodes;
+
+    public CloneDetector() {
+        this(DEFAULT_MIN_NODES);
+    }
+
+    /**
+     * Creates a detector that ignores subtrees smaller than the given size.
+     *
+     * @param minNodes minimum number of nodes in a reported clone
+     */
+    public CloneDetector(int minNodes) {
+        if (minNodes < 2) {
+            throw new IllegalArgumentException("Minimum clone size must be at least 2 nodes");
+        }
+        this.minNodes = minNodes;
+    }
+
+    public int getMinNodes() {
+        return minNodes;
+    }
+
+    /**
+     * Finds groups of cloned subtrees across the given files.
+     *
+     * @param fileAsts AST roots keyed by file path
+     * @return clone groups, largest subtrees first
+     */
+    public List<CloneGroup> detectClones(Map<String, ASTNode> fileAsts) {
+        Objects.requireNonNull(fileAsts, "File ASTs cannot be null");
+        long startTime = System.currentTimeMillis();
+
+        FingerprintCollector collector = new FingerprintCollector();
+        // Sorted so that member order, and therefore each group's representative, is stable
+        for (ASTNode root : new TreeMap<>(fileAsts).values()) {
+            if (root != null) {
+                ASTTraversal.walk(root, collector);
+            }
+        }
+
+        List<CloneGroup> groups = new ArrayList<>();
+        for (Map.Entry<Long, List<ASTNode>> bucket : collector.buckets.entrySet()) {
+            List<ASTNode> members = bucket.getValue();
+            if (members.size() >= 2 && !isSubsumed(members, collector)) {
+                groups.add(new CloneGroup(bucket.getKey(), members));
+            }
+        }
+        groups.sort(Comparator.comparingInt(CloneGroup::getNodeCount).reversed()
+                .thenComparing(group -> locationOf(group.getRepresentative())));
+
+        logger.debug("Fingerprinted {} subtrees in {} files into {} clone groups in {}ms",
+                collector.fingerprints.size(), fileAsts.size(), groups.size(),
+                System.currentTimeMillis() - startTime);
+        return groups;
+    }
+
+    /**
+     * A group is subsumed when its members have pairwise distinct parents that
+     * all share one fingerprint, since those parents form a larger clone group.
+     */
+    private static boolean isSubsumed(List<ASTNode> members, FingerprintCollector collector) {
+        Long parentFingerprint = null;
+        Set<ASTNode> parents = Collections.newSetFromMap(new IdentityHashMap<>());
+        for (ASTNode member : members) {
+            ASTNode parent = collector.parents.get(member);
+            Long fingerprint = parent != null ? collector.fingerprints.get(parent) : null;
+            if (fingerprint == null || !parents.add(parent)) {
+                return false;
+            }
+            if (parentFingerprint == null) {
+                parentFingerprint = fingerprint;
+            } else if (!parentFingerprint.equals(fingerprint)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Post-order pass keeping a stack of child fingerprints per open node.
+     */
+    private final class FingerprintCollector implements TraversalVisitor {
+
+        private final Map<Long, List<ASTNode>> buckets = new HashMap<>();
+        private final Map<ASTNode, Long> fingerprints = new IdentityHashMap<>();
+        private final Map<ASTNode, ASTNode> parents = new IdentityHashMap<>();
+
+        private long[] values = new long[64];
+        private int valueCount;
+        private int[] frames = new int[32];
+        private ASTNode[] path = new ASTNode[32];
+        private int depth;
+
+        @Override
+        public VisitResult enter(ASTNode node) {
+            if (depth == frames.length) {
+                frames = Arrays.copyOf(frames, depth * 2);
+                path = Arrays.copyOf(path, depth * 2);
+            }
+            frames[depth] = valueCount;
+            path[depth] = node;
+            depth++;
+            return VisitResult.CONTINUE;
+        }
+
+        @Override
+        public void exit(ASTNode node) {
+            depth--;
+            int firstChild = frames[depth];
+            long fingerprint = label(node);
+            for (int i = firstChild; i < valueCount; i++) {
+                fingerprint = mix(fingerprint, values[i]);
+            }
+            fingerprint = mix(fingerprint, valueCount - firstChild);
+            valueCount = firstChild;
+            if (valueCount == values.length) {
+                values = Arrays.copyOf(values, values.length * 2);
+            }
+            values[valueCount++] = fingerprint;
+
+            if (node.getNodeCount() >= minNodes) {
+                // Mixing in the size keeps a 64-bit collision from pairing unrelated subtrees
+                long key = mix(fingerprint, node.getNodeCount());
+                buckets.computeIfAbsent(key, k -> new ArrayList<>(2)).add(node);
+                fingerprints.put(node, key);
+                if (depth > 0) {
+                    parents.put(node, path[depth - 1]);
+                }
+            }
+        }
+    }
+
+    /**
+     * Hashes the parts of a node that survive renaming. Statement and
+     * expression names are their kind ("if", "methodcall"), so they are kept;
+     * declaration names and literal values are not.
+     */
+    private static long label(ASTNode node) {
+        long hash = mix(node.getClass().getName().hashCode(), node.getNodeType().hashCode());
+        if (isStructural(node)) {
+            hash = mix(hash, Objects.hashCode(node.getName()));
+        } else {
+            hash = mix(hash, node.getName() != null ? 1 : 0);
+        }
+        Object parameters = node.getAttribute("parameters");
+        if (parameters instanceof Collection) {
+            hash = mix(hash, ((Collection<?>) parameters).size());
+        }
+        return hash;
+    }
+
+    private static boolean isStructural(ASTNode node) {
+        return node instanceof StatementNode || node instanceof ExpressionNode;
+    }
+
+    private static long mix(long hash, long value) {
+        long h = (hash ^ value) * 0x9E3779B97F4A7C15L;
+        return h ^ (h >>> 32);
+    }
+
+    private static String locationOf(ASTNode node) {
+        SourceLocation location = node.getLocation();
+        return location.getFilePath() + ":" + location.getStartLine();
+    }
+
+    /**
+     * Subtrees that share a normalized fingerprint.
+     */
+    public static final class CloneGroup {
+
+        private final long fingerprint;
+        private final List<ASTNode> members;
+        private final boolean exact;
+        private final double similarity;
+
+        private CloneGroup(long fingerprint, List<ASTNode> members) {
+            this.fingerprint = fingerprint;
+            this.members = List.copyOf(members);
+            this.exact = members.stream().mapToLong(ASTNode::getStructuralHash).distinct().count() == 1;
+            this.similarity = exact ? 1.0 : lexicalSimilarity(this.members);
+        }
+
+        public long getFingerprint() {
+            return fingerprint;
+        }
+
+        public List<ASTNode> getMembers() {
+            return members;
+        }
+
+        /**
+         * Gets the first member in file order, used as the group's sample.
+         */
+        public ASTNode getRepresentative() {
+            return members.get(0);
+        }
+
+        public int getNodeCount() {
+            return members.get(0).getNodeCount();
+        }
+
+        /**
+         * Checks whether all members are identical including names and literals.
+         *
+         * @return true for exact copies, false when identifiers or literals differ
+         */
+        public boolean isExact() {
+            return exact;
+        }
+
+        /**
+         * Gets the average share of nodes in each member whose identifier or
+         * literal matches the representative's at the same position.
+         *
+         * @return 1.0 for exact copies, lower the more was renamed
+         */
+        public double getSimilarity() {
+            return similarity;
+        }
+
+        /**
+         * Gets the members' locations as {@code file:line}.
+         */
+        public List<String> getLocations() {
+            List<String> locations = new ArrayList<>(members.size());
+            for (ASTNode member : members) {
+                locations.add(locationOf(member));
+            }
+            return locations;
+        }
+
+        /**
+         * Gets the distinct files the members appear in, in member order.
+         */
+        public List<String> getFiles() {
+            Set<String> files = new LinkedHashSet<>();
+            for (ASTNode member : members) {
+                files.add(member.getLocation().getFilePath());
+            }
+            return new ArrayList<>(files);
+        }
+
+        private static double lexicalSimilarity(List<ASTNode> members) {
+            List<String> reference = lexemes(members.get(0));
+            int nodeCount = members.get(0).getNodeCount();
+            double total = 0.0;
+            for (int m = 1; m < members.size(); m++) {
+                List<String> other = lexemes(members.get(m));
+                int length = Math.min(reference.size(), other.size());
+                int renamed = Math.abs(reference.size() - other.size());
+                for (int i = 0; i < length; i++) {
+                    if (!reference.get(i).equals(other.get(i))) {
+                        renamed++;
+                    }
+                }
+                total += Math.max(0.0, 1.0 - (double) renamed / nodeCount);
+            }
+            return total / (members.size() - 1);
+        }
+
+        /**
+         * Collects, in pre-order, exactly what the fingerprint leaves out.
+         */
+        private static List<String> lexemes(ASTNode root) {
+            List<String> lexemes = new ArrayList<>();
+            ASTTraversal.walk(root, new TraversalVisitor() {
+                @Override
+                public VisitResult enter(ASTNode node) {
+                    if (!isStructural(node) && node.getName() != null) {
+                        lexemes.add(node.getName());
+                    }
+                    Object literal = node.getAttribute("literalValue");
+                    if (literal != null) {
+                        lexemes.add(literal.toString());
+                    }
+                    return VisitResult.CONTINUE;
+                }
+            });
+            return lexemes;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("CloneGroup{members=%d, nodes=%d, exact=%s, similarity=%.2f}",
+                    members.size(), getNodeCount(), exact, similarity);
+        }
+    }
+}
@@ -0,0 +1,513 @@
+package com.ailearning.core.service.ast;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.IntConsumer;
+
+/**
+ * Immutable directed graph over interned string labels, stored in compressed
+ * sparse row (CSR) form.
+ * <p>
+ * Every label is mapped to a dense int vertex id. Outgoing edges of vertex
+ * {@code v} are {@code targets[offsets[v] .. offsets[v + 1])}, sorted and free
+ * of duplicates; a second CSR holds the reversed edges so predecessor lookups
+ * cost the same as successor lookups. Strongly connected components are
+ * computed once, on first request, with an iterative Tarjan pass.
+ */
+public final class CompactGraph {
+
+    private static final CompactGraph EMPTY = new Builder().build();
+
+    private final String[] labels;
+    private final Map<String, Integer> vertexIds;
+    private final int[] forwardOffsets;
+    private final int[] forwardTargets;
+    private final int[] reverseOffsets;
+    private final int[] reverseSources;
+    private volatile StronglyConnectedComponents components;
+
+    private CompactGraph(String[] labels, Map<String, Integer> vertexIds,
+                         int[] forwardOffsets, int[] forwardTargets,
+                         int[] reverseOffsets, int[] reverseSources) {
+        this.labels = labels;
+        this.vertexIds = vertexIds;
+        this.forwardOffsets = forwardOffsets;
+        this.forwardTargets = forwardTargets;
+        this.reverseOffsets = reverseOffsets;
+        this.reverseSources = reverseSources;
+    }
+
+    /**
+     * Gets the empty graph.
+     *
+     * @return a graph with no vertices
+     */
+    public static CompactGraph empty() {
+        return EMPTY;
+    }
+
+    /**
+     * Builds a graph from an adjacency map. Labels that only appear as edge
+     * targets become vertices too.
+     *
+     * @param adjacencyList map of source label to target labels
+     * @return the compact graph
+     */
+    public static CompactGraph fromAdjacency(Map<String, ? extends Iterable<String>> adjacencyList) {
+        Builder builder = new Builder();
+        adjacencyList.forEach((source, targets) -> {
+            int from = builder.intern(source);
+            for (String target : targets) {
+                builder.addEdge(from, builder.intern(target));
+            }
+        });
+        return builder.build();
+    }
+
+    public int getVertexCount() {
+        return labels.length;
+    }
+
+    public int getEdgeCount() {
+        return forwardTargets.length;
+    }
+
+    /**
+     * Gets the vertex id for a label.
+     *
+     * @param label the vertex label
+     * @return the vertex id, or -1 if the label is not in the graph
+     */
+    public int indexOf(String label) {
+        Integer id = vertexIds.get(label);
+        return id != null ? id : -1;
+    }
+
+    public String getLabel(int vertex) {
+        return labels[vertex];
+    }
+
+    public int getOutDegree(int vertex) {
+        return forwardOffsets[vertex + 1] - forwardOffsets[vertex];
+    }
+
+    public int getInDegree(int vertex) {
+        return reverseOffsets[vertex + 1] - reverseOffsets[vertex];
+    }
+
+    /**
+     * Gets the successors of a vertex in ascending id order.
+     *
+     * @param vertex the vertex id
+     * @return a copy of the successor ids
+     */
+    public int[] getSuccessors(int vertex) {
+        return Arrays.copyOfRange(forwardTargets, forwardOffsets[vertex], forwardOffsets[vertex + 1]);
+    }
+
+    /**
+     * Gets the predecessors of a vertex in ascending id order.
+     *
+     * @param vertex the vertex id
+     * @return a copy of the predecessor ids
+     */
+    public int[] getPredecessors(int vertex) {
+        return Arrays.copyOfRange(reverseSources, reverseOffsets[vertex], reverseOffsets[vertex + 1]);
+    }
+
+    public void forEachSuccessor(int vertex, IntConsumer action) {
+        for (int i = forwardOffsets[vertex], end = forwardOffsets[vertex + 1]; i < end; i++) {
+            action.accept(forwardTargets[i]);
+        }
+    }
+
+    public void forEachPredecessor(int vertex, IntConsumer action) {
+        for (int i = reverseOffsets[vertex], end = reverseOffsets[vertex + 1]; i < end; i++) {
+            action.accept(reverseSources[i]);
+        }
+    }
+
+    /**
+     * Checks whether an edge exists. Rows are sorted, so this is a binary search.
+     *
+     * @param from the source vertex id
+     * @param to the target vertex id
+     * @return true if the edge exists
+     */
+    public boolean hasEdge(int from, int to) {
+        return Arrays.binarySearch(forwardTargets, forwardOffsets[from], forwardOffsets[from + 1], to) >= 0;
+    }
+
+    /**
+     * Checks whether the target is reachable from the source by breadth-first search.
+     *
+     * @param from the source vertex id
+     * @param to the target vertex id
+     * @return true if a path exists, including the empty path when both are equal
+     */
+    public boolean hasPath(int from, int to) {
+        if (from == to) {
+            return true;
+        }
+        BitSet visited = new BitSet(labels.length);
+        int[] queue = new int[Math.min(labels.length, 64)];
+        int head = 0;
+        int tail = 0;
+        queue[tail++] = from;
+        visited.set(from);
+        while (head < tail) {
+            int current = queue[head++];
+            for (int i = forwardOffsets[current], end = forwardOffsets[current + 1]; i < end; i++) {
+                int next = forwardTargets[i];
+                if (next == to) {
+                    return true;
+                }
+                if (!visited.get(next)) {
+                    visited.set(next);
+                    if (tail == queue.length) {
+                        queue = Arrays.copyOf(queue, Math.min(labels.length, queue.length * 2));
+                    }
+                    queue[tail++] = next;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Gets the strongly connected components, computing them on first use.
+     *
+     * @return the component decomposition
+     */
+    public StronglyConnectedComponents getStronglyConnectedComponents() {
+        StronglyConnectedComponents result = components;
+        if (result == null) {
+            result = computeComponents();
+            components = result;
+        }
+        return result;
+    }
+
+    /**
+     * Finds a shortest cycle through the given vertex using only vertices of its
+     * component.
+     *
+     * @param vertex the vertex id
+     * @return the cycle's vertex ids starting at {@code vertex}, or an empty array if none
+     */
+    public int[] findCycleThrough(int vertex) {
+        StronglyConnectedComponents scc = getStronglyConnectedComponents();
+        int component = scc.getComponent(vertex);
+        if (!scc.isCyclic(component)) {
+            return new int[0];
+        }
+        if (hasEdge(vertex, vertex)) {
+            return new int[]{vertex};
+        }
+
+        Map<Integer, Integer> parent = new HashMap<>();
+        int[] queue = new int[scc.getSize(component)];
+        int head = 0;
+        int tail = 0;
+        queue[tail++] = vertex;
+        parent.put(vertex, -1);
+        while (head < tail) {
+            int current = queue[head++];
+            for (int i = forwardOffsets[current], end = forwardOffsets[current + 1]; i < end; i++) {
+                int next = forwardTargets[i];
+                if (next == vertex) {
+                    List<Integer> path = new ArrayList<>();
+                    for (int v = current; v != -1; v = parent.get(v)) {
+                        path.add(v);
+                    }
+                    int[] cycle = new int[path.size()];
+                    for (int k = 0; k < cycle.length; k++) {
+                        cycle[k] = path.get(cycle.length - 1 - k);
+                    }
+                    return cycle;
+                }
+                if (scc.getComponent(next) == component && !parent.containsKey(next)) {
+                    parent.put(next, current);
+                    queue[tail++] = next;
+                }
+            }
+        }
+        return new int[0];
+    }
+
+    /**
+     * Iterative Tarjan: an explicit call stack of (vertex, next edge index)
+     * replaces recursion so deep dependency chains cannot overflow the thread stack.
+     */
+    private StronglyConnectedComponents computeComponents() {
+        int n = labels.length;
+        int[] index = new int[n];
+        int[] lowLink = new int[n];
+        int[] componentOf = new int[n];
+        boolean[] onStack = new boolean[n];
+        Arrays.fill(index, -1);
+
+        int[] sccStack = new int[n];
+        int sccTop = 0;
+        int[] callVertex = new int[n];
+        int[] callEdge = new int[n];
+        int nextIndex = 0;
+        int componentCount = 0;
+
+        for (int root = 0; root < n; root++) {
+            if (index[root] != -1) {
+                continue;
+            }
+            int callTop = 0;
+            callVertex[0] = root;
+            callEdge[0] = forwardOffsets[root];
+            index[root] = lowLink[root] = nextIndex++;
+            sccStack[sccTop++] = root;
+            onStack[root] = true;
+
+            while (callTop >= 0) {
+                int v = callVertex[callTop];
+                int edge = callEdge[callTop];
+                if (edge < forwardOffsets[v + 1]) {
+                    callEdge[callTop] = edge + 1;
+                    int w = forwardTargets[edge];
+                    if (index[w] == -1) {
+                        index[w] = lowLink[w] = nextIndex++;
+                        sccStack[sccTop++] = w;
+                        onStack[w] = true;
+                        callTop++;
+                        callVertex[callTop] = w;
+                        callEdge[callTop] = forwardOffsets[w];
+                    } else if (onStack[w]) {
+                        lowLink[v] = Math.min(lowLink[v], index[w]);
+                    }
+                    continue;
+                }
+
+                if (lowLink[v] == index[v]) {
+                    int w;
+                    do {
+                        w = sccStack[--sccTop];
+                        onStack[w] = false;
+                        componentOf[w] = componentCount;
+                    } while (w != v);
+                    componentCount++;
+                }
+                callTop--;
+                if (callTop >= 0) {
+                    int parent = callVertex[callTop];
+                    lowLink[parent] = Math.min(lowLink[parent], lowLink[v]);
+                }
+            }
+        }
+
+        int[] sizes = new int[componentCount];
+        for (int v = 0; v < n; v++) {
+            sizes[componentOf[v]]++;
+        }
+        BitSet cyclic = new BitSet(componentCount);
+        for (int v = 0; v < n; v++) {
+            int c = componentOf[v];
+            if (sizes[c] > 1 || hasEdge(v, v)) {
+                cyclic.set(c);
+            }
+        }
+        return new StronglyConnectedComponents(componentOf, sizes, cyclic);
+    }
+
+    /**
+     * Strongly connected component decomposition of a {@link CompactGraph}.
+     * Component ids are in reverse topological order: every edge between two
+     * components goes from a higher id to a lower or equal id.
+     */
+    public static final class StronglyConnectedComponents {
+        private final int[] componentOf;
+        private final int[] sizes;
+        private final BitSet cyclic;
+
+        private StronglyConnectedComponents(int[] componentOf, int[] sizes, BitSet cyclic) {
+            this.componentOf = componentOf;
+            this.sizes = sizes;
+            this.cyclic = cyclic;
+        }
+
+        public int getComponentCount() {
+            return sizes.length;
+        }
+
+        public int getComponent(int vertex) {
+            return componentOf[vertex];
+        }
+
+        public int getSize(int component) {
+            return sizes[component];
+        }
+
+        /**
+         * Checks whether a component contains a cycle, i.e. has more than one
+         * vertex or a self-loop.
+         *
+         * @param component the component id
+         * @return true if the component is cyclic
+         */
+        public boolean isCyclic(int component) {
+            return cyclic.get(component);
+        }
+
+        public int getCyclicComponentCount() {
+            return cyclic.cardinality();
+        }
+
+        /**
+         * Gets the vertices of a component in ascending id order.
+         *
+         * @param component the component id
+         * @return the member vertex ids
+         */
+        public int[] getMembers(int component) {
+            int[] members = new int[sizes[component]];
+            int count = 0;
+            for (int v = 0; v < componentOf.length && count < members.length; v++) {
+                if (componentOf[v] == component) {
+                    members[count++] = v;
+                }
+            }
+            return members;
+        }
+    }
+
+    /**
+     * Accumulates labelled edges and packs them into a {@link CompactGraph}.
+     * Not thread-safe.
+     */
+    public static final class Builder {
+        private final Map<String, Integer> vertexIds = new HashMap<>();
+        private final List<String> labels = new ArrayList<>();
+        private int[] edgeSources = new int[16];
+        private int[] edgeTargets = new int[16];
+        private int edgeCount;
+
+        /**
+         * Gets or assigns the vertex id for a label.
+         *
+         * @param label the vertex label
+         * @return the dense vertex id
+         */
+        public int intern(String label) {
+            Objects.requireNonNull(label, "Vertex label cannot be null");
+            Integer id = vertexIds.get(label);
+            if (id == null) {
+                id = labels.size();
+                vertexIds.put(label, id);
+                labels.add(label);
+            }
+            return id;
+        }
+
+        /**
+         * Adds an edge between two interned vertices. Duplicate edges are
+         * removed when the graph is built.
+         *
+         * @param from the source vertex id
+         * @param to the target vertex id
+         * @return this builder
+         */
+        public Builder addEdge(int from, int to) {
+            ensureEdgeCapacity(edgeCount + 1);
+            edgeSources[edgeCount] = from;
+            edgeTargets[edgeCount] = to;
+            edgeCount++;
+            return this;
+        }
+
+        public Builder addEdge(String from, String to) {
+            return addEdge(intern(from), intern(to));
+        }
+
+        /**
+         * Adds every vertex and edge of another builder. Each of its labels is
+         * interned once and its edges are copied by remapped id, so builders
+         * filled by independent workers combine without hashing every edge again.
+         *
+         * @param other the builder to copy from
+         * @return this builder
+         */
+        public Builder addAll(Builder other) {
+            int[] remap = new int[other.labels.size()];
+            for (int id = 0; id < remap.length; id++) {
+                remap[id] = intern(other.labels.get(id));
+            }
+            ensureEdgeCapacity(edgeCount + other.edgeCount);
+            for (int i = 0; i < other.edgeCount; i++) {
+                edgeSources[edgeCount] = remap[other.edgeSources[i]];
+                edgeTargets[edgeCount] = remap[other.edgeTargets[i]];
+                edgeCount++;
+            }
+            return this;
+        }
+
+        private void ensureEdgeCapacity(int capacity) {
+            if (capacity > edgeSources.length) {
+                int grown = Math.max(capacity, edgeSources.length * 2);
+                edgeSources = Arrays.copyOf(edgeSources, grown);
+                edgeTargets = Arrays.copyOf(edgeTargets, grown);
+            }
+        }
+
+        public CompactGraph build() {
+            int n = labels.size();
+            int[] forwardOffsets = new int[n + 1];
+            int[] forwardTargets = pack(edgeSources, edgeTargets, edgeCount, n, forwardOffsets);
+            // Reverse CSR is derived from the deduplicated forward edges
+            int[] reverseFrom = new int[forwardTargets.length];
+            for (int v = 0; v < n; v++) {
+                for (int i = forwardOffsets[v]; i < forwardOffsets[v + 1]; i++) {
+                    reverseFrom[i] = v;
+                }
+            }
+            int[] reverseOffsets = new int[n + 1];
+            int[] reverseSources = pack(forwardTargets, reverseFrom, forwardTargets.length, n, reverseOffsets);
+            return new CompactGraph(labels.toArray(new String[0]), Map.copyOf(vertexIds),
+                    forwardOffsets, forwardTargets, reverseOffsets, reverseSources);
+        }
+
+        /**
+         * Counting-sorts edges by row key into CSR form, then sorts and
+         * deduplicates each row. Fills {@code offsets} and returns the column array.
+         */
+        private static int[] pack(int[] rowKeys, int[] columns, int count, int vertexCount, int[] offsets) {
+            int[] counts = new int[vertexCount + 1];
+            for (int i = 0; i < count; i++) {
+                counts[rowKeys[i] + 1]++;
+            }
+            for (int v = 0; v < vertexCount; v++) {
+                counts[v + 1] += counts[v];
+            }
+            int[] cursor = Arrays.copyOf(counts, vertexCount);
+            int[] packed = new int[count];
+            for (int i = 0; i < count; i++) {
+                packed[cursor[rowKeys[i]]++] = columns[i];
+            }
+
+            int write = 0;
+            for (int v = 0; v < vertexCount; v++) {
+                int start = counts[v];
+                int end = counts[v + 1];
+                Arrays.sort(packed, start, end);
+                offsets[v] = write;
+                for (int i = start; i < end; i++) {
+                    if (i == start || packed[i] != packed[i - 1]) {
+                        packed[write++] = packed[i];
+                    }
+                }
+            }
+            offsets[vertexCount] = write;
+            return write == count ? packed : Arrays.copyOf(packed, write);
+        }
+    }
+}
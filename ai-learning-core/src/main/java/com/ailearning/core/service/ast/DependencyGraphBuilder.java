@@ -1,26 +1,49 @@
 package com.ailearning.core.service.ast;
 
 import com.ailearning.core.model.ast.ASTNode;
+import com.ailearning.core.model.ast.ASTTraversal;
 import com.ailearning.core.model.ast.ClassNode;
 import com.ailearning.core.model.ast.MethodNode;
+import com.ailearning.core.model.ast.ModuleNode;
+import com.ailearning.core.model.ast.TraversalVisitor;
 import com.ailearning.core.model.Dependency;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.util.*;
 import java.util.concurrent.CompletableFuture;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
 
 /**
  * Builds dependency graphs from AST nodes to understand code relationships.
  * Analyzes imports, method calls, field accesses, and inheritance relationships.
+ * <p>
+ * Besides one-shot builds, the builder maintains a live graph that is updated
+ * one file at a time through {@link #applyFileDelta}, so editors can keep the
+ * graph current without rebuilding it from every AST in the project. The live
+ * graph resolves dependencies the same way a one-shot build does, so applying
+ * every file yields the graph {@link #buildDependencyGraph} builds from them.
  */
 public class DependencyGraphBuilder {
     
     private static final Logger logger = LoggerFactory.getLogger(DependencyGraphBuilder.class);
     
-    private final Map<String, Set<String>> dependencyGraph = new ConcurrentHashMap<>();
-    private final Map<String, ASTNode> nodeRegistry = new ConcurrentHashMap<>();
+    private static final Set<String> PRIMITIVE_TYPES = Set.of("int", "long", "short", "byte", "float", "double",
+        "boolean", "char", "void", "String", "Object", "unknown");
+    
+    // Live graph state, guarded by liveLock
+    private final Object liveLock = new Object();
+    private final Map<String, Set<String>> liveForward = new HashMap<>();
+    private final Map<String, Set<String>> liveReverse = new HashMap<>();
+    private final Map<String, FileContribution> liveFiles = new HashMap<>();
+    private final Map<String, ASTNode> liveNodes = new HashMap<>();
+    // Symbolic dependencies of every live node, and the nodes naming each simple type name
+    private final Map<String, SymbolicNode> liveSymbols = new HashMap<>();
+    private final Map<String, Set<String>> liveReferences = new HashMap<>();
+    private final TypeTable liveTypes = new TypeTable();
+    private volatile DependencyGraph liveSnapshot;
+    private final List<Consumer<DependencyGraphDelta>> graphListeners = new CopyOnWriteArrayList<>();
     
     /**
      * Builds a dependency graph from a collection of AST nodes.
@@ -29,89 +52,647 @@ public class DependencyGraphBuilder {
      * @return CompletableFuture containing the dependency graph
      */
     public CompletableFuture<DependencyGraph> buildDependencyGraph(Collection<ASTNode> astNodes) {
-        return CompletableFuture.supplyAsync(() -> {
-            logger.debug("Building dependency graph from {} AST nodes", astNodes.size());
+        return buildDependencyGraph(astNodes, 1);
+    }
+    
+    /**
+     * Builds a dependency graph from a collection of AST nodes using several
+     * workers.
+     * <p>
+     * The trees are split into {@code parallelism} slices. Each worker walks its
+     * slice into a private shard of nodes, symbolic dependencies and declared
+     * type names, so no state is shared while the trees are analyzed. The
+     * shards' declarations are then merged into one type-name table, every shard
+     * resolves its dependencies against that table in parallel, and the resolved
+     * edges are packed into a single graph.
+     * <p>
+     * Resolution turns a symbolic target such as {@code class:Base} into the key
+     * of the class that declares {@code Base}, using the file's imports, its
+     * package and finally a simple name declared exactly once. Targets that do
+     * not resolve, such as library types, are kept as they are.
+     * 
+     * @param astNodes the AST nodes to analyze
+     * @param parallelism the number of shards to analyze concurrently
+     * @return CompletableFuture containing the dependency graph
+     */
+    public CompletableFuture<DependencyGraph> buildDependencyGraph(Collection<ASTNode> astNodes, int parallelism) {
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("Parallelism must be at least 1");
+        }
+        List<ASTNode> roots = new ArrayList<>(astNodes);
+        int shardCount = Math.max(1, Math.min(parallelism, roots.size()));
+        logger.debug("Building dependency graph from {} AST nodes in {} shards", roots.size(), shardCount);
+        
+        List<CompletableFuture<GraphShard>> shards = new ArrayList<>(shardCount);
+        for (int shard = 0; shard < shardCount; shard++) {
+            List<ASTNode> slice = roots.subList(shard * roots.size() / shardCount,
+                                                (shard + 1) * roots.size() / shardCount);
+            shards.add(CompletableFuture.supplyAsync(() -> buildShard(slice)));
+        }
+        
+        return CompletableFuture.allOf(shards.toArray(CompletableFuture[]::new))
+            .thenCompose(ignored -> {
+                List<GraphShard> built = shards.stream().map(CompletableFuture::join).toList();
+                TypeTable types = TypeTable.merge(built);
+                CompletableFuture<?>[] resolutions = built.stream()
+                    .map(shard -> CompletableFuture.runAsync(() -> shard.resolve(types)))
+                    .toArray(CompletableFuture[]::new);
+                return CompletableFuture.allOf(resolutions).thenApply(done -> mergeShards(built));
+            });
+    }
+    
+    /**
+     * Walks one slice of trees into a shard. Touches nothing outside the shard.
+     */
+    private GraphShard buildShard(List<ASTNode> roots) {
+        GraphShard shard = new GraphShard();
+        for (ASTNode root : roots) {
+            SymbolScope scope = SymbolScope.of(root);
+            ASTTraversal.walk(root, TraversalVisitor.of(node -> {
+                String nodeKey = getNodeKey(node);
+                List<String> dependencies = new ArrayList<>();
+                analyzeDependencies(node, dependencies::add);
+                shard.nodes.add(new SymbolicNode(nodeKey, node, dependencies, scope));
+                Declaration declaration = Declaration.of(node, nodeKey, scope);
+                if (declaration != null) {
+                    shard.declarations.add(declaration);
+                }
+            }));
+        }
+        return shard;
+    }
+    
+    /**
+     * Combines resolved shards into one graph. Shards are added in slice order,
+     * so the result does not depend on which worker finished first.
+     */
+    private DependencyGraph mergeShards(List<GraphShard> shards) {
+        CompactGraph.Builder graphBuilder;
+        Map<String, ASTNode> nodesByKey;
+        if (shards.size() == 1) {
+            graphBuilder = shards.get(0).graph;
+            nodesByKey = shards.get(0).nodesByKey;
+        } else {
+            graphBuilder = new CompactGraph.Builder();
+            nodesByKey = new HashMap<>();
+            for (GraphShard shard : shards) {
+                graphBuilder.addAll(shard.graph);
+                nodesByKey.putAll(shard.nodesByKey);
+            }
+        }
+        int resolved = shards.stream().mapToInt(shard -> shard.resolvedCount).sum();
+        
+        DependencyGraph graph = new DependencyGraph(graphBuilder.build(), nodesByKey);
+        
+        logger.debug("Built dependency graph with {} nodes and {} edges ({} dependencies resolved to declarations)", 
+                    nodesByKey.size(), graph.getCompactGraph().getEdgeCount(), resolved);
+        
+        return graph;
+    }
+    
+    /**
+     * Replaces one file's contribution to the live graph.
+     * <p>
+     * The file's nodes and edges are replaced: edges that disappeared are
+     * removed from the forward and reverse indexes, new edges are added, and
+     * the resulting {@link DependencyGraphDelta} is sent to every listener.
+     * Dependencies are resolved against the classes declared by every live
+     * file, as in {@link #buildDependencyGraph}. When the file declares,
+     * removes or moves a class, nodes of other files that name the class are
+     * resolved again, and their changed edges are part of the same delta.
+     * <p>
+     * The builder records what it last applied for each file, and that record
+     * is authoritative. {@code oldAst} is only checked against it, and a
+     * mismatch is logged because it means the caller missed an earlier update.
+     * 
+     * @param filePath the edited file
+     * @param oldAst the tree previously applied for the file, or null if new
+     * @param newAst the file's current tree, or null if the file was deleted
+     * @return the changes made to the live graph
+     */
+    public DependencyGraphDelta applyFileDelta(String filePath, ASTNode oldAst, ASTNode newAst) {
+        Objects.requireNonNull(filePath, "File path cannot be null");
+        
+        // Derive the new contribution outside the lock; it only reads the tree
+        Map<String, ASTNode> newNodes = new LinkedHashMap<>();
+        Map<String, Set<String>> newDependencies = new LinkedHashMap<>();
+        Set<Declaration> newDeclarations = new LinkedHashSet<>();
+        SymbolScope scope = newAst != null ? SymbolScope.of(newAst) : SymbolScope.EMPTY;
+        if (newAst != null) {
+            ASTTraversal.walk(newAst, TraversalVisitor.of(node -> {
+                String nodeKey = getNodeKey(node);
+                newNodes.put(nodeKey, node);
+                Set<String> dependencies = newDependencies.computeIfAbsent(nodeKey, key -> new LinkedHashSet<>());
+                analyzeDependencies(node, dependencies::add);
+                Declaration declaration = Declaration.of(node, nodeKey, scope);
+                if (declaration != null) {
+                    newDeclarations.add(declaration);
+                }
+            }));
+        }
+        
+        DependencyGraphDelta delta;
+        synchronized (liveLock) {
+            FileContribution previous = liveFiles.get(filePath);
+            Set<String> oldKeys = previous != null ? previous.nodeKeys : Set.of();
+            Set<Declaration> oldDeclarations = previous != null ? previous.declarations : Set.of();
+            if (oldAst != null && previous != null && oldAst.getStructuralHash() != previous.rootHash) {
+                logger.warn("Previous AST for {} does not match the last applied version", filePath);
+            }
             
-            // Clear previous state
-            dependencyGraph.clear();
-            nodeRegistry.clear();
+            // Swap the file's declarations, noting the type names whose resolution may change
+            Set<String> changedNames = new HashSet<>();
+            for (Declaration declaration : oldDeclarations) {
+                if (!newDeclarations.contains(declaration)) {
+                    liveTypes.remove(declaration);
+                    changedNames.add(declaration.simpleName);
+                }
+            }
+            for (Declaration declaration : newDeclarations) {
+                if (!oldDeclarations.contains(declaration)) {
+                    liveTypes.add(declaration);
+                    changedNames.add(declaration.simpleName);
+                }
+            }
+            oldKeys.forEach(this::forgetSymbols);
+            newDependencies.forEach((nodeKey, dependencies) -> rememberSymbols(
+                new SymbolicNode(nodeKey, newNodes.get(nodeKey), List.copyOf(dependencies), scope)));
             
-            // Register all nodes
-            astNodes.forEach(this::registerNode);
+            // The file's own nodes, plus nodes elsewhere naming a type whose declaration changed
+            Set<String> stale = new LinkedHashSet<>(newDependencies.keySet());
+            for (String name : changedNames) {
+                stale.addAll(liveReferences.getOrDefault(name, Set.of()));
+            }
             
-            // Analyze dependencies
-            astNodes.forEach(this::analyzeDependencies);
+            Set<String> addedNodes = new LinkedHashSet<>();
+            Set<String> removedNodes = new LinkedHashSet<>();
+            List<DependencyGraphDelta.Edge> addedEdges = new ArrayList<>();
+            List<DependencyGraphDelta.Edge> removedEdges = new ArrayList<>();
             
-            // Build the final graph
-            DependencyGraph graph = new DependencyGraph(
-                new HashMap<>(dependencyGraph),
-                new HashMap<>(nodeRegistry)
-            );
+            for (String nodeKey : oldKeys) {
+                if (!newNodes.containsKey(nodeKey)) {
+                    removedNodes.add(nodeKey);
+                    for (String dependency : liveForward.getOrDefault(nodeKey, Set.of())) {
+                        removedEdges.add(new DependencyGraphDelta.Edge(nodeKey, dependency));
+                    }
+                }
+            }
+            for (String nodeKey : stale) {
+                if (!oldKeys.contains(nodeKey) && newNodes.containsKey(nodeKey)) {
+                    addedNodes.add(nodeKey);
+                }
+                Set<String> resolved = liveSymbols.get(nodeKey).resolve(liveTypes);
+                Set<String> existing = liveForward.getOrDefault(nodeKey, Set.of());
+                for (String dependency : existing) {
+                    if (!resolved.contains(dependency)) {
+                        removedEdges.add(new DependencyGraphDelta.Edge(nodeKey, dependency));
+                    }
+                }
+                for (String dependency : resolved) {
+                    if (!existing.contains(dependency)) {
+                        addedEdges.add(new DependencyGraphDelta.Edge(nodeKey, dependency));
+                    }
+                }
+            }
             
-            logger.debug("Built dependency graph with {} nodes and {} edges", 
-                        nodeRegistry.size(), dependencyGraph.size());
+            removedEdges.forEach(edge -> unlink(edge.getFrom(), edge.getTo()));
+            removedNodes.forEach(nodeKey -> {
+                liveForward.remove(nodeKey);
+                liveNodes.remove(nodeKey);
+            });
+            newNodes.forEach((nodeKey, node) -> {
+                liveNodes.put(nodeKey, node);
+                liveForward.computeIfAbsent(nodeKey, key -> new HashSet<>());
+            });
+            addedEdges.forEach(edge -> link(edge.getFrom(), edge.getTo()));
             
-            return graph;
-        });
+            if (newAst != null) {
+                liveFiles.put(filePath, new FileContribution(newNodes.keySet(), newDeclarations,
+                    newAst.getStructuralHash()));
+            } else {
+                liveFiles.remove(filePath);
+            }
+            
+            delta = new DependencyGraphDelta(filePath, addedNodes, removedNodes, addedEdges, removedEdges);
+            if (!delta.isEmpty()) {
+                liveSnapshot = null;
+            }
+        }
+        
+        logger.debug("Applied {}", delta);
+        for (Consumer<DependencyGraphDelta> listener : graphListeners) {
+            try {
+                listener.accept(delta);
+            } catch (Exception e) {
+                logger.warn("Dependency graph listener failed for {}: {}", filePath, e.getMessage());
+            }
+        }
+        return delta;
     }
     
     /**
-     * Registers a node in the registry for dependency analysis.
+     * Gets an immutable snapshot of the live graph. The snapshot is cached and
+     * only rebuilt after a delta has changed the graph.
+     * 
+     * @return the current live dependency graph
      */
-    private void registerNode(ASTNode node) {
-        String nodeId = getNodeId(node);
-        nodeRegistry.put(nodeId, node);
-        dependencyGraph.putIfAbsent(nodeId, new HashSet<>());
+    public DependencyGraph getLiveGraph() {
+        DependencyGraph snapshot = liveSnapshot;
+        if (snapshot == null) {
+            synchronized (liveLock) {
+                snapshot = liveSnapshot;
+                if (snapshot == null) {
+                    snapshot = new DependencyGraph(CompactGraph.fromAdjacency(liveForward), liveNodes);
+                    liveSnapshot = snapshot;
+                }
+            }
+        }
+        return snapshot;
+    }
+    
+    /**
+     * Gets the live dependents of a graph key without building a snapshot.
+     * 
+     * @param nodeKey the dependency target
+     * @return copy of the keys that currently depend on it
+     */
+    public Set<String> getLiveDependents(String nodeKey) {
+        synchronized (liveLock) {
+            return Set.copyOf(liveReverse.getOrDefault(nodeKey, Set.of()));
+        }
+    }
+    
+    /**
+     * Registers a listener for live graph changes. Listeners are called on the
+     * thread that applied the delta, after the graph has been updated.
+     * 
+     * @param listener the listener to add
+     */
+    public void addGraphListener(Consumer<DependencyGraphDelta> listener) {
+        graphListeners.add(Objects.requireNonNull(listener, "Listener cannot be null"));
+    }
+    
+    public void removeGraphListener(Consumer<DependencyGraphDelta> listener) {
+        graphListeners.remove(listener);
+    }
+    
+    private void link(String from, String to) {
+        liveForward.computeIfAbsent(from, key -> new HashSet<>()).add(to);
+        liveReverse.computeIfAbsent(to, key -> new HashSet<>()).add(from);
+    }
+    
+    private void unlink(String from, String to) {
+        Set<String> dependencies = liveForward.get(from);
+        if (dependencies != null) {
+            dependencies.remove(to);
+        }
+        Set<String> dependents = liveReverse.get(to);
+        if (dependents != null) {
+            dependents.remove(from);
+            if (dependents.isEmpty()) {
+                liveReverse.remove(to);
+            }
+        }
+    }
+    
+    private void rememberSymbols(SymbolicNode symbolicNode) {
+        liveSymbols.put(symbolicNode.nodeKey, symbolicNode);
+        for (String name : symbolicNode.referencedNames()) {
+            liveReferences.computeIfAbsent(name, key -> new HashSet<>()).add(symbolicNode.nodeKey);
+        }
+    }
+    
+    private void forgetSymbols(String nodeKey) {
+        SymbolicNode symbolicNode = liveSymbols.remove(nodeKey);
+        if (symbolicNode == null) {
+            return;
+        }
+        for (String name : symbolicNode.referencedNames()) {
+            Set<String> referencing = liveReferences.get(name);
+            if (referencing != null) {
+                referencing.remove(nodeKey);
+                if (referencing.isEmpty()) {
+                    liveReferences.remove(name);
+                }
+            }
+        }
+    }
+    
+    /**
+     * What one file last contributed to the live graph.
+     */
+    private static final class FileContribution {
+        private final Set<String> nodeKeys;
+        private final Set<Declaration> declarations;
+        private final long rootHash;
         
-        // Recursively register child nodes
-        node.getChildren().forEach(this::registerNode);
+        FileContribution(Set<String> nodeKeys, Set<Declaration> declarations, long rootHash) {
+            this.nodeKeys = Set.copyOf(nodeKeys);
+            this.declarations = Set.copyOf(declarations);
+            this.rootHash = rootHash;
+        }
     }
     
     /**
-     * Analyzes dependencies for a given AST node.
+     * One worker's share of a parallel build.
      */
-    private void analyzeDependencies(ASTNode node) {
-        String nodeId = getNodeId(node);
-        Set<String> dependencies = dependencyGraph.get(nodeId);
+    private static final class GraphShard {
+        private final List<SymbolicNode> nodes = new ArrayList<>();
+        private final List<Declaration> declarations = new ArrayList<>();
+        // Filled by resolve(), interned against this shard only
+        private final CompactGraph.Builder graph = new CompactGraph.Builder();
+        private final Map<String, ASTNode> nodesByKey = new HashMap<>();
+        private int resolvedCount;
         
+        /**
+         * Resolves symbolic dependencies that name a declared type and interns
+         * the shard's nodes and edges into its own graph builder.
+         */
+        void resolve(TypeTable types) {
+            for (SymbolicNode symbolicNode : nodes) {
+                nodesByKey.put(symbolicNode.nodeKey, symbolicNode.node);
+                int source = graph.intern(symbolicNode.nodeKey);
+                for (String dependency : symbolicNode.dependencies) {
+                    String target = symbolicNode.resolve(dependency, types);
+                    if (!target.equals(dependency)) {
+                        resolvedCount++;
+                    }
+                    graph.addEdge(source, graph.intern(target));
+                }
+            }
+            nodes.clear();
+        }
+    }
+    
+    /**
+     * A node with its symbolic dependencies and the scope they are resolved in.
+     */
+    private static final class SymbolicNode {
+        private final String nodeKey;
+        private final ASTNode node;
+        private final List<String> dependencies;
+        private final SymbolScope scope;
+        
+        SymbolicNode(String nodeKey, ASTNode node, List<String> dependencies, SymbolScope scope) {
+            this.nodeKey = nodeKey;
+            this.node = node;
+            this.dependencies = dependencies;
+            this.scope = scope;
+        }
+        
+        /**
+         * Resolves one dependency.
+         * 
+         * @return the declaring node key, or the symbolic target if it does not resolve
+         */
+        String resolve(String dependency, TypeTable types) {
+            String target = types.resolve(dependency, scope);
+            // A class naming its own type is not a dependency cycle
+            return target != null && !target.equals(nodeKey) ? target : dependency;
+        }
+        
+        Set<String> resolve(TypeTable types) {
+            Set<String> targets = new LinkedHashSet<>();
+            for (String dependency : dependencies) {
+                targets.add(resolve(dependency, types));
+            }
+            return targets;
+        }
+        
+        /**
+         * Gets the simple type names the dependencies mention. A declaration of
+         * any other name cannot change how this node resolves.
+         */
+        Set<String> referencedNames() {
+            Set<String> names = new HashSet<>();
+            for (String dependency : dependencies) {
+                int colon = dependency.indexOf(':');
+                if (colon >= 0) {
+                    names.add(simpleName(baseTypeName(dependency.substring(colon + 1))));
+                }
+            }
+            return names;
+        }
+    }
+    
+    /**
+     * A class declaration: the names it can be referred to by and its node key.
+     */
+    private static final class Declaration {
+        private final String simpleName;
+        private final String qualifiedName;
+        private final String nodeKey;
+        
+        private Declaration(String simpleName, String qualifiedName, String nodeKey) {
+            this.simpleName = simpleName;
+            this.qualifiedName = qualifiedName;
+            this.nodeKey = nodeKey;
+        }
+        
+        /**
+         * @return the node's declaration, or null if it does not declare a named class
+         */
+        static Declaration of(ASTNode node, String nodeKey, SymbolScope scope) {
+            if (!(node instanceof ClassNode) || node.getName() == null) {
+                return null;
+            }
+            return new Declaration(node.getName(), scope.qualify(node.getName()), nodeKey);
+        }
+        
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Declaration that)) return false;
+            return nodeKey.equals(that.nodeKey) && qualifiedName.equals(that.qualifiedName);
+        }
+        
+        @Override
+        public int hashCode() {
+            return Objects.hash(nodeKey, qualifiedName);
+        }
+    }
+    
+    /**
+     * Package and single-type imports of the file a node was declared in.
+     */
+    private static final class SymbolScope {
+        private static final SymbolScope EMPTY = new SymbolScope(null, Map.of());
+        
+        private final String packageName;
+        private final Map<String, String> importsBySimpleName;
+        
+        private SymbolScope(String packageName, Map<String, String> importsBySimpleName) {
+            this.packageName = packageName;
+            this.importsBySimpleName = importsBySimpleName;
+        }
+        
+        static SymbolScope of(ASTNode root) {
+            Object packageName = root.getAttribute("package");
+            Object imports = root.getAttribute("imports");
+            if (!(packageName instanceof String) && !(imports instanceof List)) {
+                return EMPTY;
+            }
+            Map<String, String> importsBySimpleName = new HashMap<>();
+            if (imports instanceof List) {
+                for (Object imported : (List<?>) imports) {
+                    if (imported instanceof String qualifiedName) {
+                        importsBySimpleName.put(simpleName(qualifiedName), qualifiedName);
+                    }
+                }
+            }
+            return new SymbolScope(packageName instanceof String ? (String) packageName : null, importsBySimpleName);
+        }
+        
+        String qualify(String simpleName) {
+            return packageName != null && !packageName.isEmpty() ? packageName + "." + simpleName : simpleName;
+        }
+    }
+    
+    /**
+     * Project-wide table from type names to the keys of the classes declaring
+     * them. A name declared by more than one class is never resolved.
+     */
+    private static final class TypeTable {
+        private final Map<String, Set<String>> byQualifiedName = new HashMap<>();
+        private final Map<String, Set<String>> bySimpleName = new HashMap<>();
+        
+        static TypeTable merge(List<GraphShard> shards) {
+            TypeTable table = new TypeTable();
+            for (GraphShard shard : shards) {
+                shard.declarations.forEach(table::add);
+            }
+            return table;
+        }
+        
+        void add(Declaration declaration) {
+            bySimpleName.computeIfAbsent(declaration.simpleName, key -> new HashSet<>(2)).add(declaration.nodeKey);
+            byQualifiedName.computeIfAbsent(declaration.qualifiedName, key -> new HashSet<>(2))
+                .add(declaration.nodeKey);
+        }
+        
+        void remove(Declaration declaration) {
+            removeKey(bySimpleName, declaration.simpleName, declaration.nodeKey);
+            removeKey(byQualifiedName, declaration.qualifiedName, declaration.nodeKey);
+        }
+        
+        private static void removeKey(Map<String, Set<String>> table, String name, String nodeKey) {
+            Set<String> nodeKeys = table.get(name);
+            if (nodeKeys != null && nodeKeys.remove(nodeKey) && nodeKeys.isEmpty()) {
+                table.remove(name);
+            }
+        }
+        
+        /**
+         * Resolves a symbolic dependency target.
+         * 
+         * @return the declaring node key, or null if the target stays symbolic
+         */
+        String resolve(String target, SymbolScope scope) {
+            int colon = target.indexOf(':');
+            if (colon < 0) {
+                return null;
+            }
+            String kind = target.substring(0, colon);
+            String name = baseTypeName(target.substring(colon + 1));
+            switch (kind) {
+                case "import":
+                    return lookup(byQualifiedName, name);
+                case "class":
+                case "interface":
+                case "type":
+                case "exception":
+                    return resolveTypeName(name, scope);
+                default:
+                    return null;
+            }
+        }
+        
+        private String resolveTypeName(String name, SymbolScope scope) {
+            if (name.indexOf('.') >= 0) {
+                return lookup(byQualifiedName, name);
+            }
+            String imported = scope.importsBySimpleName.get(name);
+            if (imported != null) {
+                return lookup(byQualifiedName, imported);
+            }
+            String samePackage = lookup(byQualifiedName, scope.qualify(name));
+            return samePackage != null ? samePackage : lookup(bySimpleName, name);
+        }
+        
+        private static String lookup(Map<String, Set<String>> table, String name) {
+            Set<String> nodeKeys = table.get(name);
+            return nodeKeys != null && nodeKeys.size() == 1 ? nodeKeys.iterator().next() : null;
+        }
+    }
+    
+    private static String simpleName(String qualifiedName) {
+        return qualifiedName.substring(qualifiedName.lastIndexOf('.') + 1);
+    }
+    
+    /**
+     * Strips type arguments and array brackets, so {@code List<Item>[]} becomes {@code List}.
+     */
+    private static String baseTypeName(String typeName) {
+        int end = typeName.length();
+        int generic = typeName.indexOf('<');
+        if (generic >= 0) {
+            end = generic;
+        }
+        int array = typeName.indexOf('[');
+        if (array >= 0 && array < end) {
+            end = array;
+        }
+        return typeName.substring(0, end).trim();
+    }
+    
+    /**
+     * Analyzes dependencies for a given AST node.
+     */
+    private void analyzeDependencies(ASTNode node, Consumer<String> dependencies) {
         if (node instanceof ClassNode) {
             analyzeClassDependencies((ClassNode) node, dependencies);
         } else if (node instanceof MethodNode) {
             analyzeMethodDependencies((MethodNode) node, dependencies);
+        } else if (node instanceof ModuleNode) {
+            analyzeImports(node, dependencies);
+        }
+    }
+    
+    /**
+     * Analyzes import dependencies recorded on a file or class node.
+     */
+    private void analyzeImports(ASTNode node, Consumer<String> dependencies) {
+        Object imports = node.getAttribute("imports");
+        if (imports instanceof List) {
+            @SuppressWarnings("unchecked")
+            List<String> importList = (List<String>) imports;
+            importList.forEach(importName -> 
+                dependencies.accept("import:" + importName));
         }
-        
-        // Recursively analyze child nodes
-        node.getChildren().forEach(this::analyzeDependencies);
     }
     
     /**
      * Analyzes dependencies for a class node.
      */
-    private void analyzeClassDependencies(ClassNode classNode, Set<String> dependencies) {
+    private void analyzeClassDependencies(ClassNode classNode, Consumer<String> dependencies) {
         // Analyze superclass dependency
         String superclass = classNode.getSuperclass();
         if (superclass != null) {
-            dependencies.add("class:" + superclass);
+            dependencies.accept("class:" + superclass);
         }
         
         // Analyze interface dependencies
         classNode.getInterfaces().forEach(interfaceName -> 
-            dependencies.add("interface:" + interfaceName));
+            dependencies.accept("interface:" + interfaceName));
         
         // Analyze import dependencies
-        Object imports = classNode.getAttribute("imports");
-        if (imports instanceof List) {
-            @SuppressWarnings("unchecked")
-            List<String> importList = (List<String>) imports;
-            importList.forEach(importName -> 
-                dependencies.add("import:" + importName));
-        }
+        analyzeImports(classNode, dependencies);
         
         // Analyze field type dependencies
         classNode.getFields().forEach(field -> {
             String fieldType = field.getType();
             if (fieldType != null && !isPrimitiveType(fieldType)) {
-                dependencies.add("type:" + fieldType);
+                dependencies.accept("type:" + fieldType);
             }
         });
         
@@ -119,14 +700,14 @@ public class DependencyGraphBuilder {
         classNode.getMethods().forEach(method -> {
             String returnType = method.getReturnType();
             if (returnType != null && !isPrimitiveType(returnType) && !"void".equals(returnType)) {
-                dependencies.add("type:" + returnType);
+                dependencies.accept("type:" + returnType);
             }
             
             // Analyze parameter type dependencies
             method.getParameters().forEach(param -> {
                 String paramType = param.get("type");
                 if (paramType != null && !isPrimitiveType(paramType)) {
-                    dependencies.add("type:" + paramType);
+                    dependencies.accept("type:" + paramType);
                 }
             });
         });
@@ -135,33 +716,33 @@ public class DependencyGraphBuilder {
     /**
      * Analyzes dependencies for a method node.
      */
-    private void analyzeMethodDependencies(MethodNode methodNode, Set<String> dependencies) {
+    private void analyzeMethodDependencies(MethodNode methodNode, Consumer<String> dependencies) {
         // Analyze return type dependency
         String returnType = methodNode.getReturnType();
         if (returnType != null && !isPrimitiveType(returnType) && !"void".equals(returnType)) {
-            dependencies.add("type:" + returnType);
+            dependencies.accept("type:" + returnType);
         }
         
         // Analyze parameter dependencies
         methodNode.getParameters().forEach(param -> {
             String paramType = param.get("type");
             if (paramType != null && !isPrimitiveType(paramType)) {
-                dependencies.add("type:" + paramType);
+                dependencies.accept("type:" + paramType);
             }
         });
         
         // Analyze exception dependencies
         methodNode.getThrows().forEach(exceptionType -> 
-            dependencies.add("exception:" + exceptionType));
+            dependencies.accept("exception:" + exceptionType));
         
         // TODO: Analyze method body for method calls, field accesses, etc.
         // This would require more sophisticated AST traversal
     }
     
     /**
-     * Generates a unique identifier for an AST node.
+     * Generates the graph key for an AST node. Computed once per node at registration.
      */
-    private String getNodeId(ASTNode node) {
+    private String getNodeKey(ASTNode node) {
         String location = node.getLocation().toString();
         return node.getNodeType() + ":" + (node.getName() != null ? node.getName() : "anonymous") + "@" + location;
     }
@@ -170,19 +751,27 @@ public class DependencyGraphBuilder {
      * Checks if a type is a primitive type.
      */
     private boolean isPrimitiveType(String type) {
-        return Set.of("int", "long", "short", "byte", "float", "double", "boolean", "char", 
-                     "void", "String", "Object", "unknown").contains(type);
+        return PRIMITIVE_TYPES.contains(type);
     }
     
     /**
      * Represents a dependency graph with nodes and their relationships.
+     * <p>
+     * This is a string-keyed view over a {@link CompactGraph}: dependency and
+     * dependent sets are backed by the sorted vertex ids of a CSR row, dependents
+     * come from the reverse index instead of a scan over every node, and cycle
+     * detection uses the graph's strongly connected components.
      */
     public static class DependencyGraph {
-        private final Map<String, Set<String>> adjacencyList;
+        private final CompactGraph graph;
         private final Map<String, ASTNode> nodes;
         
         public DependencyGraph(Map<String, Set<String>> adjacencyList, Map<String, ASTNode> nodes) {
-            this.adjacencyList = Map.copyOf(adjacencyList);
+            this(CompactGraph.fromAdjacency(adjacencyList), nodes);
+        }
+        
+        public DependencyGraph(CompactGraph graph, Map<String, ASTNode> nodes) {
+            this.graph = Objects.requireNonNull(graph, "Graph cannot be null");
             this.nodes = Map.copyOf(nodes);
         }
         
@@ -193,7 +782,8 @@ public class DependencyGraphBuilder {
          * @return set of dependency identifiers
          */
         public Set<String> getDependencies(String nodeId) {
-            return adjacencyList.getOrDefault(nodeId, Set.of());
+            int vertex = graph.indexOf(nodeId);
+            return vertex < 0 ? Set.of() : new VertexSet(graph, graph.getSuccessors(vertex));
         }
         
         /**
@@ -203,13 +793,8 @@ public class DependencyGraphBuilder {
          * @return set of dependent node identifiers
          */
         public Set<String> getDependents(String nodeId) {
-            Set<String> dependents = new HashSet<>();
-            adjacencyList.forEach((node, deps) -> {
-                if (deps.contains(nodeId)) {
-                    dependents.add(node);
-                }
-            });
-            return dependents;
+            int vertex = graph.indexOf(nodeId);
+            return vertex < 0 ? Set.of() : new VertexSet(graph, graph.getPredecessors(vertex));
         }
         
         /**
@@ -231,6 +816,15 @@ public class DependencyGraphBuilder {
             return nodes.get(nodeId);
         }
         
+        /**
+         * Gets the compact graph backing this view.
+         * 
+         * @return the int-indexed graph
+         */
+        public CompactGraph getCompactGraph() {
+            return graph;
+        }
+        
         /**
          * Checks if there's a path between two nodes.
          * 
@@ -241,72 +835,39 @@ public class DependencyGraphBuilder {
         public boolean hasPath(String fromNode, String toNode) {
             if (fromNode.equals(toNode)) return true;
             
-            Set<String> visited = new HashSet<>();
-            Queue<String> queue = new LinkedList<>();
-            queue.offer(fromNode);
-            visited.add(fromNode);
-            
-            while (!queue.isEmpty()) {
-                String current = queue.poll();
-                Set<String> dependencies = adjacencyList.getOrDefault(current, Set.of());
-                
-                for (String dependency : dependencies) {
-                    if (dependency.equals(toNode)) {
-                        return true;
-                    }
-                    if (!visited.contains(dependency)) {
-                        visited.add(dependency);
-                        queue.offer(dependency);
-                    }
-                }
-            }
-            
-            return false;
+            int from = graph.indexOf(fromNode);
+            int to = graph.indexOf(toNode);
+            return from >= 0 && to >= 0 && graph.hasPath(from, to);
         }
         
         /**
          * Detects circular dependencies in the graph.
+         * Reports one shortest cycle for every cyclic strongly connected component.
          * 
          * @return list of circular dependency chains
          */
         public List<List<String>> detectCircularDependencies() {
-            List<List<String>> cycles = new ArrayList<>();
-            Set<String> visited = new HashSet<>();
-            Set<String> recursionStack = new HashSet<>();
-            
-            for (String node : nodes.keySet()) {
-                if (!visited.contains(node)) {
-                    detectCyclesUtil(node, visited, recursionStack, new ArrayList<>(), cycles);
-                }
+            CompactGraph.StronglyConnectedComponents components = graph.getStronglyConnectedComponents();
+            if (components.getCyclicComponentCount() == 0) {
+                return List.of();
             }
             
-            return cycles;
-        }
-        
-        /**
-         * Utility method for cycle detection using DFS.
-         */
-        private void detectCyclesUtil(String node, Set<String> visited, Set<String> recursionStack, 
-                                    List<String> currentPath, List<List<String>> cycles) {
-            visited.add(node);
-            recursionStack.add(node);
-            currentPath.add(node);
-            
-            Set<String> dependencies = adjacencyList.getOrDefault(node, Set.of());
-            for (String dependency : dependencies) {
-                if (!visited.contains(dependency)) {
-                    detectCyclesUtil(dependency, visited, recursionStack, currentPath, cycles);
-                } else if (recursionStack.contains(dependency)) {
-                    // Found a cycle
-                    int cycleStart = currentPath.indexOf(dependency);
-                    if (cycleStart >= 0) {
-                        cycles.add(new ArrayList<>(currentPath.subList(cycleStart, currentPath.size())));
-                    }
+            List<List<String>> cycles = new ArrayList<>();
+            BitSet reported = new BitSet(components.getComponentCount());
+            for (int vertex = 0; vertex < graph.getVertexCount(); vertex++) {
+                int component = components.getComponent(vertex);
+                if (!components.isCyclic(component) || reported.get(component)) {
+                    continue;
+                }
+                reported.set(component);
+                List<String> cycle = new ArrayList<>();
+                for (int member : graph.findCycleThrough(vertex)) {
+                    cycle.add(graph.getLabel(member));
                 }
+                cycles.add(cycle);
             }
             
-            recursionStack.remove(node);
-            currentPath.remove(currentPath.size() - 1);
+            return cycles;
         }
         
         /**
@@ -315,15 +876,67 @@ public class DependencyGraphBuilder {
          * @return map of statistics
          */
         public Map<String, Object> getStatistics() {
+            // Averages are over graph nodes; bare dependency targets have no outgoing edges
+            IntSummaryStatistics degrees = nodes.keySet().stream()
+                .mapToInt(graph::indexOf)
+                .filter(vertex -> vertex >= 0)
+                .map(graph::getOutDegree)
+                .summaryStatistics();
+            
             Map<String, Object> stats = new HashMap<>();
             stats.put("nodeCount", nodes.size());
-            stats.put("edgeCount", adjacencyList.values().stream().mapToInt(Set::size).sum());
-            stats.put("averageDependencies", adjacencyList.values().stream()
-                .mapToInt(Set::size).average().orElse(0.0));
-            stats.put("maxDependencies", adjacencyList.values().stream()
-                .mapToInt(Set::size).max().orElse(0));
-            stats.put("circularDependencies", detectCircularDependencies().size());
+            stats.put("edgeCount", graph.getEdgeCount());
+            stats.put("averageDependencies", degrees.getCount() > 0 ? degrees.getAverage() : 0.0);
+            stats.put("maxDependencies", degrees.getCount() > 0 ? degrees.getMax() : 0);
+            stats.put("circularDependencies", graph.getStronglyConnectedComponents().getCyclicComponentCount());
             return stats;
         }
     }
-}
\ No newline at end of file
+    
+    /**
+     * Read-only set of vertex labels backed by a sorted vertex id array.
+     */
+    private static final class VertexSet extends AbstractSet<String> {
+        private final CompactGraph graph;
+        private final int[] vertices;
+        
+        VertexSet(CompactGraph graph, int[] vertices) {
+            this.graph = graph;
+            this.vertices = vertices;
+        }
+        
+        @Override
+        public boolean contains(Object o) {
+            if (!(o instanceof String label)) {
+                return false;
+            }
+            int vertex = graph.indexOf(label);
+            return vertex >= 0 && Arrays.binarySearch(vertices, vertex) >= 0;
+        }
+        
+        @Override
+        public Iterator<String> iterator() {
+            return new Iterator<>() {
+                private int next;
+                
+                @Override
+                public boolean hasNext() {
+                    return next < vertices.length;
+                }
+                
+                @Override
+                public String next() {
+                    if (next >= vertices.length) {
+                        throw new NoSuchElementException();
+                    }
+                    return graph.getLabel(vertices[next++]);
+                }
+            };
+        }
+        
+        @Override
+        public int size() {
+            return vertices.length;
+        }
+    }
+}
@@ -0,0 +1,102 @@
+package com.ailearning.core.service.ast;
+
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * Change to the live dependency graph caused by applying one file's new AST.
+ * Produced by {@link DependencyGraphBuilder#applyFileDelta} and delivered to
+ * registered graph listeners.
+ */
+public final class DependencyGraphDelta {
+
+    private final String filePath;
+    private final Set<String> addedNodes;
+    private final Set<String> removedNodes;
+    private final List<Edge> addedEdges;
+    private final List<Edge> removedEdges;
+
+    public DependencyGraphDelta(String filePath, Set<String> addedNodes, Set<String> removedNodes,
+                                List<Edge> addedEdges, List<Edge> removedEdges) {
+        this.filePath = Objects.requireNonNull(filePath, "File path cannot be null");
+        this.addedNodes = Set.copyOf(addedNodes);
+        this.removedNodes = Set.copyOf(removedNodes);
+        this.addedEdges = List.copyOf(addedEdges);
+        this.removedEdges = List.copyOf(removedEdges);
+    }
+
+    public String getFilePath() {
+        return filePath;
+    }
+
+    public Set<String> getAddedNodes() {
+        return addedNodes;
+    }
+
+    public Set<String> getRemovedNodes() {
+        return removedNodes;
+    }
+
+    public List<Edge> getAddedEdges() {
+        return addedEdges;
+    }
+
+    public List<Edge> getRemovedEdges() {
+        return removedEdges;
+    }
+
+    /**
+     * Checks whether the delta changed nothing.
+     *
+     * @return true if no nodes or edges were added or removed
+     */
+    public boolean isEmpty() {
+        return addedNodes.isEmpty() && removedNodes.isEmpty() && addedEdges.isEmpty() && removedEdges.isEmpty();
+    }
+
+    @Override
+    public String toString() {
+        return String.format("DependencyGraphDelta{file='%s', nodes=+%d/-%d, edges=+%d/-%d}",
+                filePath, addedNodes.size(), removedNodes.size(), addedEdges.size(), removedEdges.size());
+    }
+
+    /**
+     * Directed dependency edge between two graph keys.
+     */
+    public static final class Edge {
+        private final String from;
+        private final String to;
+
+        public Edge(String from, String to) {
+            this.from = Objects.requireNonNull(from, "Edge source cannot be null");
+            this.to = Objects.requireNonNull(to, "Edge target cannot be null");
+        }
+
+        public String getFrom() {
+            return from;
+        }
+
+        public String getTo() {
+            return to;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj) return true;
+            if (!(obj instanceof Edge)) return false;
+            Edge other = (Edge) obj;
+            return from.equals(other.from) && to.equals(other.to);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(from, to);
+        }
+
+        @Override
+        public String toString() {
+            return from + " -> " + to;
+        }
+    }
+}
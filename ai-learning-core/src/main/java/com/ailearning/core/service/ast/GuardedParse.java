@@ -0,0 +1,69 @@
+package com.ailearning.core.service.ast;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.BiFunction;
+import java.util.function.Supplier;
+
+/**
+ * Asynchronous parse whose cancellation reaches the parse itself.
+ * Cancelling a {@link CompletableFuture} never interrupts the thread running
+ * its task, so cancelling this future also cancels the parse's
+ * {@link ParseGuard}. The parse then stops at its next checkpoint and frees
+ * its worker thread instead of running to completion unobserved.
+ */
+public final class GuardedParse<T> extends CompletableFuture<T> {
+
+    private volatile ParseGuard guard;
+
+    private GuardedParse() {
+    }
+
+    /**
+     * Runs a parse on the common pool. The guard is started from the budget
+     * current when the parse begins, so time spent queued is not charged.
+     *
+     * @param budget supplies the budget to parse under
+     * @param parse the parse, given the budget and its guard
+     * @return the pending parse
+     */
+    public static <T> GuardedParse<T> supplyAsync(Supplier<ParseBudget> budget,
+                                                  BiFunction<ParseBudget, ParseGuard, T> parse) {
+        GuardedParse<T> future = new GuardedParse<>();
+        ForkJoinPool.commonPool().execute(() -> {
+            if (future.isDone()) {
+                return;
+            }
+            ParseBudget current = budget.get();
+            ParseGuard started = current.startGuard();
+            future.guard = started;
+            // A cancel that ran before the guard was published did not see it
+            if (future.isCancelled()) {
+                started.cancel();
+                return;
+            }
+            try {
+                future.complete(parse.apply(current, started));
+            } catch (Throwable e) {
+                future.completeExceptionally(e);
+            }
+        });
+        return future;
+    }
+
+    /**
+     * Cancels the future and stops the parse at its next checkpoint.
+     *
+     * @param mayInterruptIfRunning ignored, as by {@link CompletableFuture}
+     * @return true if this call cancelled the future
+     */
+    @Override
+    public boolean cancel(boolean mayInterruptIfRunning) {
+        boolean cancelled = super.cancel(mayInterruptIfRunning);
+        ParseGuard current = guard;
+        if (current != null) {
+            current.cancel();
+        }
+        return cancelled;
+    }
+}
@@ -0,0 +1,137 @@
+package com.ailearning.core.service.ast;
+
+import java.util.Objects;
+
+/**
+ * Per-file resource budget applied by {@link ASTParser} implementations.
+ * Files larger than the size budget are rejected before parsing; parses that
+ * run past the time budget stop cooperatively and return the partial outline
+ * built so far. The time budget is checked while the library parser reads
+ * its input where the parser reads through {@link ParseGuard#reader(String)},
+ * and while the library tree is converted.
+ */
+public final class ParseBudget {
+
+    /** Default maximum source size: 1 MiB of characters. */
+    public static final int DEFAULT_MAX_SOURCE_CHARS = 1024 * 1024;
+
+    /** Default maximum time spent building the AST for one file. */
+    public static final long DEFAULT_MAX_PARSE_TIME_MS = 2000;
+
+    /** Time allowed past the parse time budget before waiting callers give up. */
+    public static final long WAIT_GRACE_MS = 1000;
+
+    private static final ParseBudget DEFAULTS = new ParseBudget(DEFAULT_MAX_SOURCE_CHARS, DEFAULT_MAX_PARSE_TIME_MS);
+    private static final ParseBudget UNLIMITED = new ParseBudget(Integer.MAX_VALUE, Long.MAX_VALUE);
+
+    private final int maxSourceChars;
+    private final long maxParseTimeMs;
+
+    private ParseBudget(int maxSourceChars, long maxParseTimeMs) {
+        if (maxSourceChars <= 0) {
+            throw new IllegalArgumentException("Max source size must be positive");
+        }
+        if (maxParseTimeMs <= 0) {
+            throw new IllegalArgumentException("Max parse time must be positive");
+        }
+        this.maxSourceChars = maxSourceChars;
+        this.maxParseTimeMs = maxParseTimeMs;
+    }
+
+    /**
+     * Creates a budget with explicit limits.
+     *
+     * @param maxSourceChars the maximum number of source characters to parse
+     * @param maxParseTimeMs the maximum parse time in milliseconds
+     * @return new ParseBudget
+     */
+    public static ParseBudget of(int maxSourceChars, long maxParseTimeMs) {
+        return new ParseBudget(maxSourceChars, maxParseTimeMs);
+    }
+
+    /**
+     * Gets the default budget (1 MiB, 2 seconds).
+     *
+     * @return the default budget
+     */
+    public static ParseBudget defaults() {
+        return DEFAULTS;
+    }
+
+    /**
+     * Gets a budget that never limits parsing.
+     *
+     * @return the unlimited budget
+     */
+    public static ParseBudget unlimited() {
+        return UNLIMITED;
+    }
+
+    /**
+     * Gets the maximum number of source characters that will be parsed.
+     *
+     * @return the size limit
+     */
+    public int getMaxSourceChars() {
+        return maxSourceChars;
+    }
+
+    /**
+     * Gets the maximum parse time in milliseconds.
+     *
+     * @return the time limit
+     */
+    public long getMaxParseTimeMs() {
+        return maxParseTimeMs;
+    }
+
+    /**
+     * Checks if the given source exceeds the size budget.
+     *
+     * @param sourceCode the source to check
+     * @return true if the source is too large to parse
+     */
+    public boolean exceedsSize(String sourceCode) {
+        return sourceCode.length() > maxSourceChars;
+    }
+
+    /**
+     * Starts a guard that tracks the time budget for a single parse.
+     *
+     * @return new ParseGuard started now
+     */
+    public ParseGuard startGuard() {
+        return new ParseGuard(maxParseTimeMs);
+    }
+
+    /**
+     * Starts a deadline for callers waiting on parses under this budget: the
+     * time budget plus {@link #WAIT_GRACE_MS}, or none when unlimited.
+     *
+     * @return new ParseWait started now
+     */
+    public ParseWait startWait() {
+        return new ParseWait(maxParseTimeMs > Long.MAX_VALUE - WAIT_GRACE_MS
+                ? Long.MAX_VALUE
+                : maxParseTimeMs + WAIT_GRACE_MS);
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) return true;
+        if (obj == null || getClass() != obj.getClass()) return false;
+
+        ParseBudget that = (ParseBudget) obj;
+        return maxSourceChars == that.maxSourceChars && maxParseTimeMs == that.maxParseTimeMs;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(maxSourceChars, maxParseTimeMs);
+    }
+
+    @Override
+    public String toString() {
+        return String.format("ParseBudget{maxSourceChars=%d, maxParseTimeMs=%d}", maxSourceChars, maxParseTimeMs);
+    }
+}
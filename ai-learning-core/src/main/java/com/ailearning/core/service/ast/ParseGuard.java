@@ -0,0 +1,124 @@
+package com.ailearning.core.service.ast;
+
+import java.io.IOException;
+import java.io.Reader;
+
+/**
+ * Cooperative cancellation point for a single parse.
+ * Tree conversion code calls {@link #checkpoint()} inside its loops and stops
+ * descending once it returns false; whatever was built up to that point
+ * becomes the partial outline. The clock is only sampled every few
+ * checkpoints so the guard is cheap enough for per-node use.
+ * Library parsers that read their input through {@link #reader(String)}
+ * are stopped the same way when they next read.
+ */
+public final class ParseGuard {
+
+    private static final int CLOCK_SAMPLE_INTERVAL = 64;
+
+    private final long startNanos;
+    private final long deadlineNanos;
+    private int checkpointsUntilSample;
+    private volatile boolean cancelled;
+    private boolean exhausted;
+
+    ParseGuard(long maxParseTimeMs) {
+        this.startNanos = System.nanoTime();
+        this.deadlineNanos = maxParseTimeMs >= Long.MAX_VALUE / 1_000_000
+                ? Long.MAX_VALUE
+                : startNanos + maxParseTimeMs * 1_000_000;
+    }
+
+    /**
+     * Checks whether parsing may continue.
+     *
+     * @return true if within budget, false once the deadline passed or the guard was cancelled
+     */
+    public boolean checkpoint() {
+        if (exhausted) {
+            return false;
+        }
+        if (cancelled || Thread.currentThread().isInterrupted()) {
+            exhausted = true;
+            return false;
+        }
+        if (--checkpointsUntilSample > 0) {
+            return true;
+        }
+        checkpointsUntilSample = CLOCK_SAMPLE_INTERVAL;
+        if (deadlineNanos != Long.MAX_VALUE && System.nanoTime() - deadlineNanos > 0) {
+            exhausted = true;
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Wraps the source for a library parser. Every read is a checkpoint that
+     * samples the clock; once the guard stops the parse, reads fail with an
+     * {@link IOException} and the parser gives up on the rest of the input.
+     *
+     * @param source the source to parse
+     * @return a reader over the source
+     */
+    public Reader reader(String source) {
+        return new GuardedReader(source);
+    }
+
+    /**
+     * Requests that the parse stop at its next checkpoint.
+     */
+    public void cancel() {
+        cancelled = true;
+    }
+
+    /**
+     * Checks if a checkpoint has stopped the parse.
+     *
+     * @return true if the produced tree is incomplete
+     */
+    public boolean isExhausted() {
+        return exhausted;
+    }
+
+    /**
+     * Gets the time elapsed since the guard was started.
+     *
+     * @return elapsed milliseconds
+     */
+    public long getElapsedMs() {
+        return (System.nanoTime() - startNanos) / 1_000_000;
+    }
+
+    private final class GuardedReader extends Reader {
+
+        private final String source;
+        private int position;
+
+        GuardedReader(String source) {
+            this.source = source;
+        }
+
+        @Override
+        public int read(char[] buffer, int offset, int length) throws IOException {
+            checkpointsUntilSample = 0;
+            if (!checkpoint()) {
+                throw new IOException("Parse stopped after " + getElapsedMs() + "ms");
+            }
+            if (length == 0) {
+                return 0;
+            }
+            if (position >= source.length()) {
+                return -1;
+            }
+            int count = Math.min(length, source.length() - position);
+            source.getChars(position, position + count, buffer, offset);
+            position += count;
+            return count;
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}
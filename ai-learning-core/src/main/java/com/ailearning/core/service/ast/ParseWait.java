@@ -0,0 +1,54 @@
+package com.ailearning.core.service.ast;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Deadline for callers waiting on asynchronous parses under a {@link ParseBudget}.
+ * One wait can cover a batch of parses started together, so the batch as a
+ * whole is bounded by the budget rather than each file in turn. Under the
+ * unlimited budget there is no deadline and waiting never times out.
+ */
+public final class ParseWait {
+
+    private final long deadlineNanos;
+
+    ParseWait(long waitMs) {
+        this.deadlineNanos = waitMs >= Long.MAX_VALUE / 1_000_000
+                ? Long.MAX_VALUE
+                : System.nanoTime() + waitMs * 1_000_000;
+    }
+
+    /**
+     * Waits for a parse until the deadline. A parse still running at the
+     * deadline is cancelled before the timeout is reported; parses started
+     * through {@link GuardedParse} then stop at their next checkpoint.
+     *
+     * @param future the pending parse
+     * @return the parse result
+     * @throws TimeoutException if the deadline passed first
+     */
+    public <T> T await(CompletableFuture<T> future)
+            throws InterruptedException, ExecutionException, TimeoutException {
+        if (deadlineNanos == Long.MAX_VALUE) {
+            return future.get();
+        }
+        try {
+            return future.get(Math.max(0, deadlineNanos - System.nanoTime()), TimeUnit.NANOSECONDS);
+        } catch (TimeoutException e) {
+            future.cancel(true);
+            throw e;
+        }
+    }
+
+    /**
+     * Checks whether waiting is unbounded.
+     *
+     * @return true for waits under the unlimited budget
+     */
+    public boolean isUnlimited() {
+        return deadlineNanos == Long.MAX_VALUE;
+    }
+}
@@ -0,0 +1,199 @@
+package com.ailearning.core.service.ast;
+
+import com.ailearning.core.model.ast.ASTNode;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Objects;
+import java.util.Optional;
+
+/**
+ * Directory-backed store of parsed ASTs keyed by source file path.
+ * <p>
+ * Each entry is one file holding a small header (magic, index version and the
+ * hash of the source content it was parsed from) followed by an
+ * {@link ASTBinaryCodec} payload. Entries are read through a memory-mapped
+ * buffer and decoded in place; an entry whose content hash does not match the
+ * current source is treated as a miss, so callers never see stale trees.
+ * Writes go to a temporary file that is then moved over the old entry.
+ */
+public class PersistentASTIndex {
+
+    private static final Logger logger = LoggerFactory.getLogger(PersistentASTIndex.class);
+
+    private static final int MAGIC = 0x41535449; // "ASTI"
+    private static final int INDEX_VERSION = 1;
+    private static final String ENTRY_SUFFIX = ".ast";
+
+    private final Path directory;
+
+    /**
+     * Creates an index stored in the given directory, creating it if necessary.
+     *
+     * @param directory the directory holding index entries
+     */
+    public PersistentASTIndex(Path directory) {
+        this.directory = Objects.requireNonNull(directory, "Index directory cannot be null");
+        try {
+            Files.createDirectories(directory);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to create AST index directory: " + directory, e);
+        }
+    }
+
+    /**
+     * Stores the tree for a file, replacing any previous entry.
+     *
+     * @param filePath the source file path
+     * @param contentHash hash of the source content the tree was parsed from
+     * @param root the parsed tree
+     * @return true if the entry was written
+     */
+    public boolean store(String filePath, String contentHash, ASTNode root) {
+        Objects.requireNonNull(filePath, "File path cannot be null");
+        Objects.requireNonNull(contentHash, "Content hash cannot be null");
+        Objects.requireNonNull(root, "Root node cannot be null");
+
+        byte[] payload = ASTBinaryCodec.encode(root);
+        byte[] hash = contentHash.getBytes(StandardCharsets.US_ASCII);
+        ByteBuffer header = ByteBuffer.allocate(4 + 4 + 2 + hash.length);
+        header.putInt(MAGIC).putInt(INDEX_VERSION).putShort((short) hash.length).put(hash).flip();
+
+        Path target = entryPath(filePath);
+        Path temp = null;
+        try {
+            temp = Files.createTempFile(directory, "entry", ".tmp");
+            try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.WRITE)) {
+                ByteBuffer body = ByteBuffer.wrap(payload);
+                while (header.hasRemaining()) {
+                    channel.write(header);
+                }
+                while (body.hasRemaining()) {
+                    channel.write(body);
+                }
+            }
+            try {
+                Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING);
+            }
+            return true;
+        } catch (IOException e) {
+            logger.warn("Failed to write AST index entry for {}: {}", filePath, e.getMessage());
+            deleteQuietly(temp);
+            return false;
+        }
+    }
+
+    /**
+     * Loads the tree for a file if an entry exists for exactly this content.
+     *
+     * @param filePath the source file path
+     * @param contentHash hash of the current source content
+     * @return the stored tree, or empty if missing, stale or unreadable
+     */
+    public Optional<ASTNode> load(String filePath, String contentHash) {
+        Objects.requireNonNull(filePath, "File path cannot be null");
+        Objects.requireNonNull(contentHash, "Content hash cannot be null");
+
+        Path entry = entryPath(filePath);
+        if (!Files.isRegularFile(entry)) {
+            return Optional.empty();
+        }
+
+        try (FileChannel channel = FileChannel.open(entry, StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (buffer.remaining() < 10 || buffer.getInt() != MAGIC || buffer.getInt() != INDEX_VERSION) {
+                logger.debug("Discarding AST index entry with unknown header for {}", filePath);
+                deleteQuietly(entry);
+                return Optional.empty();
+            }
+
+            int hashLength = buffer.getShort() & 0xFFFF;
+            if (hashLength > buffer.remaining()) {
+                deleteQuietly(entry);
+                return Optional.empty();
+            }
+            byte[] storedHash = new byte[hashLength];
+            buffer.get(storedHash);
+            if (!contentHash.equals(new String(storedHash, StandardCharsets.US_ASCII))) {
+                return Optional.empty();
+            }
+
+            return Optional.of(ASTBinaryCodec.decode(buffer));
+        } catch (ASTBinaryCodec.ASTCodecException e) {
+            logger.warn("Discarding corrupt AST index entry for {}: {}", filePath, e.getMessage());
+            deleteQuietly(entry);
+            return Optional.empty();
+        } catch (IOException e) {
+            logger.warn("Failed to read AST index entry for {}: {}", filePath, e.getMessage());
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Removes the entry for a file, if any.
+     *
+     * @param filePath the source file path
+     */
+    public void remove(String filePath) {
+        deleteQuietly(entryPath(Objects.requireNonNull(filePath, "File path cannot be null")));
+    }
+
+    /**
+     * Gets the directory backing this index.
+     *
+     * @return the index directory
+     */
+    public Path getDirectory() {
+        return directory;
+    }
+
+    /**
+     * Computes the content hash used to validate index entries.
+     *
+     * @param content the source content
+     * @return lowercase hex SHA-256 of the UTF-8 content
+     */
+    public static String hashContent(String content) {
+        return HexFormat.of().formatHex(sha256().digest(content.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    private Path entryPath(String filePath) {
+        byte[] digest = sha256().digest(filePath.getBytes(StandardCharsets.UTF_8));
+        return directory.resolve(HexFormat.of().formatHex(digest, 0, 16) + ENTRY_SUFFIX);
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    private static void deleteQuietly(Path path) {
+        if (path == null) {
+            return;
+        }
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException e) {
+            logger.debug("Failed to delete {}: {}", path, e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,283 @@
+package com.ailearning.core.service.ast;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * Transitive reachability queries over the live dependency graph of a
+ * {@link DependencyGraphBuilder}.
+ * <p>
+ * Closures are stored as bitsets over vertex ids that stay stable across graph
+ * snapshots. All vertices of a strongly connected component have the same
+ * closure, so one bitset is computed per component and shared by its members.
+ * Computing a closure reuses any cached closure it reaches, so answering
+ * "what depends on X" or "can X reach Y" again costs one bitset lookup.
+ * <p>
+ * When an edge {@code u -> v} is added or removed, only closures that
+ * mention the edge are dropped. These are forward closures containing
+ * {@code u} and reverse closures containing {@code v}. Everything else stays
+ * cached.
+ * <p>
+ * Graph keys include source locations, so edits keep retiring keys and
+ * introducing new ones. Once more than half of the stable ids belong to
+ * vertices no longer in the graph, ids are reassigned to the live vertices
+ * and every cached closure is dropped.
+ */
+public class ReachabilityIndex {
+
+    private static final Logger logger = LoggerFactory.getLogger(ReachabilityIndex.class);
+
+    // Below this many stable ids, compacting costs more than the dead ids do
+    static final int MIN_COMPACTION_IDS = 1024;
+
+    private final DependencyGraphBuilder graphBuilder;
+
+    // Stable vertex ids; only compaction reassigns them, and it drops every cached bitset
+    private final Map<String, Integer> stableIds = new HashMap<>();
+    private final List<String> stableLabels = new ArrayList<>();
+
+    private final Map<String, BitSet> forwardClosures = new HashMap<>();
+    private final Map<String, BitSet> reverseClosures = new HashMap<>();
+
+    private DependencyGraphBuilder.DependencyGraph snapshot;
+    private int[] stableIdOfVertex = new int[0];
+
+    private long hits;
+    private long misses;
+    private long invalidations;
+    private long compactions;
+
+    /**
+     * Creates an index that follows the builder's live graph.
+     *
+     * @param graphBuilder the builder whose live graph is queried
+     */
+    public ReachabilityIndex(DependencyGraphBuilder graphBuilder) {
+        this.graphBuilder = Objects.requireNonNull(graphBuilder, "Dependency graph builder cannot be null");
+        graphBuilder.addGraphListener(this::onGraphChanged);
+    }
+
+    /**
+     * Checks whether {@code to} is transitively reachable from {@code from}.
+     *
+     * @param from the source graph key
+     * @param to the target graph key
+     * @return true if a dependency path exists, including the empty path when both are equal
+     */
+    public synchronized boolean isReachable(String from, String to) {
+        if (from.equals(to)) {
+            return true;
+        }
+        BitSet closure = closure(from, true);
+        Integer target = stableIds.get(to);
+        return closure != null && target != null && closure.get(target);
+    }
+
+    /**
+     * Gets every key that transitively depends on the given key.
+     *
+     * @param nodeKey the graph key
+     * @return the transitive dependents, excluding the key itself
+     */
+    public synchronized Set<String> getTransitiveDependents(String nodeKey) {
+        return labelsOf(closure(nodeKey, false), nodeKey);
+    }
+
+    /**
+     * Gets every key the given key transitively depends on.
+     *
+     * @param nodeKey the graph key
+     * @return the transitive dependencies, excluding the key itself
+     */
+    public synchronized Set<String> getTransitiveDependencies(String nodeKey) {
+        return labelsOf(closure(nodeKey, true), nodeKey);
+    }
+
+    /**
+     * Gets cache statistics for monitoring.
+     *
+     * @return map with cached closure counts, stable ids, hits, misses, invalidations and compactions
+     */
+    public synchronized Map<String, Object> getStatistics() {
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("cachedForwardClosures", forwardClosures.size());
+        stats.put("cachedReverseClosures", reverseClosures.size());
+        stats.put("stableIds", stableLabels.size());
+        stats.put("hits", hits);
+        stats.put("misses", misses);
+        stats.put("invalidations", invalidations);
+        stats.put("compactions", compactions);
+        return stats;
+    }
+
+    /**
+     * Drops the closures an edge change can affect. A forward closure changes
+     * only if it reaches the edge's source, and a reverse closure changes only
+     * if the edge's target reaches it. The old closures answer both questions.
+     */
+    private synchronized void onGraphChanged(DependencyGraphDelta delta) {
+        int before = forwardClosures.size() + reverseClosures.size();
+        invalidate(forwardClosures, delta.getAddedEdges(), true);
+        invalidate(forwardClosures, delta.getRemovedEdges(), true);
+        invalidate(reverseClosures, delta.getAddedEdges(), false);
+        invalidate(reverseClosures, delta.getRemovedEdges(), false);
+        for (String removed : delta.getRemovedNodes()) {
+            forwardClosures.remove(removed);
+            reverseClosures.remove(removed);
+        }
+        int dropped = before - forwardClosures.size() - reverseClosures.size();
+        invalidations += dropped;
+        if (dropped > 0) {
+            logger.debug("Invalidated {} reachability closures for {}", dropped, delta.getFilePath());
+        }
+    }
+
+    private void invalidate(Map<String, BitSet> closures, List<DependencyGraphDelta.Edge> edges, boolean forward) {
+        if (closures.isEmpty() || edges.isEmpty()) {
+            return;
+        }
+        BitSet touched = new BitSet();
+        for (DependencyGraphDelta.Edge edge : edges) {
+            Integer id = stableIds.get(forward ? edge.getFrom() : edge.getTo());
+            if (id != null) {
+                touched.set(id);
+            }
+        }
+        if (touched.isEmpty()) {
+            return;
+        }
+        Iterator<BitSet> closureIterator = closures.values().iterator();
+        while (closureIterator.hasNext()) {
+            if (closureIterator.next().intersects(touched)) {
+                closureIterator.remove();
+            }
+        }
+    }
+
+    /**
+     * Gets the forward or reverse closure of a key, computing and caching it for
+     * the key's whole component on a miss.
+     *
+     * @return the closure over stable ids (including the key), or null if the key is unknown
+     */
+    private BitSet closure(String nodeKey, boolean forward) {
+        Map<String, BitSet> cache = forward ? forwardClosures : reverseClosures;
+        BitSet cached = cache.get(nodeKey);
+        if (cached != null) {
+            hits++;
+            return cached;
+        }
+        misses++;
+
+        refreshSnapshot();
+        CompactGraph graph = snapshot.getCompactGraph();
+        int start = graph.indexOf(nodeKey);
+        if (start < 0) {
+            return null;
+        }
+
+        BitSet closure = new BitSet(stableLabels.size());
+        BitSet visited = new BitSet(graph.getVertexCount());
+        int[] stack = new int[16];
+        int top = 0;
+        stack[top++] = start;
+        visited.set(start);
+        while (top > 0) {
+            int vertex = stack[--top];
+            closure.set(stableIdOfVertex[vertex]);
+            // Another vertex's cached closure covers everything below it
+            BitSet shortcut = vertex != start ? cache.get(graph.getLabel(vertex)) : null;
+            if (shortcut != null) {
+                closure.or(shortcut);
+                continue;
+            }
+            int[] next = forward ? graph.getSuccessors(vertex) : graph.getPredecessors(vertex);
+            for (int neighbour : next) {
+                if (!visited.get(neighbour)) {
+                    visited.set(neighbour);
+                    if (top == stack.length) {
+                        stack = Arrays.copyOf(stack, stack.length * 2);
+                    }
+                    stack[top++] = neighbour;
+                }
+            }
+        }
+
+        // Every member of the component reaches exactly the same set
+        CompactGraph.StronglyConnectedComponents components = graph.getStronglyConnectedComponents();
+        int component = components.getComponent(start);
+        if (components.getSize(component) > 1) {
+            for (int member : components.getMembers(component)) {
+                cache.put(graph.getLabel(member), closure);
+            }
+        } else {
+            cache.put(nodeKey, closure);
+        }
+        return closure;
+    }
+
+    private void refreshSnapshot() {
+        DependencyGraphBuilder.DependencyGraph current = graphBuilder.getLiveGraph();
+        if (current == snapshot) {
+            return;
+        }
+        CompactGraph graph = current.getCompactGraph();
+        int[] mapping = mapVertices(graph);
+        int liveIds = graph.getVertexCount();
+        if (stableLabels.size() >= MIN_COMPACTION_IDS && stableLabels.size() > 2 * liveIds) {
+            logger.debug("Compacting {} stable ids to {} live vertices", stableLabels.size(), liveIds);
+            stableIds.clear();
+            stableLabels.clear();
+            forwardClosures.clear();
+            reverseClosures.clear();
+            compactions++;
+            mapping = mapVertices(graph);
+        }
+        stableIdOfVertex = mapping;
+        snapshot = current;
+    }
+
+    private int[] mapVertices(CompactGraph graph) {
+        int[] mapping = new int[graph.getVertexCount()];
+        for (int vertex = 0; vertex < mapping.length; vertex++) {
+            mapping[vertex] = stableId(graph.getLabel(vertex));
+        }
+        return mapping;
+    }
+
+    private int stableId(String label) {
+        Integer id = stableIds.get(label);
+        if (id == null) {
+            id = stableLabels.size();
+            stableIds.put(label, id);
+            stableLabels.add(label);
+        }
+        return id;
+    }
+
+    private Set<String> labelsOf(BitSet closure, String exclude) {
+        if (closure == null) {
+            return Set.of();
+        }
+        Set<String> labels = new LinkedHashSet<>();
+        for (int id = closure.nextSetBit(0); id >= 0; id = closure.nextSetBit(id + 1)) {
+            String label = stableLabels.get(id);
+            if (!label.equals(exclude)) {
+                labels.add(label);
+            }
+        }
+        return Collections.unmodifiableSet(labels);
+    }
+}
@@ -2,6 +2,9 @@ package com.ailearning.core.service.ast.impl;
 
 import com.ailearning.core.model.ast.*;
 import com.ailearning.core.service.ast.ASTParser;
+import com.ailearning.core.service.ast.GuardedParse;
+import com.ailearning.core.service.ast.ParseBudget;
+import com.ailearning.core.service.ast.ParseGuard;
 import com.github.javaparser.JavaParser;
 import com.github.javaparser.ParseProblemException;
 import com.github.javaparser.ast.CompilationUnit;
@@ -11,7 +14,9 @@ import com.github.javaparser.ast.body.MethodDeclaration;
 import com.github.javaparser.ast.body.FieldDeclaration;
 import com.github.javaparser.ast.body.VariableDeclarator;
 import com.github.javaparser.ast.expr.Expression;
+import com.github.javaparser.ast.stmt.CatchClause;
 import com.github.javaparser.ast.stmt.Statement;
+import com.github.javaparser.ast.stmt.SwitchEntry;
 import com.github.javaparser.ast.visitor.VoidVisitorAdapter;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -28,26 +33,46 @@ public class JavaASTParser implements ASTParser {
     private static final Logger logger = LoggerFactory.getLogger(JavaASTParser.class);
     
     private final JavaParser javaParser;
+    private volatile ParseBudget parseBudget;
     
     public JavaASTParser() {
+        this(ParseBudget.defaults());
+    }
+    
+    public JavaASTParser(ParseBudget parseBudget) {
         this.javaParser = new JavaParser();
-        logger.debug("Initialized Java AST parser");
+        this.parseBudget = Objects.requireNonNull(parseBudget, "Parse budget cannot be null");
+        logger.debug("Initialized Java AST parser with {}", parseBudget);
     }
     
     @Override
     public CompletableFuture<ParseResult> parseCode(String sourceCode, String language, String filePath) {
-        return CompletableFuture.supplyAsync(() -> {
+        return GuardedParse.supplyAsync(() -> parseBudget, (budget, guard) -> {
+            if (budget.exceedsSize(sourceCode)) {
+                logger.warn("Skipping {}: {} chars exceeds parse budget", filePath, sourceCode.length());
+                return ParseResult.sizeExceeded(language, filePath, sourceCode.length(), budget.getMaxSourceChars());
+            }
             long startTime = System.currentTimeMillis();
             
             try {
                 com.github.javaparser.ParseResult<CompilationUnit> parseResult = 
-                    javaParser.parse(sourceCode);
+                    javaParser.parse(guard.reader(sourceCode));
                 
                 long parseTime = System.currentTimeMillis() - startTime;
+                if (guard.isExhausted()) {
+                    logger.warn("Parse of {} stopped before a tree was built", filePath);
+                    return ParseResult.timeExceeded(language, filePath, parseTime);
+                }
                 
                 if (parseResult.isSuccessful() && parseResult.getResult().isPresent()) {
                     CompilationUnit cu = parseResult.getResult().get();
-                    ASTNode rootNode = convertToGenericAST(cu, filePath);
+                    ASTNode rootNode = convertToGenericAST(cu, filePath, guard);
+                    
+                    if (guard.isExhausted()) {
+                        logger.warn("Parse time budget exceeded for {}, returning partial AST", filePath);
+                        return ParseResult.partial(rootNode, language, filePath, 
+                                                  System.currentTimeMillis() - startTime);
+                    }
                     
                     List<ParseWarning> warnings = parseResult.getProblems().stream()
                         .map(problem -> ParseWarning.of(
@@ -125,6 +150,16 @@ public class JavaASTParser implements ASTParser {
         return "java".equalsIgnoreCase(language);
     }
     
+    @Override
+    public void setParseBudget(ParseBudget budget) {
+        this.parseBudget = Objects.requireNonNull(budget, "Parse budget cannot be null");
+    }
+    
+    @Override
+    public ParseBudget getParseBudget() {
+        return parseBudget;
+    }
+    
     @Override
     public String[] getSupportedLanguages() {
         return new String[]{"java"};
@@ -132,8 +167,10 @@ public class JavaASTParser implements ASTParser {
     
     /**
      * Converts JavaParser AST to generic AST representation.
+     * Stops descending once the guard reports the time budget is spent,
+     * leaving an outline of everything converted so far.
      */
-    private ASTNode convertToGenericAST(CompilationUnit cu, String filePath) {
+    private ASTNode convertToGenericAST(CompilationUnit cu, String filePath, ParseGuard guard) {
         List<ASTNode> children = new ArrayList<>();
         Map<String, Object> attributes = new HashMap<>();
         
@@ -150,20 +187,23 @@ public class JavaASTParser implements ASTParser {
         }
         
         // Convert classes and interfaces
-        cu.getTypes().forEach(type -> {
+        for (var type : cu.getTypes()) {
+            if (!guard.checkpoint()) {
+                break;
+            }
             if (type instanceof ClassOrInterfaceDeclaration) {
-                children.add(convertClassDeclaration((ClassOrInterfaceDeclaration) type, filePath));
+                children.add(convertClassDeclaration((ClassOrInterfaceDeclaration) type, filePath, guard));
             }
-        });
+        }
         
         SourceLocation location = SourceLocation.at(filePath, 1, 1);
-        return new CompilationUnitNode("compilation_unit", location, children, attributes);
+        return new ModuleNode("compilation_unit", "compilation_unit", location, children, attributes);
     }
     
     /**
      * Converts a class declaration to generic AST.
      */
-    private ClassNode convertClassDeclaration(ClassOrInterfaceDeclaration classDecl, String filePath) {
+    private ClassNode convertClassDeclaration(ClassOrInterfaceDeclaration classDecl, String filePath, ParseGuard guard) {
         List<ASTNode> children = new ArrayList<>();
         Map<String, Object> attributes = new HashMap<>();
         
@@ -187,13 +227,21 @@ public class JavaASTParser implements ASTParser {
         }
         
         // Convert methods
-        classDecl.getMethods().forEach(method -> 
-            children.add(convertMethodDeclaration(method, filePath)));
+        for (MethodDeclaration method : classDecl.getMethods()) {
+            if (!guard.checkpoint()) {
+                break;
+            }
+            children.add(convertMethodDeclaration(method, filePath, guard));
+        }
         
         // Convert fields
-        classDecl.getFields().forEach(field -> 
+        for (FieldDeclaration field : classDecl.getFields()) {
+            if (!guard.checkpoint()) {
+                break;
+            }
             field.getVariables().forEach(var -> 
-                children.add(convertFieldDeclaration(var, field, filePath))));
+                children.add(convertFieldDeclaration(var, field, filePath, guard)));
+        }
         
         SourceLocation location = getSourceLocation(classDecl, filePath);
         return new ClassNode(classDecl.getNameAsString(), location, children, attributes);
@@ -202,7 +250,7 @@ public class JavaASTParser implements ASTParser {
     /**
      * Converts a method declaration to generic AST.
      */
-    private MethodNode convertMethodDeclaration(MethodDeclaration methodDecl, String filePath) {
+    private MethodNode convertMethodDeclaration(MethodDeclaration methodDecl, String filePath, ParseGuard guard) {
         List<ASTNode> children = new ArrayList<>();
         Map<String, Object> attributes = new HashMap<>();
         
@@ -239,9 +287,14 @@ public class JavaASTParser implements ASTParser {
         attributes.put("cyclomaticComplexity", complexity);
         
         // Convert method body statements
-        methodDecl.getBody().ifPresent(body -> 
-            body.getStatements().forEach(stmt -> 
-                children.add(convertStatement(stmt, filePath))));
+        methodDecl.getBody().ifPresent(body -> {
+            for (Statement stmt : body.getStatements()) {
+                if (!guard.checkpoint()) {
+                    break;
+                }
+                children.add(convertStatement(stmt, filePath, guard));
+            }
+        });
         
         SourceLocation location = getSourceLocation(methodDecl, filePath);
         return new MethodNode(methodDecl.getNameAsString(), location, children, attributes);
@@ -250,7 +303,8 @@ public class JavaASTParser implements ASTParser {
     /**
      * Converts a field declaration to generic AST.
      */
-    private VariableNode convertFieldDeclaration(VariableDeclarator var, FieldDeclaration field, String filePath) {
+    private VariableNode convertFieldDeclaration(VariableDeclarator var, FieldDeclaration field, String filePath,
+                                                 ParseGuard guard) {
         Map<String, Object> attributes = new HashMap<>();
         List<ASTNode> children = new ArrayList<>();
         
@@ -266,7 +320,7 @@ public class JavaASTParser implements ASTParser {
         
         // Add initializer if present
         var.getInitializer().ifPresent(init -> 
-            children.add(convertExpression(init, filePath)));
+            children.add(convertExpression(init, filePath, guard)));
         
         SourceLocation location = getSourceLocation(var, filePath);
         return new VariableNode(var.getNameAsString(), location, children, attributes);
@@ -275,7 +329,7 @@ public class JavaASTParser implements ASTParser {
     /**
      * Converts a statement to generic AST.
      */
-    private StatementNode convertStatement(Statement stmt, String filePath) {
+    private StatementNode convertStatement(Statement stmt, String filePath, ParseGuard guard) {
         Map<String, Object> attributes = new HashMap<>();
         List<ASTNode> children = new ArrayList<>();
         
@@ -285,22 +339,68 @@ public class JavaASTParser implements ASTParser {
         attributes.put("statementType", stmtType);
         
         // Add child nodes based on statement type
-        stmt.getChildNodes().forEach(child -> {
+        for (Node child : stmt.getChildNodes()) {
+            if (!guard.checkpoint()) {
+                break;
+            }
             if (child instanceof Expression) {
-                children.add(convertExpression((Expression) child, filePath));
+                children.add(convertExpression((Expression) child, filePath, guard));
             } else if (child instanceof Statement) {
-                children.add(convertStatement((Statement) child, filePath));
+                children.add(convertStatement((Statement) child, filePath, guard));
+            } else if (child instanceof SwitchEntry) {
+                children.add(convertSwitchEntry((SwitchEntry) child, filePath, guard));
+            } else if (child instanceof CatchClause) {
+                children.add(convertCatchClause((CatchClause) child, filePath, guard));
             }
-        });
+        }
         
         SourceLocation location = getSourceLocation(stmt, filePath);
         return new StatementNode(stmtType, location, children, attributes);
     }
     
+    /**
+     * Converts a switch entry to a "case" statement, or "default" when it has no labels.
+     */
+    private StatementNode convertSwitchEntry(SwitchEntry entry, String filePath, ParseGuard guard) {
+        Map<String, Object> attributes = new HashMap<>();
+        List<ASTNode> children = new ArrayList<>();
+        
+        String stmtType = entry.getLabels().isEmpty() ? "default" : "case";
+        attributes.put("statementType", stmtType);
+        
+        for (Expression label : entry.getLabels()) {
+            children.add(convertExpression(label, filePath, guard));
+        }
+        for (Statement stmt : entry.getStatements()) {
+            if (!guard.checkpoint()) {
+                break;
+            }
+            children.add(convertStatement(stmt, filePath, guard));
+        }
+        
+        SourceLocation location = getSourceLocation(entry, filePath);
+        return new StatementNode(stmtType, location, children, attributes);
+    }
+    
+    /**
+     * Converts a catch clause to a "catch" statement holding its body.
+     */
+    private StatementNode convertCatchClause(CatchClause clause, String filePath, ParseGuard guard) {
+        Map<String, Object> attributes = new HashMap<>();
+        attributes.put("statementType", "catch");
+        attributes.put("exceptionType", clause.getParameter().getTypeAsString());
+        
+        List<ASTNode> children = new ArrayList<>();
+        children.add(convertStatement(clause.getBody(), filePath, guard));
+        
+        SourceLocation location = getSourceLocation(clause, filePath);
+        return new StatementNode("catch", location, children, attributes);
+    }
+    
     /**
      * Converts an expression to generic AST.
      */
-    private ExpressionNode convertExpression(Expression expr, String filePath) {
+    private ExpressionNode convertExpression(Expression expr, String filePath, ParseGuard guard) {
         Map<String, Object> attributes = new HashMap<>();
         List<ASTNode> children = new ArrayList<>();
         
@@ -312,14 +412,31 @@ public class JavaASTParser implements ASTParser {
         // Add expression-specific attributes
         if (expr.isLiteralExpr()) {
             attributes.put("literalValue", expr.toString());
+        } else if (expr.isMethodCallExpr()) {
+            attributes.put("methodName", expr.asMethodCallExpr().getNameAsString());
+            expr.asMethodCallExpr().getScope().ifPresent(scope -> 
+                attributes.put("scope", scope.toString()));
+        } else if (expr.isObjectCreationExpr()) {
+            attributes.put("createdType", expr.asObjectCreationExpr().getTypeAsString());
+        } else if (expr.isBinaryExpr()) {
+            attributes.put("operator", expr.asBinaryExpr().getOperator().asString());
+        } else if (expr.isUnaryExpr()) {
+            attributes.put("operator", expr.asUnaryExpr().getOperator().asString());
         }
         
-        // Add child expressions
-        expr.getChildNodes().forEach(child -> {
+        // Add child expressions, lambda bodies and switch expression entries
+        for (Node child : expr.getChildNodes()) {
+            if (!guard.checkpoint()) {
+                break;
+            }
             if (child instanceof Expression) {
-                children.add(convertExpression((Expression) child, filePath));
+                children.add(convertExpression((Expression) child, filePath, guard));
+            } else if (child instanceof Statement) {
+                children.add(convertStatement((Statement) child, filePath, guard));
+            } else if (child instanceof SwitchEntry) {
+                children.add(convertSwitchEntry((SwitchEntry) child, filePath, guard));
             }
-        });
+        }
         
         SourceLocation location = getSourceLocation(expr, filePath);
         return new ExpressionNode(exprType, location, children, attributes);
@@ -388,14 +505,4 @@ public class JavaASTParser implements ASTParser {
             return complexity;
         }
     }
-    
-    /**
-     * Custom AST node for compilation unit.
-     */
-    private static class CompilationUnitNode extends ASTNode {
-        public CompilationUnitNode(String name, SourceLocation location, 
-                                  List<ASTNode> children, Map<String, Object> attributes) {
-            super("compilation_unit", name, location, children, attributes);
-        }
-    }
 }
\ No newline at end of file
@@ -2,6 +2,10 @@ package com.ailearning.core.service.ast.impl;
 
 import com.ailearning.core.model.ast.*;
 import com.ailearning.core.service.ast.ASTParser;
+import com.ailearning.core.service.ast.GuardedParse;
+import com.ailearning.core.service.ast.ParseBudget;
+import com.ailearning.core.service.ast.ParseGuard;
+import org.mozilla.javascript.CompilerEnvirons;
 import org.mozilla.javascript.Parser;
 import org.mozilla.javascript.ast.AstRoot;
 import org.mozilla.javascript.ast.FunctionNode;
@@ -15,31 +19,48 @@ import java.util.concurrent.CompletableFuture;
 /**
  * JavaScript/TypeScript AST parser using Rhino parser.
  * Provides basic parsing capabilities for JavaScript and TypeScript code.
+ * A Rhino {@link Parser} can parse only once and is not thread-safe, so every
+ * parse and validation creates its own.
  */
 public class JavaScriptASTParser implements ASTParser {
     
     private static final Logger logger = LoggerFactory.getLogger(JavaScriptASTParser.class);
     
-    private final Parser parser;
+    private volatile ParseBudget parseBudget;
     
     public JavaScriptASTParser() {
-        this.parser = new Parser();
-        logger.debug("Initialized JavaScript AST parser");
+        this(ParseBudget.defaults());
+    }
+    
+    public JavaScriptASTParser(ParseBudget parseBudget) {
+        this.parseBudget = Objects.requireNonNull(parseBudget, "Parse budget cannot be null");
+        logger.debug("Initialized JavaScript AST parser with {}", parseBudget);
     }
     
     @Override
     public CompletableFuture<ParseResult> parseCode(String sourceCode, String language, String filePath) {
-        return CompletableFuture.supplyAsync(() -> {
+        return GuardedParse.supplyAsync(() -> parseBudget, (budget, guard) -> {
+            if (budget.exceedsSize(sourceCode)) {
+                logger.warn("Skipping {}: {} chars exceeds parse budget", filePath, sourceCode.length());
+                return ParseResult.sizeExceeded(language, filePath, sourceCode.length(), budget.getMaxSourceChars());
+            }
             long startTime = System.currentTimeMillis();
             
             try {
-                AstRoot astRoot = parser.parse(sourceCode, filePath, 1);
-                long parseTime = System.currentTimeMillis() - startTime;
+                // Rhino parses the whole string in one call, so the guard is
+                // only observed once conversion starts
+                AstRoot astRoot = newParser().parse(sourceCode, filePath, 1);
                 
                 if (astRoot != null) {
-                    ASTNode rootNode = convertToGenericAST(astRoot, filePath);
+                    ASTNode rootNode = convertToGenericAST(astRoot, filePath, guard);
+                    long parseTime = System.currentTimeMillis() - startTime;
+                    if (guard.isExhausted()) {
+                        logger.warn("Parse time budget exceeded for {}, returning partial AST", filePath);
+                        return ParseResult.partial(rootNode, language, filePath, parseTime);
+                    }
                     return ParseResult.success(rootNode, language, filePath, parseTime);
                 } else {
+                    long parseTime = System.currentTimeMillis() - startTime;
                     List<ParseError> errors = List.of(
                         ParseError.of("Failed to parse JavaScript code", 
                                      SourceLocation.at(filePath, 1, 1))
@@ -59,6 +80,10 @@ public class JavaScriptASTParser implements ASTParser {
         });
     }
     
+    private static Parser newParser() {
+        return new Parser(new CompilerEnvirons());
+    }
+    
     @Override
     public CompletableFuture<ParseResult> incrementalParse(ASTNode existingAST, String changes, String language) {
         // Fall back to full parsing for now
@@ -70,7 +95,7 @@ public class JavaScriptASTParser implements ASTParser {
     public CompletableFuture<Boolean> validateSyntax(String sourceCode, String language) {
         return CompletableFuture.supplyAsync(() -> {
             try {
-                AstRoot result = parser.parse(sourceCode, "validation", 1);
+                AstRoot result = newParser().parse(sourceCode, "validation", 1);
                 return result != null;
             } catch (Exception e) {
                 logger.debug("Syntax validation failed for JavaScript code: {}", e.getMessage());
@@ -89,10 +114,22 @@ public class JavaScriptASTParser implements ASTParser {
         return new String[]{"javascript", "typescript"};
     }
     
+    @Override
+    public void setParseBudget(ParseBudget budget) {
+        this.parseBudget = Objects.requireNonNull(budget, "Parse budget cannot be null");
+    }
+    
+    @Override
+    public ParseBudget getParseBudget() {
+        return parseBudget;
+    }
+    
     /**
      * Converts Rhino AST to generic AST representation.
+     * Once the guard reports the time budget is spent the visitor stops
+     * descending, so the functions found so far form a partial outline.
      */
-    private ASTNode convertToGenericAST(AstRoot astRoot, String filePath) {
+    private ASTNode convertToGenericAST(AstRoot astRoot, String filePath, ParseGuard guard) {
         List<ASTNode> children = new ArrayList<>();
         Map<String, Object> attributes = new HashMap<>();
         
@@ -101,6 +138,9 @@ public class JavaScriptASTParser implements ASTParser {
         
         // Find functions
         astRoot.visit(node -> {
+            if (!guard.checkpoint()) {
+                return false;
+            }
             if (node instanceof FunctionNode) {
                 FunctionNode func = (FunctionNode) node;
                 children.add(convertFunctionNode(func, filePath));
@@ -109,7 +149,7 @@ public class JavaScriptASTParser implements ASTParser {
         });
         
         SourceLocation location = SourceLocation.at(filePath, 1, 1);
-        return new JavaScriptRootNode("script", location, children, attributes);
+        return new ModuleNode("script", "script", location, children, attributes);
     }
     
     /**
@@ -148,14 +188,4 @@ public class JavaScriptASTParser implements ASTParser {
         String functionName = func.getName() != null ? func.getName() : "anonymous";
         return new MethodNode(functionName, location, children, attributes);
     }
-    
-    /**
-     * Custom AST node for JavaScript root.
-     */
-    private static class JavaScriptRootNode extends ASTNode {
-        public JavaScriptRootNode(String name, SourceLocation location, 
-                                 List<ASTNode> children, Map<String, Object> attributes) {
-            super("script", name, location, children, attributes);
-        }
-    }
 }
\ No newline at end of file
@@ -3,31 +3,77 @@ package com.ailearning.core.service.ast.impl;
 import com.ailearning.core.model.ast.ASTNode;
 import com.ailearning.core.model.ast.ParseResult;
 import com.ailearning.core.service.ast.ASTParser;
+import com.ailearning.core.service.ast.ParseBudget;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.function.Supplier;
 
 /**
  * Multi-language AST parser that delegates to language-specific parsers.
  * Provides a unified interface for parsing different programming languages.
+ * <p>
+ * Language parsers are created on first use, so a project that never touches
+ * JavaScript never loads Rhino. Languages handled by the same implementation
+ * (JavaScript and TypeScript) share one parser instance. {@link #warmUp()}
+ * can create and exercise the parsers on background threads ahead of time.
  */
 public class MultiLanguageASTParser implements ASTParser {
     
     private static final Logger logger = LoggerFactory.getLogger(MultiLanguageASTParser.class);
     
-    private final Map<String, ASTParser> languageParsers = new ConcurrentHashMap<>();
+    private final Map<String, ParserSlot> languageParsers = new ConcurrentHashMap<>();
+    private volatile ParseBudget parseBudget;
     
     public MultiLanguageASTParser() {
-        // Initialize language-specific parsers
-        languageParsers.put("java", new JavaASTParser());
-        languageParsers.put("javascript", new JavaScriptASTParser());
-        languageParsers.put("typescript", new JavaScriptASTParser()); // TypeScript uses same parser
-        languageParsers.put("python", new PythonASTParser());
+        this(ParseBudget.defaults());
+    }
+    
+    public MultiLanguageASTParser(ParseBudget parseBudget) {
+        this.parseBudget = Objects.requireNonNull(parseBudget, "Parse budget cannot be null");
         
-        logger.info("Initialized multi-language AST parser with {} languages", languageParsers.size());
+        // Register language-specific parsers; none are constructed until first use
+        ParserSlot javaScript = new ParserSlot("javascript", "JavaScriptASTParser", JavaScriptASTParser::new,
+                "function warmUp(a) { return a + 1; }");
+        languageParsers.put("java", new ParserSlot("java", "JavaASTParser", JavaASTParser::new,
+                "class WarmUp { int run(int a) { return a + 1; } }"));
+        languageParsers.put("javascript", javaScript);
+        languageParsers.put("typescript", javaScript); // TypeScript uses same parser
+        languageParsers.put("python", new ParserSlot("python", "PythonASTParser", PythonASTParser::new,
+                "def warm_up(a):\n    return a + 1\n"));
+        
+        logger.info("Registered multi-language AST parser for {} languages ({})", 
+                   languageParsers.size(), parseBudget);
+    }
+    
+    /**
+     * Gets the process-wide parser with the default budget. Components that
+     * construct their own parser when none is injected should use this
+     * instance so each language runtime is loaded at most once.
+     * 
+     * @return the shared default parser
+     */
+    public static MultiLanguageASTParser shared() {
+        return SharedHolder.INSTANCE;
+    }
+    
+    private static final class SharedHolder {
+        private static final MultiLanguageASTParser INSTANCE = new MultiLanguageASTParser();
     }
     
     @Override
@@ -46,16 +92,18 @@ public class MultiLanguageASTParser implements ASTParser {
         }
         
         long startTime = System.currentTimeMillis();
-        return parser.parseCode(sourceCode, language, filePath)
-                .whenComplete((result, throwable) -> {
-                    long duration = System.currentTimeMillis() - startTime;
-                    if (throwable != null) {
-                        logger.error("Failed to parse {} code from {}: {}", language, filePath, throwable.getMessage());
-                    } else {
-                        logger.debug("Parsed {} code from {} in {}ms (success: {})", 
-                                   language, filePath, duration, result.isSuccessful());
-                    }
-                });
+        CompletableFuture<ParseResult> parse = parser.parseCode(sourceCode, language, filePath);
+        // Hand back the parser's own future so cancelling it reaches the parse
+        parse.whenComplete((result, throwable) -> {
+            long duration = System.currentTimeMillis() - startTime;
+            if (throwable != null) {
+                logger.error("Failed to parse {} code from {}: {}", language, filePath, throwable.getMessage());
+            } else {
+                logger.debug("Parsed {} code from {} in {}ms (success: {})", 
+                           language, filePath, duration, result.isSuccessful());
+            }
+        });
+        return parse;
     }
     
     @Override
@@ -98,6 +146,18 @@ public class MultiLanguageASTParser implements ASTParser {
         return languageParsers.keySet().toArray(new String[0]);
     }
     
+    @Override
+    public void setParseBudget(ParseBudget budget) {
+        this.parseBudget = Objects.requireNonNull(budget, "Parse budget cannot be null");
+        // Parsers created later read the current budget when they are constructed
+        distinctSlots().forEach(slot -> slot.updateBudget(budget));
+    }
+    
+    @Override
+    public ParseBudget getParseBudget() {
+        return parseBudget;
+    }
+    
     /**
      * Gets the parser for a specific language.
      * 
@@ -105,7 +165,8 @@ public class MultiLanguageASTParser implements ASTParser {
      * @return the parser, or null if not supported
      */
     private ASTParser getParserForLanguage(String language) {
-        return languageParsers.get(language.toLowerCase());
+        ParserSlot slot = languageParsers.get(language.toLowerCase());
+        return slot != null ? slot.get(this::getParseBudget) : null;
     }
     
     /**
@@ -115,7 +176,8 @@ public class MultiLanguageASTParser implements ASTParser {
      * @param parser the parser implementation
      */
     public void addLanguageParser(String language, ASTParser parser) {
-        languageParsers.put(language.toLowerCase(), parser);
+        parser.setParseBudget(parseBudget);
+        languageParsers.put(language.toLowerCase(), ParserSlot.of(language.toLowerCase(), parser));
         logger.info("Added parser for {} language", language);
     }
     
@@ -136,8 +198,142 @@ public class MultiLanguageASTParser implements ASTParser {
      */
     public Map<String, String> getParserStatistics() {
         Map<String, String> stats = new ConcurrentHashMap<>();
-        languageParsers.forEach((lang, parser) -> 
-            stats.put(lang, parser.getClass().getSimpleName()));
+        languageParsers.forEach((lang, slot) -> 
+            stats.put(lang, slot.parserName));
         return stats;
     }
+    
+    /**
+     * Checks whether the parser for a language has been constructed yet.
+     * 
+     * @param language the programming language
+     * @return true if the language's parser exists
+     */
+    public boolean isInitialized(String language) {
+        ParserSlot slot = languageParsers.get(language.toLowerCase());
+        return slot != null && slot.instance != null;
+    }
+    
+    /**
+     * Gets how long each constructed parser took to initialize, including its
+     * warm-up parse if it was created by {@link #warmUp()}. Languages sharing a
+     * parser report the same time; languages not yet used are absent.
+     * 
+     * @return map of language to initialization time in milliseconds
+     */
+    public Map<String, Long> getInitializationTimes() {
+        Map<String, Long> times = new LinkedHashMap<>();
+        languageParsers.forEach((lang, slot) -> {
+            if (slot.instance != null) {
+                times.put(lang, TimeUnit.NANOSECONDS.toMillis(slot.initNanos));
+            }
+        });
+        return times;
+    }
+    
+    /**
+     * Creates every registered parser on background daemon threads and runs a
+     * tiny parse through each, so class loading and runtime start-up happen
+     * before the first real request.
+     * 
+     * @return future completing with the per-language initialization times
+     */
+    public CompletableFuture<Map<String, Long>> warmUp() {
+        List<ParserSlot> slots = new ArrayList<>(distinctSlots());
+        if (slots.isEmpty()) {
+            return CompletableFuture.completedFuture(Map.of());
+        }
+        
+        AtomicInteger threadCount = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(slots.size(), runnable -> {
+            Thread thread = new Thread(runnable, "ast-parser-warmup-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        CompletableFuture<?>[] tasks = slots.stream()
+                .map(slot -> CompletableFuture.runAsync(() -> slot.warmUp(this::getParseBudget), executor))
+                .toArray(CompletableFuture[]::new);
+        return CompletableFuture.allOf(tasks)
+                .handle((ignored, throwable) -> {
+                    executor.shutdown();
+                    Map<String, Long> times = getInitializationTimes();
+                    logger.info("Warmed up AST parsers: {}", times);
+                    return times;
+                });
+    }
+    
+    private Set<ParserSlot> distinctSlots() {
+        Set<ParserSlot> slots = Collections.newSetFromMap(new IdentityHashMap<>());
+        slots.addAll(languageParsers.values());
+        return slots;
+    }
+    
+    /**
+     * Lazily constructed parser shared by every language registered with it.
+     */
+    private static final class ParserSlot {
+        private final String language;
+        private final String parserName;
+        private final Function<ParseBudget, ASTParser> factory;
+        private final String warmUpSource;
+        private volatile ASTParser instance;
+        private volatile long initNanos;
+        
+        ParserSlot(String language, String parserName, Function<ParseBudget, ASTParser> factory,
+                   String warmUpSource) {
+            this.language = language;
+            this.parserName = parserName;
+            this.factory = factory;
+            this.warmUpSource = warmUpSource;
+        }
+        
+        static ParserSlot of(String language, ASTParser parser) {
+            ParserSlot slot = new ParserSlot(language, parser.getClass().getSimpleName(), null, null);
+            slot.instance = parser;
+            return slot;
+        }
+        
+        ASTParser get(Supplier<ParseBudget> budget) {
+            ASTParser parser = instance;
+            if (parser == null) {
+                synchronized (this) {
+                    parser = instance;
+                    if (parser == null) {
+                        long start = System.nanoTime();
+                        // Read the budget under the lock so a concurrent updateBudget cannot be missed
+                        parser = factory.apply(budget.get());
+                        initNanos = System.nanoTime() - start;
+                        instance = parser;
+                        logger.info("Initialized {} for {} in {}ms", parserName, language,
+                                   TimeUnit.NANOSECONDS.toMillis(initNanos));
+                    }
+                }
+            }
+            return parser;
+        }
+        
+        synchronized void updateBudget(ParseBudget budget) {
+            if (instance != null) {
+                instance.setParseBudget(budget);
+            }
+        }
+        
+        void warmUp(Supplier<ParseBudget> budget) {
+            long start = System.nanoTime();
+            boolean created = instance == null;
+            ASTParser parser = get(budget);
+            if (warmUpSource == null) {
+                return;
+            }
+            try {
+                parser.parseCode(warmUpSource, language, "warmup").join();
+            } catch (Exception e) {
+                logger.debug("Warm-up parse failed for {}: {}", parserName, e.getMessage());
+            }
+            if (created) {
+                // Count the first parse too: it is where most lazy class loading happens
+                initNanos = System.nanoTime() - start;
+            }
+        }
+    }
 }
\ No newline at end of file
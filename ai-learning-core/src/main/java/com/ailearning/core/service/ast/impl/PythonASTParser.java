@@ -2,216 +2,601 @@ package com.ailearning.core.service.ast.impl;
 
 import com.ailearning.core.model.ast.*;
 import com.ailearning.core.service.ast.ASTParser;
+import com.ailearning.core.service.ast.GuardedParse;
+import com.ailearning.core.service.ast.ParseBudget;
+import com.ailearning.core.service.ast.ParseGuard;
+import com.ailearning.core.service.ast.impl.PythonTokenizer.PythonSyntaxException;
+import com.ailearning.core.service.ast.impl.PythonTokenizer.Token;
+import com.ailearning.core.service.ast.impl.PythonTokenizer.TokenType;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.util.*;
 import java.util.concurrent.CompletableFuture;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
 
 /**
- * Python AST parser with basic parsing capabilities.
- * This is a simplified implementation that uses regex-based parsing
- * for basic Python constructs. A full implementation would use
- * a proper Python parser like ANTLR or Jython.
+ * Python AST parser built on a streaming, indentation-aware tokenizer.
+ * A recursive-descent declaration parser consumes the token stream once and
+ * builds the generic AST (modules, classes, functions, imports) in a single
+ * linear pass. Nesting, decorators, async definitions and multi-line
+ * signatures are recognized; statement bodies are skimmed for decision
+ * points rather than fully parsed.
  */
 public class PythonASTParser implements ASTParser {
-    
+
     private static final Logger logger = LoggerFactory.getLogger(PythonASTParser.class);
-    
-    // Basic regex patterns for Python constructs
-    private static final Pattern CLASS_PATTERN = Pattern.compile("^\\s*class\\s+(\\w+)\\s*(?:\\([^)]*\\))?\\s*:");
-    private static final Pattern FUNCTION_PATTERN = Pattern.compile("^\\s*def\\s+(\\w+)\\s*\\([^)]*\\)\\s*:");
-    private static final Pattern IMPORT_PATTERN = Pattern.compile("^\\s*(?:from\\s+\\w+\\s+)?import\\s+(.+)");
-    
+
+    private static final Set<String> DECISION_KEYWORDS = Set.of(
+        "if", "elif", "for", "while", "except", "and", "or", "case"
+    );
+
+    private volatile ParseBudget parseBudget;
+
     public PythonASTParser() {
-        logger.debug("Initialized Python AST parser (simplified)");
+        this(ParseBudget.defaults());
     }
-    
+
+    public PythonASTParser(ParseBudget parseBudget) {
+        this.parseBudget = Objects.requireNonNull(parseBudget, "Parse budget cannot be null");
+        logger.debug("Initialized Python AST parser with {}", parseBudget);
+    }
+
     @Override
     public CompletableFuture<ParseResult> parseCode(String sourceCode, String language, String filePath) {
-        return CompletableFuture.supplyAsync(() -> {
+        return GuardedParse.supplyAsync(() -> parseBudget, (budget, guard) -> {
+            if (budget.exceedsSize(sourceCode)) {
+                logger.warn("Skipping {}: {} chars exceeds parse budget", filePath, sourceCode.length());
+                return ParseResult.sizeExceeded(language, filePath, sourceCode.length(), budget.getMaxSourceChars());
+            }
             long startTime = System.currentTimeMillis();
-            
+
             try {
-                ASTNode rootNode = parseSimplePython(sourceCode, filePath);
+                ASTNode rootNode = new DeclarationParser(sourceCode, filePath, guard).parseModule();
                 long parseTime = System.currentTimeMillis() - startTime;
-                
+
+                if (guard.isExhausted()) {
+                    logger.warn("Parse time budget exceeded for {}, returning partial AST", filePath);
+                    return ParseResult.partial(rootNode, language, filePath, parseTime);
+                }
                 return ParseResult.success(rootNode, language, filePath, parseTime);
-                
+
+            } catch (PythonSyntaxException e) {
+                long parseTime = System.currentTimeMillis() - startTime;
+                List<ParseError> errors = List.of(
+                    ParseError.of("Syntax error: " + e.getMessage(),
+                                 SourceLocation.at(filePath, e.getLine(), e.getColumn()))
+                );
+                return ParseResult.failure(language, filePath, errors, parseTime);
             } catch (Exception e) {
                 long parseTime = System.currentTimeMillis() - startTime;
                 logger.error("Error parsing Python code", e);
                 List<ParseError> errors = List.of(
-                    ParseError.of("Parse error: " + e.getMessage(), 
+                    ParseError.of("Parse error: " + e.getMessage(),
                                  SourceLocation.at(filePath, 1, 1))
                 );
                 return ParseResult.failure(language, filePath, errors, parseTime);
             }
         });
     }
-    
+
     @Override
     public CompletableFuture<ParseResult> incrementalParse(ASTNode existingAST, String changes, String language) {
         // Fall back to full parsing
         logger.debug("Incremental parsing not implemented for Python, falling back to full parse");
         return parseCode(changes, language, existingAST.getLocation().getFilePath());
     }
-    
+
     @Override
     public CompletableFuture<Boolean> validateSyntax(String sourceCode, String language) {
         return CompletableFuture.supplyAsync(() -> {
             try {
-                // Basic syntax validation - check for balanced parentheses, brackets, etc.
-                return isValidPythonSyntax(sourceCode);
+                // The declaration parser drives the tokenizer over the whole input,
+                // so bracket, string and indentation errors surface in the same pass
+                new DeclarationParser(sourceCode, "validation", ParseBudget.unlimited().startGuard()).parseModule();
+                return true;
             } catch (Exception e) {
                 logger.debug("Syntax validation failed for Python code: {}", e.getMessage());
                 return false;
             }
         });
     }
-    
+
     @Override
     public boolean supportsLanguage(String language) {
         return "python".equalsIgnoreCase(language);
     }
-    
+
     @Override
     public String[] getSupportedLanguages() {
         return new String[]{"python"};
     }
-    
-    /**
-     * Simple Python parser using regex patterns.
-     * This is a basic implementation for demonstration purposes.
-     */
-    private ASTNode parseSimplePython(String sourceCode, String filePath) {
-        List<ASTNode> children = new ArrayList<>();
-        Map<String, Object> attributes = new HashMap<>();
-        
-        String[] lines = sourceCode.split("\n");
-        List<String> imports = new ArrayList<>();
-        
-        for (int i = 0; i < lines.length; i++) {
-            String line = lines[i];
-            int lineNumber = i + 1;
-            
-            // Check for imports
-            Matcher importMatcher = IMPORT_PATTERN.matcher(line);
-            if (importMatcher.matches()) {
-                imports.add(importMatcher.group(1).trim());
-                continue;
-            }
-            
-            // Check for class definitions
-            Matcher classMatcher = CLASS_PATTERN.matcher(line);
-            if (classMatcher.matches()) {
-                String className = classMatcher.group(1);
-                ClassNode classNode = createPythonClass(className, lineNumber, filePath, lines, i);
-                children.add(classNode);
-                continue;
-            }
-            
-            // Check for function definitions (top-level)
-            Matcher functionMatcher = FUNCTION_PATTERN.matcher(line);
-            if (functionMatcher.matches() && !line.startsWith("    ")) { // Not indented (top-level)
-                String functionName = functionMatcher.group(1);
-                MethodNode methodNode = createPythonFunction(functionName, lineNumber, filePath);
-                children.add(methodNode);
-            }
-        }
-        
-        if (!imports.isEmpty()) {
-            attributes.put("imports", imports);
-        }
-        
-        SourceLocation location = SourceLocation.at(filePath, 1, 1);
-        return new PythonModuleNode("module", location, children, attributes);
-    }
-    
-    /**
-     * Creates a Python class node.
-     */
-    private ClassNode createPythonClass(String className, int lineNumber, String filePath, String[] lines, int startIndex) {
-        List<ASTNode> children = new ArrayList<>();
-        Map<String, Object> attributes = new HashMap<>();
-        
-        attributes.put("modifiers", List.of()); // Python doesn't have explicit access modifiers
-        
-        // Look for methods within the class (simplified)
-        for (int i = startIndex + 1; i < lines.length; i++) {
-            String line = lines[i];
-            
-            // Stop if we reach another class or unindented code
-            if (!line.trim().isEmpty() && !line.startsWith("    ")) {
-                break;
-            }
-            
-            // Check for method definitions within the class
-            Matcher methodMatcher = FUNCTION_PATTERN.matcher(line);
-            if (methodMatcher.matches()) {
-                String methodName = methodMatcher.group(1);
-                MethodNode methodNode = createPythonFunction(methodName, i + 1, filePath);
-                children.add(methodNode);
-            }
-        }
-        
-        SourceLocation location = SourceLocation.at(filePath, lineNumber, 1);
-        return new ClassNode(className, location, children, attributes);
+
+    @Override
+    public void setParseBudget(ParseBudget budget) {
+        this.parseBudget = Objects.requireNonNull(budget, "Parse budget cannot be null");
     }
-    
-    /**
-     * Creates a Python function node.
-     */
-    private MethodNode createPythonFunction(String functionName, int lineNumber, String filePath) {
-        List<ASTNode> children = new ArrayList<>();
-        Map<String, Object> attributes = new HashMap<>();
-        
-        attributes.put("returnType", "unknown"); // Python is dynamically typed
-        attributes.put("modifiers", List.of());
-        attributes.put("parameters", List.of()); // Simplified - would need proper parsing
-        attributes.put("cyclomaticComplexity", 1); // Simplified
-        
-        SourceLocation location = SourceLocation.at(filePath, lineNumber, 1);
-        return new MethodNode(functionName, location, children, attributes);
+
+    @Override
+    public ParseBudget getParseBudget() {
+        return parseBudget;
     }
-    
+
     /**
-     * Basic Python syntax validation.
+     * Recursive-descent parser over the token stream. Only declarations are
+     * materialized as AST nodes; every other statement is skipped up to its
+     * NEWLINE while counting decision keywords for the enclosing function.
+     * When the guard runs out of budget the statement loops stop and every
+     * declaration still being parsed is closed off with the children found
+     * so far, yielding a partial outline.
      */
-    private boolean isValidPythonSyntax(String sourceCode) {
-        // Very basic validation - check for balanced parentheses and brackets
-        int parenCount = 0;
-        int bracketCount = 0;
-        int braceCount = 0;
-        
-        for (char c : sourceCode.toCharArray()) {
-            switch (c) {
-                case '(' -> parenCount++;
-                case ')' -> parenCount--;
-                case '[' -> bracketCount++;
-                case ']' -> bracketCount--;
-                case '{' -> braceCount++;
-                case '}' -> braceCount--;
-            }
-            
-            // Early exit if unbalanced
-            if (parenCount < 0 || bracketCount < 0 || braceCount < 0) {
-                return false;
+    private static final class DeclarationParser {
+
+        private final PythonTokenizer tokenizer;
+        private final String source;
+        private final String filePath;
+        private final ParseGuard guard;
+        private final List<String> imports = new ArrayList<>();
+        private final Deque<int[]> complexityCounters = new ArrayDeque<>();
+
+        private Token current;
+        private Token last;
+
+        DeclarationParser(String source, String filePath, ParseGuard guard) {
+            this.tokenizer = new PythonTokenizer(source);
+            this.source = source;
+            this.filePath = filePath;
+            this.guard = guard;
+            this.current = tokenizer.next();
+        }
+
+        ASTNode parseModule() {
+            List<ASTNode> children = new ArrayList<>();
+            while (current.getType() != TokenType.END && guard.checkpoint()) {
+                parseStatementOrBlock(children);
+            }
+
+            Map<String, Object> attributes = new HashMap<>();
+            if (!imports.isEmpty()) {
+                attributes.put("imports", List.copyOf(imports));
             }
+
+            int endLine = last != null ? last.getEndLine() : 1;
+            int endColumn = last != null ? last.getEndColumn() : 1;
+            SourceLocation location = SourceLocation.range(filePath, 1, 1, endLine, endColumn);
+            return new ModuleNode("module", "module", location, children, attributes);
         }
-        
-        return parenCount == 0 && bracketCount == 0 && braceCount == 0;
-    }
-    
-    /**
-     * Custom AST node for Python module.
-     */
-    private static class PythonModuleNode extends ASTNode {
-        public PythonModuleNode(String name, SourceLocation location, 
-                               List<ASTNode> children, Map<String, Object> attributes) {
-            super("module", name, location, children, attributes);
+
+        /**
+         * Parses statements of an indented block until the matching DEDENT.
+         */
+        private void parseBlock(List<ASTNode> out) {
+            expect(TokenType.INDENT);
+            while (current.getType() != TokenType.DEDENT && current.getType() != TokenType.END
+                    && guard.checkpoint()) {
+                parseStatementOrBlock(out);
+            }
+            if (current.getType() == TokenType.DEDENT) {
+                advance();
+            }
+        }
+
+        private void parseStatementOrBlock(List<ASTNode> out) {
+            switch (current.getType()) {
+                case NEWLINE -> advance();
+                case INDENT -> parseBlock(out);
+                case DEDENT -> throw error("Unexpected dedent");
+                default -> parseStatement(out);
+            }
+        }
+
+        private void parseStatement(List<ASTNode> out) {
+            Token start = current;
+            List<String> decorators = new ArrayList<>();
+            while (current.is("@")) {
+                advance();
+                decorators.add(readExpressionText(TokenType.NEWLINE));
+                expect(TokenType.NEWLINE);
+            }
+
+            boolean async = false;
+            if (current.getType() == TokenType.NAME && current.is("async")) {
+                advance();
+                async = true;
+            }
+
+            if (current.getType() == TokenType.NAME && current.is("def")) {
+                out.add(parseFunction(start, decorators, async));
+            } else if (current.getType() == TokenType.NAME && current.is("class") && !async) {
+                out.add(parseClass(start, decorators));
+            } else if (!decorators.isEmpty()) {
+                throw error("Decorator must precede a function or class definition");
+            } else if (current.getType() == TokenType.NAME && current.is("import")) {
+                parseImport();
+            } else if (current.getType() == TokenType.NAME && current.is("from")) {
+                parseFromImport();
+            } else {
+                parseSimpleOrCompoundStatement(out);
+            }
+        }
+
+        private MethodNode parseFunction(Token start, List<String> decorators, boolean async) {
+            advance(); // def
+            String name = expectName();
+            expectOp("(");
+            List<Map<String, String>> parameters = parseParameters();
+
+            String returnType = "unknown";
+            if (current.is("->")) {
+                advance();
+                returnType = readExpressionText(null);
+            }
+            expectOp(":");
+
+            complexityCounters.push(new int[]{1});
+            List<ASTNode> children = new ArrayList<>();
+            parseSuite(children);
+            int complexity = complexityCounters.pop()[0];
+
+            Map<String, Object> attributes = new HashMap<>();
+            List<String> modifiers = new ArrayList<>();
+            if (async) {
+                modifiers.add("async");
+            }
+            if (decorators.contains("staticmethod")) {
+                modifiers.add("static");
+            }
+            if (decorators.contains("abstractmethod") || decorators.contains("abc.abstractmethod")) {
+                modifiers.add("abstract");
+            }
+            attributes.put("modifiers", List.copyOf(modifiers));
+            attributes.put("returnType", returnType);
+            attributes.put("parameters", parameters);
+            attributes.put("cyclomaticComplexity", complexity);
+            if (!decorators.isEmpty()) {
+                attributes.put("decorators", List.copyOf(decorators));
+            }
+            if ("__init__".equals(name)) {
+                attributes.put("constructor", true);
+            }
+
+            return new MethodNode(name, rangeFrom(start), children, attributes);
+        }
+
+        private ClassNode parseClass(Token start, List<String> decorators) {
+            advance(); // class
+            String name = expectName();
+
+            List<String> bases = new ArrayList<>();
+            Map<String, Object> attributes = new HashMap<>();
+            if (current.is("(")) {
+                advance();
+                while (!current.is(")")) {
+                    if (current.getType() == TokenType.NAME) {
+                        Token first = current;
+                        advance();
+                        if (current.is("=")) {
+                            advance();
+                            String value = readExpressionText(null);
+                            if (first.is("metaclass")) {
+                                attributes.put("metaclass", value);
+                            }
+                        } else {
+                            readExpressionText(null);
+                            bases.add(source.substring(first.getStartOffset(), last.getEndOffset()));
+                        }
+                    } else {
+                        readExpressionText(null);
+                    }
+                    if (current.is(",")) {
+                        advance();
+                    } else if (!current.is(")")) {
+                        throw error("Expected ',' or ')' in class bases");
+                    }
+                }
+                advance();
+            }
+            expectOp(":");
+
+            List<ASTNode> children = new ArrayList<>();
+            parseSuite(children);
+
+            attributes.put("modifiers", List.of()); // Python doesn't have explicit access modifiers
+            if (!bases.isEmpty()) {
+                attributes.put("bases", List.copyOf(bases));
+                if (!"object".equals(bases.get(0))) {
+                    attributes.put("superclass", bases.get(0));
+                }
+            }
+            if (!decorators.isEmpty()) {
+                attributes.put("decorators", List.copyOf(decorators));
+            }
+
+            return new ClassNode(name, rangeFrom(start), children, attributes);
+        }
+
+        /**
+         * Parses a parameter list after the opening parenthesis, consuming the closing one.
+         */
+        private List<Map<String, String>> parseParameters() {
+            List<Map<String, String>> parameters = new ArrayList<>();
+            while (!current.is(")")) {
+                if (current.getType() == TokenType.END) {
+                    throw error("Unterminated parameter list");
+                }
+                String prefix = "";
+                if (current.is("*") || current.is("**")) {
+                    prefix = current.getText();
+                    advance();
+                }
+                if (current.getType() == TokenType.NAME) {
+                    String paramName = prefix + current.getText();
+                    advance();
+                    String type = "unknown";
+                    if (current.is(":")) {
+                        advance();
+                        type = readExpressionText(null);
+                    }
+                    if (current.is("=")) {
+                        advance();
+                        skipDefaultValue();
+                    }
+                    parameters.add(Map.of("name", paramName, "type", type));
+                } else if (!current.is("/") && !current.is(",") && !current.is(")") && prefix.isEmpty()) {
+                    throw error("Unexpected token in parameter list");
+                } else if (current.is("/")) {
+                    advance();
+                }
+                if (current.is(",")) {
+                    advance();
+                } else if (!current.is(")")) {
+                    throw error("Expected ',' or ')' in parameter list");
+                }
+            }
+            advance();
+            return List.copyOf(parameters);
+        }
+
+        /**
+         * Parses the body following a ':' - either an indented block or
+         * simple statements on the same line.
+         */
+        private void parseSuite(List<ASTNode> out) {
+            if (current.getType() == TokenType.NEWLINE) {
+                advance();
+                if (current.getType() != TokenType.INDENT) {
+                    throw error("Expected an indented block");
+                }
+                parseBlock(out);
+            } else {
+                parseSimpleOrCompoundStatement(out);
+            }
+        }
+
+        /**
+         * Skips a statement up to its NEWLINE, counting decision points. When the
+         * statement is a compound header ending in ':' its block is parsed so that
+         * declarations nested in if/try/with/for bodies are still discovered.
+         */
+        private void parseSimpleOrCompoundStatement(List<ASTNode> out) {
+            boolean endsWithColon = false;
+            while (current.getType() != TokenType.NEWLINE && current.getType() != TokenType.END) {
+                if (current.getType() == TokenType.NAME) {
+                    countDecisionPoint(current);
+                }
+                endsWithColon = current.is(":");
+                advance();
+            }
+            if (current.getType() == TokenType.NEWLINE) {
+                advance();
+            }
+            if (endsWithColon) {
+                if (current.getType() != TokenType.INDENT) {
+                    throw error("Expected an indented block");
+                }
+                parseBlock(out);
+            }
+        }
+
+        private void parseImport() {
+            advance(); // import
+            while (true) {
+                imports.add(readDottedName());
+                if (current.is("as")) {
+                    advance();
+                    expectName();
+                }
+                if (!current.is(",")) {
+                    break;
+                }
+                advance();
+            }
+            expectEndOfStatement();
+        }
+
+        private void parseFromImport() {
+            advance(); // from
+            StringBuilder module = new StringBuilder();
+            while (current.is(".") || current.is("...")) {
+                module.append(current.getText());
+                advance();
+            }
+            if (!current.is("import")) {
+                module.append(readDottedName());
+            }
+            if (!current.is("import")) {
+                throw error("Expected 'import'");
+            }
+            advance();
+
+            boolean parenthesized = current.is("(");
+            if (parenthesized) {
+                advance();
+            }
+            String prefix = module.toString();
+            String separator = prefix.endsWith(".") ? "" : ".";
+            while (true) {
+                if (current.is("*")) {
+                    advance();
+                    imports.add(prefix);
+                } else {
+                    imports.add(prefix + separator + expectName());
+                    if (current.is("as")) {
+                        advance();
+                        expectName();
+                    }
+                }
+                if (!current.is(",")) {
+                    break;
+                }
+                advance();
+                if (parenthesized && current.is(")")) {
+                    break; // trailing comma
+                }
+            }
+            if (parenthesized) {
+                expectOp(")");
+            }
+            expectEndOfStatement();
+        }
+
+        private String readDottedName() {
+            StringBuilder name = new StringBuilder(expectName());
+            while (current.is(".")) {
+                advance();
+                name.append('.').append(expectName());
+            }
+            return name.toString();
+        }
+
+        /**
+         * Reads an expression up to a ',', '=', ':' or closing bracket at the
+         * current nesting level (or up to the given terminator), returning its
+         * source text sliced directly from the input.
+         */
+        private String readExpressionText(TokenType terminator) {
+            int depth = 0;
+            Token first = null;
+            Token lastInExpression = null;
+            while (current.getType() != TokenType.END && current.getType() != TokenType.NEWLINE
+                    && current.getType() != terminator) {
+                if (depth == 0 && terminator == null
+                        && (current.is(",") || current.is("=") || current.is(":") || isClosingBracket(current))) {
+                    break;
+                }
+                if (isOpeningBracket(current)) {
+                    depth++;
+                } else if (isClosingBracket(current)) {
+                    depth--;
+                }
+                if (current.getType() == TokenType.NAME) {
+                    countDecisionPoint(current);
+                }
+                if (first == null) {
+                    first = current;
+                }
+                lastInExpression = current;
+                advance();
+            }
+            if (first == null) {
+                return "";
+            }
+            return source.substring(first.getStartOffset(), lastInExpression.getEndOffset());
+        }
+
+        /**
+         * Skips a parameter default value, which unlike an annotation may
+         * contain a lambda and therefore a ':' at the top level.
+         */
+        private void skipDefaultValue() {
+            int depth = 0;
+            while (current.getType() != TokenType.END) {
+                if (depth == 0 && (current.is(",") || isClosingBracket(current))) {
+                    return;
+                }
+                if (isOpeningBracket(current)) {
+                    depth++;
+                } else if (isClosingBracket(current)) {
+                    depth--;
+                }
+                advance();
+            }
+        }
+
+        private void countDecisionPoint(Token token) {
+            if (complexityCounters.isEmpty()) {
+                return;
+            }
+            for (String keyword : DECISION_KEYWORDS) {
+                if (token.is(keyword)) {
+                    complexityCounters.peek()[0]++;
+                    return;
+                }
+            }
+        }
+
+        private void expectEndOfStatement() {
+            if (current.is(";")) {
+                advance();
+                if (current.getType() != TokenType.NEWLINE && current.getType() != TokenType.END) {
+                    parseStatement(new ArrayList<>());
+                    return;
+                }
+            }
+            if (current.getType() == TokenType.NEWLINE) {
+                advance();
+            } else if (current.getType() != TokenType.END) {
+                throw error("Expected end of statement");
+            }
+        }
+
+        private String expectName() {
+            if (current.getType() != TokenType.NAME) {
+                throw error("Expected identifier");
+            }
+            String text = current.getText();
+            advance();
+            return text;
+        }
+
+        private void expectOp(String op) {
+            if (!current.is(op) || current.getType() != TokenType.OP) {
+                throw error("Expected '" + op + "'");
+            }
+            advance();
+        }
+
+        private void expect(TokenType type) {
+            if (current.getType() != type) {
+                throw error("Expected " + type);
+            }
+            advance();
+        }
+
+        private void advance() {
+            TokenType type = current.getType();
+            if (type != TokenType.NEWLINE && type != TokenType.INDENT
+                    && type != TokenType.DEDENT && type != TokenType.END) {
+                last = current;
+            }
+            current = tokenizer.next();
+        }
+
+        private SourceLocation rangeFrom(Token start) {
+            Token end = last != null ? last : start;
+            return SourceLocation.range(filePath, start.getLine(), start.getColumn(),
+                                        end.getEndLine(), end.getEndColumn());
+        }
+
+        private PythonSyntaxException error(String message) {
+            return new PythonSyntaxException(message, current.getLine(), current.getColumn());
+        }
+
+        private static boolean isOpeningBracket(Token token) {
+            return token.getType() == TokenType.OP && (token.is("(") || token.is("[") || token.is("{"));
+        }
+
+        private static boolean isClosingBracket(Token token) {
+            return token.getType() == TokenType.OP && (token.is(")") || token.is("]") || token.is("}"));
         }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,543 @@
+package com.ailearning.core.service.ast.impl;
+
+import java.util.Arrays;
+
+/**
+ * Streaming, indentation-aware tokenizer for Python source code.
+ * Produces tokens on demand in a single forward pass over the source,
+ * emitting synthetic NEWLINE, INDENT and DEDENT tokens the same way the
+ * CPython tokenizer does. Implicit line joining inside brackets, explicit
+ * backslash continuation, comments and all string literal forms (prefixed,
+ * triple-quoted) are handled without regular expressions.
+ */
+final class PythonTokenizer {
+
+    /**
+     * Token kinds produced by the tokenizer.
+     */
+    enum TokenType {
+        NAME,
+        NUMBER,
+        STRING,
+        OP,
+        NEWLINE,
+        INDENT,
+        DEDENT,
+        END
+    }
+
+    /**
+     * A single token. Text is sliced from the source lazily so that
+     * strings and numbers that the declaration parser never inspects
+     * do not allocate.
+     */
+    static final class Token {
+        private final TokenType type;
+        private final String source;
+        private final int startOffset;
+        private final int endOffset;
+        private final int line;
+        private final int column;
+        private final int endLine;
+        private final int endColumn;
+
+        Token(TokenType type, String source, int startOffset, int endOffset,
+              int line, int column, int endLine, int endColumn) {
+            this.type = type;
+            this.source = source;
+            this.startOffset = startOffset;
+            this.endOffset = endOffset;
+            this.line = line;
+            this.column = column;
+            this.endLine = endLine;
+            this.endColumn = endColumn;
+        }
+
+        TokenType getType() {
+            return type;
+        }
+
+        String getText() {
+            return source.substring(startOffset, endOffset);
+        }
+
+        int getStartOffset() {
+            return startOffset;
+        }
+
+        int getEndOffset() {
+            return endOffset;
+        }
+
+        int getLine() {
+            return line;
+        }
+
+        int getColumn() {
+            return column;
+        }
+
+        int getEndLine() {
+            return endLine;
+        }
+
+        int getEndColumn() {
+            return endColumn;
+        }
+
+        /**
+         * Checks if this token is the given operator or keyword without allocating.
+         */
+        boolean is(String text) {
+            int length = endOffset - startOffset;
+            return (type == TokenType.OP || type == TokenType.NAME)
+                    && length == text.length()
+                    && source.regionMatches(startOffset, text, 0, length);
+        }
+
+        @Override
+        public String toString() {
+            return type + "('" + getText() + "')@" + line + ":" + column;
+        }
+    }
+
+    /**
+     * Raised when the source cannot be tokenized (unterminated strings,
+     * unbalanced brackets, inconsistent dedents).
+     */
+    static final class PythonSyntaxException extends RuntimeException {
+        private final int line;
+        private final int column;
+
+        PythonSyntaxException(String message, int line, int column) {
+            super(message + " at line " + line + ", column " + column);
+            this.line = line;
+            this.column = column;
+        }
+
+        int getLine() {
+            return line;
+        }
+
+        int getColumn() {
+            return column;
+        }
+    }
+
+    private static final int TAB_SIZE = 8;
+    private static final String THREE_CHAR_OPS = "**=//=>>=<<=...";
+    private static final String[] TWO_CHAR_OPS = {
+        "**", "//", ">>", "<<", "<=", ">=", "==", "!=", "->", ":=",
+        "+=", "-=", "*=", "/=", "%=", "&=", "|=", "^=", "@="
+    };
+
+    private final String source;
+    private final int length;
+
+    private int pos;
+    private int line = 1;
+    private int lineStart;
+
+    private int[] indentStack = new int[16];
+    private int indentDepth;
+    private int pendingDedents;
+    private boolean atLineStart = true;
+    private boolean lineHasTokens;
+
+    private char[] bracketStack = new char[16];
+    private int[] bracketLines = new int[16];
+    private int[] bracketColumns = new int[16];
+    private int bracketDepth;
+
+    private boolean finished;
+
+    PythonTokenizer(String source) {
+        this.source = source;
+        this.length = source.length();
+    }
+
+    /**
+     * Returns the next token, or an END token once the input is exhausted.
+     *
+     * @throws PythonSyntaxException if the source is malformed
+     */
+    Token next() {
+        if (pendingDedents > 0) {
+            pendingDedents--;
+            return synthetic(TokenType.DEDENT);
+        }
+        if (finished) {
+            return synthetic(TokenType.END);
+        }
+
+        char c;
+        while (true) {
+            if (atLineStart && bracketDepth == 0) {
+                Token indentToken = readIndentation();
+                if (indentToken != null) {
+                    return indentToken;
+                }
+            }
+
+            skipInlineWhitespaceAndComments();
+
+            if (pos >= length) {
+                return finish();
+            }
+
+            c = source.charAt(pos);
+            if (c != '\n' && c != '\r') {
+                break;
+            }
+
+            int startCol = column();
+            consumeLineBreak();
+            atLineStart = true;
+            if (lineHasTokens) {
+                lineHasTokens = false;
+                return new Token(TokenType.NEWLINE, source, pos, pos, line - 1, startCol, line - 1, startCol);
+            }
+            // Blank or comment-only line: keep scanning without emitting anything
+        }
+
+        lineHasTokens = true;
+        atLineStart = false;
+
+        if (isIdentifierStart(c)) {
+            int prefixEnd = scanIdentifier();
+            if (prefixEnd < length && isQuote(source.charAt(prefixEnd)) && isStringPrefix(pos, prefixEnd)) {
+                return readString(pos, prefixEnd);
+            }
+            return emit(TokenType.NAME, pos, prefixEnd);
+        }
+        if (isQuote(c)) {
+            return readString(pos, pos);
+        }
+        if (Character.isDigit(c) || (c == '.' && pos + 1 < length && Character.isDigit(source.charAt(pos + 1)))) {
+            return readNumber();
+        }
+        return readOperator(c);
+    }
+
+    private Token readIndentation() {
+        int indent = 0;
+        int scan = pos;
+        while (scan < length) {
+            char c = source.charAt(scan);
+            if (c == ' ') {
+                indent++;
+            } else if (c == '\t') {
+                indent = (indent / TAB_SIZE + 1) * TAB_SIZE;
+            } else if (c == '\f') {
+                indent = 0;
+            } else {
+                break;
+            }
+            scan++;
+        }
+
+        // Blank and comment-only lines do not affect indentation
+        if (scan >= length) {
+            pos = scan;
+            return null;
+        }
+        char c = source.charAt(scan);
+        if (c == '#' || c == '\n' || c == '\r' || (c == '\\' && isLineBreakAt(scan + 1))) {
+            pos = scan;
+            return null;
+        }
+
+        pos = scan;
+        atLineStart = false;
+        int current = indentDepth == 0 ? 0 : indentStack[indentDepth - 1];
+        if (indent > current) {
+            pushIndent(indent);
+            return new Token(TokenType.INDENT, source, lineStart, pos, line, 1, line, column());
+        }
+        if (indent < current) {
+            int dedents = 0;
+            while (indentDepth > 0 && indentStack[indentDepth - 1] > indent) {
+                indentDepth--;
+                dedents++;
+            }
+            int restored = indentDepth == 0 ? 0 : indentStack[indentDepth - 1];
+            if (restored != indent) {
+                throw new PythonSyntaxException("Unindent does not match any outer indentation level", line, column());
+            }
+            pendingDedents = dedents - 1;
+            return synthetic(TokenType.DEDENT);
+        }
+        return null;
+    }
+
+    private void skipInlineWhitespaceAndComments() {
+        while (pos < length) {
+            char c = source.charAt(pos);
+            if (c == ' ' || c == '\t' || c == '\f') {
+                pos++;
+            } else if (c == '#') {
+                while (pos < length && source.charAt(pos) != '\n' && source.charAt(pos) != '\r') {
+                    pos++;
+                }
+            } else if (c == '\\' && isLineBreakAt(pos + 1)) {
+                pos++;
+                consumeLineBreak();
+            } else if ((c == '\n' || c == '\r') && bracketDepth > 0) {
+                consumeLineBreak();
+            } else {
+                return;
+            }
+        }
+    }
+
+    private Token finish() {
+        if (bracketDepth > 0) {
+            int last = bracketDepth - 1;
+            throw new PythonSyntaxException("Unclosed '" + bracketStack[last] + "'",
+                    bracketLines[last], bracketColumns[last]);
+        }
+        finished = true;
+        if (lineHasTokens) {
+            lineHasTokens = false;
+            pendingDedents = indentDepth;
+            indentDepth = 0;
+            return synthetic(TokenType.NEWLINE);
+        }
+        if (indentDepth > 0) {
+            pendingDedents = indentDepth - 1;
+            indentDepth = 0;
+            return synthetic(TokenType.DEDENT);
+        }
+        return synthetic(TokenType.END);
+    }
+
+    private int scanIdentifier() {
+        int end = pos + 1;
+        while (end < length && isIdentifierPart(source.charAt(end))) {
+            end++;
+        }
+        return end;
+    }
+
+    private Token readString(int start, int quoteStart) {
+        int startLine = line;
+        int startCol = start - lineStart + 1;
+        char quote = source.charAt(quoteStart);
+        boolean triple = quoteStart + 2 < length
+                && source.charAt(quoteStart + 1) == quote
+                && source.charAt(quoteStart + 2) == quote;
+        boolean raw = false;
+        for (int i = start; i < quoteStart; i++) {
+            char p = source.charAt(i);
+            if (p == 'r' || p == 'R') {
+                raw = true;
+            }
+        }
+
+        pos = quoteStart + (triple ? 3 : 1);
+        while (pos < length) {
+            char c = source.charAt(pos);
+            if (c == '\\') {
+                // Raw strings still cannot end with an escaped quote
+                pos += 2;
+                if (pos - 1 < length && isLineBreakChar(source.charAt(pos - 1))) {
+                    pos--;
+                    consumeLineBreak();
+                }
+                continue;
+            }
+            if (c == quote) {
+                if (!triple) {
+                    pos++;
+                    return stringToken(start, startLine, startCol);
+                }
+                if (pos + 2 < length && source.charAt(pos + 1) == quote && source.charAt(pos + 2) == quote) {
+                    pos += 3;
+                    return stringToken(start, startLine, startCol);
+                }
+                pos++;
+                continue;
+            }
+            if (c == '\n' || c == '\r') {
+                if (!triple) {
+                    throw new PythonSyntaxException("Unterminated string literal", startLine, startCol);
+                }
+                consumeLineBreak();
+                continue;
+            }
+            pos++;
+        }
+        if (raw && !triple) {
+            throw new PythonSyntaxException("Unterminated raw string literal", startLine, startCol);
+        }
+        throw new PythonSyntaxException(triple ? "Unterminated triple-quoted string" : "Unterminated string literal",
+                startLine, startCol);
+    }
+
+    private Token stringToken(int start, int startLine, int startCol) {
+        return new Token(TokenType.STRING, source, start, pos, startLine, startCol, line, column());
+    }
+
+    private Token readNumber() {
+        int start = pos;
+        pos++;
+        while (pos < length) {
+            char c = source.charAt(pos);
+            if (Character.isLetterOrDigit(c) || c == '_' || c == '.') {
+                pos++;
+            } else if ((c == '+' || c == '-') && isExponentMarker(source.charAt(pos - 1), start)) {
+                pos++;
+            } else {
+                break;
+            }
+        }
+        return emit(TokenType.NUMBER, start, pos);
+    }
+
+    private boolean isExponentMarker(char previous, int numberStart) {
+        if (previous != 'e' && previous != 'E') {
+            return false;
+        }
+        // Hex literals such as 0xE are not exponents
+        return !(pos - numberStart > 1 && (source.charAt(numberStart + 1) == 'x' || source.charAt(numberStart + 1) == 'X'));
+    }
+
+    private Token readOperator(char c) {
+        int start = pos;
+
+        switch (c) {
+            case '(', '[', '{' -> {
+                pushBracket(c);
+                pos++;
+                return emit(TokenType.OP, start, pos);
+            }
+            case ')', ']', '}' -> {
+                popBracket(c);
+                pos++;
+                return emit(TokenType.OP, start, pos);
+            }
+            default -> {
+                // fall through to multi-character operator handling
+            }
+        }
+
+        if (pos + 3 <= length) {
+            for (int i = 0; i + 3 <= THREE_CHAR_OPS.length(); i += 3) {
+                if (source.regionMatches(pos, THREE_CHAR_OPS, i, 3)) {
+                    pos += 3;
+                    return emit(TokenType.OP, start, pos);
+                }
+            }
+        }
+        if (pos + 2 <= length) {
+            for (String op : TWO_CHAR_OPS) {
+                if (source.startsWith(op, pos)) {
+                    pos += 2;
+                    return emit(TokenType.OP, start, pos);
+                }
+            }
+        }
+        if ("+-*/%@&|^~<>=.,:;!".indexOf(c) >= 0) {
+            pos++;
+            return emit(TokenType.OP, start, pos);
+        }
+        if (c == '\\') {
+            throw new PythonSyntaxException("Unexpected character after line continuation", line, column());
+        }
+        // Unknown characters (e.g. '$', '?') are tolerated as single-char operators
+        pos++;
+        return emit(TokenType.OP, start, pos);
+    }
+
+    private void pushBracket(char open) {
+        if (bracketDepth == bracketStack.length) {
+            int newSize = bracketDepth * 2;
+            bracketStack = Arrays.copyOf(bracketStack, newSize);
+            bracketLines = Arrays.copyOf(bracketLines, newSize);
+            bracketColumns = Arrays.copyOf(bracketColumns, newSize);
+        }
+        bracketStack[bracketDepth] = open;
+        bracketLines[bracketDepth] = line;
+        bracketColumns[bracketDepth] = column();
+        bracketDepth++;
+    }
+
+    private void popBracket(char close) {
+        char expected = switch (close) {
+            case ')' -> '(';
+            case ']' -> '[';
+            default -> '{';
+        };
+        if (bracketDepth == 0 || bracketStack[bracketDepth - 1] != expected) {
+            throw new PythonSyntaxException("Unmatched '" + close + "'", line, column());
+        }
+        bracketDepth--;
+    }
+
+    private void pushIndent(int indent) {
+        if (indentDepth == indentStack.length) {
+            indentStack = Arrays.copyOf(indentStack, indentDepth * 2);
+        }
+        indentStack[indentDepth++] = indent;
+    }
+
+    private Token emit(TokenType type, int start, int end) {
+        pos = end;
+        return new Token(type, source, start, end, line, start - lineStart + 1, line, end - lineStart + 1);
+    }
+
+    private Token synthetic(TokenType type) {
+        int col = column();
+        return new Token(type, source, pos, pos, line, col, line, col);
+    }
+
+    private void consumeLineBreak() {
+        if (pos < length && source.charAt(pos) == '\r') {
+            pos++;
+            if (pos < length && source.charAt(pos) == '\n') {
+                pos++;
+            }
+        } else if (pos < length) {
+            pos++;
+        }
+        line++;
+        lineStart = pos;
+    }
+
+    private int column() {
+        return pos - lineStart + 1;
+    }
+
+    private boolean isLineBreakAt(int index) {
+        return index < length && isLineBreakChar(source.charAt(index));
+    }
+
+    private static boolean isLineBreakChar(char c) {
+        return c == '\n' || c == '\r';
+    }
+
+    private boolean isStringPrefix(int start, int end) {
+        int prefixLength = end - start;
+        if (prefixLength > 2) {
+            return false;
+        }
+        for (int i = start; i < end; i++) {
+            if ("rRbBuUfF".indexOf(source.charAt(i)) < 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean isQuote(char c) {
+        return c == '"' || c == '\'';
+    }
+
+    private static boolean isIdentifierStart(char c) {
+        return c == '_' || Character.isLetter(c);
+    }
+
+    private static boolean isIdentifierPart(char c) {
+        return c == '_' || Character.isLetterOrDigit(c);
+    }
+}
@@ -0,0 +1,227 @@
+package com.ailearning.core.service.impl;
+
+import com.ailearning.core.model.AnalysisResult;
+import com.ailearning.core.model.CodeIssue;
+import com.ailearning.core.model.ComplexityMetrics;
+import com.ailearning.core.model.Suggestion;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.LocalDateTime;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.function.Function;
+
+/**
+ * Bounded store of analysis findings addressed by content.
+ * <p>
+ * Keys are a SHA-256 of the language, the rule set version, the source of the
+ * complexity figures and the code, so saving an unchanged file, or analyzing
+ * the same code for diagnostics and for suggestions, reuses one analysis,
+ * while changing the rules makes every earlier entry unreachable. Complexity
+ * computed from a parsed tree and complexity computed from the source text
+ * differ, so the two are kept apart. Entries keep the findings rather than a result,
+ * and each reuse gets a result of its own with a new id and time. Each entry
+ * also keeps the rule engine scan the findings came from, so suggestions
+ * derived from the scan are computed once too.
+ * The least recently used entry is evicted beyond the size limit.
+ * <p>
+ * Two threads missing on the same key both analyze and the later result
+ * replaces the earlier one; both are equivalent.
+ */
+public final class AnalysisCache {
+
+    public static final int DEFAULT_MAX_ENTRIES = 512;
+
+    private final int maxEntries;
+    private final Map<String, Entry> entries;
+    private long hits;
+    private long misses;
+    private long evictions;
+
+    public AnalysisCache() {
+        this(DEFAULT_MAX_ENTRIES);
+    }
+
+    /**
+     * @param maxEntries the number of results to keep; 0 disables caching
+     */
+    public AnalysisCache(int maxEntries) {
+        if (maxEntries < 0) {
+            throw new IllegalArgumentException("Cache size cannot be negative");
+        }
+        this.maxEntries = maxEntries;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true);
+    }
+
+    /**
+     * Computes the key of an analysis.
+     *
+     * @param code the analyzed code
+     * @param language the code's language
+     * @param rulesetVersion version of the rules the analysis runs
+     * @param complexitySource what the complexity figures are computed from
+     * @return lowercase hex SHA-256 of the four
+     */
+    public static String key(String code, String language, String rulesetVersion, String complexitySource) {
+        Objects.requireNonNull(code, "Code cannot be null");
+        MessageDigest digest = sha256();
+        digest.update((language == null ? "" : language.toLowerCase(Locale.ROOT)).getBytes(StandardCharsets.UTF_8));
+        digest.update((byte) 0);
+        digest.update(String.valueOf(rulesetVersion).getBytes(StandardCharsets.UTF_8));
+        digest.update((byte) 0);
+        digest.update(String.valueOf(complexitySource).getBytes(StandardCharsets.UTF_8));
+        digest.update((byte) 0);
+        return HexFormat.of().formatHex(digest.digest(code.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    /**
+     * Looks up an analysis, counting a hit or a miss.
+     *
+     * @param key key from {@link #key}
+     * @return the entry, or null if absent
+     */
+    public Entry get(String key) {
+        synchronized (entries) {
+            Entry entry = entries.get(key);
+            if (entry != null) {
+                hits++;
+            } else {
+                misses++;
+            }
+            return entry;
+        }
+    }
+
+    /**
+     * Stores an analysis, evicting the least recently used one beyond the size limit.
+     * Callers store only complete analyses whose results depend on the content alone.
+     */
+    public void put(String key, Entry entry) {
+        Objects.requireNonNull(key, "Key cannot be null");
+        Objects.requireNonNull(entry, "Entry cannot be null");
+        if (maxEntries == 0) {
+            return;
+        }
+        synchronized (entries) {
+            entries.put(key, entry);
+            if (entries.size() > maxEntries) {
+                Iterator<String> eldest = entries.keySet().iterator();
+                eldest.next();
+                eldest.remove();
+                evictions++;
+            }
+        }
+    }
+
+    public int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    public void clear() {
+        synchronized (entries) {
+            entries.clear();
+        }
+    }
+
+    /**
+     * Gets the share of lookups answered from the cache.
+     *
+     * @return hits over lookups, or 0 before the first lookup
+     */
+    public double getHitRate() {
+        synchronized (entries) {
+            long lookups = hits + misses;
+            return lookups == 0 ? 0.0 : (double) hits / lookups;
+        }
+    }
+
+    public Map<String, Object> getStatistics() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        synchronized (entries) {
+            long lookups = hits + misses;
+            stats.put("entries", entries.size());
+            stats.put("maxEntries", maxEntries);
+            stats.put("hits", hits);
+            stats.put("misses", misses);
+            stats.put("hitRate", lookups == 0 ? 0.0 : (double) hits / lookups);
+            stats.put("evictions", evictions);
+        }
+        return stats;
+    }
+
+    /**
+     * One analysis: its findings and the scan they came from.
+     */
+    public static final class Entry {
+        private final String filePath;
+        private final AnalysisResult.AnalysisStatus status;
+        private final String summary;
+        private final List<CodeIssue> issues;
+        private final List<Suggestion> suggestions;
+        private final ComplexityMetrics complexityMetrics;
+        private final RuleEngine.Scan scan;
+        private volatile List<Suggestion> qualitySuggestions;
+
+        /**
+         * @param result the analysis result whose findings are kept
+         * @param scan the rule engine scan behind the result, or null if there was none
+         */
+        public Entry(AnalysisResult result, RuleEngine.Scan scan) {
+            Objects.requireNonNull(result, "Analysis result cannot be null");
+            this.filePath = result.getFilePath();
+            this.status = result.getStatus();
+            this.summary = result.getSummary();
+            this.issues = List.copyOf(result.getIssues());
+            this.suggestions = List.copyOf(result.getSuggestions());
+            this.complexityMetrics = result.getComplexityMetrics();
+            this.scan = scan;
+        }
+
+        /**
+         * Creates a result reporting the findings, with a new id and the current time.
+         *
+         * @param analysisTimeMs time taken to produce this result
+         * @return a new analysis result
+         */
+        public AnalysisResult newResult(long analysisTimeMs) {
+            return new AnalysisResult(UUID.randomUUID().toString(), filePath, status, summary,
+                    issues, suggestions, complexityMetrics, LocalDateTime.now(), analysisTimeMs);
+        }
+
+        /**
+         * Gets the quality suggestions for the scanned code, deriving them on first use.
+         *
+         * @param derive computes the suggestions from the scan
+         * @return the suggestions, or none without a scan
+         */
+        List<Suggestion> getQualitySuggestions(Function<RuleEngine.Scan, List<Suggestion>> derive) {
+            if (scan == null) {
+                return List.of();
+            }
+            List<Suggestion> suggestions = qualitySuggestions;
+            if (suggestions == null) {
+                suggestions = List.copyOf(derive.apply(scan));
+                qualitySuggestions = suggestions;
+            }
+            return suggestions;
+        }
+    }
+}
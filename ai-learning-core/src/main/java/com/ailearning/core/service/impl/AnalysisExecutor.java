@@ -0,0 +1,328 @@
+package com.ailearning.core.service.impl;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Bounded executor for code analyses.
+ * <p>
+ * A fixed number of daemon worker threads take tasks from a bounded queue;
+ * submissions beyond the queue capacity are rejected and counted rather than
+ * spawning threads or blocking the caller. Every task gets a deadline counted
+ * from submission, so time spent queued under load counts against it.
+ * <p>
+ * Futures returned here propagate cancellation: {@code cancel(true)} removes a
+ * queued task or interrupts the worker running it, and analyzers stop at their
+ * next interrupt check (the rule engine checks while matching). When the
+ * deadline passes, tasks submitted with {@link #submitWithDeadline} see
+ * {@link Deadline#isExpired()} and are expected to return what they have;
+ * plain tasks fail with a {@link TimeoutException}.
+ */
+public final class AnalysisExecutor {
+
+    private static final Logger logger = LoggerFactory.getLogger(AnalysisExecutor.class);
+
+    public static final int DEFAULT_QUEUE_CAPACITY = 256;
+    public static final Duration DEFAULT_DEADLINE = Duration.ofSeconds(30);
+
+    private static final long IDLE_KEEP_ALIVE_SECONDS = 60;
+    private static final AtomicInteger POOL_IDS = new AtomicInteger();
+
+    private final ThreadPoolExecutor pool;
+    private final ScheduledThreadPoolExecutor timer;
+    private final int queueCapacity;
+    private final Duration deadline;
+
+    private final LongAdder submitted = new LongAdder();
+    private final LongAdder completed = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder timedOut = new LongAdder();
+    private final LongAdder cancelled = new LongAdder();
+
+    /**
+     * Creates an executor with one thread per processor, the default queue
+     * capacity and the default deadline.
+     */
+    public AnalysisExecutor() {
+        this(Math.max(2, Runtime.getRuntime().availableProcessors()), DEFAULT_QUEUE_CAPACITY, DEFAULT_DEADLINE);
+    }
+
+    /**
+     * Creates an executor.
+     *
+     * @param threads maximum number of concurrent analyses
+     * @param queueCapacity maximum number of analyses waiting for a thread
+     * @param deadline time allowed per analysis, counted from submission
+     */
+    public AnalysisExecutor(int threads, int queueCapacity, Duration deadline) {
+        if (threads < 1) {
+            throw new IllegalArgumentException("Threads must be positive: " + threads);
+        }
+        if (queueCapacity < 1) {
+            throw new IllegalArgumentException("Queue capacity must be positive: " + queueCapacity);
+        }
+        Objects.requireNonNull(deadline, "Deadline cannot be null");
+        if (deadline.isNegative() || deadline.isZero()) {
+            throw new IllegalArgumentException("Deadline must be positive: " + deadline);
+        }
+        this.queueCapacity = queueCapacity;
+        this.deadline = deadline;
+
+        int poolId = POOL_IDS.incrementAndGet();
+        AtomicInteger threadIds = new AtomicInteger();
+        this.pool = new ThreadPoolExecutor(threads, threads, IDLE_KEEP_ALIVE_SECONDS, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                runnable -> daemon(runnable, "code-analysis-" + poolId + "-" + threadIds.incrementAndGet()),
+                (runnable, executor) -> {
+                    rejected.increment();
+                    throw new RejectedExecutionException(executor.isShutdown()
+                            ? "Analysis executor is shut down"
+                            : "Analysis queue is full (" + queueCapacity + " waiting)");
+                });
+        this.pool.allowCoreThreadTimeOut(true);
+
+        this.timer = new ScheduledThreadPoolExecutor(1, runnable -> daemon(runnable, "code-analysis-deadline-" + poolId));
+        this.timer.setRemoveOnCancelPolicy(true);
+    }
+
+    private static Thread daemon(Runnable runnable, String name) {
+        Thread thread = new Thread(runnable, name);
+        thread.setDaemon(true);
+        return thread;
+    }
+
+    /**
+     * Runs a task that fails with a {@link TimeoutException} if it misses the deadline.
+     *
+     * @param task the task
+     * @return future of the task's result, failed with a
+     *         {@link RejectedExecutionException} if the queue is full
+     */
+    public <T> CompletableFuture<T> submit(Supplier<T> task) {
+        Objects.requireNonNull(task, "Task cannot be null");
+        return schedule(new Task<>(ignored -> task.get(), false));
+    }
+
+    /**
+     * Runs a task that returns a partial result once its deadline expires.
+     * The worker is interrupted at the deadline; the task should check
+     * {@link Deadline#isExpired()} between steps and treat a
+     * {@link java.util.concurrent.CancellationException} from an interrupted
+     * step as the deadline when it has expired.
+     *
+     * @param task the task, given its deadline
+     * @return future of the task's result, failed with a
+     *         {@link RejectedExecutionException} if the queue is full
+     */
+    public <T> CompletableFuture<T> submitWithDeadline(Function<Deadline, T> task) {
+        Objects.requireNonNull(task, "Task cannot be null");
+        return schedule(new Task<>(task, true));
+    }
+
+    private <T> CompletableFuture<T> schedule(Task<T> task) {
+        try {
+            pool.execute(task);
+        } catch (RejectedExecutionException e) {
+            logger.warn("Rejected analysis: {}", e.getMessage());
+            return CompletableFuture.failedFuture(e);
+        }
+        submitted.increment();
+        try {
+            task.timeout = timer.schedule(task::expire, deadline.toNanos(), TimeUnit.NANOSECONDS);
+        } catch (RejectedExecutionException e) {
+            // Shut down between the two calls; the task still runs without a deadline
+            logger.debug("Analysis deadline not scheduled: executor is shutting down");
+        }
+        return task;
+    }
+
+    /**
+     * Gets the number of analyses waiting for a thread.
+     */
+    public int getQueueSize() {
+        return pool.getQueue().size();
+    }
+
+    /**
+     * Gets the approximate number of analyses running.
+     */
+    public int getActiveCount() {
+        return pool.getActiveCount();
+    }
+
+    /**
+     * Gets the number of submissions rejected because the queue was full or
+     * the executor was shut down.
+     */
+    public long getRejectedCount() {
+        return rejected.sum();
+    }
+
+    public Duration getDeadline() {
+        return deadline;
+    }
+
+    public Map<String, Object> getStatistics() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("threads", pool.getMaximumPoolSize());
+        stats.put("queueCapacity", queueCapacity);
+        stats.put("queued", getQueueSize());
+        stats.put("active", getActiveCount());
+        stats.put("submitted", submitted.sum());
+        stats.put("completed", completed.sum());
+        stats.put("rejected", rejected.sum());
+        stats.put("timedOut", timedOut.sum());
+        stats.put("cancelled", cancelled.sum());
+        return stats;
+    }
+
+    /**
+     * Stops accepting analyses; queued and running ones still complete.
+     */
+    public void shutdown() {
+        pool.shutdown();
+        timer.shutdown();
+    }
+
+    /**
+     * Deadline of one analysis. Expiry interrupts the worker running it, and
+     * the interrupt is cleared when the task finishes so it cannot leak into
+     * the next task on that thread.
+     */
+    public static final class Deadline {
+        private final long deadlineNanos;
+        private volatile boolean expired;
+
+        private Deadline(long deadlineNanos) {
+            this.deadlineNanos = deadlineNanos;
+        }
+
+        /**
+         * Checks whether the deadline has passed.
+         *
+         * @return true once the deadline has passed
+         */
+        public boolean isExpired() {
+            return expired || System.nanoTime() - deadlineNanos >= 0;
+        }
+
+        /**
+         * Gets the time left before the deadline.
+         *
+         * @return the remaining time, zero once expired
+         */
+        public Duration remaining() {
+            return isExpired() ? Duration.ZERO : Duration.ofNanos(deadlineNanos - System.nanoTime());
+        }
+    }
+
+    /**
+     * Queued task and the future of its result. The worker thread is recorded
+     * under the task's lock so cancellation and expiry only interrupt it while
+     * it is still running this task.
+     */
+    private final class Task<T> extends CompletableFuture<T> implements Runnable {
+        private final Function<Deadline, T> body;
+        private final boolean partial;
+        private final Deadline deadline;
+        private Thread runner;
+        private boolean finished;
+        private volatile ScheduledFuture<?> timeout;
+
+        Task(Function<Deadline, T> body, boolean partial) {
+            this.body = body;
+            this.partial = partial;
+            this.deadline = new Deadline(System.nanoTime() + AnalysisExecutor.this.deadline.toNanos());
+        }
+
+        @Override
+        public void run() {
+            synchronized (this) {
+                if (isDone()) {
+                    // Cancelled or timed out while queued
+                    return;
+                }
+                runner = Thread.currentThread();
+            }
+            try {
+                complete(body.apply(deadline));
+            } catch (Throwable t) {
+                completeExceptionally(t);
+            } finally {
+                synchronized (this) {
+                    runner = null;
+                    finished = true;
+                }
+                // Clear an interrupt from cancellation or expiry that arrived after the task's last check
+                Thread.interrupted();
+                ScheduledFuture<?> scheduled = timeout;
+                if (scheduled != null) {
+                    scheduled.cancel(false);
+                }
+                completed.increment();
+            }
+        }
+
+        @Override
+        public boolean cancel(boolean mayInterruptIfRunning) {
+            boolean result = super.cancel(mayInterruptIfRunning);
+            if (result) {
+                cancelled.increment();
+                stop(mayInterruptIfRunning);
+            }
+            return result;
+        }
+
+        void expire() {
+            synchronized (this) {
+                if (finished) {
+                    return;
+                }
+            }
+            timedOut.increment();
+            deadline.expired = true;
+            if (partial) {
+                // Still runs if queued, and returns at once with nothing done
+                interrupt();
+            } else {
+                completeExceptionally(new TimeoutException(
+                        "Analysis exceeded its deadline of " + AnalysisExecutor.this.deadline.toMillis() + " ms"));
+                stop(true);
+            }
+        }
+
+        private void stop(boolean interrupt) {
+            ScheduledFuture<?> scheduled = timeout;
+            if (scheduled != null) {
+                scheduled.cancel(false);
+            }
+            pool.remove(this);
+            if (interrupt) {
+                interrupt();
+            }
+        }
+
+        private synchronized void interrupt() {
+            if (runner != null) {
+                runner.interrupt();
+            }
+        }
+    }
+}
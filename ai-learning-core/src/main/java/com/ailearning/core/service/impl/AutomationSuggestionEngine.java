@@ -1,11 +1,20 @@
 package com.ailearning.core.service.impl;
 
 import com.ailearning.core.model.*;
+import com.ailearning.core.model.ast.ASTNode;
+import com.ailearning.core.model.ast.MethodNode;
+import com.ailearning.core.model.ast.ParseResult;
+import com.ailearning.core.model.ast.SourceLocation;
+import com.ailearning.core.service.ast.ASTParser;
+import com.ailearning.core.service.ast.CloneDetector;
+import com.ailearning.core.service.ast.ParseWait;
+import com.ailearning.core.service.ast.impl.MultiLanguageASTParser;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.time.LocalDateTime;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
 import java.util.stream.Collectors;
 
 /**
@@ -20,6 +29,10 @@ public class AutomationSuggestionEngine {
     private static final int MIN_PATTERN_FREQUENCY = 3;
     private static final double MIN_SIMILARITY_THRESHOLD = 0.7;
     private static final int MIN_TIME_SAVINGS_MINUTES = 5;
+    private static final int MAX_SNIPPET_LINES = 20;
+
+    private final ASTParser astParser;
+    private final CloneDetector cloneDetector;
 
     // Template repository
     private final Map<String, List<CodeTemplate>> templateRepository = initializeTemplateRepository();
@@ -27,11 +40,20 @@ public class AutomationSuggestionEngine {
     // Pattern cache for performance
     private final Map<String, List<RepetitivePattern>> patternCache = new HashMap<>();
 
+    public AutomationSuggestionEngine() {
+        this(MultiLanguageASTParser.shared(), new CloneDetector());
+    }
+
+    public AutomationSuggestionEngine(ASTParser astParser, CloneDetector cloneDetector) {
+        this.astParser = Objects.requireNonNull(astParser, "AST parser cannot be null");
+        this.cloneDetector = Objects.requireNonNull(cloneDetector, "Clone detector cannot be null");
+    }
+
     /**
      * Detects repetitive patterns in the given codebase.
      */
     public List<RepetitivePattern> detectRepetitivePatterns(Codebase codebase) {
-        logger.info("Detecting repetitive patterns in codebase with {} files", codebase.getFiles().size());
+        logger.info("Detecting repetitive patterns in codebase with {} files", codebase.getFileContents().size());
 
         String cacheKey = generateCacheKey(codebase);
         if (patternCache.containsKey(cacheKey)) {
@@ -41,11 +63,14 @@ public class AutomationSuggestionEngine {
 
         List<RepetitivePattern> patterns = new ArrayList<>();
 
+        // One fingerprinting pass feeds all three clone-based detectors
+        List<CloneDetector.CloneGroup> clones = cloneDetector.detectClones(parseSourceFiles(codebase));
+
         // Detect different types of repetitive patterns
         patterns.addAll(detectBoilerplateCode(codebase));
-        patterns.addAll(detectSimilarMethods(codebase));
-        patterns.addAll(detectDuplicateLogic(codebase));
-        patterns.addAll(detectCopyPasteCode(codebase));
+        patterns.addAll(detectSimilarMethods(codebase, clones));
+        patterns.addAll(detectDuplicateLogic(codebase, clones));
+        patterns.addAll(detectCopyPasteCode(codebase, clones));
         patterns.addAll(detectConfigurationRepetition(codebase));
 
         // Filter patterns by significance
@@ -179,12 +204,12 @@ public class AutomationSuggestionEngine {
         // Analyze files for common boilerplate patterns
         Map<String, List<String>> boilerplateGroups = new HashMap<>();
         
-        for (FileNode file : codebase.getFiles()) {
-            String content = file.getContent();
+        for (Map.Entry<String, String> file : codebase.getFileContents().entrySet()) {
+            String content = file.getValue();
             if (content != null) {
                 List<String> boilerplateLines = extractBoilerplateLines(content);
                 for (String boilerplate : boilerplateLines) {
-                    boilerplateGroups.computeIfAbsent(boilerplate, k -> new ArrayList<>()).add(file.getPath());
+                    boilerplateGroups.computeIfAbsent(boilerplate, k -> new ArrayList<>()).add(file.getKey());
                 }
             }
         }
@@ -211,95 +236,82 @@ public class AutomationSuggestionEngine {
         return patterns;
     }
 
-    private List<RepetitivePattern> detectSimilarMethods(Codebase codebase) {
+    private List<RepetitivePattern> detectSimilarMethods(Codebase codebase, List<CloneDetector.CloneGroup> clones) {
         List<RepetitivePattern> patterns = new ArrayList<>();
-        
-        // This would analyze method signatures and implementations
-        // For now, create a sample pattern
-        if (!codebase.getFiles().isEmpty()) {
-            RepetitivePattern pattern = RepetitivePattern.builder()
-                    .id(UUID.randomUUID().toString())
-                    .type(RepetitivePattern.PatternType.SIMILAR_METHODS)
-                    .description("Similar getter/setter methods detected")
-                    .frequency(5)
-                    .similarity(0.8)
-                    .suggestedRefactoring("Use annotation-based code generation (e.g., Lombok)")
-                    .detectedAt(LocalDateTime.now())
-                    .build();
-            patterns.add(pattern);
+
+        // Whole methods that share a fingerprint, whether copied verbatim or renamed
+        for (CloneDetector.CloneGroup clone : clones) {
+            if (clone.getRepresentative() instanceof MethodNode) {
+                String names = clone.getMembers().stream()
+                        .map(ASTNode::getName)
+                        .distinct()
+                        .limit(5)
+                        .collect(Collectors.joining(", "));
+                patterns.add(createClonePattern(codebase, clone, RepetitivePattern.PatternType.SIMILAR_METHODS,
+                        "Structurally identical methods: " + names,
+                        "Extract the shared implementation into one parameterized method"));
+            }
         }
 
         return patterns;
     }
 
-    private List<RepetitivePattern> detectDuplicateLogic(Codebase codebase) {
+    private List<RepetitivePattern> detectDuplicateLogic(Codebase codebase, List<CloneDetector.CloneGroup> clones) {
         List<RepetitivePattern> patterns = new ArrayList<>();
-        
-        // Analyze for duplicate business logic
-        // This is a simplified implementation
-        Map<String, Integer> logicPatterns = new HashMap<>();
-        
-        for (FileNode file : codebase.getFiles()) {
-            if (file.getContent() != null) {
-                // Extract logical blocks (simplified)
-                String[] lines = file.getContent().split("\n");
-                for (int i = 0; i < lines.length - 2; i++) {
-                    String block = String.join("\n", Arrays.copyOfRange(lines, i, Math.min(i + 3, lines.length)));
-                    if (isLogicalBlock(block)) {
-                        logicPatterns.put(block, logicPatterns.getOrDefault(block, 0) + 1);
-                    }
-                }
-            }
-        }
 
-        // Create patterns for duplicate logic
-        for (Map.Entry<String, Integer> entry : logicPatterns.entrySet()) {
-            if (entry.getValue() >= MIN_PATTERN_FREQUENCY) {
-                RepetitivePattern pattern = RepetitivePattern.builder()
-                        .id(UUID.randomUUID().toString())
-                        .type(RepetitivePattern.PatternType.DUPLICATE_LOGIC)
-                        .description("Duplicate logic block detected")
-                        .codeSnippet(entry.getKey())
-                        .frequency(entry.getValue())
-                        .similarity(0.85)
-                        .suggestedRefactoring("Extract to common utility method")
-                        .detectedAt(LocalDateTime.now())
-                        .build();
-                patterns.add(pattern);
+        // Blocks with the same structure but renamed identifiers or changed literals
+        for (CloneDetector.CloneGroup clone : clones) {
+            if (!(clone.getRepresentative() instanceof MethodNode) && !clone.isExact()) {
+                patterns.add(createClonePattern(codebase, clone, RepetitivePattern.PatternType.DUPLICATE_LOGIC,
+                        String.format("Duplicate %s logic of %d nodes with renamed identifiers",
+                                clone.getRepresentative().getNodeType(), clone.getNodeCount()),
+                        "Extract to common utility method"));
             }
         }
 
         return patterns;
     }
 
-    private List<RepetitivePattern> detectCopyPasteCode(Codebase codebase) {
+    private List<RepetitivePattern> detectCopyPasteCode(Codebase codebase, List<CloneDetector.CloneGroup> clones) {
         List<RepetitivePattern> patterns = new ArrayList<>();
-        
-        // Detect copy-paste patterns by analyzing similar code blocks
-        // This is a simplified implementation
-        if (codebase.getFiles().size() > 1) {
-            RepetitivePattern pattern = RepetitivePattern.builder()
-                    .id(UUID.randomUUID().toString())
-                    .type(RepetitivePattern.PatternType.COPY_PASTE)
-                    .description("Potential copy-paste code detected")
-                    .frequency(3)
-                    .similarity(0.9)
-                    .suggestedRefactoring("Refactor to eliminate duplication")
-                    .detectedAt(LocalDateTime.now())
-                    .build();
-            patterns.add(pattern);
+
+        // Blocks copied verbatim, names and literals included
+        for (CloneDetector.CloneGroup clone : clones) {
+            if (!(clone.getRepresentative() instanceof MethodNode) && clone.isExact()) {
+                patterns.add(createClonePattern(codebase, clone, RepetitivePattern.PatternType.COPY_PASTE,
+                        String.format("Copy-pasted %s of %d nodes", clone.getRepresentative().getNodeType(),
+                                clone.getNodeCount()),
+                        "Refactor to eliminate duplication"));
+            }
         }
 
         return patterns;
     }
 
+    private RepetitivePattern createClonePattern(Codebase codebase, CloneDetector.CloneGroup clone,
+                                                 RepetitivePattern.PatternType type, String description,
+                                                 String suggestedRefactoring) {
+        return RepetitivePattern.builder()
+                .id(UUID.randomUUID().toString())
+                .type(type)
+                .description(description)
+                .occurrences(clone.getLocations())
+                .affectedFiles(clone.getFiles())
+                .codeSnippet(extractSnippet(codebase, clone.getRepresentative()))
+                .frequency(clone.getMembers().size())
+                .similarity(clone.getSimilarity())
+                .suggestedRefactoring(suggestedRefactoring)
+                .detectedAt(LocalDateTime.now())
+                .build();
+    }
+
     private List<RepetitivePattern> detectConfigurationRepetition(Codebase codebase) {
         List<RepetitivePattern> patterns = new ArrayList<>();
         
         // Detect repetitive configuration patterns
-        List<String> configFiles = codebase.getFiles().stream()
-                .filter(file -> isConfigurationFile(file.getPath()))
-                .map(FileNode::getPath)
+        List<String> configFiles = codebase.getFileContents().keySet().stream()
+                .filter(this::isConfigurationFile)
+                .sorted()
                 .collect(Collectors.toList());
 
         if (configFiles.size() >= 2) {
@@ -354,6 +366,66 @@ public class AutomationSuggestionEngine {
         return "codebase_" + codebase.hashCode();
     }
 
+    /**
+     * Parses every file the AST parser supports. Files that fail to parse are
+     * left out of clone detection; the line-based detectors still see them.
+     */
+    private Map<String, ASTNode> parseSourceFiles(Codebase codebase) {
+        Map<String, CompletableFuture<ParseResult>> pending = new TreeMap<>();
+        for (Map.Entry<String, String> file : codebase.getFileContents().entrySet()) {
+            String path = file.getKey();
+            String language = codebase.getLanguageForFile(path);
+            if (language == null) {
+                language = detectLanguage(path);
+            }
+            if (file.getValue() != null && astParser.supportsLanguage(language)) {
+                pending.put(path, astParser.parseCode(file.getValue(), language, path));
+            }
+        }
+
+        Map<String, ASTNode> asts = new HashMap<>();
+        // The parses run concurrently, so one deadline bounds the whole batch
+        ParseWait wait = astParser.getParseBudget().startWait();
+        for (Map.Entry<String, CompletableFuture<ParseResult>> entry : pending.entrySet()) {
+            try {
+                ParseResult result = wait.await(entry.getValue());
+                if (result.hasRootNode() && (result.isSuccessful() || result.isPartial())) {
+                    asts.put(entry.getKey(), result.getRootNode());
+                }
+            } catch (Exception e) {
+                if (e instanceof InterruptedException) {
+                    Thread.currentThread().interrupt();
+                }
+                logger.debug("Skipping clone detection for {}: {}", entry.getKey(), e.getMessage());
+            }
+        }
+        return asts;
+    }
+
+    private String detectLanguage(String filePath) {
+        String lowerPath = filePath.toLowerCase();
+
+        if (lowerPath.endsWith(".java")) return "java";
+        if (lowerPath.endsWith(".js") || lowerPath.endsWith(".jsx")) return "javascript";
+        if (lowerPath.endsWith(".ts") || lowerPath.endsWith(".tsx")) return "typescript";
+        if (lowerPath.endsWith(".py")) return "python";
+
+        return "unknown";
+    }
+
+    private String extractSnippet(Codebase codebase, ASTNode node) {
+        SourceLocation location = node.getLocation();
+        String content = codebase.getFileContent(location.getFilePath());
+        if (content == null || location.getStartLine() < 1) {
+            return null;
+        }
+        String[] lines = content.split("\n");
+        int from = Math.min(location.getStartLine(), lines.length) - 1;
+        int to = Math.min(Math.max(location.getEndLine(), location.getStartLine()), lines.length);
+        to = Math.min(to, from + MAX_SNIPPET_LINES);
+        return String.join("\n", Arrays.copyOfRange(lines, from, to));
+    }
+
     private List<String> extractBoilerplateLines(String content) {
         List<String> boilerplate = new ArrayList<>();
         String[] lines = content.split("\n");
@@ -376,11 +448,6 @@ public class AutomationSuggestionEngine {
                line.contains("private final");
     }
 
-    private boolean isLogicalBlock(String block) {
-        return block.contains("if ") || block.contains("for ") || block.contains("while ") ||
-               block.contains("try ") || block.contains("switch ");
-    }
-
     private boolean isConfigurationFile(String path) {
         return path.endsWith(".properties") || path.endsWith(".yml") || path.endsWith(".yaml") ||
                path.endsWith(".xml") || path.endsWith(".json");
@@ -1,250 +1,458 @@
 package com.ailearning.core.service.impl;
 
 import com.ailearning.core.model.ComplexityMetrics;
+import com.ailearning.core.model.ast.ASTNode;
+import com.ailearning.core.model.ast.ASTTraversal;
+import com.ailearning.core.model.ast.ClassNode;
+import com.ailearning.core.model.ast.ExpressionNode;
+import com.ailearning.core.model.ast.MethodNode;
+import com.ailearning.core.model.ast.SourceLocation;
+import com.ailearning.core.model.ast.StatementNode;
+import com.ailearning.core.model.ast.TraversalVisitor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Objects;
 
 /**
  * Complexity analyzer for calculating various code complexity metrics.
  * Implements cyclomatic complexity, cognitive complexity, and other maintainability metrics.
+ * <p>
+ * Metrics are computed per method and summed into file totals. When a statement-level
+ * AST is available they come from one traversal of it; otherwise a single-pass lexer
+ * over the source text produces the same metrics.
+ * <p>
+ * Cyclomatic complexity is one per method plus one per branch ({@code if}, loops,
+ * non-default {@code case}, {@code catch}, ternaries) and per {@code &&}/{@code ||}.
+ * Cognitive complexity follows the usual increments: branches and loops cost one
+ * plus their nesting level, {@code else}/{@code else if} and each run of like
+ * boolean operators cost one, and lambdas deepen nesting.
  */
 public class ComplexityAnalyzer {
-    
+
     private static final Logger logger = LoggerFactory.getLogger(ComplexityAnalyzer.class);
-    
+
     public ComplexityMetrics analyze(String code, String language) {
+        return report(code, language).getFileMetrics();
+    }
+
+    /**
+     * Computes per-method and file complexity from source text.
+     *
+     * @param code the source code
+     * @param language the source language
+     * @return the complexity report
+     */
+    public Report report(String code, String language) {
+        Objects.requireNonNull(code, "Code cannot be null");
         logger.debug("Analyzing complexity for {} code", language);
-        
-        int linesOfCode = countLinesOfCode(code);
-        int cyclomaticComplexity = calculateCyclomaticComplexity(code, language);
-        int cognitiveComplexity = calculateCognitiveComplexity(code, language);
-        int nestingDepth = calculateMaxNestingDepth(code, language);
-        int numberOfMethods = countMethods(code, language);
-        int numberOfClasses = countClasses(code, language);
-        double maintainabilityIndex = calculateMaintainabilityIndex(
-                linesOfCode, cyclomaticComplexity, numberOfMethods);
-        
-        return ComplexityMetrics.builder()
-                .cyclomaticComplexity(cyclomaticComplexity)
-                .cognitiveComplexity(cognitiveComplexity)
-                .linesOfCode(linesOfCode)
-                .nestingDepth(nestingDepth)
-                .numberOfMethods(numberOfMethods)
-                .numberOfClasses(numberOfClasses)
-                .maintainabilityIndex(maintainabilityIndex)
-                .build();
+        return ComplexityLexer.scan(code, language);
     }
-    
-    private int countLinesOfCode(String code) {
-        String[] lines = code.split("\n");
-        int count = 0;
-        
-        for (String line : lines) {
-            String trimmed = line.trim();
-            // Skip empty lines and comments
-            if (!trimmed.isEmpty() && 
-                !trimmed.startsWith("//") && 
-                !trimmed.startsWith("/*") && 
-                !trimmed.startsWith("*") &&
-                !trimmed.startsWith("#")) {
-                count++;
-            }
+
+    /**
+     * Computes per-method and file complexity from an AST, falling back to the
+     * source text when the parser for the language does not produce method bodies.
+     *
+     * @param root the root AST node
+     * @param code the source code the AST was parsed from
+     * @param language the source language
+     * @return the complexity report
+     */
+    public Report report(ASTNode root, String code, String language) {
+        Objects.requireNonNull(root, "Root node cannot be null");
+        Objects.requireNonNull(code, "Code cannot be null");
+
+        ComplexityCollector collector = newCollector();
+        ASTTraversal.walk(root, collector);
+        if (!collector.hasStatements()) {
+            logger.debug("No statement-level AST for {} code, using the lexer", language);
+            return ComplexityLexer.scan(code, language);
         }
-        
-        return count;
+        return collector.getReport(ComplexityLexer.countLinesOfCode(code, language));
+    }
+
+    /**
+     * Computes per-method and file complexity from an AST alone. Lines of code
+     * are taken from source locations, so they include blank and comment lines.
+     *
+     * @param root the root AST node
+     * @return the complexity report
+     */
+    public Report report(ASTNode root) {
+        Objects.requireNonNull(root, "Root node cannot be null");
+
+        ComplexityCollector collector = newCollector();
+        ASTTraversal.walk(root, collector);
+        return collector.getReport(lineSpan(root));
+    }
+
+    /**
+     * Creates a collector that gathers complexity while sharing an
+     * {@link ASTTraversal} with other visitors.
+     *
+     * @return a new collector
+     */
+    public ComplexityCollector newCollector() {
+        return new ComplexityCollector();
+    }
+
+    private static int lineSpan(ASTNode node) {
+        SourceLocation location = node.getLocation();
+        return location != null ? Math.max(1, location.getLineSpan()) : 0;
     }
-    
-    private int calculateCyclomaticComplexity(String code, String language) {
-        int complexity = 1; // Base complexity
-        
-        // Decision points that increase complexity
-        String[] decisionKeywords = getDecisionKeywords(language);
-        
-        for (String keyword : decisionKeywords) {
-            Pattern pattern = Pattern.compile("\\b" + keyword + "\\b", Pattern.CASE_INSENSITIVE);
-            Matcher matcher = pattern.matcher(code);
-            
-            while (matcher.find()) {
-                complexity++;
+
+    /**
+     * Traversal visitor that computes per-method complexity in one walk.
+     * Each entered node records the nesting level its children start at, so
+     * increments are decided on entry without looking ahead.
+     */
+    public final class ComplexityCollector implements TraversalVisitor {
+
+        private final Deque<Frame> frames = new ArrayDeque<>();
+        private final List<Tally> methods = new ArrayList<>();
+        private final Tally outside = new Tally(null, 0, 0);
+        private int classes;
+        private int statements;
+
+        private ComplexityCollector() {
+        }
+
+        @Override
+        public VisitResult enter(ASTNode node) {
+            Frame parent = frames.peek();
+            Tally tally = parent != null ? parent.tally : outside;
+            int level = parent != null ? parent.childLevel(node) : 0;
+
+            Frame frame;
+            if (node instanceof MethodNode method) {
+                SourceLocation location = method.getLocation();
+                Tally methodTally = new Tally(method.getName(),
+                        location != null ? location.getStartLine() : 0, 0);
+                methodTally.linesOfCode = lineSpan(method);
+                methods.add(methodTally);
+                frame = new Frame(0, false, methodTally);
+            } else if (node instanceof StatementNode statement) {
+                statements++;
+                frame = enterStatement(statement, parent, level, tally);
+            } else if (node instanceof ExpressionNode expression) {
+                frame = enterExpression(expression, parent, level, tally);
+            } else {
+                if (node instanceof ClassNode) {
+                    classes++;
+                }
+                frame = new Frame(level, false, tally);
+            }
+            if (parent != null && node instanceof StatementNode) {
+                parent.statementChildren++;
+            }
+            if (parent != null) {
+                parent.children++;
             }
+            frames.push(frame);
+            return VisitResult.CONTINUE;
         }
-        
-        // Logical operators also increase complexity
-        Pattern logicalPattern = Pattern.compile("&&|\\|\\|");
-        Matcher logicalMatcher = logicalPattern.matcher(code);
-        
-        while (logicalMatcher.find()) {
-            complexity++;
+
+        @Override
+        public void exit(ASTNode node) {
+            frames.pop();
         }
-        
-        return complexity;
-    }
-    
-    private int calculateCognitiveComplexity(String code, String language) {
-        int complexity = 0;
-        int nestingLevel = 0;
-        
-        String[] lines = code.split("\n");
-        
-        for (String line : lines) {
-            String trimmed = line.trim();
-            
-            // Track nesting level
-            if (isNestingIncrement(trimmed, language)) {
-                nestingLevel++;
-            } else if (isNestingDecrement(trimmed, language)) {
-                nestingLevel = Math.max(0, nestingLevel - 1);
+
+        private Frame enterStatement(StatementNode statement, Frame parent, int level, Tally tally) {
+            String type = statement.getStatementType();
+            if (type == null) {
+                return new Frame(level, false, tally);
             }
-            
-            // Add complexity based on cognitive load
-            if (isCognitiveComplexityIncrement(trimmed, language)) {
-                complexity += 1 + nestingLevel; // Nested structures add more complexity
+            // The second statement under an "if" is its else branch
+            boolean elseBranch = parent != null && "if".equals(parent.type) && parent.statementChildren == 1;
+            switch (type) {
+                case "if" -> {
+                    tally.decision();
+                    if (elseBranch) {
+                        // else if: continues the chain at the enclosing level
+                        tally.flat();
+                        tally.nested(parent.level);
+                        return new Frame(parent.level, true, tally, type);
+                    }
+                    tally.structural(level);
+                    return new Frame(level, true, tally, type);
+                }
+                case "for", "foreach", "while", "do" -> {
+                    flatIf(elseBranch, tally);
+                    tally.decision();
+                    tally.structural(level);
+                    return new Frame(level, true, tally, type);
+                }
+                case "switch" -> {
+                    flatIf(elseBranch, tally);
+                    tally.structural(level);
+                    return new Frame(level, true, tally, type);
+                }
+                case "catch" -> {
+                    tally.decision();
+                    tally.structural(level);
+                    return new Frame(level, true, tally, type);
+                }
+                case "case" -> {
+                    tally.decision();
+                    return new Frame(level, false, tally, type);
+                }
+                default -> {
+                    flatIf(elseBranch, tally);
+                    return new Frame(level, false, tally, type);
+                }
             }
         }
-        
-        return complexity;
-    }
-    
-    private int calculateMaxNestingDepth(String code, String language) {
-        int maxDepth = 0;
-        int currentDepth = 0;
-        
-        String[] lines = code.split("\n");
-        
-        for (String line : lines) {
-            String trimmed = line.trim();
-            
-            if (isNestingIncrement(trimmed, language)) {
-                currentDepth++;
-                maxDepth = Math.max(maxDepth, currentDepth);
-            } else if (isNestingDecrement(trimmed, language)) {
-                currentDepth = Math.max(0, currentDepth - 1);
+
+        private Frame enterExpression(ExpressionNode expression, Frame parent, int level, Tally tally) {
+            String type = expression.getExpressionType();
+            if (type == null) {
+                return new Frame(level, false, tally);
+            }
+            switch (type) {
+                case "binary" -> {
+                    String operator = expression.getOperator();
+                    Frame frame = new Frame(level, false, tally, type);
+                    if ("&&".equals(operator) || "||".equals(operator)) {
+                        tally.decision();
+                        if (parent == null || !operator.equals(parent.logicalOperator)) {
+                            tally.flat();
+                        }
+                        frame.logicalOperator = operator;
+                    }
+                    return frame;
+                }
+                case "enclosed" -> {
+                    // Parentheses do not break a run of like operators
+                    Frame frame = new Frame(level, false, tally, type);
+                    frame.logicalOperator = parent != null ? parent.logicalOperator : null;
+                    return frame;
+                }
+                case "conditional", "switch" -> {
+                    if (type.equals("conditional")) {
+                        tally.decision();
+                    }
+                    tally.structural(level);
+                    return new Frame(level, true, tally, type);
+                }
+                case "lambda" -> {
+                    tally.nested(level);
+                    return new Frame(level, true, tally, type);
+                }
+                default -> {
+                    return new Frame(level, false, tally, type);
+                }
             }
         }
-        
-        return maxDepth;
-    }
-    
-    private int countMethods(String code, String language) {
-        Pattern methodPattern = getMethodPattern(language);
-        if (methodPattern == null) return 0;
-        
-        Matcher matcher = methodPattern.matcher(code);
-        int count = 0;
-        
-        while (matcher.find()) {
-            count++;
-        }
-        
-        return count;
-    }
-    
-    private int countClasses(String code, String language) {
-        Pattern classPattern = getClassPattern(language);
-        if (classPattern == null) return 0;
-        
-        Matcher matcher = classPattern.matcher(code);
-        int count = 0;
-        
-        while (matcher.find()) {
-            count++;
-        }
-        
-        return count;
-    }
-    
-    private double calculateMaintainabilityIndex(int linesOfCode, int cyclomaticComplexity, int numberOfMethods) {
-        // Simplified maintainability index calculation
-        // Real formula: 171 - 5.2 * ln(Halstead Volume) - 0.23 * (Cyclomatic Complexity) - 16.2 * ln(Lines of Code)
-        // Simplified version for demonstration
-        
-        if (linesOfCode == 0) return 100.0;
-        
-        double complexityPenalty = cyclomaticComplexity * 2.0;
-        double sizePenalty = Math.log(linesOfCode) * 5.0;
-        double methodPenalty = numberOfMethods * 0.5;
-        
-        double index = 100.0 - complexityPenalty - sizePenalty - methodPenalty;
-        return Math.max(0.0, Math.min(100.0, index));
+
+        private void flatIf(boolean elseBranch, Tally tally) {
+            if (elseBranch) {
+                tally.flat();
+            }
+        }
+
+        /**
+         * Whether the traversal saw statements, i.e. whether the parser for this
+         * language produces method bodies rather than just declarations.
+         *
+         * @return true if at least one statement node was visited
+         */
+        public boolean hasStatements() {
+            return statements > 0;
+        }
+
+        /**
+         * Gets the complexity gathered so far.
+         *
+         * @param linesOfCode lines of code for the file totals
+         * @return the complexity report
+         */
+        public Report getReport(int linesOfCode) {
+            return Report.of(methods, outside, classes, linesOfCode);
+        }
     }
-    
-    private String[] getDecisionKeywords(String language) {
-        return switch (language.toLowerCase()) {
-            case "java", "javascript", "typescript" -> 
-                new String[]{"if", "else", "while", "for", "switch", "case", "catch", "?", ":"};
-            case "python" -> 
-                new String[]{"if", "elif", "else", "while", "for", "except", "and", "or"};
-            default -> 
-                new String[]{"if", "else", "while", "for", "switch", "case"};
-        };
+
+    /**
+     * Traversal state for one entered node.
+     */
+    private static final class Frame {
+        final int level;
+        final boolean nests;
+        final Tally tally;
+        final String type;
+        String logicalOperator;
+        int children;
+        int statementChildren;
+
+        Frame(int level, boolean nests, Tally tally) {
+            this(level, nests, tally, null);
+        }
+
+        Frame(int level, boolean nests, Tally tally, String type) {
+            this.level = level;
+            this.nests = nests;
+            this.tally = tally;
+            this.type = type;
+        }
+
+        /**
+         * Nesting level of the next child. Conditions stay at the construct's own
+         * level; bodies, ternary branches and lambda bodies go one deeper.
+         */
+        int childLevel(ASTNode child) {
+            if (!nests) {
+                return level;
+            }
+            if ("conditional".equals(type)) {
+                return children == 0 ? level : level + 1;
+            }
+            if ("lambda".equals(type) || child instanceof StatementNode) {
+                return level + 1;
+            }
+            return level;
+        }
     }
-    
-    private boolean isNestingIncrement(String line, String language) {
-        return switch (language.toLowerCase()) {
-            case "java", "javascript", "typescript" -> 
-                line.contains("{") || 
-                line.matches(".*\\b(if|while|for|switch|try|catch|finally)\\b.*") ||
-                line.matches(".*\\b(function|class)\\b.*");
-            case "python" -> 
-                line.matches(".*\\b(if|elif|else|while|for|try|except|finally|def|class)\\b.*:$");
-            default -> 
-                line.contains("{") || line.matches(".*\\b(if|while|for)\\b.*");
-        };
+
+    /**
+     * Complexity counters for one method, or for code outside any method.
+     * Shared by the AST collector and {@link ComplexityLexer}.
+     */
+    static final class Tally {
+        private final String name;
+        private final int line;
+        private final int startCodeLine;
+        private int decisions;
+        private int cognitive;
+        private int maxNesting;
+        private int linesOfCode;
+
+        Tally(String name, int line, int startCodeLine) {
+            this.name = name;
+            this.line = line;
+            this.startCodeLine = startCodeLine;
+        }
+
+        /** A branch for cyclomatic complexity. */
+        void decision() {
+            decisions++;
+        }
+
+        /** A structure that costs one plus its nesting level and nests its body. */
+        void structural(int nesting) {
+            cognitive += 1 + nesting;
+            nested(nesting);
+        }
+
+        /** A flat cognitive increment: else, else if, a run of boolean operators. */
+        void flat() {
+            cognitive++;
+        }
+
+        /** A body opened one level below the given nesting. */
+        void nested(int nesting) {
+            maxNesting = Math.max(maxNesting, nesting + 1);
+        }
+
+        /** Sets lines of code from the running count of code lines at the method's end. */
+        void close(int codeLines) {
+            linesOfCode = Math.max(1, codeLines - startCodeLine + 1);
+        }
+
+        ComplexityMetrics toMetrics() {
+            return new ComplexityMetrics(1 + decisions, linesOfCode, cognitive, maxNesting, 1, 0, new HashMap<>());
+        }
     }
-    
-    private boolean isNestingDecrement(String line, String language) {
-        return switch (language.toLowerCase()) {
-            case "java", "javascript", "typescript" -> line.contains("}");
-            case "python" -> false; // Python uses indentation, harder to detect without parsing
-            default -> line.contains("}");
-        };
+
+    /**
+     * Complexity of a single method.
+     */
+    public static final class MethodComplexity {
+        private final String name;
+        private final int line;
+        private final ComplexityMetrics metrics;
+
+        MethodComplexity(String name, int line, ComplexityMetrics metrics) {
+            this.name = Objects.requireNonNull(name, "Name cannot be null");
+            this.line = line;
+            this.metrics = Objects.requireNonNull(metrics, "Metrics cannot be null");
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        /**
+         * Gets the line the method is declared on.
+         *
+         * @return the 1-based line, or 0 if unknown
+         */
+        public int getLine() {
+            return line;
+        }
+
+        public ComplexityMetrics getMetrics() {
+            return metrics;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("MethodComplexity{name='%s', line=%d, cyclomatic=%d, cognitive=%d, nesting=%d}",
+                    name, line, metrics.getCyclomaticComplexity(), metrics.getCognitiveComplexity(),
+                    metrics.getNestingDepth());
+        }
     }
-    
-    private boolean isCognitiveComplexityIncrement(String line, String language) {
-        String[] cognitiveKeywords = switch (language.toLowerCase()) {
-            case "java", "javascript", "typescript" -> 
-                new String[]{"if", "else", "while", "for", "switch", "case", "catch", "break", "continue"};
-            case "python" -> 
-                new String[]{"if", "elif", "else", "while", "for", "except", "break", "continue"};
-            default -> 
-                new String[]{"if", "else", "while", "for"};
-        };
-        
-        for (String keyword : cognitiveKeywords) {
-            if (line.matches(".*\\b" + keyword + "\\b.*")) {
-                return true;
+
+    /**
+     * Per-method complexity together with the file totals.
+     */
+    public static final class Report {
+        private final ComplexityMetrics fileMetrics;
+        private final List<MethodComplexity> methods;
+
+        private Report(ComplexityMetrics fileMetrics, List<MethodComplexity> methods) {
+            this.fileMetrics = fileMetrics;
+            this.methods = List.copyOf(methods);
+        }
+
+        static Report of(List<Tally> tallies, Tally outside, int classes, int linesOfCode) {
+            List<MethodComplexity> methods = new ArrayList<>(tallies.size());
+            // Code outside methods (field initializers, scripts) counts towards the file
+            int cyclomatic = outside.decisions + (tallies.isEmpty() ? 1 : 0);
+            int cognitive = outside.cognitive;
+            int nesting = outside.maxNesting;
+            for (Tally tally : tallies) {
+                ComplexityMetrics metrics = tally.toMetrics();
+                methods.add(new MethodComplexity(tally.name, tally.line, metrics));
+                cyclomatic += metrics.getCyclomaticComplexity();
+                cognitive += metrics.getCognitiveComplexity();
+                nesting = Math.max(nesting, metrics.getNestingDepth());
             }
+            ComplexityMetrics fileMetrics = new ComplexityMetrics(cyclomatic, linesOfCode, cognitive, nesting,
+                    tallies.size(), classes, new HashMap<>());
+            return new Report(fileMetrics, methods);
+        }
+
+        public ComplexityMetrics getFileMetrics() {
+            return fileMetrics;
+        }
+
+        /**
+         * Gets per-method complexity in declaration order.
+         *
+         * @return unmodifiable list of method complexities
+         */
+        public List<MethodComplexity> getMethods() {
+            return methods;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("Report{methods=%d, cyclomatic=%d, cognitive=%d}",
+                    methods.size(), fileMetrics.getCyclomaticComplexity(), fileMetrics.getCognitiveComplexity());
         }
-        
-        return false;
-    }
-    
-    private Pattern getMethodPattern(String language) {
-        return switch (language.toLowerCase()) {
-            case "java" -> 
-                Pattern.compile("\\b(public|private|protected|static)\\s+[^=]*\\s+(\\w+)\\s*\\([^)]*\\)\\s*\\{");
-            case "javascript" -> 
-                Pattern.compile("function\\s+(\\w+)\\s*\\(|\\b(\\w+)\\s*:\\s*function\\s*\\(");
-            case "typescript" -> 
-                Pattern.compile("function\\s+(\\w+)\\s*\\(|\\b(\\w+)\\s*\\([^)]*\\)\\s*:\\s*\\w+\\s*\\{");
-            case "python" -> 
-                Pattern.compile("def\\s+(\\w+)\\s*\\(");
-            default -> null;
-        };
-    }
-    
-    private Pattern getClassPattern(String language) {
-        return switch (language.toLowerCase()) {
-            case "java" -> 
-                Pattern.compile("\\b(public|private|protected)?\\s*class\\s+(\\w+)");
-            case "javascript", "typescript" -> 
-                Pattern.compile("class\\s+(\\w+)");
-            case "python" -> 
-                Pattern.compile("class\\s+(\\w+)\\s*:");
-            default -> null;
-        };
     }
-}
\ No newline at end of file
+}
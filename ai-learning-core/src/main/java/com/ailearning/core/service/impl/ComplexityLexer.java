@@ -0,0 +1,809 @@
+package com.ailearning.core.service.impl;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Single-pass complexity lexer for code without a statement-level AST.
+ * <p>
+ * One scan over the characters skips comments and string literals, follows
+ * block structure through braces (or indentation for Python) and attributes
+ * every decision point to the innermost enclosing method, so per-method
+ * metrics come out of the same pass as the file totals. Keyword tables are
+ * static; nothing is compiled or split per call.
+ * <p>
+ * This is a lexer, not a parser: control statements without braces do not
+ * add nesting, and methods are recognised by their declaration shape
+ * ({@code name(...) ... {} or {@code def name(...)}), not by type information.
+ * Not thread-safe; create one per scan.
+ */
+final class ComplexityLexer {
+
+    // Frame kinds
+    private static final int BLOCK = 0;
+    private static final int CONTROL = 1;
+    private static final int DO = 2;
+    private static final int LAMBDA = 3;
+    private static final int METHOD = 4;
+
+    // Words that can precede "(" without declaring a method
+    private static final Set<String> NOT_METHOD = Set.of(
+            "if", "for", "while", "do", "switch", "catch", "try", "finally", "else", "synchronized",
+            "function", "return", "new", "throw", "case", "await", "yield", "typeof", "when",
+            "super", "this", "assert", "match", "foreach");
+
+    // Tokens before a name that make "name(" a call, annotation or record header
+    private static final Set<String> NOT_METHOD_PREFIX = Set.of(
+            ".", "?.", "::", "new", "@", "class", "record", "interface", "enum");
+
+    // Tokens allowed between a method's parameter list and its body
+    private static final Set<String> HEADER_TOKENS = Set.of(
+            ",", ".", ":", "<", ">", "[", "]", "=>", "?", "&");
+
+    // Words after which "/" starts a regular expression literal
+    private static final Set<String> BEFORE_REGEX = Set.of(
+            "return", "typeof", "case", "in", "of", "delete", "void", "throw", "new", "else",
+            "do", "yield", "await", "instanceof");
+
+    private static final Set<String> TWO_CHAR_TOKENS = Set.of(
+            "&&", "||", "->", "=>", "::", "==", "!=", "<=", ">=", "?.", "??");
+
+    private final String code;
+    private final boolean python;
+    private final boolean javascript;
+    private final boolean expressionBodies;
+    private final boolean structure;
+
+    private final List<ComplexityAnalyzer.Tally> methods = new ArrayList<>();
+    private final ComplexityAnalyzer.Tally outside = new ComplexityAnalyzer.Tally(null, 0, 0);
+    private final Deque<Frame> frames = new ArrayDeque<>();
+
+    private int pos;
+    private int line = 1;
+    private int codeLines;
+    private int lastCodeLine;
+    private int classes;
+
+    // Previous two tokens; words are kept as-is, punctuation as its text
+    private String prev;
+    private String prev2;
+    private boolean prevOperand;
+    private String lastLogical;
+
+    // Brace-language state
+    private int parenDepth;
+    private boolean control;
+    private boolean doPending;
+    private boolean pendingElse;
+    private boolean elseIf;
+    private boolean doTail;
+    private boolean skipWhile;
+    private boolean caseLabel;
+    private boolean caseArrow;
+    private String headerName;
+    private boolean headerReady;
+    private int anonymousDepth = -1;
+    private boolean anonymousReady;
+    private int headerLine;
+    private int headerCodeLine;
+
+    // Indentation-language state
+    private int bracketDepth;
+    private boolean firstWord;
+    private boolean expectName;
+    private int pendingKind = -1;
+    private int pendingIndent;
+    private ComplexityAnalyzer.Tally pendingMethod;
+
+    private ComplexityLexer(String code, String language, boolean structure) {
+        this.code = code;
+        String lang = language != null ? language.toLowerCase() : "";
+        this.python = lang.equals("python");
+        this.javascript = lang.equals("javascript") || lang.equals("typescript");
+        this.expressionBodies = lang.equals("kotlin") || lang.equals("scala");
+        this.structure = structure;
+    }
+
+    /**
+     * Scans code for per-method and file complexity.
+     *
+     * @param code the source code
+     * @param language the source language
+     * @return the complexity report
+     */
+    static ComplexityAnalyzer.Report scan(String code, String language) {
+        ComplexityLexer lexer = new ComplexityLexer(code, language, true);
+        lexer.run();
+        return ComplexityAnalyzer.Report.of(lexer.methods, lexer.outside, lexer.classes, lexer.codeLines);
+    }
+
+    /**
+     * Counts lines holding code, skipping blank and comment-only lines.
+     *
+     * @param code the source code
+     * @param language the source language
+     * @return the number of lines of code
+     */
+    static int countLinesOfCode(String code, String language) {
+        ComplexityLexer lexer = new ComplexityLexer(code, language, false);
+        lexer.run();
+        return lexer.codeLines;
+    }
+
+    private void run() {
+        if (python) {
+            scanIndented();
+        } else {
+            scanBraces();
+        }
+        while (!frames.isEmpty()) {
+            close(frames.pop());
+        }
+        if (pendingMethod != null) {
+            pendingMethod.close(codeLines);
+        }
+    }
+
+    // ---- brace languages ----
+
+    private void scanBraces() {
+        int n = code.length();
+        while (pos < n) {
+            char c = code.charAt(pos);
+            if (c == '\n') {
+                line++;
+                pos++;
+                continue;
+            }
+            if (Character.isWhitespace(c)) {
+                pos++;
+                continue;
+            }
+            if (c == '/' && pos + 1 < n) {
+                char d = code.charAt(pos + 1);
+                if (d == '/') {
+                    skipToLineEnd();
+                    continue;
+                }
+                if (d == '*') {
+                    skipBlockComment();
+                    continue;
+                }
+            }
+            markCode();
+            if (c == '"' || c == '\'' || (c == '`' && javascript)) {
+                skipString(c);
+                operand();
+                continue;
+            }
+            if (c == '/' && javascript && !prevOperand) {
+                skipRegex();
+                operand();
+                continue;
+            }
+            if (!structure) {
+                pos++;
+                continue;
+            }
+            if (Character.isJavaIdentifierStart(c)) {
+                int start = pos;
+                while (pos < n && Character.isJavaIdentifierPart(code.charAt(pos))) {
+                    pos++;
+                }
+                braceWord(code.substring(start, pos));
+            } else if (Character.isDigit(c)) {
+                skipNumber();
+                operand();
+            } else {
+                String token = pos + 1 < n ? code.substring(pos, pos + 2) : null;
+                if (token != null && TWO_CHAR_TOKENS.contains(token)) {
+                    pos += 2;
+                } else {
+                    token = String.valueOf(c);
+                    pos++;
+                }
+                bracePunctuation(token);
+            }
+        }
+    }
+
+    private void braceWord(String word) {
+        resolvePending(word);
+        ComplexityAnalyzer.Tally tally = current();
+        int nesting = nesting();
+        switch (word) {
+            case "if" -> {
+                tally.decision();
+                if (elseIf) {
+                    tally.flat();
+                    tally.nested(nesting);
+                } else {
+                    tally.structural(nesting);
+                }
+                control = true;
+            }
+            case "for", "while" -> {
+                if (skipWhile) {
+                    skipWhile = false;
+                } else {
+                    tally.decision();
+                    tally.structural(nesting);
+                    control = true;
+                }
+            }
+            case "do" -> {
+                tally.decision();
+                tally.structural(nesting);
+                control = true;
+                doPending = true;
+            }
+            case "switch", "catch" -> {
+                if (word.equals("catch")) {
+                    tally.decision();
+                }
+                tally.structural(nesting);
+                control = true;
+            }
+            case "case" -> {
+                tally.decision();
+                caseLabel = true;
+            }
+            case "default" -> caseLabel = true;
+            case "else" -> {
+                pendingElse = true;
+                control = true;
+            }
+            case "try", "finally" -> control = false;
+            case "class", "interface" -> {
+                if (!".".equals(prev) && !"::".equals(prev)) {
+                    classes++;
+                }
+            }
+            default -> {
+            }
+        }
+        elseIf = false;
+        shift(word, !BEFORE_REGEX.contains(word));
+    }
+
+    private void bracePunctuation(String token) {
+        resolvePending(token);
+        // Identifiers and type punctuation may sit between a header and its body
+        boolean headerToken = HEADER_TOKENS.contains(token) || token.equals("{");
+        if (headerReady && !headerToken && !(expressionBodies && token.equals("="))) {
+            clearHeader();
+        }
+        boolean anonymous = anonymousReady && headerToken;
+        anonymousReady = false;
+        ComplexityAnalyzer.Tally tally = current();
+        switch (token) {
+            case "{" -> openBrace(anonymous);
+            case "}" -> closeBrace();
+            case "(" -> {
+                if (parenDepth == 0) {
+                    beginHeader();
+                }
+                if ("function".equals(prev)) {
+                    anonymousDepth = parenDepth;
+                }
+                parenDepth++;
+            }
+            case ")" -> {
+                parenDepth = Math.max(0, parenDepth - 1);
+                if (parenDepth == 0 && headerName != null) {
+                    headerReady = true;
+                }
+                if (parenDepth == anonymousDepth) {
+                    anonymousDepth = -1;
+                    anonymous = true;
+                }
+            }
+            case ";" -> {
+                if (parenDepth == 0) {
+                    control = false;
+                    doPending = false;
+                    caseLabel = false;
+                    clearHeader();
+                }
+                lastLogical = null;
+            }
+            case "&&", "||" -> {
+                tally.decision();
+                if (!token.equals(lastLogical)) {
+                    tally.flat();
+                }
+                lastLogical = token;
+            }
+            case "?" -> {
+                if (isTernary()) {
+                    tally.decision();
+                    tally.structural(nesting());
+                }
+                lastLogical = null;
+            }
+            case "->" -> {
+                if (caseLabel) {
+                    caseLabel = false;
+                    caseArrow = true;
+                }
+            }
+            case ":", "," -> {
+                caseLabel = false;
+                lastLogical = null;
+            }
+            default -> {
+            }
+        }
+        shift(token, token.equals(")") || token.equals("]") || token.equals("}"));
+        anonymousReady = anonymous && !token.equals("{");
+    }
+
+    /**
+     * Settles an "else" or a do-while tail now that the following token is known.
+     */
+    private void resolvePending(String token) {
+        if (pendingElse) {
+            pendingElse = false;
+            if (token.equals("if")) {
+                elseIf = true;
+            } else {
+                current().flat();
+            }
+        }
+        if (doTail) {
+            doTail = false;
+            skipWhile = token.equals("while");
+        }
+    }
+
+    private void beginHeader() {
+        headerName = null;
+        headerReady = false;
+        if (prev == null) {
+            return;
+        }
+        if (isName(prev) && !NOT_METHOD.contains(prev) && (prev2 == null || !NOT_METHOD_PREFIX.contains(prev2))) {
+            headerName = prev;
+        } else if (prev.equals("=") && prev2 != null && isName(prev2) && !NOT_METHOD.contains(prev2)) {
+            // const handler = (event) => { ... }
+            headerName = prev2;
+        }
+        headerLine = line;
+        headerCodeLine = codeLines;
+    }
+
+    private void clearHeader() {
+        headerName = null;
+        headerReady = false;
+    }
+
+    private void openBrace(boolean anonymous) {
+        Frame parent = frames.peek();
+        int nesting = nesting();
+        Frame frame;
+        if (headerReady && headerName != null && parenDepth == 0) {
+            ComplexityAnalyzer.Tally tally = new ComplexityAnalyzer.Tally(headerName, headerLine, headerCodeLine);
+            methods.add(tally);
+            frame = new Frame(METHOD, 0, parenDepth, tally);
+        } else if (control) {
+            frame = new Frame(doPending ? DO : CONTROL, nesting + 1, parenDepth, current());
+        } else if (anonymous || ("->".equals(prev) || "=>".equals(prev)) && !caseArrow) {
+            current().nested(nesting);
+            frame = new Frame(LAMBDA, nesting + 1, parenDepth, current());
+        } else {
+            frame = new Frame(BLOCK, nesting, parenDepth, parent != null ? parent.tally : outside);
+        }
+        frames.push(frame);
+        parenDepth = 0;
+        control = false;
+        doPending = false;
+        caseLabel = false;
+        caseArrow = false;
+        lastLogical = null;
+        clearHeader();
+    }
+
+    private void closeBrace() {
+        if (!frames.isEmpty()) {
+            Frame frame = frames.pop();
+            parenDepth = frame.mark;
+            close(frame);
+            doTail = frame.kind == DO;
+        }
+        control = false;
+        doPending = false;
+        caseLabel = false;
+        lastLogical = null;
+        clearHeader();
+    }
+
+    private boolean isTernary() {
+        int n = code.length();
+        int i = pos;
+        while (i < n && Character.isWhitespace(code.charAt(i))) {
+            i++;
+        }
+        if (i >= n || ">,)]=:{;".indexOf(code.charAt(i)) >= 0) {
+            // Generic wildcards, optional parameters and nullable types
+            return false;
+        }
+        return !code.startsWith("extends", i) && !code.startsWith("super", i);
+    }
+
+    // ---- indentation languages ----
+
+    private void scanIndented() {
+        int n = code.length();
+        boolean lineStart = true;
+        boolean continuation = false;
+        while (pos < n) {
+            char c = code.charAt(pos);
+            if (lineStart) {
+                int indent = 0;
+                while (pos < n && ((c = code.charAt(pos)) == ' ' || c == '\t' || c == '\f')) {
+                    indent = c == '\t' ? (indent / 8 + 1) * 8 : indent + 1;
+                    pos++;
+                }
+                if (pos >= n) {
+                    break;
+                }
+                if (c == '\n' || c == '\r') {
+                    line += c == '\n' ? 1 : 0;
+                    pos++;
+                    continue;
+                }
+                if (c == '#') {
+                    skipToLineEnd();
+                    continue;
+                }
+                lineStart = false;
+                if (structure) {
+                    beginLogicalLine(indent);
+                }
+            }
+            if (c == '\n') {
+                line++;
+                pos++;
+                if (bracketDepth == 0 && !continuation) {
+                    lineStart = true;
+                }
+                continuation = false;
+                continue;
+            }
+            if (c == '\\' && pos + 1 < n && code.charAt(pos + 1) == '\n') {
+                continuation = true;
+                pos++;
+                continue;
+            }
+            if (Character.isWhitespace(c)) {
+                pos++;
+                continue;
+            }
+            if (c == '#') {
+                skipToLineEnd();
+                continue;
+            }
+            markCode();
+            if (c == '"' || c == '\'') {
+                skipPythonString(c);
+                continue;
+            }
+            if (!structure) {
+                pos++;
+                continue;
+            }
+            if (Character.isLetter(c) || c == '_') {
+                int start = pos;
+                while (pos < n && (Character.isLetterOrDigit(code.charAt(pos)) || code.charAt(pos) == '_')) {
+                    pos++;
+                }
+                if (pos < n && pos - start <= 2 && (code.charAt(pos) == '"' || code.charAt(pos) == '\'')
+                        && isStringPrefix(code, start, pos)) {
+                    skipPythonString(code.charAt(pos));
+                    firstWord = false;
+                    continue;
+                }
+                pythonWord(code.substring(start, pos));
+                continue;
+            }
+            if (Character.isDigit(c)) {
+                skipNumber();
+                firstWord = false;
+                continue;
+            }
+            switch (c) {
+                case '(', '[', '{' -> bracketDepth++;
+                case ')', ']', '}' -> bracketDepth = Math.max(0, bracketDepth - 1);
+                case ',', ':', ';' -> lastLogical = null;
+                default -> {
+                }
+            }
+            firstWord = false;
+            pos++;
+        }
+    }
+
+    /**
+     * Opens the block announced by the previous logical line when this one is
+     * indented past it, otherwise closes every block this line dedents out of.
+     */
+    private void beginLogicalLine(int indent) {
+        if (pendingKind >= 0 && indent > pendingIndent) {
+            Frame parent = frames.peek();
+            int nesting = parent != null ? parent.nesting : 0;
+            if (pendingKind == METHOD) {
+                frames.push(new Frame(METHOD, 0, pendingIndent, pendingMethod));
+                pendingMethod = null;
+            } else if (pendingKind == CONTROL) {
+                frames.push(new Frame(CONTROL, nesting + 1, pendingIndent, current()));
+            } else {
+                frames.push(new Frame(BLOCK, nesting, pendingIndent, current()));
+            }
+        } else {
+            while (!frames.isEmpty() && frames.peek().mark >= indent) {
+                close(frames.pop());
+            }
+        }
+        if (pendingMethod != null) {
+            // One-line body: def f(): return x
+            pendingMethod.close(codeLines);
+            pendingMethod = null;
+        }
+        pendingKind = -1;
+        pendingIndent = indent;
+        firstWord = true;
+        expectName = false;
+        lastLogical = null;
+    }
+
+    private void pythonWord(String word) {
+        ComplexityAnalyzer.Tally tally = current();
+        int nesting = nesting();
+        if (expectName) {
+            expectName = false;
+            pendingMethod = new ComplexityAnalyzer.Tally(word, line, codeLines);
+            methods.add(pendingMethod);
+            return;
+        }
+        if (firstWord) {
+            firstWord = word.equals("async");
+            switch (word) {
+                case "def" -> {
+                    pendingKind = METHOD;
+                    expectName = true;
+                }
+                case "class" -> {
+                    classes++;
+                    pendingKind = BLOCK;
+                }
+                case "if", "for", "while", "except" -> {
+                    tally.decision();
+                    tally.structural(nesting);
+                    pendingKind = CONTROL;
+                }
+                case "elif" -> {
+                    tally.decision();
+                    tally.flat();
+                    tally.nested(nesting);
+                    pendingKind = CONTROL;
+                }
+                case "else" -> {
+                    tally.flat();
+                    pendingKind = CONTROL;
+                }
+                case "try", "finally", "with", "match" -> pendingKind = BLOCK;
+                default -> {
+                }
+            }
+            return;
+        }
+        switch (word) {
+            // Conditional expressions and comprehension clauses
+            case "if", "for" -> {
+                tally.decision();
+                tally.structural(nesting);
+            }
+            case "and", "or" -> {
+                tally.decision();
+                if (!word.equals(lastLogical)) {
+                    tally.flat();
+                }
+                lastLogical = word;
+            }
+            default -> {
+            }
+        }
+    }
+
+    private static boolean isStringPrefix(String code, int start, int end) {
+        for (int i = start; i < end; i++) {
+            if ("rRbBfFuU".indexOf(code.charAt(i)) < 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void skipPythonString(char quote) {
+        int n = code.length();
+        boolean triple = pos + 2 < n && code.charAt(pos + 1) == quote && code.charAt(pos + 2) == quote;
+        pos += triple ? 3 : 1;
+        while (pos < n) {
+            char c = code.charAt(pos);
+            if (c == '\\' && pos + 1 < n) {
+                if (code.charAt(pos + 1) == '\n') {
+                    newLineInLiteral();
+                }
+                pos += 2;
+            } else if (c == '\n') {
+                if (!triple) {
+                    return;
+                }
+                newLineInLiteral();
+                pos++;
+            } else if (c == quote && (!triple
+                    || pos + 2 < n && code.charAt(pos + 1) == quote && code.charAt(pos + 2) == quote)) {
+                pos += triple ? 3 : 1;
+                return;
+            } else {
+                pos++;
+            }
+        }
+    }
+
+    // ---- shared ----
+
+    private ComplexityAnalyzer.Tally current() {
+        Frame frame = frames.peek();
+        return frame != null ? frame.tally : outside;
+    }
+
+    private int nesting() {
+        Frame frame = frames.peek();
+        return frame != null ? frame.nesting : 0;
+    }
+
+    private void close(Frame frame) {
+        if (frame.kind == METHOD) {
+            frame.tally.close(codeLines);
+        }
+    }
+
+    private void shift(String token, boolean operand) {
+        prev2 = prev;
+        prev = token;
+        prevOperand = operand;
+    }
+
+    private void operand() {
+        resolvePending("");
+        anonymousReady = false;
+        if (headerReady) {
+            clearHeader();
+        }
+        shift("", true);
+    }
+
+    private static boolean isName(String token) {
+        return !token.isEmpty() && Character.isJavaIdentifierStart(token.charAt(0));
+    }
+
+    private void markCode() {
+        if (lastCodeLine != line) {
+            lastCodeLine = line;
+            codeLines++;
+        }
+    }
+
+    private void newLineInLiteral() {
+        line++;
+        markCode();
+    }
+
+    private void skipToLineEnd() {
+        int end = code.indexOf('\n', pos);
+        pos = end < 0 ? code.length() : end;
+    }
+
+    private void skipBlockComment() {
+        int n = code.length();
+        pos += 2;
+        while (pos < n && !(code.charAt(pos) == '*' && pos + 1 < n && code.charAt(pos + 1) == '/')) {
+            if (code.charAt(pos) == '\n') {
+                line++;
+            }
+            pos++;
+        }
+        pos = Math.min(n, pos + 2);
+    }
+
+    private void skipString(char quote) {
+        int n = code.length();
+        if (quote == '"' && code.startsWith("\"\"\"", pos)) {
+            // Text block or raw string
+            pos += 3;
+            while (pos < n && !code.startsWith("\"\"\"", pos)) {
+                if (code.charAt(pos) == '\\') {
+                    pos++;
+                } else if (code.charAt(pos) == '\n') {
+                    newLineInLiteral();
+                }
+                pos++;
+            }
+            pos = Math.min(n, pos + 3);
+            return;
+        }
+        pos++;
+        while (pos < n) {
+            char c = code.charAt(pos);
+            if (c == '\\') {
+                pos += 2;
+            } else if (c == quote) {
+                pos++;
+                return;
+            } else if (c == '\n') {
+                if (quote != '`') {
+                    // Unterminated literal; resynchronise at the line end
+                    return;
+                }
+                newLineInLiteral();
+                pos++;
+            } else {
+                pos++;
+            }
+        }
+    }
+
+    private void skipRegex() {
+        int n = code.length();
+        boolean inClass = false;
+        pos++;
+        while (pos < n) {
+            char c = code.charAt(pos);
+            if (c == '\n') {
+                return;
+            }
+            if (c == '\\') {
+                pos += 2;
+                continue;
+            }
+            pos++;
+            if (c == '[') {
+                inClass = true;
+            } else if (c == ']') {
+                inClass = false;
+            } else if (c == '/' && !inClass) {
+                return;
+            }
+        }
+    }
+
+    private void skipNumber() {
+        int n = code.length();
+        while (pos < n && (Character.isLetterOrDigit(code.charAt(pos)) || code.charAt(pos) == '_'
+                || code.charAt(pos) == '.')) {
+            pos++;
+        }
+    }
+
+    /**
+     * An open block: braces hold the enclosing paren depth as their mark,
+     * indentation blocks the indent of the line that opened them.
+     */
+    private static final class Frame {
+        final int kind;
+        final int nesting;
+        final int mark;
+        final ComplexityAnalyzer.Tally tally;
+
+        Frame(int kind, int nesting, int mark, ComplexityAnalyzer.Tally tally) {
+            this.kind = kind;
+            this.nesting = nesting;
+            this.mark = mark;
+            this.tally = tally;
+        }
+    }
+}
@@ -1,15 +1,20 @@
 package com.ailearning.core.service.impl;
 
 import com.ailearning.core.model.*;
+import com.ailearning.core.model.ast.ASTNode;
 import com.ailearning.core.service.CodeAnalyzer;
 import com.ailearning.core.service.ContextEngine;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.time.LocalDateTime;
 import java.util.*;
+import java.util.concurrent.CancellationException;
 import java.util.concurrent.CompletableFuture;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.function.Function;
+import java.util.function.Supplier;
 import java.util.regex.Pattern;
 
 /**
@@ -20,19 +25,34 @@ import java.util.regex.Pattern;
  * - Performance bottleneck identification
  * - Pattern detection
  * - Intelligent context-aware suggestions
+ * 
+ * Work runs on a bounded {@link AnalysisExecutor}: analyses past their deadline
+ * return partial results, and cancelling a returned future interrupts the analysis.
+ * Complete analyses are kept in an {@link AnalysisCache} addressed by content, shared
+ * by code analysis, suggestions and LSP diagnostics.
  */
 public class DefaultCodeAnalyzer implements CodeAnalyzer {
     
     private static final Logger logger = LoggerFactory.getLogger(DefaultCodeAnalyzer.class);
     
-    private final ExecutorService executorService;
+    private final AnalysisExecutor analysisExecutor;
+    private final AnalysisCache analysisCache;
+    private final RuleEngine ruleEngine;
     private final SecurityAnalyzer securityAnalyzer;
     private final QualityAnalyzer qualityAnalyzer;
     private final PatternDetector patternDetector;
     private final PerformanceAnalyzer performanceAnalyzer;
+    private final ComplexityAnalyzer complexityAnalyzer;
     private final IntelligentSuggestionEngine suggestionEngine;
     private final ContextEngine contextEngine;
     
+    // Code is analyzed without a path; results are attributed to this placeholder
+    private static final String UNKNOWN_FILE = "unknown";
+    
+    // Sources of complexity figures, part of the analysis cache key
+    private static final String COMPLEXITY_FROM_AST = "ast";
+    private static final String COMPLEXITY_FROM_TEXT = "text";
+    
     // Supported languages
     private static final Set<String> SUPPORTED_LANGUAGES = Set.of(
             "java", "javascript", "typescript", "python", "kotlin", "scala"
@@ -43,77 +63,206 @@ public class DefaultCodeAnalyzer implements CodeAnalyzer {
     }
     
     public DefaultCodeAnalyzer(ContextEngine contextEngine) {
-        this.executorService = Executors.newCachedThreadPool();
-        this.securityAnalyzer = new SecurityAnalyzer();
-        this.qualityAnalyzer = new QualityAnalyzer();
+        this(contextEngine, new AnalysisExecutor());
+    }
+    
+    public DefaultCodeAnalyzer(ContextEngine contextEngine, AnalysisExecutor analysisExecutor) {
+        this(contextEngine, analysisExecutor, new AnalysisCache());
+    }
+    
+    public DefaultCodeAnalyzer(ContextEngine contextEngine, AnalysisExecutor analysisExecutor,
+                               AnalysisCache analysisCache) {
+        this.analysisExecutor = Objects.requireNonNull(analysisExecutor, "Analysis executor cannot be null");
+        this.analysisCache = Objects.requireNonNull(analysisCache, "Analysis cache cannot be null");
+        this.ruleEngine = RuleEngine.standard();
+        this.securityAnalyzer = new SecurityAnalyzer(ruleEngine);
+        this.qualityAnalyzer = new QualityAnalyzer(ruleEngine);
         this.patternDetector = new PatternDetector();
-        this.performanceAnalyzer = new PerformanceAnalyzer();
+        this.performanceAnalyzer = new PerformanceAnalyzer(ruleEngine);
+        this.complexityAnalyzer = new ComplexityAnalyzer();
         this.contextEngine = contextEngine;
         this.suggestionEngine = new IntelligentSuggestionEngine(contextEngine);
     }
     
     @Override
     public CompletableFuture<AnalysisResult> analyzeCode(String code, String language) {
-        return CompletableFuture.supplyAsync(() -> {
-            long startTime = System.currentTimeMillis();
+        return analysisExecutor.submitWithDeadline(deadline -> analyze(code, language, deadline).result);
+    }
+    
+    /**
+     * Gets the rule engine shared by the security, quality and performance analyzers.
+     */
+    public RuleEngine getRuleEngine() {
+        return ruleEngine;
+    }
+    
+    /**
+     * Gets the executor running analyses, for its queue, active and rejected counts.
+     */
+    public AnalysisExecutor getAnalysisExecutor() {
+        return analysisExecutor;
+    }
+    
+    /**
+     * Gets the store of complete analyses, for its size and hit rate.
+     */
+    public AnalysisCache getAnalysisCache() {
+        return analysisCache;
+    }
+    
+    /**
+     * Analyzes code with a single rule engine pass shared by the security, quality
+     * and performance analyzers. Passes run in turn on the calling thread; once the
+     * deadline expires the remaining ones are skipped and the result is partial.
+     * Findings for code already analyzed with the same language and rules come
+     * from the cache, reported in a new result.
+     *
+     * @param deadline deadline of the enclosing analysis task
+     * @return the result with the cache entry of its findings
+     */
+    private Analysis analyze(String code, String language, AnalysisExecutor.Deadline deadline) {
+        long startTime = System.currentTimeMillis();
+        
+        try {
+            logger.debug("Starting code analysis for language: {}", language);
             
-            try {
-                logger.debug("Starting code analysis for language: {}", language);
-                
-                if (!supportsLanguage(language)) {
-                    return createUnsupportedLanguageResult(language);
-                }
-                
-                // Perform parallel analysis
-                CompletableFuture<List<CodeIssue>> qualityIssues = 
-                        CompletableFuture.supplyAsync(() -> qualityAnalyzer.analyze(code, language));
-                
-                CompletableFuture<List<SecurityIssue>> securityIssues = 
-                        CompletableFuture.supplyAsync(() -> securityAnalyzer.analyze(code, language));
-                
-                CompletableFuture<List<Suggestion>> suggestions = 
-                        CompletableFuture.supplyAsync(() -> performanceAnalyzer.analyzeSuggestions(code, language));
-                
-                CompletableFuture<ComplexityMetrics> complexity = 
-                        CompletableFuture.supplyAsync(() -> calculateComplexity(code, language));
-                
-                // Wait for all analyses to complete
-                CompletableFuture.allOf(qualityIssues, securityIssues, suggestions, complexity).join();
-                
-                long analysisTime = System.currentTimeMillis() - startTime;
-                
-                return AnalysisResult.builder()
-                        .id(UUID.randomUUID().toString())
-                        .timestamp(new Date())
-                        .language(language)
-                        .codeSize(code.length())
-                        .analysisTimeMs(analysisTime)
-                        .issues(qualityIssues.join())
-                        .securityIssues(securityIssues.join())
-                        .suggestions(suggestions.join())
-                        .complexity(complexity.join())
-                        .build();
-                        
-            } catch (Exception e) {
-                logger.error("Error during code analysis", e);
-                return createErrorResult(e, language);
+            if (!supportsLanguage(language)) {
+                return new Analysis(createUnsupportedLanguageResult(language), null);
+            }
+            
+            // Resolved before the lookup, as complexity from a tree differs from complexity from text
+            Optional<ASTNode> cachedAst = contextEngine != null ? contextEngine.getCachedAst(code) : Optional.empty();
+            String key = AnalysisCache.key(code, language, ruleEngine.getVersion(),
+                    cachedAst.isPresent() ? COMPLEXITY_FROM_AST : COMPLEXITY_FROM_TEXT);
+            AnalysisCache.Entry cached = analysisCache.get(key);
+            if (cached != null) {
+                logger.debug("Reusing cached analysis for language: {}", language);
+                return new Analysis(cached.newResult(System.currentTimeMillis() - startTime), cached);
+            }
+            
+            List<String> skipped = new ArrayList<>();
+            ComplexityMetrics complexity = runPass("complexity", deadline, skipped,
+                    () -> calculateComplexity(code, language, cachedAst), ComplexityMetrics.empty());
+            
+            RuleEngine.Scan scanned = runPass("rules", deadline, skipped, 
+                    () -> ruleEngine.scan(code, language), null);
+            List<CodeIssue> qualityIssues = List.of();
+            List<SecurityIssue> securityIssues = List.of();
+            List<Suggestion> suggestions = List.of();
+            if (scanned != null) {
+                qualityIssues = runPass("quality", deadline, skipped, 
+                        () -> qualityAnalyzer.analyze(scanned, language), List.of());
+                securityIssues = runPass("security", deadline, skipped, 
+                        () -> securityAnalyzer.analyze(scanned), List.of());
+                suggestions = runPass("performance", deadline, skipped, 
+                        () -> performanceAnalyzer.analyzeSuggestions(scanned), List.of());
+            }
+            
+            long analysisTime = System.currentTimeMillis() - startTime;
+            if (!skipped.isEmpty()) {
+                logger.warn("Analysis deadline expired after {} ms; skipped {}", analysisTime, skipped);
             }
-        }, executorService);
+            
+            // Security findings are reported as issues, so they reach every consumer of issues
+            List<CodeIssue> issues = new ArrayList<>(qualityIssues);
+            for (SecurityIssue securityIssue : securityIssues) {
+                issues.add(toCodeIssue(securityIssue));
+            }
+            AnalysisResult result = new AnalysisResult(
+                    UUID.randomUUID().toString(),
+                    UNKNOWN_FILE,
+                    skipped.isEmpty() ? AnalysisResult.AnalysisStatus.SUCCESS 
+                            : AnalysisResult.AnalysisStatus.PARTIAL,
+                    skipped.isEmpty() ? "Analysis found " + issues.size() + " issues" 
+                            : "Deadline expired before: " + String.join(", ", skipped),
+                    issues,
+                    suggestions,
+                    complexity,
+                    LocalDateTime.now(),
+                    analysisTime);
+            
+            AnalysisCache.Entry entry = new AnalysisCache.Entry(result, scanned);
+            // Partial scans and scans that disabled slow rules depend on timing, not just content
+            if (skipped.isEmpty() && scanned.getDisabledRules().isEmpty()) {
+                analysisCache.put(key, entry);
+            }
+            return new Analysis(result, entry);
+                    
+        } catch (CancellationException e) {
+            throw e;
+        } catch (Exception e) {
+            logger.error("Error during code analysis", e);
+            return new Analysis(createErrorResult(e, language), null);
+        }
+    }
+    
+    /**
+     * A result together with the cache entry of its findings, if it has one.
+     */
+    private static final class Analysis {
+        final AnalysisResult result;
+        final AnalysisCache.Entry entry;
+        
+        Analysis(AnalysisResult result, AnalysisCache.Entry entry) {
+            this.result = result;
+            this.entry = entry;
+        }
+        
+        List<Suggestion> getQualitySuggestions(Function<RuleEngine.Scan, List<Suggestion>> derive) {
+            return entry != null ? entry.getQualitySuggestions(derive) : List.of();
+        }
+    }
+    
+    /**
+     * Runs one analysis pass unless the deadline has expired. A pass interrupted
+     * by the deadline counts as skipped; any other cancellation propagates.
+     */
+    private static <T> T runPass(String name, AnalysisExecutor.Deadline deadline, List<String> skipped,
+                                 Supplier<T> pass, T fallback) {
+        if (deadline.isExpired()) {
+            skipped.add(name);
+            return fallback;
+        }
+        try {
+            return pass.get();
+        } catch (CancellationException e) {
+            if (!deadline.isExpired()) {
+                throw e;
+            }
+            skipped.add(name);
+            return fallback;
+        }
+    }
+    
+    /**
+     * Waits for a sub-analysis, cancelling it if this analysis is cancelled or times out.
+     */
+    private static <T> T await(CompletableFuture<T> future) {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new CancellationException("Analysis interrupted");
+        } catch (ExecutionException e) {
+            throw new CompletionException(e.getCause());
+        }
     }
     
     @Override
     public CompletableFuture<List<Suggestion>> suggestImprovements(CodeContext context) {
-        return CompletableFuture.supplyAsync(() -> {
+        return analysisExecutor.submitWithDeadline(deadline -> {
+            List<Suggestion> suggestions = new ArrayList<>();
             try {
-                List<Suggestion> suggestions = new ArrayList<>();
                 
                 // Analyze based on context
                 if (context.getCurrentFile() != null) {
                     String code = context.getCurrentFile();
                     String language = detectLanguage(context.getFileName());
                     
-                    // Get basic analysis results
-                    AnalysisResult analysisResult = analyzeCode(code, language).join();
+                    // Get basic analysis results; the scan also serves the suggestions below
+                    Analysis analysis = analyze(code, language, deadline);
+                    AnalysisResult analysisResult = analysis.result;
                     
                     // Detect patterns for intelligent suggestions
                     Codebase codebase = createCodebaseFromContext(context);
@@ -123,20 +272,21 @@ public class DefaultCodeAnalyzer implements CodeAnalyzer {
                     if (suggestionEngine != null) {
                         CompletableFuture<List<Suggestion>> intelligentSuggestions = 
                                 suggestionEngine.generateSuggestions(context, patterns, null, analysisResult);
-                        suggestions.addAll(intelligentSuggestions.join());
+                        suggestions.addAll(await(intelligentSuggestions));
                     }
                     
                     // Add refactoring suggestions based on complexity
                     if (suggestionEngine != null) {
                         suggestions.addAll(suggestionEngine.generateRefactoringSuggestions(
-                                context, analysisResult.getComplexity()));
+                                context, analysisResult.getComplexityMetrics()));
                     }
                     
-                    // Performance suggestions
-                    suggestions.addAll(performanceAnalyzer.analyzeSuggestions(code, language));
+                    // Performance suggestions, produced by the analysis
+                    suggestions.addAll(analysisResult.getSuggestions());
                     
-                    // Code quality suggestions
-                    suggestions.addAll(qualityAnalyzer.getSuggestions(code, language));
+                    // Code quality suggestions, derived once per analyzed content
+                    suggestions.addAll(analysis.getQualitySuggestions(
+                            scan -> qualityAnalyzer.getSuggestions(scan, language)));
                     
                     // Context-aware suggestions based on project patterns
                     suggestions.addAll(generateContextualSuggestions(context));
@@ -144,11 +294,17 @@ public class DefaultCodeAnalyzer implements CodeAnalyzer {
                 
                 return suggestions;
                 
+            } catch (CancellationException e) {
+                if (!deadline.isExpired()) {
+                    throw e;
+                }
+                logger.warn("Suggestion deadline expired; returning {} suggestions", suggestions.size());
+                return suggestions;
             } catch (Exception e) {
                 logger.error("Error generating suggestions", e);
                 return List.of();
             }
-        }, executorService);
+        });
     }
     
     /**
@@ -156,7 +312,7 @@ public class DefaultCodeAnalyzer implements CodeAnalyzer {
      */
     public CompletableFuture<List<Suggestion>> suggestImprovements(CodeContext context, 
                                                                   DeveloperProfile developerProfile) {
-        return CompletableFuture.supplyAsync(() -> {
+        return analysisExecutor.submitWithDeadline(deadline -> {
             try {
                 if (context.getCurrentFile() == null) {
                     return List.of();
@@ -166,7 +322,7 @@ public class DefaultCodeAnalyzer implements CodeAnalyzer {
                 String language = detectLanguage(context.getFileName());
                 
                 // Get comprehensive analysis results
-                AnalysisResult analysisResult = analyzeCode(code, language).join();
+                AnalysisResult analysisResult = analyze(code, language, deadline).result;
                 
                 // Detect patterns for intelligent suggestions
                 Codebase codebase = createCodebaseFromContext(context);
@@ -174,24 +330,30 @@ public class DefaultCodeAnalyzer implements CodeAnalyzer {
                 
                 // Generate intelligent suggestions with developer profile
                 if (suggestionEngine != null) {
-                    return suggestionEngine.generateSuggestions(
-                            context, patterns, developerProfile, analysisResult).join();
+                    return await(suggestionEngine.generateSuggestions(
+                            context, patterns, developerProfile, analysisResult));
                 }
                 
                 return List.of();
                 
+            } catch (CancellationException e) {
+                if (!deadline.isExpired()) {
+                    throw e;
+                }
+                logger.warn("Profile-aware suggestion deadline expired");
+                return List.of();
             } catch (Exception e) {
                 logger.error("Error generating profile-aware suggestions", e);
                 return List.of();
             }
-        }, executorService);
+        });
     }
     
     /**
      * Generates architectural suggestions for the entire project.
      */
     public CompletableFuture<List<Suggestion>> generateArchitecturalSuggestions(ProjectContext projectContext) {
-        return CompletableFuture.supplyAsync(() -> {
+        return analysisExecutor.submit(() -> {
             try {
                 if (suggestionEngine == null) {
                     return List.of();
@@ -208,24 +370,24 @@ public class DefaultCodeAnalyzer implements CodeAnalyzer {
                 logger.error("Error generating architectural suggestions", e);
                 return List.of();
             }
-        }, executorService);
+        });
     }
     
     @Override
     public CompletableFuture<List<Pattern>> detectPatterns(Codebase codebase) {
-        return CompletableFuture.supplyAsync(() -> {
+        return analysisExecutor.submit(() -> {
             try {
                 return patternDetector.detectPatterns(codebase);
             } catch (Exception e) {
                 logger.error("Error detecting patterns", e);
                 return List.of();
             }
-        }, executorService);
+        });
     }
     
     @Override
     public CompletableFuture<List<SecurityIssue>> validateSecurity(String code) {
-        return CompletableFuture.supplyAsync(() -> {
+        return analysisExecutor.submit(() -> {
             try {
                 String language = detectLanguageFromCode(code);
                 return securityAnalyzer.analyze(code, language);
@@ -233,7 +395,7 @@ public class DefaultCodeAnalyzer implements CodeAnalyzer {
                 logger.error("Error in security validation", e);
                 return List.of();
             }
-        }, executorService);
+        });
     }
     
     @Override
@@ -248,9 +410,27 @@ public class DefaultCodeAnalyzer implements CodeAnalyzer {
     
     // Private helper methods
     
-    private ComplexityMetrics calculateComplexity(String code, String language) {
-        ComplexityAnalyzer analyzer = new ComplexityAnalyzer();
-        return analyzer.analyze(code, language);
+    /**
+     * Computes complexity from the context engine's cached AST of this code
+     * when there is one, and from the source text otherwise. Each method's
+     * figures are added to the file metrics as {@code method.<name>@<line>.cyclomatic}
+     * and {@code method.<name>@<line>.cognitive}.
+     */
+    private ComplexityMetrics calculateComplexity(String code, String language, Optional<ASTNode> cachedAst) {
+        ComplexityAnalyzer.Report report = cachedAst.isPresent()
+                ? complexityAnalyzer.report(cachedAst.get(), code, language)
+                : complexityAnalyzer.report(code, language);
+        
+        ComplexityMetrics file = report.getFileMetrics();
+        Map<String, Double> metrics = file.getAdditionalMetrics();
+        for (ComplexityAnalyzer.MethodComplexity method : report.getMethods()) {
+            String prefix = "method." + method.getName() + "@" + method.getLine() + ".";
+            metrics.put(prefix + "cyclomatic", (double) method.getMetrics().getCyclomaticComplexity());
+            metrics.put(prefix + "cognitive", (double) method.getMetrics().getCognitiveComplexity());
+        }
+        return new ComplexityMetrics(file.getCyclomaticComplexity(), file.getLinesOfCode(),
+                file.getCognitiveComplexity(), file.getNestingDepth(), file.getNumberOfMethods(),
+                file.getNumberOfClasses(), metrics);
     }
     
     private String detectLanguage(String fileName) {
@@ -367,55 +547,57 @@ public class DefaultCodeAnalyzer implements CodeAnalyzer {
     }
     
     private AnalysisResult createUnsupportedLanguageResult(String language) {
-        return AnalysisResult.builder()
-                .id(UUID.randomUUID().toString())
-                .timestamp(new Date())
-                .language(language)
-                .codeSize(0)
-                .analysisTimeMs(0)
-                .issues(List.of(CodeIssue.builder()
-                        .id("unsupported-language")
-                        .title("Unsupported Language")
-                        .description("Language '" + language + "' is not supported for analysis")
-                        .severity(CodeIssue.Severity.INFO)
-                        .category("Language Support")
-                        .build()))
-                .securityIssues(List.of())
-                .suggestions(List.of())
-                .complexity(ComplexityMetrics.builder()
-                        .cyclomaticComplexity(0)
-                        .cognitiveComplexity(0)
-                        .linesOfCode(0)
-                        .build())
-                .build();
+        return new AnalysisResult(
+                UUID.randomUUID().toString(),
+                UNKNOWN_FILE,
+                AnalysisResult.AnalysisStatus.WARNING,
+                "Unsupported language: " + language,
+                List.of(new CodeIssue(
+                        "unsupported-language",
+                        "Language '" + language + "' is not supported for analysis",
+                        CodeIssue.Severity.INFO,
+                        CodeIssue.Category.MAINTAINABILITY,
+                        UNKNOWN_FILE,
+                        1,
+                        0,
+                        "unsupported-language",
+                        null,
+                        null)),
+                List.of(),
+                ComplexityMetrics.empty(),
+                LocalDateTime.now(),
+                0);
     }
     
     private AnalysisResult createErrorResult(Exception e, String language) {
-        return AnalysisResult.builder()
-                .id(UUID.randomUUID().toString())
-                .timestamp(new Date())
-                .language(language)
-                .codeSize(0)
-                .analysisTimeMs(0)
-                .issues(List.of(CodeIssue.builder()
-                        .id("analysis-error")
-                        .title("Analysis Error")
-                        .description("Error during analysis: " + e.getMessage())
-                        .severity(CodeIssue.Severity.ERROR)
-                        .category("System Error")
-                        .build()))
-                .securityIssues(List.of())
-                .suggestions(List.of())
-                .complexity(ComplexityMetrics.builder()
-                        .cyclomaticComplexity(0)
-                        .cognitiveComplexity(0)
-                        .linesOfCode(0)
-                        .build())
-                .build();
+        return AnalysisResult.error(UNKNOWN_FILE, "Error during " + language + " analysis: " + e.getMessage());
+    }
+    
+    /**
+     * Converts a security finding to a code issue. High and critical findings
+     * are errors, medium ones warnings and low ones informational.
+     */
+    private static CodeIssue toCodeIssue(SecurityIssue issue) {
+        CodeIssue.Severity severity = switch (issue.getSeverity()) {
+            case CRITICAL, HIGH -> CodeIssue.Severity.ERROR;
+            case MEDIUM -> CodeIssue.Severity.WARNING;
+            case LOW -> CodeIssue.Severity.INFO;
+        };
+        return new CodeIssue(
+                issue.getId(),
+                issue.getTitle() + ": " + issue.getDescription(),
+                severity,
+                CodeIssue.Category.SECURITY,
+                issue.getFile() != null ? issue.getFile() : UNKNOWN_FILE,
+                issue.getLine() != null ? issue.getLine() : 1,
+                issue.getColumn() != null ? issue.getColumn() : 0,
+                issue.getCweId(),
+                issue.getRecommendation(),
+                issue.getCodeSnippet());
     }
     
     // Cleanup resources
     public void shutdown() {
-        executorService.shutdown();
+        analysisExecutor.shutdown();
     }
 }
\ No newline at end of file
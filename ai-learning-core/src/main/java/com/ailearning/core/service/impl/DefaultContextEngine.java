@@ -8,10 +8,20 @@ import com.ailearning.core.model.CodeReference;
 import com.ailearning.core.model.ContextEngineMetrics;
 import com.ailearning.core.model.ast.ASTNode;
 import com.ailearning.core.model.ast.ParseResult;
+import com.ailearning.core.service.CacheService;
 import com.ailearning.core.service.ContextEngine;
+import com.ailearning.core.service.PerformanceMonitoringService;
 import com.ailearning.core.service.SemanticAnalyzer;
+import com.ailearning.core.service.ast.ASTBinaryCodec;
 import com.ailearning.core.service.ast.ASTParser;
+import com.ailearning.core.service.ast.DependencyGraphBuilder;
+import com.ailearning.core.service.ast.PersistentASTIndex;
+import com.ailearning.core.service.ast.ReachabilityIndex;
+import com.ailearning.core.service.semantic.impl.ConventionLearner;
 import com.ailearning.core.service.semantic.impl.DefaultSemanticAnalyzer;
+import com.ailearning.core.service.semantic.impl.EmbeddingIndex;
+import com.ailearning.core.service.semantic.impl.RelationshipIndex;
+import com.ailearning.core.service.semantic.impl.SimilarCodeIndex;
 import com.ailearning.core.service.ast.impl.MultiLanguageASTParser;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -23,6 +33,7 @@ import java.nio.file.Paths;
 import java.util.*;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeoutException;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.stream.Collectors;
@@ -36,11 +47,27 @@ public class DefaultContextEngine implements ContextEngine {
     
     private static final Logger logger = LoggerFactory.getLogger(DefaultContextEngine.class);
     
+    private static final String AST_CACHE_PREFIX = "ast:";
+    private static final int MAX_RELATED_RESULTS = 20;
+    
     private final ASTParser astParser;
+    private final DependencyGraphBuilder dependencyGraphBuilder;
+    private final ReachabilityIndex reachabilityIndex;
     private final SemanticAnalyzer semanticAnalyzer;
+    private final CacheService cacheService;
+    private final PerformanceMonitoringService performanceMonitoring;
     private final Map<String, ProjectContext> projectContextCache;
     private final Map<String, ASTNode> astCache;
+    // Content hash of each cached tree, and the file cached with each content
+    private final Map<String, String> astContentHashes;
+    private final Map<String, String> astPathsByContent;
+    private final Set<String> overBudgetFiles;
     private final AtomicBoolean isReady;
+    private volatile PersistentASTIndex persistentIndex;
+    private volatile SimilarCodeIndex similarCodeIndex;
+    private volatile EmbeddingIndex embeddingIndex;
+    private volatile RelationshipIndex relationshipIndex;
+    private volatile ConventionLearner conventionLearner;
     
     // Performance tracking
     private final AtomicLong totalAnalysisTime;
@@ -49,10 +76,48 @@ public class DefaultContextEngine implements ContextEngine {
     private final AtomicLong updateCount;
     
     public DefaultContextEngine() {
-        this.astParser = new MultiLanguageASTParser();
-        this.semanticAnalyzer = new DefaultSemanticAnalyzer();
+        this(new SimilarCodeIndex(), new EmbeddingIndex(), new RelationshipIndex(), new ConventionLearner());
+    }
+    
+    private DefaultContextEngine(SimilarCodeIndex similarCodeIndex, EmbeddingIndex embeddingIndex,
+                                 RelationshipIndex relationshipIndex, ConventionLearner conventionLearner) {
+        this(MultiLanguageASTParser.shared(), new DependencyGraphBuilder(),
+                semanticAnalyzer(similarCodeIndex, embeddingIndex, relationshipIndex, conventionLearner),
+                new DefaultCacheService(), new DefaultPerformanceMonitoringService());
+        this.similarCodeIndex = similarCodeIndex;
+        this.embeddingIndex = embeddingIndex;
+        this.relationshipIndex = relationshipIndex;
+        this.conventionLearner = conventionLearner;
+    }
+    
+    private static DefaultSemanticAnalyzer semanticAnalyzer(SimilarCodeIndex similarCodeIndex,
+                                                            EmbeddingIndex embeddingIndex,
+                                                            RelationshipIndex relationshipIndex,
+                                                            ConventionLearner conventionLearner) {
+        DefaultSemanticAnalyzer analyzer = new DefaultSemanticAnalyzer();
+        analyzer.setSimilarCodeIndex(similarCodeIndex);
+        analyzer.setEmbeddingIndex(embeddingIndex);
+        analyzer.setRelationshipIndex(relationshipIndex);
+        analyzer.setConventionLearner(conventionLearner);
+        return analyzer;
+    }
+    
+    public DefaultContextEngine(ASTParser astParser,
+                                DependencyGraphBuilder dependencyGraphBuilder,
+                                SemanticAnalyzer semanticAnalyzer,
+                                CacheService cacheService,
+                                PerformanceMonitoringService performanceMonitoring) {
+        this.astParser = Objects.requireNonNull(astParser, "AST parser cannot be null");
+        this.dependencyGraphBuilder = Objects.requireNonNull(dependencyGraphBuilder, "Dependency graph builder cannot be null");
+        this.reachabilityIndex = new ReachabilityIndex(dependencyGraphBuilder);
+        this.semanticAnalyzer = Objects.requireNonNull(semanticAnalyzer, "Semantic analyzer cannot be null");
+        this.cacheService = Objects.requireNonNull(cacheService, "Cache service cannot be null");
+        this.performanceMonitoring = Objects.requireNonNull(performanceMonitoring, "Performance monitoring cannot be null");
         this.projectContextCache = new ConcurrentHashMap<>();
         this.astCache = new ConcurrentHashMap<>();
+        this.astContentHashes = new ConcurrentHashMap<>();
+        this.astPathsByContent = new ConcurrentHashMap<>();
+        this.overBudgetFiles = ConcurrentHashMap.newKeySet();
         this.isReady = new AtomicBoolean(true);
         this.totalAnalysisTime = new AtomicLong(0);
         this.totalUpdateTime = new AtomicLong(0);
@@ -62,6 +127,60 @@ public class DefaultContextEngine implements ContextEngine {
         logger.info("Initialized DefaultContextEngine with multi-language AST parsing and semantic analysis");
     }
     
+    /**
+     * Enables the on-disk AST index. Parsed trees are then stored across
+     * restarts and reused for any file whose content has not changed.
+     *
+     * @param persistentIndex the index to use, or null to disable it
+     */
+    public void setPersistentIndex(PersistentASTIndex persistentIndex) {
+        this.persistentIndex = persistentIndex;
+    }
+    
+    /**
+     * Keeps a similar-code index current with the parsed files. Every cached
+     * tree is indexed, and evicted files are removed from the index.
+     *
+     * @param similarCodeIndex the index to maintain, or null to stop maintaining one
+     */
+    public void setSimilarCodeIndex(SimilarCodeIndex similarCodeIndex) {
+        this.similarCodeIndex = similarCodeIndex;
+    }
+    
+    /**
+     * Keeps an embedding index current with the parsed files and answers
+     * {@link #findRelatedCode} from it. Every cached tree is embedded, and
+     * evicted files are removed from the index.
+     *
+     * @param embeddingIndex the index to maintain, or null to search the cached trees directly
+     */
+    public void setEmbeddingIndex(EmbeddingIndex embeddingIndex) {
+        this.embeddingIndex = embeddingIndex;
+    }
+    
+    /**
+     * Keeps a relationship index current with the parsed files, so relationship
+     * queries on cached trees are lookups. Every cached tree is indexed, and
+     * evicted files are removed from the index.
+     *
+     * @param relationshipIndex the index to maintain, or null to stop maintaining one
+     */
+    public void setRelationshipIndex(RelationshipIndex relationshipIndex) {
+        this.relationshipIndex = relationshipIndex;
+    }
+    
+    /**
+     * Feeds every parsed file, with its text, to a convention learner, so
+     * conventions are learned while the project is indexed rather than in a
+     * second pass. A reparsed or reloaded file replaces its earlier counts,
+     * and evicted files are forgotten.
+     *
+     * @param conventionLearner the learner to feed, or null to stop feeding one
+     */
+    public void setConventionLearner(ConventionLearner conventionLearner) {
+        this.conventionLearner = conventionLearner;
+    }
+    
     @Override
     public CompletableFuture<ProjectContext> analyzeProject(String projectPath) {
         return CompletableFuture.supplyAsync(() -> {
@@ -161,12 +280,22 @@ public class DefaultContextEngine implements ContextEngine {
         });
     }
     
+    /**
+     * Finds code related to a query. With an embedding index this is a
+     * nearest-neighbor search over embedded classes and methods; otherwise
+     * every cached tree is matched against the query text.
+     */
     @Override
     public CompletableFuture<List<CodeReference>> findRelatedCode(CodeQuery query) {
         return CompletableFuture.supplyAsync(() -> {
             logger.debug("Finding related code for query: {}", query.getQuery());
             
             try {
+                EmbeddingIndex index = embeddingIndex;
+                if (index != null && index.size() > 0) {
+                    return findRelatedByEmbedding(index, query);
+                }
+                
                 List<CodeReference> references = new ArrayList<>();
                 
                 // Search through AST cache for related code
@@ -193,7 +322,7 @@ public class DefaultContextEngine implements ContextEngine {
                 
                 // Limit results to top 20
                 return references.stream()
-                        .limit(20)
+                        .limit(MAX_RELATED_RESULTS)
                         .collect(Collectors.toList());
                 
             } catch (Exception e) {
@@ -203,6 +332,63 @@ public class DefaultContextEngine implements ContextEngine {
         });
     }
     
+    /**
+     * Answers a query from the embedding index. Matches loaded from disk whose
+     * file has not been parsed in this session are described by name alone.
+     */
+    private List<CodeReference> findRelatedByEmbedding(EmbeddingIndex index, CodeQuery query) {
+        List<CodeReference> references = new ArrayList<>();
+        for (EmbeddingIndex.Match match : index.findRelated(query.getQuery(), MAX_RELATED_RESULTS)) {
+            if (match.getSimilarity() <= 0.0) {
+                continue;
+            }
+            String snippet = match.getNode() != null
+                    ? extractCodeSnippet(match.getNode())
+                    : match.getNodeType() + " " + match.getName();
+            references.add(CodeReference.builder()
+                    .filePath(match.getFilePath())
+                    .lineNumber(match.getLine())
+                    .columnNumber(match.getColumn())
+                    .snippet(snippet)
+                    .relevanceScore(Math.min(1.0, match.getSimilarity()))
+                    .build());
+        }
+        return references;
+    }
+    
+    /**
+     * Gets the live dependency graph of every file this engine has parsed.
+     * The graph is kept current by per-file deltas as changes arrive.
+     *
+     * @return snapshot of the current dependency graph
+     */
+    public DependencyGraphBuilder.DependencyGraph getDependencyGraph() {
+        return dependencyGraphBuilder.getLiveGraph();
+    }
+    
+    /**
+     * Gets the transitive impact index over the live dependency graph, for
+     * questions such as which nodes are affected when a type changes.
+     *
+     * @return the reachability index kept in step with the dependency graph
+     */
+    public ReachabilityIndex getReachabilityIndex() {
+        return reachabilityIndex;
+    }
+
+    /**
+     * Looks the content up by hash among the trees cached for parsed files.
+     */
+    @Override
+    public Optional<ASTNode> getCachedAst(String content) {
+        String contentHash = PersistentASTIndex.hashContent(content);
+        String path = astPathsByContent.get(contentHash);
+        if (path == null || !contentHash.equals(astContentHashes.get(path))) {
+            return Optional.empty();
+        }
+        return Optional.ofNullable(astCache.get(path));
+    }
+    
     @Override
     public boolean isReady() {
         return isReady.get();
@@ -227,6 +413,16 @@ public class DefaultContextEngine implements ContextEngine {
                 .build();
     }
     
+    /**
+     * Gets the files that exceeded the parser's size or time budget.
+     * Operators can use this list to exclude generated or minified sources.
+     * 
+     * @return immutable snapshot of over-budget file paths
+     */
+    public Set<String> getOverBudgetFiles() {
+        return Set.copyOf(overBudgetFiles);
+    }
+    
     /**
      * Analyzes the project structure and populates the context builder.
      */
@@ -273,25 +469,173 @@ public class DefaultContextEngine implements ContextEngine {
     
     /**
      * Parses a single file and caches its AST.
+     * Every cached tree is also applied to the dependency graph as a per-file delta.
+     * <p>
+     * Before parsing, encoded trees are looked up in the shared
+     * {@link CacheService} and then in the optional {@link PersistentASTIndex}.
+     * Both are keyed by content hash, so an edited file always misses and is reparsed.
      */
-    private void parseAndCacheFile(Path filePath) {
+    private boolean parseAndCacheFile(Path filePath) {
+        long startTime = System.currentTimeMillis();
         try {
             String content = Files.readString(filePath);
-            String language = detectLanguage(filePath.toString());
+            String path = filePath.toString();
+            String contentHash = PersistentASTIndex.hashContent(content);
+            String cacheKey = AST_CACHE_PREFIX + path + ":" + contentHash;
+            
+            ASTNode cached = loadEncodedAst(path, cacheKey, contentHash);
+            if (cached != null) {
+                cacheAst(path, cached, content, contentHash);
+                overBudgetFiles.remove(path);
+                return true;
+            }
             
-            CompletableFuture<ParseResult> parseResult = astParser.parseCode(content, language, filePath.toString());
-            ParseResult result = parseResult.get();
+            String language = detectLanguage(path);
+            CompletableFuture<ParseResult> parseResult = astParser.parseCode(content, language, path);
+            ParseResult result = astParser.getParseBudget().startWait().await(parseResult);
             
-            if (result.isSuccessful() && result.getAst() != null) {
-                astCache.put(filePath.toString(), result.getAst());
-                logger.debug("Cached AST for file: {}", filePath);
+            if (result.getMetrics().isOverBudget()) {
+                overBudgetFiles.add(path);
             } else {
-                logger.warn("Failed to parse file: {}", filePath);
+                overBudgetFiles.remove(path);
             }
             
+            if (result.hasRootNode() && (result.isSuccessful() || result.isPartial())) {
+                cacheAst(path, result.getRootNode(), content, contentHash);
+                logger.debug("Cached {} AST for file: {}", result.getStatus(), filePath);
+                // Partial trees are cheap to recompute relative to their value and
+                // would otherwise hide a later successful parse of the same content
+                if (result.isSuccessful()) {
+                    storeEncodedAst(path, cacheKey, contentHash, result.getRootNode());
+                }
+                recordAstLoad("parse", startTime);
+                return true;
+            }
+            logger.warn("Failed to parse file: {}", filePath);
+            recordAstLoad("parse", startTime);
+            
+        } catch (TimeoutException e) {
+            overBudgetFiles.add(filePath.toString());
+            logger.warn("Timed out waiting for parse of {}, skipping", filePath);
         } catch (Exception e) {
             logger.error("Failed to parse and cache file: {}", filePath, e);
         }
+        return false;
+    }
+    
+    /**
+     * Caches a file's AST and applies the change to the live dependency graph
+     * and the similar-code, embedding and relationship indexes, and feeds the
+     * file to the convention learner.
+     */
+    private void cacheAst(String path, ASTNode root, String content, String contentHash) {
+        ASTNode previous = astCache.put(path, root);
+        String previousHash = astContentHashes.put(path, contentHash);
+        if (previousHash != null) {
+            astPathsByContent.remove(previousHash, path);
+        }
+        astPathsByContent.put(contentHash, path);
+        dependencyGraphBuilder.applyFileDelta(path, previous, root);
+        SimilarCodeIndex index = similarCodeIndex;
+        if (index != null) {
+            index.indexFile(path, root);
+        }
+        EmbeddingIndex embeddings = embeddingIndex;
+        if (embeddings != null) {
+            embeddings.indexFile(path, root);
+        }
+        RelationshipIndex relationships = relationshipIndex;
+        if (relationships != null) {
+            relationships.indexFile(path, root);
+        }
+        ConventionLearner conventions = conventionLearner;
+        if (conventions != null) {
+            conventions.accept(path, root, content);
+        }
+    }
+    
+    /**
+     * Drops a file's AST, removes its nodes from the live dependency graph
+     * and the similar-code, embedding and relationship indexes, and takes its
+     * counts out of the convention learner.
+     */
+    private void evictAst(String path) {
+        ASTNode previous = astCache.remove(path);
+        String previousHash = astContentHashes.remove(path);
+        if (previousHash != null) {
+            astPathsByContent.remove(previousHash, path);
+        }
+        if (previous != null) {
+            dependencyGraphBuilder.applyFileDelta(path, previous, null);
+            SimilarCodeIndex index = similarCodeIndex;
+            if (index != null) {
+                index.removeFile(path);
+            }
+            EmbeddingIndex embeddings = embeddingIndex;
+            if (embeddings != null) {
+                embeddings.removeFile(path);
+            }
+            RelationshipIndex relationships = relationshipIndex;
+            if (relationships != null) {
+                relationships.removeFile(path);
+            }
+            ConventionLearner conventions = conventionLearner;
+            if (conventions != null) {
+                conventions.forget(path);
+            }
+        }
+    }
+    
+    /**
+     * Loads a previously encoded AST from the shared cache or the persistent index.
+     *
+     * @return the decoded tree, or null on a miss
+     */
+    private ASTNode loadEncodedAst(String path, String cacheKey, String contentHash) {
+        long startTime = System.currentTimeMillis();
+        Optional<byte[]> encoded = cacheService.get(cacheKey);
+        if (encoded.isPresent()) {
+            try {
+                ASTNode root = ASTBinaryCodec.decode(encoded.get());
+                recordAstLoad("cache", startTime);
+                return root;
+            } catch (ASTBinaryCodec.ASTCodecException e) {
+                logger.warn("Discarding undecodable cached AST for {}: {}", path, e.getMessage());
+                cacheService.remove(cacheKey);
+            }
+        }
+        
+        PersistentASTIndex index = persistentIndex;
+        if (index != null) {
+            Optional<ASTNode> stored = index.load(path, contentHash);
+            if (stored.isPresent()) {
+                cacheService.put(cacheKey, ASTBinaryCodec.encode(stored.get()));
+                recordAstLoad("index", startTime);
+                return stored.get();
+            }
+        }
+        return null;
+    }
+    
+    /**
+     * Stores a freshly parsed AST in the shared cache and the persistent index.
+     */
+    private void storeEncodedAst(String path, String cacheKey, String contentHash, ASTNode root) {
+        try {
+            byte[] encoded = ASTBinaryCodec.encode(root);
+            cacheService.put(cacheKey, encoded);
+            PersistentASTIndex index = persistentIndex;
+            if (index != null) {
+                index.store(path, contentHash, root);
+            }
+        } catch (ASTBinaryCodec.ASTCodecException e) {
+            logger.debug("AST for {} cannot be encoded, keeping it in memory only: {}", path, e.getMessage());
+        }
+    }
+    
+    private void recordAstLoad(String source, long startTime) {
+        performanceMonitoring.recordResponseTime("context.ast.load",
+                System.currentTimeMillis() - startTime, Map.of("source", source));
     }
     
     /**
@@ -300,13 +644,11 @@ public class DefaultContextEngine implements ContextEngine {
     private void updateContextForChange(CodeChange change) {
         String filePath = change.getFilePath();
         
-        // Remove old AST from cache
-        astCache.remove(filePath);
-        
-        // Parse updated file if it still exists
+        // Reparse in place so the dependency graph sees an old-to-new delta;
+        // deleted or unparseable files are evicted as before
         Path path = Paths.get(filePath);
-        if (Files.exists(path)) {
-            parseAndCacheFile(path);
+        if (!Files.exists(path) || !parseAndCacheFile(path)) {
+            evictAst(filePath);
         }
         
         // Invalidate related project context cache
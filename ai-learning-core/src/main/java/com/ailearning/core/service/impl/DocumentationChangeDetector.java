@@ -3,6 +3,7 @@ package com.ailearning.core.service.impl;
 import com.ailearning.core.model.*;
 import com.ailearning.core.model.ast.*;
 import com.ailearning.core.service.ast.ASTParser;
+import com.ailearning.core.service.semantic.StringSimilarity;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -18,6 +19,9 @@ public class DocumentationChangeDetector {
     
     private static final Logger logger = LoggerFactory.getLogger(DocumentationChangeDetector.class);
     
+    // Element bodies less similar than this (by edit distance) count as significant changes
+    private static final double MIN_CONTENT_SIMILARITY = 0.8;
+    
     private final ASTParser astParser;
     
     public DocumentationChangeDetector(ASTParser astParser) {
@@ -42,7 +46,14 @@ public class DocumentationChangeDetector {
                 logger.warn("Failed to parse code for change detection: {}", filePath);
                 return changes;
             }
-            
+
+            // Edits that only move code around (whitespace, blank lines) leave the tree
+            // structurally unchanged and cannot affect documentation
+            if (oldParseResult.getRootNode().structurallyEquals(newParseResult.getRootNode())) {
+                logger.debug("No structural changes in file: {}", filePath);
+                return changes;
+            }
+
             // Extract elements from both versions
             Map<String, CodeElement> oldElements = extractCodeElements(oldParseResult.getRootNode());
             Map<String, CodeElement> newElements = extractCodeElements(newParseResult.getRootNode());
@@ -175,24 +186,17 @@ public class DocumentationChangeDetector {
         Map<String, CodeElement> elements = new HashMap<>();
         
         if (rootNode != null) {
-            extractElementsRecursively(rootNode, elements);
+            ASTTraversal.walk(rootNode, TraversalVisitor.of(node -> {
+                if (isDocumentableElement(node)) {
+                    CodeElement element = createCodeElement(node);
+                    elements.put(generateElementKey(element), element);
+                }
+            }));
         }
         
         return elements;
     }
     
-    private void extractElementsRecursively(ASTNode node, Map<String, CodeElement> elements) {
-        if (isDocumentableElement(node)) {
-            CodeElement element = createCodeElement(node);
-            String key = generateElementKey(element);
-            elements.put(key, element);
-        }
-        
-        for (ASTNode child : node.getChildren()) {
-            extractElementsRecursively(child, elements);
-        }
-    }
-    
     private boolean isDocumentableElement(ASTNode node) {
         return node.getNodeType() == ASTNode.NodeType.CLASS ||
                node.getNodeType() == ASTNode.NodeType.METHOD ||
@@ -313,32 +317,13 @@ public class DocumentationChangeDetector {
         String newContent = newElement.getContent();
         
         if (oldContent != null && newContent != null) {
-            double similarity = calculateSimilarity(oldContent, newContent);
-            return similarity < 0.8; // Less than 80% similar
+            // Less than 80% similar; the bounded distance stops once that is certain
+            return !StringSimilarity.isSimilar(oldContent, newContent, MIN_CONTENT_SIMILARITY);
         }
         
         return false;
     }
     
-    private double calculateSimilarity(String text1, String text2) {
-        // Simple similarity calculation - in practice would use more sophisticated algorithms
-        if (text1.equals(text2)) return 1.0;
-        
-        int maxLength = Math.max(text1.length(), text2.length());
-        if (maxLength == 0) return 1.0;
-        
-        int commonChars = 0;
-        int minLength = Math.min(text1.length(), text2.length());
-        
-        for (int i = 0; i < minLength; i++) {
-            if (text1.charAt(i) == text2.charAt(i)) {
-                commonChars++;
-            }
-        }
-        
-        return (double) commonChars / maxLength;
-    }
-    
     private List<DocumentationChangeEvent> detectSignatureChanges(Map<String, CodeElement> oldElements,
                                                                 Map<String, CodeElement> newElements,
                                                                 String filePath) {
@@ -707,7 +707,7 @@ public class IntelligentSuggestionEngine {
             List<Suggestion> suggestions = new ArrayList<>();
             
             // Suggest learning based on code complexity
-            if (analysisResult.getComplexity().getCyclomaticComplexity() > 15) {
+            if (analysisResult.getComplexityMetrics().getCyclomaticComplexity() > 15) {
                 suggestions.add(Suggestion.learning(
                         "Learn Refactoring Techniques",
                         "Your code has high complexity. Learn refactoring techniques to improve maintainability",
@@ -718,7 +718,8 @@ public class IntelligentSuggestionEngine {
             }
             
             // Suggest learning based on security issues
-            if (!analysisResult.getSecurityIssues().isEmpty()) {
+            if (analysisResult.getIssues().stream()
+                    .anyMatch(issue -> issue.getCategory() == CodeIssue.Category.SECURITY)) {
                 suggestions.add(Suggestion.learning(
                         "Learn Secure Coding Practices",
                         "Security issues detected. Learn about secure coding practices and OWASP guidelines",
@@ -0,0 +1,1154 @@
+package com.ailearning.core.service.impl;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.IntPredicate;
+import java.util.regex.MatchResult;
+import java.util.regex.Pattern;
+
+/**
+ * Linear-time search for the subset of {@link Pattern} syntax analyzer rules
+ * use: literals, character classes, groups, alternation, greedy and lazy
+ * quantifiers, {@code ^}, {@code $} and word boundaries, with the
+ * CASE_INSENSITIVE and DOTALL flags.
+ * <p>
+ * The pattern compiles to a Thompson NFA whose state sets are cached as a
+ * lazily built DFA, so {@link #find} costs one table lookup per ASCII
+ * character however the pattern would backtrack. It answers whether the
+ * pattern is found in a region, which for this subset is exactly what
+ * {@link java.util.regex.Matcher#find()} decides: there are no
+ * backreferences, lookaround or possessive quantifiers whose outcome depends
+ * on match order. Where the pattern is found, {@link #match} reports the
+ * match itself by running the NFA with its threads in the order backtracking
+ * would try them, which yields the same span and groups in time linear in the
+ * region. Patterns outside the subset are rejected at compile time, and
+ * regions containing surrogates are left undecided for the caller to search
+ * with the backtracking matcher.
+ * <p>
+ * Thread-safe. Searches read the transition table without locking, treating
+ * entries not yet visible as missing, and lock only to add transitions.
+ */
+final class LinearRegex {
+
+    static final int NO_MATCH = 0;
+    static final int MATCH = 1;
+    // The region has surrogates, where Matcher also tries matches starting inside a pair,
+    // or a non-spacing mark, whose word-boundary handling is not modelled
+    static final int UNDECIDED = -1;
+
+    private static final int MAX_NFA_STATES = 10_000;
+    private static final int MAX_DFA_STATES = 1_024;
+    private static final int MAX_REPEAT = 1_000;
+    private static final int INFINITE = -1;
+
+    // NFA state kinds
+    private static final int CHAR = 0;
+    private static final int SPLIT = 1;
+    private static final int ASSERT = 2;
+    private static final int ACCEPT = 3;
+    // Records the position in a group slot; empty for the DFA
+    private static final int SAVE = 4;
+
+    // Zero-width assertions
+    private static final int BEGIN = 0;
+    private static final int END = 1;
+    private static final int BOUNDARY = 2;
+    private static final int NON_BOUNDARY = 3;
+
+    // What precedes a position
+    private static final int AT_START = 0;
+    private static final int AFTER_NON_WORD = 1;
+    private static final int AFTER_WORD = 2;
+
+    // Transition results besides a DFA state index
+    private static final int FOUND = -1;
+    private static final int OVERFLOW = -2;
+
+    private final Pattern pattern;
+    private final int[] kinds;
+    private final int[] args;
+    private final int[] nexts;
+    private final int[][] splits;
+    private final IntPredicate[] predicates;
+    private final int start;
+    private final boolean hasEnd;
+    private final boolean hasBoundary;
+    private final int groupCount;
+    // False where the groups java.util.regex reports depend on how it bounds empty loops
+    private final boolean matchable;
+
+    // Rows of 128 ASCII transitions; 0 is not computed, FOUND a match, otherwise the state plus one
+    private final int[][] table = new int[MAX_DFA_STATES][];
+    // Whether each state accepts at the end of the region; 0 is not computed
+    private final int[] endResults = new int[MAX_DFA_STATES];
+    private final List<int[]> kernels = new ArrayList<>();
+    private final int[] previousKinds = new int[MAX_DFA_STATES];
+    private final Map<StateKey, Integer> stateIndex = new HashMap<>();
+    private final Scratch scratch;
+
+    private LinearRegex(Pattern pattern, NfaBuilder nfa, int start, boolean hasEnd, boolean hasBoundary,
+                        int groupCount, boolean matchable) {
+        this.pattern = pattern;
+        this.kinds = Arrays.copyOf(nfa.kinds, nfa.size);
+        this.args = Arrays.copyOf(nfa.args, nfa.size);
+        this.nexts = Arrays.copyOf(nfa.nexts, nfa.size);
+        this.splits = Arrays.copyOf(nfa.splits, nfa.size);
+        this.predicates = nfa.predicates.toArray(new IntPredicate[0]);
+        this.start = start;
+        this.hasEnd = hasEnd;
+        this.hasBoundary = hasBoundary;
+        this.groupCount = groupCount;
+        this.matchable = matchable;
+        this.scratch = new Scratch(nfa.size);
+        intern(new int[0], AT_START);
+    }
+
+    /**
+     * Compiles a pattern, or returns null if it uses syntax or flags outside the supported subset.
+     */
+    static LinearRegex compile(Pattern pattern) {
+        int flags = pattern.flags();
+        if ((flags & ~(Pattern.CASE_INSENSITIVE | Pattern.DOTALL)) != 0) {
+            return null;
+        }
+        try {
+            Parser parser = new Parser(pattern.pattern(), (flags & Pattern.CASE_INSENSITIVE) != 0,
+                    (flags & Pattern.DOTALL) != 0);
+            Node root = parser.parse();
+            NfaBuilder nfa = new NfaBuilder();
+            int accept = nfa.add(ACCEPT, 0, -1);
+            int start = root.compile(nfa, accept);
+            if (parser.groupCount != pattern.matcher("").groupCount()) {
+                return null;
+            }
+            return new LinearRegex(pattern, nfa, start, parser.hasEnd, parser.hasBoundary, parser.groupCount,
+                    !parser.emptyRepeatCaptures);
+        } catch (UnsupportedSyntax | IndexOutOfBoundsException | IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    Pattern pattern() {
+        return pattern;
+    }
+
+    synchronized int dfaStates() {
+        return kernels.size();
+    }
+
+    /**
+     * Searches a region with the opaque, anchoring bounds of a default {@link java.util.regex.Matcher}.
+     *
+     * @return {@link #MATCH}, {@link #NO_MATCH} or {@link #UNDECIDED}
+     */
+    int find(String text, int from, int to) {
+        int state = 0;
+        int i = from;
+        while (i < to) {
+            char c = text.charAt(i);
+            boolean nearEnd = hasEnd && i >= to - 2;
+            int[] row;
+            int entry = c < 128 && !nearEnd && (row = table[state]) != null ? row[c] : 0;
+            int target;
+            if (entry != 0) {
+                target = entry == FOUND ? FOUND : entry - 1;
+            } else {
+                if (undecided(c)) {
+                    return UNDECIDED;
+                }
+                target = transition(state, c, nearEnd && dollarAt(text, i, to), c < 128 && !nearEnd);
+                if (target == OVERFLOW) {
+                    return simulate(text, i, to, state);
+                }
+            }
+            if (target == FOUND) {
+                return MATCH;
+            }
+            state = target;
+            i++;
+        }
+        return acceptsAtEnd(state) ? MATCH : NO_MATCH;
+    }
+
+    /**
+     * Finds the match {@link java.util.regex.Matcher#find()} reports in a
+     * region with the same bounds: the leftmost match, and of the matches
+     * starting there the one backtracking reaches first, with its groups.
+     * <p>
+     * Threads are kept in the order backtracking would try them and at most
+     * one thread is kept per NFA state, the first to arrive, since a later
+     * one could only repeat what the earlier one does. A thread reaching the
+     * accepting state ends every thread after it. The cost is linear in the
+     * region for a fixed pattern, so it is meant for regions {@link #find}
+     * found a match in.
+     *
+     * @return the match, or null if there is none, the region reaches a
+     *         character left to the backtracking matcher while searching, or
+     *         a group may repeat without consuming characters
+     */
+    MatchResult match(String text, int from, int to) {
+        if (!matchable) {
+            return null;
+        }
+        int slotCount = 2 * (groupCount + 1);
+        Threads current = new Threads(kinds.length);
+        Threads next = new Threads(kinds.length);
+        int[] matched = null;
+        for (int i = from; ; i++) {
+            if (matched == null) {
+                // A match starting here ranks below every match starting earlier
+                int[] slots = new int[slotCount];
+                Arrays.fill(slots, -1);
+                slots[0] = i;
+                addThread(current, start, slots, text, from, to, i);
+            }
+            char c = i < to ? text.charAt(i) : 0;
+            if (i < to && current.count > 0 && undecided(c)) {
+                return null;
+            }
+            next.clear();
+            for (int t = 0; t < current.count; t++) {
+                int state = current.states[t];
+                if (kinds[state] == ACCEPT) {
+                    matched = current.slots[t].clone();
+                    matched[1] = i;
+                    break;
+                }
+                if (i < to && predicates[args[state]].test(c)) {
+                    addThread(next, nexts[state], current.slots[t], text, from, to, i + 1);
+                }
+            }
+            if (i == to || (matched != null && next.count == 0)) {
+                return matched != null ? new Match(text, matched) : null;
+            }
+            Threads swap = current;
+            current = next;
+            next = swap;
+        }
+    }
+
+    /**
+     * Adds a thread and the threads its empty transitions lead to, in the
+     * order backtracking would follow them, skipping states already in the list.
+     */
+    private void addThread(Threads list, int state, int[] slots, String text, int from, int to, int position) {
+        int previous = position == from ? AT_START
+                : isWord(text.charAt(position - 1)) ? AFTER_WORD : AFTER_NON_WORD;
+        boolean nextWord = position < to && isWord(text.charAt(position));
+        boolean dollar = position == to || (hasEnd && dollarAt(text, position, to));
+        list.push(state, slots);
+        while (list.top > 0) {
+            int current = list.stackStates[--list.top];
+            int[] currentSlots = list.stackSlots[list.top];
+            if (list.mark[current] == list.generation) {
+                continue;
+            }
+            list.mark[current] = list.generation;
+            switch (kinds[current]) {
+                case CHAR, ACCEPT -> list.add(current, currentSlots);
+                case SPLIT -> {
+                    int[] targets = splits[current];
+                    for (int k = targets.length - 1; k >= 0; k--) {
+                        list.push(targets[k], currentSlots);
+                    }
+                }
+                case SAVE -> {
+                    int[] saved = currentSlots.clone();
+                    saved[args[current]] = position;
+                    list.push(nexts[current], saved);
+                }
+                default -> {
+                    if (holds(args[current], previous, nextWord, dollar)) {
+                        list.push(nexts[current], currentSlots);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Continues a search without caching once the DFA is full.
+     */
+    private int simulate(String text, int i, int to, int state) {
+        int[] kernel;
+        int previous;
+        synchronized (this) {
+            kernel = kernels.get(state);
+            previous = previousKinds[state];
+        }
+        Scratch local = new Scratch(kinds.length);
+        while (i < to) {
+            char c = text.charAt(i);
+            if (undecided(c)) {
+                return UNDECIDED;
+            }
+            kernel = advance(local, kernel, previous, c, hasEnd && dollarAt(text, i, to));
+            if (kernel == null) {
+                return MATCH;
+            }
+            previous = kindOf(c);
+            i++;
+        }
+        return closure(local, kernel, previous, false, true) ? MATCH : NO_MATCH;
+    }
+
+    private synchronized int transition(int state, int codePoint, boolean dollar, boolean cacheable) {
+        int[] next = advance(scratch, kernels.get(state), previousKinds[state], codePoint, dollar);
+        int target = next == null ? FOUND : intern(next, kindOf(codePoint));
+        if (cacheable && target != OVERFLOW) {
+            int[] row = table[state];
+            if (row == null) {
+                row = new int[128];
+                table[state] = row;
+            }
+            row[codePoint] = target == FOUND ? FOUND : target + 1;
+        }
+        return target;
+    }
+
+    private boolean acceptsAtEnd(int state) {
+        int cached = endResults[state];
+        if (cached != 0) {
+            return cached == MATCH + 1;
+        }
+        synchronized (this) {
+            boolean accepted = closure(scratch, kernels.get(state), previousKinds[state], false, true);
+            endResults[state] = (accepted ? MATCH : NO_MATCH) + 1;
+            return accepted;
+        }
+    }
+
+    private int intern(int[] kernel, int previous) {
+        StateKey key = new StateKey(kernel, previous);
+        Integer index = stateIndex.get(key);
+        if (index != null) {
+            return index;
+        }
+        if (kernels.size() == MAX_DFA_STATES) {
+            return OVERFLOW;
+        }
+        kernels.add(kernel);
+        previousKinds[kernels.size() - 1] = previous;
+        stateIndex.put(key, kernels.size() - 1);
+        return kernels.size() - 1;
+    }
+
+    /**
+     * Steps the NFA over one code point.
+     *
+     * @return the states after the code point, or null if the accepting state was reached before it
+     */
+    private int[] advance(Scratch scratch, int[] kernel, int previous, int codePoint, boolean dollar) {
+        if (closure(scratch, kernel, previous, isWord(codePoint), dollar)) {
+            return null;
+        }
+        int generation = scratch.nextGeneration();
+        int count = 0;
+        for (int k = 0; k < scratch.charCount; k++) {
+            int state = scratch.chars[k];
+            if (predicates[args[state]].test(codePoint)) {
+                int next = nexts[state];
+                if (scratch.mark[next] != generation) {
+                    scratch.mark[next] = generation;
+                    scratch.buffer[count++] = next;
+                }
+            }
+        }
+        int[] next = Arrays.copyOf(scratch.buffer, count);
+        Arrays.sort(next);
+        return next;
+    }
+
+    /**
+     * Follows empty transitions from the kernel and the start state, leaving
+     * the character states reached in the scratch list.
+     *
+     * @return whether the accepting state was reached
+     */
+    private boolean closure(Scratch scratch, int[] kernel, int previous, boolean nextWord, boolean dollar) {
+        int generation = scratch.nextGeneration();
+        int[] mark = scratch.mark;
+        int[] stack = scratch.stack;
+        int top = 0;
+        scratch.charCount = 0;
+        for (int state : kernel) {
+            mark[state] = generation;
+            stack[top++] = state;
+        }
+        if (mark[start] != generation) {
+            mark[start] = generation;
+            stack[top++] = start;
+        }
+        boolean accepted = false;
+        while (top > 0) {
+            int state = stack[--top];
+            switch (kinds[state]) {
+                case CHAR -> scratch.chars[scratch.charCount++] = state;
+                case ACCEPT -> accepted = true;
+                case SAVE -> {
+                    int target = nexts[state];
+                    if (mark[target] != generation) {
+                        mark[target] = generation;
+                        stack[top++] = target;
+                    }
+                }
+                case SPLIT -> {
+                    for (int target : splits[state]) {
+                        if (mark[target] != generation) {
+                            mark[target] = generation;
+                            stack[top++] = target;
+                        }
+                    }
+                }
+                default -> {
+                    int target = nexts[state];
+                    if (holds(args[state], previous, nextWord, dollar) && mark[target] != generation) {
+                        mark[target] = generation;
+                        stack[top++] = target;
+                    }
+                }
+            }
+        }
+        return accepted;
+    }
+
+    private static boolean holds(int assertion, int previous, boolean nextWord, boolean dollar) {
+        return switch (assertion) {
+            case BEGIN -> previous == AT_START;
+            case END -> dollar;
+            case BOUNDARY -> (previous == AFTER_WORD) != nextWord;
+            default -> (previous == AFTER_WORD) == nextWord;
+        };
+    }
+
+    /**
+     * Whether {@code $} holds before index {@code i}, which is below {@code to}, as
+     * {@link java.util.regex.Matcher} decides it without MULTILINE.
+     */
+    private static boolean dollarAt(String text, int i, int to) {
+        if (i < to - 2) {
+            return false;
+        }
+        char c = text.charAt(i);
+        if (i == to - 2) {
+            return c == '\r' && text.charAt(i + 1) == '\n';
+        }
+        if (c == '\n') {
+            return !(i > 0 && text.charAt(i - 1) == '\r');
+        }
+        return c == '\r' || c == '\u0085' || (c | 1) == '\u2029';
+    }
+
+    private boolean undecided(char c) {
+        return c >= 128 && (Character.isSurrogate(c)
+                || (hasBoundary && Character.getType(c) == Character.NON_SPACING_MARK));
+    }
+
+    private int kindOf(int codePoint) {
+        // Word characters only matter to boundaries; merging them keeps the DFA small
+        return hasBoundary && isWord(codePoint) ? AFTER_WORD : AFTER_NON_WORD;
+    }
+
+    private static boolean isWord(int codePoint) {
+        return codePoint == '_' || Character.isLetterOrDigit(codePoint);
+    }
+
+    /**
+     * Per-thread working memory for closures.
+     */
+    private static final class Scratch {
+        final int[] mark;
+        final int[] stack;
+        final int[] chars;
+        final int[] buffer;
+        int charCount;
+        int generation;
+
+        Scratch(int size) {
+            this.mark = new int[size];
+            this.stack = new int[size];
+            this.chars = new int[size];
+            this.buffer = new int[size];
+        }
+
+        int nextGeneration() {
+            if (generation == Integer.MAX_VALUE) {
+                Arrays.fill(mark, 0);
+                generation = 0;
+            }
+            return ++generation;
+        }
+    }
+
+    /**
+     * The threads of one step of {@link #match}, in priority order.
+     */
+    private static final class Threads {
+        final int[] mark;
+        int generation = 1;
+        int[] states = new int[16];
+        int[][] slots = new int[16][];
+        int count;
+        int[] stackStates = new int[16];
+        int[][] stackSlots = new int[16][];
+        int top;
+
+        Threads(int size) {
+            this.mark = new int[size];
+        }
+
+        void clear() {
+            count = 0;
+            if (generation == Integer.MAX_VALUE) {
+                Arrays.fill(mark, 0);
+                generation = 0;
+            }
+            generation++;
+        }
+
+        void add(int state, int[] stateSlots) {
+            if (count == states.length) {
+                states = Arrays.copyOf(states, count * 2);
+                slots = Arrays.copyOf(slots, count * 2);
+            }
+            states[count] = state;
+            slots[count++] = stateSlots;
+        }
+
+        void push(int state, int[] stateSlots) {
+            if (top == stackStates.length) {
+                stackStates = Arrays.copyOf(stackStates, top * 2);
+                stackSlots = Arrays.copyOf(stackSlots, top * 2);
+            }
+            stackStates[top] = state;
+            stackSlots[top++] = stateSlots;
+        }
+    }
+
+    /**
+     * A match found by {@link #match}, as group start and end slots.
+     */
+    static final class Match implements MatchResult {
+        private final String text;
+        private final int[] slots;
+
+        Match(String text, int[] slots) {
+            this.text = text;
+            this.slots = slots;
+        }
+
+        @Override
+        public int start() {
+            return slots[0];
+        }
+
+        @Override
+        public int start(int group) {
+            return slots[2 * checked(group)];
+        }
+
+        @Override
+        public int end() {
+            return slots[1];
+        }
+
+        @Override
+        public int end(int group) {
+            return slots[2 * checked(group) + 1];
+        }
+
+        @Override
+        public String group() {
+            return group(0);
+        }
+
+        @Override
+        public String group(int group) {
+            int begin = start(group);
+            return begin < 0 ? null : text.substring(begin, end(group));
+        }
+
+        @Override
+        public int groupCount() {
+            return slots.length / 2 - 1;
+        }
+
+        private int checked(int group) {
+            if (group < 0 || group > groupCount()) {
+                throw new IndexOutOfBoundsException("No group " + group);
+            }
+            return group;
+        }
+    }
+
+    private static final class StateKey {
+        final int[] kernel;
+        final int previous;
+
+        StateKey(int[] kernel, int previous) {
+            this.kernel = kernel;
+            this.previous = previous;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof StateKey)) return false;
+            StateKey other = (StateKey) o;
+            return previous == other.previous && Arrays.equals(kernel, other.kernel);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * Arrays.hashCode(kernel) + previous;
+        }
+    }
+
+    private static final class NfaBuilder {
+        int[] kinds = new int[64];
+        int[] args = new int[64];
+        int[] nexts = new int[64];
+        int[][] splits = new int[64][];
+        final List<IntPredicate> predicates = new ArrayList<>();
+        int size;
+
+        int add(int kind, int arg, int next) {
+            if (size == MAX_NFA_STATES) {
+                throw new UnsupportedSyntax();
+            }
+            if (size == kinds.length) {
+                kinds = Arrays.copyOf(kinds, size * 2);
+                args = Arrays.copyOf(args, size * 2);
+                nexts = Arrays.copyOf(nexts, size * 2);
+                splits = Arrays.copyOf(splits, size * 2);
+            }
+            kinds[size] = kind;
+            args[size] = arg;
+            nexts[size] = next;
+            return size++;
+        }
+
+        int addChar(IntPredicate predicate, int next) {
+            predicates.add(predicate);
+            return add(CHAR, predicates.size() - 1, next);
+        }
+
+        int addSplit(int[] targets) {
+            int state = add(SPLIT, 0, -1);
+            splits[state] = targets;
+            return state;
+        }
+
+        void setSplit(int state, int[] targets) {
+            splits[state] = targets;
+        }
+    }
+
+    /**
+     * A parsed pattern node, compiled backwards from the state that follows it.
+     */
+    private interface Node {
+        int compile(NfaBuilder nfa, int out);
+
+        /**
+         * Checks whether the node can match without consuming a character.
+         */
+        boolean nullable();
+
+        /**
+         * Checks whether the node contains a capturing group.
+         */
+        boolean captures();
+    }
+
+    private static final class CharNode implements Node {
+        final IntPredicate predicate;
+
+        CharNode(IntPredicate predicate) {
+            this.predicate = predicate;
+        }
+
+        @Override
+        public int compile(NfaBuilder nfa, int out) {
+            return nfa.addChar(predicate, out);
+        }
+
+        @Override
+        public boolean nullable() {
+            return false;
+        }
+
+        @Override
+        public boolean captures() {
+            return false;
+        }
+    }
+
+    private static final class AssertNode implements Node {
+        final int assertion;
+
+        AssertNode(int assertion) {
+            this.assertion = assertion;
+        }
+
+        @Override
+        public int compile(NfaBuilder nfa, int out) {
+            return nfa.add(ASSERT, assertion, out);
+        }
+
+        @Override
+        public boolean nullable() {
+            return true;
+        }
+
+        @Override
+        public boolean captures() {
+            return false;
+        }
+    }
+
+    private static final class SequenceNode implements Node {
+        final List<Node> items;
+
+        SequenceNode(List<Node> items) {
+            this.items = items;
+        }
+
+        @Override
+        public int compile(NfaBuilder nfa, int out) {
+            int state = out;
+            for (int i = items.size() - 1; i >= 0; i--) {
+                state = items.get(i).compile(nfa, state);
+            }
+            return state;
+        }
+
+        @Override
+        public boolean nullable() {
+            return items.stream().allMatch(Node::nullable);
+        }
+
+        @Override
+        public boolean captures() {
+            return items.stream().anyMatch(Node::captures);
+        }
+    }
+
+    private static final class AlternationNode implements Node {
+        final List<Node> alternatives;
+
+        AlternationNode(List<Node> alternatives) {
+            this.alternatives = alternatives;
+        }
+
+        @Override
+        public int compile(NfaBuilder nfa, int out) {
+            int[] targets = new int[alternatives.size()];
+            for (int i = 0; i < targets.length; i++) {
+                targets[i] = alternatives.get(i).compile(nfa, out);
+            }
+            return nfa.addSplit(targets);
+        }
+
+        @Override
+        public boolean nullable() {
+            return alternatives.stream().anyMatch(Node::nullable);
+        }
+
+        @Override
+        public boolean captures() {
+            return alternatives.stream().anyMatch(Node::captures);
+        }
+    }
+
+    private static final class CaptureNode implements Node {
+        final int group;
+        final Node node;
+
+        CaptureNode(int group, Node node) {
+            this.group = group;
+            this.node = node;
+        }
+
+        @Override
+        public int compile(NfaBuilder nfa, int out) {
+            int close = nfa.add(SAVE, 2 * group + 1, out);
+            return nfa.add(SAVE, 2 * group, node.compile(nfa, close));
+        }
+
+        @Override
+        public boolean nullable() {
+            return node.nullable();
+        }
+
+        @Override
+        public boolean captures() {
+            return true;
+        }
+    }
+
+    private static final class RepeatNode implements Node {
+        final Node node;
+        final int min;
+        final int max;
+        final boolean lazy;
+
+        RepeatNode(Node node, int min, int max, boolean lazy) {
+            this.node = node;
+            this.min = min;
+            this.max = max;
+            this.lazy = lazy;
+        }
+
+        @Override
+        public int compile(NfaBuilder nfa, int out) {
+            int state = out;
+            if (max == INFINITE) {
+                int loop = nfa.addSplit(null);
+                int body = node.compile(nfa, loop);
+                nfa.setSplit(loop, order(body, out));
+                state = loop;
+            } else {
+                // Each optional copy may be followed by another or by what follows the repeat
+                for (int i = min; i < max; i++) {
+                    int body = node.compile(nfa, state);
+                    state = nfa.addSplit(order(body, out));
+                }
+            }
+            for (int i = 0; i < min; i++) {
+                state = node.compile(nfa, state);
+            }
+            return state;
+        }
+
+        @Override
+        public boolean nullable() {
+            return min == 0 || node.nullable();
+        }
+
+        @Override
+        public boolean captures() {
+            return node.captures();
+        }
+
+        /**
+         * Orders a repeat's choice as backtracking tries it: another copy first unless lazy.
+         */
+        private int[] order(int body, int out) {
+            return lazy ? new int[]{out, body} : new int[]{body, out};
+        }
+    }
+
+    /**
+     * Thrown for pattern syntax outside the supported subset.
+     */
+    private static final class UnsupportedSyntax extends RuntimeException {
+        UnsupportedSyntax() {
+            super(null, null, false, false);
+        }
+    }
+
+    /**
+     * Recursive-descent parser for the supported subset.
+     */
+    private static final class Parser {
+        private final String source;
+        private final boolean caseInsensitive;
+        private final boolean dotAll;
+        private int position;
+        boolean hasEnd;
+        boolean hasBoundary;
+        int groupCount;
+        boolean emptyRepeatCaptures;
+
+        Parser(String source, boolean caseInsensitive, boolean dotAll) {
+            this.source = source;
+            this.caseInsensitive = caseInsensitive;
+            this.dotAll = dotAll;
+        }
+
+        Node parse() {
+            Node root = parseAlternation();
+            if (position != source.length()) {
+                throw new UnsupportedSyntax();
+            }
+            return root;
+        }
+
+        private Node parseAlternation() {
+            List<Node> alternatives = new ArrayList<>();
+            alternatives.add(parseSequence());
+            while (position < source.length() && source.charAt(position) == '|') {
+                position++;
+                alternatives.add(parseSequence());
+            }
+            return alternatives.size() == 1 ? alternatives.get(0) : new AlternationNode(alternatives);
+        }
+
+        private Node parseSequence() {
+            List<Node> items = new ArrayList<>();
+            while (position < source.length() && source.charAt(position) != '|' && source.charAt(position) != ')') {
+                if (source.startsWith("\\Q", position)) {
+                    // A quantifier after a quoted run applies to its last character
+                    int end = source.indexOf("\\E", position + 2);
+                    String quoted = source.substring(position + 2, end < 0 ? source.length() : end);
+                    position = end < 0 ? source.length() : end + 2;
+                    for (int i = 0; i < quoted.length(); ) {
+                        int codePoint = quoted.codePointAt(i);
+                        i += Character.charCount(codePoint);
+                        Node literal = literal(codePoint);
+                        items.add(i < quoted.length() ? literal : parseQuantifier(literal));
+                    }
+                    continue;
+                }
+                items.add(parseQuantifier(parseAtom()));
+            }
+            return items.size() == 1 ? items.get(0) : new SequenceNode(items);
+        }
+
+        private Node parseAtom() {
+            char c = source.charAt(position++);
+            switch (c) {
+                case '(':
+                    return parseGroup();
+                case '[':
+                    return new CharNode(parseClass());
+                case '.':
+                    return new CharNode(dotAll ? codePoint -> true : codePoint -> !isLineTerminator(codePoint));
+                case '^':
+                    return new AssertNode(BEGIN);
+                case '$':
+                    hasEnd = true;
+                    return new AssertNode(END);
+                case '\\':
+                    return parseEscape();
+                case '*':
+                case '+':
+                case '?':
+                case '{':
+                    throw new UnsupportedSyntax();
+                default:
+                    position--;
+                    int codePoint = source.codePointAt(position);
+                    position += Character.charCount(codePoint);
+                    return literal(codePoint);
+            }
+        }
+
+        private Node parseGroup() {
+            int group = 0;
+            if (source.startsWith("?:", position)) {
+                position += 2;
+            } else if (source.startsWith("?<", position) && Character.isLetter(source.charAt(position + 2))) {
+                position = source.indexOf('>', position) + 1;
+                group = ++groupCount;
+            } else if (source.startsWith("?", position)) {
+                // Lookaround, atomic groups and inline flags
+                throw new UnsupportedSyntax();
+            } else {
+                group = ++groupCount;
+            }
+            Node inner = parseAlternation();
+            if (position >= source.length() || source.charAt(position) != ')') {
+                throw new UnsupportedSyntax();
+            }
+            position++;
+            return group > 0 ? new CaptureNode(group, inner) : inner;
+        }
+
+        private Node parseEscape() {
+            char c = source.charAt(position++);
+            switch (c) {
+                case 'b':
+                    hasBoundary = true;
+                    return new AssertNode(BOUNDARY);
+                case 'B':
+                    hasBoundary = true;
+                    return new AssertNode(NON_BOUNDARY);
+                case 'd':
+                case 'D':
+                case 's':
+                case 'S':
+                case 'w':
+                case 'W':
+                    return new CharNode(predefined(c));
+                default:
+                    return literal(escaped(c));
+            }
+        }
+
+        private IntPredicate parseClass() {
+            boolean negated = position < source.length() && source.charAt(position) == '^';
+            if (negated) {
+                position++;
+            }
+            if (source.charAt(position) == ']') {
+                throw new UnsupportedSyntax();
+            }
+            List<IntPredicate> members = new ArrayList<>();
+            while (true) {
+                char c = source.charAt(position);
+                if (c == ']') {
+                    position++;
+                    break;
+                }
+                if (c == '[' || source.startsWith("&&", position)) {
+                    throw new UnsupportedSyntax();
+                }
+                if (c == '\\' && "dDsSwW".indexOf(source.charAt(position + 1)) >= 0) {
+                    members.add(predefined(source.charAt(position + 1)));
+                    position += 2;
+                    continue;
+                }
+                int low = classCharacter();
+                if (source.charAt(position) == '-' && source.charAt(position + 1) != ']') {
+                    position++;
+                    int high = classCharacter();
+                    if (high < low) {
+                        throw new UnsupportedSyntax();
+                    }
+                    members.add(codePoint -> codePoint >= low && codePoint <= high);
+                } else {
+                    members.add(codePoint -> codePoint == low);
+                }
+            }
+            IntPredicate[] union = members.toArray(new IntPredicate[0]);
+            IntPredicate predicate = codePoint -> {
+                for (IntPredicate member : union) {
+                    if (member.test(codePoint)) {
+                        return true;
+                    }
+                }
+                return false;
+            };
+            if (caseInsensitive) {
+                predicate = foldCase(predicate);
+            }
+            return negated ? predicate.negate() : predicate;
+        }
+
+        private int classCharacter() {
+            char c = source.charAt(position);
+            if (c == '\\') {
+                position += 2;
+                char escape = source.charAt(position - 1);
+                if ("dDsSwW".indexOf(escape) >= 0) {
+                    throw new UnsupportedSyntax();
+                }
+                return escaped(escape);
+            }
+            int codePoint = source.codePointAt(position);
+            if (Character.isSupplementaryCodePoint(codePoint)) {
+                throw new UnsupportedSyntax();
+            }
+            position++;
+            return codePoint;
+        }
+
+        private Node parseQuantifier(Node atom) {
+            if (position >= source.length()) {
+                return atom;
+            }
+            int min;
+            int max;
+            switch (source.charAt(position)) {
+                case '*' -> { min = 0; max = INFINITE; position++; }
+                case '+' -> { min = 1; max = INFINITE; position++; }
+                case '?' -> { min = 0; max = 1; position++; }
+                case '{' -> {
+                    int close = source.indexOf('}', position);
+                    String[] bounds = source.substring(position + 1, close).split(",", -1);
+                    min = Integer.parseInt(bounds[0].trim());
+                    max = bounds.length == 1 ? min
+                            : bounds[1].trim().isEmpty() ? INFINITE : Integer.parseInt(bounds[1].trim());
+                    position = close + 1;
+                }
+                default -> {
+                    return atom;
+                }
+            }
+            if (atom instanceof AssertNode || min > MAX_REPEAT || max > MAX_REPEAT) {
+                throw new UnsupportedSyntax();
+            }
+            if (position < source.length() && source.charAt(position) == '+') {
+                // Possessive quantifiers can reject inputs the language would accept
+                throw new UnsupportedSyntax();
+            }
+            boolean lazy = position < source.length() && source.charAt(position) == '?';
+            if (lazy) {
+                position++;
+            }
+            if (atom.nullable() && atom.captures()) {
+                // java.util.regex records a group on an empty pass of a loop, which the NFA drops
+                emptyRepeatCaptures = true;
+            }
+            return new RepeatNode(atom, min, max, lazy);
+        }
+
+        private int escaped(char c) {
+            switch (c) {
+                case 't': return '\t';
+                case 'n': return '\n';
+                case 'r': return '\r';
+                case 'f': return '\f';
+                case 'a': return '\u0007';
+                case 'e': return '\u001B';
+                case 'x': return hex(2);
+                case 'u': return hex(4);
+                default:
+                    if (Character.isLetterOrDigit(c)) {
+                        // Backreferences, octal, control and property escapes
+                        throw new UnsupportedSyntax();
+                    }
+                    return c;
+            }
+        }
+
+        private int hex(int digits) {
+            int value = Integer.parseInt(source.substring(position, position + digits), 16);
+            position += digits;
+            return value;
+        }
+
+        private Node literal(int codePoint) {
+            if (Character.isSupplementaryCodePoint(codePoint)) {
+                // Searches run over UTF-16 units and leave surrogates to the backtracking matcher
+                throw new UnsupportedSyntax();
+            }
+            if (caseInsensitive && isAsciiLetter(codePoint)) {
+                int other = codePoint ^ 0x20;
+                return new CharNode(c -> c == codePoint || c == other);
+            }
+            return new CharNode(c -> c == codePoint);
+        }
+
+        private static IntPredicate predefined(char c) {
+            IntPredicate predicate = switch (Character.toLowerCase(c)) {
+                case 'd' -> codePoint -> codePoint >= '0' && codePoint <= '9';
+                case 's' -> codePoint -> codePoint == ' ' || (codePoint >= '\t' && codePoint <= '\r');
+                default -> codePoint -> codePoint == '_' || (codePoint >= '0' && codePoint <= '9')
+                        || isAsciiLetter(codePoint);
+            };
+            return Character.isUpperCase(c) ? predicate.negate() : predicate;
+        }
+
+        /**
+         * Case-insensitive matching folds US-ASCII letters only unless UNICODE_CASE is set.
+         */
+        private static IntPredicate foldCase(IntPredicate predicate) {
+            return codePoint -> predicate.test(codePoint)
+                    || (isAsciiLetter(codePoint) && predicate.test(codePoint ^ 0x20));
+        }
+
+        private static boolean isAsciiLetter(int codePoint) {
+            return (codePoint >= 'a' && codePoint <= 'z') || (codePoint >= 'A' && codePoint <= 'Z');
+        }
+
+        private static boolean isLineTerminator(int codePoint) {
+            return codePoint == '\n' || codePoint == '\r' || codePoint == '\u0085' || (codePoint | 1) == '\u2029';
+        }
+    }
+}
@@ -5,70 +5,102 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.util.*;
-import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
 /**
  * Performance analyzer for detecting performance bottlenecks and optimization opportunities.
  * Analyzes code for common performance anti-patterns and suggests improvements.
+ * <p>
+ * Line rules and the whole-file checks for algorithmic complexity and memory
+ * use run in the shared {@link RuleEngine}.
  */
 public class PerformanceAnalyzer {
     
     private static final Logger logger = LoggerFactory.getLogger(PerformanceAnalyzer.class);
     
-    private final Map<String, List<PerformanceRule>> performanceRules;
+    private final RuleEngine ruleEngine;
+    private final Map<String, PerformanceRule> performanceRules;
     
     public PerformanceAnalyzer() {
-        this.performanceRules = initializePerformanceRules();
+        this(new RuleEngine(engineRules()));
+    }
+    
+    public PerformanceAnalyzer(RuleEngine ruleEngine) {
+        this.ruleEngine = Objects.requireNonNull(ruleEngine, "Rule engine cannot be null");
+        this.performanceRules = new HashMap<>();
+        initializePerformanceRules().values().forEach(rules ->
+                rules.forEach(rule -> performanceRules.put(rule.id, rule)));
     }
     
     public List<Suggestion> analyzeSuggestions(String code, String language) {
+        return analyzeSuggestions(ruleEngine.scan(code, language));
+    }
+    
+    /**
+     * Builds the performance suggestions of a scan already run by the shared rule engine.
+     */
+    public List<Suggestion> analyzeSuggestions(RuleEngine.Scan scan) {
         List<Suggestion> suggestions = new ArrayList<>();
         
-        List<PerformanceRule> rules = performanceRules.getOrDefault(language.toLowerCase(), List.of());
-        
-        String[] lines = code.split("\n");
-        for (int i = 0; i < lines.length; i++) {
-            String line = lines[i];
-            int lineNumber = i + 1;
-            
-            for (PerformanceRule rule : rules) {
-                Matcher matcher = rule.pattern.matcher(line);
-                if (matcher.find()) {
-                    Suggestion suggestion = Suggestion.builder()
-                            .id(rule.id + "-" + lineNumber)
-                            .title(rule.title)
-                            .description(rule.description)
-                            .type(Suggestion.Type.PERFORMANCE)
-                            .priority(rule.priority)
-                            .category("Performance")
-                            .example(rule.example)
-                            .estimatedImpact(rule.estimatedImpact)
-                            .build();
-                    
-                    suggestions.add(suggestion);
-                    logger.debug("Performance suggestion: {} at line {}", rule.title, lineNumber);
-                }
+        for (RuleEngine.Hit hit : scan.getHits(RuleEngine.RuleGroup.PERFORMANCE)) {
+            PerformanceRule rule = performanceRules.get(hit.getRuleId());
+            if (rule == null) {
+                continue;
             }
+            Suggestion suggestion = Suggestion.builder()
+                    .id(rule.id + "-" + hit.getLine())
+                    .title(rule.title)
+                    .description(rule.description)
+                    .type(Suggestion.Type.PERFORMANCE)
+                    .priority(rule.priority)
+                    .category("Performance")
+                    .example(rule.example)
+                    .estimatedImpact(rule.estimatedImpact)
+                    .build();
+            
+            suggestions.add(suggestion);
+            logger.debug("Performance suggestion: {} at line {}", rule.title, hit.getLine());
         }
         
         // Add algorithmic complexity suggestions
-        suggestions.addAll(analyzeAlgorithmicComplexity(code, language));
+        suggestions.addAll(analyzeAlgorithmicComplexity(scan));
         
         // Add memory usage suggestions
-        suggestions.addAll(analyzeMemoryUsage(code, language));
+        suggestions.addAll(analyzeMemoryUsage(scan));
         
         return suggestions;
     }
     
-    private List<Suggestion> analyzeAlgorithmicComplexity(String code, String language) {
+    /**
+     * Gets the performance rules in the form the shared rule engine runs them.
+     * Whole-file checks follow the line rules.
+     */
+    static List<RuleEngine.Rule> engineRules() {
+        Map<PerformanceRule, Set<String>> languagesByRule = new LinkedHashMap<>();
+        initializePerformanceRules().forEach((language, rules) -> rules.forEach(rule ->
+                languagesByRule.computeIfAbsent(rule, key -> new HashSet<>()).add(language)));
+        List<RuleEngine.Rule> engineRules = new ArrayList<>();
+        languagesByRule.forEach((rule, languages) -> engineRules.add(RuleEngine.Rule.line(
+                rule.id, RuleEngine.RuleGroup.PERFORMANCE, languages, rule.pattern, rule.literals)));
+        
+        // Nested loops (potential O(n²) or worse)
+        engineRules.add(RuleEngine.Rule.document("nested-loops", RuleEngine.RuleGroup.PERFORMANCE, Set.of(),
+                Pattern.compile("for\\s*\\([^}]*\\{[^}]*for\\s*\\(", Pattern.DOTALL), "for"));
+        engineRules.add(RuleEngine.Rule.document("string-concatenation", RuleEngine.RuleGroup.PERFORMANCE,
+                Set.of("java"), Pattern.compile("String\\s+\\w+\\s*=\\s*[^;]*\\+[^;]*;"), "String"));
+        // Static collections that might grow indefinitely
+        engineRules.add(RuleEngine.Rule.document("static-collection", RuleEngine.RuleGroup.PERFORMANCE,
+                Set.of("java"), Pattern.compile("static.*(?:List|Set|Map).*=.*new"), "static"));
+        engineRules.add(RuleEngine.Rule.document("object-creation-loop", RuleEngine.RuleGroup.PERFORMANCE, Set.of(),
+                Pattern.compile("for\\s*\\([^}]*new\\s+\\w+", Pattern.DOTALL), "new"));
+        return engineRules;
+    }
+    
+    private List<Suggestion> analyzeAlgorithmicComplexity(RuleEngine.Scan scan) {
         List<Suggestion> suggestions = new ArrayList<>();
         
         // Detect nested loops (potential O(n²) or worse)
-        Pattern nestedLoopPattern = Pattern.compile("for\\s*\\([^}]*\\{[^}]*for\\s*\\(", Pattern.DOTALL);
-        Matcher matcher = nestedLoopPattern.matcher(code);
-        
-        if (matcher.find()) {
+        if (scan.hasHit(RuleEngine.RuleGroup.PERFORMANCE, "nested-loops")) {
             suggestions.add(Suggestion.builder()
                     .id("nested-loops")
                     .title("Nested Loops Detected")
@@ -82,55 +114,41 @@ public class PerformanceAnalyzer {
         }
         
         // Detect potential inefficient string concatenation
-        if (language.equals("java")) {
-            Pattern stringConcatPattern = Pattern.compile("String\\s+\\w+\\s*=\\s*[^;]*\\+[^;]*;");
-            Matcher stringMatcher = stringConcatPattern.matcher(code);
-            
-            if (stringMatcher.find()) {
-                suggestions.add(Suggestion.builder()
-                        .id("string-concatenation")
-                        .title("Inefficient String Concatenation")
-                        .description("String concatenation in loops can be inefficient")
-                        .type(Suggestion.Type.PERFORMANCE)
-                        .priority(Suggestion.Priority.MEDIUM)
-                        .category("String Operations")
-                        .example("Use StringBuilder for multiple string concatenations")
-                        .estimatedImpact("Medium for multiple concatenations")
-                        .build());
-            }
+        if (scan.hasHit(RuleEngine.RuleGroup.PERFORMANCE, "string-concatenation")) {
+            suggestions.add(Suggestion.builder()
+                    .id("string-concatenation")
+                    .title("Inefficient String Concatenation")
+                    .description("String concatenation in loops can be inefficient")
+                    .type(Suggestion.Type.PERFORMANCE)
+                    .priority(Suggestion.Priority.MEDIUM)
+                    .category("String Operations")
+                    .example("Use StringBuilder for multiple string concatenations")
+                    .estimatedImpact("Medium for multiple concatenations")
+                    .build());
         }
         
         return suggestions;
     }
     
-    private List<Suggestion> analyzeMemoryUsage(String code, String language) {
+    private List<Suggestion> analyzeMemoryUsage(RuleEngine.Scan scan) {
         List<Suggestion> suggestions = new ArrayList<>();
         
-        // Detect potential memory leaks
-        if (language.equals("java")) {
-            // Static collections that might grow indefinitely
-            Pattern staticCollectionPattern = Pattern.compile("static.*(?:List|Set|Map).*=.*new");
-            Matcher matcher = staticCollectionPattern.matcher(code);
-            
-            if (matcher.find()) {
-                suggestions.add(Suggestion.builder()
-                        .id("static-collection")
-                        .title("Static Collection Usage")
-                        .description("Static collections can cause memory leaks if not managed properly")
-                        .type(Suggestion.Type.PERFORMANCE)
-                        .priority(Suggestion.Priority.HIGH)
-                        .category("Memory Management")
-                        .example("Consider using WeakHashMap or implement proper cleanup")
-                        .estimatedImpact("High - potential memory leak")
-                        .build());
-            }
+        // Detect potential memory leaks from static collections
+        if (scan.hasHit(RuleEngine.RuleGroup.PERFORMANCE, "static-collection")) {
+            suggestions.add(Suggestion.builder()
+                    .id("static-collection")
+                    .title("Static Collection Usage")
+                    .description("Static collections can cause memory leaks if not managed properly")
+                    .type(Suggestion.Type.PERFORMANCE)
+                    .priority(Suggestion.Priority.HIGH)
+                    .category("Memory Management")
+                    .example("Consider using WeakHashMap or implement proper cleanup")
+                    .estimatedImpact("High - potential memory leak")
+                    .build());
         }
         
         // Detect large object creation in loops
-        Pattern objectCreationInLoopPattern = Pattern.compile("for\\s*\\([^}]*new\\s+\\w+", Pattern.DOTALL);
-        Matcher objectMatcher = objectCreationInLoopPattern.matcher(code);
-        
-        if (objectMatcher.find()) {
+        if (scan.hasHit(RuleEngine.RuleGroup.PERFORMANCE, "object-creation-loop")) {
             suggestions.add(Suggestion.builder()
                     .id("object-creation-loop")
                     .title("Object Creation in Loop")
@@ -146,8 +164,8 @@ public class PerformanceAnalyzer {
         return suggestions;
     }
     
-    private Map<String, List<PerformanceRule>> initializePerformanceRules() {
-        Map<String, List<PerformanceRule>> rules = new HashMap<>();
+    private static Map<String, List<PerformanceRule>> initializePerformanceRules() {
+        Map<String, List<PerformanceRule>> rules = new LinkedHashMap<>();
         
         // Java performance rules
         rules.put("java", Arrays.asList(
@@ -158,7 +176,8 @@ public class PerformanceAnalyzer {
                         Pattern.compile("new\\s+ArrayList\\s*\\(\\s*\\)"),
                         Suggestion.Priority.LOW,
                         "new ArrayList<>(expectedSize)",
-                        "Low - reduces array resizing overhead"
+                        "Low - reduces array resizing overhead",
+                        "ArrayList"
                 ),
                 new PerformanceRule(
                         "java-string-equals",
@@ -167,7 +186,8 @@ public class PerformanceAnalyzer {
                         Pattern.compile("\\w+\\.equals\\s*\\(\\s*\"[^\"]*\"\\s*\\)"),
                         Suggestion.Priority.LOW,
                         "\"literal\".equals(variable) instead of variable.equals(\"literal\")",
-                        "Low - prevents NPE and slightly faster"
+                        "Low - prevents NPE and slightly faster",
+                        ".equals"
                 ),
                 new PerformanceRule(
                         "java-boxing-unboxing",
@@ -176,7 +196,8 @@ public class PerformanceAnalyzer {
                         Pattern.compile("Integer\\s+\\w+\\s*=\\s*\\d+"),
                         Suggestion.Priority.MEDIUM,
                         "Use primitive int instead of Integer wrapper",
-                        "Medium - reduces object creation overhead"
+                        "Medium - reduces object creation overhead",
+                        "Integer"
                 ),
                 new PerformanceRule(
                         "java-stream-collect",
@@ -185,7 +206,8 @@ public class PerformanceAnalyzer {
                         Pattern.compile("\\.stream\\(\\)\\.(?:filter|map|reduce).*\\.collect"),
                         Suggestion.Priority.LOW,
                         "Use parallelStream() for CPU-intensive operations on large collections",
-                        "High for large datasets with CPU-intensive operations"
+                        "High for large datasets with CPU-intensive operations",
+                        ".stream()"
                 )
         ));
         
@@ -198,7 +220,8 @@ public class PerformanceAnalyzer {
                         Pattern.compile("document\\.(?:getElementById|querySelector)"),
                         Suggestion.Priority.MEDIUM,
                         "const element = document.getElementById('id'); // cache the reference",
-                        "Medium - reduces DOM traversal overhead"
+                        "Medium - reduces DOM traversal overhead",
+                        "document."
                 ),
                 new PerformanceRule(
                         "js-array-length",
@@ -207,7 +230,8 @@ public class PerformanceAnalyzer {
                         Pattern.compile("for\\s*\\([^;]*;[^;]*\\.length[^;]*;"),
                         Suggestion.Priority.LOW,
                         "for (let i = 0, len = arr.length; i < len; i++)",
-                        "Low - avoids repeated length property access"
+                        "Low - avoids repeated length property access",
+                        ".length"
                 ),
                 new PerformanceRule(
                         "js-string-concatenation",
@@ -216,7 +240,8 @@ public class PerformanceAnalyzer {
                         Pattern.compile("for\\s*\\([^}]*\\+=.*[\"']"),
                         Suggestion.Priority.MEDIUM,
                         "Use array.push() and join() instead of string concatenation in loops",
-                        "High for many concatenations"
+                        "High for many concatenations",
+                        "+="
                 )
         );
         rules.put("javascript", jsRules);
@@ -231,7 +256,8 @@ public class PerformanceAnalyzer {
                         Pattern.compile("for\\s+\\w+\\s+in\\s+.*:\\s*\\w+\\.append\\("),
                         Suggestion.Priority.LOW,
                         "[expression for item in iterable] instead of for loop with append",
-                        "Low to Medium - more Pythonic and often faster"
+                        "Low to Medium - more Pythonic and often faster",
+                        ".append("
                 ),
                 new PerformanceRule(
                         "python-string-join",
@@ -240,7 +266,8 @@ public class PerformanceAnalyzer {
                         Pattern.compile("\\w+\\s*\\+=\\s*\\w+"),
                         Suggestion.Priority.MEDIUM,
                         "Use ''.join(string_list) for multiple string concatenations",
-                        "High for many string concatenations"
+                        "High for many string concatenations",
+                        "+="
                 )
         ));
         
@@ -255,9 +282,11 @@ public class PerformanceAnalyzer {
         final Suggestion.Priority priority;
         final String example;
         final String estimatedImpact;
+        // Literals any match contains at least one of
+        final String[] literals;
         
         PerformanceRule(String id, String title, String description, Pattern pattern,
-                       Suggestion.Priority priority, String example, String estimatedImpact) {
+                       Suggestion.Priority priority, String example, String estimatedImpact, String... literals) {
             this.id = id;
             this.title = title;
             this.description = description;
@@ -265,6 +294,7 @@ public class PerformanceAnalyzer {
             this.priority = priority;
             this.example = example;
             this.estimatedImpact = estimatedImpact;
+            this.literals = literals;
         }
     }
 }
\ No newline at end of file
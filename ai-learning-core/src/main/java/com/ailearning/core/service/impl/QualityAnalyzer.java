@@ -12,81 +12,149 @@ import java.util.regex.Pattern;
 /**
  * Code quality analyzer for detecting code smells, style issues, and best practice violations.
  * Implements language-specific quality rules and suggestions.
+ * <p>
+ * Line rules, the naming check and the suggestion checks run in the shared
+ * {@link RuleEngine}, so one scan of a file serves both {@link #analyze} and
+ * {@link #getSuggestions}.
  */
 public class QualityAnalyzer {
     
     private static final Logger logger = LoggerFactory.getLogger(QualityAnalyzer.class);
     
-    private final Map<String, List<QualityRule>> qualityRules;
+    private static final String NAMING_RULE_ID = "naming-convention";
+    private static final int MAX_LINE_LENGTH = 120;
+    private static final String[] DIGITS = {"0", "1", "2", "3", "4", "5", "6", "7", "8", "9"};
+    
+    private final RuleEngine ruleEngine;
+    private final Map<String, QualityRule> qualityRules;
     
     public QualityAnalyzer() {
-        this.qualityRules = initializeQualityRules();
+        this(new RuleEngine(engineRules()));
+    }
+    
+    public QualityAnalyzer(RuleEngine ruleEngine) {
+        this.ruleEngine = Objects.requireNonNull(ruleEngine, "Rule engine cannot be null");
+        this.qualityRules = new HashMap<>();
+        initializeQualityRules().values().forEach(rules -> rules.forEach(rule -> qualityRules.put(rule.id, rule)));
     }
     
     public List<CodeIssue> analyze(String code, String language) {
+        return analyze(ruleEngine.scan(code, language), language);
+    }
+    
+    /**
+     * Builds the quality issues of a scan already run by the shared rule engine.
+     */
+    public List<CodeIssue> analyze(RuleEngine.Scan scan, String language) {
         List<CodeIssue> issues = new ArrayList<>();
+        List<RuleEngine.Hit> namingHits = new ArrayList<>();
         
-        List<QualityRule> rules = qualityRules.getOrDefault(language.toLowerCase(), List.of());
-        
-        String[] lines = code.split("\n");
-        for (int i = 0; i < lines.length; i++) {
-            String line = lines[i];
-            int lineNumber = i + 1;
-            
-            for (QualityRule rule : rules) {
-                Matcher matcher = rule.pattern.matcher(line);
-                if (matcher.find()) {
-                    CodeIssue issue = CodeIssue.builder()
-                            .id(rule.id + "-" + lineNumber)
-                            .title(rule.title)
-                            .description(rule.description)
-                            .severity(rule.severity)
-                            .category(rule.category)
-                            .file("current")
-                            .line(lineNumber)
-                            .column(matcher.start())
-                            .suggestion(rule.suggestion)
-                            .build();
-                    
-                    issues.add(issue);
-                    logger.debug("Quality issue detected: {} at line {}", rule.title, lineNumber);
-                }
+        for (RuleEngine.Hit hit : scan.getHits(RuleEngine.RuleGroup.QUALITY)) {
+            if (NAMING_RULE_ID.equals(hit.getRuleId())) {
+                namingHits.add(hit);
+                continue;
             }
+            QualityRule rule = qualityRules.get(hit.getRuleId());
+            if (rule == null) {
+                continue;
+            }
+            CodeIssue issue = CodeIssue.builder()
+                    .id(rule.id + "-" + hit.getLine())
+                    .title(rule.title)
+                    .description(rule.description)
+                    .severity(rule.severity)
+                    .category(rule.category)
+                    .file("current")
+                    .line(hit.getLine())
+                    .column(hit.getColumn())
+                    .suggestion(rule.suggestion)
+                    .build();
+            
+            issues.add(issue);
+            logger.debug("Quality issue detected: {} at line {}", rule.title, hit.getLine());
         }
         
         // Add method-level analysis
-        issues.addAll(analyzeMethodComplexity(code, language));
-        issues.addAll(analyzeNamingConventions(code, language));
+        issues.addAll(analyzeMethodComplexity(scan.getCode(), language));
+        issues.addAll(analyzeNamingConventions(namingHits));
         
         return issues;
     }
     
     public List<Suggestion> getSuggestions(String code, String language) {
+        return getSuggestions(ruleEngine.scan(code, language), language);
+    }
+    
+    /**
+     * Builds the quality suggestions of a scan already run by the shared rule engine.
+     */
+    public List<Suggestion> getSuggestions(RuleEngine.Scan scan, String language) {
         List<Suggestion> suggestions = new ArrayList<>();
         
         // Generate suggestions based on detected patterns
         if (language.equals("java")) {
-            suggestions.addAll(getJavaSuggestions(code));
+            suggestions.addAll(getJavaSuggestions(scan));
         } else if (language.equals("javascript") || language.equals("typescript")) {
-            suggestions.addAll(getJavaScriptSuggestions(code));
+            suggestions.addAll(getJavaScriptSuggestions(scan));
         } else if (language.equals("python")) {
-            suggestions.addAll(getPythonSuggestions(code));
+            suggestions.addAll(getPythonSuggestions(scan));
         }
         
         return suggestions;
     }
     
+    /**
+     * Gets the quality rules in the form the shared rule engine runs them.
+     */
+    static List<RuleEngine.Rule> engineRules() {
+        Map<QualityRule, Set<String>> languagesByRule = new LinkedHashMap<>();
+        initializeQualityRules().forEach((language, rules) -> rules.forEach(rule ->
+                languagesByRule.computeIfAbsent(rule, key -> new HashSet<>()).add(language)));
+        List<RuleEngine.Rule> engineRules = new ArrayList<>();
+        languagesByRule.forEach((rule, languages) -> engineRules.add(rule.literals.length == 0
+                ? RuleEngine.Rule.longLine(rule.id, RuleEngine.RuleGroup.QUALITY, languages, rule.pattern,
+                        MAX_LINE_LENGTH + 1)
+                : RuleEngine.Rule.line(rule.id, RuleEngine.RuleGroup.QUALITY, languages, rule.pattern,
+                        rule.literals)));
+        
+        // Java camelCase convention
+        engineRules.add(RuleEngine.Rule.line(NAMING_RULE_ID, RuleEngine.RuleGroup.QUALITY, Set.of("java"),
+                Pattern.compile("\\b(int|String|boolean|double|float)\\s+([A-Z][a-zA-Z0-9_]*)\\b"),
+                "int", "String", "boolean", "double", "float"));
+        
+        engineRules.add(suggestionRule("java-logging", "java", "System.out.println"));
+        engineRules.add(suggestionRule("java-exception-handling", "java", "catch (Exception e)"));
+        engineRules.add(suggestionRule("js-var-usage", "javascript", "var "));
+        engineRules.add(suggestionRule("js-strict-equality", "javascript", "== ", "!= "));
+        engineRules.add(suggestionRule("python-logging", "python", "print("));
+        return engineRules;
+    }
+    
+    /**
+     * A check that some text occurs anywhere in the file.
+     */
+    private static RuleEngine.Rule suggestionRule(String id, String language, String... texts) {
+        Set<String> languages = language.equals("javascript") ? Set.of("javascript", "typescript") : Set.of(language);
+        String pattern = String.join("|", Arrays.stream(texts).map(Pattern::quote).toList());
+        return RuleEngine.Rule.document(id, RuleEngine.RuleGroup.QUALITY, languages, Pattern.compile(pattern), texts);
+    }
+    
     private List<CodeIssue> analyzeMethodComplexity(String code, String language) {
         List<CodeIssue> issues = new ArrayList<>();
         
-        // Simple method complexity analysis
-        String[] lines = code.split("\n");
+        // Simple method complexity analysis, reading lines in place
         int methodStart = -1;
         int complexity = 0;
         String methodName = "";
         
-        for (int i = 0; i < lines.length; i++) {
-            String line = lines[i].trim();
+        int lineStart = 0;
+        for (int i = 0; lineStart < code.length(); i++) {
+            int lineEnd = code.indexOf('\n', lineStart);
+            if (lineEnd < 0) {
+                lineEnd = code.length();
+            }
+            String line = code.substring(lineStart, lineEnd).trim();
+            lineStart = lineEnd + 1;
             
             // Detect method start (simplified)
             if (isMethodDeclaration(line, language)) {
@@ -121,32 +189,20 @@ public class QualityAnalyzer {
         return issues;
     }
     
-    private List<CodeIssue> analyzeNamingConventions(String code, String language) {
+    private List<CodeIssue> analyzeNamingConventions(List<RuleEngine.Hit> namingHits) {
         List<CodeIssue> issues = new ArrayList<>();
         
-        String[] lines = code.split("\n");
-        for (int i = 0; i < lines.length; i++) {
-            String line = lines[i];
-            int lineNumber = i + 1;
-            
-            // Check variable naming conventions
-            if (language.equals("java")) {
-                // Java camelCase convention
-                Pattern variablePattern = Pattern.compile("\\b(int|String|boolean|double|float)\\s+([A-Z][a-zA-Z0-9_]*)\\b");
-                Matcher matcher = variablePattern.matcher(line);
-                if (matcher.find()) {
-                    issues.add(CodeIssue.builder()
-                            .id("naming-convention-" + lineNumber)
-                            .title("Naming Convention Violation")
-                            .description("Variable '" + matcher.group(2) + "' should start with lowercase letter")
-                            .severity(CodeIssue.Severity.INFO)
-                            .category("Style")
-                            .file("current")
-                            .line(lineNumber)
-                            .suggestion("Use camelCase naming convention")
-                            .build());
-                }
-            }
+        for (RuleEngine.Hit hit : namingHits) {
+            issues.add(CodeIssue.builder()
+                    .id(NAMING_RULE_ID + "-" + hit.getLine())
+                    .title("Naming Convention Violation")
+                    .description("Variable '" + hit.getMatch().group(2) + "' should start with lowercase letter")
+                    .severity(CodeIssue.Severity.INFO)
+                    .category("Style")
+                    .file("current")
+                    .line(hit.getLine())
+                    .suggestion("Use camelCase naming convention")
+                    .build());
         }
         
         return issues;
@@ -182,10 +238,10 @@ public class QualityAnalyzer {
         };
     }
     
-    private List<Suggestion> getJavaSuggestions(String code) {
+    private List<Suggestion> getJavaSuggestions(RuleEngine.Scan scan) {
         List<Suggestion> suggestions = new ArrayList<>();
         
-        if (code.contains("System.out.println")) {
+        if (scan.hasHit(RuleEngine.RuleGroup.QUALITY, "java-logging")) {
             suggestions.add(Suggestion.builder()
                     .id("java-logging")
                     .title("Use Proper Logging")
@@ -197,7 +253,7 @@ public class QualityAnalyzer {
                     .build());
         }
         
-        if (code.contains("catch (Exception e)")) {
+        if (scan.hasHit(RuleEngine.RuleGroup.QUALITY, "java-exception-handling")) {
             suggestions.add(Suggestion.builder()
                     .id("java-exception-handling")
                     .title("Specific Exception Handling")
@@ -212,10 +268,10 @@ public class QualityAnalyzer {
         return suggestions;
     }
     
-    private List<Suggestion> getJavaScriptSuggestions(String code) {
+    private List<Suggestion> getJavaScriptSuggestions(RuleEngine.Scan scan) {
         List<Suggestion> suggestions = new ArrayList<>();
         
-        if (code.contains("var ")) {
+        if (scan.hasHit(RuleEngine.RuleGroup.QUALITY, "js-var-usage")) {
             suggestions.add(Suggestion.builder()
                     .id("js-var-usage")
                     .title("Use let/const instead of var")
@@ -227,7 +283,7 @@ public class QualityAnalyzer {
                     .build());
         }
         
-        if (code.contains("== ") || code.contains("!= ")) {
+        if (scan.hasHit(RuleEngine.RuleGroup.QUALITY, "js-strict-equality")) {
             suggestions.add(Suggestion.builder()
                     .id("js-strict-equality")
                     .title("Use Strict Equality")
@@ -242,10 +298,10 @@ public class QualityAnalyzer {
         return suggestions;
     }
     
-    private List<Suggestion> getPythonSuggestions(String code) {
+    private List<Suggestion> getPythonSuggestions(RuleEngine.Scan scan) {
         List<Suggestion> suggestions = new ArrayList<>();
         
-        if (code.contains("print(")) {
+        if (scan.hasHit(RuleEngine.RuleGroup.QUALITY, "python-logging")) {
             suggestions.add(Suggestion.builder()
                     .id("python-logging")
                     .title("Use Logging Instead of Print")
@@ -260,8 +316,8 @@ public class QualityAnalyzer {
         return suggestions;
     }
     
-    private Map<String, List<QualityRule>> initializeQualityRules() {
-        Map<String, List<QualityRule>> rules = new HashMap<>();
+    private static Map<String, List<QualityRule>> initializeQualityRules() {
+        Map<String, List<QualityRule>> rules = new LinkedHashMap<>();
         
         // Java quality rules
         rules.put("java", Arrays.asList(
@@ -281,7 +337,8 @@ public class QualityAnalyzer {
                         Pattern.compile("catch\\s*\\([^)]+\\)\\s*\\{\\s*\\}"),
                         CodeIssue.Severity.WARNING,
                         "Error Handling",
-                        "Add proper exception handling or logging"
+                        "Add proper exception handling or logging",
+                        "catch"
                 ),
                 new QualityRule(
                         "java-magic-number",
@@ -290,7 +347,8 @@ public class QualityAnalyzer {
                         Pattern.compile("\\b\\d{2,}\\b"),
                         CodeIssue.Severity.INFO,
                         "Maintainability",
-                        "Define numeric literals as named constants"
+                        "Define numeric literals as named constants",
+                        DIGITS
                 )
         ));
         
@@ -303,7 +361,8 @@ public class QualityAnalyzer {
                         Pattern.compile("console\\.log\\s*\\("),
                         CodeIssue.Severity.INFO,
                         "Debugging",
-                        "Remove console.log statements or use proper logging"
+                        "Remove console.log statements or use proper logging",
+                        "console."
                 ),
                 new QualityRule(
                         "js-unused-var",
@@ -312,7 +371,8 @@ public class QualityAnalyzer {
                         Pattern.compile("var\\s+\\w+\\s*=.*"),
                         CodeIssue.Severity.WARNING,
                         "Code Quality",
-                        "Remove unused variables"
+                        "Remove unused variables",
+                        "var"
                 )
         );
         rules.put("javascript", jsRules);
@@ -329,9 +389,11 @@ public class QualityAnalyzer {
         final CodeIssue.Severity severity;
         final String category;
         final String suggestion;
+        // Literals any match contains at least one of; none for the line length rule
+        final String[] literals;
         
         QualityRule(String id, String title, String description, Pattern pattern,
-                   CodeIssue.Severity severity, String category, String suggestion) {
+                   CodeIssue.Severity severity, String category, String suggestion, String... literals) {
             this.id = id;
             this.title = title;
             this.description = description;
@@ -339,6 +401,7 @@ public class QualityAnalyzer {
             this.severity = severity;
             this.category = category;
             this.suggestion = suggestion;
+            this.literals = literals;
         }
     }
 }
\ No newline at end of file
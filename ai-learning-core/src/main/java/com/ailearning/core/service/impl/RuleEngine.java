@@ -0,0 +1,785 @@
+package com.ailearning.core.service.impl;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.UUID;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.MatchResult;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Shared engine running the text rules of the security, quality and
+ * performance analyzers in one pass over the code.
+ * <p>
+ * The rules for a language are compiled into one program. Each rule names
+ * literals of which at least one must occur wherever its pattern can match,
+ * and all literals go into a single Aho-Corasick automaton. Scanning feeds the
+ * code through the automaton once; at the end of every line only the rules
+ * whose literals occurred on it, and rules without literals, run their
+ * pattern on that line. Lines are matched as regions of the code, so no line
+ * array or line strings are allocated. Document rules run once over the whole
+ * code if any of their literals occurred anywhere in it.
+ * <p>
+ * Patterns within the {@link LinearRegex} subset are searched in linear
+ * time, and where they are found the match and its groups are also taken in
+ * linear time, so {@code java.util.regex} never runs for them. It still
+ * searches patterns outside the subset and regions the linear search leaves
+ * undecided. That backtracking search reads the code through a view that checks
+ * a per-match time budget and the thread's interrupt status. A rule that
+ * exceeds the match budget, or its total budget for one scan, is disabled for
+ * the rest of that scan and reported in {@link Scan#getDisabledRules()}.
+ * Interrupting the scanning thread cancels the scan.
+ * <p>
+ * Invocations, hits, time and budget overruns are recorded per rule.
+ */
+public class RuleEngine {
+
+    private static final Logger logger = LoggerFactory.getLogger(RuleEngine.class);
+
+    // Automaton input is folded to 7-bit ASCII; other characters restart matching
+    private static final int ALPHABET = 128;
+    private static final Duration DEFAULT_MATCH_BUDGET = Duration.ofMillis(50);
+    private static final Duration DEFAULT_FILE_BUDGET = Duration.ofMillis(500);
+    // Character reads between budget checks in fallback matching
+    private static final int CHECK_INTERVAL = 1024;
+
+    /**
+     * The analyzer a rule belongs to.
+     */
+    public enum RuleGroup {
+        SECURITY, QUALITY, PERFORMANCE
+    }
+
+    /**
+     * A time limit on a rule's pattern matching.
+     */
+    public enum Budget {
+        /** One search of a line, or of the code for document rules */
+        MATCH,
+        /** All searches of one scan */
+        FILE
+    }
+
+    private final List<Rule> rules;
+    private final String version;
+    private final long matchBudgetNanos;
+    private final long fileBudgetNanos;
+    private final Map<String, Program> programs = new ConcurrentHashMap<>();
+    private final LongAdder scans = new LongAdder();
+    private final LongAdder scannedLines = new LongAdder();
+    private final LongAdder skippedEvaluations = new LongAdder();
+    private final LongAdder ruleDisables = new LongAdder();
+
+    /**
+     * @param rules the rules of all analyzers; ids must be unique within a group
+     */
+    public RuleEngine(List<Rule> rules) {
+        this(rules, DEFAULT_MATCH_BUDGET, DEFAULT_FILE_BUDGET);
+    }
+
+    /**
+     * @param rules the rules of all analyzers; ids must be unique within a group
+     * @param matchBudget longest time one search of a rule may take
+     * @param fileBudget longest time a rule may spend on one scan
+     */
+    public RuleEngine(List<Rule> rules, Duration matchBudget, Duration fileBudget) {
+        Objects.requireNonNull(rules, "Rules cannot be null");
+        Objects.requireNonNull(matchBudget, "Match budget cannot be null");
+        Objects.requireNonNull(fileBudget, "File budget cannot be null");
+        if (matchBudget.isNegative() || matchBudget.isZero() || fileBudget.isNegative() || fileBudget.isZero()) {
+            throw new IllegalArgumentException("Rule budgets must be positive");
+        }
+        this.matchBudgetNanos = matchBudget.toNanos();
+        this.fileBudgetNanos = fileBudget.toNanos();
+        Set<String> keys = new HashSet<>();
+        for (Rule rule : rules) {
+            if (!keys.add(rule.group + ":" + rule.id)) {
+                throw new IllegalArgumentException("Duplicate rule id: " + rule.id);
+            }
+        }
+        this.rules = List.copyOf(rules);
+        this.version = fingerprint(this.rules);
+    }
+
+    private static String fingerprint(List<Rule> rules) {
+        StringBuilder description = new StringBuilder();
+        for (Rule rule : rules) {
+            description.append(rule.group).append(':').append(rule.id)
+                    .append('|').append(new TreeSet<>(rule.languages))
+                    .append('|').append(rule.pattern.flags()).append('/').append(rule.pattern.pattern())
+                    .append('|').append(rule.literals)
+                    .append('|').append(rule.document).append('|').append(rule.minLineLength)
+                    .append('\n');
+        }
+        return UUID.nameUUIDFromBytes(description.toString().getBytes(StandardCharsets.UTF_8)).toString();
+    }
+
+    /**
+     * Creates an engine with the rules of the security, quality and performance analyzers.
+     */
+    public static RuleEngine standard() {
+        List<Rule> rules = new ArrayList<>();
+        rules.addAll(SecurityAnalyzer.engineRules());
+        rules.addAll(QualityAnalyzer.engineRules());
+        rules.addAll(PerformanceAnalyzer.engineRules());
+        return new RuleEngine(rules);
+    }
+
+    public List<Rule> getRules() {
+        return rules;
+    }
+
+    /**
+     * Gets the version of the rule set: a fingerprint of every rule's id,
+     * languages, pattern and literals, which changes whenever the rules would
+     * produce different hits.
+     */
+    public String getVersion() {
+        return version;
+    }
+
+    /**
+     * Runs every rule for the language over the code in one pass.
+     *
+     * @param code the code to scan
+     * @param language the code's language
+     * @return the hits of all rule groups
+     */
+    public Scan scan(String code, String language) {
+        Objects.requireNonNull(code, "Code cannot be null");
+        Program program = programs.computeIfAbsent(language == null ? "" : language.toLowerCase(Locale.ROOT),
+                this::compile);
+        Scan scan = program.run(code);
+        scans.increment();
+        logger.debug("Scanned {} lines with {} rules: {} hits", scan.lineCount, program.rules.length,
+                scan.hits.size());
+        return scan;
+    }
+
+    /**
+     * Gets engine statistics for monitoring.
+     *
+     * @return map with scan counts and, per rule, invocations, hits, total nanoseconds,
+     *         whether it matches in linear time, match budget overruns and scans it was disabled in
+     */
+    public Map<String, Object> getStatistics() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("scans", scans.sum());
+        stats.put("lines", scannedLines.sum());
+        stats.put("skippedEvaluations", skippedEvaluations.sum());
+        stats.put("disabledRules", ruleDisables.sum());
+        Map<String, Object> perRule = new LinkedHashMap<>();
+        for (Rule rule : rules) {
+            Map<String, Object> ruleStats = new LinkedHashMap<>();
+            ruleStats.put("invocations", rule.invocations.sum());
+            ruleStats.put("hits", rule.hits.sum());
+            ruleStats.put("totalNanos", rule.totalNanos.sum());
+            ruleStats.put("linear", rule.linear != null);
+            ruleStats.put("timeouts", rule.timeouts.sum());
+            ruleStats.put("disabled", rule.disables.sum());
+            perRule.put(rule.id, ruleStats);
+        }
+        stats.put("rules", perRule);
+        return stats;
+    }
+
+    private Program compile(String language) {
+        List<Rule> selected = new ArrayList<>();
+        for (Rule rule : rules) {
+            if (rule.languages.isEmpty() || rule.languages.contains(language)) {
+                selected.add(rule);
+            }
+        }
+        logger.debug("Compiled {} rules for language {}", selected.size(), language);
+        return new Program(selected.toArray(new Rule[0]));
+    }
+
+    /**
+     * A text rule: a pattern and the literals that any match must contain.
+     */
+    public static final class Rule {
+        private final String id;
+        private final RuleGroup group;
+        private final Set<String> languages;
+        private final Pattern pattern;
+        private final List<String> literals;
+        private final boolean caseInsensitive;
+        private final boolean document;
+        private final int minLineLength;
+        // Null for patterns outside the linear-time subset
+        private final LinearRegex linear;
+
+        private final LongAdder invocations = new LongAdder();
+        private final LongAdder hits = new LongAdder();
+        private final LongAdder totalNanos = new LongAdder();
+        private final LongAdder timeouts = new LongAdder();
+        private final LongAdder disables = new LongAdder();
+
+        private Rule(String id, RuleGroup group, Set<String> languages, Pattern pattern, List<String> literals,
+                     boolean document, int minLineLength) {
+            this.id = Objects.requireNonNull(id, "Rule id cannot be null");
+            this.group = Objects.requireNonNull(group, "Rule group cannot be null");
+            this.languages = Set.copyOf(Objects.requireNonNull(languages, "Rule languages cannot be null"));
+            this.pattern = Objects.requireNonNull(pattern, "Rule pattern cannot be null");
+            this.caseInsensitive = (pattern.flags() & Pattern.CASE_INSENSITIVE) != 0;
+            for (String literal : literals) {
+                if (literal.isEmpty() || !literal.chars().allMatch(c -> c < ALPHABET)) {
+                    throw new IllegalArgumentException("Rule literals must be non-empty ASCII: " + id);
+                }
+            }
+            this.literals = literals.stream()
+                    .map(literal -> caseInsensitive ? literal.toLowerCase(Locale.ROOT) : literal)
+                    .toList();
+            this.document = document;
+            this.minLineLength = minLineLength;
+            this.linear = LinearRegex.compile(pattern);
+        }
+
+        /**
+         * Creates a rule matched against each line.
+         *
+         * @param languages languages the rule applies to, or empty for all
+         * @param literals strings of which any match contains at least one, or none to run on every line
+         */
+        public static Rule line(String id, RuleGroup group, Set<String> languages, Pattern pattern,
+                                String... literals) {
+            return new Rule(id, group, languages, pattern, List.of(literals), false, 0);
+        }
+
+        /**
+         * Creates a line rule that only lines of at least the given length can match.
+         */
+        public static Rule longLine(String id, RuleGroup group, Set<String> languages, Pattern pattern,
+                                    int minLineLength) {
+            return new Rule(id, group, languages, pattern, List.of(), false, minLineLength);
+        }
+
+        /**
+         * Creates a rule matched once against the whole code.
+         *
+         * @param literals strings of which any match contains at least one, or none to always run
+         */
+        public static Rule document(String id, RuleGroup group, Set<String> languages, Pattern pattern,
+                                    String... literals) {
+            return new Rule(id, group, languages, pattern, List.of(literals), true, 0);
+        }
+
+        public String getId() { return id; }
+        public RuleGroup getGroup() { return group; }
+        public Set<String> getLanguages() { return languages; }
+        public Pattern getPattern() { return pattern; }
+        public boolean isDocument() { return document; }
+
+        /**
+         * Checks whether the pattern is searched and matched in linear time.
+         */
+        public boolean isLinear() { return linear != null; }
+
+        @Override
+        public String toString() {
+            return String.format("Rule{id='%s', group=%s, document=%s}", id, group, document);
+        }
+    }
+
+    /**
+     * One match of a rule: the first on its line, or the first in the code for document rules.
+     */
+    public static final class Hit {
+        private final Rule rule;
+        private final String code;
+        private final int line;
+        private final int lineStart;
+        private final int lineEnd;
+        private final MatchResult match;
+
+        private Hit(Rule rule, String code, int line, int lineStart, int lineEnd, MatchResult match) {
+            this.rule = rule;
+            this.code = code;
+            this.line = line;
+            this.lineStart = lineStart;
+            this.lineEnd = lineEnd;
+            this.match = match;
+        }
+
+        public String getRuleId() { return rule.id; }
+        public RuleGroup getGroup() { return rule.group; }
+
+        /**
+         * Gets the 1-based line of the match start.
+         */
+        public int getLine() { return line; }
+
+        /**
+         * Gets the column of the match start within its line.
+         */
+        public int getColumn() { return match.start() - lineStart; }
+
+        /**
+         * Gets the match, for reading groups.
+         */
+        public MatchResult getMatch() { return match; }
+
+        /**
+         * Gets the text of the line the match starts on.
+         */
+        public String getLineText() {
+            return code.substring(lineStart, lineEnd);
+        }
+
+        @Override
+        public String toString() {
+            return String.format("Hit{rule='%s', line=%d, column=%d}", rule.id, line, getColumn());
+        }
+    }
+
+    /**
+     * A rule disabled for the rest of a scan after exceeding a budget.
+     */
+    public static final class DisabledRule {
+        private final Rule rule;
+        private final int line;
+        private final Budget budget;
+
+        private DisabledRule(Rule rule, int line, Budget budget) {
+            this.rule = rule;
+            this.line = line;
+            this.budget = budget;
+        }
+
+        public String getRuleId() { return rule.id; }
+        public RuleGroup getGroup() { return rule.group; }
+
+        /**
+         * Gets the 1-based line the rule was searching, or 0 for document rules.
+         */
+        public int getLine() { return line; }
+        public Budget getBudget() { return budget; }
+
+        @Override
+        public String toString() {
+            return String.format("DisabledRule{rule='%s', line=%d, budget=%s}", rule.id, line, budget);
+        }
+    }
+
+    /**
+     * The hits of one scan, line hits in line and rule order followed by document hits.
+     */
+    public static final class Scan {
+        private final String code;
+        private final List<Hit> hits;
+        private final int lineCount;
+        private final List<DisabledRule> disabledRules;
+
+        private Scan(String code, List<Hit> hits, int lineCount, List<DisabledRule> disabledRules) {
+            this.code = code;
+            this.hits = hits;
+            this.lineCount = lineCount;
+            this.disabledRules = disabledRules;
+        }
+
+        public String getCode() { return code; }
+        public List<Hit> getHits() { return hits; }
+        public int getLineCount() { return lineCount; }
+
+        /**
+         * Gets the rules that exceeded a budget; their hits after that point are missing.
+         */
+        public List<DisabledRule> getDisabledRules() { return disabledRules; }
+
+        /**
+         * Gets the hits of one analyzer's rules.
+         */
+        public List<Hit> getHits(RuleGroup group) {
+            List<Hit> selected = new ArrayList<>();
+            for (Hit hit : hits) {
+                if (hit.rule.group == group) {
+                    selected.add(hit);
+                }
+            }
+            return selected;
+        }
+
+        /**
+         * Checks whether a rule has any hit.
+         */
+        public boolean hasHit(RuleGroup group, String ruleId) {
+            for (Hit hit : hits) {
+                if (hit.rule.group == group && hit.rule.id.equals(ruleId)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+
+    /**
+     * The rules of one language compiled into an Aho-Corasick automaton over their literals.
+     */
+    private final class Program {
+        final Rule[] rules;
+        final int lineRuleCount;
+        // Rules with no literals, which run on every line or document
+        final int[] unfiltered;
+        // Dense transition table over the folded alphabet, failure links resolved
+        final int[][] transitions;
+        // Literals ending at each state, including those reached by failure links
+        final Literal[][] outputs;
+
+        Program(Rule[] rules) {
+            this.rules = rules;
+            this.lineRuleCount = (int) Arrays.stream(rules).filter(rule -> !rule.document).count();
+            List<Integer> always = new ArrayList<>();
+            List<int[]> next = new ArrayList<>();
+            List<List<Literal>> ends = new ArrayList<>();
+            next.add(newState());
+            ends.add(new ArrayList<>());
+            for (int index = 0; index < rules.length; index++) {
+                if (rules[index].literals.isEmpty()) {
+                    always.add(index);
+                }
+                for (String literal : rules[index].literals) {
+                    int state = 0;
+                    for (int i = 0; i < literal.length(); i++) {
+                        int symbol = fold(literal.charAt(i));
+                        if (next.get(state)[symbol] < 0) {
+                            next.get(state)[symbol] = next.size();
+                            next.add(newState());
+                            ends.add(new ArrayList<>());
+                        }
+                        state = next.get(state)[symbol];
+                    }
+                    ends.get(state).add(new Literal(index, literal, !rules[index].caseInsensitive));
+                }
+            }
+            this.unfiltered = always.stream().mapToInt(Integer::intValue).toArray();
+
+            // Breadth-first construction of failure links, completing the goto function into a DFA
+            int[] failure = new int[next.size()];
+            Deque<Integer> queue = new ArrayDeque<>();
+            int[] root = next.get(0);
+            for (int symbol = 0; symbol < ALPHABET; symbol++) {
+                if (root[symbol] < 0) {
+                    root[symbol] = 0;
+                } else {
+                    queue.add(root[symbol]);
+                }
+            }
+            while (!queue.isEmpty()) {
+                int state = queue.poll();
+                ends.get(state).addAll(ends.get(failure[state]));
+                int[] row = next.get(state);
+                for (int symbol = 0; symbol < ALPHABET; symbol++) {
+                    int child = row[symbol];
+                    int fallback = next.get(failure[state])[symbol];
+                    if (child < 0) {
+                        row[symbol] = fallback;
+                    } else {
+                        failure[child] = fallback;
+                        queue.add(child);
+                    }
+                }
+            }
+            this.transitions = next.toArray(new int[0][]);
+            this.outputs = new Literal[ends.size()][];
+            for (int state = 0; state < outputs.length; state++) {
+                outputs[state] = ends.get(state).isEmpty() ? null : ends.get(state).toArray(new Literal[0]);
+            }
+        }
+
+        Scan run(String code) {
+            Execution execution = new Execution(code);
+            // Line on which each rule last became a candidate, so it is queued once per line
+            int[] markedLine = new int[rules.length];
+            Arrays.fill(markedLine, -1);
+            boolean[] documentCandidate = new boolean[rules.length];
+            int[] candidates = new int[rules.length];
+            int candidateCount = 0;
+
+            int length = code.length();
+            int line = 0;
+            int lineStart = 0;
+            int state = 0;
+            for (int position = 0; position <= length; position++) {
+                char c = position < length ? code.charAt(position) : '\n';
+                if (c == '\n') {
+                    if (position < length || lineStart < length || length == 0) {
+                        candidateCount = mergeUnfiltered(candidates, candidateCount);
+                        evaluateLine(execution, line, lineStart, position, candidates, candidateCount);
+                    }
+                    candidateCount = 0;
+                    line++;
+                    lineStart = position + 1;
+                    state = 0;
+                    continue;
+                }
+                state = c < ALPHABET ? transitions[state][fold(c)] : 0;
+                Literal[] found = outputs[state];
+                if (found == null) {
+                    continue;
+                }
+                for (Literal literal : found) {
+                    int rule = literal.rule;
+                    if (rules[rule].document ? documentCandidate[rule] : markedLine[rule] == line) {
+                        continue;
+                    }
+                    if (literal.caseSensitive
+                            && !code.regionMatches(position - literal.text.length() + 1, literal.text, 0,
+                            literal.text.length())) {
+                        continue;
+                    }
+                    if (rules[rule].document) {
+                        documentCandidate[rule] = true;
+                    } else {
+                        markedLine[rule] = line;
+                        candidates[candidateCount++] = rule;
+                    }
+                }
+            }
+            scannedLines.add(line);
+
+            for (int rule : unfiltered) {
+                documentCandidate[rule] = true;
+            }
+            for (int index = 0; index < rules.length; index++) {
+                Rule rule = rules[index];
+                if (!rule.document) {
+                    continue;
+                }
+                if (!documentCandidate[index]) {
+                    skippedEvaluations.increment();
+                    continue;
+                }
+                MatchResult match = execution.find(index, 0, length, 0);
+                if (match != null) {
+                    int start = code.lastIndexOf('\n', match.start() - 1) + 1;
+                    int end = code.indexOf('\n', match.start());
+                    execution.hits.add(new Hit(rule, code, lineOf(code, match.start()), start,
+                            end < 0 ? length : end, match));
+                }
+            }
+            // A trailing newline ends the last line rather than starting another
+            boolean trailingNewline = length > 0 && code.charAt(length - 1) == '\n';
+            return new Scan(code, execution.hits, trailingNewline ? line - 1 : line,
+                    List.copyOf(execution.disabledRules));
+        }
+
+        /**
+         * Adds the unfiltered line rules to the candidates and sorts them into rule order.
+         */
+        private int mergeUnfiltered(int[] candidates, int count) {
+            for (int rule : unfiltered) {
+                if (!rules[rule].document) {
+                    candidates[count++] = rule;
+                }
+            }
+            Arrays.sort(candidates, 0, count);
+            return count;
+        }
+
+        private void evaluateLine(Execution execution, int line, int lineStart, int lineEnd, int[] candidates,
+                                  int candidateCount) {
+            skippedEvaluations.add(lineRuleCount - candidateCount);
+            for (int i = 0; i < candidateCount; i++) {
+                int index = candidates[i];
+                Rule rule = rules[index];
+                if (lineEnd - lineStart < rule.minLineLength) {
+                    skippedEvaluations.increment();
+                    continue;
+                }
+                MatchResult match = execution.find(index, lineStart, lineEnd, line + 1);
+                if (match != null) {
+                    execution.hits.add(new Hit(rule, execution.code, line + 1, lineStart, lineEnd, match));
+                }
+            }
+        }
+
+        /**
+         * The matchers, budgets and results of one scan.
+         */
+        private final class Execution {
+            final String code;
+            final BudgetedText text;
+            final Matcher[] matchers = new Matcher[rules.length];
+            final boolean[] disabled = new boolean[rules.length];
+            final long[] spentNanos = new long[rules.length];
+            final List<Hit> hits = new ArrayList<>();
+            final List<DisabledRule> disabledRules = new ArrayList<>();
+
+            Execution(String code) {
+                this.code = code;
+                this.text = new BudgetedText(code);
+            }
+
+            /**
+             * Searches a region with a rule, unless the rule is disabled.
+             *
+             * @param line the 1-based line searched, or 0 for the whole code
+             */
+            MatchResult find(int index, int from, int to, int line) {
+                if (disabled[index]) {
+                    skippedEvaluations.increment();
+                    return null;
+                }
+                Rule rule = rules[index];
+                long start = System.nanoTime();
+                MatchResult match = null;
+                try {
+                    int found = rule.linear == null ? LinearRegex.UNDECIDED : rule.linear.find(code, from, to);
+                    if (found == LinearRegex.MATCH) {
+                        match = rule.linear.match(code, from, to);
+                    }
+                    if (found == LinearRegex.UNDECIDED || (found == LinearRegex.MATCH && match == null)) {
+                        match = backtrack(index, from, to, start + matchBudgetNanos);
+                    }
+                } catch (BudgetExceeded e) {
+                    rule.timeouts.increment();
+                    disable(index, line, Budget.MATCH);
+                } finally {
+                    long elapsed = System.nanoTime() - start;
+                    rule.totalNanos.add(elapsed);
+                    rule.invocations.increment();
+                    spentNanos[index] += elapsed;
+                }
+                if (!disabled[index] && spentNanos[index] > fileBudgetNanos) {
+                    disable(index, line, Budget.FILE);
+                }
+                if (match != null) {
+                    rule.hits.increment();
+                }
+                return match;
+            }
+
+            private MatchResult backtrack(int index, int from, int to, long deadline) {
+                Matcher matcher = matchers[index];
+                if (matcher == null) {
+                    matcher = rules[index].pattern.matcher(text);
+                    matchers[index] = matcher;
+                }
+                matcher.region(from, to);
+                text.setDeadline(deadline);
+                return matcher.find() ? matcher.toMatchResult() : null;
+            }
+
+            private void disable(int index, int line, Budget budget) {
+                disabled[index] = true;
+                rules[index].disables.increment();
+                ruleDisables.increment();
+                disabledRules.add(new DisabledRule(rules[index], line, budget));
+                logger.warn("Rule {} exceeded its {} budget at line {} and is disabled for the rest of the scan",
+                        rules[index].id, budget.name().toLowerCase(Locale.ROOT), line);
+            }
+        }
+
+        private int[] newState() {
+            int[] row = new int[ALPHABET];
+            Arrays.fill(row, -1);
+            return row;
+        }
+    }
+
+    /**
+     * Folds ASCII letters to lower case, as case-insensitive patterns do by default.
+     */
+    private static int fold(char c) {
+        return c >= 'A' && c <= 'Z' ? c + ('a' - 'A') : c;
+    }
+
+    private static int lineOf(String code, int position) {
+        int line = 1;
+        for (int i = code.indexOf('\n'); i >= 0 && i < position; i = code.indexOf('\n', i + 1)) {
+            line++;
+        }
+        return line;
+    }
+
+    /**
+     * The code as fallback matchers read it: every {@value #CHECK_INTERVAL}
+     * character reads, the match deadline and the thread's interrupt status
+     * are checked.
+     */
+    private static final class BudgetedText implements CharSequence {
+        private final String code;
+        private long deadline;
+        private int reads;
+
+        BudgetedText(String code) {
+            this.code = code;
+        }
+
+        void setDeadline(long deadline) {
+            this.deadline = deadline;
+            this.reads = 0;
+        }
+
+        @Override
+        public int length() {
+            return code.length();
+        }
+
+        @Override
+        public char charAt(int index) {
+            if (++reads == CHECK_INTERVAL) {
+                reads = 0;
+                if (Thread.currentThread().isInterrupted()) {
+                    throw new CancellationException("Rule scan interrupted");
+                }
+                if (System.nanoTime() - deadline > 0) {
+                    throw new BudgetExceeded();
+                }
+            }
+            return code.charAt(index);
+        }
+
+        @Override
+        public CharSequence subSequence(int start, int end) {
+            return code.subSequence(start, end);
+        }
+
+        @Override
+        public String toString() {
+            return code;
+        }
+    }
+
+    /**
+     * Thrown out of a fallback match that ran past its deadline.
+     */
+    private static final class BudgetExceeded extends RuntimeException {
+        BudgetExceeded() {
+            super(null, null, false, false);
+        }
+    }
+
+    /**
+     * A literal ending at an automaton state and the rule it admits.
+     */
+    private static final class Literal {
+        final int rule;
+        final String text;
+        final boolean caseSensitive;
+
+        Literal(int rule, String text, boolean caseSensitive) {
+            this.rule = rule;
+            this.text = text;
+            this.caseSensitive = caseSensitive;
+        }
+    }
+}
@@ -5,61 +5,87 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.util.*;
-import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
 /**
  * Security analyzer for detecting common security vulnerabilities in code.
  * Implements OWASP Top 10 and CWE-based security checks.
+ * <p>
+ * Rules run in the shared {@link RuleEngine}; each names the literals its
+ * pattern needs, so lines without them are never matched.
  */
 public class SecurityAnalyzer {
     
     private static final Logger logger = LoggerFactory.getLogger(SecurityAnalyzer.class);
     
-    // Security patterns for different languages
-    private final Map<String, List<SecurityRule>> securityRules;
+    private final RuleEngine ruleEngine;
+    private final Map<String, SecurityRule> securityRules;
     
     public SecurityAnalyzer() {
-        this.securityRules = initializeSecurityRules();
+        this(new RuleEngine(engineRules()));
+    }
+    
+    public SecurityAnalyzer(RuleEngine ruleEngine) {
+        this.ruleEngine = Objects.requireNonNull(ruleEngine, "Rule engine cannot be null");
+        this.securityRules = rulesById(initializeSecurityRules());
     }
     
     public List<SecurityIssue> analyze(String code, String language) {
+        return analyze(ruleEngine.scan(code, language));
+    }
+    
+    /**
+     * Builds the security issues of a scan already run by the shared rule engine.
+     */
+    public List<SecurityIssue> analyze(RuleEngine.Scan scan) {
         List<SecurityIssue> issues = new ArrayList<>();
         
-        List<SecurityRule> rules = securityRules.getOrDefault(language.toLowerCase(), List.of());
-        
-        String[] lines = code.split("\n");
-        for (int i = 0; i < lines.length; i++) {
-            String line = lines[i];
-            int lineNumber = i + 1;
-            
-            for (SecurityRule rule : rules) {
-                Matcher matcher = rule.pattern.matcher(line);
-                if (matcher.find()) {
-                    SecurityIssue issue = SecurityIssue.builder()
-                            .id(rule.id + "-" + lineNumber)
-                            .title(rule.title)
-                            .description(rule.description)
-                            .severity(rule.severity)
-                            .category(rule.category)
-                            .line(lineNumber)
-                            .column(matcher.start())
-                            .cweId(rule.cweId)
-                            .recommendation(rule.recommendation)
-                            .codeSnippet(line.trim())
-                            .build();
-                    
-                    issues.add(issue);
-                    logger.debug("Security issue detected: {} at line {}", rule.title, lineNumber);
-                }
+        for (RuleEngine.Hit hit : scan.getHits(RuleEngine.RuleGroup.SECURITY)) {
+            SecurityRule rule = securityRules.get(hit.getRuleId());
+            if (rule == null) {
+                continue;
             }
+            SecurityIssue issue = SecurityIssue.builder()
+                    .id(rule.id + "-" + hit.getLine())
+                    .title(rule.title)
+                    .description(rule.description)
+                    .severity(rule.severity)
+                    .category(rule.category)
+                    .line(hit.getLine())
+                    .column(hit.getColumn())
+                    .cweId(rule.cweId)
+                    .recommendation(rule.recommendation)
+                    .codeSnippet(hit.getLineText().trim())
+                    .build();
+            
+            issues.add(issue);
+            logger.debug("Security issue detected: {} at line {}", rule.title, hit.getLine());
         }
         
         return issues;
     }
     
-    private Map<String, List<SecurityRule>> initializeSecurityRules() {
-        Map<String, List<SecurityRule>> rules = new HashMap<>();
+    /**
+     * Gets the security rules in the form the shared rule engine runs them.
+     */
+    static List<RuleEngine.Rule> engineRules() {
+        Map<SecurityRule, Set<String>> languagesByRule = new LinkedHashMap<>();
+        initializeSecurityRules().forEach((language, rules) -> rules.forEach(rule ->
+                languagesByRule.computeIfAbsent(rule, key -> new HashSet<>()).add(language)));
+        List<RuleEngine.Rule> engineRules = new ArrayList<>();
+        languagesByRule.forEach((rule, languages) -> engineRules.add(RuleEngine.Rule.line(
+                rule.id, RuleEngine.RuleGroup.SECURITY, languages, rule.pattern, rule.literals)));
+        return engineRules;
+    }
+    
+    private static Map<String, SecurityRule> rulesById(Map<String, List<SecurityRule>> rulesByLanguage) {
+        Map<String, SecurityRule> rules = new HashMap<>();
+        rulesByLanguage.values().forEach(list -> list.forEach(rule -> rules.put(rule.id, rule)));
+        return rules;
+    }
+    
+    private static Map<String, List<SecurityRule>> initializeSecurityRules() {
+        Map<String, List<SecurityRule>> rules = new LinkedHashMap<>();
         
         // Java security rules
         rules.put("java", Arrays.asList(
@@ -71,7 +97,8 @@ public class SecurityAnalyzer {
                         SecurityIssue.Severity.HIGH,
                         SecurityIssue.Category.INJECTION,
                         "CWE-89",
-                        "Use parameterized queries or prepared statements"
+                        "Use parameterized queries or prepared statements",
+                        "select", "insert", "update", "delete"
                 ),
                 new SecurityRule(
                         "java-hardcoded-password",
@@ -81,7 +108,8 @@ public class SecurityAnalyzer {
                         SecurityIssue.Severity.CRITICAL,
                         SecurityIssue.Category.AUTHENTICATION,
                         "CWE-798",
-                        "Use environment variables or secure configuration files"
+                        "Use environment variables or secure configuration files",
+                        "password"
                 ),
                 new SecurityRule(
                         "java-weak-crypto",
@@ -91,7 +119,8 @@ public class SecurityAnalyzer {
                         SecurityIssue.Severity.MEDIUM,
                         SecurityIssue.Category.CRYPTOGRAPHY,
                         "CWE-327",
-                        "Use SHA-256 or stronger cryptographic algorithms"
+                        "Use SHA-256 or stronger cryptographic algorithms",
+                        "md5", "sha1"
                 ),
                 new SecurityRule(
                         "java-deserialization",
@@ -101,7 +130,8 @@ public class SecurityAnalyzer {
                         SecurityIssue.Severity.HIGH,
                         SecurityIssue.Category.INPUT_VALIDATION,
                         "CWE-502",
-                        "Validate and sanitize serialized data before deserialization"
+                        "Validate and sanitize serialized data before deserialization",
+                        "objectinputstream"
                 )
         ));
         
@@ -115,7 +145,8 @@ public class SecurityAnalyzer {
                         SecurityIssue.Severity.HIGH,
                         SecurityIssue.Category.XSS,
                         "CWE-79",
-                        "Use textContent or properly escape HTML content"
+                        "Use textContent or properly escape HTML content",
+                        "innerhtml"
                 ),
                 new SecurityRule(
                         "js-eval-usage",
@@ -125,7 +156,8 @@ public class SecurityAnalyzer {
                         SecurityIssue.Severity.CRITICAL,
                         SecurityIssue.Category.INJECTION,
                         "CWE-95",
-                        "Avoid eval() or use safer alternatives like JSON.parse()"
+                        "Avoid eval() or use safer alternatives like JSON.parse()",
+                        "eval"
                 ),
                 new SecurityRule(
                         "js-hardcoded-secret",
@@ -135,7 +167,8 @@ public class SecurityAnalyzer {
                         SecurityIssue.Severity.CRITICAL,
                         SecurityIssue.Category.CONFIGURATION,
                         "CWE-798",
-                        "Move secrets to environment variables or secure configuration"
+                        "Move secrets to environment variables or secure configuration",
+                        "api", "secret", "token"
                 )
         );
         rules.put("javascript", jsRules);
@@ -151,7 +184,8 @@ public class SecurityAnalyzer {
                         SecurityIssue.Severity.HIGH,
                         SecurityIssue.Category.INJECTION,
                         "CWE-89",
-                        "Use parameterized queries with ? placeholders"
+                        "Use parameterized queries with ? placeholders",
+                        "select", "insert", "update", "delete"
                 ),
                 new SecurityRule(
                         "python-exec-usage",
@@ -161,7 +195,8 @@ public class SecurityAnalyzer {
                         SecurityIssue.Severity.CRITICAL,
                         SecurityIssue.Category.INJECTION,
                         "CWE-95",
-                        "Avoid exec() or validate input thoroughly"
+                        "Avoid exec() or validate input thoroughly",
+                        "exec"
                 ),
                 new SecurityRule(
                         "python-pickle-usage",
@@ -171,7 +206,8 @@ public class SecurityAnalyzer {
                         SecurityIssue.Severity.HIGH,
                         SecurityIssue.Category.INPUT_VALIDATION,
                         "CWE-502",
-                        "Use safer serialization formats like JSON"
+                        "Use safer serialization formats like JSON",
+                        "pickle."
                 )
         ));
         
@@ -187,10 +223,12 @@ public class SecurityAnalyzer {
         final SecurityIssue.Category category;
         final String cweId;
         final String recommendation;
+        // Literals any match contains at least one of, matched case-insensitively
+        final String[] literals;
         
         SecurityRule(String id, String title, String description, Pattern pattern,
                     SecurityIssue.Severity severity, SecurityIssue.Category category,
-                    String cweId, String recommendation) {
+                    String cweId, String recommendation, String... literals) {
             this.id = id;
             this.title = title;
             this.description = description;
@@ -199,6 +237,7 @@ public class SecurityAnalyzer {
             this.category = category;
             this.cweId = cweId;
             this.recommendation = recommendation;
+            this.literals = literals;
         }
     }
 }
\ No newline at end of file
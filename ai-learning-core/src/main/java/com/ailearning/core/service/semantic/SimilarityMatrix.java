@@ -0,0 +1,240 @@
+package com.ailearning.core.service.semantic;
+
+import com.ailearning.core.model.ast.ASTNode;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Immutable sparse similarity matrix over a list of AST nodes, stored in
+ * compressed sparse row (CSR) form.
+ * <p>
+ * Row {@code i} holds the nodes similar to node {@code i} as column indices
+ * into the same node list, in entries {@code offsets[i] .. offsets[i + 1])}.
+ * Entries are ordered by descending similarity, ties by column, so the first
+ * entry of a row is its nearest neighbor. Scores are kept as {@code float}
+ * to halve the footprint of large matrices.
+ * <p>
+ * A thresholded matrix is symmetric; a nearest-neighbor matrix is not, since
+ * node {@code j} may be among the closest nodes of {@code i} but not the
+ * other way round.
+ */
+public final class SimilarityMatrix {
+
+    private final List<ASTNode> nodes;
+    private final int[] offsets;
+    private final int[] columns;
+    private final float[] scores;
+    private final boolean symmetric;
+
+    private SimilarityMatrix(List<ASTNode> nodes, int[] offsets, int[] columns, float[] scores, boolean symmetric) {
+        this.nodes = nodes;
+        this.offsets = offsets;
+        this.columns = columns;
+        this.scores = scores;
+        this.symmetric = symmetric;
+    }
+
+    /**
+     * Creates a matrix without entries.
+     *
+     * @param nodes the rows and columns of the matrix
+     * @return a matrix in which no two nodes are similar
+     */
+    public static SimilarityMatrix empty(List<ASTNode> nodes) {
+        Objects.requireNonNull(nodes, "Nodes cannot be null");
+        return new SimilarityMatrix(List.copyOf(nodes), new int[nodes.size() + 1], new int[0], new float[0], true);
+    }
+
+    /** The number of rows, which is the number of nodes. */
+    public int size() {
+        return nodes.size();
+    }
+
+    public List<ASTNode> getNodes() {
+        return nodes;
+    }
+
+    public ASTNode getNode(int index) {
+        return nodes.get(index);
+    }
+
+    /** The number of stored entries; each similar pair counts twice in a symmetric matrix. */
+    public int getEntryCount() {
+        return columns.length;
+    }
+
+    public boolean isSymmetric() {
+        return symmetric;
+    }
+
+    public int getNeighborCount(int row) {
+        return offsets[row + 1] - offsets[row];
+    }
+
+    /**
+     * Gets the column indices of a row, most similar first.
+     *
+     * @param row the node index
+     * @return a copy of the row's neighbor indices
+     */
+    public int[] getNeighbors(int row) {
+        return Arrays.copyOfRange(columns, offsets[row], offsets[row + 1]);
+    }
+
+    /**
+     * Gets the scores of a row, aligned with {@link #getNeighbors(int)}.
+     *
+     * @param row the node index
+     * @return a copy of the row's similarity scores
+     */
+    public float[] getScores(int row) {
+        return Arrays.copyOfRange(scores, offsets[row], offsets[row + 1]);
+    }
+
+    /**
+     * Visits the entries of a row without copying them.
+     *
+     * @param row the node index
+     * @param action called with each neighbor index and score, most similar first
+     */
+    public void forEachNeighbor(int row, EntryConsumer action) {
+        for (int i = offsets[row]; i < offsets[row + 1]; i++) {
+            action.accept(columns[i], scores[i]);
+        }
+    }
+
+    /**
+     * Gets the stored similarity of a pair.
+     *
+     * @param row the first node index
+     * @param column the second node index
+     * @return the score, or 0.0 if the pair was not stored
+     */
+    public double getSimilarity(int row, int column) {
+        for (int i = offsets[row]; i < offsets[row + 1]; i++) {
+            if (columns[i] == column) {
+                return scores[i];
+            }
+        }
+        return 0.0;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("SimilarityMatrix{nodes=%d, entries=%d, symmetric=%s}",
+                nodes.size(), columns.length, symmetric);
+    }
+
+    /**
+     * Receives one matrix entry.
+     */
+    @FunctionalInterface
+    public interface EntryConsumer {
+        void accept(int column, double similarity);
+    }
+
+    /**
+     * Accumulates entries in any order and packs them into a
+     * {@link SimilarityMatrix}. Not thread-safe; parallel workers fill their
+     * own builders and combine them with {@link #addAll(Builder)}.
+     */
+    public static final class Builder {
+        private int[] rows = new int[16];
+        private int[] cols = new int[16];
+        private float[] values = new float[16];
+        private int count;
+
+        /**
+         * Adds one directed entry.
+         *
+         * @param row the node the entry belongs to
+         * @param column the similar node
+         * @param similarity the score in [0, 1]
+         * @return this builder
+         */
+        public Builder add(int row, int column, double similarity) {
+            ensureCapacity(count + 1);
+            rows[count] = row;
+            cols[count] = column;
+            values[count] = (float) similarity;
+            count++;
+            return this;
+        }
+
+        /**
+         * Adds a pair in both directions.
+         *
+         * @param first the first node index
+         * @param second the second node index
+         * @param similarity the score in [0, 1]
+         * @return this builder
+         */
+        public Builder addPair(int first, int second, double similarity) {
+            return add(first, second, similarity).add(second, first, similarity);
+        }
+
+        public Builder addAll(Builder other) {
+            ensureCapacity(count + other.count);
+            System.arraycopy(other.rows, 0, rows, count, other.count);
+            System.arraycopy(other.cols, 0, cols, count, other.count);
+            System.arraycopy(other.values, 0, values, count, other.count);
+            count += other.count;
+            return this;
+        }
+
+        public int size() {
+            return count;
+        }
+
+        private void ensureCapacity(int capacity) {
+            if (capacity > rows.length) {
+                int grown = Math.max(capacity, rows.length * 2);
+                rows = Arrays.copyOf(rows, grown);
+                cols = Arrays.copyOf(cols, grown);
+                values = Arrays.copyOf(values, grown);
+            }
+        }
+
+        /**
+         * Counting-sorts the entries by row, then orders each row by score.
+         *
+         * @param nodes the rows and columns of the matrix
+         * @param symmetric whether every entry was added in both directions
+         * @return the packed matrix
+         */
+        public SimilarityMatrix build(List<ASTNode> nodes, boolean symmetric) {
+            Objects.requireNonNull(nodes, "Nodes cannot be null");
+            int n = nodes.size();
+            int[] offsets = new int[n + 1];
+            for (int i = 0; i < count; i++) {
+                if (rows[i] < 0 || rows[i] >= n || cols[i] < 0 || cols[i] >= n) {
+                    throw new IllegalArgumentException("Entry outside the matrix: " + rows[i] + ", " + cols[i]);
+                }
+                offsets[rows[i] + 1]++;
+            }
+            for (int row = 0; row < n; row++) {
+                offsets[row + 1] += offsets[row];
+            }
+            // One sortable key per entry: descending score, then ascending column.
+            // Scores are non-negative, so their IEEE bits order like the values.
+            long[] keys = new long[count];
+            int[] next = Arrays.copyOf(offsets, n);
+            for (int i = 0; i < count; i++) {
+                int bits = Float.floatToIntBits(Math.max(0.0f, values[i]));
+                keys[next[rows[i]]++] = ((long) (Integer.MAX_VALUE - bits) << 32) | cols[i];
+            }
+            int[] columns = new int[count];
+            float[] scores = new float[count];
+            for (int row = 0; row < n; row++) {
+                Arrays.sort(keys, offsets[row], offsets[row + 1]);
+                for (int i = offsets[row]; i < offsets[row + 1]; i++) {
+                    columns[i] = (int) keys[i];
+                    scores[i] = Float.intBitsToFloat(Integer.MAX_VALUE - (int) (keys[i] >>> 32));
+                }
+            }
+            return new SimilarityMatrix(List.copyOf(nodes), offsets, columns, scores, symmetric);
+        }
+    }
+}
@@ -0,0 +1,259 @@
+package com.ailearning.core.service.semantic;
+
+import java.util.Arrays;
+import java.util.Objects;
+
+/**
+ * Levenshtein edit distance and the similarity scores derived from it.
+ * <p>
+ * When the shorter string has at most 64 characters, the distance is computed
+ * with Myers' bit-parallel algorithm (in Hyyro's formulation for whole-string
+ * distance). The DP column is packed into one {@code long}, so each character
+ * of the longer string costs a handful of word operations. Longer pairs fall
+ * back to a two-row dynamic program.
+ * <p>
+ * Given a maximum distance {@code k}, both paths stop as soon as the answer
+ * is known to exceed it. The dynamic program then only fills the diagonal
+ * band of width {@code 2k + 1}, following Ukkonen. Per-call buffers come from
+ * a per-thread scratch area, so steady-state calls allocate nothing.
+ */
+public final class StringSimilarity {
+
+    private static final int WORD_SIZE = 64;
+    private static final int ASCII_LIMIT = 128;
+
+    private static final ThreadLocal<Scratch> SCRATCH = ThreadLocal.withInitial(Scratch::new);
+
+    private StringSimilarity() {
+    }
+
+    /**
+     * Computes the Levenshtein distance between two strings.
+     *
+     * @param a the first string
+     * @param b the second string
+     * @return the number of single-character insertions, deletions and substitutions
+     */
+    public static int editDistance(CharSequence a, CharSequence b) {
+        return boundedEditDistance(a, b, Integer.MAX_VALUE - 1);
+    }
+
+    /**
+     * Computes the Levenshtein distance if it is at most {@code maxDistance}.
+     *
+     * @param a the first string
+     * @param b the second string
+     * @param maxDistance the largest distance of interest
+     * @return the distance, or {@code maxDistance + 1} if it is larger
+     */
+    public static int boundedEditDistance(CharSequence a, CharSequence b, int maxDistance) {
+        Objects.requireNonNull(a, "First string cannot be null");
+        Objects.requireNonNull(b, "Second string cannot be null");
+        if (maxDistance < 0) {
+            throw new IllegalArgumentException("Maximum distance cannot be negative");
+        }
+        // Keep the shorter string as the pattern
+        CharSequence pattern = a.length() <= b.length() ? a : b;
+        CharSequence text = pattern == a ? b : a;
+        int cutoff = maxDistance + 1;
+
+        if (text.length() - pattern.length() > maxDistance) {
+            return cutoff;
+        }
+        if (pattern.length() == 0) {
+            return text.length();
+        }
+        if (pattern.length() <= WORD_SIZE) {
+            return bitParallel(pattern, text, maxDistance);
+        }
+        return banded(pattern, text, maxDistance);
+    }
+
+    /**
+     * Computes one minus the edit distance divided by the longer length.
+     *
+     * @param a the first string
+     * @param b the second string
+     * @return similarity in [0, 1]; 1.0 for equal strings, including two empty ones
+     */
+    public static double similarity(CharSequence a, CharSequence b) {
+        int maxLength = Math.max(a.length(), b.length());
+        if (maxLength == 0) {
+            return 1.0;
+        }
+        return 1.0 - (double) editDistance(a, b) / maxLength;
+    }
+
+    /**
+     * Checks whether {@link #similarity} is at least the given threshold,
+     * stopping early once it cannot be.
+     *
+     * @param a the first string
+     * @param b the second string
+     * @param minSimilarity the threshold in [0, 1]
+     * @return true if the strings are at least that similar
+     */
+    public static boolean isSimilar(CharSequence a, CharSequence b, double minSimilarity) {
+        int maxLength = Math.max(a.length(), b.length());
+        if (maxLength == 0) {
+            return true;
+        }
+        int maxDistance = (int) Math.floor((1.0 - minSimilarity) * maxLength + 1e-9);
+        if (maxDistance < 0) {
+            return false;
+        }
+        return boundedEditDistance(a, b, maxDistance) <= maxDistance;
+    }
+
+    /**
+     * Myers/Hyyro bit-vector distance for patterns of up to 64 characters.
+     * Bit i of the vertical delta vectors describes row i + 1 of the current
+     * DP column. The score tracks the bottom cell.
+     */
+    private static int bitParallel(CharSequence pattern, CharSequence text, int maxDistance) {
+        Scratch scratch = SCRATCH.get();
+        int m = pattern.length();
+        int n = text.length();
+        scratch.loadPattern(pattern);
+        try {
+            long positive = -1L;
+            long negative = 0L;
+            long last = 1L << (m - 1);
+            int score = m;
+            for (int j = 0; j < n; j++) {
+                long equal = scratch.mask(text.charAt(j));
+                long vertical = equal | negative;
+                long horizontal = (((equal & positive) + positive) ^ positive) | equal;
+                long horizontalPositive = negative | ~(horizontal | positive);
+                long horizontalNegative = positive & horizontal;
+                if ((horizontalPositive & last) != 0) {
+                    score++;
+                } else if ((horizontalNegative & last) != 0) {
+                    score--;
+                }
+                // Row 0 grows by one per column for whole-string distance
+                horizontalPositive = (horizontalPositive << 1) | 1L;
+                horizontalNegative <<= 1;
+                positive = horizontalNegative | ~(vertical | horizontalPositive);
+                negative = horizontalPositive & vertical;
+                // Each remaining column can lower the bottom cell by at most one
+                if (score - (n - j - 1) > maxDistance) {
+                    return maxDistance + 1;
+                }
+            }
+            return score <= maxDistance ? score : maxDistance + 1;
+        } finally {
+            scratch.clearPattern(pattern);
+        }
+    }
+
+    /**
+     * Two-row dynamic program restricted to the diagonal band {@code |i - j| <= k}.
+     */
+    private static int banded(CharSequence pattern, CharSequence text, int maxDistance) {
+        int m = pattern.length();
+        int n = text.length();
+        int band = Math.min(maxDistance, n);
+        int infinity = band + 1;
+        Scratch scratch = SCRATCH.get();
+        int[] previous = scratch.row(0, m + 1);
+        int[] current = scratch.row(1, m + 1);
+
+        for (int i = 0; i <= m; i++) {
+            previous[i] = i <= band ? i : infinity;
+        }
+        for (int j = 1; j <= n; j++) {
+            int from = Math.max(1, j - band);
+            int to = Math.min(m, j + band);
+            current[0] = j <= band ? j : infinity;
+            if (from > 1) {
+                current[from - 1] = infinity;
+            }
+            char c = text.charAt(j - 1);
+            int rowMinimum = current[0];
+            for (int i = from; i <= to; i++) {
+                int cost = pattern.charAt(i - 1) == c ? 0 : 1;
+                int value = Math.min(previous[i - 1] + cost, Math.min(previous[i], current[i - 1]) + 1);
+                value = Math.min(value, infinity);
+                current[i] = value;
+                rowMinimum = Math.min(rowMinimum, value);
+            }
+            if (to < m) {
+                current[to + 1] = infinity;
+            }
+            if (rowMinimum > band) {
+                return maxDistance + 1;
+            }
+            int[] swap = previous;
+            previous = current;
+            current = swap;
+        }
+        int distance = previous[m];
+        return distance <= maxDistance ? distance : maxDistance + 1;
+    }
+
+    /**
+     * Per-thread buffers: the pattern's character masks and the DP rows.
+     */
+    private static final class Scratch {
+
+        private final long[] asciiMasks = new long[ASCII_LIMIT];
+        // Characters outside ASCII; a pattern has at most 64 distinct ones
+        private final char[] otherChars = new char[WORD_SIZE];
+        private final long[] otherMasks = new long[WORD_SIZE];
+        private int otherCount;
+        private final int[][] rows = {new int[0], new int[0]};
+
+        void loadPattern(CharSequence pattern) {
+            for (int i = 0; i < pattern.length(); i++) {
+                char c = pattern.charAt(i);
+                long bit = 1L << i;
+                if (c < ASCII_LIMIT) {
+                    asciiMasks[c] |= bit;
+                } else {
+                    int slot = indexOfOther(c);
+                    if (slot < 0) {
+                        slot = otherCount++;
+                        otherChars[slot] = c;
+                        otherMasks[slot] = 0L;
+                    }
+                    otherMasks[slot] |= bit;
+                }
+            }
+        }
+
+        long mask(char c) {
+            if (c < ASCII_LIMIT) {
+                return asciiMasks[c];
+            }
+            int slot = indexOfOther(c);
+            return slot < 0 ? 0L : otherMasks[slot];
+        }
+
+        void clearPattern(CharSequence pattern) {
+            for (int i = 0; i < pattern.length(); i++) {
+                char c = pattern.charAt(i);
+                if (c < ASCII_LIMIT) {
+                    asciiMasks[c] = 0L;
+                }
+            }
+            otherCount = 0;
+        }
+
+        int[] row(int which, int length) {
+            if (rows[which].length < length) {
+                rows[which] = Arrays.copyOf(rows[which], Math.max(length, rows[which].length * 2));
+            }
+            return rows[which];
+        }
+
+        private int indexOfOther(char c) {
+            for (int i = 0; i < otherCount; i++) {
+                if (otherChars[i] == c) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+    }
+}
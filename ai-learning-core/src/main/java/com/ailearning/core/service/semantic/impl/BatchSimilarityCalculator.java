@@ -0,0 +1,591 @@
+package com.ailearning.core.service.semantic.impl;
+
+import com.ailearning.core.model.ast.ASTNode;
+import com.ailearning.core.service.semantic.SimilarityMatrix;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Computes the pairwise similarity of a batch of nodes on a fork/join pool.
+ * <p>
+ * Features are extracted once per node by the shared {@link SimilarityCalculator}
+ * and every comparison works on them directly. Nodes of different types never
+ * score above {@link #CROSS_TYPE_LIMIT}, so for higher thresholds the batch is
+ * split into one group per node type and pairs across groups are never scored.
+ * <p>
+ * Groups up to the exhaustive limit are compared in square tiles of
+ * {@link #TILE_SIZE} rows by {@link #TILE_SIZE} columns, one task per tile, so
+ * both sides of the inner loop stay in cache. Larger groups are pruned with
+ * MinHash/LSH over the nodes' token ids: a node is only scored against the
+ * nodes sharing one of its band buckets. That makes the result approximate for
+ * those groups, trading a small loss of recall on weakly similar pairs for
+ * work that grows with the candidate count rather than quadratically.
+ */
+public class BatchSimilarityCalculator {
+
+    private static final Logger logger = LoggerFactory.getLogger(BatchSimilarityCalculator.class);
+
+    public static final int DEFAULT_EXHAUSTIVE_LIMIT = 2048;
+
+    static final int TILE_SIZE = 64;
+    // Cross-type scores are half the average of two [0, 1] terms
+    static final double CROSS_TYPE_LIMIT = 0.5;
+
+    private static final int BANDS = SimilarCodeIndex.DEFAULT_BANDS;
+    private static final int ROWS_PER_BAND = SimilarCodeIndex.DEFAULT_ROWS_PER_BAND;
+    private static final int SIGNATURE_LENGTH = BANDS * ROWS_PER_BAND;
+    // Buckets this large hold shared boilerplate rather than similar code
+    private static final int MAX_BUCKET_SCAN = 4096;
+    private static final int FEATURE_GRAIN = 64;
+    private static final int LSH_ROW_BLOCK = 256;
+    private static final long SEED = 0x2545f4914f6cdd1dL;
+
+    // Token ids of different feature kinds are salted apart before hashing
+    private static final int LEXICAL_TAG = 1;
+    private static final int HISTOGRAM_TAG = 2;
+    private static final int MEMBER_TAG = 3;
+    private static final int FIELD_TAG = 4;
+    private static final int PARAMETER_TAG = 5;
+    private static final int DECLARED_TYPE_TAG = 6;
+
+    private static final ThreadLocal<Scratch> SCRATCH = ThreadLocal.withInitial(Scratch::new);
+
+    private final SimilarityCalculator calculator;
+    private final ForkJoinPool pool;
+    private final int exhaustiveLimit;
+    private final long[] hashMultipliers = new long[SIGNATURE_LENGTH];
+    private final long[] hashOffsets = new long[SIGNATURE_LENGTH];
+
+    private final LongAdder batches = new LongAdder();
+    private final LongAdder comparisons = new LongAdder();
+    private final LongAdder entries = new LongAdder();
+
+    public BatchSimilarityCalculator(SimilarityCalculator calculator) {
+        this(calculator, ForkJoinPool.commonPool(), DEFAULT_EXHAUSTIVE_LIMIT);
+    }
+
+    /**
+     * Creates a calculator with a custom pool and pruning limit.
+     *
+     * @param calculator the calculator whose features and scores are used
+     * @param pool the pool the comparisons run on
+     * @param exhaustiveLimit the largest group compared pair by pair; larger ones are pruned with LSH
+     */
+    public BatchSimilarityCalculator(SimilarityCalculator calculator, ForkJoinPool pool, int exhaustiveLimit) {
+        this.calculator = Objects.requireNonNull(calculator, "Similarity calculator cannot be null");
+        this.pool = Objects.requireNonNull(pool, "Pool cannot be null");
+        if (exhaustiveLimit < 1) {
+            throw new IllegalArgumentException("Exhaustive limit must be positive");
+        }
+        this.exhaustiveLimit = exhaustiveLimit;
+        Random random = new Random(SEED);
+        for (int i = 0; i < SIGNATURE_LENGTH; i++) {
+            hashMultipliers[i] = random.nextLong() | 1L;
+            hashOffsets[i] = random.nextLong();
+        }
+    }
+
+    /**
+     * Computes every pair of nodes whose similarity is at least the threshold.
+     * The matrix holds each pair in both rows, so a low threshold over a large
+     * batch costs memory quadratic in its size.
+     *
+     * @param nodes the nodes to compare
+     * @param threshold the minimum similarity of a stored pair, in [0, 1]
+     * @return the symmetric sparse matrix
+     */
+    public SimilarityMatrix calculateMatrix(List<ASTNode> nodes, double threshold) {
+        return compute(nodes, threshold, 0);
+    }
+
+    /**
+     * Computes up to {@code k} most similar other nodes of every node. Ties are
+     * broken towards the node that comes first in the batch.
+     *
+     * @param nodes the nodes to compare
+     * @param k the maximum number of neighbors per node
+     * @param threshold the minimum similarity of a neighbor, in [0, 1]
+     * @return the sparse matrix whose row i lists the neighbors of node i
+     */
+    public SimilarityMatrix findNearestNeighbors(List<ASTNode> nodes, int k, double threshold) {
+        if (k < 1) {
+            throw new IllegalArgumentException("Neighbor count must be positive");
+        }
+        return compute(nodes, threshold, k);
+    }
+
+    /**
+     * Gets cumulative counters over all batches computed so far.
+     *
+     * @return map of statistic name to value
+     */
+    public Map<String, Object> getStatistics() {
+        Map<String, Object> statistics = new HashMap<>();
+        statistics.put("batches", batches.sum());
+        statistics.put("comparisons", comparisons.sum());
+        statistics.put("entries", entries.sum());
+        statistics.put("exhaustiveLimit", exhaustiveLimit);
+        return statistics;
+    }
+
+    private SimilarityMatrix compute(List<ASTNode> nodes, double threshold, int k) {
+        Objects.requireNonNull(nodes, "Nodes cannot be null");
+        if (threshold < 0.0 || threshold > 1.0) {
+            throw new IllegalArgumentException("Threshold must be between 0 and 1");
+        }
+        List<ASTNode> batch = List.copyOf(nodes);
+        int n = batch.size();
+        long start = System.nanoTime();
+
+        NodeFeatures[] features = new NodeFeatures[n];
+        pool.invoke(new RangeTask(0, n, FEATURE_GRAIN, (from, to) -> {
+            for (int i = from; i < to; i++) {
+                features[i] = calculator.getFeatures(batch.get(i));
+            }
+        }));
+
+        List<Unit> units = new ArrayList<>();
+        for (int[] group : partition(features, threshold)) {
+            if (group.length < 2) {
+                continue;
+            }
+            if (group.length <= exhaustiveLimit) {
+                addTileUnits(units, features, group, threshold, k);
+            } else {
+                addCandidateUnits(units, features, group, threshold, k);
+            }
+        }
+
+        SimilarityMatrix.Builder[] results = new SimilarityMatrix.Builder[units.size()];
+        pool.invoke(new RangeTask(0, units.size(), 1, (from, to) -> {
+            for (int i = from; i < to; i++) {
+                SimilarityMatrix.Builder builder = new SimilarityMatrix.Builder();
+                units.get(i).run(builder);
+                results[i] = builder;
+            }
+        }));
+        SimilarityMatrix.Builder merged = new SimilarityMatrix.Builder();
+        for (SimilarityMatrix.Builder result : results) {
+            merged.addAll(result);
+        }
+        SimilarityMatrix matrix = merged.build(batch, k == 0);
+
+        batches.increment();
+        entries.add(matrix.getEntryCount());
+        logger.debug("Computed {} over {} nodes in {} ms", matrix, n, (System.nanoTime() - start) / 1_000_000);
+        return matrix;
+    }
+
+    /**
+     * Splits the batch into groups that can contain pairs above the threshold.
+     */
+    private List<int[]> partition(NodeFeatures[] features, double threshold) {
+        if (threshold <= CROSS_TYPE_LIMIT) {
+            int[] all = new int[features.length];
+            Arrays.setAll(all, i -> i);
+            return List.of(all);
+        }
+        Map<String, IdList> byType = new LinkedHashMap<>();
+        for (int i = 0; i < features.length; i++) {
+            byType.computeIfAbsent(features[i].getNodeType(), type -> new IdList()).add(i);
+        }
+        List<int[]> groups = new ArrayList<>(byType.size());
+        byType.values().forEach(ids -> groups.add(ids.toArray()));
+        return groups;
+    }
+
+    /**
+     * Exhaustive comparison. For a thresholded matrix each unit is one tile of
+     * the upper triangle and scores each pair once. For nearest neighbors each
+     * unit owns a block of rows and sweeps all column tiles, so a row's
+     * neighbor heap is never shared between tasks.
+     */
+    private void addTileUnits(List<Unit> units, NodeFeatures[] features, int[] group, double threshold, int k) {
+        int m = group.length;
+        for (int rowFrom = 0; rowFrom < m; rowFrom += TILE_SIZE) {
+            int rowTo = Math.min(m, rowFrom + TILE_SIZE);
+            int rows = rowFrom;
+            if (k > 0) {
+                units.add(out -> scoreRowBlock(features, group, rows, rowTo, threshold, k, out));
+                continue;
+            }
+            for (int colFrom = rowFrom; colFrom < m; colFrom += TILE_SIZE) {
+                int cols = colFrom;
+                int colTo = Math.min(m, colFrom + TILE_SIZE);
+                units.add(out -> scoreTile(features, group, rows, rowTo, cols, colTo, threshold, out));
+            }
+        }
+    }
+
+    private void scoreTile(NodeFeatures[] features, int[] group, int rowFrom, int rowTo, int colFrom, int colTo,
+                           double threshold, SimilarityMatrix.Builder out) {
+        long scored = 0;
+        for (int r = rowFrom; r < rowTo; r++) {
+            NodeFeatures row = features[group[r]];
+            // The diagonal tile only holds its upper half
+            for (int c = rowFrom == colFrom ? r + 1 : colFrom; c < colTo; c++) {
+                double similarity = calculator.calculateSimilarity(row, features[group[c]]);
+                scored++;
+                if (similarity >= threshold) {
+                    out.addPair(group[r], group[c], similarity);
+                }
+            }
+        }
+        comparisons.add(scored);
+    }
+
+    private void scoreRowBlock(NodeFeatures[] features, int[] group, int rowFrom, int rowTo,
+                               double threshold, int k, SimilarityMatrix.Builder out) {
+        int m = group.length;
+        TopNeighbors[] heaps = new TopNeighbors[rowTo - rowFrom];
+        for (int r = rowFrom; r < rowTo; r++) {
+            heaps[r - rowFrom] = new TopNeighbors(k);
+        }
+        long scored = 0;
+        for (int colFrom = 0; colFrom < m; colFrom += TILE_SIZE) {
+            int colTo = Math.min(m, colFrom + TILE_SIZE);
+            for (int r = rowFrom; r < rowTo; r++) {
+                NodeFeatures row = features[group[r]];
+                TopNeighbors heap = heaps[r - rowFrom];
+                for (int c = colFrom; c < colTo; c++) {
+                    if (c == r) {
+                        continue;
+                    }
+                    double similarity = calculator.calculateSimilarity(row, features[group[c]]);
+                    scored++;
+                    if (similarity >= threshold) {
+                        heap.offer(group[c], similarity);
+                    }
+                }
+            }
+        }
+        for (int r = rowFrom; r < rowTo; r++) {
+            heaps[r - rowFrom].drainTo(group[r], out);
+        }
+        comparisons.add(scored);
+    }
+
+    /**
+     * LSH-pruned comparison: signatures and band buckets are built for the
+     * group first, then each unit scores a block of rows against their
+     * candidates only.
+     */
+    private void addCandidateUnits(List<Unit> units, NodeFeatures[] features, int[] group, double threshold, int k) {
+        BandBuckets buckets = buildBuckets(features, group);
+        for (int rowFrom = 0; rowFrom < group.length; rowFrom += LSH_ROW_BLOCK) {
+            int rows = rowFrom;
+            int rowTo = Math.min(group.length, rowFrom + LSH_ROW_BLOCK);
+            units.add(out -> scoreCandidates(features, group, buckets, rows, rowTo, threshold, k, out));
+        }
+    }
+
+    private void scoreCandidates(NodeFeatures[] features, int[] group, BandBuckets buckets, int rowFrom, int rowTo,
+                                 double threshold, int k, SimilarityMatrix.Builder out) {
+        int m = group.length;
+        Scratch scratch = SCRATCH.get();
+        long scored = 0;
+        for (int r = rowFrom; r < rowTo; r++) {
+            NodeFeatures row = features[group[r]];
+            int[] seen = scratch.seen(m);
+            int epoch = scratch.nextEpoch();
+            TopNeighbors heap = k > 0 ? new TopNeighbors(k) : null;
+            for (int band = 0; band < BANDS; band++) {
+                int slot = band * m + r;
+                for (int p = buckets.bucketStart[slot]; p < buckets.bucketEnd[slot]; p++) {
+                    int c = buckets.sorted[p];
+                    // A thresholded pair is scored from its lower row only
+                    if (c == r || seen[c] == epoch || (heap == null && c < r)) {
+                        continue;
+                    }
+                    seen[c] = epoch;
+                    double similarity = calculator.calculateSimilarity(row, features[group[c]]);
+                    scored++;
+                    if (similarity < threshold) {
+                        continue;
+                    }
+                    if (heap != null) {
+                        heap.offer(group[c], similarity);
+                    } else {
+                        out.addPair(group[r], group[c], similarity);
+                    }
+                }
+            }
+            if (heap != null) {
+                heap.drainTo(group[r], out);
+            }
+        }
+        comparisons.add(scored);
+    }
+
+    private BandBuckets buildBuckets(NodeFeatures[] features, int[] group) {
+        int m = group.length;
+        int[] signatures = new int[m * SIGNATURE_LENGTH];
+        pool.invoke(new RangeTask(0, m, FEATURE_GRAIN, (from, to) -> {
+            for (int r = from; r < to; r++) {
+                signature(features[group[r]], signatures, r * SIGNATURE_LENGTH);
+            }
+        }));
+
+        BandBuckets buckets = new BandBuckets(m);
+        pool.invoke(new RangeTask(0, BANDS, 1, (from, to) -> {
+            long[] keys = new long[m];
+            for (int band = from; band < to; band++) {
+                for (int r = 0; r < m; r++) {
+                    keys[r] = ((long) bandKey(signatures, r * SIGNATURE_LENGTH, band) << 32) | r;
+                }
+                Arrays.sort(keys);
+                int base = band * m;
+                for (int runStart = 0; runStart < m; ) {
+                    int key = (int) (keys[runStart] >>> 32);
+                    int runEnd = runStart + 1;
+                    while (runEnd < m && (int) (keys[runEnd] >>> 32) == key) {
+                        runEnd++;
+                    }
+                    boolean oversized = runEnd - runStart > MAX_BUCKET_SCAN;
+                    for (int p = runStart; p < runEnd; p++) {
+                        int r = (int) keys[p];
+                        buckets.sorted[base + p] = r;
+                        buckets.bucketStart[base + r] = base + runStart;
+                        buckets.bucketEnd[base + r] = oversized ? base + runStart : base + runEnd;
+                    }
+                    runStart = runEnd;
+                }
+            }
+        }));
+        return buckets;
+    }
+
+    /**
+     * Writes the MinHash signature of a node's salted token ids. Each hash
+     * function is a multiply-add over the mixed 64-bit element, keeping the high bits.
+     */
+    private void signature(NodeFeatures features, int[] signatures, int offset) {
+        Arrays.fill(signatures, offset, offset + SIGNATURE_LENGTH, Integer.MAX_VALUE);
+        addElements(features.lexicalTokens(), LEXICAL_TAG, signatures, offset);
+        addElements(features.histogramTypes(), HISTOGRAM_TAG, signatures, offset);
+        addElements(features.memberNames(), MEMBER_TAG, signatures, offset);
+        addElements(features.fieldNames(), FIELD_TAG, signatures, offset);
+        addElements(features.parameterTypes(), PARAMETER_TAG, signatures, offset);
+        if (features.declaredType() != NodeFeatures.NONE) {
+            addElement(features.declaredType(), DECLARED_TYPE_TAG, signatures, offset);
+        }
+    }
+
+    private void addElements(int[] ids, int tag, int[] signatures, int offset) {
+        for (int id : ids) {
+            addElement(id, tag, signatures, offset);
+        }
+    }
+
+    private void addElement(int id, int tag, int[] signatures, int offset) {
+        long element = mix(((long) tag << 32) | (id & 0xffffffffL));
+        for (int i = 0; i < SIGNATURE_LENGTH; i++) {
+            int hash = (int) ((element * hashMultipliers[i] + hashOffsets[i]) >>> 33);
+            if (hash < signatures[offset + i]) {
+                signatures[offset + i] = hash;
+            }
+        }
+    }
+
+    private static int bandKey(int[] signatures, int offset, int band) {
+        int hash = band;
+        int start = offset + band * ROWS_PER_BAND;
+        for (int row = 0; row < ROWS_PER_BAND; row++) {
+            hash = hash * 31 + signatures[start + row];
+        }
+        return (int) mix(hash);
+    }
+
+    private static long mix(long value) {
+        value ^= value >>> 33;
+        value *= 0xff51afd7ed558ccdL;
+        value ^= value >>> 33;
+        value *= 0xc4ceb9fe1a85ec53L;
+        value ^= value >>> 33;
+        return value;
+    }
+
+    /**
+     * One independent piece of a batch, writing its entries to its own builder.
+     */
+    @FunctionalInterface
+    private interface Unit {
+        void run(SimilarityMatrix.Builder out);
+    }
+
+    @FunctionalInterface
+    private interface RangeAction {
+        void run(int from, int to);
+    }
+
+    /**
+     * Splits an index range in halves until it is no larger than the grain.
+     */
+    private static final class RangeTask extends RecursiveAction {
+        private final int from;
+        private final int to;
+        private final int grain;
+        private final RangeAction action;
+
+        RangeTask(int from, int to, int grain, RangeAction action) {
+            this.from = from;
+            this.to = to;
+            this.grain = grain;
+            this.action = action;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= grain) {
+                action.run(from, to);
+                return;
+            }
+            int middle = (from + to) >>> 1;
+            invokeAll(new RangeTask(from, middle, grain, action), new RangeTask(middle, to, grain, action));
+        }
+    }
+
+    /**
+     * Per band, the group's rows sorted by band key, and for each row the range
+     * of its bucket within that order. Rows of oversized buckets get an empty range.
+     */
+    private static final class BandBuckets {
+        final int[] sorted;
+        final int[] bucketStart;
+        final int[] bucketEnd;
+
+        BandBuckets(int size) {
+            this.sorted = new int[BANDS * size];
+            this.bucketStart = new int[BANDS * size];
+            this.bucketEnd = new int[BANDS * size];
+        }
+    }
+
+    /**
+     * Bounded min-heap of one row's best neighbors. The root is the weakest
+     * kept entry; lower scores, then higher column indices, are weaker.
+     */
+    private static final class TopNeighbors {
+        private final int[] columns;
+        private final double[] scores;
+        private int size;
+
+        TopNeighbors(int capacity) {
+            this.columns = new int[capacity];
+            this.scores = new double[capacity];
+        }
+
+        void offer(int column, double score) {
+            if (size < columns.length) {
+                columns[size] = column;
+                scores[size] = score;
+                siftUp(size++);
+            } else if (weaker(columns[0], scores[0], column, score)) {
+                columns[0] = column;
+                scores[0] = score;
+                siftDown(0);
+            }
+        }
+
+        void drainTo(int row, SimilarityMatrix.Builder out) {
+            for (int i = 0; i < size; i++) {
+                out.add(row, columns[i], scores[i]);
+            }
+        }
+
+        private static boolean weaker(int column1, double score1, int column2, double score2) {
+            return score1 < score2 || (score1 == score2 && column1 > column2);
+        }
+
+        private void siftUp(int index) {
+            while (index > 0) {
+                int parent = (index - 1) >>> 1;
+                if (!weaker(columns[index], scores[index], columns[parent], scores[parent])) {
+                    return;
+                }
+                swap(index, parent);
+                index = parent;
+            }
+        }
+
+        private void siftDown(int index) {
+            while (true) {
+                int weakest = index;
+                for (int child = 2 * index + 1; child <= 2 * index + 2 && child < size; child++) {
+                    if (weaker(columns[child], scores[child], columns[weakest], scores[weakest])) {
+                        weakest = child;
+                    }
+                }
+                if (weakest == index) {
+                    return;
+                }
+                swap(index, weakest);
+                index = weakest;
+            }
+        }
+
+        private void swap(int i, int j) {
+            int column = columns[i];
+            columns[i] = columns[j];
+            columns[j] = column;
+            double score = scores[i];
+            scores[i] = scores[j];
+            scores[j] = score;
+        }
+    }
+
+    /**
+     * Growable list of node indices.
+     */
+    private static final class IdList {
+        private int[] ids = new int[8];
+        private int size;
+
+        void add(int id) {
+            if (size == ids.length) {
+                ids = Arrays.copyOf(ids, size * 2);
+            }
+            ids[size++] = id;
+        }
+
+        int[] toArray() {
+            return Arrays.copyOf(ids, size);
+        }
+    }
+
+    /**
+     * Per-thread de-duplication marks for candidate scans.
+     */
+    private static final class Scratch {
+        private int[] seen = new int[0];
+        private int epoch;
+
+        int[] seen(int size) {
+            if (seen.length < size) {
+                seen = new int[size];
+                epoch = 0;
+            }
+            return seen;
+        }
+
+        int nextEpoch() {
+            if (++epoch == Integer.MAX_VALUE) {
+                Arrays.fill(seen, 0);
+                epoch = 1;
+            }
+            return epoch;
+        }
+    }
+}
@@ -0,0 +1,235 @@
+package com.ailearning.core.service.semantic.impl;
+
+import com.ailearning.core.model.ast.ASTNode;
+import com.ailearning.core.model.ast.ASTTraversal;
+import com.ailearning.core.model.ast.ExpressionNode;
+import com.ailearning.core.model.ast.StatementNode;
+import com.ailearning.core.model.ast.TraversalVisitor;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Turns classes and methods into fixed-dimension embedding vectors without any
+ * model or network access.
+ * <p>
+ * Two families of features are extracted from a subtree. Identifier features
+ * are the lower-cased words of declared names and type names, split on camel
+ * case. Path features are the vertical AST paths of one to three labels ending
+ * at each node, where statements and expressions are labelled by their kind,
+ * so {@code method/for/if} and {@code for/if/methodcall} describe control flow
+ * independently of naming. Each feature is hashed to one of the dimensions
+ * with a hash-derived sign, which keeps collisions unbiased, and the vector is
+ * L2-normalized so that a dot product is the cosine similarity.
+ * <p>
+ * Free text such as a search query only yields identifier features and is
+ * embedded into the same space, so it can be compared with code directly.
+ */
+public class CodeEmbedder {
+
+    public static final int DEFAULT_DIMENSIONS = 256;
+
+    // Path features describe shape; naming carries more of what code is about
+    private static final float IDENTIFIER_WEIGHT = 1.0f;
+    private static final float PATH_WEIGHT = 0.5f;
+    private static final int MAX_PATH_LENGTH = 3;
+    // Larger subtrees are embedded from their first nodes only
+    private static final int MAX_EMBEDDED_NODES = 4096;
+    private static final long FNV_OFFSET = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+    private static final long IDENTIFIER_SALT = 0x5bd1e9955bd1e995L;
+    private static final long PATH_SALT = 0x27d4eb2f165667c5L;
+
+    private final int dimensions;
+
+    public CodeEmbedder() {
+        this(DEFAULT_DIMENSIONS);
+    }
+
+    /**
+     * Creates an embedder with a custom vector size. Vectors of different sizes
+     * are not comparable.
+     *
+     * @param dimensions the number of vector components
+     */
+    public CodeEmbedder(int dimensions) {
+        if (dimensions < 8) {
+            throw new IllegalArgumentException("Embedding dimensions must be at least 8");
+        }
+        this.dimensions = dimensions;
+    }
+
+    public int getDimensions() {
+        return dimensions;
+    }
+
+    /**
+     * Embeds a subtree from its identifiers and AST paths.
+     *
+     * @param node the root of the subtree, typically a class or method
+     * @return the unit-length embedding, or a zero vector for a featureless node
+     */
+    public float[] embed(ASTNode node) {
+        Objects.requireNonNull(node, "Node cannot be null");
+        FeatureCollector collector = new FeatureCollector(new float[dimensions]);
+        ASTTraversal.walk(node, collector);
+        return normalize(collector.vector);
+    }
+
+    /**
+     * Embeds free text, such as a search query, from its identifier words.
+     *
+     * @param text the text to embed
+     * @return the unit-length embedding, or a zero vector for text without words
+     */
+    public float[] embedText(String text) {
+        Objects.requireNonNull(text, "Text cannot be null");
+        float[] vector = new float[dimensions];
+        addWords(vector, text);
+        return normalize(vector);
+    }
+
+    /**
+     * Computes the dot product of two vectors of the same size, which for
+     * embeddings from this class is their cosine similarity.
+     */
+    static float dot(float[] a, float[] b) {
+        float sum = 0.0f;
+        for (int i = 0; i < a.length; i++) {
+            sum += a[i] * b[i];
+        }
+        return sum;
+    }
+
+    private static float[] normalize(float[] vector) {
+        double squares = 0.0;
+        for (float value : vector) {
+            squares += value * value;
+        }
+        if (squares > 0.0) {
+            float scale = (float) (1.0 / Math.sqrt(squares));
+            for (int i = 0; i < vector.length; i++) {
+                vector[i] *= scale;
+            }
+        }
+        return vector;
+    }
+
+    private void addFeature(float[] vector, long hash, float weight) {
+        long mixed = mix(hash);
+        int index = (int) ((mixed & Long.MAX_VALUE) % dimensions);
+        vector[index] += mixed >= 0 ? weight : -weight;
+    }
+
+    /**
+     * Adds the lower-cased words of an identifier, splitting on camel case
+     * and non-alphanumerics, so {@code parseHTTPHeader} yields parse, http, header.
+     */
+    private void addWords(float[] vector, String identifier) {
+        long hash = FNV_OFFSET;
+        int length = 0;
+        for (int i = 0; i < identifier.length(); i++) {
+            char c = identifier.charAt(i);
+            boolean alphanumeric = Character.isLetterOrDigit(c);
+            boolean wordStart = Character.isUpperCase(c) && i > 0
+                    && (Character.isLowerCase(identifier.charAt(i - 1))
+                        || (Character.isUpperCase(identifier.charAt(i - 1))
+                            && i + 1 < identifier.length() && Character.isLowerCase(identifier.charAt(i + 1))));
+            if ((!alphanumeric || wordStart) && length > 0) {
+                addFeature(vector, hash ^ IDENTIFIER_SALT, IDENTIFIER_WEIGHT);
+                hash = FNV_OFFSET;
+                length = 0;
+            }
+            if (alphanumeric) {
+                hash = (hash ^ Character.toLowerCase(c)) * FNV_PRIME;
+                length++;
+            }
+        }
+        if (length > 0) {
+            addFeature(vector, hash ^ IDENTIFIER_SALT, IDENTIFIER_WEIGHT);
+        }
+    }
+
+    private static long hashWord(String word) {
+        long hash = FNV_OFFSET;
+        for (int i = 0; i < word.length(); i++) {
+            hash = (hash ^ word.charAt(i)) * FNV_PRIME;
+        }
+        return hash;
+    }
+
+    private static long mix(long value) {
+        value ^= value >>> 33;
+        value *= 0xff51afd7ed558ccdL;
+        value ^= value >>> 33;
+        value *= 0xc4ceb9fe1a85ec53L;
+        value ^= value >>> 33;
+        return value;
+    }
+
+    /**
+     * Pre-order collector keeping the labels of the current root path on a stack.
+     */
+    private final class FeatureCollector implements TraversalVisitor {
+        private final float[] vector;
+        private long[] path = new long[32];
+        private int depth;
+        private int visited;
+
+        FeatureCollector(float[] vector) {
+            this.vector = vector;
+        }
+
+        @Override
+        public VisitResult enter(ASTNode node) {
+            if (depth == path.length) {
+                path = Arrays.copyOf(path, depth * 2);
+            }
+            path[depth++] = labelHash(node);
+            long hash = PATH_SALT;
+            for (int length = 1; length <= MAX_PATH_LENGTH && length <= depth; length++) {
+                hash = hash * 31 + path[depth - length];
+                addFeature(vector, hash, PATH_WEIGHT);
+            }
+
+            boolean structural = node instanceof StatementNode || node instanceof ExpressionNode;
+            if (node.getName() != null && !structural) {
+                addWords(vector, node.getName());
+            }
+            addTypeName(node.getAttribute("type"));
+            addTypeName(node.getAttribute("returnType"));
+            Object parameters = node.getAttribute("parameters");
+            if (parameters instanceof List) {
+                for (Object parameter : (List<?>) parameters) {
+                    if (parameter instanceof Map) {
+                        addTypeName(((Map<?, ?>) parameter).get("type"));
+                    }
+                }
+            }
+            return ++visited < MAX_EMBEDDED_NODES ? VisitResult.CONTINUE : VisitResult.SKIP_CHILDREN;
+        }
+
+        @Override
+        public void exit(ASTNode node) {
+            depth--;
+        }
+
+        private void addTypeName(Object typeName) {
+            if (typeName instanceof String) {
+                addWords(vector, (String) typeName);
+            }
+        }
+
+        /**
+         * Statements and expressions share one node type and carry their kind
+         * as the name, so the kind is part of the label.
+         */
+        private long labelHash(ASTNode node) {
+            long hash = hashWord(node.getNodeType());
+            boolean structural = node instanceof StatementNode || node instanceof ExpressionNode;
+            return structural && node.getName() != null ? (hash ^ hashWord(node.getName())) * FNV_PRIME : hash;
+        }
+    }
+}
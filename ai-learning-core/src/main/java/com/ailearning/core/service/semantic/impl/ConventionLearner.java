@@ -0,0 +1,828 @@
+package com.ailearning.core.service.semantic.impl;
+
+import com.ailearning.core.model.CodingConvention;
+import com.ailearning.core.model.ProjectContext;
+import com.ailearning.core.model.ast.ASTNode;
+import com.ailearning.core.model.ast.ASTTraversal;
+import com.ailearning.core.model.ast.ClassNode;
+import com.ailearning.core.model.ast.MethodNode;
+import com.ailearning.core.model.ast.ModuleNode;
+import com.ailearning.core.model.ast.SourceLocation;
+import com.ailearning.core.model.ast.TraversalVisitor;
+import com.ailearning.core.model.ast.VariableNode;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * Learns the coding conventions of a project from a stream of parsed files.
+ * <p>
+ * Files are accepted one at a time as the indexer produces their trees, and
+ * only compact summaries are kept. Each file is reduced to counts of the
+ * naming styles of its classes, methods, fields, constants and variables, its
+ * indentation unit, brace placement, import ordering and member ordering.
+ * Project-wide counts are exact; per-package counts share one
+ * {@link CountMinSketch}, and distinct files and packages are counted with
+ * {@link HyperLogLog}s. The last counts of each file are kept, a few hundred
+ * bytes per file, so re-reading a file replaces its earlier counts instead of
+ * adding to them, and {@link #forget} takes a removed file's counts back out.
+ * Up to a fixed number of packages are tracked by name for reporting
+ * deviations from the project style; the conventions of any other package can
+ * still be queried by name.
+ * <p>
+ * Learners of the same shape can be filled by parallel workers and merged.
+ * Conventions can be emitted at any time: the most common style of each
+ * aspect is reported with its adherence and the Wilson lower bound of that
+ * share as confidence.
+ */
+public class ConventionLearner {
+
+    private static final Logger logger = LoggerFactory.getLogger(ConventionLearner.class);
+
+    public static final int DEFAULT_SKETCH_WIDTH = 1 << 14;
+    public static final int DEFAULT_SKETCH_DEPTH = 4;
+    public static final int DEFAULT_MAX_PACKAGES = 4096;
+
+    private static final int FILE_PRECISION = 14;
+    private static final int PACKAGE_PRECISION = 12;
+    private static final int PACKAGE_FILE_PRECISION = 7;
+
+    // Observations needed before an aspect is reported
+    private static final int MIN_SUPPORT = 5;
+    private static final double MIN_CONFIDENCE = 0.5;
+    private static final double ENFORCE_CONFIDENCE = 0.8;
+    private static final double Z = 1.96;
+
+    private static final String DEFAULT_PACKAGE = "(default)";
+
+    // Naming styles, in value order of the naming aspects
+    private static final int PASCAL = 0;
+    private static final int CAMEL = 1;
+    private static final int SNAKE = 2;
+    private static final int UPPER_SNAKE = 3;
+    private static final int LOWER = 4;
+    private static final int OTHER = 5;
+
+    private static final String[] NAMING_STYLES = {"PascalCase", "camelCase", "snake_case", "UPPER_SNAKE_CASE",
+            "lowercase", null};
+
+    /**
+     * An aspect of code style and the values it is counted by. A null rule
+     * marks a value that is counted but never reported as a convention.
+     */
+    private enum Aspect {
+        CLASS_NAMING("Class naming", CodingConvention.ConventionType.NAMING, "class names",
+                namingRules("Class names")),
+        METHOD_NAMING("Method naming", CodingConvention.ConventionType.NAMING, "method names",
+                namingRules("Method names")),
+        FIELD_NAMING("Field naming", CodingConvention.ConventionType.NAMING, "field names",
+                namingRules("Field names")),
+        CONSTANT_NAMING("Constant naming", CodingConvention.ConventionType.NAMING, "constant names",
+                namingRules("Constant names")),
+        VARIABLE_NAMING("Variable naming", CodingConvention.ConventionType.NAMING, "variable names",
+                namingRules("Variable and parameter names")),
+        INDENTATION("Indentation", CodingConvention.ConventionType.FORMATTING, "files",
+                "Indent with tabs", "Indent with 2 spaces", "Indent with 4 spaces", "Indent with 8 spaces"),
+        BRACE_PLACEMENT("Brace placement", CodingConvention.ConventionType.FORMATTING, "opening braces",
+                "Opening braces go at the end of the line", "Opening braces go on their own line"),
+        IMPORT_ORDER("Import ordering", CodingConvention.ConventionType.STRUCTURE, "files with imports",
+                "Imports are sorted alphabetically", "Imports are grouped by top-level package", null),
+        MEMBER_ORDER("Member ordering", CodingConvention.ConventionType.STRUCTURE, "classes",
+                "Fields come first, then constructors, then methods", "Fields come before other members", null);
+
+        final String label;
+        final CodingConvention.ConventionType type;
+        final String subject;
+        final String[] rules;
+        int offset;
+
+        Aspect(String label, CodingConvention.ConventionType type, String subject, String... rules) {
+            this.label = label;
+            this.type = type;
+            this.subject = subject;
+            this.rules = rules;
+        }
+
+        boolean isNaming() {
+            return type == CodingConvention.ConventionType.NAMING;
+        }
+
+        int slot(int value) {
+            return offset + value;
+        }
+
+        private static String[] namingRules(String subject) {
+            String[] rules = new String[NAMING_STYLES.length];
+            for (int style = 0; style < rules.length; style++) {
+                rules[style] = NAMING_STYLES[style] != null ? subject + " use " + NAMING_STYLES[style] : null;
+            }
+            return rules;
+        }
+    }
+
+    private static final Aspect[] ASPECTS = Aspect.values();
+    private static final int SLOTS;
+
+    static {
+        int offset = 0;
+        for (Aspect aspect : ASPECTS) {
+            aspect.offset = offset;
+            offset += aspect.rules.length;
+        }
+        SLOTS = offset;
+    }
+
+    // Values of the indentation, brace, import and member aspects
+    private static final int INDENT_TABS = 0;
+    private static final int BRACE_SAME_LINE = 0;
+    private static final int BRACE_NEXT_LINE = 1;
+    private static final int IMPORTS_SORTED = 0;
+    private static final int IMPORTS_GROUPED = 1;
+    private static final int IMPORTS_UNSORTED = 2;
+    private static final int MEMBERS_ORDERED = 0;
+    private static final int MEMBERS_FIELDS_FIRST = 1;
+    private static final int MEMBERS_MIXED = 2;
+
+    private final int maxPackages;
+    private final long[] projectCounts = new long[SLOTS];
+    // First name seen for each naming slot, shown as the example of a convention
+    private final String[] examples = new String[SLOTS];
+    private final CountMinSketch packageCounts;
+    private final HyperLogLog files = new HyperLogLog(FILE_PRECISION);
+    private final HyperLogLog packageNames = new HyperLogLog(PACKAGE_PRECISION);
+    // Distinct files of each tracked package
+    private final Map<String, HyperLogLog> packages = new HashMap<>();
+    // What each file last added to the counts
+    private final Map<String, FileCounts> fileCounts = new HashMap<>();
+
+    public ConventionLearner() {
+        this(DEFAULT_SKETCH_WIDTH, DEFAULT_SKETCH_DEPTH, DEFAULT_MAX_PACKAGES);
+    }
+
+    /**
+     * @param sketchWidth counters per row of the per-package sketch
+     * @param sketchDepth rows of the per-package sketch
+     * @param maxPackages packages tracked by name for reporting deviations
+     */
+    public ConventionLearner(int sketchWidth, int sketchDepth, int maxPackages) {
+        if (maxPackages < 0) {
+            throw new IllegalArgumentException("Maximum package count cannot be negative");
+        }
+        this.packageCounts = new CountMinSketch(sketchWidth, sketchDepth);
+        this.maxPackages = maxPackages;
+    }
+
+    /**
+     * Learns from a parsed file whose source text is not at hand. Indentation
+     * is then inferred from the columns of class members, and brace placement
+     * is not learned.
+     */
+    public void accept(String filePath, ASTNode root) {
+        accept(filePath, root, null);
+    }
+
+    /**
+     * Learns from a parsed file.
+     *
+     * @param filePath the file the tree was parsed from
+     * @param root the file's tree
+     * @param source the file's text, or null if not at hand
+     */
+    public void accept(String filePath, ASTNode root, String source) {
+        Objects.requireNonNull(filePath, "File path cannot be null");
+        Objects.requireNonNull(root, "Root node cannot be null");
+
+        // Summarize the file before taking the lock; it only reads the tree and text
+        FileObserver observer = new FileObserver();
+        ASTTraversal.walk(root, observer);
+        if (source != null) {
+            observeSource(source, observer.counts);
+        } else {
+            vote(observer.counts, Aspect.INDENTATION, observer.indentVotes);
+        }
+        String packageName = observer.packageName != null ? observer.packageName : directoryOf(filePath);
+        long fileHash = hash(filePath);
+        long packageHash = hash(packageName);
+
+        synchronized (this) {
+            files.add(fileHash);
+            packageNames.add(packageHash);
+            HyperLogLog packageFiles = packages.get(packageName);
+            if (packageFiles == null && packages.size() < maxPackages) {
+                packageFiles = new HyperLogLog(PACKAGE_FILE_PRECISION);
+                packages.put(packageName, packageFiles);
+            }
+            if (packageFiles != null) {
+                packageFiles.add(fileHash);
+            }
+            FileCounts counts = new FileCounts(packageHash, observer.counts);
+            FileCounts previous = fileCounts.put(filePath, counts);
+            if (previous != null) {
+                subtract(previous);
+            }
+            add(counts);
+            for (int slot = 0; slot < SLOTS; slot++) {
+                if (observer.counts[slot] > 0 && examples[slot] == null) {
+                    examples[slot] = observer.examples[slot];
+                }
+            }
+        }
+        logger.debug("Learned conventions from {} in package {}", filePath, packageName);
+    }
+
+    /**
+     * Takes a file's counts back out, such as when the file is deleted. The
+     * file stays in the distinct file and package estimates.
+     *
+     * @param filePath the file to forget
+     */
+    public synchronized void forget(String filePath) {
+        FileCounts previous = fileCounts.remove(filePath);
+        if (previous != null) {
+            subtract(previous);
+            logger.debug("Forgot conventions learned from {}", filePath);
+        }
+    }
+
+    private void add(FileCounts counts) {
+        for (int slot = 0; slot < SLOTS; slot++) {
+            int count = counts.counts[slot];
+            if (count > 0) {
+                projectCounts[slot] += count;
+                packageCounts.add(slotKey(counts.packageHash, slot), count);
+            }
+        }
+    }
+
+    private void subtract(FileCounts counts) {
+        for (int slot = 0; slot < SLOTS; slot++) {
+            int count = counts.counts[slot];
+            if (count > 0) {
+                projectCounts[slot] -= count;
+                packageCounts.remove(slotKey(counts.packageHash, slot), count);
+            }
+        }
+    }
+
+    /**
+     * Adds everything another learner has seen, such as a parallel worker's.
+     *
+     * @param other a learner created with the same sketch width and depth
+     * @throws IllegalArgumentException if the sketches differ in shape
+     */
+    public void merge(ConventionLearner other) {
+        Objects.requireNonNull(other, "Convention learner cannot be null");
+        if (other == this) {
+            return;
+        }
+        // Copy under the other learner's lock only, so merging in both directions cannot deadlock
+        ConventionLearner copy;
+        synchronized (other) {
+            copy = other.copy();
+        }
+        synchronized (this) {
+            if (copy.packageCounts.width() != packageCounts.width()
+                    || copy.packageCounts.depth() != packageCounts.depth()) {
+                throw new IllegalArgumentException("Cannot merge learners with differently shaped sketches");
+            }
+            packageCounts.merge(copy.packageCounts);
+            files.merge(copy.files);
+            packageNames.merge(copy.packageNames);
+            for (int slot = 0; slot < SLOTS; slot++) {
+                projectCounts[slot] += copy.projectCounts[slot];
+                if (examples[slot] == null) {
+                    examples[slot] = copy.examples[slot];
+                }
+            }
+            for (Map.Entry<String, HyperLogLog> entry : copy.packages.entrySet()) {
+                HyperLogLog packageFiles = packages.get(entry.getKey());
+                if (packageFiles != null) {
+                    packageFiles.merge(entry.getValue());
+                } else if (packages.size() < maxPackages) {
+                    packages.put(entry.getKey(), entry.getValue());
+                }
+            }
+            // A file both learners read counts once, with the other learner's counts
+            copy.fileCounts.forEach((filePath, counts) -> {
+                FileCounts previous = fileCounts.put(filePath, counts);
+                if (previous != null) {
+                    subtract(previous);
+                }
+            });
+        }
+    }
+
+    /**
+     * Learns the coding conventions of a project. Conventions come from the
+     * files accepted so far, so the project context is only used for logging.
+     */
+    public List<CodingConvention> learnConventions(ProjectContext projectContext) {
+        logger.debug("Emitting learned conventions for project: {}",
+                projectContext != null ? projectContext.getId() : "unknown");
+        return getConventions();
+    }
+
+    /**
+     * Gets the conventions learned so far: the project-wide style of each
+     * aspect with enough support, followed by the packages that clearly
+     * follow a different style.
+     */
+    public synchronized List<CodingConvention> getConventions() {
+        List<CodingConvention> conventions = new ArrayList<>();
+        int[] projectStyles = new int[ASPECTS.length];
+        for (Aspect aspect : ASPECTS) {
+            Verdict verdict = judge(aspect, projectCounts);
+            projectStyles[aspect.ordinal()] = verdict != null ? verdict.value : -1;
+            if (verdict != null) {
+                conventions.add(toConvention(aspect, verdict, aspect.label,
+                        CodingConvention.ConventionScope.PROJECT));
+            }
+        }
+
+        List<String> names = new ArrayList<>(packages.keySet());
+        names.sort(Comparator.naturalOrder());
+        for (String packageName : names) {
+            long[] counts = estimatePackageCounts(packageName);
+            for (Aspect aspect : ASPECTS) {
+                Verdict verdict = judge(aspect, counts);
+                if (verdict != null && verdict.value != projectStyles[aspect.ordinal()]) {
+                    conventions.add(toConvention(aspect, verdict, aspect.label + " in " + packageName,
+                            CodingConvention.ConventionScope.MODULE));
+                }
+            }
+        }
+        return conventions;
+    }
+
+    /**
+     * Gets the conventions of one package, whether or not it is tracked by name.
+     *
+     * @param packageName a package, or for languages without packages the directory of its files
+     * @return the package's style of each aspect with enough support
+     */
+    public synchronized List<CodingConvention> getPackageConventions(String packageName) {
+        Objects.requireNonNull(packageName, "Package name cannot be null");
+        long[] counts = estimatePackageCounts(packageName);
+        List<CodingConvention> conventions = new ArrayList<>();
+        for (Aspect aspect : ASPECTS) {
+            Verdict verdict = judge(aspect, counts);
+            if (verdict != null) {
+                conventions.add(toConvention(aspect, verdict, aspect.label + " in " + packageName,
+                        CodingConvention.ConventionScope.MODULE));
+            }
+        }
+        return conventions;
+    }
+
+    /**
+     * Gets learner statistics for monitoring.
+     *
+     * @return map with estimated file and package counts, observations and memory use
+     */
+    public synchronized Map<String, Object> getStatistics() {
+        long observations = 0;
+        for (long count : projectCounts) {
+            observations += count;
+        }
+        long memoryBytes = packageCounts.memoryBytes() + files.memoryBytes() + packageNames.memoryBytes()
+                + (long) packages.size() * (1L << PACKAGE_FILE_PRECISION);
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("files", files.estimate());
+        stats.put("packages", packageNames.estimate());
+        stats.put("trackedPackages", packages.size());
+        stats.put("learnedFiles", fileCounts.size());
+        stats.put("observations", observations);
+        stats.put("sketchBytes", memoryBytes);
+        return stats;
+    }
+
+    private ConventionLearner copy() {
+        ConventionLearner copy = new ConventionLearner(packageCounts.width(), packageCounts.depth(), maxPackages);
+        copy.packageCounts.merge(packageCounts);
+        copy.files.merge(files);
+        copy.packageNames.merge(packageNames);
+        System.arraycopy(projectCounts, 0, copy.projectCounts, 0, SLOTS);
+        System.arraycopy(examples, 0, copy.examples, 0, SLOTS);
+        packages.forEach((name, packageFiles) -> copy.packages.put(name, packageFiles.copy()));
+        copy.fileCounts.putAll(fileCounts);
+        return copy;
+    }
+
+    private long[] estimatePackageCounts(String packageName) {
+        long packageHash = hash(packageName);
+        long[] counts = new long[SLOTS];
+        for (int slot = 0; slot < SLOTS; slot++) {
+            counts[slot] = packageCounts.estimate(slotKey(packageHash, slot));
+        }
+        return counts;
+    }
+
+    /**
+     * Picks the most common reportable value of an aspect. Lowercase single
+     * words fit both camelCase and snake_case, so they count towards either.
+     *
+     * @return the verdict, or null without enough support or a clear majority
+     */
+    private static Verdict judge(Aspect aspect, long[] counts) {
+        int start = aspect.offset;
+        long total = 0;
+        int best = -1;
+        for (int value = 0; value < aspect.rules.length; value++) {
+            long count = counts[start + value];
+            total += count;
+            boolean candidate = aspect.rules[value] != null && !(aspect.isNaming() && value == LOWER);
+            if (candidate && count > 0 && (best < 0 || count > counts[start + best])) {
+                best = value;
+            }
+        }
+        if (best < 0 && aspect.isNaming() && counts[start + LOWER] > 0) {
+            best = LOWER;
+        }
+        if (best < 0 || total < MIN_SUPPORT) {
+            return null;
+        }
+        long followed = counts[start + best];
+        if (aspect.isNaming() && (best == CAMEL || best == SNAKE)) {
+            followed += counts[start + LOWER];
+        }
+        double confidence = wilsonLowerBound(followed, total);
+        return confidence >= MIN_CONFIDENCE ? new Verdict(best, followed, total, confidence) : null;
+    }
+
+    private CodingConvention toConvention(Aspect aspect, Verdict verdict, String name,
+                                          CodingConvention.ConventionScope scope) {
+        double adherence = (double) verdict.followed / verdict.total;
+        String description = String.format("Learned from %d %s, %.0f%% of which follow it (confidence %.2f)",
+                verdict.total, aspect.subject, 100 * adherence, verdict.confidence);
+        return new CodingConvention(name, aspect.type, scope, description, aspect.rules[verdict.value],
+                examples[aspect.slot(verdict.value)], verdict.confidence >= ENFORCE_CONFIDENCE, adherence);
+    }
+
+    /**
+     * Lower bound of the 95% Wilson score interval of a proportion.
+     */
+    private static double wilsonLowerBound(long successes, long trials) {
+        double n = trials;
+        double p = successes / n;
+        double z2 = Z * Z;
+        double centre = p + z2 / (2 * n);
+        double margin = Z * Math.sqrt(p * (1 - p) / n + z2 / (4 * n * n));
+        return (centre - margin) / (1 + z2 / n);
+    }
+
+    /**
+     * Counts one observation for the most voted value, if any.
+     */
+    private static void vote(int[] counts, Aspect aspect, int[] votes) {
+        int best = -1;
+        for (int value = 0; value < votes.length; value++) {
+            if (votes[value] > 0 && (best < 0 || votes[value] > votes[best])) {
+                best = value;
+            }
+        }
+        if (best >= 0) {
+            counts[aspect.slot(best)]++;
+        }
+    }
+
+    /**
+     * Reads the indentation unit and brace placement from the file's text.
+     * Each increase in indentation votes for a unit and the file counts once
+     * for the unit with the most votes; every opening brace that ends or
+     * starts a line counts.
+     */
+    private static void observeSource(String source, int[] counts) {
+        int[] indentVotes = new int[Aspect.INDENTATION.rules.length];
+        boolean braces = source.indexOf('{') >= 0;
+        int previousIndent = -1;
+        char previousLast = 0;
+        int length = source.length();
+        int lineStart = 0;
+        while (lineStart < length) {
+            int lineEnd = source.indexOf('\n', lineStart);
+            if (lineEnd < 0) {
+                lineEnd = length;
+            }
+            int contentStart = lineStart;
+            while (contentStart < lineEnd && (source.charAt(contentStart) == ' ' || source.charAt(contentStart) == '\t')) {
+                contentStart++;
+            }
+            int contentEnd = lineEnd;
+            while (contentEnd > contentStart && Character.isWhitespace(source.charAt(contentEnd - 1))) {
+                contentEnd--;
+            }
+            if (contentEnd > contentStart && !isCommentLine(source, contentStart, contentEnd)) {
+                int indent = contentStart - lineStart;
+                if (previousIndent >= 0 && indent > previousIndent) {
+                    if (source.charAt(lineStart) == '\t') {
+                        indentVotes[INDENT_TABS]++;
+                    } else {
+                        int unit = indentUnit(indent - previousIndent);
+                        if (unit > 0) {
+                            indentVotes[unit]++;
+                        }
+                    }
+                }
+                previousIndent = indent;
+
+                char first = source.charAt(contentStart);
+                char last = source.charAt(contentEnd - 1);
+                if (braces && first == '{' && previousLast != 0 && previousLast != ';' && previousLast != '{'
+                        && previousLast != '}') {
+                    counts[Aspect.BRACE_PLACEMENT.slot(BRACE_NEXT_LINE)]++;
+                } else if (braces && last == '{' && contentEnd - contentStart > 1) {
+                    counts[Aspect.BRACE_PLACEMENT.slot(BRACE_SAME_LINE)]++;
+                }
+                previousLast = last;
+            }
+            lineStart = lineEnd + 1;
+        }
+        vote(counts, Aspect.INDENTATION, indentVotes);
+    }
+
+    private static boolean isCommentLine(String source, int start, int end) {
+        char first = source.charAt(start);
+        if (first == '*' || first == '#') {
+            return true;
+        }
+        return first == '/' && end - start > 1 && (source.charAt(start + 1) == '/' || source.charAt(start + 1) == '*');
+    }
+
+    /**
+     * Maps an indentation step in spaces to its indentation value, or 0 if it is no common unit.
+     */
+    private static int indentUnit(int spaces) {
+        return switch (spaces) {
+            case 2 -> 1;
+            case 4 -> 2;
+            case 8 -> 3;
+            default -> 0;
+        };
+    }
+
+    static int namingStyle(String name) {
+        int start = 0;
+        int end = name.length();
+        // Leading and trailing underscores mark visibility or avoid keywords, not style
+        while (start < end && (name.charAt(start) == '_' || name.charAt(start) == '$')) {
+            start++;
+        }
+        while (end > start && name.charAt(end - 1) == '_') {
+            end--;
+        }
+        if (start == end) {
+            return OTHER;
+        }
+        boolean upper = false;
+        boolean lower = false;
+        boolean underscore = false;
+        for (int i = start; i < end; i++) {
+            char c = name.charAt(i);
+            if (Character.isUpperCase(c)) {
+                upper = true;
+            } else if (Character.isLowerCase(c)) {
+                lower = true;
+            } else if (c == '_') {
+                underscore = true;
+            } else if (!Character.isDigit(c)) {
+                return OTHER;
+            }
+        }
+        if (upper && !lower) {
+            return UPPER_SNAKE;
+        }
+        if (underscore) {
+            return upper ? OTHER : SNAKE;
+        }
+        if (Character.isUpperCase(name.charAt(start))) {
+            return PASCAL;
+        }
+        return upper ? CAMEL : LOWER;
+    }
+
+    private static String directoryOf(String filePath) {
+        int slash = Math.max(filePath.lastIndexOf('/'), filePath.lastIndexOf('\\'));
+        return slash > 0 ? filePath.substring(0, slash) : DEFAULT_PACKAGE;
+    }
+
+    private static long slotKey(long packageHash, int slot) {
+        return mix(packageHash + (slot + 1) * 0x9e3779b97f4a7c15L);
+    }
+
+    /**
+     * 64-bit FNV-1a over the characters, finished with a MurmurHash3 mix.
+     */
+    private static long hash(String value) {
+        long hash = 0xcbf29ce484222325L;
+        for (int i = 0; i < value.length(); i++) {
+            hash ^= value.charAt(i);
+            hash *= 0x100000001b3L;
+        }
+        return mix(hash);
+    }
+
+    private static long mix(long hash) {
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+
+    /**
+     * Traversal visitor summarizing one file's names, imports and member order.
+     */
+    private static final class FileObserver implements TraversalVisitor {
+
+        final int[] counts = new int[SLOTS];
+        final String[] examples = new String[SLOTS];
+        // Indentation of class members relative to their class, for files without text
+        final int[] indentVotes = new int[Aspect.INDENTATION.rules.length];
+        String packageName;
+        private final Deque<String> classes = new ArrayDeque<>();
+
+        @Override
+        public VisitResult enter(ASTNode node) {
+            if (node instanceof ModuleNode) {
+                if (node.getAttribute("package") instanceof String declared && !declared.isEmpty()) {
+                    packageName = declared;
+                }
+                observeImports(node.getAttribute("imports"));
+            } else if (node instanceof ClassNode classNode) {
+                observeName(Aspect.CLASS_NAMING, classNode.getName());
+                observeMembers(classNode);
+                classes.push(classNode.getName());
+            } else if (node instanceof MethodNode methodNode) {
+                if (!methodNode.isConstructor() && !methodNode.getName().equals(classes.peek())) {
+                    observeName(Aspect.METHOD_NAMING, methodNode.getName());
+                }
+            } else if (node instanceof VariableNode variableNode) {
+                if (!variableNode.isField()) {
+                    observeName(Aspect.VARIABLE_NAMING, variableNode.getName());
+                } else if (variableNode.isStatic() && variableNode.isFinal()) {
+                    observeName(Aspect.CONSTANT_NAMING, variableNode.getName());
+                } else {
+                    observeName(Aspect.FIELD_NAMING, variableNode.getName());
+                }
+            }
+            return VisitResult.CONTINUE;
+        }
+
+        @Override
+        public void exit(ASTNode node) {
+            if (node instanceof ClassNode) {
+                classes.pop();
+            }
+        }
+
+        private void observeName(Aspect aspect, String name) {
+            if (name == null || name.isEmpty()) {
+                return;
+            }
+            int slot = aspect.slot(namingStyle(name));
+            counts[slot]++;
+            if (examples[slot] == null) {
+                examples[slot] = name;
+            }
+        }
+
+        private void observeImports(Object value) {
+            if (!(value instanceof List<?> list) || list.size() < 2) {
+                return;
+            }
+            List<String> imports = new ArrayList<>(list.size());
+            for (Object element : list) {
+                if (element instanceof String imported) {
+                    imports.add(imported);
+                }
+            }
+            counts[Aspect.IMPORT_ORDER.slot(importOrder(imports))]++;
+        }
+
+        /**
+         * Classifies the order of fields, constructors and methods by source
+         * position, since parsers do not keep declaration order among children.
+         */
+        private void observeMembers(ClassNode classNode) {
+            List<ASTNode> members = new ArrayList<>();
+            for (ASTNode child : classNode.getChildren()) {
+                boolean member = child instanceof MethodNode
+                        || child instanceof VariableNode variable && variable.isField();
+                if (member && child.getLocation() != null) {
+                    members.add(child);
+                }
+            }
+            SourceLocation classLocation = classNode.getLocation();
+            if (classLocation != null) {
+                for (ASTNode member : members) {
+                    if (member.getLocation().getStartLine() > classLocation.getStartLine()) {
+                        int unit = indentUnit(member.getLocation().getStartColumn() - classLocation.getStartColumn());
+                        if (unit > 0) {
+                            indentVotes[unit]++;
+                        }
+                    }
+                }
+            }
+            members.sort(Comparator.comparingInt((ASTNode member) -> member.getLocation().getStartLine())
+                    .thenComparingInt(member -> member.getLocation().getStartColumn()));
+
+            Set<Integer> kinds = new HashSet<>();
+            boolean ordered = true;
+            boolean fieldsFirst = true;
+            int previous = 0;
+            for (ASTNode member : members) {
+                int kind = memberKind(member, classNode.getName());
+                kinds.add(kind);
+                ordered &= kind >= previous;
+                fieldsFirst &= kind != 0 || previous == 0;
+                previous = kind;
+            }
+            if (kinds.size() < 2) {
+                return;
+            }
+            int order = ordered ? MEMBERS_ORDERED : fieldsFirst ? MEMBERS_FIELDS_FIRST : MEMBERS_MIXED;
+            counts[Aspect.MEMBER_ORDER.slot(order)]++;
+        }
+
+        /**
+         * 0 for fields, 1 for constructors, 2 for methods.
+         */
+        private static int memberKind(ASTNode member, String className) {
+            if (member instanceof VariableNode) {
+                return 0;
+            }
+            MethodNode method = (MethodNode) member;
+            return method.isConstructor() || method.getName().equals(className) ? 1 : 2;
+        }
+
+        private static int importOrder(List<String> imports) {
+            boolean sorted = true;
+            boolean sortedInGroups = true;
+            Set<String> closedGroups = new HashSet<>();
+            String previousGroup = null;
+            for (int i = 0; i < imports.size(); i++) {
+                String group = topLevel(imports.get(i));
+                if (i > 0) {
+                    boolean ascending = imports.get(i - 1).compareTo(imports.get(i)) <= 0;
+                    sorted &= ascending;
+                    if (group.equals(previousGroup)) {
+                        sortedInGroups &= ascending;
+                    } else {
+                        closedGroups.add(previousGroup);
+                        // A group may not resume after another one started
+                        sortedInGroups &= !closedGroups.contains(group);
+                    }
+                }
+                previousGroup = group;
+            }
+            return sorted ? IMPORTS_SORTED : sortedInGroups ? IMPORTS_GROUPED : IMPORTS_UNSORTED;
+        }
+
+        private static String topLevel(String imported) {
+            int dot = imported.indexOf('.');
+            return dot < 0 ? imported : imported.substring(0, dot);
+        }
+    }
+
+    /**
+     * The counts one file added, and the package they were added under.
+     */
+    private static final class FileCounts {
+        final long packageHash;
+        final int[] counts;
+
+        FileCounts(long packageHash, int[] counts) {
+            this.packageHash = packageHash;
+            this.counts = counts;
+        }
+    }
+
+    /**
+     * The most common value of an aspect and how well it is followed.
+     */
+    private static final class Verdict {
+        final int value;
+        final long followed;
+        final long total;
+        final double confidence;
+
+        Verdict(int value, long followed, long total, double confidence) {
+            this.value = value;
+            this.followed = followed;
+            this.total = total;
+            this.confidence = confidence;
+        }
+    }
+}
@@ -0,0 +1,127 @@
+package com.ailearning.core.service.semantic.impl;
+
+/**
+ * Count-min sketch (Cormode and Muthukrishnan) of non-negative counts keyed
+ * by 64-bit hashes.
+ * <p>
+ * Each key is counted in one cell of every row, and its estimate is the
+ * smallest of those cells, so estimates never fall below the true count and
+ * exceed it by at most {@code e * N / width} with high probability. Every
+ * row is updated, so counts that were added can be removed again, which lets
+ * a re-read input replace its earlier counts. Sketches of the same shape
+ * merge by adding cells, so workers can count disjoint inputs independently.
+ * <p>
+ * Memory is fixed at {@code width * depth} counters regardless of how many
+ * keys are counted. Not thread-safe.
+ */
+final class CountMinSketch {
+
+    private final int width;
+    private final int depth;
+    private final int mask;
+    private final int[] cells;
+
+    /**
+     * @param width cells per row, rounded up to a power of two
+     * @param depth number of rows
+     */
+    CountMinSketch(int width, int depth) {
+        if (width < 1 || depth < 1) {
+            throw new IllegalArgumentException("Sketch width and depth must be positive");
+        }
+        int rounded = Integer.highestOneBit(width);
+        this.width = rounded < width ? rounded << 1 : rounded;
+        this.depth = depth;
+        this.mask = this.width - 1;
+        this.cells = new int[this.width * depth];
+    }
+
+    int width() {
+        return width;
+    }
+
+    int depth() {
+        return depth;
+    }
+
+    /**
+     * Adds to the count of a key.
+     *
+     * @param key hash of the key
+     * @param count amount to add
+     */
+    void add(long key, int count) {
+        if (count <= 0) {
+            return;
+        }
+        int h1 = (int) key;
+        int h2 = (int) (key >>> 32) | 1;
+        for (int row = 0; row < depth; row++) {
+            int cell = row * width + ((h1 + row * h2) & mask);
+            cells[cell] = saturatedAdd(cells[cell], count);
+        }
+    }
+
+    /**
+     * Removes counts added earlier. Estimates stay at or above the true count
+     * as long as only counts that were added are removed; saturated cells are
+     * left as they are.
+     *
+     * @param key hash of the key
+     * @param count amount to remove
+     */
+    void remove(long key, int count) {
+        if (count <= 0) {
+            return;
+        }
+        int h1 = (int) key;
+        int h2 = (int) (key >>> 32) | 1;
+        for (int row = 0; row < depth; row++) {
+            int cell = row * width + ((h1 + row * h2) & mask);
+            if (cells[cell] != Integer.MAX_VALUE) {
+                cells[cell] = Math.max(0, cells[cell] - count);
+            }
+        }
+    }
+
+    /**
+     * Estimates the count of a key; never below the true count.
+     */
+    int estimate(long key) {
+        int h1 = (int) key;
+        int h2 = (int) (key >>> 32) | 1;
+        int min = Integer.MAX_VALUE;
+        for (int row = 0; row < depth; row++) {
+            min = Math.min(min, cells[row * width + ((h1 + row * h2) & mask)]);
+        }
+        return min;
+    }
+
+    /**
+     * Adds the counts of a sketch of the same shape.
+     */
+    void merge(CountMinSketch other) {
+        if (other.width != width || other.depth != depth) {
+            throw new IllegalArgumentException(String.format(
+                    "Cannot merge a %dx%d sketch into a %dx%d sketch", other.width, other.depth, width, depth));
+        }
+        for (int i = 0; i < cells.length; i++) {
+            cells[i] = saturatedAdd(cells[i], other.cells[i]);
+        }
+    }
+
+    CountMinSketch copy() {
+        CountMinSketch copy = new CountMinSketch(width, depth);
+        System.arraycopy(cells, 0, copy.cells, 0, cells.length);
+        return copy;
+    }
+
+    long memoryBytes() {
+        return 4L * cells.length;
+    }
+
+    private static int saturatedAdd(int a, int b) {
+        long sum = (long) a + b;
+        return sum > Integer.MAX_VALUE ? Integer.MAX_VALUE : (int) sum;
+    }
+}
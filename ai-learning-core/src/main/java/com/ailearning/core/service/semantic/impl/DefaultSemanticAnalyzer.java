@@ -1,21 +1,24 @@
 package com.ailearning.core.service.semantic.impl;
 
 import com.ailearning.core.model.ast.ASTNode;
+import com.ailearning.core.model.ast.ASTTraversal;
 import com.ailearning.core.model.ast.ClassNode;
 import com.ailearning.core.model.ast.MethodNode;
+import com.ailearning.core.model.ast.ModuleNode;
 import com.ailearning.core.model.ast.VariableNode;
 import com.ailearning.core.model.CodePattern;
 import com.ailearning.core.model.Relationship;
 import com.ailearning.core.model.CodingConvention;
+import com.ailearning.core.model.FileNode;
 import com.ailearning.core.model.ProjectContext;
 import com.ailearning.core.model.SemanticContext;
 import com.ailearning.core.service.SemanticAnalyzer;
+import com.ailearning.core.service.semantic.SimilarityMatrix;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.util.*;
 import java.util.concurrent.CompletableFuture;
-import java.util.stream.Collectors;
 
 /**
  * Default implementation of semantic code analysis.
@@ -25,20 +28,74 @@ public class DefaultSemanticAnalyzer implements SemanticAnalyzer {
     
     private static final Logger logger = LoggerFactory.getLogger(DefaultSemanticAnalyzer.class);
     
+    // Index candidates re-ranked with the exact calculator per query
+    private static final int MAX_SIMILARITY_CANDIDATES = 200;
+    private static final int MAX_EMBEDDING_CANDIDATES = 50;
+    
     private final PatternDetector patternDetector;
     private final RelationshipMapper relationshipMapper;
     private final SimilarityCalculator similarityCalculator;
-    private final ConventionLearner conventionLearner;
+    private final BatchSimilarityCalculator batchSimilarityCalculator;
+    private volatile SimilarCodeIndex similarCodeIndex;
+    private volatile EmbeddingIndex embeddingIndex;
+    private volatile RelationshipIndex relationshipIndex;
+    private volatile ConventionLearner conventionLearner;
     
+    /**
+     * Creates an analyzer with empty indexes of its own. Indexes shared with
+     * the component that keeps them current, typically the context engine,
+     * are set through the setters.
+     */
     public DefaultSemanticAnalyzer() {
         this.patternDetector = new PatternDetector();
         this.relationshipMapper = new RelationshipMapper();
         this.similarityCalculator = new SimilarityCalculator();
+        this.batchSimilarityCalculator = new BatchSimilarityCalculator(similarityCalculator);
+        this.similarCodeIndex = new SimilarCodeIndex();
+        this.embeddingIndex = new EmbeddingIndex();
+        this.relationshipIndex = new RelationshipIndex();
         this.conventionLearner = new ConventionLearner();
         
         logger.info("Initialized DefaultSemanticAnalyzer with all components");
     }
     
+    /**
+     * Sets the similar-code index searched by {@link #findSimilarCode}.
+     *
+     * @param similarCodeIndex the index to search
+     */
+    public void setSimilarCodeIndex(SimilarCodeIndex similarCodeIndex) {
+        this.similarCodeIndex = Objects.requireNonNull(similarCodeIndex, "Similar code index cannot be null");
+    }
+    
+    /**
+     * Sets the embedding index also searched by {@link #findSimilarCode}.
+     *
+     * @param embeddingIndex the index to search
+     */
+    public void setEmbeddingIndex(EmbeddingIndex embeddingIndex) {
+        this.embeddingIndex = Objects.requireNonNull(embeddingIndex, "Embedding index cannot be null");
+    }
+    
+    /**
+     * Sets the relationship index that answers {@link #analyzeCodeRelationships}
+     * for indexed trees.
+     *
+     * @param relationshipIndex the index to query
+     */
+    public void setRelationshipIndex(RelationshipIndex relationshipIndex) {
+        this.relationshipIndex = Objects.requireNonNull(relationshipIndex, "Relationship index cannot be null");
+    }
+    
+    /**
+     * Sets the convention learner that answers {@link #learnCodingConventions}.
+     *
+     * @param conventionLearner the learner to query
+     */
+    public void setConventionLearner(ConventionLearner conventionLearner) {
+        this.conventionLearner = Objects.requireNonNull(conventionLearner, "Convention learner cannot be null");
+    }
+    
     @Override
     public CompletableFuture<List<Relationship>> analyzeCodeRelationships(ASTNode astNode, ProjectContext projectContext) {
         return CompletableFuture.supplyAsync(() -> {
@@ -48,6 +105,17 @@ public class DefaultSemanticAnalyzer implements SemanticAnalyzer {
                 if (astNode == null) {
                     return List.of();
                 }
+                RelationshipIndex index = relationshipIndex;
+                List<Relationship> indexed = index.getRelationships(astNode);
+                if (indexed != null) {
+                    return indexed;
+                }
+                // A whole file not indexed yet is indexed once, so later queries on it are lookups
+                String filePath = astNode.getLocation() != null ? astNode.getLocation().getFilePath() : null;
+                if (astNode instanceof ModuleNode && filePath != null) {
+                    index.indexFile(filePath, astNode);
+                    return index.getRelationships(astNode);
+                }
                 return relationshipMapper.mapRelationships(astNode, projectContext);
             } catch (Exception e) {
                 logger.error("Failed to analyze code relationships", e);
@@ -92,6 +160,46 @@ public class DefaultSemanticAnalyzer implements SemanticAnalyzer {
         });
     }
     
+    /**
+     * Computes the thresholded similarity of all pairs in a batch on a
+     * fork/join pool, reusing the features memoized by the similarity calculator.
+     */
+    @Override
+    public CompletableFuture<SimilarityMatrix> calculateSimilarityMatrix(List<ASTNode> nodes, double threshold) {
+        return CompletableFuture.supplyAsync(() -> {
+            logger.debug("Calculating similarity matrix for {} nodes with threshold: {}",
+                        nodes != null ? nodes.size() : 0, threshold);
+            
+            try {
+                if (nodes == null) {
+                    return SimilarityMatrix.empty(List.of());
+                }
+                return batchSimilarityCalculator.calculateMatrix(nodes, threshold);
+            } catch (Exception e) {
+                logger.error("Failed to calculate similarity matrix", e);
+                return SimilarityMatrix.empty(nodes != null ? nodes : List.of());
+            }
+        });
+    }
+    
+    @Override
+    public CompletableFuture<SimilarityMatrix> findNearestNeighbors(List<ASTNode> nodes, int k, double threshold) {
+        return CompletableFuture.supplyAsync(() -> {
+            logger.debug("Finding {} nearest neighbors for {} nodes with threshold: {}",
+                        k, nodes != null ? nodes.size() : 0, threshold);
+            
+            try {
+                if (nodes == null) {
+                    return SimilarityMatrix.empty(List.of());
+                }
+                return batchSimilarityCalculator.findNearestNeighbors(nodes, k, threshold);
+            } catch (Exception e) {
+                logger.error("Failed to find nearest neighbors", e);
+                return SimilarityMatrix.empty(nodes != null ? nodes : List.of());
+            }
+        });
+    }
+    
     @Override
     public CompletableFuture<List<CodingConvention>> learnCodingConventions(ProjectContext projectContext) {
         return CompletableFuture.supplyAsync(() -> {
@@ -106,34 +214,53 @@ public class DefaultSemanticAnalyzer implements SemanticAnalyzer {
         });
     }
     
+    /**
+     * Finds code similar to the target among the nodes of the similar-code
+     * index and the embedding index. The first finds shared shingles, the
+     * second nearest neighbors in embedding space that may share few of them.
+     * Candidates of both are re-ranked with the exact similarity calculator,
+     * so the cost per query is bounded by the candidate limits rather than
+     * the project size.
+     * <p>
+     * The indexes hold every file given to them, whatever its project. When
+     * the project context lists its files, only candidates from those files
+     * are returned; a context without files does not narrow the search.
+     */
     @Override
     public CompletableFuture<Map<ASTNode, Double>> findSimilarCode(ASTNode targetNode, ProjectContext projectContext, double threshold) {
         return CompletableFuture.supplyAsync(() -> {
             logger.debug("Finding similar code for target node with threshold: {}", threshold);
             
             try {
-                Map<ASTNode, Double> similarNodes = new HashMap<>();
+                List<Map.Entry<ASTNode, Double>> similarNodes = new ArrayList<>();
                 
-                // Extract all AST nodes from project context (simplified approach)
-                List<ASTNode> allNodes = extractAllNodes(projectContext);
+                Set<ASTNode> candidates = Collections.newSetFromMap(new IdentityHashMap<>());
+                for (SimilarCodeIndex.Candidate candidate : similarCodeIndex.findCandidates(targetNode, MAX_SIMILARITY_CANDIDATES)) {
+                    candidates.add(candidate.getNode());
+                }
+                for (EmbeddingIndex.Match match : embeddingIndex.findSimilar(targetNode, MAX_EMBEDDING_CANDIDATES)) {
+                    // Entries loaded from disk have no tree until their file is indexed again
+                    if (match.getNode() != null) {
+                        candidates.add(match.getNode());
+                    }
+                }
+                Set<String> projectFiles = projectFiles(projectContext);
+                if (!projectFiles.isEmpty()) {
+                    candidates.removeIf(node -> node.getLocation() == null
+                            || !projectFiles.contains(node.getLocation().getFilePath()));
+                }
                 
-                for (ASTNode node : allNodes) {
-                    if (node.equals(targetNode)) continue;
-                    
+                for (ASTNode node : candidates) {
                     double similarity = similarityCalculator.calculateSimilarity(targetNode, node);
                     if (similarity >= threshold) {
-                        similarNodes.put(node, similarity);
+                        similarNodes.add(Map.entry(node, similarity));
                     }
                 }
                 
-                return similarNodes.entrySet().stream()
-                        .sorted(Map.Entry.<ASTNode, Double>comparingByValue().reversed())
-                        .collect(Collectors.toLinkedHashMap(
-                                Map.Entry::getKey,
-                                Map.Entry::getValue,
-                                (e1, e2) -> e1,
-                                LinkedHashMap::new
-                        ));
+                similarNodes.sort(Map.Entry.<ASTNode, Double>comparingByValue().reversed());
+                Map<ASTNode, Double> ranked = new LinkedHashMap<>();
+                similarNodes.forEach(entry -> ranked.put(entry.getKey(), entry.getValue()));
+                return ranked;
                         
             } catch (Exception e) {
                 logger.error("Failed to find similar code", e);
@@ -142,6 +269,73 @@ public class DefaultSemanticAnalyzer implements SemanticAnalyzer {
         });
     }
     
+    /**
+     * Gets the paths of the files a project context lists, empty if it lists none.
+     */
+    private static Set<String> projectFiles(ProjectContext projectContext) {
+        if (projectContext == null || projectContext.getStructure() == null) {
+            return Set.of();
+        }
+        Set<String> files = new HashSet<>();
+        for (FileNode file : projectContext.getStructure().getFiles()) {
+            if (!file.isDirectory()) {
+                files.add(file.getPath());
+            }
+        }
+        return files;
+    }
+    
+    /**
+     * Gets the index searched by {@link #findSimilarCode}. Files are added to it
+     * as they are parsed, typically by the context engine.
+     *
+     * @return the similar-code index
+     */
+    public SimilarCodeIndex getSimilarCodeIndex() {
+        return similarCodeIndex;
+    }
+    
+    /**
+     * Gets the embedding index also searched by {@link #findSimilarCode}.
+     * Files are added to it as they are parsed, typically by the context engine.
+     *
+     * @return the embedding index
+     */
+    public EmbeddingIndex getEmbeddingIndex() {
+        return embeddingIndex;
+    }
+    
+    /**
+     * Gets the relationship index that answers {@link #analyzeCodeRelationships}
+     * for indexed trees. Files are added to it as they are parsed, typically by
+     * the context engine.
+     *
+     * @return the relationship index
+     */
+    public RelationshipIndex getRelationshipIndex() {
+        return relationshipIndex;
+    }
+    
+    /**
+     * Gets the convention learner that answers {@link #learnCodingConventions}.
+     * Files are fed to it as they are parsed, typically by the context engine.
+     *
+     * @return the convention learner
+     */
+    public ConventionLearner getConventionLearner() {
+        return conventionLearner;
+    }
+    
+    /**
+     * Gets the pattern detector, whose statistics report cache use and the
+     * time spent in each matcher.
+     *
+     * @return the pattern detector
+     */
+    public PatternDetector getPatternDetector() {
+        return patternDetector;
+    }
+    
     @Override
     public CompletableFuture<SemanticContext> analyzeSemanticContext(ASTNode astNode, ProjectContext projectContext) {
         return CompletableFuture.supplyAsync(() -> {
@@ -182,13 +376,13 @@ public class DefaultSemanticAnalyzer implements SemanticAnalyzer {
                     .semanticRole("variable_usage");
         }
         
-        // Analyze relationships
-        List<Relationship> relationships = relationshipMapper.mapRelationships(astNode, projectContext);
-        builder.relationships(relationships);
-        
-        // Detect nearby patterns
-        List<CodePattern> patterns = patternDetector.detectPatterns(astNode, "java"); // Default to Java
-        builder.nearbyPatterns(patterns);
+        // Analyze relationships and detect nearby patterns in a single traversal
+        RelationshipMapper.RelationshipCollector relationships = relationshipMapper.newCollector(projectContext);
+        PatternDetector.PatternCollector patterns = patternDetector.newCollector(
+                detectLanguage(astNode.getLocation().getFilePath()));
+        ASTTraversal.walk(astNode, relationships, patterns);
+        builder.relationships(relationships.getRelationships());
+        builder.nearbyPatterns(patterns.getPatterns());
         
         // Calculate complexity score (simplified)
         double complexity = calculateComplexityScore(astNode);
@@ -198,13 +392,17 @@ public class DefaultSemanticAnalyzer implements SemanticAnalyzer {
     }
     
     /**
-     * Extracts all AST nodes from project context (simplified implementation).
+     * Detects the programming language of a file from its extension.
      */
-    private List<ASTNode> extractAllNodes(ProjectContext projectContext) {
-        // This is a simplified implementation
-        // In a real implementation, this would traverse the project structure
-        // and extract AST nodes from all files
-        return List.of();
+    private static String detectLanguage(String filePath) {
+        String lowerPath = filePath != null ? filePath.toLowerCase() : "";
+        
+        if (lowerPath.endsWith(".java")) return "java";
+        if (lowerPath.endsWith(".js") || lowerPath.endsWith(".jsx")) return "javascript";
+        if (lowerPath.endsWith(".ts") || lowerPath.endsWith(".tsx")) return "typescript";
+        if (lowerPath.endsWith(".py")) return "python";
+        
+        return "unknown";
     }
     
     /**
@@ -212,23 +410,9 @@ public class DefaultSemanticAnalyzer implements SemanticAnalyzer {
      */
     private double calculateComplexityScore(ASTNode astNode) {
         // Simplified complexity calculation based on node depth and children count
-        int depth = calculateDepth(astNode);
+        int depth = astNode.getDepth();
         int childrenCount = astNode.getChildren().size();
         
         return Math.min(10.0, (depth * 0.5) + (childrenCount * 0.3));
     }
-    
-    /**
-     * Calculates the depth of an AST node.
-     */
-    private int calculateDepth(ASTNode node) {
-        if (node.getChildren().isEmpty()) {
-            return 1;
-        }
-        
-        return 1 + node.getChildren().stream()
-                .mapToInt(this::calculateDepth)
-                .max()
-                .orElse(0);
-    }
 }
\ No newline at end of file
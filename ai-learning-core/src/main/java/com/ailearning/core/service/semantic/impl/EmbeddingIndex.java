@@ -0,0 +1,579 @@
+package com.ailearning.core.service.semantic.impl;
+
+import com.ailearning.core.model.ast.ASTNode;
+import com.ailearning.core.model.ast.ASTTraversal;
+import com.ailearning.core.model.ast.ClassNode;
+import com.ailearning.core.model.ast.MethodNode;
+import com.ailearning.core.model.ast.TraversalVisitor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.InvalidPathException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Project-wide embedding index of classes and methods for semantic code search
+ * that runs entirely locally.
+ * <p>
+ * Every indexed node is embedded by a {@link CodeEmbedder} into a unit vector
+ * kept off-heap in an {@link OffHeapVectorStore}, and an {@link HnswGraph}
+ * over those vectors answers nearest-neighbor queries in roughly logarithmic
+ * time. Both code and free-text queries are embedded into the same space.
+ * <p>
+ * Files are indexed and removed independently, so the index can follow editor
+ * changes. Removed entries are only marked deleted: they keep guiding searches
+ * but are never returned, and once they make up a quarter of the graph it is
+ * rebuilt from the live entries. The index can be saved to a single file and
+ * loaded back; loaded entries describe their node by file, name and position
+ * until the file is indexed again and its nodes are attached.
+ */
+public class EmbeddingIndex {
+
+    private static final Logger logger = LoggerFactory.getLogger(EmbeddingIndex.class);
+
+    public static final int DEFAULT_MAX_CONNECTIONS = 16;
+    public static final int DEFAULT_EF_CONSTRUCTION = 100;
+    public static final int DEFAULT_EF_SEARCH = 64;
+
+    private static final int MAGIC = 0x454d4249; // "EMBI"
+    private static final int FORMAT_VERSION = 1;
+    private static final int INITIAL_CAPACITY = 64;
+    // Deleted entries are compacted away once they are this share of the graph
+    private static final double COMPACTION_RATIO = 0.25;
+    private static final int MIN_COMPACTION_SIZE = 256;
+
+    private final CodeEmbedder embedder;
+    private final int maxConnections;
+    private final int efConstruction;
+    private volatile int efSearch = DEFAULT_EF_SEARCH;
+
+    private OffHeapVectorStore vectors;
+    private HnswGraph graph;
+    private Entry[] entries = new Entry[INITIAL_CAPACITY];
+    private final BitSet deleted = new BitSet();
+    private int highWaterMark;
+    private int deletedCount;
+    private final Map<String, int[]> slotsByFile = new HashMap<>();
+    private Path storePath;
+
+    private long queryCount;
+    private long compactionCount;
+
+    public EmbeddingIndex() {
+        this(new CodeEmbedder(), DEFAULT_MAX_CONNECTIONS, DEFAULT_EF_CONSTRUCTION);
+    }
+
+    /**
+     * Creates an index with a custom embedder and graph parameters. More
+     * connections and a wider construction beam improve recall at the cost of
+     * memory and indexing time.
+     *
+     * @param embedder the embedder for nodes and queries
+     * @param maxConnections the links per node on the upper layers; twice as many on layer 0
+     * @param efConstruction the beam width used while linking new nodes
+     */
+    public EmbeddingIndex(CodeEmbedder embedder, int maxConnections, int efConstruction) {
+        this.embedder = Objects.requireNonNull(embedder, "Embedder cannot be null");
+        if (maxConnections < 2 || efConstruction < 1) {
+            throw new IllegalArgumentException("Max connections must be at least 2 and ef construction positive");
+        }
+        this.maxConnections = maxConnections;
+        this.efConstruction = efConstruction;
+        this.vectors = new OffHeapVectorStore(embedder.getDimensions(), INITIAL_CAPACITY);
+        this.graph = new HnswGraph(vectors, maxConnections, efConstruction);
+    }
+
+    /**
+     * Opens an index persisted at the given file, or creates an empty one if
+     * the file is missing or unreadable. {@link #persist()} writes it back.
+     * Entries of files deleted since the index was saved are removed, so they
+     * are never returned as matches.
+     *
+     * @param file the file the index is kept in
+     * @return the loaded or new index
+     */
+    public static EmbeddingIndex open(Path file) {
+        Objects.requireNonNull(file, "Index file cannot be null");
+        EmbeddingIndex index = null;
+        if (Files.isRegularFile(file)) {
+            try {
+                index = load(file);
+                int removed = index.removeMissingFiles();
+                if (removed > 0) {
+                    logger.debug("Removed embeddings of {} deleted files from {}", removed, file);
+                }
+            } catch (IOException e) {
+                logger.warn("Discarding unreadable embedding index {}: {}", file, e.getMessage());
+            }
+        }
+        if (index == null) {
+            index = new EmbeddingIndex();
+        }
+        synchronized (index) {
+            index.storePath = file;
+        }
+        return index;
+    }
+
+    /**
+     * Replaces the indexed classes and methods of a file.
+     *
+     * @param filePath the file the tree was parsed from
+     * @param root the file's current tree
+     */
+    public void indexFile(String filePath, ASTNode root) {
+        Objects.requireNonNull(filePath, "File path cannot be null");
+        Objects.requireNonNull(root, "Root node cannot be null");
+
+        // Embedding only reads the tree, so it runs outside the lock
+        List<ASTNode> indexed = new ArrayList<>();
+        List<float[]> embedded = new ArrayList<>();
+        ASTTraversal.walk(root, TraversalVisitor.of(node -> {
+            if (node instanceof ClassNode || node instanceof MethodNode) {
+                indexed.add(node);
+                embedded.add(embedder.embed(node));
+            }
+        }));
+
+        synchronized (this) {
+            deleteSlots(slotsByFile.remove(filePath));
+            int[] slots = new int[indexed.size()];
+            for (int i = 0; i < slots.length; i++) {
+                slots[i] = addEntry(new Entry(filePath, indexed.get(i)), embedded.get(i));
+            }
+            if (slots.length > 0) {
+                slotsByFile.put(filePath, slots);
+            }
+            compactIfNeeded();
+        }
+        logger.debug("Embedded {} nodes of {} for semantic search", indexed.size(), filePath);
+    }
+
+    /**
+     * Removes every indexed node of a file.
+     *
+     * @param filePath the removed file
+     */
+    public synchronized void removeFile(String filePath) {
+        deleteSlots(slotsByFile.remove(filePath));
+        compactIfNeeded();
+    }
+
+    /**
+     * Removes every indexed node of files that no longer exist on disk, such
+     * as files deleted while the index was not running.
+     *
+     * @return the number of files removed
+     */
+    public synchronized int removeMissingFiles() {
+        List<String> missing = new ArrayList<>();
+        for (String filePath : slotsByFile.keySet()) {
+            if (!fileExists(filePath)) {
+                missing.add(filePath);
+            }
+        }
+        for (String filePath : missing) {
+            deleteSlots(slotsByFile.remove(filePath));
+        }
+        compactIfNeeded();
+        return missing.size();
+    }
+
+    private static boolean fileExists(String filePath) {
+        try {
+            return Files.isRegularFile(Paths.get(filePath));
+        } catch (InvalidPathException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Finds the indexed nodes whose embeddings are closest to the target's.
+     * The target itself is never returned.
+     *
+     * @param target the node to find similar code for
+     * @param limit the maximum number of matches
+     * @return matches ordered by cosine similarity, highest first
+     */
+    public List<Match> findSimilar(ASTNode target, int limit) {
+        Objects.requireNonNull(target, "Target node cannot be null");
+        List<Match> matches = search(embedder.embed(target), limit + 1);
+        matches.removeIf(match -> match.getNode() != null && match.getNode().getId().equals(target.getId()));
+        return matches.size() > limit ? new ArrayList<>(matches.subList(0, limit)) : matches;
+    }
+
+    /**
+     * Finds the indexed nodes most related to a free-text query, such as
+     * "parse config file" or an identifier.
+     *
+     * @param query the query text
+     * @param limit the maximum number of matches
+     * @return matches ordered by cosine similarity, highest first
+     */
+    public List<Match> findRelated(String query, int limit) {
+        Objects.requireNonNull(query, "Query cannot be null");
+        return search(embedder.embedText(query), limit);
+    }
+
+    private List<Match> search(float[] query, int limit) {
+        if (limit <= 0 || isZero(query)) {
+            return new ArrayList<>();
+        }
+        synchronized (this) {
+            queryCount++;
+            HnswGraph.Results results = graph.search(query, limit, Math.max(efSearch, limit),
+                    slot -> !deleted.get(slot));
+            List<Match> matches = new ArrayList<>(results.slots.length);
+            for (int i = 0; i < results.slots.length; i++) {
+                matches.add(new Match(entries[results.slots[i]], results.similarities[i]));
+            }
+            return matches;
+        }
+    }
+
+    /**
+     * Sets the beam width of queries. Wider beams find more of the true
+     * nearest neighbors and take proportionally longer.
+     *
+     * @param efSearch the beam width; at least 1
+     */
+    public void setEfSearch(int efSearch) {
+        if (efSearch < 1) {
+            throw new IllegalArgumentException("Ef search must be positive");
+        }
+        this.efSearch = efSearch;
+    }
+
+    public CodeEmbedder getEmbedder() {
+        return embedder;
+    }
+
+    /**
+     * Gets the number of live indexed nodes.
+     *
+     * @return the indexed class and method count
+     */
+    public synchronized int size() {
+        return highWaterMark - deletedCount;
+    }
+
+    /**
+     * Gets index statistics for monitoring.
+     *
+     * @return map with entry, file and query counts
+     */
+    public synchronized Map<String, Object> getStatistics() {
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("entries", highWaterMark - deletedCount);
+        stats.put("deletedEntries", deletedCount);
+        stats.put("files", slotsByFile.size());
+        stats.put("dimensions", embedder.getDimensions());
+        stats.put("offHeapBytes", (long) vectors.capacity() * embedder.getDimensions() * Float.BYTES);
+        stats.put("queries", queryCount);
+        stats.put("compactions", compactionCount);
+        return stats;
+    }
+
+    /**
+     * Writes the index to the file it was opened from, if any.
+     *
+     * @return true if the index was written
+     */
+    public boolean persist() {
+        Path file;
+        synchronized (this) {
+            file = storePath;
+        }
+        if (file == null) {
+            return false;
+        }
+        try {
+            save(file);
+            return true;
+        } catch (IOException e) {
+            logger.warn("Failed to persist embedding index to {}: {}", file, e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * Writes the index to a file. Deleted entries are compacted away first.
+     * The file is written to a temporary sibling and moved into place.
+     *
+     * @param file the target file
+     * @throws IOException if the file cannot be written
+     */
+    public synchronized void save(Path file) throws IOException {
+        Objects.requireNonNull(file, "Index file cannot be null");
+        if (deletedCount > 0) {
+            compact();
+        }
+        Path directory = file.toAbsolutePath().getParent();
+        Files.createDirectories(directory);
+        Path temp = Files.createTempFile(directory, "embeddings", ".tmp");
+        try {
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp)))) {
+                out.writeInt(MAGIC);
+                out.writeInt(FORMAT_VERSION);
+                out.writeInt(embedder.getDimensions());
+                out.writeInt(maxConnections);
+                out.writeInt(efConstruction);
+                out.writeInt(highWaterMark);
+
+                Map<String, Integer> fileIds = new LinkedHashMap<>();
+                for (int slot = 0; slot < highWaterMark; slot++) {
+                    fileIds.putIfAbsent(entries[slot].filePath, fileIds.size());
+                }
+                out.writeInt(fileIds.size());
+                for (String path : fileIds.keySet()) {
+                    out.writeUTF(path);
+                }
+                for (int slot = 0; slot < highWaterMark; slot++) {
+                    Entry entry = entries[slot];
+                    out.writeInt(fileIds.get(entry.filePath));
+                    out.writeUTF(entry.nodeType);
+                    out.writeUTF(entry.name != null ? entry.name : "");
+                    out.writeInt(entry.line);
+                    out.writeInt(entry.column);
+                }
+                graph.writeTo(out, highWaterMark);
+                vectors.writeTo(out, highWaterMark);
+            }
+            try {
+                Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+        logger.debug("Saved {} embeddings to {}", highWaterMark, file);
+    }
+
+    /**
+     * Reads an index written by {@link #save(Path)}.
+     *
+     * @param file the index file
+     * @return the loaded index
+     * @throws IOException if the file cannot be read or is not a valid index
+     */
+    public static EmbeddingIndex load(Path file) throws IOException {
+        Objects.requireNonNull(file, "Index file cannot be null");
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            if (in.readInt() != MAGIC || in.readInt() != FORMAT_VERSION) {
+                throw new IOException("Not an embedding index or unsupported version: " + file);
+            }
+            int dimensions = in.readInt();
+            int maxConnections = in.readInt();
+            int efConstruction = in.readInt();
+            int count = in.readInt();
+            if (dimensions < 8 || maxConnections < 2 || efConstruction < 1 || count < 0) {
+                throw new IOException("Corrupt embedding index header: " + file);
+            }
+            EmbeddingIndex index = new EmbeddingIndex(new CodeEmbedder(dimensions), maxConnections, efConstruction);
+
+            String[] paths = new String[in.readInt()];
+            for (int i = 0; i < paths.length; i++) {
+                paths[i] = in.readUTF();
+            }
+            index.ensureCapacity(count);
+            Map<String, List<Integer>> slotsByFile = new HashMap<>();
+            for (int slot = 0; slot < count; slot++) {
+                int fileId = in.readInt();
+                if (fileId < 0 || fileId >= paths.length) {
+                    throw new IOException("Corrupt embedding index entry " + slot + ": " + file);
+                }
+                String nodeType = in.readUTF();
+                String name = in.readUTF();
+                index.entries[slot] = new Entry(paths[fileId], nodeType, name.isEmpty() ? null : name,
+                        in.readInt(), in.readInt(), null);
+                slotsByFile.computeIfAbsent(paths[fileId], path -> new ArrayList<>()).add(slot);
+            }
+            index.graph.readFrom(in, count);
+            index.vectors.readFrom(in, count);
+            index.highWaterMark = count;
+            slotsByFile.forEach((path, slots) ->
+                    index.slotsByFile.put(path, slots.stream().mapToInt(Integer::intValue).toArray()));
+            logger.debug("Loaded {} embeddings from {}", count, file);
+            return index;
+        }
+    }
+
+    private int addEntry(Entry entry, float[] vector) {
+        int slot = highWaterMark++;
+        ensureCapacity(slot + 1);
+        entries[slot] = entry;
+        vectors.set(slot, vector);
+        graph.insert(slot, vector);
+        return slot;
+    }
+
+    private void deleteSlots(int[] slots) {
+        if (slots == null) {
+            return;
+        }
+        for (int slot : slots) {
+            if (!deleted.get(slot)) {
+                deleted.set(slot);
+                deletedCount++;
+                // Drop the tree reference; the entry only guides searches now
+                entries[slot] = entries[slot].detached();
+            }
+        }
+    }
+
+    private void compactIfNeeded() {
+        if (deletedCount >= MIN_COMPACTION_SIZE && deletedCount > highWaterMark * COMPACTION_RATIO) {
+            compact();
+        }
+    }
+
+    /**
+     * Rebuilds the store and graph from the live entries only.
+     */
+    private void compact() {
+        int live = highWaterMark - deletedCount;
+        OffHeapVectorStore compactedVectors = new OffHeapVectorStore(embedder.getDimensions(), Math.max(live, 1));
+        HnswGraph compactedGraph = new HnswGraph(compactedVectors, maxConnections, efConstruction);
+        Entry[] compactedEntries = new Entry[Math.max(live, INITIAL_CAPACITY)];
+        int[] remap = new int[highWaterMark];
+        int next = 0;
+        for (int slot = 0; slot < highWaterMark; slot++) {
+            if (deleted.get(slot)) {
+                remap[slot] = -1;
+                continue;
+            }
+            float[] vector = vectors.get(slot);
+            compactedEntries[next] = entries[slot];
+            compactedVectors.set(next, vector);
+            compactedGraph.insert(next, vector);
+            remap[slot] = next++;
+        }
+        slotsByFile.replaceAll((path, slots) -> Arrays.stream(slots).map(slot -> remap[slot]).toArray());
+
+        vectors = compactedVectors;
+        graph = compactedGraph;
+        entries = compactedEntries;
+        highWaterMark = next;
+        deleted.clear();
+        deletedCount = 0;
+        compactionCount++;
+        logger.debug("Compacted embedding index to {} live entries", next);
+    }
+
+    private void ensureCapacity(int slots) {
+        vectors.ensureCapacity(slots);
+        if (slots > entries.length) {
+            entries = Arrays.copyOf(entries, Math.max(slots, entries.length * 2));
+        }
+    }
+
+    private static boolean isZero(float[] vector) {
+        for (float value : vector) {
+            if (value != 0.0f) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * What is known about an indexed node: its position, and the node itself
+     * while it is live in this process.
+     */
+    private static final class Entry {
+        private final String filePath;
+        private final String nodeType;
+        private final String name;
+        private final int line;
+        private final int column;
+        private final ASTNode node;
+
+        Entry(String filePath, ASTNode node) {
+            this(filePath, node.getNodeType(), node.getName(),
+                    node.getLocation() != null ? node.getLocation().getStartLine() : 0,
+                    node.getLocation() != null ? node.getLocation().getStartColumn() : 0, node);
+        }
+
+        Entry(String filePath, String nodeType, String name, int line, int column, ASTNode node) {
+            this.filePath = filePath;
+            this.nodeType = nodeType;
+            this.name = name;
+            this.line = line;
+            this.column = column;
+            this.node = node;
+        }
+
+        Entry detached() {
+            return node == null ? this : new Entry(filePath, nodeType, name, line, column, null);
+        }
+    }
+
+    /**
+     * Indexed node returned by a search, with its cosine similarity to the query.
+     */
+    public static final class Match {
+        private final Entry entry;
+        private final double similarity;
+
+        Match(Entry entry, double similarity) {
+            this.entry = entry;
+            this.similarity = similarity;
+        }
+
+        /**
+         * Gets the matched node, or null if the entry was loaded from disk and
+         * its file has not been indexed again since.
+         */
+        public ASTNode getNode() {
+            return entry.node;
+        }
+
+        public String getFilePath() {
+            return entry.filePath;
+        }
+
+        public String getNodeType() {
+            return entry.nodeType;
+        }
+
+        public String getName() {
+            return entry.name;
+        }
+
+        public int getLine() {
+            return entry.line;
+        }
+
+        public int getColumn() {
+            return entry.column;
+        }
+
+        public double getSimilarity() {
+            return similarity;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("Match{node=%s, file='%s', line=%d, similarity=%.2f}",
+                    entry.name, entry.filePath, entry.line, similarity);
+        }
+    }
+}
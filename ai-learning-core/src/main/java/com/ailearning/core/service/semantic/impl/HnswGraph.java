@@ -0,0 +1,436 @@
+package com.ailearning.core.service.semantic.impl;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.function.IntPredicate;
+
+/**
+ * Hierarchical navigable small world graph (Malkov and Yashunin) over the
+ * vectors of an {@link OffHeapVectorStore}, for approximate maximum inner
+ * product search on unit vectors.
+ * <p>
+ * Every slot is assigned a random top layer with exponentially decreasing
+ * probability. A search descends greedily through the sparse upper layers and
+ * then runs a best-first beam search of width {@code ef} on layer 0. New slots
+ * are linked to neighbors chosen with the diversity heuristic, which keeps
+ * links to distinct regions instead of many near-duplicates, and neighbor
+ * lists that overflow are pruned with the same heuristic.
+ * <p>
+ * Deletion is left to the caller: rejected slots stay in the graph for
+ * navigation but are filtered from search results. Not thread-safe.
+ */
+final class HnswGraph {
+
+    private static final long SEED = 0x5deece66dL;
+
+    private final OffHeapVectorStore vectors;
+    private final int maxConnections;
+    private final int maxLayerZeroConnections;
+    private final int efConstruction;
+    private final double levelMultiplier;
+    private final Random random = new Random(SEED);
+
+    // links[slot][layer] = {count, neighbor...}; null for slots not in the graph
+    private int[][][] links = new int[64][][];
+    private int entryPoint = -1;
+    private int topLayer = -1;
+    private int size;
+
+    // Search epoch that last visited each slot
+    private int[] visitedEpoch = new int[64];
+    private int epoch;
+
+    HnswGraph(OffHeapVectorStore vectors, int maxConnections, int efConstruction) {
+        this.vectors = vectors;
+        this.maxConnections = maxConnections;
+        this.maxLayerZeroConnections = 2 * maxConnections;
+        this.efConstruction = Math.max(efConstruction, maxConnections);
+        this.levelMultiplier = 1.0 / Math.log(maxConnections);
+    }
+
+    int size() {
+        return size;
+    }
+
+    /**
+     * Links a slot whose vector is already in the store.
+     *
+     * @param slot the slot to add
+     * @param vector the slot's vector, to avoid reading it back from the store
+     */
+    void insert(int slot, float[] vector) {
+        ensureCapacity(slot + 1);
+        int level = (int) (-Math.log(1.0 - random.nextDouble()) * levelMultiplier);
+        links[slot] = new int[level + 1][];
+        for (int layer = 0; layer <= level; layer++) {
+            links[slot][layer] = new int[connectionLimit(layer) + 1];
+        }
+        size++;
+        if (entryPoint < 0) {
+            entryPoint = slot;
+            topLayer = level;
+            return;
+        }
+
+        int current = entryPoint;
+        float currentDistance = distance(vector, current);
+        for (int layer = topLayer; layer > level; layer--) {
+            current = greedyClosest(vector, current, currentDistance, layer);
+            currentDistance = distance(vector, current);
+        }
+        for (int layer = Math.min(level, topLayer); layer >= 0; layer--) {
+            Heap nearest = searchLayer(vector, current, efConstruction, layer, null);
+            int[] ids = new int[nearest.size];
+            float[] distances = new float[nearest.size];
+            // Drain the farthest-first heap into ascending distance order
+            for (int i = nearest.size - 1; i >= 0; i--) {
+                distances[i] = nearest.topKey();
+                ids[i] = nearest.pop();
+            }
+            current = ids[0];
+            int selected = selectNeighbors(ids, distances, ids.length, maxConnections);
+            for (int i = 0; i < selected; i++) {
+                addLink(slot, ids[i], layer);
+                addLink(ids[i], slot, layer);
+            }
+        }
+        if (level > topLayer) {
+            topLayer = level;
+            entryPoint = slot;
+        }
+    }
+
+    /**
+     * Finds the accepted slots closest to a query.
+     *
+     * @param query the unit query vector
+     * @param k the number of results
+     * @param ef the beam width on layer 0; at least k
+     * @param accept filter for slots that may be returned, such as live ones
+     * @return slots and similarities, most similar first
+     */
+    Results search(float[] query, int k, int ef, IntPredicate accept) {
+        if (entryPoint < 0 || k <= 0) {
+            return new Results(new int[0], new float[0]);
+        }
+        int current = entryPoint;
+        float currentDistance = distance(query, current);
+        for (int layer = topLayer; layer > 0; layer--) {
+            current = greedyClosest(query, current, currentDistance, layer);
+            currentDistance = distance(query, current);
+        }
+        Heap nearest = searchLayer(query, current, Math.max(ef, k), 0, accept);
+        while (nearest.size > k) {
+            nearest.pop();
+        }
+        int[] slots = new int[nearest.size];
+        float[] similarities = new float[nearest.size];
+        for (int i = nearest.size - 1; i >= 0; i--) {
+            similarities[i] = 1.0f - nearest.topKey();
+            slots[i] = nearest.pop();
+        }
+        return new Results(slots, similarities);
+    }
+
+    private int greedyClosest(float[] query, int start, float startDistance, int layer) {
+        int current = start;
+        float currentDistance = startDistance;
+        boolean improved = true;
+        while (improved) {
+            improved = false;
+            int[] neighbors = links[current][layer];
+            for (int i = 1; i <= neighbors[0]; i++) {
+                float candidateDistance = distance(query, neighbors[i]);
+                if (candidateDistance < currentDistance) {
+                    current = neighbors[i];
+                    currentDistance = candidateDistance;
+                    improved = true;
+                }
+            }
+        }
+        return current;
+    }
+
+    /**
+     * Best-first beam search on one layer. Rejected slots are expanded like
+     * any other but never enter the result set.
+     *
+     * @return the closest accepted slots as a heap keyed by distance, farthest on top
+     */
+    private Heap searchLayer(float[] query, int start, int ef, int layer, IntPredicate accept) {
+        nextEpoch();
+        // Candidates pop closest first; results keep the farthest on top
+        Heap candidates = new Heap(ef * 2);
+        Heap results = new Heap(ef + 1);
+        float startDistance = distance(query, start);
+        visitedEpoch[start] = epoch;
+        candidates.push(start, -startDistance);
+        if (accept == null || accept.test(start)) {
+            results.push(start, startDistance);
+        }
+        while (candidates.size > 0) {
+            float candidateDistance = -candidates.topKey();
+            int candidate = candidates.pop();
+            if (results.size >= ef && candidateDistance > results.topKey()) {
+                break;
+            }
+            int[] neighbors = links[candidate][layer];
+            for (int i = 1; i <= neighbors[0]; i++) {
+                int neighbor = neighbors[i];
+                if (visitedEpoch[neighbor] == epoch) {
+                    continue;
+                }
+                visitedEpoch[neighbor] = epoch;
+                float neighborDistance = distance(query, neighbor);
+                if (results.size < ef || neighborDistance < results.topKey()) {
+                    candidates.push(neighbor, -neighborDistance);
+                    if (accept == null || accept.test(neighbor)) {
+                        results.push(neighbor, neighborDistance);
+                        if (results.size > ef) {
+                            results.pop();
+                        }
+                    }
+                }
+            }
+        }
+        return results;
+    }
+
+    /**
+     * Diversity heuristic: walking candidates from nearest to farthest, keeps
+     * one only if it is closer to the base than to every neighbor kept so far.
+     * Discarded candidates fill any remaining room, which keeps sparse regions
+     * connected. Moves the selection to the front of the arrays.
+     *
+     * @return the number of selected neighbors
+     */
+    private int selectNeighbors(int[] ids, float[] distances, int count, int limit) {
+        if (count <= limit) {
+            return count;
+        }
+        int[] selected = new int[limit];
+        float[] selectedDistances = new float[limit];
+        int[] discarded = new int[count];
+        float[] discardedDistances = new float[count];
+        int selectedCount = 0;
+        int discardedCount = 0;
+        for (int i = 0; i < count && selectedCount < limit; i++) {
+            boolean diverse = true;
+            for (int j = 0; j < selectedCount; j++) {
+                if (1.0f - vectors.dot(ids[i], selected[j]) < distances[i]) {
+                    diverse = false;
+                    break;
+                }
+            }
+            if (diverse) {
+                selected[selectedCount] = ids[i];
+                selectedDistances[selectedCount++] = distances[i];
+            } else {
+                discarded[discardedCount] = ids[i];
+                discardedDistances[discardedCount++] = distances[i];
+            }
+        }
+        for (int i = 0; i < discardedCount && selectedCount < limit; i++) {
+            selected[selectedCount] = discarded[i];
+            selectedDistances[selectedCount++] = discardedDistances[i];
+        }
+        System.arraycopy(selected, 0, ids, 0, selectedCount);
+        System.arraycopy(selectedDistances, 0, distances, 0, selectedCount);
+        return selectedCount;
+    }
+
+    private void addLink(int from, int to, int layer) {
+        int[] neighbors = links[from][layer];
+        int limit = connectionLimit(layer);
+        if (neighbors[0] < limit) {
+            neighbors[++neighbors[0]] = to;
+            return;
+        }
+        // Full: re-select among the current neighbors plus the new one
+        int count = neighbors[0] + 1;
+        int[] ids = Arrays.copyOfRange(neighbors, 1, count + 1);
+        ids[count - 1] = to;
+        float[] distances = new float[count];
+        for (int i = 0; i < count; i++) {
+            distances[i] = 1.0f - vectors.dot(from, ids[i]);
+        }
+        sortByDistance(ids, distances, count);
+        int selected = selectNeighbors(ids, distances, count, limit);
+        System.arraycopy(ids, 0, neighbors, 1, selected);
+        neighbors[0] = selected;
+    }
+
+    private static void sortByDistance(int[] ids, float[] distances, int count) {
+        for (int i = 1; i < count; i++) {
+            int id = ids[i];
+            float distance = distances[i];
+            int j = i - 1;
+            while (j >= 0 && distances[j] > distance) {
+                ids[j + 1] = ids[j];
+                distances[j + 1] = distances[j];
+                j--;
+            }
+            ids[j + 1] = id;
+            distances[j + 1] = distance;
+        }
+    }
+
+    private int connectionLimit(int layer) {
+        return layer == 0 ? maxLayerZeroConnections : maxConnections;
+    }
+
+    /** Cosine distance of unit vectors. */
+    private float distance(float[] query, int slot) {
+        return 1.0f - vectors.dot(query, slot);
+    }
+
+    private void nextEpoch() {
+        if (++epoch == Integer.MAX_VALUE) {
+            Arrays.fill(visitedEpoch, 0);
+            epoch = 1;
+        }
+    }
+
+    private void ensureCapacity(int slots) {
+        if (slots > links.length) {
+            int grown = Math.max(slots, links.length * 2);
+            links = Arrays.copyOf(links, grown);
+            visitedEpoch = Arrays.copyOf(visitedEpoch, grown);
+        }
+    }
+
+    /**
+     * Writes the layer links of the first {@code slots} slots.
+     */
+    void writeTo(DataOutput out, int slots) throws IOException {
+        out.writeInt(entryPoint);
+        out.writeInt(topLayer);
+        for (int slot = 0; slot < slots; slot++) {
+            int[][] layers = slot < links.length ? links[slot] : null;
+            out.writeInt(layers == null ? -1 : layers.length - 1);
+            if (layers == null) {
+                continue;
+            }
+            for (int[] neighbors : layers) {
+                out.writeInt(neighbors[0]);
+                for (int i = 1; i <= neighbors[0]; i++) {
+                    out.writeInt(neighbors[i]);
+                }
+            }
+        }
+    }
+
+    /**
+     * Reads links written by {@link #writeTo} into an empty graph.
+     */
+    void readFrom(DataInput in, int slots) throws IOException {
+        ensureCapacity(slots);
+        entryPoint = in.readInt();
+        topLayer = in.readInt();
+        for (int slot = 0; slot < slots; slot++) {
+            int level = in.readInt();
+            if (level < 0) {
+                continue;
+            }
+            links[slot] = new int[level + 1][];
+            for (int layer = 0; layer <= level; layer++) {
+                int count = in.readInt();
+                int limit = connectionLimit(layer);
+                if (count < 0 || count > limit) {
+                    throw new IOException("Corrupt neighbor list for slot " + slot);
+                }
+                int[] neighbors = new int[limit + 1];
+                neighbors[0] = count;
+                for (int i = 1; i <= count; i++) {
+                    neighbors[i] = in.readInt();
+                    if (neighbors[i] < 0 || neighbors[i] >= slots) {
+                        throw new IOException("Corrupt neighbor id for slot " + slot);
+                    }
+                }
+                links[slot][layer] = neighbors;
+            }
+            size++;
+        }
+    }
+
+    /**
+     * Search results, most similar first.
+     */
+    static final class Results {
+        final int[] slots;
+        final float[] similarities;
+
+        Results(int[] slots, float[] similarities) {
+            this.slots = slots;
+            this.similarities = similarities;
+        }
+    }
+
+    /**
+     * Binary max-heap of slots keyed by float.
+     */
+    private static final class Heap {
+        private int[] ids;
+        private float[] keys;
+        private int size;
+
+        Heap(int capacity) {
+            this.ids = new int[Math.max(capacity, 4)];
+            this.keys = new float[ids.length];
+        }
+
+        void push(int id, float key) {
+            if (size == ids.length) {
+                ids = Arrays.copyOf(ids, size * 2);
+                keys = Arrays.copyOf(keys, size * 2);
+            }
+            int index = size++;
+            while (index > 0) {
+                int parent = (index - 1) >>> 1;
+                if (keys[parent] >= key) {
+                    break;
+                }
+                ids[index] = ids[parent];
+                keys[index] = keys[parent];
+                index = parent;
+            }
+            ids[index] = id;
+            keys[index] = key;
+        }
+
+        float topKey() {
+            return keys[0];
+        }
+
+        int pop() {
+            int top = ids[0];
+            size--;
+            if (size > 0) {
+                int id = ids[size];
+                float key = keys[size];
+                int index = 0;
+                while (true) {
+                    int child = 2 * index + 1;
+                    if (child >= size) {
+                        break;
+                    }
+                    if (child + 1 < size && keys[child + 1] > keys[child]) {
+                        child++;
+                    }
+                    if (keys[child] <= key) {
+                        break;
+                    }
+                    ids[index] = ids[child];
+                    keys[index] = keys[child];
+                    index = child;
+                }
+                ids[index] = id;
+                keys[index] = key;
+            }
+            return top;
+        }
+    }
+}
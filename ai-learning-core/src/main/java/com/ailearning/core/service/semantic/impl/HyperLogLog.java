@@ -0,0 +1,91 @@
+package com.ailearning.core.service.semantic.impl;
+
+/**
+ * HyperLogLog (Flajolet et al.) estimate of the number of distinct 64-bit
+ * hashes added.
+ * <p>
+ * The top {@code precision} bits of a hash pick one of {@code 2^precision}
+ * registers, which keeps the longest run of leading zeros seen in the
+ * remaining bits. The standard error is about {@code 1.04 / sqrt(2^precision)},
+ * small cardinalities fall back to linear counting, and sketches of the same
+ * precision merge by taking register maxima. Not thread-safe.
+ */
+final class HyperLogLog {
+
+    private final int precision;
+    private final byte[] registers;
+
+    /**
+     * @param precision register index bits, between 4 and 16
+     */
+    HyperLogLog(int precision) {
+        if (precision < 4 || precision > 16) {
+            throw new IllegalArgumentException("HyperLogLog precision must be between 4 and 16");
+        }
+        this.precision = precision;
+        this.registers = new byte[1 << precision];
+    }
+
+    int precision() {
+        return precision;
+    }
+
+    /**
+     * Adds a well-mixed 64-bit hash.
+     */
+    void add(long hash) {
+        int register = (int) (hash >>> (64 - precision));
+        // The guard bit bounds the rank when the remaining bits are all zero
+        long remaining = (hash << precision) | (1L << (precision - 1));
+        byte rank = (byte) (Long.numberOfLeadingZeros(remaining) + 1);
+        if (registers[register] < rank) {
+            registers[register] = rank;
+        }
+    }
+
+    /**
+     * Estimates the number of distinct hashes added.
+     */
+    long estimate() {
+        int m = registers.length;
+        double sum = 0;
+        int zeros = 0;
+        for (byte register : registers) {
+            sum += Math.scalb(1.0, -register);
+            if (register == 0) {
+                zeros++;
+            }
+        }
+        double alpha = m == 16 ? 0.673 : m == 32 ? 0.697 : m == 64 ? 0.709 : 0.7213 / (1 + 1.079 / m);
+        double estimate = alpha * m * m / sum;
+        if (estimate <= 2.5 * m && zeros > 0) {
+            estimate = m * Math.log((double) m / zeros);
+        }
+        return Math.round(estimate);
+    }
+
+    /**
+     * Adds the hashes of a sketch of the same precision.
+     */
+    void merge(HyperLogLog other) {
+        if (other.precision != precision) {
+            throw new IllegalArgumentException(String.format(
+                    "Cannot merge HyperLogLog of precision %d into precision %d", other.precision, precision));
+        }
+        for (int i = 0; i < registers.length; i++) {
+            if (registers[i] < other.registers[i]) {
+                registers[i] = other.registers[i];
+            }
+        }
+    }
+
+    HyperLogLog copy() {
+        HyperLogLog copy = new HyperLogLog(precision);
+        System.arraycopy(registers, 0, copy.registers, 0, registers.length);
+        return copy;
+    }
+
+    long memoryBytes() {
+        return registers.length;
+    }
+}
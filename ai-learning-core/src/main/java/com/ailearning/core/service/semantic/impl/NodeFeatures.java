@@ -0,0 +1,112 @@
+package com.ailearning.core.service.semantic.impl;
+
+/**
+ * Immutable similarity features of one AST node, extracted once by
+ * {@link SimilarityCalculator} and reused for every pair the node takes part in.
+ * <p>
+ * Strings are interned to int ids by the calculator that built the features,
+ * so features are only comparable with others from the same calculator. Every
+ * id array is sorted and free of duplicates, so set similarity is a single
+ * merge-scan. The node-type histogram is two parallel arrays sorted by type id.
+ */
+public final class NodeFeatures {
+
+    static final int NONE = -1;
+
+    private final String nodeType;
+    private final String name;
+    private final String lowerCaseName;
+    private final int depth;
+    private final int childCount;
+    private final int[] lexicalTokens;
+    private final int[] genericTokens;
+    private final int[] histogramTypes;
+    private final int[] histogramCounts;
+    private final int[] memberNames;
+    private final int[] fieldNames;
+    private final int[] parameterTypes;
+    private final int declaredType;
+
+    NodeFeatures(String nodeType, String name, int depth, int childCount,
+                 int[] lexicalTokens, int[] genericTokens, int[] histogramTypes, int[] histogramCounts,
+                 int[] memberNames, int[] fieldNames, int[] parameterTypes, int declaredType) {
+        this.nodeType = nodeType;
+        this.name = name;
+        this.lowerCaseName = name != null ? name.toLowerCase() : null;
+        this.depth = depth;
+        this.childCount = childCount;
+        this.lexicalTokens = lexicalTokens;
+        this.genericTokens = genericTokens;
+        this.histogramTypes = histogramTypes;
+        this.histogramCounts = histogramCounts;
+        this.memberNames = memberNames;
+        this.fieldNames = fieldNames;
+        this.parameterTypes = parameterTypes;
+        this.declaredType = declaredType;
+    }
+
+    public String getNodeType() {
+        return nodeType;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /** The name lower-cased once, for case-insensitive edit distance. */
+    String lowerCaseName() {
+        return lowerCaseName;
+    }
+
+    public int getDepth() {
+        return depth;
+    }
+
+    public int getChildCount() {
+        return childCount;
+    }
+
+    /** Word ids from the names of declarations in the subtree. */
+    int[] lexicalTokens() {
+        return lexicalTokens;
+    }
+
+    /** Word ids from the node's string form, used when no type-specific comparison applies. */
+    int[] genericTokens() {
+        return genericTokens;
+    }
+
+    int[] histogramTypes() {
+        return histogramTypes;
+    }
+
+    int[] histogramCounts() {
+        return histogramCounts;
+    }
+
+    /** Names of a class's methods. */
+    int[] memberNames() {
+        return memberNames;
+    }
+
+    /** Names of a class's fields. */
+    int[] fieldNames() {
+        return fieldNames;
+    }
+
+    /** Types of a method's parameters. */
+    int[] parameterTypes() {
+        return parameterTypes;
+    }
+
+    /** A method's return type or a variable's type, or {@link #NONE}. */
+    int declaredType() {
+        return declaredType;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("NodeFeatures{type='%s', name='%s', depth=%d, tokens=%d, histogramTypes=%d}",
+                nodeType, name, depth, lexicalTokens.length, histogramTypes.length);
+    }
+}
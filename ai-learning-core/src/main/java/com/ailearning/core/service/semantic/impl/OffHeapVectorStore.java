@@ -0,0 +1,145 @@
+package com.ailearning.core.service.semantic.impl;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+
+/**
+ * Fixed-dimension float vectors in one direct buffer outside the Java heap,
+ * addressed by dense slot number.
+ * <p>
+ * A million 256-dimension vectors take a gigabyte, which the garbage
+ * collector would otherwise have to trace and copy. The buffer uses the
+ * platform byte order so that reads in the distance loops need no byte
+ * swapping; persisted vectors are always big-endian, the byte order of
+ * {@link DataOutput}. Not thread-safe.
+ */
+final class OffHeapVectorStore {
+
+    private static final int FLOAT_BYTES = Float.BYTES;
+    private static final int COPY_CHUNK_FLOATS = 16 * 1024;
+
+    private final int dimensions;
+    private final int vectorBytes;
+    private ByteBuffer buffer;
+    private int capacity;
+
+    OffHeapVectorStore(int dimensions, int initialCapacity) {
+        this.dimensions = dimensions;
+        this.vectorBytes = dimensions * FLOAT_BYTES;
+        this.capacity = Math.max(1, initialCapacity);
+        this.buffer = allocate(capacity * vectorBytes);
+    }
+
+    int dimensions() {
+        return dimensions;
+    }
+
+    int capacity() {
+        return capacity;
+    }
+
+    /**
+     * Grows the buffer so that it holds at least the given number of slots.
+     */
+    void ensureCapacity(int slots) {
+        if (slots <= capacity) {
+            return;
+        }
+        int maxSlots = Integer.MAX_VALUE / vectorBytes;
+        if (slots > maxSlots) {
+            throw new IllegalStateException("Vector store cannot hold more than " + maxSlots + " vectors");
+        }
+        int grown = (int) Math.min(maxSlots, Math.max(slots, capacity * 2L));
+        ByteBuffer larger = allocate(grown * vectorBytes);
+        ByteBuffer used = buffer.duplicate();
+        used.clear();
+        larger.put(used);
+        larger.clear();
+        buffer = larger;
+        capacity = grown;
+    }
+
+    void set(int slot, float[] vector) {
+        int base = slot * vectorBytes;
+        for (int i = 0; i < dimensions; i++) {
+            buffer.putFloat(base + i * FLOAT_BYTES, vector[i]);
+        }
+    }
+
+    float[] get(int slot) {
+        float[] vector = new float[dimensions];
+        int base = slot * vectorBytes;
+        for (int i = 0; i < dimensions; i++) {
+            vector[i] = buffer.getFloat(base + i * FLOAT_BYTES);
+        }
+        return vector;
+    }
+
+    /** Dot product of an on-heap query with a stored vector. */
+    float dot(float[] query, int slot) {
+        int base = slot * vectorBytes;
+        float sum = 0.0f;
+        for (int i = 0; i < dimensions; i++) {
+            sum += query[i] * buffer.getFloat(base + i * FLOAT_BYTES);
+        }
+        return sum;
+    }
+
+    /** Dot product of two stored vectors. */
+    float dot(int slot1, int slot2) {
+        int base1 = slot1 * vectorBytes;
+        int base2 = slot2 * vectorBytes;
+        float sum = 0.0f;
+        for (int i = 0; i < vectorBytes; i += FLOAT_BYTES) {
+            sum += buffer.getFloat(base1 + i) * buffer.getFloat(base2 + i);
+        }
+        return sum;
+    }
+
+    /**
+     * Writes the first {@code slots} vectors as big-endian floats.
+     */
+    void writeTo(DataOutput out, int slots) throws IOException {
+        FloatBuffer source = floats(slots);
+        ByteBuffer chunk = ByteBuffer.allocate(COPY_CHUNK_FLOATS * FLOAT_BYTES);
+        while (source.hasRemaining()) {
+            int length = Math.min(COPY_CHUNK_FLOATS, source.remaining());
+            chunk.clear();
+            for (int i = 0; i < length; i++) {
+                chunk.putFloat(source.get());
+            }
+            out.write(chunk.array(), 0, length * FLOAT_BYTES);
+        }
+    }
+
+    /**
+     * Reads {@code slots} vectors written by {@link #writeTo} into slots 0 onwards.
+     */
+    void readFrom(DataInput in, int slots) throws IOException {
+        ensureCapacity(slots);
+        FloatBuffer target = floats(slots);
+        ByteBuffer chunk = ByteBuffer.allocate(COPY_CHUNK_FLOATS * FLOAT_BYTES);
+        while (target.hasRemaining()) {
+            int length = Math.min(COPY_CHUNK_FLOATS, target.remaining());
+            in.readFully(chunk.array(), 0, length * FLOAT_BYTES);
+            chunk.clear();
+            for (int i = 0; i < length; i++) {
+                target.put(chunk.getFloat());
+            }
+        }
+    }
+
+    private FloatBuffer floats(int slots) {
+        ByteBuffer view = buffer.duplicate().order(buffer.order());
+        view.clear().limit(slots * vectorBytes);
+        return view.asFloatBuffer();
+    }
+
+    private static ByteBuffer allocate(int bytes) {
+        return ByteBuffer.allocateDirect(bytes).order(ByteOrder.nativeOrder());
+    }
+}
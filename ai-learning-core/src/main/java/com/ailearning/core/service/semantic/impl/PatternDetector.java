@@ -1,340 +1,595 @@
 package com.ailearning.core.service.semantic.impl;
 
 import com.ailearning.core.model.ast.ASTNode;
+import com.ailearning.core.model.ast.ASTTraversal;
 import com.ailearning.core.model.ast.ClassNode;
+import com.ailearning.core.model.ast.ExpressionNode;
 import com.ailearning.core.model.ast.MethodNode;
+import com.ailearning.core.model.ast.NodeId;
+import com.ailearning.core.model.ast.TraversalVisitor;
 import com.ailearning.core.model.CodePattern;
-import com.ailearning.core.model.Pattern;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.util.*;
-import java.util.stream.Collectors;
+import java.util.concurrent.atomic.LongAdder;
 
 /**
  * Detects code patterns and design patterns in AST structures.
  * Identifies common programming patterns, design patterns, and anti-patterns.
+ * <p>
+ * Matchers are compiled into a dispatch table when the detector is built.
+ * Each matcher declares the node selectors it applies to, either a node type
+ * such as {@code class} or a type and name such as {@code statement:for}, the
+ * attributes a node must carry and the languages it understands. A traversal
+ * then hands every node only to the matchers registered under its type or
+ * type and name, so the whole tree is evaluated in one pass and a statement
+ * never reaches a class-level matcher.
+ * <p>
+ * Results of {@link #detectPatterns} are cached per tree: node ids are
+ * unique to one parse, so every new version of a file is a new key and stale
+ * results are simply never looked up again before they age out.
  */
 public class PatternDetector {
-    
+
     private static final Logger logger = LoggerFactory.getLogger(PatternDetector.class);
-    
-    private final Map<String, PatternMatcher> patternMatchers;
-    
+
+    private static final int DEFAULT_CACHE_SIZE = 1024;
+    private static final PatternMatcher[] NO_MATCHERS = new PatternMatcher[0];
+
+    private final List<PatternMatcher> patternMatchers;
+    // Matchers by node type, and by node type then node name
+    private final Map<String, PatternMatcher[]> byNodeType = new HashMap<>();
+    private final Map<String, Map<String, PatternMatcher[]>> byNodeName = new HashMap<>();
+    private final Map<CacheKey, List<CodePattern>> resultCache;
+    private final int cacheSize;
+    private long cacheHits;
+    private long cacheMisses;
+
     public PatternDetector() {
-        this.patternMatchers = initializePatternMatchers();
-        logger.info("Initialized PatternDetector with {} pattern matchers", patternMatchers.size());
+        this(defaultMatchers(), DEFAULT_CACHE_SIZE);
+    }
+
+    /**
+     * Creates a detector over the given matchers.
+     *
+     * @param patternMatchers the matchers to compile, in reporting order
+     * @param cacheSize the number of detection results to keep; 0 disables caching
+     */
+    public PatternDetector(List<PatternMatcher> patternMatchers, int cacheSize) {
+        Objects.requireNonNull(patternMatchers, "Pattern matchers cannot be null");
+        if (cacheSize < 0) {
+            throw new IllegalArgumentException("Cache size cannot be negative");
+        }
+        this.patternMatchers = List.copyOf(patternMatchers);
+        compile(this.patternMatchers);
+        this.cacheSize = cacheSize;
+        this.resultCache = new LinkedHashMap<>(16, 0.75f, true);
+        logger.info("Initialized PatternDetector with {} pattern matchers over {} node selectors",
+                this.patternMatchers.size(), byNodeType.size() + byNodeName.size());
     }
-    
+
     /**
-     * Detects patterns in the given AST node.
+     * Detects patterns in the given AST node and its descendants.
      */
     public List<CodePattern> detectPatterns(ASTNode astNode, String language) {
-        logger.debug("Detecting patterns for {} language in AST node: {}", language, astNode.getType());
-        
-        List<CodePattern> detectedPatterns = new ArrayList<>();
-        
-        // Apply all pattern matchers
-        for (Map.Entry<String, PatternMatcher> entry : patternMatchers.entrySet()) {
-            String patternName = entry.getKey();
-            PatternMatcher matcher = entry.getValue();
-            
-            if (matcher.matches(astNode, language)) {
-                CodePattern pattern = createCodePattern(patternName, astNode, matcher.getConfidence());
-                detectedPatterns.add(pattern);
-                logger.debug("Detected pattern: {} with confidence: {}", patternName, matcher.getConfidence());
+        logger.debug("Detecting patterns for {} language in AST node: {}", language, astNode.getNodeType());
+
+        CacheKey key = new CacheKey(astNode.getId(), language);
+        synchronized (resultCache) {
+            List<CodePattern> cached = resultCache.get(key);
+            if (cached != null) {
+                cacheHits++;
+                return new ArrayList<>(cached);
             }
+            cacheMisses++;
         }
-        
-        return detectedPatterns;
+
+        PatternCollector collector = newCollector(language);
+        ASTTraversal.walk(astNode, collector);
+        List<CodePattern> patterns = collector.getPatterns();
+
+        if (cacheSize > 0) {
+            synchronized (resultCache) {
+                resultCache.put(key, List.copyOf(patterns));
+                if (resultCache.size() > cacheSize) {
+                    Iterator<CacheKey> eldest = resultCache.keySet().iterator();
+                    eldest.next();
+                    eldest.remove();
+                }
+            }
+        }
+        return patterns;
     }
-    
+
     /**
-     * Initializes pattern matchers for different design patterns and code patterns.
+     * Creates a traversal visitor that applies the matching pattern matchers to every node it enters.
+     * Lets callers detect patterns in the same pass as other analyses.
      */
-    private Map<String, PatternMatcher> initializePatternMatchers() {
-        Map<String, PatternMatcher> matchers = new HashMap<>();
-        
-        // Design Patterns
-        matchers.put("Singleton", new SingletonPatternMatcher());
-        matchers.put("Factory", new FactoryPatternMatcher());
-        matchers.put("Observer", new ObserverPatternMatcher());
-        matchers.put("Builder", new BuilderPatternMatcher());
-        matchers.put("Strategy", new StrategyPatternMatcher());
-        
-        // Code Patterns
-        matchers.put("NullCheck", new NullCheckPatternMatcher());
-        matchers.put("LoopPattern", new LoopPatternMatcher());
-        matchers.put("ExceptionHandling", new ExceptionHandlingPatternMatcher());
-        matchers.put("ResourceManagement", new ResourceManagementPatternMatcher());
-        
-        // Anti-patterns
-        matchers.put("GodClass", new GodClassAntiPatternMatcher());
-        matchers.put("LongMethod", new LongMethodAntiPatternMatcher());
-        
-        return matchers;
+    public PatternCollector newCollector(String language) {
+        return new PatternCollector(language);
     }
-    
+
     /**
-     * Creates a CodePattern instance from detected pattern information.
+     * Drops every cached result for trees of a file, for callers that know
+     * a file was deleted and want the memory back before the entries age out.
+     * Results for trees created under an earlier id of the file (see
+     * {@link NodeId}) still age out normally.
+     *
+     * @param filePath the file path
      */
-    private CodePattern createCodePattern(String patternName, ASTNode astNode, double confidence) {
-        return CodePattern.builder()
-                .name(patternName)
-                .type(determinePatternType(patternName))
-                .description(generatePatternDescription(patternName))
-                .location(astNode.getSourceLocation().getFilePath())
-                .confidence(confidence)
-                .examples(List.of(astNode.toString()))
-                .build();
+    public void invalidateFile(String filePath) {
+        int fileId = NodeId.fileIdOf(filePath);
+        if (fileId < 0) {
+            return;
+        }
+        synchronized (resultCache) {
+            resultCache.keySet().removeIf(key -> key.nodeId.getFileId() == fileId);
+        }
     }
-    
+
     /**
-     * Determines the pattern type based on pattern name.
+     * Gets the compiled matchers in reporting order.
      */
-    private Pattern determinePatternType(String patternName) {
-        return switch (patternName) {
-            case "Singleton", "Factory", "Observer", "Builder", "Strategy" -> Pattern.DESIGN_PATTERN;
-            case "GodClass", "LongMethod" -> Pattern.ANTI_PATTERN;
-            default -> Pattern.CODE_PATTERN;
-        };
+    public List<PatternMatcher> getMatchers() {
+        return patternMatchers;
     }
-    
+
     /**
-     * Generates a description for the detected pattern.
+     * Gets cache and per-matcher statistics for monitoring.
+     *
+     * @return map with cache counts and, under {@code matchers}, the invocations,
+     *         matches and total time of each matcher
      */
-    private String generatePatternDescription(String patternName) {
-        return switch (patternName) {
-            case "Singleton" -> "Ensures a class has only one instance and provides global access";
-            case "Factory" -> "Creates objects without specifying their concrete classes";
-            case "Observer" -> "Defines a one-to-many dependency between objects";
-            case "Builder" -> "Constructs complex objects step by step";
-            case "Strategy" -> "Defines a family of algorithms and makes them interchangeable";
-            case "NullCheck" -> "Checks for null values before using objects";
-            case "LoopPattern" -> "Iterates over collections or performs repetitive operations";
-            case "ExceptionHandling" -> "Handles exceptions and error conditions";
-            case "ResourceManagement" -> "Manages system resources like files or connections";
-            case "GodClass" -> "A class that knows too much or does too much";
-            case "LongMethod" -> "A method that is too long and does too many things";
-            default -> "Code pattern: " + patternName;
-        };
-    }
-    
-    // Pattern Matcher Implementations
-    
-    private interface PatternMatcher {
-        boolean matches(ASTNode node, String language);
-        double getConfidence();
+    public Map<String, Object> getStatistics() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        synchronized (resultCache) {
+            stats.put("cachedResults", resultCache.size());
+            stats.put("cacheHits", cacheHits);
+            stats.put("cacheMisses", cacheMisses);
+        }
+        Map<String, Object> matchers = new LinkedHashMap<>();
+        for (PatternMatcher matcher : patternMatchers) {
+            Map<String, Object> matcherStats = new LinkedHashMap<>();
+            matcherStats.put("invocations", matcher.invocations.sum());
+            matcherStats.put("matches", matcher.matches.sum());
+            matcherStats.put("totalNanos", matcher.totalNanos.sum());
+            matchers.put(matcher.getName(), matcherStats);
+        }
+        stats.put("matchers", matchers);
+        return stats;
     }
-    
-    private static class SingletonPatternMatcher implements PatternMatcher {
-        private double confidence = 0.0;
-        
+
+    /**
+     * Traversal visitor accumulating the patterns detected in all visited nodes.
+     */
+    public final class PatternCollector implements TraversalVisitor {
+
+        private final String language;
+        private final List<CodePattern> detectedPatterns = new ArrayList<>();
+
+        private PatternCollector(String language) {
+            this.language = language != null ? language.toLowerCase() : null;
+        }
+
         @Override
-        public boolean matches(ASTNode node, String language) {
-            if (!(node instanceof ClassNode classNode)) return false;
-            
-            // Look for singleton characteristics
-            boolean hasPrivateConstructor = classNode.getChildren().stream()
-                    .filter(child -> child instanceof MethodNode)
-                    .map(child -> (MethodNode) child)
-                    .anyMatch(method -> method.getName().equals(classNode.getName()) && 
-                             method.getModifiers().contains("private"));
-            
-            boolean hasStaticInstance = classNode.getChildren().stream()
-                    .anyMatch(child -> child.toString().contains("static") && 
-                             child.toString().contains(classNode.getName()));
-            
-            if (hasPrivateConstructor && hasStaticInstance) {
-                confidence = 0.8;
-                return true;
+        public VisitResult enter(ASTNode node) {
+            String nodeType = node.getNodeType();
+            apply(byNodeType.getOrDefault(nodeType, NO_MATCHERS), node);
+            Map<String, PatternMatcher[]> byName = byNodeName.get(nodeType);
+            if (byName != null && node.getName() != null) {
+                apply(byName.getOrDefault(node.getName(), NO_MATCHERS), node);
             }
-            
-            confidence = 0.0;
-            return false;
+            return VisitResult.CONTINUE;
         }
-        
-        @Override
-        public double getConfidence() {
-            return confidence;
+
+        private void apply(PatternMatcher[] matchers, ASTNode node) {
+            for (PatternMatcher matcher : matchers) {
+                if (!matcher.accepts(node, language)) {
+                    continue;
+                }
+                long start = System.nanoTime();
+                double confidence = 0.0;
+                try {
+                    confidence = matcher.match(node);
+                } catch (Exception e) {
+                    logger.warn("Pattern matcher {} failed: {}", matcher.getName(), e.getMessage());
+                }
+                matcher.totalNanos.add(System.nanoTime() - start);
+                matcher.invocations.increment();
+                if (confidence > 0.0) {
+                    matcher.matches.increment();
+                    detectedPatterns.add(matcher.createPattern(node, confidence));
+                    logger.debug("Detected pattern: {} with confidence: {}", matcher.getName(), confidence);
+                }
+            }
+        }
+
+        /**
+         * Gets the patterns detected so far.
+         */
+        public List<CodePattern> getPatterns() {
+            return new ArrayList<>(detectedPatterns);
         }
     }
-    
-    private static class FactoryPatternMatcher implements PatternMatcher {
-        private double confidence = 0.0;
-        
-        @Override
-        public boolean matches(ASTNode node, String language) {
-            if (!(node instanceof ClassNode classNode)) return false;
-            
-            // Look for factory method characteristics
-            boolean hasCreateMethod = classNode.getChildren().stream()
-                    .filter(child -> child instanceof MethodNode)
-                    .map(child -> (MethodNode) child)
-                    .anyMatch(method -> method.getName().toLowerCase().contains("create") ||
-                             method.getName().toLowerCase().contains("factory"));
-            
-            if (hasCreateMethod) {
-                confidence = 0.7;
-                return true;
+
+    /**
+     * Builds the dispatch tables from the selectors the matchers declare.
+     */
+    private void compile(List<PatternMatcher> matchers) {
+        Map<String, List<PatternMatcher>> typeLists = new HashMap<>();
+        Map<String, Map<String, List<PatternMatcher>>> nameLists = new HashMap<>();
+        for (PatternMatcher matcher : matchers) {
+            for (String selector : matcher.getSelectors()) {
+                int colon = selector.indexOf(':');
+                if (colon < 0) {
+                    typeLists.computeIfAbsent(selector, key -> new ArrayList<>()).add(matcher);
+                } else {
+                    nameLists.computeIfAbsent(selector.substring(0, colon), key -> new HashMap<>())
+                            .computeIfAbsent(selector.substring(colon + 1), key -> new ArrayList<>())
+                            .add(matcher);
+                }
             }
-            
-            confidence = 0.0;
-            return false;
-        }
-        
-        @Override
-        public double getConfidence() {
-            return confidence;
         }
+        typeLists.forEach((type, registered) -> byNodeType.put(type, registered.toArray(NO_MATCHERS)));
+        nameLists.forEach((type, byName) -> {
+            Map<String, PatternMatcher[]> table = new HashMap<>();
+            byName.forEach((name, registered) -> table.put(name, registered.toArray(NO_MATCHERS)));
+            byNodeName.put(type, table);
+        });
     }
-    
-    private static class BuilderPatternMatcher implements PatternMatcher {
-        private double confidence = 0.0;
-        
-        @Override
-        public boolean matches(ASTNode node, String language) {
-            if (!(node instanceof ClassNode classNode)) return false;
-            
-            // Look for builder pattern characteristics
-            boolean hasBuilderMethod = classNode.getChildren().stream()
-                    .filter(child -> child instanceof MethodNode)
-                    .map(child -> (MethodNode) child)
-                    .anyMatch(method -> method.getName().equals("builder") && 
-                             method.getModifiers().contains("static"));
-            
-            boolean hasBuildMethod = classNode.getChildren().stream()
-                    .filter(child -> child instanceof MethodNode)
-                    .map(child -> (MethodNode) method)
-                    .anyMatch(method -> method.getName().equals("build"));
-            
-            if (hasBuilderMethod || hasBuildMethod) {
-                confidence = 0.75;
-                return true;
+
+    /**
+     * Creates the built-in matchers for design patterns, code patterns and anti-patterns.
+     */
+    private static List<PatternMatcher> defaultMatchers() {
+        return List.of(
+                // Design Patterns
+                new SingletonPatternMatcher(),
+                new FactoryPatternMatcher(),
+                new ObserverPatternMatcher(),
+                new BuilderPatternMatcher(),
+                new StrategyPatternMatcher(),
+                // Code Patterns
+                new NullCheckPatternMatcher(),
+                new LoopPatternMatcher(),
+                new ExceptionHandlingPatternMatcher(),
+                new ResourceManagementPatternMatcher(),
+                // Anti-patterns
+                new GodClassAntiPatternMatcher(),
+                new LongMethodAntiPatternMatcher()
+        );
+    }
+
+    /**
+     * Detection rule for one pattern. Matchers are stateless and shared by
+     * concurrent traversals; the detector only calls {@link #match} for nodes
+     * selected by the matcher's declarations.
+     */
+    public abstract static class PatternMatcher {
+
+        private final String name;
+        private final CodePattern.PatternType type;
+        private final CodePattern.PatternCategory category;
+        private final String description;
+        private final Set<String> selectors;
+        private final Set<String> requiredAttributes;
+        private final Set<String> languages;
+        private final LongAdder invocations = new LongAdder();
+        private final LongAdder matches = new LongAdder();
+        private final LongAdder totalNanos = new LongAdder();
+
+        /**
+         * @param selectors node types, or {@code type:name} pairs, the matcher applies to
+         * @param requiredAttributes attributes a node must carry to be matched
+         * @param languages languages the matcher understands; empty for all
+         */
+        protected PatternMatcher(String name, CodePattern.PatternType type, CodePattern.PatternCategory category,
+                                 String description, Set<String> selectors, Set<String> requiredAttributes,
+                                 Set<String> languages) {
+            this.name = Objects.requireNonNull(name, "Matcher name cannot be null");
+            this.type = Objects.requireNonNull(type, "Pattern type cannot be null");
+            this.category = Objects.requireNonNull(category, "Pattern category cannot be null");
+            this.description = description;
+            this.selectors = Set.copyOf(selectors);
+            this.requiredAttributes = Set.copyOf(requiredAttributes);
+            this.languages = Set.copyOf(languages);
+        }
+
+        /**
+         * Evaluates a selected node.
+         *
+         * @return the confidence of the match, or 0.0 if the node does not match
+         */
+        protected abstract double match(ASTNode node);
+
+        /**
+         * Gets the advice attached to matches; only anti-patterns carry one.
+         */
+        protected String getRecommendation() {
+            return null;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public Set<String> getSelectors() {
+            return selectors;
+        }
+
+        public Set<String> getRequiredAttributes() {
+            return requiredAttributes;
+        }
+
+        public Set<String> getLanguages() {
+            return languages;
+        }
+
+        private boolean accepts(ASTNode node, String language) {
+            if (!languages.isEmpty() && (language == null || !languages.contains(language))) {
+                return false;
             }
-            
-            confidence = 0.0;
-            return false;
+            for (String attribute : requiredAttributes) {
+                if (!node.hasAttribute(attribute)) {
+                    return false;
+                }
+            }
+            return true;
         }
-        
-        @Override
-        public double getConfidence() {
-            return confidence;
+
+        private CodePattern createPattern(ASTNode node, double confidence) {
+            String location = node.getLocation() != null
+                    ? node.getLocation().getFilePath() + ":" + node.getLocation().getStartLine()
+                    : null;
+            return new CodePattern(name, type, category, description, location, confidence, getRecommendation());
         }
     }
-    
-    // Simplified implementations for other pattern matchers
-    private static class ObserverPatternMatcher implements PatternMatcher {
-        @Override
-        public boolean matches(ASTNode node, String language) {
-            return node.toString().toLowerCase().contains("observer") ||
-                   node.toString().toLowerCase().contains("listener");
+
+    // Pattern Matcher Implementations
+
+    private static class SingletonPatternMatcher extends PatternMatcher {
+        SingletonPatternMatcher() {
+            super("Singleton", CodePattern.PatternType.DESIGN_PATTERN, CodePattern.PatternCategory.CREATIONAL,
+                    "Ensures a class has only one instance and provides global access",
+                    Set.of("class"), Set.of(), Set.of());
         }
-        
+
         @Override
-        public double getConfidence() {
-            return 0.6;
+        protected double match(ASTNode node) {
+            ClassNode classNode = (ClassNode) node;
+            boolean hasPrivateConstructor = classNode.getMethods().stream()
+                    .anyMatch(method -> method.getName().equals(classNode.getName()) &&
+                             method.isPrivate());
+            boolean hasStaticInstance = classNode.getFields().stream()
+                    .anyMatch(field -> field.isStatic() && classNode.getName().equals(field.getType()));
+            return hasPrivateConstructor && hasStaticInstance ? 0.8 : 0.0;
         }
     }
-    
-    private static class StrategyPatternMatcher implements PatternMatcher {
+
+    private static class FactoryPatternMatcher extends PatternMatcher {
+        FactoryPatternMatcher() {
+            super("Factory", CodePattern.PatternType.DESIGN_PATTERN, CodePattern.PatternCategory.CREATIONAL,
+                    "Creates objects without specifying their concrete classes",
+                    Set.of("class"), Set.of(), Set.of());
+        }
+
         @Override
-        public boolean matches(ASTNode node, String language) {
-            return node.toString().toLowerCase().contains("strategy") ||
-                   (node instanceof ClassNode && node.toString().contains("interface"));
+        protected double match(ASTNode node) {
+            boolean hasCreateMethod = ((ClassNode) node).getMethods().stream()
+                    .map(method -> method.getName().toLowerCase())
+                    .anyMatch(name -> name.contains("create") || name.contains("factory"));
+            return hasCreateMethod ? 0.7 : 0.0;
+        }
+    }
+
+    private static class ObserverPatternMatcher extends PatternMatcher {
+        ObserverPatternMatcher() {
+            super("Observer", CodePattern.PatternType.DESIGN_PATTERN, CodePattern.PatternCategory.BEHAVIORAL,
+                    "Defines a one-to-many dependency between objects",
+                    Set.of("class"), Set.of(), Set.of());
         }
-        
+
         @Override
-        public double getConfidence() {
-            return 0.6;
+        protected double match(ASTNode node) {
+            ClassNode classNode = (ClassNode) node;
+            if (isObserverName(classNode.getName())
+                    || classNode.getInterfaces().stream().anyMatch(ObserverPatternMatcher::isObserverName)) {
+                return 0.6;
+            }
+            // Subjects keep observers in a field and register them through a method
+            boolean registersObservers = classNode.getMethods().stream()
+                    .anyMatch(method -> isObserverName(method.getName()));
+            return registersObservers ? 0.6 : 0.0;
+        }
+
+        private static boolean isObserverName(String name) {
+            String lower = name.toLowerCase();
+            return lower.contains("observer") || lower.contains("listener");
         }
     }
-    
-    private static class NullCheckPatternMatcher implements PatternMatcher {
+
+    private static class BuilderPatternMatcher extends PatternMatcher {
+        BuilderPatternMatcher() {
+            super("Builder", CodePattern.PatternType.DESIGN_PATTERN, CodePattern.PatternCategory.CREATIONAL,
+                    "Constructs complex objects step by step",
+                    Set.of("class"), Set.of(), Set.of());
+        }
+
         @Override
-        public boolean matches(ASTNode node, String language) {
-            return node.toString().contains("!= null") ||
-                   node.toString().contains("== null") ||
-                   node.toString().contains("Objects.requireNonNull");
+        protected double match(ASTNode node) {
+            for (MethodNode method : ((ClassNode) node).getMethods()) {
+                if ((method.getName().equals("builder") && method.isStatic()) || method.getName().equals("build")) {
+                    return 0.75;
+                }
+            }
+            return 0.0;
         }
-        
+    }
+
+    private static class StrategyPatternMatcher extends PatternMatcher {
+        StrategyPatternMatcher() {
+            super("Strategy", CodePattern.PatternType.DESIGN_PATTERN, CodePattern.PatternCategory.BEHAVIORAL,
+                    "Defines a family of algorithms and makes them interchangeable",
+                    Set.of("class"), Set.of(), Set.of());
+        }
+
         @Override
-        public double getConfidence() {
-            return 0.9;
+        protected double match(ASTNode node) {
+            ClassNode classNode = (ClassNode) node;
+            boolean strategy = classNode.getName().toLowerCase().contains("strategy")
+                    || classNode.getInterfaces().stream().anyMatch(name -> name.toLowerCase().contains("strategy"));
+            return strategy ? 0.6 : 0.0;
         }
     }
-    
-    private static class LoopPatternMatcher implements PatternMatcher {
+
+    private static class NullCheckPatternMatcher extends PatternMatcher {
+        NullCheckPatternMatcher() {
+            super("NullCheck", CodePattern.PatternType.IDIOM, CodePattern.PatternCategory.MAINTAINABILITY,
+                    "Checks for null values before using objects",
+                    Set.of("expression:binary", "expression:methodcall"), Set.of(), Set.of());
+        }
+
         @Override
-        public boolean matches(ASTNode node, String language) {
-            String nodeStr = node.toString().toLowerCase();
-            return nodeStr.contains("for") || nodeStr.contains("while") || nodeStr.contains("foreach");
+        protected double match(ASTNode node) {
+            if (node instanceof ExpressionNode expression && expression.getMethodName() != null) {
+                return "requireNonNull".equals(expression.getMethodName()) ? 0.9 : 0.0;
+            }
+            // Comparisons against the null literal
+            for (ASTNode operand : node.getChildren()) {
+                if ("nullliteral".equals(operand.getName())) {
+                    return 0.9;
+                }
+            }
+            return 0.0;
         }
-        
+    }
+
+    private static class LoopPatternMatcher extends PatternMatcher {
+        LoopPatternMatcher() {
+            super("LoopPattern", CodePattern.PatternType.IDIOM, CodePattern.PatternCategory.MAINTAINABILITY,
+                    "Iterates over collections or performs repetitive operations",
+                    Set.of("statement:for", "statement:foreach", "statement:while", "statement:do"),
+                    Set.of(), Set.of());
+        }
+
         @Override
-        public double getConfidence() {
+        protected double match(ASTNode node) {
             return 0.95;
         }
     }
-    
-    private static class ExceptionHandlingPatternMatcher implements PatternMatcher {
-        @Override
-        public boolean matches(ASTNode node, String language) {
-            String nodeStr = node.toString().toLowerCase();
-            return nodeStr.contains("try") || nodeStr.contains("catch") || nodeStr.contains("finally");
+
+    private static class ExceptionHandlingPatternMatcher extends PatternMatcher {
+        ExceptionHandlingPatternMatcher() {
+            super("ExceptionHandling", CodePattern.PatternType.IDIOM, CodePattern.PatternCategory.MAINTAINABILITY,
+                    "Handles exceptions and error conditions",
+                    Set.of("statement:try"), Set.of(), Set.of());
         }
-        
+
         @Override
-        public double getConfidence() {
+        protected double match(ASTNode node) {
             return 0.9;
         }
     }
-    
-    private static class ResourceManagementPatternMatcher implements PatternMatcher {
-        @Override
-        public boolean matches(ASTNode node, String language) {
-            String nodeStr = node.toString().toLowerCase();
-            return nodeStr.contains("try-with-resources") ||
-                   (nodeStr.contains("try") && nodeStr.contains("close"));
+
+    private static class ResourceManagementPatternMatcher extends PatternMatcher {
+        ResourceManagementPatternMatcher() {
+            super("ResourceManagement", CodePattern.PatternType.BEST_PRACTICE,
+                    CodePattern.PatternCategory.MAINTAINABILITY,
+                    "Manages system resources like files or connections",
+                    Set.of("statement:try"), Set.of(), Set.of("java"));
         }
-        
+
         @Override
-        public double getConfidence() {
-            return 0.8;
+        protected double match(ASTNode node) {
+            // Try-with-resources declares its resources as expressions of the try itself
+            for (ASTNode child : node.getChildren()) {
+                if ("expression".equals(child.getNodeType()) && "variabledeclaration".equals(child.getName())) {
+                    return 0.8;
+                }
+            }
+            return closesResource(node) ? 0.8 : 0.0;
+        }
+
+        private static boolean closesResource(ASTNode node) {
+            if (node instanceof ExpressionNode expression && "close".equals(expression.getMethodName())) {
+                return true;
+            }
+            for (ASTNode child : node.getChildren()) {
+                if (closesResource(child)) {
+                    return true;
+                }
+            }
+            return false;
         }
     }
-    
-    private static class GodClassAntiPatternMatcher implements PatternMatcher {
+
+    private static class GodClassAntiPatternMatcher extends PatternMatcher {
+        GodClassAntiPatternMatcher() {
+            super("GodClass", CodePattern.PatternType.ANTI_PATTERN, CodePattern.PatternCategory.MAINTAINABILITY,
+                    "A class that knows too much or does too much",
+                    Set.of("class"), Set.of(), Set.of());
+        }
+
         @Override
-        public boolean matches(ASTNode node, String language) {
-            if (!(node instanceof ClassNode classNode)) return false;
-            
-            // Simple heuristic: class with too many methods or too many lines
-            int methodCount = (int) classNode.getChildren().stream()
-                    .filter(child -> child instanceof MethodNode)
-                    .count();
-            
-            return methodCount > 20; // Arbitrary threshold
-        }
-        
+        protected double match(ASTNode node) {
+            // Simple heuristic: class with too many methods
+            int methodCount = 0;
+            for (ASTNode child : node.getChildren()) {
+                if (child instanceof MethodNode) {
+                    methodCount++;
+                }
+            }
+            return methodCount > 20 ? 0.7 : 0.0; // Arbitrary threshold
+        }
+
         @Override
-        public double getConfidence() {
-            return 0.7;
+        protected String getRecommendation() {
+            return "Split the class along its responsibilities";
         }
     }
-    
-    private static class LongMethodAntiPatternMatcher implements PatternMatcher {
+
+    private static class LongMethodAntiPatternMatcher extends PatternMatcher {
+        LongMethodAntiPatternMatcher() {
+            super("LongMethod", CodePattern.PatternType.ANTI_PATTERN, CodePattern.PatternCategory.MAINTAINABILITY,
+                    "A method that is too long and does too many things",
+                    Set.of("method"), Set.of(), Set.of());
+        }
+
         @Override
-        public boolean matches(ASTNode node, String language) {
-            if (!(node instanceof MethodNode)) return false;
-            
+        protected double match(ASTNode node) {
             // Simple heuristic: method with too many children (statements)
-            return node.getChildren().size() > 30; // Arbitrary threshold
+            return node.getChildren().size() > 30 ? 0.8 : 0.0; // Arbitrary threshold
         }
-        
+
+        @Override
+        protected String getRecommendation() {
+            return "Extract smaller methods with descriptive names";
+        }
+    }
+
+    /**
+     * Cache key of one detection: the queried node instance and the language.
+     */
+    private static final class CacheKey {
+        private final NodeId nodeId;
+        private final String language;
+
+        private CacheKey(NodeId nodeId, String language) {
+            this.nodeId = nodeId;
+            this.language = language;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj) return true;
+            if (!(obj instanceof CacheKey other)) return false;
+            return nodeId.equals(other.nodeId) && Objects.equals(language, other.language);
+        }
+
         @Override
-        public double getConfidence() {
-            return 0.8;
+        public int hashCode() {
+            return 31 * nodeId.hashCode() + Objects.hashCode(language);
         }
     }
-}
\ No newline at end of file
+}
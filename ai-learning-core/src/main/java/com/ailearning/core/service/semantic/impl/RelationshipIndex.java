@@ -0,0 +1,270 @@
+package com.ailearning.core.service.semantic.impl;
+
+import com.ailearning.core.model.Relationship;
+import com.ailearning.core.model.ast.ASTNode;
+import com.ailearning.core.model.ast.ASTTraversal;
+import com.ailearning.core.model.ast.NodeId;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * Project-wide index of code relationships, looked up by source, target and kind.
+ * <p>
+ * Each file contributes the relationships {@link RelationshipMapper} reads
+ * from its tree, and files are indexed and removed independently, so the index
+ * follows editor changes without re-reading the rest of the project. A
+ * relationship stays indexed while any file still produces it.
+ * <p>
+ * A file's relationships are kept in tree pre-order together with the run
+ * each class, method and variable node covers, so the relationships of any
+ * indexed subtree are answered by copying that run rather than walking the
+ * tree again.
+ */
+public class RelationshipIndex {
+
+    private static final Logger logger = LoggerFactory.getLogger(RelationshipIndex.class);
+
+    private final RelationshipMapper relationshipMapper;
+
+    private final Map<String, FileRelationships> files = new HashMap<>();
+    private final Map<NodeId, NodeSpan> nodeSpans = new HashMap<>();
+    // Number of file occurrences keeping each relationship indexed
+    private final Map<Relationship, int[]> occurrences = new HashMap<>();
+    private final Map<String, Map<Relationship.RelationshipType, Set<Relationship>>> bySource = new HashMap<>();
+    private final Map<String, Map<Relationship.RelationshipType, Set<Relationship>>> byTarget = new HashMap<>();
+    private final Map<Relationship.RelationshipType, Set<Relationship>> byType =
+            new EnumMap<>(Relationship.RelationshipType.class);
+
+    public RelationshipIndex() {
+        this(new RelationshipMapper());
+    }
+
+    public RelationshipIndex(RelationshipMapper relationshipMapper) {
+        this.relationshipMapper = Objects.requireNonNull(relationshipMapper, "Relationship mapper cannot be null");
+    }
+
+    /**
+     * Indexes the relationships of a file, replacing those of its previous version.
+     *
+     * @param filePath the file the tree was parsed from
+     * @param root the file's tree
+     */
+    public void indexFile(String filePath, ASTNode root) {
+        Objects.requireNonNull(filePath, "File path cannot be null");
+        Objects.requireNonNull(root, "Root node cannot be null");
+
+        // Map the tree before taking the lock; it only reads the tree
+        RelationshipMapper.RelationshipCollector collector = relationshipMapper.newCollector(null);
+        ASTTraversal.walk(root, collector);
+        collector.getSpans().putIfAbsent(root.getId(), new int[]{0, collector.getRecorded().size()});
+        FileRelationships added = new FileRelationships(root.getId(), collector.getRecorded(),
+                collector.getSpans());
+
+        synchronized (this) {
+            FileRelationships removed = files.put(filePath, added);
+            if (removed != null) {
+                unregister(removed);
+            }
+            register(added);
+        }
+        logger.debug("Indexed {} relationships for {}", added.relationships.size(), filePath);
+    }
+
+    /**
+     * Removes every relationship contributed by a file.
+     *
+     * @param filePath the file to drop
+     */
+    public synchronized void removeFile(String filePath) {
+        FileRelationships removed = files.remove(filePath);
+        if (removed != null) {
+            unregister(removed);
+        }
+    }
+
+    /**
+     * Gets the distinct relationships of an indexed node's subtree.
+     *
+     * @param node a file root, class, method or variable of an indexed tree
+     * @return the relationships, or null if the node is not part of the indexed version of its file
+     */
+    public synchronized List<Relationship> getRelationships(ASTNode node) {
+        NodeSpan span = nodeSpans.get(node.getId());
+        if (span == null) {
+            return null;
+        }
+        List<Relationship> run = span.file.relationships.subList(span.start, span.end);
+        return new ArrayList<>(new LinkedHashSet<>(run));
+    }
+
+    /**
+     * Gets the relationships starting at an element.
+     *
+     * @param source a class name or {@code Owner.member}
+     * @return the outgoing relationships
+     */
+    public synchronized List<Relationship> getOutgoing(String source) {
+        return collect(bySource.get(source), null);
+    }
+
+    /**
+     * Gets the relationships of one kind starting at an element.
+     */
+    public synchronized List<Relationship> getOutgoing(String source, Relationship.RelationshipType type) {
+        return collect(bySource.get(source), type);
+    }
+
+    /**
+     * Gets the relationships ending at an element, such as the subclasses of a class.
+     *
+     * @param target a type name, import or {@code Owner.member}
+     * @return the incoming relationships
+     */
+    public synchronized List<Relationship> getIncoming(String target) {
+        return collect(byTarget.get(target), null);
+    }
+
+    /**
+     * Gets the relationships of one kind ending at an element.
+     */
+    public synchronized List<Relationship> getIncoming(String target, Relationship.RelationshipType type) {
+        return collect(byTarget.get(target), type);
+    }
+
+    /**
+     * Gets every indexed relationship of one kind.
+     */
+    public synchronized List<Relationship> getByType(Relationship.RelationshipType type) {
+        Set<Relationship> relationships = byType.get(type);
+        return relationships != null ? new ArrayList<>(relationships) : List.of();
+    }
+
+    /**
+     * Gets the number of distinct indexed relationships.
+     */
+    public synchronized int size() {
+        return occurrences.size();
+    }
+
+    /**
+     * Gets index statistics for monitoring.
+     *
+     * @return map with relationship, file and per-kind counts
+     */
+    public synchronized Map<String, Object> getStatistics() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("relationships", occurrences.size());
+        stats.put("files", files.size());
+        stats.put("indexedNodes", nodeSpans.size());
+        for (Map.Entry<Relationship.RelationshipType, Set<Relationship>> entry : byType.entrySet()) {
+            stats.put(entry.getKey().name().toLowerCase(), entry.getValue().size());
+        }
+        return stats;
+    }
+
+    private void register(FileRelationships file) {
+        file.spans.forEach((nodeId, span) -> nodeSpans.put(nodeId, new NodeSpan(file, span[0], span[1])));
+        for (Relationship relationship : file.relationships) {
+            int[] count = occurrences.computeIfAbsent(relationship, key -> new int[1]);
+            if (count[0]++ == 0) {
+                addTo(bySource, relationship.getFrom(), relationship);
+                addTo(byTarget, relationship.getTo(), relationship);
+                byType.computeIfAbsent(relationship.getType(), key -> new LinkedHashSet<>()).add(relationship);
+            }
+        }
+    }
+
+    private void unregister(FileRelationships file) {
+        file.spans.keySet().forEach(nodeSpans::remove);
+        for (Relationship relationship : file.relationships) {
+            int[] count = occurrences.get(relationship);
+            if (count == null || --count[0] > 0) {
+                continue;
+            }
+            occurrences.remove(relationship);
+            removeFrom(bySource, relationship.getFrom(), relationship);
+            removeFrom(byTarget, relationship.getTo(), relationship);
+            Set<Relationship> ofType = byType.get(relationship.getType());
+            ofType.remove(relationship);
+            if (ofType.isEmpty()) {
+                byType.remove(relationship.getType());
+            }
+        }
+    }
+
+    private static void addTo(Map<String, Map<Relationship.RelationshipType, Set<Relationship>>> index, String key,
+                              Relationship relationship) {
+        index.computeIfAbsent(key, k -> new EnumMap<>(Relationship.RelationshipType.class))
+                .computeIfAbsent(relationship.getType(), type -> new LinkedHashSet<>())
+                .add(relationship);
+    }
+
+    private static void removeFrom(Map<String, Map<Relationship.RelationshipType, Set<Relationship>>> index,
+                                   String key, Relationship relationship) {
+        Map<Relationship.RelationshipType, Set<Relationship>> byKind = index.get(key);
+        if (byKind == null) {
+            return;
+        }
+        Set<Relationship> relationships = byKind.get(relationship.getType());
+        if (relationships != null && relationships.remove(relationship) && relationships.isEmpty()) {
+            byKind.remove(relationship.getType());
+            if (byKind.isEmpty()) {
+                index.remove(key);
+            }
+        }
+    }
+
+    private static List<Relationship> collect(Map<Relationship.RelationshipType, Set<Relationship>> byKind,
+                                              Relationship.RelationshipType type) {
+        if (byKind == null) {
+            return List.of();
+        }
+        if (type != null) {
+            Set<Relationship> relationships = byKind.get(type);
+            return relationships != null ? new ArrayList<>(relationships) : List.of();
+        }
+        List<Relationship> relationships = new ArrayList<>();
+        byKind.values().forEach(relationships::addAll);
+        return relationships;
+    }
+
+    /**
+     * One file's relationships in pre-order, with the runs of its nodes.
+     */
+    private static final class FileRelationships {
+        final NodeId rootId;
+        final List<Relationship> relationships;
+        final Map<NodeId, int[]> spans;
+
+        FileRelationships(NodeId rootId, List<Relationship> relationships, Map<NodeId, int[]> spans) {
+            this.rootId = rootId;
+            this.relationships = relationships;
+            this.spans = spans;
+        }
+    }
+
+    /**
+     * The run of a file's relationships covering one node's subtree.
+     */
+    private static final class NodeSpan {
+        final FileRelationships file;
+        final int start;
+        final int end;
+
+        NodeSpan(FileRelationships file, int start, int end) {
+            this.file = file;
+            this.start = start;
+            this.end = end;
+        }
+    }
+}
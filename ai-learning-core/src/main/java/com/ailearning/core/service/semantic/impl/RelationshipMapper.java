@@ -1,8 +1,13 @@
 package com.ailearning.core.service.semantic.impl;
 
 import com.ailearning.core.model.ast.ASTNode;
+import com.ailearning.core.model.ast.ASTTraversal;
 import com.ailearning.core.model.ast.ClassNode;
+import com.ailearning.core.model.ast.ExpressionNode;
 import com.ailearning.core.model.ast.MethodNode;
+import com.ailearning.core.model.ast.ModuleNode;
+import com.ailearning.core.model.ast.NodeId;
+import com.ailearning.core.model.ast.TraversalVisitor;
 import com.ailearning.core.model.ast.VariableNode;
 import com.ailearning.core.model.Relationship;
 import com.ailearning.core.model.ProjectContext;
@@ -10,471 +15,271 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.util.*;
-import java.util.stream.Collectors;
 
 /**
  * Maps code relationships and dependencies within AST structures.
- * Identifies inheritance, composition, aggregation, and usage relationships.
+ * Identifies inheritance, implementation, containment, call, import and
+ * type-dependency relationships.
+ * <p>
+ * Everything is read from the structured attributes the parsers record:
+ * {@code superclass} and {@code interfaces} on classes, {@code imports} on
+ * the file, return, parameter and thrown types on methods, field types and
+ * modifiers, and the called method or created type on expressions. Classes are identified by their simple name and members as
+ * {@code Owner.member}.
  */
 public class RelationshipMapper {
-    
+
     private static final Logger logger = LoggerFactory.getLogger(RelationshipMapper.class);
-    
+
+    private static final Set<String> PRIMITIVE_TYPES = Set.of("int", "long", "double", "float", "boolean", "char",
+            "byte", "short", "void", "var");
+
     /**
-     * Maps relationships for the given AST node within the project context.
+     * Maps relationships for the given AST node and its descendants within the project context.
      */
     public List<Relationship> mapRelationships(ASTNode astNode, ProjectContext projectContext) {
-        logger.debug("Mapping relationships for AST node: {}", astNode.getType());
-        
-        List<Relationship> relationships = new ArrayList<>();
-        
-        try {
-            // Map different types of relationships based on node type
-            if (astNode instanceof ClassNode classNode) {
-                relationships.addAll(mapClassRelationships(classNode, projectContext));
-            } else if (astNode instanceof MethodNode methodNode) {
-                relationships.addAll(mapMethodRelationships(methodNode, projectContext));
-            } else if (astNode instanceof VariableNode variableNode) {
-                relationships.addAll(mapVariableRelationships(variableNode, projectContext));
-            }
-            
-            // Map general relationships for all node types
-            relationships.addAll(mapGeneralRelationships(astNode, projectContext));
-            
-        } catch (Exception e) {
-            logger.error("Failed to map relationships for AST node", e);
-        }
-        
-        return relationships.stream()
-                .distinct()
-                .collect(Collectors.toList());
-    }
-    
-    /**
-     * Maps relationships specific to class nodes.
-     */
-    private List<Relationship> mapClassRelationships(ClassNode classNode, ProjectContext projectContext) {
-        List<Relationship> relationships = new ArrayList<>();
-        
-        // Map inheritance relationships
-        relationships.addAll(mapInheritanceRelationships(classNode));
-        
-        // Map composition relationships
-        relationships.addAll(mapCompositionRelationships(classNode));
-        
-        // Map interface implementation relationships
-        relationships.addAll(mapInterfaceRelationships(classNode));
-        
-        return relationships;
-    }
-    
-    /**
-     * Maps relationships specific to method nodes.
-     */
-    private List<Relationship> mapMethodRelationships(MethodNode methodNode, ProjectContext projectContext) {
-        List<Relationship> relationships = new ArrayList<>();
-        
-        // Map method call relationships
-        relationships.addAll(mapMethodCallRelationships(methodNode));
-        
-        // Map parameter relationships
-        relationships.addAll(mapParameterRelationships(methodNode));
-        
-        // Map return type relationships
-        relationships.addAll(mapReturnTypeRelationships(methodNode));
-        
-        return relationships;
-    }
-    
-    /**
-     * Maps relationships specific to variable nodes.
-     */
-    private List<Relationship> mapVariableRelationships(VariableNode variableNode, ProjectContext projectContext) {
-        List<Relationship> relationships = new ArrayList<>();
-        
-        // Map variable usage relationships
-        relationships.addAll(mapVariableUsageRelationships(variableNode));
-        
-        // Map type relationships
-        relationships.addAll(mapVariableTypeRelationships(variableNode));
-        
-        return relationships;
+        logger.debug("Mapping relationships for AST node: {}", astNode.getNodeType());
+
+        RelationshipCollector collector = newCollector(projectContext);
+        ASTTraversal.walk(astNode, collector);
+        return collector.getRelationships();
     }
-    
+
     /**
-     * Maps general relationships that apply to all node types.
+     * Creates a traversal visitor that maps relationships for every node it enters.
+     * Lets callers collect relationships in the same pass as other analyses.
      */
-    private List<Relationship> mapGeneralRelationships(ASTNode astNode, ProjectContext projectContext) {
-        List<Relationship> relationships = new ArrayList<>();
-        
-        // Map containment relationships (parent-child)
-        relationships.addAll(mapContainmentRelationships(astNode));
-        
-        // Map dependency relationships
-        relationships.addAll(mapDependencyRelationships(astNode));
-        
-        return relationships;
+    public RelationshipCollector newCollector(ProjectContext projectContext) {
+        return new RelationshipCollector();
     }
-    
+
     /**
-     * Maps inheritance relationships for class nodes.
+     * Traversal visitor accumulating the relationships of all visited nodes.
+     * <p>
+     * Relationships are recorded in pre-order, so those of any subtree form
+     * one contiguous run; {@link #getSpans} gives that run for every class,
+     * method and variable visited.
      */
-    private List<Relationship> mapInheritanceRelationships(ClassNode classNode) {
-        List<Relationship> relationships = new ArrayList<>();
-        
-        // Look for extends keyword in class definition
-        String classString = classNode.toString();
-        if (classString.contains("extends")) {
-            String parentClass = extractParentClass(classString);
-            if (parentClass != null) {
-                relationships.add(createRelationship(
-                        classNode.getName(),
-                        parentClass,
-                        Relationship.RelationshipType.INHERITANCE,
-                        "Class inheritance relationship",
-                        1.0
-                ));
-            }
+    public final class RelationshipCollector implements TraversalVisitor {
+
+        private final List<Relationship> relationships = new ArrayList<>();
+        private final Map<NodeId, int[]> spans = new HashMap<>();
+        // Distinct relationships of the node being entered
+        private final Set<Relationship> nodeRelationships = new HashSet<>();
+        private final Deque<String> owners = new ArrayDeque<>();
+        private final Deque<Integer> starts = new ArrayDeque<>();
+        private List<String> fileImports = List.of();
+
+        private RelationshipCollector() {
         }
-        
-        return relationships;
-    }
-    
-    /**
-     * Maps composition relationships for class nodes.
-     */
-    private List<Relationship> mapCompositionRelationships(ClassNode classNode) {
-        List<Relationship> relationships = new ArrayList<>();
-        
-        // Look for field declarations that indicate composition
-        for (ASTNode child : classNode.getChildren()) {
-            if (child instanceof VariableNode variableNode) {
-                String variableType = extractVariableType(variableNode);
-                if (variableType != null && !isPrimitiveType(variableType)) {
-                    relationships.add(createRelationship(
-                            classNode.getName(),
-                            variableType,
-                            Relationship.RelationshipType.COMPOSITION,
-                            "Class composition through field: " + variableNode.getName(),
-                            0.8
-                    ));
+
+        @Override
+        public VisitResult enter(ASTNode node) {
+            starts.push(relationships.size());
+            nodeRelationships.clear();
+            try {
+                if (node instanceof ModuleNode) {
+                    fileImports = stringList(node.getAttribute("imports"));
+                } else if (node instanceof ClassNode classNode) {
+                    mapClass(classNode);
+                    owners.push(classNode.getName());
+                } else if (node instanceof MethodNode methodNode) {
+                    mapMethod(methodNode);
+                    owners.push(memberId(methodNode.getName()));
+                } else if (node instanceof VariableNode variableNode) {
+                    mapVariable(variableNode);
+                } else if (node instanceof ExpressionNode expressionNode) {
+                    mapExpression(expressionNode);
                 }
+            } catch (Exception e) {
+                logger.error("Failed to map relationships for AST node", e);
             }
+            return VisitResult.CONTINUE;
         }
-        
-        return relationships;
-    }
-    
-    /**
-     * Maps interface implementation relationships.
-     */
-    private List<Relationship> mapInterfaceRelationships(ClassNode classNode) {
-        List<Relationship> relationships = new ArrayList<>();
-        
-        // Look for implements keyword in class definition
-        String classString = classNode.toString();
-        if (classString.contains("implements")) {
-            List<String> interfaces = extractImplementedInterfaces(classString);
-            for (String interfaceName : interfaces) {
-                relationships.add(createRelationship(
-                        classNode.getName(),
-                        interfaceName,
-                        Relationship.RelationshipType.IMPLEMENTATION,
-                        "Interface implementation relationship",
-                        1.0
-                ));
+
+        @Override
+        public void exit(ASTNode node) {
+            int start = starts.pop();
+            if (node instanceof ClassNode || node instanceof MethodNode) {
+                owners.pop();
             }
-        }
-        
-        return relationships;
-    }
-    
-    /**
-     * Maps method call relationships.
-     */
-    private List<Relationship> mapMethodCallRelationships(MethodNode methodNode) {
-        List<Relationship> relationships = new ArrayList<>();
-        
-        // Analyze method body for method calls
-        String methodBody = methodNode.toString();
-        Set<String> calledMethods = extractMethodCalls(methodBody);
-        
-        for (String calledMethod : calledMethods) {
-            relationships.add(createRelationship(
-                    methodNode.getName(),
-                    calledMethod,
-                    Relationship.RelationshipType.USAGE,
-                    "Method call relationship",
-                    0.7
-            ));
-        }
-        
-        return relationships;
-    }
-    
-    /**
-     * Maps parameter relationships for methods.
-     */
-    private List<Relationship> mapParameterRelationships(MethodNode methodNode) {
-        List<Relationship> relationships = new ArrayList<>();
-        
-        // Extract parameter types from method signature
-        List<String> parameterTypes = extractParameterTypes(methodNode);
-        
-        for (String parameterType : parameterTypes) {
-            if (!isPrimitiveType(parameterType)) {
-                relationships.add(createRelationship(
-                        methodNode.getName(),
-                        parameterType,
-                        Relationship.RelationshipType.DEPENDENCY,
-                        "Method parameter dependency",
-                        0.6
-                ));
+            if (node instanceof ClassNode || node instanceof MethodNode || node instanceof VariableNode
+                    || node instanceof ModuleNode) {
+                spans.put(node.getId(), new int[]{start, relationships.size()});
             }
         }
-        
-        return relationships;
-    }
-    
-    /**
-     * Maps return type relationships for methods.
-     */
-    private List<Relationship> mapReturnTypeRelationships(MethodNode methodNode) {
-        List<Relationship> relationships = new ArrayList<>();
-        
-        String returnType = extractReturnType(methodNode);
-        if (returnType != null && !isPrimitiveType(returnType) && !returnType.equals("void")) {
-            relationships.add(createRelationship(
-                    methodNode.getName(),
-                    returnType,
-                    Relationship.RelationshipType.DEPENDENCY,
-                    "Method return type dependency",
-                    0.6
-            ));
-        }
-        
-        return relationships;
-    }
-    
-    /**
-     * Maps variable usage relationships.
-     */
-    private List<Relationship> mapVariableUsageRelationships(VariableNode variableNode) {
-        List<Relationship> relationships = new ArrayList<>();
-        
-        // This would require more sophisticated analysis of variable usage
-        // For now, we create a simple relationship based on variable type
-        String variableType = extractVariableType(variableNode);
-        if (variableType != null && !isPrimitiveType(variableType)) {
-            relationships.add(createRelationship(
-                    variableNode.getName(),
-                    variableType,
-                    Relationship.RelationshipType.USAGE,
-                    "Variable type usage",
-                    0.5
-            ));
-        }
-        
-        return relationships;
-    }
-    
-    /**
-     * Maps variable type relationships.
-     */
-    private List<Relationship> mapVariableTypeRelationships(VariableNode variableNode) {
-        List<Relationship> relationships = new ArrayList<>();
-        
-        String variableType = extractVariableType(variableNode);
-        if (variableType != null) {
-            relationships.add(createRelationship(
-                    variableNode.getName(),
-                    variableType,
-                    Relationship.RelationshipType.DEPENDENCY,
-                    "Variable type dependency",
-                    0.8
-            ));
+
+        /**
+         * Gets the distinct relationships collected so far.
+         */
+        public List<Relationship> getRelationships() {
+            return new ArrayList<>(new LinkedHashSet<>(relationships));
         }
-        
-        return relationships;
-    }
-    
-    /**
-     * Maps containment relationships (parent-child).
-     */
-    private List<Relationship> mapContainmentRelationships(ASTNode astNode) {
-        List<Relationship> relationships = new ArrayList<>();
-        
-        for (ASTNode child : astNode.getChildren()) {
-            relationships.add(createRelationship(
-                    getNodeIdentifier(astNode),
-                    getNodeIdentifier(child),
-                    Relationship.RelationshipType.CONTAINMENT,
-                    "Parent-child containment relationship",
-                    1.0
-            ));
+
+        /**
+         * Gets all relationships in visiting order, with repeats from different nodes.
+         */
+        List<Relationship> getRecorded() {
+            return relationships;
         }
-        
-        return relationships;
-    }
-    
-    /**
-     * Maps dependency relationships.
-     */
-    private List<Relationship> mapDependencyRelationships(ASTNode astNode) {
-        List<Relationship> relationships = new ArrayList<>();
-        
-        // Extract import statements and other dependencies
-        String nodeString = astNode.toString();
-        Set<String> dependencies = extractDependencies(nodeString);
-        
-        for (String dependency : dependencies) {
-            relationships.add(createRelationship(
-                    getNodeIdentifier(astNode),
-                    dependency,
-                    Relationship.RelationshipType.DEPENDENCY,
-                    "Code dependency relationship",
-                    0.6
-            ));
+
+        /**
+         * Gets the {@code [start, end)} run of recorded relationships for each
+         * visited file, class, method and variable node.
+         */
+        Map<NodeId, int[]> getSpans() {
+            return spans;
         }
-        
-        return relationships;
-    }
-    
-    // Helper methods for extracting information from AST nodes
-    
-    private String extractParentClass(String classString) {
-        // Simple regex-based extraction (would be more sophisticated in real implementation)
-        int extendsIndex = classString.indexOf("extends");
-        if (extendsIndex != -1) {
-            String afterExtends = classString.substring(extendsIndex + 7).trim();
-            String[] parts = afterExtends.split("\\s+");
-            if (parts.length > 0) {
-                return parts[0].replaceAll("[{,]", "").trim();
+
+        private void mapClass(ClassNode classNode) {
+            String className = classNode.getName();
+            String superclass = classNode.getSuperclass();
+            if (superclass != null) {
+                add(className, typeName(superclass), Relationship.RelationshipType.INHERITS_FROM,
+                        "Class inheritance relationship", 1.0);
             }
-        }
-        return null;
-    }
-    
-    private List<String> extractImplementedInterfaces(String classString) {
-        List<String> interfaces = new ArrayList<>();
-        int implementsIndex = classString.indexOf("implements");
-        if (implementsIndex != -1) {
-            String afterImplements = classString.substring(implementsIndex + 10).trim();
-            String interfaceList = afterImplements.split("\\{")[0].trim();
-            String[] interfaceNames = interfaceList.split(",");
-            for (String interfaceName : interfaceNames) {
-                interfaces.add(interfaceName.trim());
+            for (String interfaceName : classNode.getInterfaces()) {
+                add(className, typeName(interfaceName), Relationship.RelationshipType.IMPLEMENTS,
+                        "Interface implementation relationship", 1.0);
+            }
+            // Imports belong to the top-level classes of the file
+            List<String> imports = classNode.hasAttribute("imports")
+                    ? stringList(classNode.getAttribute("imports"))
+                    : owners.isEmpty() ? fileImports : List.of();
+            for (String imported : imports) {
+                add(className, imported, Relationship.RelationshipType.IMPORTS, "Import dependency", 0.6);
+            }
+            if (!owners.isEmpty()) {
+                add(owners.peek(), className, Relationship.RelationshipType.CONTAINS, "Nested class", 1.0);
             }
         }
-        return interfaces;
-    }
-    
-    private Set<String> extractMethodCalls(String methodBody) {
-        Set<String> methodCalls = new HashSet<>();
-        // Simple pattern matching for method calls (would be more sophisticated in real implementation)
-        String[] lines = methodBody.split("\n");
-        for (String line : lines) {
-            if (line.contains("(") && line.contains(")")) {
-                // Extract potential method calls
-                String[] parts = line.split("\\.");
-                if (parts.length > 1) {
-                    String lastPart = parts[parts.length - 1];
-                    int parenIndex = lastPart.indexOf("(");
-                    if (parenIndex != -1) {
-                        String methodName = lastPart.substring(0, parenIndex).trim();
-                        if (!methodName.isEmpty()) {
-                            methodCalls.add(methodName);
-                        }
-                    }
+
+        private void mapMethod(MethodNode methodNode) {
+            String methodId = memberId(methodNode.getName());
+            if (!owners.isEmpty()) {
+                add(owners.peek(), methodId, Relationship.RelationshipType.CONTAINS, "Class member method", 1.0);
+            }
+            String returnType = methodNode.getReturnType();
+            if (returnType != null && !isPrimitiveType(returnType)) {
+                add(methodId, typeName(returnType), Relationship.RelationshipType.DEPENDS_ON,
+                        "Method return type dependency", 0.6);
+            }
+            for (Map<String, String> parameter : methodNode.getParameters()) {
+                String parameterType = parameter.get("type");
+                if (parameterType != null && !isPrimitiveType(parameterType)) {
+                    add(methodId, typeName(parameterType), Relationship.RelationshipType.DEPENDS_ON,
+                            "Method parameter dependency", 0.6);
                 }
             }
+            for (String thrown : methodNode.getThrows()) {
+                add(methodId, typeName(thrown), Relationship.RelationshipType.DEPENDS_ON,
+                        "Method exception dependency", 0.5);
+            }
         }
-        return methodCalls;
-    }
-    
-    private List<String> extractParameterTypes(MethodNode methodNode) {
-        List<String> parameterTypes = new ArrayList<>();
-        // Extract from method signature (simplified)
-        String methodString = methodNode.toString();
-        int parenIndex = methodString.indexOf("(");
-        int closeParenIndex = methodString.indexOf(")", parenIndex);
-        if (parenIndex != -1 && closeParenIndex != -1) {
-            String parameters = methodString.substring(parenIndex + 1, closeParenIndex);
-            if (!parameters.trim().isEmpty()) {
-                String[] params = parameters.split(",");
-                for (String param : params) {
-                    String[] parts = param.trim().split("\\s+");
-                    if (parts.length >= 2) {
-                        parameterTypes.add(parts[0]);
-                    }
+
+        private void mapVariable(VariableNode variableNode) {
+            String variableType = variableNode.getType();
+            if (variableNode.isField()) {
+                String fieldId = memberId(variableNode.getName());
+                if (!owners.isEmpty()) {
+                    add(owners.peek(), fieldId, Relationship.RelationshipType.CONTAINS, "Class member field", 1.0);
                 }
+                if (variableType == null || isPrimitiveType(variableType) || owners.isEmpty()) {
+                    return;
+                }
+                // Instance fields compose the owner; static fields only refer to shared state
+                if (variableNode.isStatic()) {
+                    add(owners.peek(), typeName(variableType), Relationship.RelationshipType.REFERENCES,
+                            "Static field reference: " + variableNode.getName(), 0.5);
+                } else {
+                    add(owners.peek(), typeName(variableType), Relationship.RelationshipType.DEPENDS_ON,
+                            "Class composition through field: " + variableNode.getName(), 0.8);
+                }
+            } else if (variableType != null && !isPrimitiveType(variableType) && !owners.isEmpty()) {
+                add(owners.peek(), typeName(variableType), Relationship.RelationshipType.USES,
+                        "Variable type usage: " + variableNode.getName(), 0.5);
             }
         }
-        return parameterTypes;
-    }
-    
-    private String extractReturnType(MethodNode methodNode) {
-        // Extract return type from method signature (simplified)
-        String methodString = methodNode.toString();
-        String[] parts = methodString.split("\\s+");
-        for (int i = 0; i < parts.length - 1; i++) {
-            if (parts[i + 1].equals(methodNode.getName())) {
-                return parts[i];
+
+        private void mapExpression(ExpressionNode expressionNode) {
+            if (owners.isEmpty()) {
+                return;
+            }
+            String calledMethod = expressionNode.getMethodName();
+            if (calledMethod != null) {
+                String scope = expressionNode.getCallScope();
+                // Unqualified and this-qualified calls go to the enclosing class
+                String target = scope == null || "this".equals(scope)
+                        ? enclosingClass() + "." + calledMethod
+                        : calledMethod;
+                add(owners.peek(), target, Relationship.RelationshipType.CALLS, "Method call relationship", 0.7);
+            }
+            String createdType = expressionNode.getCreatedType();
+            if (createdType != null) {
+                add(owners.peek(), typeName(createdType), Relationship.RelationshipType.USES,
+                        "Object creation", 0.6);
             }
         }
-        return null;
-    }
-    
-    private String extractVariableType(VariableNode variableNode) {
-        // Extract variable type (simplified)
-        String variableString = variableNode.toString();
-        String[] parts = variableString.split("\\s+");
-        if (parts.length >= 2) {
-            return parts[0];
+
+        private void add(String source, String target, Relationship.RelationshipType type, String description,
+                         double strength) {
+            if (source == null || target == null || target.isEmpty() || source.equals(target)) {
+                return;
+            }
+            Relationship relationship = new Relationship(source, target, type, description, strength);
+            if (nodeRelationships.add(relationship)) {
+                relationships.add(relationship);
+            }
+        }
+
+        private String memberId(String name) {
+            String owner = enclosingClass();
+            return owner != null ? owner + "." + name : name;
+        }
+
+        /**
+         * The innermost class; owners holds methods as {@code Owner.method}.
+         */
+        private String enclosingClass() {
+            String owner = owners.peek();
+            if (owner == null) {
+                return null;
+            }
+            int dot = owner.lastIndexOf('.');
+            return dot < 0 ? owner : owner.substring(0, dot);
         }
-        return null;
     }
-    
-    private Set<String> extractDependencies(String nodeString) {
-        Set<String> dependencies = new HashSet<>();
-        // Extract import statements and other dependencies (simplified)
-        String[] lines = nodeString.split("\n");
-        for (String line : lines) {
-            if (line.trim().startsWith("import")) {
-                String importStatement = line.trim();
-                String className = importStatement.substring(importStatement.lastIndexOf(".") + 1)
-                        .replace(";", "").trim();
-                dependencies.add(className);
+
+    private static List<String> stringList(Object value) {
+        if (!(value instanceof List<?> list)) {
+            return List.of();
+        }
+        List<String> strings = new ArrayList<>(list.size());
+        for (Object element : list) {
+            if (element instanceof String string) {
+                strings.add(string);
             }
         }
-        return dependencies;
+        return strings;
     }
-    
-    private boolean isPrimitiveType(String type) {
-        Set<String> primitiveTypes = Set.of("int", "long", "double", "float", "boolean", "char", "byte", "short", "void");
-        return primitiveTypes.contains(type.toLowerCase());
+
+    private static boolean isPrimitiveType(String type) {
+        return PRIMITIVE_TYPES.contains(typeName(type));
     }
-    
-    private String getNodeIdentifier(ASTNode node) {
-        if (node instanceof ClassNode classNode) {
-            return classNode.getName();
-        } else if (node instanceof MethodNode methodNode) {
-            return methodNode.getName();
-        } else if (node instanceof VariableNode variableNode) {
-            return variableNode.getName();
-        } else {
-            return node.getType() + "@" + node.hashCode();
+
+    /**
+     * Strips type arguments and array brackets, so {@code List<Item>[]} becomes {@code List}.
+     */
+    private static String typeName(String type) {
+        int end = type.length();
+        int generic = type.indexOf('<');
+        if (generic >= 0) {
+            end = generic;
         }
+        int array = type.indexOf('[');
+        if (array >= 0 && array < end) {
+            end = array;
+        }
+        return type.substring(0, end).trim();
     }
-    
-    private Relationship createRelationship(String source, String target, Relationship.RelationshipType type, 
-                                          String description, double strength) {
-        return Relationship.builder()
-                .sourceId(source)
-                .targetId(target)
-                .type(type)
-                .description(description)
-                .strength(strength)
-                .build();
-    }
-}
\ No newline at end of file
+}
@@ -0,0 +1,608 @@
+package com.ailearning.core.service.semantic.impl;
+
+import com.ailearning.core.model.ast.ASTNode;
+import com.ailearning.core.model.ast.ASTTraversal;
+import com.ailearning.core.model.ast.ClassNode;
+import com.ailearning.core.model.ast.ExpressionNode;
+import com.ailearning.core.model.ast.MethodNode;
+import com.ailearning.core.model.ast.StatementNode;
+import com.ailearning.core.model.ast.TraversalVisitor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.PriorityQueue;
+import java.util.Random;
+
+/**
+ * Project-wide MinHash/LSH index of classes and methods for similar-code lookup.
+ * <p>
+ * Each indexed node is reduced to a set of shingles: 1- to 3-grams of node
+ * labels in pre-order (statement and expression kinds included), plus the
+ * lower-cased words of declared identifiers and type names in its subtree. The set is summarized by a MinHash signature of
+ * {@code bands * rowsPerBand} values, and each band of the signature is hashed
+ * into a bucket. Nodes sharing any bucket are candidates. The fraction of
+ * matching signature values estimates the shingle Jaccard similarity and
+ * orders the candidates, which callers re-rank with {@link SimilarityCalculator}.
+ * Buckets holding thousands of entries stand for shared boilerplate such as
+ * accessors and are skipped unless nothing else matches.
+ * <p>
+ * Files are indexed and removed independently, so the index can follow
+ * editor changes. Storage is in primitive arrays, and bucket chains are linked
+ * through them, which keeps a million entries affordable.
+ */
+public class SimilarCodeIndex {
+
+    private static final Logger logger = LoggerFactory.getLogger(SimilarCodeIndex.class);
+
+    public static final int DEFAULT_BANDS = 20;
+    public static final int DEFAULT_ROWS_PER_BAND = 4;
+
+    // Buckets this large hold shared boilerplate rather than similar code
+    private static final int MAX_BUCKET_SCAN = 4096;
+    // Larger subtrees are shingled from their first nodes only
+    private static final int MAX_SHINGLE_NODES = 4096;
+    private static final int INITIAL_CAPACITY = 64;
+    private static final long FNV_OFFSET = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+    private static final long IDENTIFIER_SALT = 0x5bd1e9955bd1e995L;
+    private static final long TYPE_NAME_SALT = 0x27d4eb2f165667c5L;
+    private static final long SEED = 0x9e3779b97f4a7c15L;
+
+    private final int bands;
+    private final int rowsPerBand;
+    private final int signatureLength;
+    private final long[] hashMultipliers;
+    private final long[] hashOffsets;
+    private final BandTable[] bandTables;
+
+    // Entry storage by id; ids of removed entries are reused
+    private ASTNode[] nodes = new ASTNode[INITIAL_CAPACITY];
+    private int[] signatures;
+    // Bucket chains, indexed by id * bands + band
+    private int[] chainNext;
+    private int[] chainPrevious;
+    // Query epoch that last saw each id, for de-duplicating candidates
+    private int[] seenEpoch = new int[INITIAL_CAPACITY];
+    private int epoch;
+    private int highWaterMark;
+    private int[] freeIds = new int[INITIAL_CAPACITY];
+    private int freeCount;
+    private int size;
+    private final Map<String, int[]> entriesByFile = new HashMap<>();
+
+    private long queryCount;
+    private long candidatesScanned;
+
+    public SimilarCodeIndex() {
+        this(DEFAULT_BANDS, DEFAULT_ROWS_PER_BAND);
+    }
+
+    /**
+     * Creates an index with a custom banding. More bands with fewer rows find
+     * less similar candidates at the cost of larger candidate sets.
+     *
+     * @param bands the number of LSH bands
+     * @param rowsPerBand the signature values per band
+     */
+    public SimilarCodeIndex(int bands, int rowsPerBand) {
+        if (bands < 1 || rowsPerBand < 1) {
+            throw new IllegalArgumentException("Bands and rows per band must be positive");
+        }
+        this.bands = bands;
+        this.rowsPerBand = rowsPerBand;
+        this.signatureLength = bands * rowsPerBand;
+        this.hashMultipliers = new long[signatureLength];
+        this.hashOffsets = new long[signatureLength];
+        Random random = new Random(SEED);
+        for (int i = 0; i < signatureLength; i++) {
+            hashMultipliers[i] = random.nextLong() | 1L;
+            hashOffsets[i] = random.nextLong();
+        }
+        this.bandTables = new BandTable[bands];
+        for (int band = 0; band < bands; band++) {
+            bandTables[band] = new BandTable();
+        }
+        this.signatures = new int[INITIAL_CAPACITY * signatureLength];
+        this.chainNext = new int[INITIAL_CAPACITY * bands];
+        this.chainPrevious = new int[INITIAL_CAPACITY * bands];
+    }
+
+    /**
+     * Replaces the indexed classes and methods of a file.
+     *
+     * @param filePath the file the tree was parsed from
+     * @param root the file's current tree
+     */
+    public void indexFile(String filePath, ASTNode root) {
+        Objects.requireNonNull(filePath, "File path cannot be null");
+        Objects.requireNonNull(root, "Root node cannot be null");
+
+        // Shingling only reads the tree, so it runs outside the lock
+        List<ASTNode> indexed = new ArrayList<>();
+        List<int[]> computed = new ArrayList<>();
+        ASTTraversal.walk(root, TraversalVisitor.of(node -> {
+            if (node instanceof ClassNode || node instanceof MethodNode) {
+                indexed.add(node);
+                computed.add(signature(node));
+            }
+        }));
+
+        synchronized (this) {
+            removeEntries(entriesByFile.remove(filePath));
+            int[] ids = new int[indexed.size()];
+            for (int i = 0; i < ids.length; i++) {
+                ids[i] = addEntry(indexed.get(i), computed.get(i));
+            }
+            if (ids.length > 0) {
+                entriesByFile.put(filePath, ids);
+            }
+        }
+        logger.debug("Indexed {} nodes of {} for similar-code lookup", indexed.size(), filePath);
+    }
+
+    /**
+     * Removes every indexed node of a file.
+     *
+     * @param filePath the removed file
+     */
+    public synchronized void removeFile(String filePath) {
+        removeEntries(entriesByFile.remove(filePath));
+    }
+
+    /**
+     * Finds indexed nodes that share at least one LSH bucket with the target.
+     * The target itself is never returned.
+     *
+     * @param target the node to find similar code for
+     * @param limit the maximum number of candidates to return
+     * @return candidates ordered by estimated similarity, highest first
+     */
+    public List<Candidate> findCandidates(ASTNode target, int limit) {
+        Objects.requireNonNull(target, "Target node cannot be null");
+        if (limit <= 0) {
+            return List.of();
+        }
+        int[] targetSignature = signature(target);
+
+        synchronized (this) {
+            queryCount++;
+            epoch++;
+            PriorityQueue<Candidate> best = new PriorityQueue<>(
+                    Comparator.comparingDouble(Candidate::getEstimatedSimilarity));
+            int smallestOversizedBand = -1;
+            int smallestOversizedSlot = -1;
+            boolean scannedAny = false;
+            for (int band = 0; band < bands; band++) {
+                BandTable table = bandTables[band];
+                int slot = table.find(bandKey(targetSignature, 0, band));
+                if (slot < 0 || table.sizes[slot] == 0) {
+                    continue;
+                }
+                if (table.sizes[slot] > MAX_BUCKET_SCAN) {
+                    if (smallestOversizedSlot < 0
+                            || table.sizes[slot] < bandTables[smallestOversizedBand].sizes[smallestOversizedSlot]) {
+                        smallestOversizedBand = band;
+                        smallestOversizedSlot = slot;
+                    }
+                    continue;
+                }
+                scanBucket(target, targetSignature, band, table.heads[slot], Integer.MAX_VALUE, limit, best);
+                scannedAny = true;
+            }
+            // Every matching bucket is boilerplate-sized; sample the smallest one
+            if (!scannedAny && smallestOversizedSlot >= 0) {
+                scanBucket(target, targetSignature, smallestOversizedBand,
+                        bandTables[smallestOversizedBand].heads[smallestOversizedSlot], MAX_BUCKET_SCAN, limit, best);
+            }
+
+            List<Candidate> candidates = new ArrayList<>(best);
+            candidates.sort(Comparator.comparingDouble(Candidate::getEstimatedSimilarity).reversed());
+            return candidates;
+        }
+    }
+
+    private void scanBucket(ASTNode target, int[] targetSignature, int band, int head, int maxEntries, int limit,
+                            PriorityQueue<Candidate> best) {
+        int scanned = 0;
+        for (int id = head; id >= 0 && scanned < maxEntries; id = chainNext[id * bands + band]) {
+            if (seenEpoch[id] == epoch) {
+                continue;
+            }
+            seenEpoch[id] = epoch;
+            scanned++;
+            if (nodes[id].getId().equals(target.getId())) {
+                continue;
+            }
+            double estimate = estimateSimilarity(targetSignature, id);
+            if (best.size() < limit) {
+                best.add(new Candidate(nodes[id], estimate));
+            } else if (estimate > best.peek().getEstimatedSimilarity()) {
+                best.poll();
+                best.add(new Candidate(nodes[id], estimate));
+            }
+        }
+        candidatesScanned += scanned;
+    }
+
+    /**
+     * Gets the number of indexed nodes.
+     *
+     * @return the indexed class and method count
+     */
+    public synchronized int size() {
+        return size;
+    }
+
+    /**
+     * Gets index statistics for monitoring.
+     *
+     * @return map with entry, file and query counts
+     */
+    public synchronized Map<String, Object> getStatistics() {
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("entries", size);
+        stats.put("files", entriesByFile.size());
+        stats.put("bands", bands);
+        stats.put("rowsPerBand", rowsPerBand);
+        stats.put("queries", queryCount);
+        stats.put("averageCandidatesScanned", queryCount > 0 ? (double) candidatesScanned / queryCount : 0.0);
+        return stats;
+    }
+
+    private int addEntry(ASTNode node, int[] signature) {
+        int id = freeCount > 0 ? freeIds[--freeCount] : highWaterMark++;
+        ensureCapacity(id + 1);
+        nodes[id] = node;
+        System.arraycopy(signature, 0, signatures, id * signatureLength, signatureLength);
+        for (int band = 0; band < bands; band++) {
+            BandTable table = bandTables[band];
+            int bucket = table.findOrAdd(bandKey(signatures, id * signatureLength, band));
+            int head = table.heads[bucket];
+            int slot = id * bands + band;
+            chainNext[slot] = head;
+            chainPrevious[slot] = -1;
+            if (head >= 0) {
+                chainPrevious[head * bands + band] = id;
+            }
+            table.heads[bucket] = id;
+            table.sizes[bucket]++;
+        }
+        size++;
+        return id;
+    }
+
+    private void removeEntries(int[] ids) {
+        if (ids == null) {
+            return;
+        }
+        for (int id : ids) {
+            for (int band = 0; band < bands; band++) {
+                BandTable table = bandTables[band];
+                int bucket = table.find(bandKey(signatures, id * signatureLength, band));
+                int slot = id * bands + band;
+                int previous = chainPrevious[slot];
+                int next = chainNext[slot];
+                if (previous >= 0) {
+                    chainNext[previous * bands + band] = next;
+                } else {
+                    table.heads[bucket] = next;
+                }
+                if (next >= 0) {
+                    chainPrevious[next * bands + band] = previous;
+                }
+                table.sizes[bucket]--;
+            }
+            nodes[id] = null;
+            if (freeCount == freeIds.length) {
+                freeIds = Arrays.copyOf(freeIds, freeCount * 2);
+            }
+            freeIds[freeCount++] = id;
+            size--;
+        }
+    }
+
+    private void ensureCapacity(int entries) {
+        if (entries <= nodes.length) {
+            return;
+        }
+        int capacity = Math.max(entries, nodes.length * 2);
+        nodes = Arrays.copyOf(nodes, capacity);
+        signatures = Arrays.copyOf(signatures, capacity * signatureLength);
+        chainNext = Arrays.copyOf(chainNext, capacity * bands);
+        chainPrevious = Arrays.copyOf(chainPrevious, capacity * bands);
+        seenEpoch = Arrays.copyOf(seenEpoch, capacity);
+    }
+
+    private double estimateSimilarity(int[] signature, int id) {
+        int offset = id * signatureLength;
+        int matches = 0;
+        for (int i = 0; i < signatureLength; i++) {
+            if (signature[i] == signatures[offset + i]) {
+                matches++;
+            }
+        }
+        return (double) matches / signatureLength;
+    }
+
+    private int bandKey(int[] signature, int offset, int band) {
+        int hash = band;
+        int start = offset + band * rowsPerBand;
+        for (int row = 0; row < rowsPerBand; row++) {
+            hash = hash * 31 + signature[start + row];
+        }
+        return (int) mix(hash);
+    }
+
+    /**
+     * Computes the MinHash signature of a node's shingle set. Each hash function
+     * is a multiply-add over the 64-bit shingle hash, keeping the high bits.
+     */
+    private int[] signature(ASTNode node) {
+        long[] shingles = shingles(node);
+        int[] signature = new int[signatureLength];
+        Arrays.fill(signature, Integer.MAX_VALUE);
+        for (long shingle : shingles) {
+            for (int i = 0; i < signatureLength; i++) {
+                int hash = (int) ((shingle * hashMultipliers[i] + hashOffsets[i]) >>> 33);
+                if (hash < signature[i]) {
+                    signature[i] = hash;
+                }
+            }
+        }
+        return signature;
+    }
+
+    /**
+     * Collects the distinct shingle hashes of a subtree.
+     */
+    private long[] shingles(ASTNode root) {
+        ShingleCollector collector = new ShingleCollector();
+        ASTTraversal.walk(root, collector);
+        long[] shingles = Arrays.copyOf(collector.shingles, collector.count);
+        Arrays.sort(shingles);
+        int distinct = 0;
+        for (int i = 0; i < shingles.length; i++) {
+            if (i == 0 || shingles[i] != shingles[distinct - 1]) {
+                shingles[distinct++] = shingles[i];
+            }
+        }
+        return Arrays.copyOf(shingles, distinct);
+    }
+
+    private static long mix(long value) {
+        value ^= value >>> 33;
+        value *= 0xff51afd7ed558ccdL;
+        value ^= value >>> 33;
+        value *= 0xc4ceb9fe1a85ec53L;
+        value ^= value >>> 33;
+        return value;
+    }
+
+    /**
+     * Pre-order shingle collector: node-type n-grams plus identifier and type-name words.
+     */
+    private static final class ShingleCollector implements TraversalVisitor {
+        private long[] shingles = new long[64];
+        private int count;
+        private int visited;
+        private long previousType;
+        private long typeBeforePrevious;
+
+        @Override
+        public VisitResult enter(ASTNode node) {
+            long type = labelHash(node);
+            add(mix(type));
+            if (visited > 0) {
+                add(mix(previousType * 31 + type));
+            }
+            if (visited > 1) {
+                add(mix((typeBeforePrevious * 31 + previousType) * 31 + type));
+            }
+            typeBeforePrevious = previousType;
+            previousType = type;
+
+            if (node.getName() != null && !isStructural(node)) {
+                addWords(node.getName(), IDENTIFIER_SALT);
+            }
+            addTypeName(node.getAttribute("type"));
+            addTypeName(node.getAttribute("returnType"));
+            Object parameters = node.getAttribute("parameters");
+            if (parameters instanceof List) {
+                for (Object parameter : (List<?>) parameters) {
+                    if (parameter instanceof Map) {
+                        addTypeName(((Map<?, ?>) parameter).get("type"));
+                    }
+                }
+            }
+
+            return ++visited < MAX_SHINGLE_NODES ? VisitResult.CONTINUE : VisitResult.SKIP_CHILDREN;
+        }
+
+        /**
+         * Statements and expressions share one node type and carry their kind
+         * (if, for, methodcall, ...) as the name, so the kind is part of the label.
+         */
+        private static long labelHash(ASTNode node) {
+            long hash = hashWord(node.getNodeType());
+            return isStructural(node) && node.getName() != null
+                    ? (hash ^ hashWord(node.getName())) * FNV_PRIME
+                    : hash;
+        }
+
+        private static boolean isStructural(ASTNode node) {
+            return node instanceof StatementNode || node instanceof ExpressionNode;
+        }
+
+        private void addTypeName(Object typeName) {
+            if (typeName instanceof String) {
+                addWords((String) typeName, TYPE_NAME_SALT);
+            }
+        }
+
+        /**
+         * Adds the lower-cased words of an identifier, splitting on camel case
+         * and non-alphanumerics, so {@code parseHTTPHeader} yields parse, http, header.
+         */
+        private void addWords(String identifier, long salt) {
+            long hash = FNV_OFFSET;
+            int length = 0;
+            for (int i = 0; i < identifier.length(); i++) {
+                char c = identifier.charAt(i);
+                boolean alphanumeric = Character.isLetterOrDigit(c);
+                boolean wordStart = Character.isUpperCase(c) && i > 0
+                        && (Character.isLowerCase(identifier.charAt(i - 1))
+                            || (Character.isUpperCase(identifier.charAt(i - 1))
+                                && i + 1 < identifier.length() && Character.isLowerCase(identifier.charAt(i + 1))));
+                if ((!alphanumeric || wordStart) && length > 0) {
+                    add(mix(hash ^ salt));
+                    hash = FNV_OFFSET;
+                    length = 0;
+                }
+                if (alphanumeric) {
+                    hash = (hash ^ Character.toLowerCase(c)) * FNV_PRIME;
+                    length++;
+                }
+            }
+            if (length > 0) {
+                add(mix(hash ^ salt));
+            }
+        }
+
+        private void add(long shingle) {
+            if (count == shingles.length) {
+                shingles = Arrays.copyOf(shingles, count * 2);
+            }
+            shingles[count++] = shingle;
+        }
+
+        private static long hashWord(String word) {
+            long hash = FNV_OFFSET;
+            for (int i = 0; i < word.length(); i++) {
+                hash = (hash ^ word.charAt(i)) * FNV_PRIME;
+            }
+            return hash;
+        }
+    }
+
+    /**
+     * Open-addressing map from a band hash to its bucket: the first entry of the
+     * bucket chain and the chain length. Buckets that become empty keep their
+     * slot until the table is resized.
+     */
+    private static final class BandTable {
+        private static final int FREE = -2;
+
+        private int[] keys = new int[16];
+        private int[] heads = newHeads(16);
+        private int[] sizes = new int[16];
+        private int occupied;
+
+        /**
+         * Gets the slot of a bucket.
+         *
+         * @return the slot, or -1 if the key has no bucket
+         */
+        int find(int key) {
+            int mask = keys.length - 1;
+            for (int slot = (int) mix(key) & mask; heads[slot] != FREE; slot = (slot + 1) & mask) {
+                if (keys[slot] == key) {
+                    return slot;
+                }
+            }
+            return -1;
+        }
+
+        /**
+         * Gets the slot of a bucket, creating an empty bucket if needed. Slots
+         * move when the table grows, so the result is only valid until the next call.
+         */
+        int findOrAdd(int key) {
+            int slot = find(key);
+            if (slot >= 0) {
+                return slot;
+            }
+            if ((occupied + 1) * 2 > keys.length) {
+                resize();
+            }
+            slot = freeSlot(key);
+            keys[slot] = key;
+            heads[slot] = -1;
+            occupied++;
+            return slot;
+        }
+
+        private int freeSlot(int key) {
+            int mask = keys.length - 1;
+            int slot = (int) mix(key) & mask;
+            while (heads[slot] != FREE) {
+                slot = (slot + 1) & mask;
+            }
+            return slot;
+        }
+
+        private void resize() {
+            int live = 0;
+            for (int size : sizes) {
+                if (size > 0) {
+                    live++;
+                }
+            }
+            int capacity = Integer.highestOneBit(Math.max(16, live * 4 - 1)) << 1;
+            int[] oldKeys = keys;
+            int[] oldHeads = heads;
+            int[] oldSizes = sizes;
+            keys = new int[capacity];
+            heads = newHeads(capacity);
+            sizes = new int[capacity];
+            occupied = 0;
+            for (int slot = 0; slot < oldKeys.length; slot++) {
+                if (oldSizes[slot] > 0) {
+                    int target = freeSlot(oldKeys[slot]);
+                    keys[target] = oldKeys[slot];
+                    heads[target] = oldHeads[slot];
+                    sizes[target] = oldSizes[slot];
+                    occupied++;
+                }
+            }
+        }
+
+        private static int[] newHeads(int capacity) {
+            int[] heads = new int[capacity];
+            Arrays.fill(heads, FREE);
+            return heads;
+        }
+    }
+
+    /**
+     * Indexed node returned by a lookup, with its estimated shingle similarity.
+     */
+    public static final class Candidate {
+        private final ASTNode node;
+        private final double estimatedSimilarity;
+
+        Candidate(ASTNode node, double estimatedSimilarity) {
+            this.node = node;
+            this.estimatedSimilarity = estimatedSimilarity;
+        }
+
+        public ASTNode getNode() {
+            return node;
+        }
+
+        public double getEstimatedSimilarity() {
+            return estimatedSimilarity;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("Candidate{node=%s, estimatedSimilarity=%.2f}", node.getName(), estimatedSimilarity);
+        }
+    }
+}
@@ -1,18 +1,31 @@
 package com.ailearning.core.service.semantic.impl;
 
 import com.ailearning.core.model.ast.ASTNode;
+import com.ailearning.core.model.ast.ASTTraversal;
 import com.ailearning.core.model.ast.ClassNode;
 import com.ailearning.core.model.ast.MethodNode;
+import com.ailearning.core.model.ast.TraversalVisitor;
 import com.ailearning.core.model.ast.VariableNode;
+import com.ailearning.core.service.semantic.StringSimilarity;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.util.*;
-import java.util.stream.Collectors;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Objects;
+import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * Calculates semantic similarity between AST nodes.
  * Uses multiple similarity metrics including structural, lexical, and semantic similarity.
+ * <p>
+ * Everything a comparison needs is extracted once per node into a
+ * {@link NodeFeatures} and memoized, so ranking one node against many
+ * candidates does not re-tokenize or re-walk either side. Token sets and
+ * type histograms are sorted int arrays compared by merge-scans that
+ * allocate nothing.
  */
 public class SimilarityCalculator {
     
@@ -23,33 +36,18 @@ public class SimilarityCalculator {
     private static final double LEXICAL_WEIGHT = 0.3;
     private static final double SEMANTIC_WEIGHT = 0.3;
     
+    private static final int[] NO_IDS = new int[0];
+    
+    // Weak keys so features go away with the AST they were extracted from
+    private final Map<ASTNode, NodeFeatures> features = Collections.synchronizedMap(new WeakHashMap<>());
+    private final Map<String, Integer> tokenIds = new ConcurrentHashMap<>();
+    
     /**
      * Calculates the overall similarity between two AST nodes.
      */
     public double calculateSimilarity(ASTNode node1, ASTNode node2) {
-        logger.debug("Calculating similarity between {} and {}", node1.getType(), node2.getType());
-        
         try {
-            // If nodes are of different types, similarity is lower
-            if (!node1.getType().equals(node2.getType())) {
-                return calculateCrossTypeSimilarity(node1, node2);
-            }
-            
-            // Calculate different types of similarity
-            double structuralSimilarity = calculateStructuralSimilarity(node1, node2);
-            double lexicalSimilarity = calculateLexicalSimilarity(node1, node2);
-            double semanticSimilarity = calculateSemanticSimilarity(node1, node2);
-            
-            // Weighted combination of similarity scores
-            double overallSimilarity = (structuralSimilarity * STRUCTURAL_WEIGHT) +
-                                     (lexicalSimilarity * LEXICAL_WEIGHT) +
-                                     (semanticSimilarity * SEMANTIC_WEIGHT);
-            
-            logger.debug("Similarity scores - Structural: {}, Lexical: {}, Semantic: {}, Overall: {}",
-                    structuralSimilarity, lexicalSimilarity, semanticSimilarity, overallSimilarity);
-            
-            return Math.min(1.0, Math.max(0.0, overallSimilarity));
-            
+            return calculateSimilarity(getFeatures(node1), getFeatures(node2));
         } catch (Exception e) {
             logger.error("Failed to calculate similarity", e);
             return 0.0;
@@ -57,397 +55,326 @@ public class SimilarityCalculator {
     }
     
     /**
-     * Calculates structural similarity based on AST structure.
-     */
-    private double calculateStructuralSimilarity(ASTNode node1, ASTNode node2) {
-        // Compare tree structure
-        double depthSimilarity = calculateDepthSimilarity(node1, node2);
-        double childrenSimilarity = calculateChildrenSimilarity(node1, node2);
-        double shapeSimilarity = calculateShapeSimilarity(node1, node2);
-        
-        return (depthSimilarity + childrenSimilarity + shapeSimilarity) / 3.0;
-    }
-    
-    /**
-     * Calculates lexical similarity based on text content.
-     */
-    private double calculateLexicalSimilarity(ASTNode node1, ASTNode node2) {
-        String text1 = extractTextContent(node1);
-        String text2 = extractTextContent(node2);
-        
-        // Use Jaccard similarity for text comparison
-        return calculateJaccardSimilarity(text1, text2);
-    }
-    
-    /**
-     * Calculates semantic similarity based on meaning and purpose.
+     * Calculates the overall similarity between two feature vectors built by
+     * this calculator.
      */
-    private double calculateSemanticSimilarity(ASTNode node1, ASTNode node2) {
-        // For same-type nodes, use type-specific semantic comparison
-        if (node1 instanceof ClassNode && node2 instanceof ClassNode) {
-            return calculateClassSemanticSimilarity((ClassNode) node1, (ClassNode) node2);
-        } else if (node1 instanceof MethodNode && node2 instanceof MethodNode) {
-            return calculateMethodSemanticSimilarity((MethodNode) node1, (MethodNode) node2);
-        } else if (node1 instanceof VariableNode && node2 instanceof VariableNode) {
-            return calculateVariableSemanticSimilarity((VariableNode) node1, (VariableNode) node2);
+    public double calculateSimilarity(NodeFeatures node1, NodeFeatures node2) {
+        // If nodes are of different types, similarity is lower
+        if (!node1.getNodeType().equals(node2.getNodeType())) {
+            return calculateCrossTypeSimilarity(node1, node2);
         }
         
-        // Generic semantic similarity for other node types
-        return calculateGenericSemanticSimilarity(node1, node2);
-    }
-    
-    /**
-     * Calculates similarity between nodes of different types.
-     */
-    private double calculateCrossTypeSimilarity(ASTNode node1, ASTNode node2) {
-        // Cross-type similarity is generally lower, but we can still compare some aspects
+        // Calculate different types of similarity
+        double structuralSimilarity = calculateStructuralSimilarity(node1, node2);
         double lexicalSimilarity = calculateLexicalSimilarity(node1, node2);
-        double basicStructuralSimilarity = calculateBasicStructuralSimilarity(node1, node2);
-        
-        // Reduce similarity for cross-type comparisons
-        return (lexicalSimilarity + basicStructuralSimilarity) / 2.0 * 0.5;
-    }
-    
-    /**
-     * Calculates depth similarity between two nodes.
-     */
-    private double calculateDepthSimilarity(ASTNode node1, ASTNode node2) {
-        int depth1 = calculateDepth(node1);
-        int depth2 = calculateDepth(node2);
-        
-        if (depth1 == 0 && depth2 == 0) return 1.0;
-        
-        int maxDepth = Math.max(depth1, depth2);
-        int depthDifference = Math.abs(depth1 - depth2);
-        
-        return 1.0 - ((double) depthDifference / maxDepth);
-    }
-    
-    /**
-     * Calculates similarity based on number of children.
-     */
-    private double calculateChildrenSimilarity(ASTNode node1, ASTNode node2) {
-        int children1 = node1.getChildren().size();
-        int children2 = node2.getChildren().size();
+        double semanticSimilarity = calculateSemanticSimilarity(node1, node2);
         
-        if (children1 == 0 && children2 == 0) return 1.0;
+        // Weighted combination of similarity scores
+        double overallSimilarity = (structuralSimilarity * STRUCTURAL_WEIGHT) +
+                                 (lexicalSimilarity * LEXICAL_WEIGHT) +
+                                 (semanticSimilarity * SEMANTIC_WEIGHT);
         
-        int maxChildren = Math.max(children1, children2);
-        int childrenDifference = Math.abs(children1 - children2);
-        
-        return 1.0 - ((double) childrenDifference / maxChildren);
-    }
-    
-    /**
-     * Calculates similarity based on overall tree shape.
-     */
-    private double calculateShapeSimilarity(ASTNode node1, ASTNode node2) {
-        // Compare the distribution of node types in the subtrees
-        Map<String, Integer> typeCount1 = getNodeTypeDistribution(node1);
-        Map<String, Integer> typeCount2 = getNodeTypeDistribution(node2);
-        
-        return calculateDistributionSimilarity(typeCount1, typeCount2);
+        return Math.min(1.0, Math.max(0.0, overallSimilarity));
     }
     
     /**
-     * Calculates semantic similarity for class nodes.
+     * Gets the memoized feature vector of a node, extracting it on first use.
+     *
+     * @param node the node
+     * @return the node's features
      */
-    private double calculateClassSemanticSimilarity(ClassNode class1, ClassNode class2) {
-        double nameSimilarity = calculateNameSimilarity(class1.getName(), class2.getName());
-        double methodSimilarity = calculateMethodSignatureSimilarity(class1, class2);
-        double fieldSimilarity = calculateFieldSimilarity(class1, class2);
-        
-        return (nameSimilarity + methodSimilarity + fieldSimilarity) / 3.0;
+    public NodeFeatures getFeatures(ASTNode node) {
+        Objects.requireNonNull(node, "Node cannot be null");
+        NodeFeatures cached = features.get(node);
+        if (cached == null) {
+            // Extracted outside the lock; a racing duplicate is equal and harmless
+            cached = extractFeatures(node);
+            features.put(node, cached);
+        }
+        return cached;
     }
     
     /**
-     * Calculates semantic similarity for method nodes.
+     * Gets the number of nodes whose features are currently memoized.
      */
-    private double calculateMethodSemanticSimilarity(MethodNode method1, MethodNode method2) {
-        double nameSimilarity = calculateNameSimilarity(method1.getName(), method2.getName());
-        double parameterSimilarity = calculateParameterSimilarity(method1, method2);
-        double returnTypeSimilarity = calculateReturnTypeSimilarity(method1, method2);
-        
-        return (nameSimilarity + parameterSimilarity + returnTypeSimilarity) / 3.0;
+    public int getCachedFeatureCount() {
+        return features.size();
     }
     
     /**
-     * Calculates semantic similarity for variable nodes.
+     * Calculates structural similarity based on AST structure.
      */
-    private double calculateVariableSemanticSimilarity(VariableNode var1, VariableNode var2) {
-        double nameSimilarity = calculateNameSimilarity(var1.getName(), var2.getName());
-        double typeSimilarity = calculateTypeSimilarity(var1, var2);
+    private double calculateStructuralSimilarity(NodeFeatures node1, NodeFeatures node2) {
+        // Compare tree structure
+        double depthSimilarity = ratioSimilarity(node1.getDepth(), node2.getDepth());
+        double childrenSimilarity = ratioSimilarity(node1.getChildCount(), node2.getChildCount());
+        double shapeSimilarity = distributionSimilarity(node1.histogramTypes(), node1.histogramCounts(),
+                node2.histogramTypes(), node2.histogramCounts());
         
-        return (nameSimilarity + typeSimilarity) / 2.0;
+        return (depthSimilarity + childrenSimilarity + shapeSimilarity) / 3.0;
     }
     
     /**
-     * Calculates generic semantic similarity for other node types.
+     * Calculates lexical similarity based on text content.
      */
-    private double calculateGenericSemanticSimilarity(ASTNode node1, ASTNode node2) {
-        // Use string similarity as a fallback
-        return calculateJaccardSimilarity(node1.toString(), node2.toString());
+    private double calculateLexicalSimilarity(NodeFeatures node1, NodeFeatures node2) {
+        // Use Jaccard similarity for text comparison
+        return jaccardSimilarity(node1.lexicalTokens(), node2.lexicalTokens());
     }
     
     /**
-     * Calculates basic structural similarity for cross-type comparisons.
+     * Calculates semantic similarity based on meaning and purpose.
      */
-    private double calculateBasicStructuralSimilarity(ASTNode node1, ASTNode node2) {
-        return calculateChildrenSimilarity(node1, node2);
+    private double calculateSemanticSimilarity(NodeFeatures node1, NodeFeatures node2) {
+        // Both nodes have the same type here, so one check picks the comparison
+        switch (node1.getNodeType()) {
+            case "class":
+                return (calculateNameSimilarity(node1, node2) +
+                        jaccardSimilarity(node1.memberNames(), node2.memberNames()) +
+                        jaccardSimilarity(node1.fieldNames(), node2.fieldNames())) / 3.0;
+            case "method":
+                return (calculateNameSimilarity(node1, node2) +
+                        jaccardSimilarity(node1.parameterTypes(), node2.parameterTypes()) +
+                        declaredTypeSimilarity(node1, node2)) / 3.0;
+            case "variable":
+                return (calculateNameSimilarity(node1, node2) +
+                        declaredTypeSimilarity(node1, node2)) / 2.0;
+            default:
+                // Use string similarity as a fallback
+                return jaccardSimilarity(node1.genericTokens(), node2.genericTokens());
+        }
     }
     
     /**
-     * Calculates Jaccard similarity between two strings.
+     * Calculates similarity between nodes of different types.
      */
-    private double calculateJaccardSimilarity(String text1, String text2) {
-        Set<String> tokens1 = tokenize(text1);
-        Set<String> tokens2 = tokenize(text2);
-        
-        if (tokens1.isEmpty() && tokens2.isEmpty()) return 1.0;
-        
-        Set<String> intersection = new HashSet<>(tokens1);
-        intersection.retainAll(tokens2);
-        
-        Set<String> union = new HashSet<>(tokens1);
-        union.addAll(tokens2);
+    private double calculateCrossTypeSimilarity(NodeFeatures node1, NodeFeatures node2) {
+        // Cross-type similarity is generally lower, but we can still compare some aspects
+        double lexicalSimilarity = calculateLexicalSimilarity(node1, node2);
+        double basicStructuralSimilarity = ratioSimilarity(node1.getChildCount(), node2.getChildCount());
         
-        return (double) intersection.size() / union.size();
+        // Reduce similarity for cross-type comparisons
+        return (lexicalSimilarity + basicStructuralSimilarity) / 2.0 * 0.5;
     }
     
     /**
-     * Calculates name similarity using edit distance.
+     * Compares a method's return types or a variable's types.
      */
-    private double calculateNameSimilarity(String name1, String name2) {
-        if (name1.equals(name2)) return 1.0;
+    private double declaredTypeSimilarity(NodeFeatures node1, NodeFeatures node2) {
+        if (node1.declaredType() == NodeFeatures.NONE || node2.declaredType() == NodeFeatures.NONE) return 0.5;
         
-        int editDistance = calculateEditDistance(name1.toLowerCase(), name2.toLowerCase());
-        int maxLength = Math.max(name1.length(), name2.length());
-        
-        if (maxLength == 0) return 1.0;
-        
-        return 1.0 - ((double) editDistance / maxLength);
+        return node1.declaredType() == node2.declaredType() ? 1.0 : 0.0;
     }
     
     /**
-     * Calculates method signature similarity.
+     * Calculates case-insensitive name similarity using edit distance.
      */
-    private double calculateMethodSignatureSimilarity(ClassNode class1, ClassNode class2) {
-        List<String> methods1 = extractMethodSignatures(class1);
-        List<String> methods2 = extractMethodSignatures(class2);
+    private double calculateNameSimilarity(NodeFeatures node1, NodeFeatures node2) {
+        String name1 = node1.lowerCaseName();
+        String name2 = node2.lowerCaseName();
+        if (name1 == null || name2 == null) return name1 == name2 ? 1.0 : 0.0;
         
-        return calculateListSimilarity(methods1, methods2);
+        return StringSimilarity.similarity(name1, name2);
     }
     
-    /**
-     * Calculates field similarity between classes.
-     */
-    private double calculateFieldSimilarity(ClassNode class1, ClassNode class2) {
-        List<String> fields1 = extractFieldNames(class1);
-        List<String> fields2 = extractFieldNames(class2);
-        
-        return calculateListSimilarity(fields1, fields2);
-    }
+    // Primitive kernels
     
     /**
-     * Calculates parameter similarity between methods.
+     * Similarity of two non-negative counts as one minus their relative difference.
      */
-    private double calculateParameterSimilarity(MethodNode method1, MethodNode method2) {
-        List<String> params1 = extractParameterTypes(method1);
-        List<String> params2 = extractParameterTypes(method2);
+    static double ratioSimilarity(int count1, int count2) {
+        if (count1 == 0 && count2 == 0) return 1.0;
         
-        return calculateListSimilarity(params1, params2);
+        return 1.0 - ((double) Math.abs(count1 - count2) / Math.max(count1, count2));
     }
     
     /**
-     * Calculates return type similarity between methods.
+     * Jaccard similarity of two sorted, duplicate-free id arrays.
      */
-    private double calculateReturnTypeSimilarity(MethodNode method1, MethodNode method2) {
-        String returnType1 = extractReturnType(method1);
-        String returnType2 = extractReturnType(method2);
-        
-        if (returnType1 == null || returnType2 == null) return 0.5;
-        
-        return returnType1.equals(returnType2) ? 1.0 : 0.0;
+    static double jaccardSimilarity(int[] ids1, int[] ids2) {
+        if (ids1.length == 0 && ids2.length == 0) return 1.0;
+        
+        int i = 0;
+        int j = 0;
+        int intersection = 0;
+        while (i < ids1.length && j < ids2.length) {
+            int a = ids1[i];
+            int b = ids2[j];
+            if (a == b) {
+                intersection++;
+                i++;
+                j++;
+            } else if (a < b) {
+                i++;
+            } else {
+                j++;
+            }
+        }
+        return (double) intersection / (ids1.length + ids2.length - intersection);
     }
     
     /**
-     * Calculates type similarity between variables.
+     * Averages, over the union of types, one minus the relative difference of
+     * the two counts. A type present on one side only contributes zero.
      */
-    private double calculateTypeSimilarity(VariableNode var1, VariableNode var2) {
-        String type1 = extractVariableType(var1);
-        String type2 = extractVariableType(var2);
-        
-        if (type1 == null || type2 == null) return 0.5;
-        
-        return type1.equals(type2) ? 1.0 : 0.0;
-    }
-    
-    // Helper methods
-    
-    private int calculateDepth(ASTNode node) {
-        if (node.getChildren().isEmpty()) {
-            return 1;
-        }
-        
-        return 1 + node.getChildren().stream()
-                .mapToInt(this::calculateDepth)
-                .max()
-                .orElse(0);
-    }
-    
-    private String extractTextContent(ASTNode node) {
-        // Extract meaningful text content from the node
-        StringBuilder content = new StringBuilder();
-        
-        if (node instanceof ClassNode classNode) {
-            content.append(classNode.getName()).append(" ");
-        } else if (node instanceof MethodNode methodNode) {
-            content.append(methodNode.getName()).append(" ");
-        } else if (node instanceof VariableNode variableNode) {
-            content.append(variableNode.getName()).append(" ");
-        }
-        
-        // Add content from children
-        for (ASTNode child : node.getChildren()) {
-            content.append(extractTextContent(child)).append(" ");
-        }
-        
-        return content.toString().trim();
-    }
-    
-    private Set<String> tokenize(String text) {
-        return Arrays.stream(text.toLowerCase().split("\\W+"))
-                .filter(token -> !token.isEmpty())
-                .collect(Collectors.toSet());
-    }
-    
-    private Map<String, Integer> getNodeTypeDistribution(ASTNode node) {
-        Map<String, Integer> distribution = new HashMap<>();
-        collectNodeTypes(node, distribution);
-        return distribution;
-    }
-    
-    private void collectNodeTypes(ASTNode node, Map<String, Integer> distribution) {
-        distribution.merge(node.getType(), 1, Integer::sum);
-        for (ASTNode child : node.getChildren()) {
-            collectNodeTypes(child, distribution);
-        }
-    }
-    
-    private double calculateDistributionSimilarity(Map<String, Integer> dist1, Map<String, Integer> dist2) {
-        Set<String> allTypes = new HashSet<>(dist1.keySet());
-        allTypes.addAll(dist2.keySet());
-        
-        if (allTypes.isEmpty()) return 1.0;
-        
+    static double distributionSimilarity(int[] types1, int[] counts1, int[] types2, int[] counts2) {
+        int i = 0;
+        int j = 0;
+        int union = 0;
         double similarity = 0.0;
-        for (String type : allTypes) {
-            int count1 = dist1.getOrDefault(type, 0);
-            int count2 = dist2.getOrDefault(type, 0);
-            int maxCount = Math.max(count1, count2);
-            
-            if (maxCount > 0) {
-                similarity += 1.0 - ((double) Math.abs(count1 - count2) / maxCount);
+        while (i < types1.length && j < types2.length) {
+            int a = types1[i];
+            int b = types2[j];
+            union++;
+            if (a == b) {
+                similarity += ratioSimilarity(counts1[i], counts2[j]);
+                i++;
+                j++;
+            } else if (a < b) {
+                i++;
+            } else {
+                j++;
             }
         }
+        union += (types1.length - i) + (types2.length - j);
         
-        return similarity / allTypes.size();
+        return union == 0 ? 1.0 : similarity / union;
     }
     
-    private int calculateEditDistance(String s1, String s2) {
-        int[][] dp = new int[s1.length() + 1][s2.length() + 1];
-        
-        for (int i = 0; i <= s1.length(); i++) {
-            dp[i][0] = i;
-        }
-        for (int j = 0; j <= s2.length(); j++) {
-            dp[0][j] = j;
+    // Feature extraction
+    
+    private NodeFeatures extractFeatures(ASTNode node) {
+        // Words from the names of declarations anywhere in the subtree
+        IdBuffer lexical = new IdBuffer();
+        ASTTraversal.walk(node, TraversalVisitor.of(current -> {
+            if ((current instanceof ClassNode || current instanceof MethodNode || current instanceof VariableNode)
+                    && current.getName() != null) {
+                addWords(current.getName(), lexical);
+            }
+        }));
+        
+        IdBuffer generic = new IdBuffer();
+        addWords(node.toString(), generic);
+        
+        Map<String, Integer> histogram = node.getNodeTypeHistogram();
+        int[] histogramTypes = new int[histogram.size()];
+        int[] histogramCounts = new int[histogram.size()];
+        int position = 0;
+        for (Map.Entry<String, Integer> entry : histogram.entrySet()) {
+            histogramTypes[position] = tokenId(entry.getKey());
+            histogramCounts[position] = entry.getValue();
+            position++;
         }
-        
-        for (int i = 1; i <= s1.length(); i++) {
-            for (int j = 1; j <= s2.length(); j++) {
-                if (s1.charAt(i - 1) == s2.charAt(j - 1)) {
-                    dp[i][j] = dp[i - 1][j - 1];
-                } else {
-                    dp[i][j] = 1 + Math.min(dp[i - 1][j], Math.min(dp[i][j - 1], dp[i - 1][j - 1]));
+        sortParallel(histogramTypes, histogramCounts);
+        
+        int[] memberNames = NO_IDS;
+        int[] fieldNames = NO_IDS;
+        int[] parameterTypes = NO_IDS;
+        int declaredType = NodeFeatures.NONE;
+        if (node instanceof ClassNode) {
+            IdBuffer members = new IdBuffer();
+            IdBuffer fields = new IdBuffer();
+            for (ASTNode child : node.getChildren()) {
+                if (child instanceof MethodNode && child.getName() != null) {
+                    members.add(tokenId(child.getName()));
+                } else if (child instanceof VariableNode && child.getName() != null) {
+                    fields.add(tokenId(child.getName()));
                 }
             }
+            memberNames = members.toSortedSet();
+            fieldNames = fields.toSortedSet();
+        } else if (node instanceof MethodNode) {
+            MethodNode method = (MethodNode) node;
+            IdBuffer parameters = new IdBuffer();
+            for (Map<String, String> parameter : method.getParameters()) {
+                String type = parameter.get("type");
+                if (type != null) {
+                    parameters.add(tokenId(type));
+                }
+            }
+            parameterTypes = parameters.toSortedSet();
+            declaredType = method.getReturnType() != null ? tokenId(method.getReturnType()) : NodeFeatures.NONE;
+        } else if (node instanceof VariableNode) {
+            String type = ((VariableNode) node).getType();
+            declaredType = type != null ? tokenId(type) : NodeFeatures.NONE;
         }
         
-        return dp[s1.length()][s2.length()];
-    }
-    
-    private List<String> extractMethodSignatures(ClassNode classNode) {
-        return classNode.getChildren().stream()
-                .filter(child -> child instanceof MethodNode)
-                .map(child -> ((MethodNode) child).getName())
-                .collect(Collectors.toList());
+        return new NodeFeatures(node.getNodeType(), node.getName(), node.getDepth(), node.getChildren().size(),
+                lexical.toSortedSet(), generic.toSortedSet(), histogramTypes, histogramCounts,
+                memberNames, fieldNames, parameterTypes, declaredType);
     }
     
-    private List<String> extractFieldNames(ClassNode classNode) {
-        return classNode.getChildren().stream()
-                .filter(child -> child instanceof VariableNode)
-                .map(child -> ((VariableNode) child).getName())
-                .collect(Collectors.toList());
-    }
-    
-    private List<String> extractParameterTypes(MethodNode methodNode) {
-        // Simplified parameter extraction
-        String methodString = methodNode.toString();
-        List<String> paramTypes = new ArrayList<>();
-        
-        int parenIndex = methodString.indexOf("(");
-        int closeParenIndex = methodString.indexOf(")", parenIndex);
-        if (parenIndex != -1 && closeParenIndex != -1) {
-            String parameters = methodString.substring(parenIndex + 1, closeParenIndex);
-            if (!parameters.trim().isEmpty()) {
-                String[] params = parameters.split(",");
-                for (String param : params) {
-                    String[] parts = param.trim().split("\\s+");
-                    if (parts.length >= 2) {
-                        paramTypes.add(parts[0]);
-                    }
-                }
+    /**
+     * Adds the ids of the lower-cased runs of word characters in the text,
+     * matching a split on {@code \W+}.
+     */
+    private void addWords(String text, IdBuffer ids) {
+        int start = -1;
+        for (int i = 0; i <= text.length(); i++) {
+            char c = i < text.length() ? text.charAt(i) : ' ';
+            boolean word = (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9') || c == '_';
+            if (word && start < 0) {
+                start = i;
+            } else if (!word && start >= 0) {
+                ids.add(tokenId(text.substring(start, i).toLowerCase()));
+                start = -1;
             }
         }
-        
-        return paramTypes;
     }
     
-    private String extractReturnType(MethodNode methodNode) {
-        // Simplified return type extraction
-        String methodString = methodNode.toString();
-        String[] parts = methodString.split("\\s+");
-        for (int i = 0; i < parts.length - 1; i++) {
-            if (parts[i + 1].equals(methodNode.getName())) {
-                return parts[i];
-            }
+    private int tokenId(String token) {
+        Integer id = tokenIds.get(token);
+        if (id != null) {
+            return id;
+        }
+        synchronized (tokenIds) {
+            return tokenIds.computeIfAbsent(token, key -> tokenIds.size());
         }
-        return null;
     }
     
-    private String extractVariableType(VariableNode variableNode) {
-        // Simplified variable type extraction
-        String variableString = variableNode.toString();
-        String[] parts = variableString.split("\\s+");
-        if (parts.length >= 2) {
-            return parts[0];
+    private static void sortParallel(int[] keys, int[] values) {
+        // Histograms are small; insertion sort keeps the arrays in step without boxing
+        for (int i = 1; i < keys.length; i++) {
+            int key = keys[i];
+            int value = values[i];
+            int j = i - 1;
+            while (j >= 0 && keys[j] > key) {
+                keys[j + 1] = keys[j];
+                values[j + 1] = values[j];
+                j--;
+            }
+            keys[j + 1] = key;
+            values[j + 1] = value;
         }
-        return null;
     }
     
-    private double calculateListSimilarity(List<String> list1, List<String> list2) {
-        if (list1.isEmpty() && list2.isEmpty()) return 1.0;
-        
-        Set<String> set1 = new HashSet<>(list1);
-        Set<String> set2 = new HashSet<>(list2);
-        
-        Set<String> intersection = new HashSet<>(set1);
-        intersection.retainAll(set2);
+    /**
+     * Growable int array used while extracting features.
+     */
+    private static final class IdBuffer {
+        private int[] ids = new int[8];
+        private int size;
         
-        Set<String> union = new HashSet<>(set1);
-        union.addAll(set2);
+        void add(int id) {
+            if (size == ids.length) {
+                ids = Arrays.copyOf(ids, size * 2);
+            }
+            ids[size++] = id;
+        }
         
-        return union.isEmpty() ? 1.0 : (double) intersection.size() / union.size();
+        int[] toSortedSet() {
+            if (size == 0) {
+                return NO_IDS;
+            }
+            int[] sorted = Arrays.copyOf(ids, size);
+            Arrays.sort(sorted);
+            int unique = 1;
+            for (int i = 1; i < sorted.length; i++) {
+                if (sorted[i] != sorted[unique - 1]) {
+                    sorted[unique++] = sorted[i];
+                }
+            }
+            return unique == sorted.length ? sorted : Arrays.copyOf(sorted, unique);
+        }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,181 @@
+package com.ailearning.core.model.ast;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for ASTNode subtree metrics.
+ */
+class ASTNodeTest {
+
+    private static ClassNode sampleClass(String filePath, int line) {
+        StatementNode returnStatement = new StatementNode("return", SourceLocation.at(filePath, line + 2, 9),
+                List.of(), Map.of("statementType", "return"));
+        MethodNode method = new MethodNode("getName", SourceLocation.at(filePath, line + 1, 5),
+                List.of(returnStatement), Map.of("returnType", "String"));
+        VariableNode field = new VariableNode("name", SourceLocation.at(filePath, line + 4, 5),
+                List.of(), Map.of("type", "String", "field", true));
+        return new ClassNode("User", SourceLocation.at(filePath, line, 1),
+                List.of(method, field), Map.of("modifiers", List.of("public")));
+    }
+
+    private static ASTNode deepChain(String filePath, String leafName) {
+        ASTNode node = new StatementNode(leafName, SourceLocation.at(filePath, 1, 1), List.of(), Map.of());
+        for (int i = 0; i < 100_000; i++) {
+            node = new StatementNode("level", SourceLocation.at(filePath, 1, 1), List.of(node), Map.of());
+        }
+        return node;
+    }
+
+    @Nested
+    @DisplayName("Cached Subtree Metrics")
+    class CachedSubtreeMetrics {
+
+        @Test
+        @DisplayName("Should compute depth and node count from children")
+        void shouldComputeDepthAndNodeCount() {
+            ClassNode classNode = sampleClass("User.java", 1);
+
+            assertEquals(3, classNode.getDepth());
+            assertEquals(4, classNode.getNodeCount());
+            assertEquals(1, classNode.getFields().get(0).getDepth());
+            assertEquals(1, classNode.getFields().get(0).getNodeCount());
+        }
+
+        @Test
+        @DisplayName("Should count node types across the subtree")
+        void shouldCountNodeTypes() {
+            ClassNode classNode = sampleClass("User.java", 1);
+
+            assertEquals(Map.of("class", 1, "method", 1, "statement", 1, "variable", 1),
+                    classNode.getNodeTypeHistogram());
+            assertThrows(UnsupportedOperationException.class,
+                    () -> classNode.getNodeTypeHistogram().put("class", 2));
+        }
+
+        @Test
+        @DisplayName("Should count a nested subtree on its own")
+        void shouldCountNestedSubtree() {
+            ClassNode classNode = sampleClass("User.java", 1);
+            MethodNode method = classNode.getMethods().get(0);
+
+            assertEquals(Map.of("method", 1, "statement", 1), method.getNodeTypeHistogram());
+            assertSame(method.getNodeTypeHistogram(), method.getNodeTypeHistogram());
+            assertEquals(4, classNode.getNodeTypeHistogram().values().stream().mapToInt(Integer::intValue).sum());
+        }
+    }
+
+    @Nested
+    @DisplayName("Structural Hash")
+    class StructuralHash {
+
+        @Test
+        @DisplayName("Should ignore source locations")
+        void shouldIgnoreSourceLocations() {
+            ClassNode original = sampleClass("User.java", 1);
+            ClassNode moved = sampleClass("Copy.java", 40);
+
+            assertEquals(original.getStructuralHash(), moved.getStructuralHash());
+            assertNotEquals(original, moved);
+        }
+
+        @Test
+        @DisplayName("Should differ when subtree content differs")
+        void shouldDifferWhenContentDiffers() {
+            ClassNode original = sampleClass("User.java", 1);
+            ClassNode renamed = new ClassNode("Account", original.getLocation(),
+                    original.getChildren(), original.getAttributes());
+            ClassNode trimmed = new ClassNode("User", original.getLocation(),
+                    original.getChildren().subList(0, 1), original.getAttributes());
+
+            assertNotEquals(original.getStructuralHash(), renamed.getStructuralHash());
+            assertNotEquals(original.getStructuralHash(), trimmed.getStructuralHash());
+        }
+    }
+
+    @Nested
+    @DisplayName("Node Identity")
+    class NodeIdentity {
+
+        @Test
+        @DisplayName("Should assign distinct ids within a file")
+        void shouldAssignDistinctIds() {
+            ClassNode classNode = sampleClass("Identity.java", 1);
+            MethodNode method = classNode.getMethods().get(0);
+
+            assertNotEquals(classNode.getId(), method.getId());
+            assertEquals(classNode.getId().getFileId(), method.getId().getFileId());
+            assertEquals(classNode.getId().getFileId(), NodeId.fileIdOf("Identity.java"));
+            assertEquals(-1, NodeId.fileIdOf("NeverParsed.java"));
+        }
+
+        @Test
+        @DisplayName("Should give reparsed nodes new ids")
+        void shouldGiveReparsedNodesNewIds() {
+            ClassNode first = sampleClass("Reparsed.java", 1);
+            ClassNode second = sampleClass("Reparsed.java", 1);
+
+            assertNotEquals(first.getId(), second.getId());
+            assertEquals(first.getStructuralHash(), second.getStructuralHash());
+        }
+
+        @Test
+        @DisplayName("Should bound the file path table without reusing ids")
+        void shouldBoundFilePathTable() {
+            NodeId before = sampleClass("Bounded.java", 1).getId();
+            for (int i = 0; i <= NodeId.MAX_INTERNED_FILES; i++) {
+                NodeId.next("generated/File" + i + ".java");
+            }
+            NodeId after = sampleClass("Bounded.java", 1).getId();
+
+            assertTrue(NodeId.internedFileCount() <= NodeId.MAX_INTERNED_FILES);
+            assertNotEquals(before, after);
+            assertNotEquals(before.getFileId(), after.getFileId());
+        }
+
+        @Test
+        @DisplayName("Should compare nodes by identity and content separately")
+        void shouldSeparateIdentityFromStructure() {
+            ClassNode first = sampleClass("User.java", 1);
+            ClassNode second = sampleClass("User.java", 1);
+
+            assertNotEquals(first, second);
+            assertEquals(first, first);
+            assertTrue(first.structurallyEquals(second));
+            assertTrue(first.structurallyEquals(sampleClass("Elsewhere.java", 30)));
+            assertFalse(first.structurallyEquals(new ClassNode("Other", first.getLocation(),
+                    first.getChildren(), first.getAttributes())));
+        }
+
+        @Test
+        @DisplayName("Should compare trees deeper than the call stack allows")
+        void shouldCompareVeryDeepTrees() {
+            ASTNode first = deepChain("User.java", "leaf");
+            ASTNode second = deepChain("Copy.java", "leaf");
+
+            assertTrue(first.structurallyEquals(second));
+            assertFalse(first.structurallyEquals(deepChain("User.java", "other")));
+        }
+
+        @Test
+        @DisplayName("Should use nodes as map keys by identity")
+        void shouldUseNodesAsMapKeys() {
+            ClassNode first = sampleClass("User.java", 1);
+            ClassNode second = sampleClass("User.java", 1);
+            Map<ASTNode, Double> scores = new HashMap<>();
+
+            scores.put(first, 0.9);
+            scores.put(second, 0.4);
+
+            assertEquals(2, scores.size());
+            assertEquals(0.9, scores.get(first));
+        }
+    }
+}
@@ -0,0 +1,123 @@
+package com.ailearning.core.model.ast;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the iterative multi-visitor AST traversal.
+ */
+class ASTTraversalTest {
+
+    private static final String FILE = "Traversal.java";
+
+    private static StatementNode statement(String name, ASTNode... children) {
+        return new StatementNode(name, SourceLocation.at(FILE, 1, 1), List.of(children), Map.of());
+    }
+
+    private static ClassNode sampleTree() {
+        MethodNode first = new MethodNode("first", SourceLocation.at(FILE, 2, 5),
+                List.of(statement("if", statement("return"))), Map.of());
+        MethodNode second = new MethodNode("second", SourceLocation.at(FILE, 6, 5),
+                List.of(statement("for")), Map.of());
+        return new ClassNode("Sample", SourceLocation.at(FILE, 1, 1), List.of(first, second), Map.of());
+    }
+
+    /**
+     * Records enter/exit events and optionally skips the children of one named node.
+     */
+    private static final class RecordingVisitor implements TraversalVisitor {
+        private final List<String> events = new ArrayList<>();
+        private final String skipName;
+
+        RecordingVisitor(String skipName) {
+            this.skipName = skipName;
+        }
+
+        @Override
+        public VisitResult enter(ASTNode node) {
+            events.add("+" + node.getName());
+            return node.getName().equals(skipName) ? VisitResult.SKIP_CHILDREN : VisitResult.CONTINUE;
+        }
+
+        @Override
+        public void exit(ASTNode node) {
+            events.add("-" + node.getName());
+        }
+    }
+
+    @Nested
+    @DisplayName("Traversal Order")
+    class TraversalOrder {
+
+        @Test
+        @DisplayName("Should call enter and exit in depth-first order")
+        void shouldCallEnterAndExitInOrder() {
+            RecordingVisitor visitor = new RecordingVisitor(null);
+
+            ASTTraversal.walk(sampleTree(), visitor);
+
+            assertEquals(List.of("+Sample", "+first", "+if", "+return", "-return", "-if", "-first",
+                    "+second", "+for", "-for", "-second", "-Sample"), visitor.events);
+        }
+
+        @Test
+        @DisplayName("Should keep traverse() pre-order")
+        void shouldKeepTraversePreOrder() {
+            List<String> names = new ArrayList<>();
+
+            sampleTree().traverse(node -> names.add(node.getName()));
+
+            assertEquals(List.of("Sample", "first", "if", "return", "second", "for"), names);
+        }
+
+        @Test
+        @DisplayName("Should walk trees deeper than the call stack allows")
+        void shouldWalkVeryDeepTrees() {
+            ASTNode node = statement("leaf");
+            for (int i = 0; i < 100_000; i++) {
+                node = statement("level", node);
+            }
+            int[] visited = {0};
+
+            node.traverse(n -> visited[0]++);
+
+            assertEquals(100_001, visited[0]);
+            assertEquals(100_001, node.getDepth());
+        }
+    }
+
+    @Nested
+    @DisplayName("Multiple Visitors")
+    class MultipleVisitors {
+
+        @Test
+        @DisplayName("Should skip a subtree for one visitor only")
+        void shouldSkipSubtreeForOneVisitor() {
+            RecordingVisitor skipping = new RecordingVisitor("first");
+            RecordingVisitor full = new RecordingVisitor(null);
+
+            ASTTraversal.walk(sampleTree(), skipping, full);
+
+            assertEquals(List.of("+Sample", "+first", "-first", "+second", "+for", "-for", "-second",
+                    "-Sample"), skipping.events);
+            assertEquals(12, full.events.size());
+        }
+
+        @Test
+        @DisplayName("Should not descend when every visitor skips")
+        void shouldNotDescendWhenAllSkip() {
+            RecordingVisitor skipping = new RecordingVisitor("Sample");
+
+            ASTTraversal.walk(sampleTree(), skipping);
+
+            assertEquals(List.of("+Sample", "-Sample"), skipping.events);
+        }
+    }
+}
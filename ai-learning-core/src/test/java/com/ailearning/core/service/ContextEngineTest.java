@@ -5,7 +5,11 @@ import com.ailearning.core.service.impl.DefaultContextEngine;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.io.TempDir;
 
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.List;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutionException;
@@ -116,4 +120,16 @@ class ContextEngineTest {
             future.get();
         });
     }
-}
\ No newline at end of file
+    
+    @Test
+    @DisplayName("Should share the cached AST of parsed content")
+    void shouldShareCachedAst(@TempDir Path project) throws IOException, ExecutionException, InterruptedException {
+        String code = "public class Cached {\n    int size() { return 0; }\n}\n";
+        Files.writeString(project.resolve("Cached.java"), code);
+        
+        contextEngine.analyzeProject(project.toString()).get();
+        
+        assertTrue(contextEngine.getCachedAst(code).isPresent());
+        assertTrue(contextEngine.getCachedAst(code + "// edited\n").isEmpty());
+    }
+}
@@ -7,9 +7,12 @@ import com.ailearning.core.model.ast.SourceLocation;
 import com.ailearning.core.model.CodePattern;
 import com.ailearning.core.model.Relationship;
 import com.ailearning.core.model.CodingConvention;
+import com.ailearning.core.model.FileNode;
 import com.ailearning.core.model.ProjectContext;
+import com.ailearning.core.model.ProjectStructure;
 import com.ailearning.core.model.SemanticContext;
 import com.ailearning.core.service.SemanticAnalyzer;
+import com.ailearning.core.service.semantic.SimilarityMatrix;
 import com.ailearning.core.service.semantic.impl.DefaultSemanticAnalyzer;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -132,6 +135,54 @@ class SemanticAnalyzerTest {
         }
     }
     
+    @Test
+    @DisplayName("Should find similar code through the similar-code index")
+    void shouldFindIndexedSimilarCode() throws ExecutionException, InterruptedException {
+        DefaultSemanticAnalyzer analyzer = new DefaultSemanticAnalyzer();
+        analyzer.getSimilarCodeIndex().indexFile("Test.java", testClassNode);
+        ASTNode copy = createTestClassNode();
+        
+        Map<ASTNode, Double> similarCode = analyzer.findSimilarCode(copy, testProjectContext, 0.5).get();
+        
+        assertTrue(similarCode.containsKey(testClassNode));
+        assertFalse(similarCode.containsKey(copy));
+    }
+    
+    @Test
+    @DisplayName("Should only find similar code in the files of the given project")
+    void shouldFindSimilarCodeOnlyInProjectFiles() throws ExecutionException, InterruptedException {
+        DefaultSemanticAnalyzer analyzer = new DefaultSemanticAnalyzer();
+        analyzer.getSimilarCodeIndex().indexFile("/test/TestClass.java", testClassNode);
+        ASTNode copy = createTestClassNode();
+        ProjectContext otherProject = ProjectContext.create("other", new ProjectStructure(
+                List.of(new FileNode("/other/Other.java", "Other.java", "java", 100, false)),
+                List.of(), List.of(), List.of()));
+        ProjectContext sameProject = ProjectContext.create("test", new ProjectStructure(
+                List.of(new FileNode("/test/TestClass.java", "TestClass.java", "java", 100, false)),
+                List.of(), List.of(), List.of()));
+        
+        assertTrue(analyzer.findSimilarCode(copy, otherProject, 0.5).get().isEmpty());
+        assertTrue(analyzer.findSimilarCode(copy, sameProject, 0.5).get().containsKey(testClassNode));
+    }
+    
+    @Test
+    @DisplayName("Should calculate a sparse similarity matrix for a batch of nodes")
+    void shouldCalculateSimilarityMatrix() throws ExecutionException, InterruptedException {
+        ASTNode copy = createTestClassNode();
+        List<ASTNode> nodes = List.of(testClassNode, testMethodNode, copy);
+        
+        SimilarityMatrix matrix = semanticAnalyzer.calculateSimilarityMatrix(nodes, 0.9).get();
+        
+        assertEquals(3, matrix.size());
+        assertArrayEquals(new int[]{2}, matrix.getNeighbors(0));
+        assertArrayEquals(new int[]{0}, matrix.getNeighbors(2));
+        assertEquals(0, matrix.getNeighborCount(1));
+        
+        SimilarityMatrix neighbors = semanticAnalyzer.findNearestNeighbors(nodes, 1, 0.0).get();
+        assertEquals(2, neighbors.getNeighbors(0)[0]);
+        assertEquals(1, neighbors.getNeighborCount(1));
+    }
+    
     @Test
     @DisplayName("Should analyze semantic context for AST node")
     void shouldAnalyzeSemanticContext() throws ExecutionException, InterruptedException {
@@ -0,0 +1,44 @@
+package com.ailearning.core.service.ast;
+
+import com.ailearning.core.model.ast.ASTNode;
+import com.ailearning.core.model.ast.ClassNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Timings of the binary AST codec against Jackson, run with the benchmark profile.
+ */
+@Tag("benchmark")
+class ASTBinaryCodecBenchmark {
+
+    private static final Logger logger = LoggerFactory.getLogger(ASTBinaryCodecBenchmark.class);
+
+    @Test
+    @DisplayName("Round-trip a large AST through JSON and the binary codec")
+    void roundTrip() throws Exception {
+        ObjectMapper mapper = ASTBinaryCodecTest.relaxedMapper();
+        ClassNode tree = ASTBinaryCodecTest.largeTree();
+        int jsonBytes = mapper.writeValueAsBytes(tree).length;
+        int binaryBytes = ASTBinaryCodec.encode(tree).length;
+
+        int iterations = 20;
+        long jsonStart = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            mapper.readValue(mapper.writeValueAsBytes(tree), ASTNode.class);
+        }
+        long jsonNanos = System.nanoTime() - jsonStart;
+
+        long binaryStart = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            ASTBinaryCodec.decode(ASTBinaryCodec.encode(tree));
+        }
+        long binaryNanos = System.nanoTime() - binaryStart;
+
+        logger.info("AST round-trip x{}: json {} ms ({} bytes), binary {} ms ({} bytes)",
+                iterations, jsonNanos / 1_000_000, jsonBytes, binaryNanos / 1_000_000, binaryBytes);
+    }
+}
@@ -0,0 +1,240 @@
+package com.ailearning.core.service.ast;
+
+import com.ailearning.core.model.ast.*;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.MapperFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for the binary AST codec and the persistent AST index.
+ */
+class ASTBinaryCodecTest {
+
+    private static final String FILE = "Sample.java";
+
+    private static ModuleNode sampleTree() {
+        Map<String, Object> methodAttributes = new HashMap<>();
+        methodAttributes.put("returnType", "void");
+        methodAttributes.put("modifiers", List.of("public", "static"));
+        methodAttributes.put("parameterCount", 2);
+        methodAttributes.put("checksum", -7L);
+        methodAttributes.put("weight", 0.25);
+        methodAttributes.put("isAbstract", false);
+        methodAttributes.put("annotations", Map.of("Override", true));
+
+        StatementNode ifStatement = new StatementNode("if", SourceLocation.at(FILE, 3, 9),
+                List.of(new ExpressionNode("x > 1", SourceLocation.at(FILE, 3, 12), List.of(), Map.of())),
+                Map.of());
+        VariableNode variable = new VariableNode("count", SourceLocation.at(FILE, 4, 9), List.of(),
+                Map.of("type", "int"));
+        MethodNode method = new MethodNode("run", SourceLocation.range(FILE, 2, 5, 9, 6),
+                List.of(ifStatement, variable), methodAttributes);
+        ClassNode classNode = new ClassNode("Sample", SourceLocation.range(FILE, 1, 1, 10, 2),
+                List.of(method), Map.of("superclass", "Base"));
+        return new ModuleNode("compilation_unit", "compilation_unit", SourceLocation.at(FILE, 1, 1),
+                List.of(classNode), Map.of());
+    }
+
+    @Nested
+    @DisplayName("Round Trip")
+    class RoundTrip {
+
+        @Test
+        @DisplayName("Should round-trip every node kind and attribute type")
+        void shouldRoundTripTree() {
+            ModuleNode original = sampleTree();
+
+            ASTNode decoded = ASTBinaryCodec.decode(ASTBinaryCodec.encode(original));
+
+            assertTrue(original.structurallyEquals(decoded));
+            assertInstanceOf(ModuleNode.class, decoded);
+            assertEquals("compilation_unit", decoded.getNodeType());
+            ASTNode method = decoded.getChildren().get(0).getChildren().get(0);
+            assertInstanceOf(MethodNode.class, method);
+            assertEquals(original.getChildren().get(0).getChildren().get(0).getAttributes(), method.getAttributes());
+            assertEquals(SourceLocation.range(FILE, 2, 5, 9, 6), method.getLocation());
+        }
+
+        @Test
+        @DisplayName("Should decode from a buffer without moving its position")
+        void shouldDecodeFromBuffer() {
+            byte[] encoded = ASTBinaryCodec.encode(sampleTree());
+            ByteBuffer buffer = ByteBuffer.allocateDirect(encoded.length + 3);
+            buffer.put(new byte[]{9, 9, 9}).put(encoded).position(3);
+
+            ASTNode decoded = ASTBinaryCodec.decode(buffer);
+
+            assertTrue(sampleTree().structurallyEquals(decoded));
+            assertEquals(3, buffer.position());
+        }
+
+        @Test
+        @DisplayName("Should encode and decode trees deeper than the call stack allows")
+        void shouldHandleVeryDeepTrees() {
+            ASTNode node = new StatementNode("leaf", SourceLocation.at(FILE, 1, 1), List.of(), Map.of());
+            for (int i = 0; i < 100_000; i++) {
+                node = new StatementNode("level", SourceLocation.at(FILE, 1, 1), List.of(node), Map.of());
+            }
+
+            ASTNode decoded = ASTBinaryCodec.decode(ASTBinaryCodec.encode(node));
+
+            assertEquals(100_001, decoded.getNodeCount());
+        }
+    }
+
+    @Nested
+    @DisplayName("Malformed Input")
+    class MalformedInput {
+
+        @Test
+        @DisplayName("Should reject data with a bad magic header")
+        void shouldRejectBadMagic() {
+            assertThrows(ASTBinaryCodec.ASTCodecException.class,
+                    () -> ASTBinaryCodec.decode(new byte[]{'J', 'S', 'O', 'N', 1}));
+        }
+
+        @Test
+        @DisplayName("Should reject unsupported format versions")
+        void shouldRejectUnsupportedVersion() {
+            byte[] encoded = ASTBinaryCodec.encode(sampleTree());
+            encoded[4] = (byte) (ASTBinaryCodec.FORMAT_VERSION + 1);
+
+            ASTBinaryCodec.ASTCodecException e = assertThrows(ASTBinaryCodec.ASTCodecException.class,
+                    () -> ASTBinaryCodec.decode(encoded));
+            assertTrue(e.getMessage().contains("version"));
+        }
+
+        @Test
+        @DisplayName("Should reject truncated data")
+        void shouldRejectTruncatedData() {
+            byte[] encoded = ASTBinaryCodec.encode(sampleTree());
+
+            assertThrows(ASTBinaryCodec.ASTCodecException.class,
+                    () -> ASTBinaryCodec.decode(Arrays.copyOf(encoded, encoded.length - 4)));
+        }
+
+        @Test
+        @DisplayName("Should reject unsupported attribute values")
+        void shouldRejectUnsupportedAttributeValues() {
+            ClassNode node = new ClassNode("Odd", SourceLocation.at(FILE, 1, 1), List.of(),
+                    Map.of("created", new Date()));
+
+            assertThrows(ASTBinaryCodec.ASTCodecException.class, () -> ASTBinaryCodec.encode(node));
+        }
+    }
+
+    @Nested
+    @DisplayName("Persistent Index")
+    class PersistentIndex {
+
+        @TempDir
+        Path indexDirectory;
+
+        @Test
+        @DisplayName("Should load a stored tree only for matching content")
+        void shouldLoadMatchingContent() {
+            PersistentASTIndex index = new PersistentASTIndex(indexDirectory);
+            String hash = PersistentASTIndex.hashContent("class Sample {}");
+
+            assertTrue(index.store(FILE, hash, sampleTree()));
+
+            Optional<ASTNode> loaded = index.load(FILE, hash);
+            assertTrue(loaded.isPresent());
+            assertTrue(sampleTree().structurallyEquals(loaded.get()));
+            assertFalse(index.load(FILE, PersistentASTIndex.hashContent("class Sample { int x; }")).isPresent());
+            assertFalse(index.load("Other.java", hash).isPresent());
+        }
+
+        @Test
+        @DisplayName("Should discard corrupt entries")
+        void shouldDiscardCorruptEntries() throws Exception {
+            PersistentASTIndex index = new PersistentASTIndex(indexDirectory);
+            String hash = PersistentASTIndex.hashContent("class Sample {}");
+            index.store(FILE, hash, sampleTree());
+            try (var entries = Files.list(indexDirectory)) {
+                for (Path entry : entries.toList()) {
+                    Files.write(entry, new byte[]{1, 2, 3});
+                }
+            }
+
+            assertFalse(index.load(FILE, hash).isPresent());
+            try (var entries = Files.list(indexDirectory)) {
+                assertEquals(0, entries.count());
+            }
+        }
+
+        @Test
+        @DisplayName("Should remove entries")
+        void shouldRemoveEntries() {
+            PersistentASTIndex index = new PersistentASTIndex(indexDirectory);
+            String hash = PersistentASTIndex.hashContent("class Sample {}");
+            index.store(FILE, hash, sampleTree());
+
+            index.remove(FILE);
+
+            assertFalse(index.load(FILE, hash).isPresent());
+        }
+    }
+
+    /**
+     * A class of 50 methods with 10 statements each.
+     */
+    static ClassNode largeTree() {
+        List<ASTNode> methods = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            List<ASTNode> statements = new ArrayList<>();
+            for (int j = 0; j < 10; j++) {
+                int line = i * 12 + j + 2;
+                statements.add(new StatementNode("stmt" + j, SourceLocation.at("Large.java", line, 9),
+                        List.of(new ExpressionNode("expr", SourceLocation.at("Large.java", line, 12),
+                                List.of(), Map.of())),
+                        Map.of()));
+            }
+            methods.add(new MethodNode("method" + i, SourceLocation.range("Large.java", i * 12 + 1, 5, i * 12 + 12, 6),
+                    statements, Map.of("returnType", "void", "modifiers", List.of("public"))));
+        }
+        return new ClassNode("Large", SourceLocation.range("Large.java", 1, 1, 700, 2), methods, Map.of());
+    }
+
+    /**
+     * Derived getters such as getStatements() and isPoint() are serialized
+     * but not accepted back, so JSON round-trips need a relaxed mapper.
+     */
+    static ObjectMapper relaxedMapper() {
+        return JsonMapper.builder()
+                .disable(MapperFeature.USE_GETTERS_AS_SETTERS)
+                .disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES)
+                .build();
+    }
+
+    @Nested
+    @DisplayName("Comparison With JSON")
+    class ComparisonWithJson {
+
+        @Test
+        @DisplayName("Should round-trip like Jackson in fewer bytes")
+        void shouldBeSmallerThanJackson() throws Exception {
+            ObjectMapper mapper = relaxedMapper();
+            ClassNode tree = largeTree();
+
+            byte[] json = mapper.writeValueAsBytes(tree);
+            byte[] binary = ASTBinaryCodec.encode(tree);
+            assertTrue(tree.structurallyEquals(mapper.readValue(json, ASTNode.class)));
+            assertTrue(tree.structurallyEquals(ASTBinaryCodec.decode(binary)));
+            assertTrue(binary.length < json.length,
+                    String.format("binary %d bytes vs json %d bytes", binary.length, json.length));
+        }
+    }
+}
@@ -7,7 +7,15 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Nested;
 
+import java.io.IOException;
+import java.io.Reader;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -258,6 +266,69 @@ class ASTParserTest {
             assertTrue(result.isSuccessful());
             assertNotNull(result.getRootNode());
         }
+
+        @Test
+        @DisplayName("Should parse decorators, async defs and multi-line signatures")
+        void shouldParseDecoratedAsyncAndMultiLineDefinitions() throws Exception {
+            String pythonCode = """
+                from typing import (Dict,
+                                    List)
+                import os.path as osp
+
+                @dataclass
+                class Service(BaseService, metaclass=Registry):
+                    \"\"\"Docstring with def fake(): inside.\"\"\"
+
+                    @staticmethod
+                    async def fetch(url: str,
+                                    timeout: float = 1.0) -> Dict[str, int]:
+                        if timeout and url:
+                            return {}
+                        return {"a": 1}
+
+                    class Inner:
+                        def helper(self):
+                            pass
+                """;
+
+            ParseResult result = parser.parseCode(pythonCode, "python", "service.py").get();
+
+            assertTrue(result.isSuccessful());
+            ASTNode root = result.getRootNode();
+            assertEquals(List.of("typing.Dict", "typing.List", "os.path"), root.getAttribute("imports"));
+
+            ClassNode service = (ClassNode) root.findChildByName("Service");
+            assertNotNull(service);
+            assertEquals("BaseService", service.getSuperclass());
+            assertEquals(List.of("dataclass"), service.getAttribute("decorators"));
+
+            MethodNode fetch = (MethodNode) service.findChildByName("fetch");
+            assertNotNull(fetch);
+            assertTrue(fetch.isStatic());
+            assertTrue(fetch.getModifiers().contains("async"));
+            assertEquals("Dict[str, int]", fetch.getReturnType());
+            assertEquals(2, fetch.getParameters().size());
+            assertEquals(3, fetch.getCyclomaticComplexity());
+            assertEquals(9, fetch.getLocation().getStartLine());
+
+            ASTNode inner = service.findChildByName("Inner");
+            assertNotNull(inner);
+            assertNotNull(inner.findChildByName("helper"));
+        }
+
+        @Test
+        @DisplayName("Should report unterminated strings as parse errors")
+        void shouldReportUnterminatedStrings() throws Exception {
+            String pythonCode = """
+                def broken():
+                    return 'unterminated
+                """;
+
+            ParseResult result = parser.parseCode(pythonCode, "python", "broken.py").get();
+
+            assertFalse(result.isSuccessful());
+            assertEquals(2, result.getErrors().get(0).getLocation().getStartLine());
+        }
     }
 
     @Nested
@@ -348,6 +419,194 @@ class ASTParserTest {
         }
     }
 
+    @Nested
+    @DisplayName("Parse Budgets")
+    class ParseBudgets {
+
+        @Test
+        @DisplayName("Should reject files over the size budget")
+        void shouldRejectFilesOverSizeBudget() throws Exception {
+            parser.setParseBudget(ParseBudget.of(64, 2000));
+            String javaCode = "public class Big { " + "int f; ".repeat(20) + "}";
+
+            ParseResult result = parser.parseCode(javaCode, "java", "Big.java").get();
+
+            assertFalse(result.isSuccessful());
+            assertNull(result.getRootNode());
+            assertEquals(ParseMetrics.BudgetStatus.SIZE_EXCEEDED, result.getMetrics().getBudgetStatus());
+            assertTrue(result.getMetrics().isOverBudget());
+        }
+
+        @Test
+        @DisplayName("Should return partial outline when time budget runs out")
+        void shouldReturnPartialOutlineWhenTimeBudgetRunsOut() throws Exception {
+            StringBuilder pythonCode = new StringBuilder();
+            for (int i = 0; i < 20000; i++) {
+                pythonCode.append("def f").append(i).append("(a, b):\n    return a + b\n");
+            }
+            parser.setParseBudget(ParseBudget.of(Integer.MAX_VALUE, 1));
+
+            ParseResult result = parser.parseCode(pythonCode.toString(), "python", "generated.py").get();
+
+            assertTrue(result.isPartial());
+            assertFalse(result.isSuccessful());
+            assertNotNull(result.getRootNode());
+            assertTrue(result.getRootNode().getChildren().size() < 20000);
+            assertEquals(ParseResult.ParseStatus.PARTIAL, result.getStatus());
+            assertEquals(ParseMetrics.BudgetStatus.TIME_EXCEEDED, result.getMetrics().getBudgetStatus());
+        }
+
+        @Test
+        @DisplayName("Should parse normally within budget")
+        void shouldParseNormallyWithinBudget() throws Exception {
+            ParseResult result = parser.parseCode("def ok():\n    pass\n", "python", "ok.py").get();
+
+            assertTrue(result.isSuccessful());
+            assertEquals(ParseResult.ParseStatus.COMPLETE, result.getStatus());
+            assertFalse(result.getMetrics().isOverBudget());
+        }
+
+        @Test
+        @DisplayName("Should wait without a deadline under the unlimited budget")
+        void shouldWaitWithoutDeadlineWhenUnlimited() throws Exception {
+            ParseWait wait = ParseBudget.unlimited().startWait();
+            CompletableFuture<String> parse = CompletableFuture.supplyAsync(() -> "parsed");
+
+            assertTrue(wait.isUnlimited());
+            assertEquals("parsed", wait.await(parse));
+            assertFalse(ParseBudget.defaults().startWait().isUnlimited());
+        }
+
+        @Test
+        @DisplayName("Should cancel a parse still running at the wait deadline")
+        void shouldCancelParseAtWaitDeadline() {
+            ParseWait wait = ParseBudget.of(Integer.MAX_VALUE, 1).startWait();
+            CompletableFuture<String> parse = new CompletableFuture<>();
+
+            assertThrows(TimeoutException.class, () -> wait.await(parse));
+            assertTrue(parse.isCancelled());
+        }
+
+        @Test
+        @DisplayName("Should stop a guarded parse when its wait times out")
+        void shouldStopGuardedParseAtWaitDeadline() throws Exception {
+            CountDownLatch stopped = new CountDownLatch(1);
+            GuardedParse<String> parse = GuardedParse.supplyAsync(ParseBudget::unlimited, (budget, guard) -> {
+                while (guard.checkpoint()) {
+                    Thread.onSpinWait();
+                }
+                stopped.countDown();
+                return "stopped";
+            });
+            ParseWait wait = ParseBudget.of(Integer.MAX_VALUE, 1).startWait();
+
+            assertThrows(TimeoutException.class, () -> wait.await(parse));
+            assertTrue(stopped.await(5, TimeUnit.SECONDS), "Parse kept running after the wait was cancelled");
+        }
+
+        @Test
+        @DisplayName("Should fail library reads once the guard stops the parse")
+        void shouldFailReadsAfterGuardStops() throws Exception {
+            ParseGuard guard = ParseBudget.unlimited().startGuard();
+            Reader reader = guard.reader("class A {}");
+            char[] buffer = new char[4];
+
+            assertEquals(4, reader.read(buffer, 0, 4));
+            guard.cancel();
+            assertThrows(IOException.class, () -> reader.read(buffer, 0, 4));
+            assertTrue(guard.isExhausted());
+        }
+
+        @Test
+        @DisplayName("Should stop the Java library parse at the time budget")
+        void shouldStopJavaLibraryParse() throws Exception {
+            StringBuilder javaCode = new StringBuilder("class Generated {\n");
+            for (int i = 0; i < 5000; i++) {
+                javaCode.append("    int f").append(i).append("(int a) { return a + ").append(i).append("; }\n");
+            }
+            javaCode.append("}\n");
+            parser.setParseBudget(ParseBudget.of(Integer.MAX_VALUE, 1));
+
+            ParseResult result = parser.parseCode(javaCode.toString(), "java", "Generated.java").get();
+
+            assertFalse(result.isSuccessful());
+            assertEquals(ParseMetrics.BudgetStatus.TIME_EXCEEDED, result.getMetrics().getBudgetStatus());
+        }
+    }
+
+    @Nested
+    @DisplayName("Parser Initialization")
+    class ParserInitialization {
+
+        @Test
+        @DisplayName("Should create language parsers on first use only")
+        void shouldCreateParsersLazily() throws Exception {
+            MultiLanguageASTParser multiLanguageParser = new MultiLanguageASTParser();
+
+            assertFalse(multiLanguageParser.isInitialized("java"));
+            assertFalse(multiLanguageParser.isInitialized("python"));
+            assertTrue(multiLanguageParser.getInitializationTimes().isEmpty());
+
+            multiLanguageParser.parseCode("def f():\n    pass\n", "python", "f.py").get();
+
+            assertTrue(multiLanguageParser.isInitialized("python"));
+            assertFalse(multiLanguageParser.isInitialized("java"));
+            assertEquals(Set.of("python"), multiLanguageParser.getInitializationTimes().keySet());
+        }
+
+        @Test
+        @DisplayName("Should share one parser between JavaScript and TypeScript")
+        void shouldShareJavaScriptParser() throws Exception {
+            MultiLanguageASTParser multiLanguageParser = new MultiLanguageASTParser();
+
+            multiLanguageParser.parseCode("var x = 1;", "javascript", "x.js").get();
+
+            assertTrue(multiLanguageParser.isInitialized("typescript"));
+        }
+
+        @Test
+        @DisplayName("Should apply budget changes to parsers created later")
+        void shouldApplyBudgetToLazyParsers() throws Exception {
+            MultiLanguageASTParser multiLanguageParser = new MultiLanguageASTParser();
+            multiLanguageParser.setParseBudget(ParseBudget.of(16, 2000));
+
+            ParseResult result = multiLanguageParser.parseCode("def long_function_name():\n    pass\n",
+                    "python", "big.py").get();
+
+            assertFalse(result.isSuccessful());
+            assertTrue(result.getMetrics().isOverBudget());
+        }
+
+        @Test
+        @DisplayName("Should warm up every language and report init times")
+        void shouldWarmUpAllLanguages() throws Exception {
+            MultiLanguageASTParser multiLanguageParser = new MultiLanguageASTParser();
+
+            Map<String, Long> times = multiLanguageParser.warmUp().get();
+
+            assertEquals(Set.of("java", "javascript", "typescript", "python"), times.keySet());
+            assertTrue(times.values().stream().allMatch(ms -> ms >= 0));
+            assertEquals(times.get("javascript"), times.get("typescript"));
+        }
+
+        @Test
+        @DisplayName("Should parse JavaScript and TypeScript repeatedly after warm-up")
+        void shouldParseRepeatedlyAfterWarmUp() throws Exception {
+            MultiLanguageASTParser multiLanguageParser = new MultiLanguageASTParser();
+            multiLanguageParser.warmUp().join();
+
+            ParseResult first = multiLanguageParser.parseCode("function a() { return 1; }", "javascript", "a.js").get();
+            ParseResult second = multiLanguageParser.parseCode("function b() { return 2; }", "javascript", "b.js").get();
+            ParseResult typed = multiLanguageParser.parseCode("var c = 3;", "typescript", "c.ts").get();
+
+            assertTrue(first.isSuccessful(), () -> String.valueOf(first.getErrors()));
+            assertTrue(second.isSuccessful(), () -> String.valueOf(second.getErrors()));
+            assertTrue(typed.isSuccessful(), () -> String.valueOf(typed.getErrors()));
+            assertTrue(multiLanguageParser.validateSyntax("var d = 4;", "javascript").get());
+            assertTrue(multiLanguageParser.validateSyntax("var e = 5;", "javascript").get());
+        }
+    }
+
     @Nested
     @DisplayName("Error Handling")
     class ErrorHandling {
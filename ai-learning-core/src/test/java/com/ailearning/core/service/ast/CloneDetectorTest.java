@@ -0,0 +1,146 @@
+package com.ailearning.core.service.ast;
+
+import com.ailearning.core.model.ast.ASTNode;
+import com.ailearning.core.model.ast.ClassNode;
+import com.ailearning.core.model.ast.ExpressionNode;
+import com.ailearning.core.model.ast.MethodNode;
+import com.ailearning.core.model.ast.SourceLocation;
+import com.ailearning.core.model.ast.StatementNode;
+import com.ailearning.core.model.ast.VariableNode;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for fingerprint-based clone detection.
+ */
+class CloneDetectorTest {
+
+    private CloneDetector detector;
+
+    @BeforeEach
+    void setUp() {
+        detector = new CloneDetector(8);
+    }
+
+    @Test
+    @DisplayName("Should report a renamed method once, with the locations of both copies")
+    void shouldDetectRenamedMethodClone() {
+        MethodNode original = method("Orders.java", 10, "totalOrders", "order", "0");
+        MethodNode renamed = method("Invoices.java", 30, "totalInvoices", "invoice", "1");
+
+        List<CloneDetector.CloneGroup> clones = detector.detectClones(Map.of(
+                "Orders.java", classOf("Orders.java", original, field("Orders.java", "repository")),
+                "Invoices.java", classOf("Invoices.java", renamed)));
+
+        assertEquals(1, clones.size());
+        CloneDetector.CloneGroup clone = clones.get(0);
+        assertSame(renamed, clone.getRepresentative());
+        assertEquals(List.of("Invoices.java:30", "Orders.java:10"), clone.getLocations());
+        assertEquals(List.of("Invoices.java", "Orders.java"), clone.getFiles());
+        assertFalse(clone.isExact());
+        // Method name, variable name and literal differ in a ten-node method
+        assertEquals(0.7, clone.getSimilarity(), 1e-9);
+    }
+
+    @Test
+    @DisplayName("Should mark verbatim copies as exact")
+    void shouldDetectExactClone() {
+        List<CloneDetector.CloneGroup> clones = detector.detectClones(Map.of(
+                "A.java", classOf("A.java", method("A.java", 5, "sum", "item", "0"), field("A.java", "total")),
+                "B.java", classOf("B.java", method("B.java", 7, "sum", "item", "0"))));
+
+        assertEquals(1, clones.size());
+        assertTrue(clones.get(0).isExact());
+        assertEquals(1.0, clones.get(0).getSimilarity());
+    }
+
+    @Test
+    @DisplayName("Should report repeated blocks inside one method")
+    void shouldDetectClonesSharingAParent() {
+        List<ASTNode> body = List.of(
+                new StatementNode("block", SourceLocation.at("A.java", 3, 9), loop("A.java", 3, "left", "0"), Map.of()),
+                new StatementNode("block", SourceLocation.at("A.java", 8, 9), loop("A.java", 8, "right", "0"), Map.of()));
+        MethodNode method = new MethodNode("compare", SourceLocation.at("A.java", 2, 5), body, Map.of());
+
+        List<CloneDetector.CloneGroup> clones = detector.detectClones(Map.of("A.java", classOf("A.java", method)));
+
+        assertEquals(1, clones.size());
+        assertEquals(List.of("A.java:3", "A.java:8"), clones.get(0).getLocations());
+    }
+
+    @Test
+    @DisplayName("Should ignore structurally different and undersized subtrees")
+    void shouldIgnoreDifferentOrSmallSubtrees() {
+        List<ASTNode> throwingBody = new ArrayList<>(loop("B.java", 2, "x", "0"));
+        throwingBody.set(2, new StatementNode("throw", SourceLocation.at("B.java", 5, 9),
+                List.of(new ExpressionNode("name", SourceLocation.at("B.java", 5, 15), List.of(), Map.of())),
+                Map.of()));
+
+        List<CloneDetector.CloneGroup> clones = detector.detectClones(Map.of(
+                "A.java", classOf("A.java", method("A.java", 1, "first", "x", "0"), getter("A.java")),
+                "B.java", classOf("B.java", new MethodNode("first", SourceLocation.at("B.java", 1, 5),
+                        throwingBody, Map.of("returnType", "int")), getter("B.java"))));
+
+        assertTrue(clones.isEmpty());
+    }
+
+    @Test
+    @DisplayName("Should reject a minimum size below two nodes")
+    void shouldRejectInvalidMinimumSize() {
+        assertThrows(IllegalArgumentException.class, () -> new CloneDetector(1));
+    }
+
+    private static MethodNode method(String file, int line, String name, String variable, String initial) {
+        return new MethodNode(name, SourceLocation.at(file, line, 5), loop(file, line + 1, variable, initial),
+                Map.of("returnType", "int"));
+    }
+
+    /**
+     * Builds {@code int <variable> = <initial>; for (...) { <variable> += call(); } return <variable>;}
+     * as three statements of nine nodes in total.
+     */
+    private static List<ASTNode> loop(String file, int line, String variable, String initial) {
+        VariableNode declaration = new VariableNode(variable, SourceLocation.at(file, line, 9),
+                List.of(literal(file, line, initial)), Map.of("type", "int"));
+        ExpressionNode update = new ExpressionNode("assign", SourceLocation.at(file, line + 2, 13),
+                List.of(new ExpressionNode("name", SourceLocation.at(file, line + 2, 13), List.of(), Map.of()),
+                        new ExpressionNode("methodcall", SourceLocation.at(file, line + 2, 20), List.of(), Map.of())),
+                Map.of());
+        StatementNode body = new StatementNode("expression", SourceLocation.at(file, line + 2, 13),
+                List.of(update), Map.of());
+        StatementNode forLoop = new StatementNode("for", SourceLocation.at(file, line + 1, 9),
+                List.of(body), Map.of());
+        StatementNode result = new StatementNode("return", SourceLocation.at(file, line + 3, 9),
+                List.of(new ExpressionNode("name", SourceLocation.at(file, line + 3, 16), List.of(), Map.of())),
+                Map.of());
+        return List.of(declaration, forLoop, result);
+    }
+
+    private static ExpressionNode literal(String file, int line, String value) {
+        return new ExpressionNode("integerliteral", SourceLocation.at(file, line, 17), List.of(),
+                Map.of("literalValue", value));
+    }
+
+    private static MethodNode getter(String file) {
+        return new MethodNode("getId", SourceLocation.at(file, 20, 5),
+                List.of(new StatementNode("return", SourceLocation.at(file, 21, 9),
+                        List.of(new ExpressionNode("name", SourceLocation.at(file, 21, 16), List.of(), Map.of())),
+                        Map.of())),
+                Map.of());
+    }
+
+    private static VariableNode field(String file, String name) {
+        return new VariableNode(name, SourceLocation.at(file, 2, 5), List.of(), Map.of("field", true));
+    }
+
+    private static ClassNode classOf(String file, ASTNode... members) {
+        return new ClassNode(file.replace(".java", ""), SourceLocation.at(file, 1, 1), List.of(members), Map.of());
+    }
+}
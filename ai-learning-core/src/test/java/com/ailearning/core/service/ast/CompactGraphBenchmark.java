@@ -0,0 +1,58 @@
+package com.ailearning.core.service.ast;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Timings of the CSR dependency graph on 100k nodes, run with the benchmark profile.
+ */
+@Tag("benchmark")
+class CompactGraphBenchmark {
+
+    private static final Logger logger = LoggerFactory.getLogger(CompactGraphBenchmark.class);
+
+    @Test
+    @DisplayName("Answer dependents on a 100k-node graph by adjacency scan and reverse index")
+    void dependents() {
+        Map<String, Set<String>> adjacency = CompactGraphTest.spreadAdjacency(100_000);
+
+        long buildStart = System.nanoTime();
+        DependencyGraphBuilder.DependencyGraph graph = new DependencyGraphBuilder.DependencyGraph(adjacency, Map.of());
+        long buildNanos = System.nanoTime() - buildStart;
+
+        int lookups = 100;
+        long scanStart = System.nanoTime();
+        int scanned = 0;
+        for (int i = 0; i < lookups; i++) {
+            String target = "n" + i;
+            for (Set<String> dependencies : adjacency.values()) {
+                if (dependencies.contains(target)) {
+                    scanned++;
+                }
+            }
+        }
+        long scanNanos = System.nanoTime() - scanStart;
+
+        long indexStart = System.nanoTime();
+        int indexed = 0;
+        for (int i = 0; i < lookups; i++) {
+            indexed += graph.getDependents("n" + i).size();
+        }
+        long indexNanos = System.nanoTime() - indexStart;
+
+        long sccStart = System.nanoTime();
+        int cycles = graph.detectCircularDependencies().size();
+        long sccNanos = System.nanoTime() - sccStart;
+
+        logger.info("100k nodes: build {} ms, {} dependents lookups ({} found) scan {} ms vs reverse index {} ms "
+                        + "({} found), cycle detection {} ms ({} cycles)",
+                buildNanos / 1_000_000, lookups, scanned, scanNanos / 1_000_000, indexNanos / 1_000_000,
+                indexed, sccNanos / 1_000_000, cycles);
+    }
+}
@@ -0,0 +1,156 @@
+package com.ailearning.core.service.ast;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for the CSR dependency graph representation.
+ */
+class CompactGraphTest {
+
+    private static CompactGraph graphOf(String... edges) {
+        CompactGraph.Builder builder = new CompactGraph.Builder();
+        for (String edge : edges) {
+            String[] ends = edge.split("->");
+            builder.addEdge(ends[0], ends[1]);
+        }
+        return builder.build();
+    }
+
+    @Nested
+    @DisplayName("Adjacency")
+    class Adjacency {
+
+        @Test
+        @DisplayName("Should store sorted, deduplicated forward and reverse rows")
+        void shouldStoreForwardAndReverseRows() {
+            CompactGraph graph = graphOf("a->c", "a->b", "a->c", "b->c");
+            int a = graph.indexOf("a");
+            int b = graph.indexOf("b");
+            int c = graph.indexOf("c");
+
+            assertEquals(3, graph.getVertexCount());
+            assertEquals(3, graph.getEdgeCount());
+            // Rows are sorted by vertex id, and c was interned before b
+            assertArrayEquals(new int[]{c, b}, graph.getSuccessors(a));
+            assertArrayEquals(new int[]{a, b}, graph.getPredecessors(c));
+            assertTrue(graph.hasEdge(a, c));
+            assertFalse(graph.hasEdge(c, a));
+            assertEquals(-1, graph.indexOf("missing"));
+        }
+
+        @Test
+        @DisplayName("Should find paths by breadth-first search")
+        void shouldFindPaths() {
+            CompactGraph graph = graphOf("a->b", "b->c", "d->a");
+
+            assertTrue(graph.hasPath(graph.indexOf("a"), graph.indexOf("c")));
+            assertFalse(graph.hasPath(graph.indexOf("c"), graph.indexOf("a")));
+        }
+    }
+
+    @Nested
+    @DisplayName("Strongly Connected Components")
+    class Components {
+
+        @Test
+        @DisplayName("Should group mutually reachable vertices")
+        void shouldGroupCycles() {
+            CompactGraph graph = graphOf("a->b", "b->c", "c->a", "c->d", "e->e");
+            CompactGraph.StronglyConnectedComponents components = graph.getStronglyConnectedComponents();
+            int a = graph.indexOf("a");
+
+            assertEquals(3, components.getComponentCount());
+            assertEquals(components.getComponent(a), components.getComponent(graph.indexOf("c")));
+            assertNotEquals(components.getComponent(a), components.getComponent(graph.indexOf("d")));
+            assertEquals(3, components.getSize(components.getComponent(a)));
+            assertTrue(components.isCyclic(components.getComponent(graph.indexOf("e"))));
+            assertFalse(components.isCyclic(components.getComponent(graph.indexOf("d"))));
+            assertEquals(2, components.getCyclicComponentCount());
+        }
+
+        @Test
+        @DisplayName("Should number components in reverse topological order")
+        void shouldOrderComponentsTopologically() {
+            CompactGraph graph = graphOf("a->b", "b->c", "c->b", "c->d");
+            CompactGraph.StronglyConnectedComponents components = graph.getStronglyConnectedComponents();
+
+            for (int v = 0; v < graph.getVertexCount(); v++) {
+                for (int w : graph.getSuccessors(v)) {
+                    assertTrue(components.getComponent(v) >= components.getComponent(w));
+                }
+            }
+        }
+
+        @Test
+        @DisplayName("Should return a real cycle through a vertex")
+        void shouldFindCycleThroughVertex() {
+            CompactGraph graph = graphOf("a->b", "b->c", "c->a", "a->d");
+
+            int[] cycle = graph.findCycleThrough(graph.indexOf("a"));
+
+            assertEquals(3, cycle.length);
+            assertEquals(graph.indexOf("a"), cycle[0]);
+            for (int i = 0; i < cycle.length; i++) {
+                assertTrue(graph.hasEdge(cycle[i], cycle[(i + 1) % cycle.length]));
+            }
+            assertEquals(0, graph.findCycleThrough(graph.indexOf("d")).length);
+        }
+
+        @Test
+        @DisplayName("Should handle a 100k-vertex ring without recursion")
+        void shouldHandleLongRing() {
+            CompactGraph.Builder builder = new CompactGraph.Builder();
+            for (int i = 0; i < 100_000; i++) {
+                builder.addEdge("n" + i, "n" + ((i + 1) % 100_000));
+            }
+            CompactGraph graph = builder.build();
+
+            assertEquals(1, graph.getStronglyConnectedComponents().getComponentCount());
+            assertEquals(100_000, graph.findCycleThrough(0).length);
+        }
+    }
+
+    /**
+     * Adjacency of a graph where each node depends on five others spread across the graph.
+     */
+    static Map<String, Set<String>> spreadAdjacency(int nodeCount) {
+        Map<String, Set<String>> adjacency = new HashMap<>();
+        for (int i = 0; i < nodeCount; i++) {
+            Set<String> dependencies = new HashSet<>();
+            for (int k = 1; k <= 5; k++) {
+                dependencies.add("n" + ((i * 7 + k * 13) % nodeCount));
+            }
+            adjacency.put("n" + i, dependencies);
+        }
+        return adjacency;
+    }
+
+    @Nested
+    @DisplayName("Dependents")
+    class Dependents {
+
+        @Test
+        @DisplayName("Should answer dependents like a scan of the adjacency")
+        void shouldMatchAdjacencyScan() {
+            Map<String, Set<String>> adjacency = spreadAdjacency(1_000);
+            DependencyGraphBuilder.DependencyGraph graph = new DependencyGraphBuilder.DependencyGraph(adjacency, Map.of());
+
+            for (int i = 0; i < 100; i++) {
+                String target = "n" + i;
+                Set<String> scanned = new HashSet<>();
+                adjacency.forEach((node, dependencies) -> {
+                    if (dependencies.contains(target)) {
+                        scanned.add(node);
+                    }
+                });
+                assertEquals(scanned, graph.getDependents(target));
+            }
+        }
+    }
+}
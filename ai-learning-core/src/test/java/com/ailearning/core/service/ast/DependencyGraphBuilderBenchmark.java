@@ -0,0 +1,40 @@
+package com.ailearning.core.service.ast;
+
+import com.ailearning.core.model.ast.ASTNode;
+import com.ailearning.core.service.ast.DependencyGraphBuilder.DependencyGraph;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.List;
+
+/**
+ * Timings of sharded dependency graph builds, run with the benchmark profile.
+ */
+@Tag("benchmark")
+class DependencyGraphBuilderBenchmark {
+
+    private static final Logger logger = LoggerFactory.getLogger(DependencyGraphBuilderBenchmark.class);
+
+    @Test
+    @DisplayName("Build a 10k-unit graph in one shard and in one shard per core")
+    void parallelBuild() throws Exception {
+        DependencyGraphBuilder builder = new DependencyGraphBuilder();
+        List<ASTNode> units = DependencyGraphBuilderTest.generateProject(10_000);
+        int cores = Runtime.getRuntime().availableProcessors();
+        builder.buildDependencyGraph(units, cores).get();
+
+        long sequentialStart = System.nanoTime();
+        DependencyGraph sequential = builder.buildDependencyGraph(units, 1).get();
+        long sequentialNanos = System.nanoTime() - sequentialStart;
+
+        long parallelStart = System.nanoTime();
+        builder.buildDependencyGraph(units, cores).get();
+        long parallelNanos = System.nanoTime() - parallelStart;
+
+        logger.info("10k units, {} nodes: 1 shard {} ms vs {} shards {} ms",
+                sequential.getAllNodes().size(), sequentialNanos / 1_000_000, cores, parallelNanos / 1_000_000);
+    }
+}
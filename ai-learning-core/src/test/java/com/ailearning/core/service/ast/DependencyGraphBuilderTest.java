@@ -272,6 +272,222 @@ class DependencyGraphBuilderTest {
         assertTrue(dependencies.isEmpty());
     }
 
+    @Test
+    @DisplayName("Should report one cycle per strongly connected component")
+    void shouldReportCyclesFromAdjacency() {
+        DependencyGraph graph = new DependencyGraph(Map.of(
+            "a", Set.of("b"),
+            "b", Set.of("c"),
+            "c", Set.of("a", "d"),
+            "d", Set.of()
+        ), Map.of());
+
+        List<List<String>> cycles = graph.detectCircularDependencies();
+
+        assertEquals(1, cycles.size());
+        assertEquals(Set.of("a", "b", "c"), new HashSet<>(cycles.get(0)));
+        assertEquals(Set.of("b"), graph.getDependents("c"));
+        assertEquals(Set.of("c"), graph.getDependents("d"));
+        assertTrue(graph.hasPath("a", "d"));
+        assertFalse(graph.hasPath("d", "a"));
+    }
+
+    @Test
+    @DisplayName("Should find dependents of a shared type through the reverse index")
+    void shouldFindDependentsOfSharedType() throws Exception {
+        ClassNode first = new ClassNode("First", SourceLocation.at("First.java", 1, 1), List.of(),
+            Map.of("superclass", "BaseClass"));
+        ClassNode second = new ClassNode("Second", SourceLocation.at("Second.java", 1, 1), List.of(),
+            Map.of("superclass", "BaseClass"));
+
+        DependencyGraph graph = builder.buildDependencyGraph(List.of(first, second)).get();
+
+        Set<String> dependents = graph.getDependents("class:BaseClass");
+        assertEquals(2, dependents.size());
+        assertTrue(dependents.stream().allMatch(graph.getAllNodes()::contains));
+    }
+
+    @Test
+    @DisplayName("Should apply a file delta to the live graph")
+    void shouldApplyFileDelta() {
+        ClassNode original = classExtending("Child", "BaseClass");
+        ClassNode edited = classExtending("Child", "OtherBase");
+        builder.applyFileDelta("Child.java", null, original);
+
+        DependencyGraphDelta delta = builder.applyFileDelta("Child.java", original, edited);
+
+        String childKey = builder.getLiveGraph().getAllNodes().iterator().next();
+        assertEquals(List.of(new DependencyGraphDelta.Edge(childKey, "class:OtherBase")), delta.getAddedEdges());
+        assertEquals(List.of(new DependencyGraphDelta.Edge(childKey, "class:BaseClass")), delta.getRemovedEdges());
+        assertTrue(delta.getAddedNodes().isEmpty());
+        assertTrue(builder.getLiveDependents("class:BaseClass").isEmpty());
+        assertEquals(Set.of(childKey), builder.getLiveDependents("class:OtherBase"));
+        assertEquals(Set.of("class:OtherBase"), builder.getLiveGraph().getDependencies(childKey));
+    }
+
+    @Test
+    @DisplayName("Should only touch the edited file's nodes")
+    void shouldOnlyTouchEditedFile() {
+        ClassNode first = classExtending("First", "BaseClass");
+        ClassNode second = new ClassNode("Second", SourceLocation.at("Second.java", 1, 1), List.of(),
+            Map.of("superclass", "BaseClass"));
+        builder.applyFileDelta("Child.java", null, first);
+        builder.applyFileDelta("Second.java", null, second);
+
+        DependencyGraphDelta delta = builder.applyFileDelta("Second.java", second, null);
+
+        assertEquals(1, delta.getRemovedNodes().size());
+        assertEquals(1, delta.getRemovedEdges().size());
+        assertEquals(1, builder.getLiveGraph().getAllNodes().size());
+        assertEquals(1, builder.getLiveDependents("class:BaseClass").size());
+    }
+
+    @Test
+    @DisplayName("Should notify listeners with edge diffs")
+    void shouldNotifyGraphListeners() {
+        List<DependencyGraphDelta> events = new ArrayList<>();
+        builder.addGraphListener(events::add);
+        ClassNode original = classExtending("Child", "BaseClass");
+
+        builder.applyFileDelta("Child.java", null, original);
+        DependencyGraphDelta unchanged = builder.applyFileDelta("Child.java", original, original);
+
+        assertEquals(2, events.size());
+        assertEquals(1, events.get(0).getAddedEdges().size());
+        assertTrue(unchanged.isEmpty());
+        assertSame(builder.getLiveGraph(), builder.getLiveGraph());
+    }
+
+    @Test
+    @DisplayName("Should resolve dependencies to declared types")
+    void shouldResolveDependenciesToDeclaredTypes() throws Exception {
+        ClassNode base = new ClassNode("Base", SourceLocation.at("Base.java", 1, 1), List.of(), Map.of());
+        ClassNode child = new ClassNode("Child", SourceLocation.at("Child.java", 1, 1), List.of(),
+            Map.of("superclass", "Base", "interfaces", List.of("Missing")));
+        VariableNode next = new VariableNode("next", SourceLocation.at("Node.java", 2, 5), List.of(),
+            Map.of("type", "Node", "field", true));
+        ClassNode linked = new ClassNode("Node", SourceLocation.at("Node.java", 1, 1), List.of(next), Map.of());
+
+        DependencyGraph graph = builder.buildDependencyGraph(List.of(base, child, linked)).get();
+
+        assertEquals(Set.of("class:Base@Base.java:1:1", "interface:Missing"),
+            graph.getDependencies("class:Child@Child.java:1:1"));
+        // A class referring to its own type stays symbolic instead of forming a cycle
+        assertEquals(Set.of("type:Node"), graph.getDependencies("class:Node@Node.java:1:1"));
+        assertTrue(graph.detectCircularDependencies().isEmpty());
+    }
+
+    @Test
+    @DisplayName("Should resolve same-named types through imports and packages")
+    void shouldResolveThroughImportsAndPackages() throws Exception {
+        ASTNode utilA = compilationUnit("a/Util.java", "a", List.of(), "Util", Map.of());
+        ASTNode utilB = compilationUnit("b/Util.java", "b", List.of(), "Util", Map.of());
+        ASTNode importing = compilationUnit("c/Importing.java", "c", List.of("b.Util"), "Importing",
+            Map.of("superclass", "Util"));
+        ASTNode samePackage = compilationUnit("a/Local.java", "a", List.of(), "Local",
+            Map.of("superclass", "Util"));
+        ASTNode unqualified = compilationUnit("d/Other.java", "d", List.of(), "Other",
+            Map.of("superclass", "Util"));
+
+        DependencyGraph graph = builder.buildDependencyGraph(
+            List.of(utilA, utilB, importing, samePackage, unqualified)).get();
+
+        assertEquals(Set.of("class:Util@b/Util.java:1:1"), graph.getDependencies("class:Importing@c/Importing.java:1:1"));
+        assertEquals(Set.of("class:Util@b/Util.java:1:1"),
+            graph.getDependencies("compilation_unit:compilation_unit@c/Importing.java:1:1"));
+        assertEquals(Set.of("class:Util@a/Util.java:1:1"), graph.getDependencies("class:Local@a/Local.java:1:1"));
+        // Util is declared twice and neither is in scope, so the target stays symbolic
+        assertEquals(Set.of("class:Util"), graph.getDependencies("class:Other@d/Other.java:1:1"));
+    }
+
+    @Test
+    @DisplayName("Should build the same graph in parallel as sequentially")
+    void shouldBuildSameGraphInParallel() throws Exception {
+        List<ASTNode> units = generateProject(500);
+
+        DependencyGraph sequential = builder.buildDependencyGraph(units, 1).get();
+        DependencyGraph parallel = builder.buildDependencyGraph(units, 4).get();
+
+        assertEquals(edgesOf(sequential), edgesOf(parallel));
+        assertEquals(sequential.getAllNodes(), parallel.getAllNodes());
+        assertThrows(IllegalArgumentException.class, () -> builder.buildDependencyGraph(units, 0));
+    }
+
+    @Test
+    @DisplayName("Should resolve the live graph like a one-shot build")
+    void shouldResolveLiveGraphLikeBatchBuild() throws Exception {
+        List<ASTNode> units = generateProject(200);
+        for (ASTNode unit : units) {
+            builder.applyFileDelta(unit.getLocation().getFilePath(), null, unit);
+        }
+
+        assertEquals(edgesOf(builder.buildDependencyGraph(units).get()), edgesOf(builder.getLiveGraph()));
+
+        // Removing a declaring file turns its dependents' edges symbolic again
+        ASTNode removed = units.get(7);
+        DependencyGraphDelta delta = builder.applyFileDelta(removed.getLocation().getFilePath(), removed, null);
+        List<ASTNode> remaining = new ArrayList<>(units);
+        remaining.remove(removed);
+
+        assertTrue(delta.getAddedEdges().contains(
+            new DependencyGraphDelta.Edge("class:C8@src/p8/C8.java:2:1", "class:C7")));
+        assertEquals(edgesOf(builder.buildDependencyGraph(remaining).get()), edgesOf(builder.getLiveGraph()));
+
+        builder.applyFileDelta(removed.getLocation().getFilePath(), null, removed);
+        assertEquals(edgesOf(builder.buildDependencyGraph(units).get()), edgesOf(builder.getLiveGraph()));
+    }
+
+    private ClassNode classExtending(String name, String superclass) {
+        return new ClassNode(name, SourceLocation.at("Child.java", 1, 1), List.of(),
+            Map.of("superclass", superclass));
+    }
+
+    private ASTNode compilationUnit(String file, String packageName, List<String> imports, String className,
+                                    Map<String, Object> classAttributes) {
+        ClassNode declared = new ClassNode(className, SourceLocation.at(file, 1, 1), List.of(), classAttributes);
+        return new ModuleNode("compilation_unit", "compilation_unit", SourceLocation.at(file, 1, 1),
+            List.of(declared), Map.of("package", packageName, "imports", imports));
+    }
+
+    /**
+     * Generates compilation units in 20 packages whose classes extend, import
+     * and use each other.
+     */
+    static List<ASTNode> generateProject(int unitCount) {
+        List<ASTNode> units = new ArrayList<>();
+        Random random = new Random(42);
+        for (int i = 0; i < unitCount; i++) {
+            String file = "src/p" + (i % 20) + "/C" + i + ".java";
+            List<ASTNode> members = new ArrayList<>();
+            for (int m = 0; m < 4; m++) {
+                members.add(new MethodNode("m" + m, SourceLocation.at(file, 10 + m, 5), List.of(), Map.of(
+                    "returnType", "C" + random.nextInt(unitCount),
+                    "parameters", List.of(Map.of("name", "arg", "type", "List<C" + random.nextInt(unitCount) + ">")))));
+                members.add(new VariableNode("f" + m, SourceLocation.at(file, 3 + m, 5), List.of(),
+                    Map.of("type", "C" + random.nextInt(unitCount), "field", true)));
+            }
+            Map<String, Object> classAttributes = i > 0
+                ? Map.of("superclass", "C" + (i - 1), "interfaces", List.of("Serializable"))
+                : Map.of();
+            ClassNode declared = new ClassNode("C" + i, SourceLocation.at(file, 2, 1), members, classAttributes);
+            int imported = (i + 1) % unitCount;
+            units.add(new ModuleNode("compilation_unit", "compilation_unit", SourceLocation.at(file, 1, 1),
+                List.of(declared), Map.of("package", "p" + (i % 20),
+                    "imports", List.of("p" + (imported % 20) + ".C" + imported, "java.io.Serializable"))));
+        }
+        return units;
+    }
+
+    private Set<String> edgesOf(DependencyGraph graph) {
+        Set<String> edges = new HashSet<>();
+        for (String node : graph.getAllNodes()) {
+            for (String dependency : graph.getDependencies(node)) {
+                edges.add(node + " -> " + dependency);
+            }
+        }
+        return edges;
+    }
+
     /**
      * Creates sample AST nodes for testing.
      */
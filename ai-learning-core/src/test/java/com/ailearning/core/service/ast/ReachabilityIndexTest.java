@@ -0,0 +1,154 @@
+package com.ailearning.core.service.ast;
+
+import com.ailearning.core.model.ast.ASTNode;
+import com.ailearning.core.model.ast.ClassNode;
+import com.ailearning.core.model.ast.SourceLocation;
+import com.ailearning.core.service.ast.impl.JavaASTParser;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for transitive reachability over the live dependency graph.
+ */
+class ReachabilityIndexTest {
+
+    private DependencyGraphBuilder builder;
+    private ReachabilityIndex index;
+
+    @BeforeEach
+    void setUp() {
+        builder = new DependencyGraphBuilder();
+        index = new ReachabilityIndex(builder);
+    }
+
+    /**
+     * Class nodes are keyed as {@code class:<name>@<location>}. A superclass
+     * declared by an applied file resolves to that class's key; any other
+     * stays symbolic as {@code class:<name>}.
+     */
+    private static String keyOf(String name) {
+        return "class:" + name + "@" + name + ".java:1:1";
+    }
+
+    private ClassNode apply(String name, String superclass) {
+        ClassNode node = new ClassNode(name, SourceLocation.at(name + ".java", 1, 1), List.of(),
+                Map.of("superclass", superclass));
+        builder.applyFileDelta(name + ".java", null, node);
+        return node;
+    }
+
+    private void applyParsed(String filePath, String code) {
+        ASTNode root = new JavaASTParser(ParseBudget.unlimited())
+                .parseCode(code, "java", filePath).join().getRootNode();
+        builder.applyFileDelta(filePath, null, root);
+    }
+
+    private String liveClassKey(String name) {
+        return builder.getLiveGraph().getAllNodes().stream()
+                .filter(key -> key.startsWith("class:" + name + "@"))
+                .findFirst()
+                .orElseThrow();
+    }
+
+    @Test
+    @DisplayName("Should answer transitive dependents and reachability")
+    void shouldAnswerTransitiveQueries() {
+        apply("A", "B");
+        apply("B", "C");
+        apply("C", "Base");
+
+        assertEquals(Set.of(keyOf("A"), keyOf("B")), index.getTransitiveDependents(keyOf("C")));
+        assertTrue(index.isReachable(keyOf("A"), "class:Base"));
+        assertFalse(index.isReachable("class:Base", keyOf("A")));
+        assertEquals(Set.of(keyOf("B"), keyOf("C"), "class:Base"), index.getTransitiveDependencies(keyOf("A")));
+    }
+
+    @Test
+    @DisplayName("Should follow dependencies between parsed classes")
+    void shouldFollowParsedClasses() {
+        applyParsed("shop/A.java", "package shop;\n\npublic class A extends B {\n}\n");
+        applyParsed("shop/B.java", "package shop;\n\npublic class B {\n    private C c;\n}\n");
+        applyParsed("shop/C.java", "package shop;\n\npublic class C {\n}\n");
+        String a = liveClassKey("A");
+        String b = liveClassKey("B");
+        String c = liveClassKey("C");
+
+        assertEquals(Set.of(a, b), index.getTransitiveDependents(c));
+        assertTrue(index.isReachable(a, c));
+        assertFalse(index.isReachable(c, a));
+    }
+
+    @Test
+    @DisplayName("Should compact stable ids retired by moving keys")
+    void shouldCompactRetiredIds() {
+        apply("B", "Base");
+        ClassNode previous = null;
+        for (int line = 1; line <= 3 * ReachabilityIndex.MIN_COMPACTION_IDS; line++) {
+            ClassNode moved = new ClassNode("A", SourceLocation.at("A.java", line, 1), List.of(),
+                    Map.of("superclass", "B"));
+            builder.applyFileDelta("A.java", previous, moved);
+            previous = moved;
+            assertTrue(index.isReachable("class:A@A.java:" + line + ":1", "class:Base"));
+        }
+
+        Map<String, Object> stats = index.getStatistics();
+        assertTrue((Integer) stats.get("stableIds") <= ReachabilityIndex.MIN_COMPACTION_IDS);
+        assertTrue((Long) stats.get("compactions") >= 2);
+        assertEquals(Set.of("class:A@A.java:" + 3 * ReachabilityIndex.MIN_COMPACTION_IDS + ":1"),
+                index.getTransitiveDependents(keyOf("B")));
+    }
+
+    @Test
+    @DisplayName("Should share one closure across a strongly connected component")
+    void shouldShareClosureAcrossCycle() {
+        apply("A", "B");
+        apply("B", "A");
+
+        assertEquals(Set.of(keyOf("B")), index.getTransitiveDependents(keyOf("A")));
+        long missesBefore = (Long) index.getStatistics().get("misses");
+
+        assertEquals(Set.of(keyOf("A")), index.getTransitiveDependents(keyOf("B")));
+        assertEquals(missesBefore, index.getStatistics().get("misses"));
+    }
+
+    @Test
+    @DisplayName("Should invalidate only closures affected by an edit")
+    void shouldInvalidateAffectedClosures() {
+        ClassNode a = apply("A", "B");
+        apply("B", "C");
+        apply("X", "Y");
+        assertTrue(index.isReachable(keyOf("A"), "class:C"));
+        assertTrue(index.isReachable(keyOf("X"), "class:Y"));
+
+        ClassNode edited = new ClassNode("A", SourceLocation.at("A.java", 1, 1), List.of(),
+                Map.of("superclass", "Y"));
+        builder.applyFileDelta("A.java", a, edited);
+
+        assertFalse(index.isReachable(keyOf("A"), "class:C"));
+        assertTrue(index.isReachable(keyOf("A"), "class:Y"));
+        assertEquals(Set.of(keyOf("A"), keyOf("X")), index.getTransitiveDependents("class:Y"));
+        assertTrue((Long) index.getStatistics().get("invalidations") > 0);
+
+        // The closure of X never mentioned A, so it survived the edit
+        long hitsBefore = (Long) index.getStatistics().get("hits");
+        assertTrue(index.isReachable(keyOf("X"), "class:Y"));
+        assertEquals(hitsBefore + 1, index.getStatistics().get("hits"));
+    }
+
+    @Test
+    @DisplayName("Should return nothing for unknown keys")
+    void shouldHandleUnknownKeys() {
+        apply("A", "B");
+
+        assertTrue(index.getTransitiveDependents("class:Missing").isEmpty());
+        assertFalse(index.isReachable("class:Missing", keyOf("A")));
+        assertTrue(index.isReachable("class:Missing", "class:Missing"));
+    }
+}
@@ -0,0 +1,164 @@
+package com.ailearning.core.service.impl;
+
+import com.ailearning.core.model.AnalysisResult;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for the content-addressed store of analysis results.
+ */
+class AnalysisCacheTest {
+
+    private static final String CODE = """
+            public class Report {
+                public String render(List<String> rows) {
+                    String out = "";
+                    for (String row : rows) {
+                        out += row;
+                    }
+                    return out;
+                }
+            }
+            """;
+
+    private AnalysisCache cache;
+
+    @BeforeEach
+    void setUp() {
+        cache = new AnalysisCache(2);
+    }
+
+    private static AnalysisCache.Entry entry(String summary) {
+        return new AnalysisCache.Entry(new AnalysisResult(summary), null);
+    }
+
+    @Nested
+    @DisplayName("Keys")
+    class Keys {
+
+        @Test
+        @DisplayName("Should address analyses by code, language and rule set version")
+        void shouldAddressByContent() {
+            String key = AnalysisCache.key(CODE, "java", "v1", "ast");
+
+            assertEquals(key, AnalysisCache.key(new String(CODE), "JAVA", "v1", "ast"));
+            assertEquals(64, key.length());
+            assertNotEquals(key, AnalysisCache.key(CODE + " ", "java", "v1", "ast"));
+            assertNotEquals(key, AnalysisCache.key(CODE, "kotlin", "v1", "ast"));
+            assertNotEquals(key, AnalysisCache.key(CODE, "java", "v2", "ast"));
+        }
+
+        @Test
+        @DisplayName("Should keep complexity from a tree apart from complexity from text")
+        void shouldSeparateComplexitySources() {
+            assertNotEquals(AnalysisCache.key(CODE, "java", "v1", "ast"), AnalysisCache.key(CODE, "java", "v1", "text"));
+        }
+
+        @Test
+        @DisplayName("Should not let the language run into the version")
+        void shouldSeparateFields() {
+            assertNotEquals(AnalysisCache.key(CODE, "java", "script", "ast"), AnalysisCache.key(CODE, "javascript", "", "ast"));
+        }
+    }
+
+    @Nested
+    @DisplayName("Store")
+    class Store {
+
+        @Test
+        @DisplayName("Should return stored analyses and count hits and misses")
+        void shouldCountHitsAndMisses() {
+            String key = AnalysisCache.key(CODE, "java", "v1", "ast");
+            AnalysisCache.Entry entry = entry("report");
+
+            assertNull(cache.get(key));
+            cache.put(key, entry);
+            assertSame(entry, cache.get(key));
+            assertSame(entry, cache.get(key));
+
+            Map<String, Object> stats = cache.getStatistics();
+            assertEquals(1, stats.get("entries"));
+            assertEquals(2L, stats.get("hits"));
+            assertEquals(1L, stats.get("misses"));
+            assertEquals(2.0 / 3, cache.getHitRate(), 1e-9);
+        }
+
+        @Test
+        @DisplayName("Should evict the least recently used analysis beyond its size")
+        void shouldEvictLeastRecentlyUsed() {
+            cache.put("a", entry("a"));
+            cache.put("b", entry("b"));
+            cache.get("a");
+            cache.put("c", entry("c"));
+
+            assertEquals(2, cache.size());
+            assertNotNull(cache.get("a"));
+            assertNull(cache.get("b"));
+            assertNotNull(cache.get("c"));
+            assertEquals(1L, cache.getStatistics().get("evictions"));
+        }
+
+        @Test
+        @DisplayName("Should keep nothing when disabled")
+        void shouldKeepNothingWhenDisabled() {
+            AnalysisCache disabled = new AnalysisCache(0);
+            disabled.put("a", entry("a"));
+
+            assertNull(disabled.get("a"));
+            assertEquals(0.0, disabled.getHitRate());
+            assertThrows(IllegalArgumentException.class, () -> new AnalysisCache(-1));
+        }
+    }
+
+    @Nested
+    @DisplayName("Entries")
+    class Entries {
+
+        @Test
+        @DisplayName("Should report the stored findings in a new result each time")
+        void shouldCreateFreshResults() {
+            AnalysisResult analyzed = new AnalysisResult("report");
+            AnalysisCache.Entry entry = new AnalysisCache.Entry(analyzed, null);
+
+            AnalysisResult first = entry.newResult(3);
+            AnalysisResult second = entry.newResult(1);
+
+            assertNotEquals(analyzed.getAnalysisId(), first.getAnalysisId());
+            assertNotEquals(first.getAnalysisId(), second.getAnalysisId());
+            assertEquals(3, first.getAnalysisTimeMs());
+            assertEquals(1, second.getAnalysisTimeMs());
+            assertEquals(analyzed.getSummary(), second.getSummary());
+            assertEquals(analyzed.getStatus(), second.getStatus());
+            assertEquals(analyzed.getComplexityMetrics(), second.getComplexityMetrics());
+        }
+
+        @Test
+        @DisplayName("Should derive quality suggestions from the scan once")
+        void shouldDeriveSuggestionsOnce() {
+            RuleEngine.Scan scanned = RuleEngine.standard().scan(CODE, "java");
+            AnalysisCache.Entry entry = new AnalysisCache.Entry(new AnalysisResult("report"), scanned);
+            AtomicInteger derivations = new AtomicInteger();
+
+            for (int i = 0; i < 3; i++) {
+                entry.getQualitySuggestions(scan -> {
+                    derivations.incrementAndGet();
+                    assertSame(scanned, scan);
+                    return List.of();
+                });
+            }
+
+            assertEquals(1, derivations.get());
+            assertEquals(List.of(), entry("report").getQualitySuggestions(scan -> {
+                throw new AssertionError("No scan to derive from");
+            }));
+        }
+    }
+}
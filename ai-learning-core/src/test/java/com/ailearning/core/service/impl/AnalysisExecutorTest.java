@@ -0,0 +1,288 @@
+package com.ailearning.core.service.impl;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for the bounded analysis executor: queue limits, cancellation and deadlines.
+ */
+class AnalysisExecutorTest {
+
+    private AnalysisExecutor executor;
+
+    @AfterEach
+    void tearDown() {
+        if (executor != null) {
+            executor.shutdown();
+        }
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            assertTrue(latch.await(5, TimeUnit.SECONDS), "Timed out waiting for latch");
+        } catch (InterruptedException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static Throwable failure(CompletableFuture<?> future) throws InterruptedException {
+        ExecutionException e = assertThrows(ExecutionException.class, () -> future.get(5, TimeUnit.SECONDS));
+        return e.getCause();
+    }
+
+    @Nested
+    @DisplayName("Bounds")
+    class Bounds {
+
+        @Test
+        @DisplayName("Should reject submissions beyond the queue capacity")
+        void shouldRejectWhenQueueFull() throws Exception {
+            executor = new AnalysisExecutor(1, 2, Duration.ofSeconds(10));
+            CountDownLatch started = new CountDownLatch(1);
+            CountDownLatch release = new CountDownLatch(1);
+
+            CompletableFuture<String> running = executor.submit(() -> {
+                started.countDown();
+                await(release);
+                return "running";
+            });
+            await(started);
+            CompletableFuture<String> first = executor.submit(() -> "first");
+            CompletableFuture<String> second = executor.submit(() -> "second");
+            CompletableFuture<String> rejected = executor.submit(() -> "rejected");
+
+            assertInstanceOf(RejectedExecutionException.class, failure(rejected));
+            assertEquals(2, executor.getQueueSize());
+            assertEquals(1, executor.getRejectedCount());
+
+            release.countDown();
+            assertEquals("running", running.get(5, TimeUnit.SECONDS));
+            assertEquals("first", first.get(5, TimeUnit.SECONDS));
+            assertEquals("second", second.get(5, TimeUnit.SECONDS));
+        }
+
+        @Test
+        @DisplayName("Should reject submissions after shutdown")
+        void shouldRejectAfterShutdown() throws Exception {
+            executor = new AnalysisExecutor(1, 1, Duration.ofSeconds(10));
+            executor.shutdown();
+
+            assertInstanceOf(RejectedExecutionException.class, failure(executor.submit(() -> "late")));
+        }
+
+        @Test
+        @DisplayName("Should validate its limits")
+        void shouldValidateLimits() {
+            assertThrows(IllegalArgumentException.class, () -> new AnalysisExecutor(0, 1, Duration.ofSeconds(1)));
+            assertThrows(IllegalArgumentException.class, () -> new AnalysisExecutor(1, 0, Duration.ofSeconds(1)));
+            assertThrows(IllegalArgumentException.class, () -> new AnalysisExecutor(1, 1, Duration.ZERO));
+            assertThrows(NullPointerException.class, () -> new AnalysisExecutor(1, 1, null));
+        }
+    }
+
+    @Nested
+    @DisplayName("Cancellation")
+    class Cancellation {
+
+        @Test
+        @DisplayName("Should interrupt a running analysis when its future is cancelled")
+        void shouldInterruptOnCancel() throws Exception {
+            executor = new AnalysisExecutor(1, 4, Duration.ofSeconds(10));
+            CountDownLatch started = new CountDownLatch(1);
+            CountDownLatch interrupted = new CountDownLatch(1);
+
+            CompletableFuture<String> future = executor.submit(() -> {
+                started.countDown();
+                try {
+                    Thread.sleep(10_000);
+                    return "finished";
+                } catch (InterruptedException e) {
+                    interrupted.countDown();
+                    return "interrupted";
+                }
+            });
+            await(started);
+
+            assertTrue(future.cancel(true));
+            await(interrupted);
+            assertTrue(future.isCancelled());
+        }
+
+        @Test
+        @DisplayName("Should drop a queued analysis when its future is cancelled")
+        void shouldDropQueuedOnCancel() throws Exception {
+            executor = new AnalysisExecutor(1, 4, Duration.ofSeconds(10));
+            CountDownLatch release = new CountDownLatch(1);
+            List<String> ran = new ArrayList<>();
+
+            CompletableFuture<Void> blocker = executor.submit(() -> {
+                await(release);
+                return null;
+            });
+            CompletableFuture<String> queued = executor.submit(() -> {
+                ran.add("queued");
+                return "queued";
+            });
+
+            assertTrue(queued.cancel(true));
+            assertEquals(0, executor.getQueueSize());
+            release.countDown();
+            blocker.get(5, TimeUnit.SECONDS);
+
+            assertTrue(ran.isEmpty());
+            assertEquals(1L, executor.getStatistics().get("cancelled"));
+        }
+
+        @Test
+        @DisplayName("Should not leak an interrupt into the next analysis on the same thread")
+        void shouldNotLeakInterrupt() throws Exception {
+            executor = new AnalysisExecutor(1, 4, Duration.ofSeconds(10));
+            CountDownLatch started = new CountDownLatch(1);
+            CountDownLatch cancelled = new CountDownLatch(1);
+
+            CompletableFuture<String> first = executor.submit(() -> {
+                started.countDown();
+                await(cancelled);
+                // Ignores the interrupt and finishes normally
+                return "first";
+            });
+            await(started);
+            first.cancel(true);
+            cancelled.countDown();
+
+            assertFalse(executor.submit(() -> Thread.currentThread().isInterrupted()).get(5, TimeUnit.SECONDS));
+        }
+    }
+
+    @Nested
+    @DisplayName("Deadlines")
+    class Deadlines {
+
+        @Test
+        @DisplayName("Should let a deadline-aware analysis return a partial result")
+        void shouldReturnPartialResult() throws Exception {
+            executor = new AnalysisExecutor(1, 4, Duration.ofMillis(100));
+
+            CompletableFuture<Integer> future = executor.submitWithDeadline(deadline -> {
+                int steps = 0;
+                while (!deadline.isExpired()) {
+                    steps++;
+                    try {
+                        Thread.sleep(5);
+                    } catch (InterruptedException e) {
+                        assertTrue(deadline.isExpired());
+                    }
+                }
+                assertEquals(Duration.ZERO, deadline.remaining());
+                return steps;
+            });
+
+            assertTrue(future.get(5, TimeUnit.SECONDS) > 0);
+        }
+
+        @Test
+        @DisplayName("Should fail a plain analysis that misses its deadline")
+        void shouldTimeOutPlainTask() throws Exception {
+            executor = new AnalysisExecutor(1, 4, Duration.ofMillis(100));
+            CountDownLatch interrupted = new CountDownLatch(1);
+
+            CompletableFuture<String> future = executor.submit(() -> {
+                try {
+                    Thread.sleep(10_000);
+                    return "finished";
+                } catch (InterruptedException e) {
+                    interrupted.countDown();
+                    return "interrupted";
+                }
+            });
+
+            assertInstanceOf(TimeoutException.class, failure(future));
+            await(interrupted);
+            assertEquals(1L, executor.getStatistics().get("timedOut"));
+        }
+
+        @Test
+        @DisplayName("Should still run a queued deadline-aware analysis with an expired deadline")
+        void shouldCompleteQueuedPartialTask() throws Exception {
+            executor = new AnalysisExecutor(1, 4, Duration.ofMillis(100));
+            CountDownLatch release = new CountDownLatch(1);
+
+            executor.submitWithDeadline(deadline -> {
+                // Holds the only thread past both deadlines
+                while (release.getCount() > 0) {
+                    try {
+                        release.await();
+                    } catch (InterruptedException e) {
+                        assertTrue(deadline.isExpired());
+                    }
+                }
+                return null;
+            });
+            CompletableFuture<Boolean> queued = executor.submitWithDeadline(deadline -> deadline.isExpired());
+
+            Thread.sleep(200);
+            release.countDown();
+
+            assertTrue(queued.get(5, TimeUnit.SECONDS));
+        }
+    }
+
+    @Nested
+    @DisplayName("Statistics")
+    class Statistics {
+
+        @Test
+        @DisplayName("Should count submitted and completed analyses")
+        void shouldCountAnalyses() throws Exception {
+            executor = new AnalysisExecutor(2, 8, Duration.ofSeconds(10));
+
+            List<CompletableFuture<Integer>> futures = new ArrayList<>();
+            for (int i = 0; i < 5; i++) {
+                int value = i;
+                futures.add(executor.submit(() -> value * 2));
+            }
+            for (CompletableFuture<Integer> future : futures) {
+                future.get(5, TimeUnit.SECONDS);
+            }
+
+            // Completion is counted just after the future completes
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+            while (!Long.valueOf(5).equals(executor.getStatistics().get("completed"))
+                    && System.nanoTime() < deadline) {
+                Thread.sleep(5);
+            }
+            assertEquals(5L, executor.getStatistics().get("submitted"));
+            assertEquals(5L, executor.getStatistics().get("completed"));
+        }
+
+        @Test
+        @DisplayName("Should expose limits and counters")
+        void shouldExposeStatistics() throws Exception {
+            executor = new AnalysisExecutor(3, 16, Duration.ofSeconds(10));
+            executor.submit(() -> "done").get(5, TimeUnit.SECONDS);
+
+            Map<String, Object> stats = executor.getStatistics();
+
+            assertEquals(3, stats.get("threads"));
+            assertEquals(16, stats.get("queueCapacity"));
+            assertEquals(1L, stats.get("submitted"));
+            assertEquals(0L, stats.get("rejected"));
+            assertEquals(Duration.ofSeconds(10), executor.getDeadline());
+        }
+    }
+}
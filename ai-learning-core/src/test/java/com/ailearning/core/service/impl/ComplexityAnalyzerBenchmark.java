@@ -0,0 +1,46 @@
+package com.ailearning.core.service.impl;
+
+import com.ailearning.core.model.ast.ASTNode;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Timings of lexer and AST complexity analysis on 900 methods, run with the benchmark profile.
+ */
+@Tag("benchmark")
+class ComplexityAnalyzerBenchmark {
+
+    private static final Logger logger = LoggerFactory.getLogger(ComplexityAnalyzerBenchmark.class);
+
+    @Test
+    @DisplayName("Compute per-method complexity by lexer and by AST traversal")
+    void throughput() {
+        ComplexityAnalyzer analyzer = new ComplexityAnalyzer();
+        StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < 300; i++) {
+            builder.append(ComplexityAnalyzerTest.JAVA_CODE.replace("OrderService", "OrderService" + i));
+        }
+        String code = builder.toString();
+        ASTNode root = ComplexityAnalyzerTest.parseJava(code);
+
+        int lexerMethods = 0;
+        int astMethods = 0;
+        long lexerNanos = 0;
+        long astNanos = 0;
+        for (int round = 0; round < 3; round++) {
+            long start = System.nanoTime();
+            lexerMethods = analyzer.report(code, "java").getMethods().size();
+            lexerNanos = System.nanoTime() - start;
+
+            start = System.nanoTime();
+            astMethods = analyzer.report(root, code, "java").getMethods().size();
+            astNanos = System.nanoTime() - start;
+        }
+
+        logger.info("{} lines: lexer {} ms ({} methods), AST traversal {} ms ({} methods)",
+                code.split("\n").length, lexerNanos / 1_000_000, lexerMethods, astNanos / 1_000_000, astMethods);
+    }
+}
@@ -0,0 +1,311 @@
+package com.ailearning.core.service.impl;
+
+import com.ailearning.core.model.ComplexityMetrics;
+import com.ailearning.core.model.ast.ASTNode;
+import com.ailearning.core.model.ast.ASTTraversal;
+import com.ailearning.core.model.ast.MethodNode;
+import com.ailearning.core.model.ast.ModuleNode;
+import com.ailearning.core.model.ast.SourceLocation;
+import com.ailearning.core.model.ast.TraversalVisitor;
+import com.ailearning.core.service.ast.ParseBudget;
+import com.ailearning.core.service.ast.impl.JavaASTParser;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for per-method complexity from the AST and from the fallback lexer.
+ */
+class ComplexityAnalyzerTest {
+
+    static final String JAVA_CODE = """
+            public class OrderService {
+                private final int limit = flag ? 1 : 2;
+
+                public int score(Order order) {
+                    int total = 0;
+                    for (Item item : order.getItems()) {
+                        if (item.isActive() && item.getPrice() > 0) {
+                            total += item.getPrice();
+                        } else if (item.isGift()) {
+                            total += 1;
+                        } else {
+                            total -= 1;
+                        }
+                    }
+                    return total > limit ? total : limit;
+                }
+
+                public String describe(Order order) {
+                    switch (order.getStatus()) {
+                        case NEW:
+                            return "new";
+                        case SHIPPED:
+                            return "shipped";
+                        default:
+                            return "unknown";
+                    }
+                }
+
+                public void process(List<Order> orders) {
+                    orders.forEach(order -> {
+                        try {
+                            if (order.isValid()) {
+                                submit(order);
+                            }
+                        } catch (IllegalStateException e) {
+                            log(e);
+                        }
+                    });
+                }
+            }
+            """;
+
+    private static final String PYTHON_CODE = """
+            class Cart:
+                def total(self, items):
+                    result = 0
+                    for item in items:
+                        if item.price > 0 and item.active:
+                            result += item.price
+                        elif item.gift:
+                            result += 1
+                    return result if result else 0
+
+                def name(self):
+                    # if this were code it would count
+                    return "if or and"
+            """;
+
+    private static final String JAVASCRIPT_CODE = """
+            const pattern = /["'{]/g;
+            function check(input) {
+              if (!input) {
+                return false;
+              }
+              return items.filter((x) => {
+                return x > 0 || x < -10;
+              }).length > 0;
+            }
+            const handler = (event) => {
+              return event.ok ? 1 : 0;
+            };
+            """;
+
+    private ComplexityAnalyzer analyzer;
+
+    @BeforeEach
+    void setUp() {
+        analyzer = new ComplexityAnalyzer();
+    }
+
+    private static ComplexityMetrics method(ComplexityAnalyzer.Report report, String name) {
+        return report.getMethods().stream()
+                .filter(method -> method.getName().equals(name))
+                .findFirst()
+                .orElseThrow(() -> new AssertionError("No method " + name + " in " + report.getMethods()))
+                .getMetrics();
+    }
+
+    private static void assertMetrics(ComplexityMetrics metrics, int cyclomatic, int cognitive, int nesting) {
+        assertEquals(cyclomatic, metrics.getCyclomaticComplexity(), "cyclomatic");
+        assertEquals(cognitive, metrics.getCognitiveComplexity(), "cognitive");
+        assertEquals(nesting, metrics.getNestingDepth(), "nesting");
+    }
+
+    private static void assertJavaSample(ComplexityAnalyzer.Report report) {
+        assertEquals(List.of("score", "describe", "process"),
+                report.getMethods().stream().map(ComplexityAnalyzer.MethodComplexity::getName).toList());
+        assertMetrics(method(report, "score"), 6, 7, 2);
+        assertMetrics(method(report, "describe"), 3, 1, 1);
+        assertMetrics(method(report, "process"), 3, 4, 2);
+
+        // Methods plus the ternary in the field initializer
+        ComplexityMetrics file = report.getFileMetrics();
+        assertMetrics(file, 13, 13, 2);
+        assertEquals(3, file.getNumberOfMethods());
+        assertEquals(1, file.getNumberOfClasses());
+    }
+
+    static ASTNode parseJava(String code) {
+        return new JavaASTParser(ParseBudget.unlimited())
+                .parseCode(code, "java", "OrderService.java").join().getRootNode();
+    }
+
+    @Nested
+    @DisplayName("Lexer")
+    class Lexer {
+
+        @Test
+        @DisplayName("Should compute per-method Java complexity")
+        void shouldComputeJavaMethods() {
+            ComplexityAnalyzer.Report report = analyzer.report(JAVA_CODE, "java");
+
+            assertJavaSample(report);
+            assertEquals(4, report.getMethods().get(0).getLine());
+            assertEquals(13, method(report, "score").getLinesOfCode());
+        }
+
+        @Test
+        @DisplayName("Should ignore keywords in comments and literals")
+        void shouldIgnoreCommentsAndLiterals() {
+            String code = """
+                    class Notes {
+                        // if (a && b) while
+                        /* for (;;) { */
+                        String text = "if (x) { while (y) }";
+                        char brace = '{';
+                        String block = \"""
+                            case ? :
+                            \""";
+                        void run() {
+                            log("case ? :");
+                        }
+                    }
+                    """;
+
+            ComplexityAnalyzer.Report report = analyzer.report(code, "java");
+
+            assertEquals(1, report.getMethods().size());
+            assertMetrics(method(report, "run"), 1, 0, 0);
+            assertMetrics(report.getFileMetrics(), 1, 0, 0);
+            assertEquals(10, report.getFileMetrics().getLinesOfCode());
+        }
+
+        @Test
+        @DisplayName("Should charge one cognitive point per run of like boolean operators")
+        void shouldCountBooleanRuns() {
+            String code = """
+                    class Flags {
+                        boolean same() { return a && b && c; }
+                        boolean mixed() { return a && b || c; }
+                        boolean grouped() { return a && (b && c); }
+                    }
+                    """;
+
+            ComplexityAnalyzer.Report report = analyzer.report(code, "java");
+
+            assertMetrics(method(report, "same"), 3, 1, 0);
+            assertMetrics(method(report, "mixed"), 3, 2, 0);
+            assertMetrics(method(report, "grouped"), 3, 1, 0);
+        }
+
+        @Test
+        @DisplayName("Should not mistake generics, calls or anonymous classes for branches and methods")
+        void shouldRecogniseDeclarations() {
+            String code = """
+                    class Registry {
+                        @SuppressWarnings("unchecked")
+                        public <T> Map<String, ?> lookup(Class<? extends T> type) throws IOException {
+                            Runnable task = new Runnable() {
+                                public void run() {
+                                    do {
+                                        step();
+                                    } while (pending());
+                                }
+                            };
+                            return helper.find(type);
+                        }
+                    }
+                    """;
+
+            ComplexityAnalyzer.Report report = analyzer.report(code, "java");
+
+            assertEquals(List.of("lookup", "run"),
+                    report.getMethods().stream().map(ComplexityAnalyzer.MethodComplexity::getName).toList());
+            assertMetrics(method(report, "lookup"), 1, 0, 0);
+            assertMetrics(method(report, "run"), 2, 1, 1);
+        }
+
+        @Test
+        @DisplayName("Should follow Python blocks by indentation")
+        void shouldComputePythonMethods() {
+            ComplexityAnalyzer.Report report = analyzer.report(PYTHON_CODE, "python");
+
+            assertMetrics(method(report, "total"), 6, 6, 2);
+            assertMetrics(method(report, "name"), 1, 0, 0);
+            assertEquals(8, method(report, "total").getLinesOfCode());
+            assertEquals(2, report.getFileMetrics().getNumberOfMethods());
+            assertEquals(1, report.getFileMetrics().getNumberOfClasses());
+        }
+
+        @Test
+        @DisplayName("Should handle JavaScript functions, arrows and regex literals")
+        void shouldComputeJavaScriptMethods() {
+            ComplexityAnalyzer.Report report = analyzer.report(JAVASCRIPT_CODE, "javascript");
+
+            assertEquals(List.of("check", "handler"),
+                    report.getMethods().stream().map(ComplexityAnalyzer.MethodComplexity::getName).toList());
+            assertMetrics(method(report, "check"), 3, 2, 1);
+            assertMetrics(method(report, "handler"), 2, 1, 1);
+        }
+
+        @Test
+        @DisplayName("Should keep file-level metrics for the existing analyze entry point")
+        void shouldKeepFileMetrics() {
+            ComplexityMetrics metrics = analyzer.analyze(JAVA_CODE, "java");
+
+            assertEquals(analyzer.report(JAVA_CODE, "java").getFileMetrics(), metrics);
+            assertTrue(metrics.getLinesOfCode() > 30);
+            assertTrue(metrics.getMaintainabilityIndex() >= 0 && metrics.getMaintainabilityIndex() <= 100);
+        }
+    }
+
+    @Nested
+    @DisplayName("AST")
+    class Ast {
+
+        @Test
+        @DisplayName("Should compute the same per-method complexity from the AST as the lexer")
+        void shouldMatchLexer() {
+            ComplexityAnalyzer.Report report = analyzer.report(parseJava(JAVA_CODE), JAVA_CODE, "java");
+
+            assertJavaSample(report);
+            assertEquals(analyzer.report(JAVA_CODE, "java").getFileMetrics(), report.getFileMetrics());
+        }
+
+        @Test
+        @DisplayName("Should take lines of code from locations without source text")
+        void shouldUseLocationsWithoutSource() {
+            ComplexityAnalyzer.Report report = analyzer.report(parseJava(JAVA_CODE));
+
+            assertMetrics(method(report, "score"), 6, 7, 2);
+            assertEquals(13, method(report, "score").getLinesOfCode());
+        }
+
+        @Test
+        @DisplayName("Should fall back to the lexer when the AST has no method bodies")
+        void shouldFallBackWithoutStatements() {
+            ASTNode root = new ModuleNode("module", "module", SourceLocation.at("cart.py", 1, 1),
+                    List.of(new MethodNode("total", SourceLocation.at("cart.py", 2, 5), List.of(), Map.of()),
+                            new MethodNode("name", SourceLocation.at("cart.py", 11, 5), List.of(), Map.of())),
+                    Map.of());
+
+            ComplexityAnalyzer.Report report = analyzer.report(root, PYTHON_CODE, "python");
+
+            assertMetrics(method(report, "total"), 6, 6, 2);
+            assertEquals(analyzer.report(PYTHON_CODE, "python").getFileMetrics(), report.getFileMetrics());
+        }
+
+        @Test
+        @DisplayName("Should share a traversal with other visitors")
+        void shouldShareTraversal() {
+            ASTNode root = parseJava(JAVA_CODE);
+            AtomicInteger nodes = new AtomicInteger();
+            ComplexityAnalyzer.ComplexityCollector collector = analyzer.newCollector();
+
+            ASTTraversal.walk(root, collector, TraversalVisitor.of(node -> nodes.incrementAndGet()));
+
+            assertTrue(collector.hasStatements());
+            assertTrue(nodes.get() > 20);
+            assertMetrics(method(collector.getReport(0), "process"), 3, 4, 2);
+        }
+    }
+}
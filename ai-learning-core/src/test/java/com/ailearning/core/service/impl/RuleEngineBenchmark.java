@@ -0,0 +1,85 @@
+package com.ailearning.core.service.impl;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Pattern;
+
+/**
+ * Timings of the single-pass rule engine and its linear-time matcher, run with the benchmark profile.
+ */
+@Tag("benchmark")
+class RuleEngineBenchmark {
+
+    private static final Logger logger = LoggerFactory.getLogger(RuleEngineBenchmark.class);
+
+    @Test
+    @DisplayName("Scan 400 copies of a class with per-line rule loops and in a single pass")
+    void throughput() {
+        RuleEngine engine = RuleEngine.standard();
+        StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < 400; i++) {
+            builder.append(RuleEngineTest.JAVA_CODE.replace("UserService", "UserService" + i));
+        }
+        String code = builder.toString();
+        List<RuleEngine.Rule> javaRules = new ArrayList<>();
+        for (RuleEngine.Rule rule : engine.getRules()) {
+            if (rule.getLanguages().isEmpty() || rule.getLanguages().contains("java")) {
+                javaRules.add(rule);
+            }
+        }
+
+        int loopHits = 0;
+        int engineHits = 0;
+        long loopNanos = 0;
+        long engineNanos = 0;
+        for (int round = 0; round < 3; round++) {
+            loopHits = 0;
+            long start = System.nanoTime();
+            for (RuleEngine.Rule rule : javaRules) {
+                if (rule.isDocument()) {
+                    loopHits += rule.getPattern().matcher(code).find() ? 1 : 0;
+                    continue;
+                }
+                for (String line : code.split("\n")) {
+                    loopHits += rule.getPattern().matcher(line).find() ? 1 : 0;
+                }
+            }
+            loopNanos = System.nanoTime() - start;
+
+            start = System.nanoTime();
+            engineHits = engine.scan(code, "java").getHits().size();
+            engineNanos = System.nanoTime() - start;
+        }
+
+        logger.info("{} lines, {} rules: per-line loops {} ms ({} hits), single pass {} ms ({} hits), "
+                        + "{} evaluations skipped",
+                code.split("\n").length, javaRules.size(), loopNanos / 1_000_000, loopHits,
+                engineNanos / 1_000_000, engineHits, engine.getStatistics().get("skippedEvaluations"));
+    }
+
+    @Test
+    @DisplayName("Search a minified line by backtracking and in linear time")
+    void pathologicalLine() {
+        Pattern sql = Pattern.compile(".*\\+.*[\"'].*SELECT|INSERT|UPDATE|DELETE.*[\"'].*",
+                Pattern.CASE_INSENSITIVE);
+        LinearRegex linear = LinearRegex.compile(sql);
+        String line = "v=a+'b'+".repeat(60);
+
+        long start = System.nanoTime();
+        boolean backtracked = sql.matcher(line).find();
+        long backtrackNanos = System.nanoTime() - start;
+        start = System.nanoTime();
+        boolean found = linear.find(line, 0, line.length()) != LinearRegex.NO_MATCH;
+        long linearNanos = System.nanoTime() - start;
+
+        logger.info("{}-char line: backtracking {} ms (found {}), linear {} ms (found {}), {} DFA states",
+                line.length(), backtrackNanos / 1_000_000, backtracked, String.format("%.3f", linearNanos / 1e6),
+                found, linear.dfaStates());
+    }
+}
@@ -0,0 +1,453 @@
+package com.ailearning.core.service.impl;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.CancellationException;
+import java.util.regex.MatchResult;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for the single-pass rule engine shared by the code analyzers.
+ */
+class RuleEngineTest {
+
+    static final String JAVA_CODE = """
+            public class UserService {
+                private static final Map<String, User> CACHE = new HashMap<>();
+                String password = "hunter2";
+
+                public void load(String userId) {
+                    String query = "SELECT * FROM users WHERE id = " + userId;
+                    MessageDigest digest = MessageDigest.getInstance("MD5");
+                    Runtime.getRuntime().exec(command);
+                    ObjectInputStream in = new ObjectInputStream(stream);
+                    int Total = 42;
+                    Integer boxed = 7;
+                    if (name.equals("admin")) {
+                        try {
+                            list.size();
+                        } catch (Exception e) {}
+                    }
+                    for (int i = 0; i < 10; i++) {
+                        for (int j = 0; j < 10; j++) {
+                            User user = new User();
+                        }
+                    }
+                    // Gr\u00fc\u00dfe an alle, \u0435\u0449\u0451 \u043e\u0434\u043d\u0430, and a line that keeps going until it is well over the limit
+                    System.out.println(users.stream().filter(User::active).map(User::name).collect(toList()));
+                }
+            }
+            """;
+
+    private static final String JS_CODE = """
+            var total = 0;
+            if (a == b) { console.log(document.getElementById('x').innerHTML = input); }
+            eval(userInput);
+            for (let i = 0; i < items.length; i++) { text += "x"; }
+            """;
+
+    private RuleEngine engine;
+
+    @BeforeEach
+    void setUp() {
+        engine = RuleEngine.standard();
+    }
+
+    /**
+     * The hits of the per-line loops the analyzers ran before the engine,
+     * as "line:group:id" keys.
+     */
+    private static Set<String> legacyHits(RuleEngine engine, String code, String language) {
+        Set<String> hits = new LinkedHashSet<>();
+        String[] lines = code.split("\n");
+        for (RuleEngine.Rule rule : engine.getRules()) {
+            if (!rule.getLanguages().isEmpty() && !rule.getLanguages().contains(language)) {
+                continue;
+            }
+            if (rule.isDocument()) {
+                if (rule.getPattern().matcher(code).find()) {
+                    hits.add("doc:" + rule.getGroup() + ":" + rule.getId());
+                }
+                continue;
+            }
+            for (int i = 0; i < lines.length; i++) {
+                if (rule.getPattern().matcher(lines[i]).find()) {
+                    hits.add((i + 1) + ":" + rule.getGroup() + ":" + rule.getId());
+                }
+            }
+        }
+        return hits;
+    }
+
+    private Set<String> engineHits(RuleEngine.Scan scan) {
+        Set<String> hits = new LinkedHashSet<>();
+        for (RuleEngine.Hit hit : scan.getHits()) {
+            String line = isDocumentHit(hit) ? "doc" : String.valueOf(hit.getLine());
+            hits.add(line + ":" + hit.getGroup() + ":" + hit.getRuleId());
+        }
+        return hits;
+    }
+
+    private boolean isDocumentHit(RuleEngine.Hit hit) {
+        return engine.getRules().stream()
+                .anyMatch(rule -> rule.isDocument() && rule.getId().equals(hit.getRuleId())
+                        && rule.getGroup() == hit.getGroup());
+    }
+
+    @Nested
+    @DisplayName("Equivalence")
+    class Equivalence {
+
+        @Test
+        @DisplayName("Should find the same hits as matching every rule on every line")
+        void shouldMatchLegacyLoop() {
+            assertEquals(new TreeSet<>(legacyHits(engine, JAVA_CODE, "java")),
+                    new TreeSet<>(engineHits(engine.scan(JAVA_CODE, "java"))));
+            assertEquals(new TreeSet<>(legacyHits(engine, JS_CODE, "javascript")),
+                    new TreeSet<>(engineHits(engine.scan(JS_CODE, "javascript"))));
+        }
+
+        @Test
+        @DisplayName("Should order line hits by line and report columns and line text")
+        void shouldReportPositions() {
+            RuleEngine.Scan scan = engine.scan(JAVA_CODE, "JAVA");
+
+            int previous = 0;
+            for (RuleEngine.Hit hit : scan.getHits()) {
+                assertTrue(hit.getLine() >= previous || isDocumentHit(hit));
+                if (!isDocumentHit(hit)) {
+                    previous = hit.getLine();
+                }
+            }
+            RuleEngine.Hit md5 = scan.getHits(RuleEngine.RuleGroup.SECURITY).stream()
+                    .filter(hit -> hit.getLineText().contains("MD5"))
+                    .findFirst()
+                    .orElseThrow();
+            assertEquals(7, md5.getLine());
+            assertEquals(md5.getLineText().indexOf(md5.getMatch().group()), md5.getColumn());
+            assertEquals(JAVA_CODE.split("\n").length, scan.getLineCount());
+        }
+
+        @Test
+        @DisplayName("Should keep analyzer results unchanged when sharing one scan")
+        void shouldShareScanAcrossAnalyzers() {
+            RuleEngine.Scan scan = engine.scan(JAVA_CODE, "java");
+
+            assertEquals(new SecurityAnalyzer().analyze(JAVA_CODE, "java").size(),
+                    new SecurityAnalyzer(engine).analyze(scan).size());
+            assertEquals(new QualityAnalyzer().analyze(JAVA_CODE, "java").size(),
+                    new QualityAnalyzer(engine).analyze(scan, "java").size());
+            assertEquals(new PerformanceAnalyzer().analyzeSuggestions(JAVA_CODE, "java").size(),
+                    new PerformanceAnalyzer(engine).analyzeSuggestions(scan).size());
+            assertTrue(scan.hasHit(RuleEngine.RuleGroup.PERFORMANCE, "nested-loops"));
+        }
+    }
+
+    @Nested
+    @DisplayName("Prefilter")
+    class Prefilter {
+
+        @Test
+        @DisplayName("Should skip rules whose literals do not occur")
+        void shouldSkipRulesWithoutLiterals() {
+            RuleEngine engine = new RuleEngine(List.of(
+                    RuleEngine.Rule.line("todo", RuleEngine.RuleGroup.QUALITY, Set.of(),
+                            Pattern.compile("TODO:\\s*\\w+"), "TODO"),
+                    RuleEngine.Rule.line("any-digit", RuleEngine.RuleGroup.QUALITY, Set.of(),
+                            Pattern.compile("\\d"))));
+
+            RuleEngine.Scan scan = engine.scan("a\nb // TODO: fix\nc1\n", "java");
+
+            assertEquals(List.of("todo@2", "any-digit@3"), scan.getHits().stream()
+                    .map(hit -> hit.getRuleId() + "@" + hit.getLine())
+                    .toList());
+            // The literal rule only ran on the one line containing its literal
+            assertEquals(2L, engine.getStatistics().get("skippedEvaluations"));
+        }
+
+        @Test
+        @DisplayName("Should fold case only for case-insensitive patterns")
+        void shouldRespectPatternCase() {
+            RuleEngine engine = new RuleEngine(List.of(
+                    RuleEngine.Rule.line("insensitive", RuleEngine.RuleGroup.SECURITY, Set.of(),
+                            Pattern.compile("select\\s+\\*", Pattern.CASE_INSENSITIVE), "SELECT"),
+                    RuleEngine.Rule.line("sensitive", RuleEngine.RuleGroup.SECURITY, Set.of(),
+                            Pattern.compile("Select\\s+\\*"), "Select")));
+
+            RuleEngine.Scan scan = engine.scan("sElEcT *\nSelect *\n", "sql");
+
+            assertTrue(scan.hasHit(RuleEngine.RuleGroup.SECURITY, "insensitive"));
+            assertEquals(List.of(1, 2), scan.getHits().stream()
+                    .filter(hit -> hit.getRuleId().equals("insensitive"))
+                    .map(RuleEngine.Hit::getLine)
+                    .toList());
+            assertEquals(List.of(2), scan.getHits().stream()
+                    .filter(hit -> hit.getRuleId().equals("sensitive"))
+                    .map(RuleEngine.Hit::getLine)
+                    .toList());
+        }
+
+        @Test
+        @DisplayName("Should only run rules for the scanned language")
+        void shouldSelectRulesByLanguage() {
+            RuleEngine.Scan scan = engine.scan(JS_CODE, "python");
+
+            assertFalse(scan.hasHit(RuleEngine.RuleGroup.QUALITY, "js-console-log"));
+        }
+
+        @Test
+        @DisplayName("Should reject duplicate rule ids and non-ASCII literals")
+        void shouldValidateRules() {
+            RuleEngine.Rule rule = RuleEngine.Rule.line("dup", RuleEngine.RuleGroup.QUALITY, Set.of(),
+                    Pattern.compile("x"), "x");
+            assertThrows(IllegalArgumentException.class, () -> new RuleEngine(List.of(rule, rule)));
+            assertThrows(IllegalArgumentException.class, () -> RuleEngine.Rule.line("umlaut",
+                    RuleEngine.RuleGroup.QUALITY, Set.of(), Pattern.compile("\u00fc"), "\u00fc"));
+        }
+    }
+
+    @Nested
+    @DisplayName("Linear matching")
+    class LinearMatching {
+
+        // A group on a loop that can pass without consuming a character
+        private static final String EMPTY_LOOP = "(a|)+$";
+
+        private final String[] patterns = {
+                ".*\\+.*[\"'].*SELECT|INSERT|UPDATE|DELETE.*[\"'].*",
+                "\\b(int|String)\\s+([A-Z][a-zA-Z0-9_]*)\\b",
+                "^.{3,}$",
+                "\\Ba+\\B",
+                "[^a-c\\d]+x?",
+                "(?:ab|a)c{1,3}?d",
+                "\\Q+a\\E*b",
+                "for\\s*\\([^}]*\\{[^}]*for\\s*\\(",
+                EMPTY_LOOP,
+                "[\\w.]{2}\\W",
+                "(?<name>x|y)z",
+                "(a+?)(b*)(?:c|(\\d))",
+                "(a|ab)(c|bcd)?(d*)",
+        };
+
+        @Test
+        @DisplayName("Should compile every standard rule to a linear-time matcher")
+        void shouldCompileStandardRules() {
+            for (RuleEngine.Rule rule : engine.getRules()) {
+                assertTrue(rule.isLinear(), rule.getId());
+            }
+        }
+
+        @Test
+        @DisplayName("Should agree with java.util.regex on random regions")
+        void shouldAgreeWithBacktracking() {
+            String alphabet = "aAbcxyzST_ 1\"'+{}(\r\n\u00e9\u2029\ud83d\ude00";
+            Random random = new Random(47);
+            for (String source : patterns) {
+                for (int flags : new int[]{0, Pattern.CASE_INSENSITIVE, Pattern.DOTALL}) {
+                    Pattern pattern = Pattern.compile(source, flags);
+                    LinearRegex linear = LinearRegex.compile(pattern);
+                    assertNotNull(linear, source);
+                    for (int trial = 0; trial < 400; trial++) {
+                        StringBuilder text = new StringBuilder();
+                        int length = random.nextInt(12);
+                        for (int i = 0; i < length; i++) {
+                            text.append(alphabet.charAt(random.nextInt(alphabet.length())));
+                        }
+                        int from = random.nextInt(text.length() + 1);
+                        int to = from + random.nextInt(text.length() - from + 1);
+                        boolean expected = pattern.matcher(text).region(from, to).find();
+                        int actual = linear.find(text.toString(), from, to);
+                        if (actual == LinearRegex.UNDECIDED) {
+                            // Surrogates are left to the backtracking matcher
+                            assertTrue(text.substring(from, to).chars().anyMatch(c -> Character.isSurrogate((char) c)),
+                                    source + " on " + text);
+                            continue;
+                        }
+                        assertEquals(expected ? LinearRegex.MATCH : LinearRegex.NO_MATCH, actual,
+                                source + " on " + text + " [" + from + ", " + to + ")");
+                    }
+                }
+            }
+        }
+
+        @Test
+        @DisplayName("Should report the match and groups java.util.regex reports")
+        void shouldMatchLikeBacktracking() {
+            String alphabet = "aAbcdxyzST_ 1\"'+{}(\r\n\u00e9";
+            Random random = new Random(48);
+            for (String source : patterns) {
+                for (int flags : new int[]{0, Pattern.CASE_INSENSITIVE, Pattern.DOTALL}) {
+                    Pattern pattern = Pattern.compile(source, flags);
+                    LinearRegex linear = LinearRegex.compile(pattern);
+                    for (int trial = 0; trial < 400; trial++) {
+                        StringBuilder text = new StringBuilder();
+                        int length = random.nextInt(12);
+                        for (int i = 0; i < length; i++) {
+                            text.append(alphabet.charAt(random.nextInt(alphabet.length())));
+                        }
+                        int from = random.nextInt(text.length() + 1);
+                        int to = from + random.nextInt(text.length() - from + 1);
+                        Matcher expected = pattern.matcher(text).region(from, to);
+                        MatchResult actual = linear.match(text.toString(), from, to);
+                        String where = source + " on " + text + " [" + from + ", " + to + ")";
+                        if (!expected.find() || source.equals(EMPTY_LOOP)) {
+                            assertNull(actual, where);
+                            continue;
+                        }
+                        assertNotNull(actual, where);
+                        assertEquals(expected.groupCount(), actual.groupCount(), where);
+                        for (int group = 0; group <= expected.groupCount(); group++) {
+                            assertEquals(expected.start(group), actual.start(group), where + " group " + group);
+                            assertEquals(expected.end(group), actual.end(group), where + " group " + group);
+                        }
+                    }
+                }
+            }
+        }
+
+        @Test
+        @DisplayName("Should leave groups on empty loop passes to java.util.regex")
+        void shouldBacktrackForEmptyLoopGroups() {
+            RuleEngine.Rule rule = RuleEngine.Rule.line("empty-loop", RuleEngine.RuleGroup.QUALITY, Set.of(),
+                    Pattern.compile(EMPTY_LOOP));
+            RuleEngine.Scan scan = new RuleEngine(List.of(rule)).scan("ca", "java");
+
+            assertTrue(rule.isLinear());
+            assertEquals(1, scan.getHits().size());
+            assertEquals("", scan.getHits().get(0).getMatch().group(1));
+            assertEquals(2, scan.getHits().get(0).getMatch().start(1));
+        }
+
+        @Test
+        @DisplayName("Should reject syntax whose outcome depends on backtracking")
+        void shouldRejectUnsupportedSyntax() {
+            assertNull(LinearRegex.compile(Pattern.compile("(a)\\1")));
+            assertNull(LinearRegex.compile(Pattern.compile("a(?=b)")));
+            assertNull(LinearRegex.compile(Pattern.compile("a*+b")));
+            assertNull(LinearRegex.compile(Pattern.compile("(?i)a")));
+            assertNull(LinearRegex.compile(Pattern.compile("^a", Pattern.MULTILINE)));
+        }
+
+        @Test
+        @DisplayName("Should reject a long minified line without backtracking")
+        void shouldRejectPathologicalLine() {
+            String line = "x = a + 'b' + ".repeat(5_000);
+            LinearRegex sql = LinearRegex.compile(Pattern.compile(patterns[0], Pattern.CASE_INSENSITIVE));
+
+            assertEquals(LinearRegex.NO_MATCH, sql.find(line, 0, line.length()));
+            RuleEngine.Scan scan = engine.scan(line, "java");
+            assertTrue(scan.getDisabledRules().isEmpty());
+            assertFalse(scan.hasHit(RuleEngine.RuleGroup.SECURITY, "java-sql-injection"));
+        }
+    }
+
+    @Nested
+    @DisplayName("Budgets")
+    class Budgets {
+
+        // The backreference keeps this out of the linear subset, leaving exponential backtracking
+        private final RuleEngine.Rule catastrophic = RuleEngine.Rule.line("catastrophic",
+                RuleEngine.RuleGroup.PERFORMANCE, Set.of(), Pattern.compile("(a|aa)+\\1?b"));
+        private final RuleEngine.Rule letters = RuleEngine.Rule.line("letters",
+                RuleEngine.RuleGroup.PERFORMANCE, Set.of(), Pattern.compile("a{3}"));
+
+        @Test
+        @DisplayName("Should disable a rule for the rest of the scan after a match overruns")
+        @SuppressWarnings("unchecked")
+        void shouldDisableOnMatchBudget() {
+            RuleEngine engine = new RuleEngine(List.of(catastrophic, letters), Duration.ofMillis(20),
+                    Duration.ofSeconds(30));
+            String line = "a".repeat(60) + "!";
+
+            RuleEngine.Scan scan = engine.scan(line + "\n" + line + "\n", "java");
+
+            assertFalse(catastrophic.isLinear());
+            assertEquals(1, scan.getDisabledRules().size());
+            RuleEngine.DisabledRule disabled = scan.getDisabledRules().get(0);
+            assertEquals("catastrophic", disabled.getRuleId());
+            assertEquals(1, disabled.getLine());
+            assertEquals(RuleEngine.Budget.MATCH, disabled.getBudget());
+            // Other rules keep running
+            assertEquals(List.of(1, 2), scan.getHits().stream().map(RuleEngine.Hit::getLine).toList());
+            Map<String, Object> stats = (Map<String, Object>) ((Map<String, Object>) engine.getStatistics()
+                    .get("rules")).get("catastrophic");
+            assertEquals(1L, stats.get("timeouts"));
+            assertEquals(1L, stats.get("invocations"));
+            assertEquals(1L, engine.getStatistics().get("disabledRules"));
+        }
+
+        @Test
+        @DisplayName("Should disable a rule once its time for the scan is spent")
+        void shouldDisableOnFileBudget() {
+            RuleEngine engine = new RuleEngine(List.of(letters), Duration.ofSeconds(1), Duration.ofNanos(1));
+
+            RuleEngine.Scan scan = engine.scan("aaa\naaa\n", "java");
+
+            assertEquals(List.of(1), scan.getHits().stream().map(RuleEngine.Hit::getLine).toList());
+            assertEquals(RuleEngine.Budget.FILE, scan.getDisabledRules().get(0).getBudget());
+            // Budgets are per scan
+            assertEquals(1, engine.scan("aaa\n", "java").getHits().size());
+        }
+
+        @Test
+        @DisplayName("Should cancel the scan when its thread is interrupted")
+        void shouldCancelOnInterrupt() {
+            RuleEngine engine = new RuleEngine(List.of(catastrophic), Duration.ofSeconds(30), Duration.ofSeconds(30));
+            Thread.currentThread().interrupt();
+            try {
+                assertThrows(CancellationException.class, () -> engine.scan("a".repeat(60) + "!", "java"));
+            } finally {
+                Thread.interrupted();
+            }
+        }
+    }
+
+    @Nested
+    @DisplayName("Statistics")
+    class Statistics {
+
+        @Test
+        @DisplayName("Should count scans, invocations and hits per rule")
+        @SuppressWarnings("unchecked")
+        void shouldCountPerRule() {
+            engine.scan(JAVA_CODE, "java");
+            engine.scan(JAVA_CODE, "java");
+
+            Map<String, Object> stats = engine.getStatistics();
+            assertEquals(2L, stats.get("scans"));
+            Map<String, Object> rules = (Map<String, Object>) stats.get("rules");
+            Map<String, Object> md5 = (Map<String, Object>) rules.get("java-weak-crypto");
+            assertNotNull(md5, "weak crypto rule should be reported");
+            assertEquals(2L, md5.get("hits"));
+            assertTrue((long) md5.get("invocations") < 2L * JAVA_CODE.split("\n").length);
+            assertTrue((long) md5.get("totalNanos") >= 0);
+        }
+
+        @Test
+        @DisplayName("Should version the rule set by its rules")
+        void shouldVersionRuleSet() {
+            List<RuleEngine.Rule> rules = new ArrayList<>(engine.getRules());
+
+            assertEquals(engine.getVersion(), new RuleEngine(rules).getVersion());
+            assertEquals(engine.getVersion(), RuleEngine.standard().getVersion());
+
+            rules.add(RuleEngine.Rule.line("extra", RuleEngine.RuleGroup.QUALITY, Set.of("java"),
+                    Pattern.compile("FIXME"), "FIXME"));
+            assertNotEquals(engine.getVersion(), new RuleEngine(rules).getVersion());
+        }
+    }
+}
@@ -0,0 +1,52 @@
+package com.ailearning.core.service.semantic;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Random;
+
+/**
+ * Timings of bit-parallel edit distance against the full matrix, run with the benchmark profile.
+ */
+@Tag("benchmark")
+class StringSimilarityBenchmark {
+
+    private static final Logger logger = LoggerFactory.getLogger(StringSimilarityBenchmark.class);
+
+    private static final String IDENTIFIER_ALPHABET = "abcdefghijklmnopqrstuvwxyzABCDEFGHIJKLMNOPQRSTUVWXYZ_";
+
+    @Test
+    @DisplayName("Compare identifiers with a per-call matrix and bit-parallel distance")
+    void identifierDistances() {
+        Random random = new Random(31);
+        String[] names = new String[2000];
+        for (int i = 0; i < names.length; i++) {
+            names[i] = StringSimilarityTest.randomString(random, 40, IDENTIFIER_ALPHABET);
+        }
+
+        long matrixStart = System.nanoTime();
+        long matrixTotal = 0;
+        for (int i = 0; i < names.length; i++) {
+            for (int j = i; j < i + 200 && j < names.length; j++) {
+                matrixTotal += StringSimilarityTest.referenceDistance(names[i], names[j]);
+            }
+        }
+        long matrixNanos = System.nanoTime() - matrixStart;
+
+        long bitStart = System.nanoTime();
+        long bitTotal = 0;
+        for (int i = 0; i < names.length; i++) {
+            for (int j = i; j < i + 200 && j < names.length; j++) {
+                bitTotal += StringSimilarity.editDistance(names[i], names[j]);
+            }
+        }
+        long bitNanos = System.nanoTime() - bitStart;
+
+        logger.info("Identifier distances (total {} vs {}): matrix {} ms vs bit-parallel {} ms ({}x)",
+                matrixTotal, bitTotal, matrixNanos / 1_000_000, bitNanos / 1_000_000,
+                String.format("%.1f", (double) matrixNanos / Math.max(1, bitNanos)));
+    }
+}
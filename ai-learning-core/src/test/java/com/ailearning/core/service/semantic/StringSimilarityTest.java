@@ -0,0 +1,142 @@
+package com.ailearning.core.service.semantic;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for bit-parallel and banded edit distance.
+ */
+class StringSimilarityTest {
+
+    private static final String ALPHABET = "abcdeXY_\u00e9\u4e2d";
+
+    /** Full-matrix Levenshtein distance used as the reference. */
+    static int referenceDistance(String s1, String s2) {
+        int[][] dp = new int[s1.length() + 1][s2.length() + 1];
+        for (int i = 0; i <= s1.length(); i++) {
+            dp[i][0] = i;
+        }
+        for (int j = 0; j <= s2.length(); j++) {
+            dp[0][j] = j;
+        }
+        for (int i = 1; i <= s1.length(); i++) {
+            for (int j = 1; j <= s2.length(); j++) {
+                int cost = s1.charAt(i - 1) == s2.charAt(j - 1) ? 0 : 1;
+                dp[i][j] = Math.min(dp[i - 1][j - 1] + cost, Math.min(dp[i - 1][j], dp[i][j - 1]) + 1);
+            }
+        }
+        return dp[s1.length()][s2.length()];
+    }
+
+    private static String randomString(Random random, int maxLength) {
+        return randomString(random, maxLength, ALPHABET);
+    }
+
+    static String randomString(Random random, int maxLength, String alphabet) {
+        StringBuilder builder = new StringBuilder();
+        int length = random.nextInt(maxLength + 1);
+        for (int i = 0; i < length; i++) {
+            builder.append(alphabet.charAt(random.nextInt(alphabet.length())));
+        }
+        return builder.toString();
+    }
+
+    /** Applies a few random edits so that pairs are close as well as far apart. */
+    private static String mutate(Random random, String text, int edits) {
+        StringBuilder builder = new StringBuilder(text);
+        for (int e = 0; e < edits; e++) {
+            int position = builder.length() == 0 ? 0 : random.nextInt(builder.length());
+            char c = ALPHABET.charAt(random.nextInt(ALPHABET.length()));
+            switch (random.nextInt(3)) {
+                case 0 -> builder.insert(position, c);
+                case 1 -> {
+                    if (builder.length() > 0) builder.deleteCharAt(position);
+                }
+                default -> {
+                    if (builder.length() > 0) builder.setCharAt(position, c);
+                }
+            }
+        }
+        return builder.toString();
+    }
+
+    @Nested
+    @DisplayName("Distance")
+    class Distance {
+
+        @Test
+        @DisplayName("Should handle known pairs and empty strings")
+        void shouldHandleKnownPairs() {
+            assertEquals(3, StringSimilarity.editDistance("kitten", "sitting"));
+            assertEquals(0, StringSimilarity.editDistance("", ""));
+            assertEquals(4, StringSimilarity.editDistance("", "user"));
+            assertEquals(1, StringSimilarity.editDistance("getUser", "getUsers"));
+        }
+
+        @Test
+        @DisplayName("Should match the full matrix on short and long strings")
+        void shouldMatchReference() {
+            Random random = new Random(17);
+            for (int round = 0; round < 2000; round++) {
+                // Lengths straddle the 64-character word so both paths are covered
+                String a = randomString(random, round % 2 == 0 ? 70 : 150);
+                String b = random.nextBoolean() ? mutate(random, a, random.nextInt(8)) : randomString(random, 150);
+
+                assertEquals(referenceDistance(a, b), StringSimilarity.editDistance(a, b), a + " / " + b);
+            }
+        }
+
+        @Test
+        @DisplayName("Should return the exact distance within the bound and bound + 1 beyond it")
+        void shouldRespectBound() {
+            Random random = new Random(23);
+            for (int round = 0; round < 2000; round++) {
+                String a = randomString(random, round % 2 == 0 ? 60 : 140);
+                String b = mutate(random, a, random.nextInt(12));
+                int bound = random.nextInt(10);
+                int expected = referenceDistance(a, b);
+
+                int actual = StringSimilarity.boundedEditDistance(a, b, bound);
+                assertEquals(expected <= bound ? expected : bound + 1, actual, a + " / " + b + " k=" + bound);
+            }
+        }
+
+        @Test
+        @DisplayName("Should reject a negative bound")
+        void shouldRejectNegativeBound() {
+            assertThrows(IllegalArgumentException.class, () -> StringSimilarity.boundedEditDistance("a", "b", -1));
+        }
+    }
+
+    @Nested
+    @DisplayName("Similarity")
+    class Similarity {
+
+        @Test
+        @DisplayName("Should normalize by the longer length")
+        void shouldNormalizeByLongerLength() {
+            assertEquals(1.0, StringSimilarity.similarity("", ""));
+            assertEquals(0.8, StringSimilarity.similarity("user", "users"), 1e-9);
+            assertEquals(0.0, StringSimilarity.similarity("abc", "xyz"), 1e-9);
+        }
+
+        @Test
+        @DisplayName("Should agree with the similarity threshold")
+        void shouldAgreeWithThreshold() {
+            Random random = new Random(29);
+            for (int round = 0; round < 1000; round++) {
+                String a = randomString(random, 120);
+                String b = mutate(random, a, random.nextInt(30));
+                double threshold = random.nextDouble();
+
+                assertEquals(StringSimilarity.similarity(a, b) >= threshold - 1e-9,
+                        StringSimilarity.isSimilar(a, b, threshold));
+            }
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package com.ailearning.core.service.semantic.impl;
+
+import com.ailearning.core.model.ast.ASTNode;
+import com.ailearning.core.service.semantic.SimilarityMatrix;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Timings of the all-pairs similarity matrix against one future per pair, run with the benchmark profile.
+ */
+@Tag("benchmark")
+class BatchSimilarityCalculatorBenchmark {
+
+    private static final Logger logger = LoggerFactory.getLogger(BatchSimilarityCalculatorBenchmark.class);
+
+    @Test
+    @DisplayName("Compute all pairs with one future per pair and with the batch matrix")
+    void allPairs() {
+        SimilarityCalculator calculator = new SimilarityCalculator();
+        List<ASTNode> nodes = BatchSimilarityCalculatorTest.mixedNodes(new Random(9), 300);
+        double threshold = 0.7;
+
+        long perPairStart = System.nanoTime();
+        List<CompletableFuture<Double>> futures = new ArrayList<>();
+        for (int i = 0; i < nodes.size(); i++) {
+            for (int j = i + 1; j < nodes.size(); j++) {
+                ASTNode first = nodes.get(i);
+                ASTNode second = nodes.get(j);
+                futures.add(CompletableFuture.supplyAsync(() -> calculator.calculateSimilarity(first, second)));
+            }
+        }
+        long perPairKept = futures.stream().map(CompletableFuture::join).filter(s -> s >= threshold).count();
+        long perPairNanos = System.nanoTime() - perPairStart;
+
+        long batchStart = System.nanoTime();
+        SimilarityMatrix matrix = new BatchSimilarityCalculator(calculator).calculateMatrix(nodes, threshold);
+        long batchNanos = System.nanoTime() - batchStart;
+
+        logger.info("{} pairs: per-pair futures {} ms ({} kept) vs batch matrix {} ms ({} entries) ({}x)",
+                futures.size(), perPairNanos / 1_000_000, perPairKept, batchNanos / 1_000_000,
+                matrix.getEntryCount(), String.format("%.1f", (double) perPairNanos / Math.max(1, batchNanos)));
+    }
+}
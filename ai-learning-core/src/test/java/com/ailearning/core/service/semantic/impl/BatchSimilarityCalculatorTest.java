@@ -0,0 +1,235 @@
+package com.ailearning.core.service.semantic.impl;
+
+import com.ailearning.core.model.ast.ASTNode;
+import com.ailearning.core.model.ast.ClassNode;
+import com.ailearning.core.model.ast.ExpressionNode;
+import com.ailearning.core.model.ast.MethodNode;
+import com.ailearning.core.model.ast.SourceLocation;
+import com.ailearning.core.model.ast.StatementNode;
+import com.ailearning.core.model.ast.VariableNode;
+import com.ailearning.core.service.semantic.SimilarityMatrix;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for the parallel all-pairs similarity calculator.
+ */
+class BatchSimilarityCalculatorTest {
+
+    private static final String[] STATEMENTS = {"if", "for", "while", "return", "expression", "throw"};
+    private static final String[] WORDS = {"get", "set", "user", "order", "total", "load", "save", "item", "cache"};
+    private static final String[] TYPES = {"long", "String", "User", "Order", "boolean"};
+
+    private SimilarityCalculator calculator;
+
+    @BeforeEach
+    void setUp() {
+        calculator = new SimilarityCalculator();
+    }
+
+    private static MethodNode method(String file, String name, String returnType, List<String> parameterTypes,
+                                     String... statements) {
+        List<ASTNode> body = new ArrayList<>();
+        for (int i = 0; i < statements.length; i++) {
+            SourceLocation location = SourceLocation.at(file, i + 2, 9);
+            body.add(new StatementNode(statements[i], location,
+                    List.of(new ExpressionNode("methodcall", location, List.of(), Map.of())), Map.of()));
+        }
+        List<Map<String, String>> parameters = new ArrayList<>();
+        for (String type : parameterTypes) {
+            parameters.add(Map.of("name", "p" + parameters.size(), "type", type));
+        }
+        return new MethodNode(name, SourceLocation.at(file, 1, 5), body,
+                Map.of("returnType", returnType, "parameters", parameters));
+    }
+
+    private static MethodNode randomMethod(Random random, String file) {
+        String[] statements = new String[2 + random.nextInt(6)];
+        for (int s = 0; s < statements.length; s++) {
+            statements[s] = STATEMENTS[random.nextInt(STATEMENTS.length)];
+        }
+        List<String> parameterTypes = new ArrayList<>();
+        for (int p = random.nextInt(3); p > 0; p--) {
+            parameterTypes.add(TYPES[random.nextInt(TYPES.length)]);
+        }
+        String name = WORDS[random.nextInt(WORDS.length)] + WORDS[random.nextInt(WORDS.length)];
+        return method(file, name, TYPES[random.nextInt(TYPES.length)], parameterTypes, statements);
+    }
+
+    /** Methods, plus some classes and variables so that cross-type pairs occur. */
+    static List<ASTNode> mixedNodes(Random random, int count) {
+        List<ASTNode> nodes = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            String file = "F" + i + ".java";
+            switch (i % 5) {
+                case 3 -> nodes.add(new VariableNode(WORDS[random.nextInt(WORDS.length)], SourceLocation.at(file, 1, 5),
+                        List.of(), Map.of("type", TYPES[random.nextInt(TYPES.length)])));
+                case 4 -> nodes.add(new ClassNode("Service" + random.nextInt(4), SourceLocation.at(file, 1, 1),
+                        List.of(randomMethod(random, file), randomMethod(random, file)), Map.of()));
+                default -> nodes.add(randomMethod(random, file));
+            }
+        }
+        return nodes;
+    }
+
+    private Map<Long, Double> bruteForcePairs(List<ASTNode> nodes, double threshold) {
+        Map<Long, Double> pairs = new HashMap<>();
+        for (int i = 0; i < nodes.size(); i++) {
+            for (int j = i + 1; j < nodes.size(); j++) {
+                double similarity = calculator.calculateSimilarity(nodes.get(i), nodes.get(j));
+                if (similarity >= threshold) {
+                    pairs.put(pairKey(i, j), similarity);
+                }
+            }
+        }
+        return pairs;
+    }
+
+    private static Map<Long, Double> storedPairs(SimilarityMatrix matrix) {
+        Map<Long, Double> pairs = new HashMap<>();
+        for (int row = 0; row < matrix.size(); row++) {
+            int current = row;
+            matrix.forEachNeighbor(row, (column, similarity) -> {
+                if (current < column) {
+                    pairs.put(pairKey(current, column), similarity);
+                }
+            });
+        }
+        return pairs;
+    }
+
+    private static long pairKey(int i, int j) {
+        return ((long) i << 32) | j;
+    }
+
+    @Nested
+    @DisplayName("Exhaustive")
+    class Exhaustive {
+
+        @Test
+        @DisplayName("Should store exactly the pairs at or above the threshold, in both rows")
+        void shouldMatchBruteForce() {
+            List<ASTNode> nodes = mixedNodes(new Random(5), 300);
+            BatchSimilarityCalculator batch = new BatchSimilarityCalculator(calculator);
+
+            // Below the cross-type limit all pairs are compared, above it only same-type ones
+            for (double threshold : new double[]{0.3, 0.7}) {
+                SimilarityMatrix matrix = batch.calculateMatrix(nodes, threshold);
+                Map<Long, Double> expected = bruteForcePairs(nodes, threshold);
+                Map<Long, Double> actual = storedPairs(matrix);
+
+                assertTrue(matrix.isSymmetric());
+                assertEquals(2 * expected.size(), matrix.getEntryCount());
+                assertEquals(expected.keySet(), actual.keySet());
+                expected.forEach((key, similarity) -> assertEquals(similarity, actual.get(key), 1e-6));
+                for (long key : expected.keySet()) {
+                    int i = (int) (key >>> 32);
+                    int j = (int) key;
+                    assertEquals(matrix.getSimilarity(i, j), matrix.getSimilarity(j, i));
+                }
+            }
+        }
+
+        @Test
+        @DisplayName("Should keep the k best neighbors of every row, most similar first")
+        void shouldMatchBruteForceTopK() {
+            List<ASTNode> nodes = mixedNodes(new Random(6), 200);
+            int k = 5;
+            SimilarityMatrix matrix = new BatchSimilarityCalculator(calculator).findNearestNeighbors(nodes, k, 0.2);
+
+            assertFalse(matrix.isSymmetric());
+            for (int row = 0; row < nodes.size(); row++) {
+                List<double[]> candidates = new ArrayList<>();
+                for (int column = 0; column < nodes.size(); column++) {
+                    double similarity = calculator.calculateSimilarity(nodes.get(row), nodes.get(column));
+                    if (column != row && similarity >= 0.2) {
+                        candidates.add(new double[]{column, (float) similarity});
+                    }
+                }
+                candidates.sort((a, b) -> a[1] != b[1] ? Double.compare(b[1], a[1]) : Double.compare(a[0], b[0]));
+                int[] expected = candidates.stream().limit(k).mapToInt(c -> (int) c[0]).toArray();
+
+                assertArrayEquals(expected, matrix.getNeighbors(row), "row " + row);
+                float[] scores = matrix.getScores(row);
+                for (int i = 1; i < scores.length; i++) {
+                    assertTrue(scores[i - 1] >= scores[i]);
+                }
+            }
+        }
+
+        @Test
+        @DisplayName("Should handle empty and single-node batches and reject invalid arguments")
+        void shouldHandleEdgeCases() {
+            BatchSimilarityCalculator batch = new BatchSimilarityCalculator(calculator);
+            MethodNode only = method("A.java", "load", "User", List.of(), "return");
+
+            assertEquals(0, batch.calculateMatrix(List.of(), 0.5).size());
+            SimilarityMatrix single = batch.findNearestNeighbors(List.of(only), 3, 0.0);
+            assertEquals(1, single.size());
+            assertEquals(0, single.getNeighborCount(0));
+            assertThrows(IllegalArgumentException.class, () -> batch.calculateMatrix(List.of(only), 1.5));
+            assertThrows(IllegalArgumentException.class, () -> batch.findNearestNeighbors(List.of(only), 0, 0.5));
+        }
+    }
+
+    @Nested
+    @DisplayName("Pruned")
+    class Pruned {
+
+        /** Random methods, each followed by a verbatim copy in another file. */
+        private List<ASTNode> nodesWithCopies(Random random, int originals) {
+            List<ASTNode> nodes = new ArrayList<>();
+            for (int i = 0; i < originals; i++) {
+                MethodNode original = randomMethod(random, "F" + i + ".java");
+                String[] statements = original.getChildren().stream().map(ASTNode::getName).toArray(String[]::new);
+                List<String> parameterTypes = original.getParameters().stream()
+                        .map(parameter -> String.valueOf(parameter.get("type"))).toList();
+                nodes.add(original);
+                nodes.add(method("G" + i + ".java", original.getName(), original.getReturnType(),
+                        parameterTypes, statements));
+            }
+            return nodes;
+        }
+
+        @Test
+        @DisplayName("Should find near-duplicates with exact scores while scoring far fewer pairs")
+        void shouldFindNearDuplicates() {
+            List<ASTNode> nodes = nodesWithCopies(new Random(7), 600);
+            BatchSimilarityCalculator batch = new BatchSimilarityCalculator(calculator, ForkJoinPool.commonPool(), 64);
+
+            SimilarityMatrix matrix = batch.calculateMatrix(nodes, 0.9);
+            Map<Long, Double> expected = bruteForcePairs(nodes, 0.9);
+            Map<Long, Double> actual = storedPairs(matrix);
+
+            // Identical copies share every band, so they are always found
+            for (int i = 0; i < nodes.size(); i += 2) {
+                assertTrue(actual.containsKey(pairKey(i, i + 1)), "copy of " + i);
+            }
+            assertTrue(expected.keySet().containsAll(actual.keySet()));
+            actual.forEach((key, similarity) -> assertEquals(expected.get(key), similarity, 1e-6));
+            long allPairs = (long) nodes.size() * (nodes.size() - 1) / 2;
+            assertTrue((long) batch.getStatistics().get("comparisons") < allPairs / 2);
+        }
+
+        @Test
+        @DisplayName("Should rank the copy first among pruned nearest neighbors")
+        void shouldRankCopyFirst() {
+            List<ASTNode> nodes = nodesWithCopies(new Random(8), 300);
+            BatchSimilarityCalculator batch = new BatchSimilarityCalculator(calculator, ForkJoinPool.commonPool(), 64);
+
+            SimilarityMatrix matrix = batch.findNearestNeighbors(nodes, 3, 0.5);
+
+            for (int i = 0; i < nodes.size(); i += 2) {
+                assertEquals(1.0, matrix.getScores(i)[0], 1e-6);
+                assertEquals(1.0, matrix.getSimilarity(i, i + 1), 1e-6, "copy of " + i);
+            }
+        }
+    }
+}
@@ -0,0 +1,40 @@
+package com.ailearning.core.service.semantic.impl;
+
+import com.ailearning.core.model.CodingConvention;
+import com.ailearning.core.model.ast.ModuleNode;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.List;
+
+/**
+ * Timings of streaming convention learning over 20k files, run with the benchmark profile.
+ */
+@Tag("benchmark")
+class ConventionLearnerBenchmark {
+
+    private static final Logger logger = LoggerFactory.getLogger(ConventionLearnerBenchmark.class);
+
+    @Test
+    @DisplayName("Learn conventions from 20k files in 500 packages")
+    void throughput() {
+        List<ModuleNode> files = ConventionLearnerTest.streamedFiles(20_000, 500);
+        ConventionLearner learner = new ConventionLearner();
+
+        long start = System.nanoTime();
+        for (ModuleNode root : files) {
+            learner.accept(root.getLocation().getFilePath(), root, ConventionLearnerTest.STREAMED_SOURCE);
+        }
+        long nanos = System.nanoTime() - start;
+        long emitStart = System.nanoTime();
+        List<CodingConvention> conventions = learner.getConventions();
+        long emitNanos = System.nanoTime() - emitStart;
+
+        logger.info("{} files: learned in {} ms ({} files/s), {} conventions emitted in {} ms, {} KB",
+                files.size(), nanos / 1_000_000, String.format("%.0f", files.size() / (nanos / 1e9)),
+                conventions.size(), emitNanos / 1_000_000, (long) learner.getStatistics().get("sketchBytes") / 1024);
+    }
+}
@@ -0,0 +1,354 @@
+package com.ailearning.core.service.semantic.impl;
+
+import com.ailearning.core.model.CodingConvention;
+import com.ailearning.core.model.ast.ASTNode;
+import com.ailearning.core.model.ast.ClassNode;
+import com.ailearning.core.model.ast.MethodNode;
+import com.ailearning.core.model.ast.ModuleNode;
+import com.ailearning.core.model.ast.SourceLocation;
+import com.ailearning.core.model.ast.VariableNode;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for streaming convention learning and its sketches.
+ */
+class ConventionLearnerTest {
+
+    static final String STREAMED_SOURCE = "class A {\n    void run() {\n        go();\n    }\n}\n";
+
+    private ConventionLearner learner;
+
+    @BeforeEach
+    void setUp() {
+        learner = new ConventionLearner();
+    }
+
+    private static VariableNode field(String file, int line, String name, String... modifiers) {
+        return new VariableNode(name, SourceLocation.at(file, line, 5), List.of(),
+                Map.of("type", "int", "field", true, "modifiers", List.of(modifiers)));
+    }
+
+    private static MethodNode method(String file, int line, String name) {
+        VariableNode local = new VariableNode("itemCount", SourceLocation.at(file, line + 1, 9), List.of(),
+                Map.of("type", "int"));
+        return new MethodNode(name, SourceLocation.at(file, line, 5), List.of(local), Map.of("returnType", "void"));
+    }
+
+    /**
+     * A file in the given package; methods are listed before fields as the
+     * parsers produce them, but declared after them.
+     */
+    private static ModuleNode file(String path, String packageName, String className, String methodName,
+                                   List<String> imports) {
+        ClassNode type = new ClassNode(className, SourceLocation.at(path, 3, 1),
+                List.of(method(path, 8, methodName), method(path, 12, "close"),
+                        field(path, 4, "orderCount", "private"),
+                        field(path, 5, "MAX_SIZE", "private", "static", "final")),
+                Map.of("modifiers", List.of("public")));
+        return new ModuleNode("compilation_unit", "compilation_unit", SourceLocation.at(path, 1, 1), List.of(type),
+                Map.of("package", packageName, "imports", imports));
+    }
+
+    /** One class per file spread over {@code packages} packages, a tenth of them with snake_case methods. */
+    static List<ModuleNode> streamedFiles(int count, int packages) {
+        List<ModuleNode> files = new ArrayList<>();
+        for (int f = 0; f < count; f++) {
+            String path = "src/p" + (f % packages) + "/F" + f + ".java";
+            files.add(file(path, "app.p" + (f % packages), "Type" + f, f % 10 == 0 ? "run_task" : "runTask",
+                    List.of("java.util.List", "app.Model" + (f % 7))));
+        }
+        return files;
+    }
+
+    static CodingConvention find(List<CodingConvention> conventions, String name) {
+        return conventions.stream()
+                .filter(convention -> convention.getName().equals(name))
+                .findFirst()
+                .orElse(null);
+    }
+
+    @Nested
+    @DisplayName("Sketches")
+    class Sketches {
+
+        @Test
+        @DisplayName("Should never underestimate counts, merge by adding and remove added counts")
+        void shouldBoundCountMinEstimates() {
+            CountMinSketch first = new CountMinSketch(256, 4);
+            CountMinSketch second = new CountMinSketch(256, 4);
+            Random random = new Random(7);
+            long[] keys = new long[2000];
+            int[] truth = new int[keys.length];
+            for (int i = 0; i < keys.length; i++) {
+                keys[i] = random.nextLong();
+            }
+            for (int i = 0; i < 20_000; i++) {
+                int key = random.nextInt(keys.length);
+                truth[key]++;
+                (i % 2 == 0 ? first : second).add(keys[key], 1);
+            }
+            first.merge(second);
+
+            long overestimate = 0;
+            for (int i = 0; i < keys.length; i++) {
+                int estimate = first.estimate(keys[i]);
+                assertTrue(estimate >= truth[i]);
+                overestimate += estimate - truth[i];
+            }
+            // Well within the e * N / width bound per key
+            assertTrue(overestimate / keys.length < Math.E * 20_000 / 256, "mean overestimate " + overestimate);
+            assertThrows(IllegalArgumentException.class, () -> first.merge(new CountMinSketch(128, 4)));
+
+            for (int i = 0; i < keys.length; i++) {
+                first.remove(keys[i], truth[i]);
+            }
+            for (long key : keys) {
+                assertEquals(0, first.estimate(key));
+            }
+        }
+
+        @Test
+        @DisplayName("Should estimate distinct counts and merge overlapping sets")
+        void shouldEstimateCardinality() {
+            HyperLogLog first = new HyperLogLog(12);
+            HyperLogLog second = new HyperLogLog(12);
+            Random random = new Random(11);
+            long[] hashes = new long[60_000];
+            for (int i = 0; i < hashes.length; i++) {
+                long hash = random.nextLong();
+                hashes[i] = hash;
+                first.add(hash);
+                // Half of the second set overlaps the first
+                second.add(i % 2 == 0 ? hash : random.nextLong());
+            }
+            assertEquals(60_000, first.estimate(), 60_000 * 0.05);
+            first.merge(second);
+            assertEquals(90_000, first.estimate(), 90_000 * 0.05);
+
+            HyperLogLog small = new HyperLogLog(12);
+            for (int i = 0; i < 100; i++) {
+                small.add(hashes[i]);
+                small.add(hashes[i]);
+            }
+            assertEquals(100, small.estimate(), 3);
+        }
+
+        @Test
+        @DisplayName("Should classify naming styles")
+        void shouldClassifyNamingStyles() {
+            assertEquals(ConventionLearner.namingStyle("OrderService"), ConventionLearner.namingStyle("Order"));
+            assertEquals(ConventionLearner.namingStyle("placeOrder"), ConventionLearner.namingStyle("_placeOrder"));
+            assertEquals(ConventionLearner.namingStyle("place_order"), ConventionLearner.namingStyle("__init__x_y"));
+            assertEquals(ConventionLearner.namingStyle("MAX_SIZE"), ConventionLearner.namingStyle("URL"));
+            assertNotEquals(ConventionLearner.namingStyle("count"), ConventionLearner.namingStyle("placeOrder"));
+            assertNotEquals(ConventionLearner.namingStyle("Place_Order"), ConventionLearner.namingStyle("place_order"));
+        }
+    }
+
+    @Nested
+    @DisplayName("Learning")
+    class Learning {
+
+        @Test
+        @DisplayName("Should learn naming, import and member conventions from trees")
+        void shouldLearnFromTrees() {
+            for (int i = 0; i < 20; i++) {
+                String path = "src/shop/F" + i + ".java";
+                learner.accept(path, file(path, "shop", "OrderService" + i, i < 18 ? "placeOrder" : "place_order",
+                        List.of("java.util.List", "java.util.Map", "shop.data.Repository")));
+            }
+            List<CodingConvention> conventions = learner.getConventions();
+
+            CodingConvention methods = find(conventions, "Method naming");
+            assertNotNull(methods, conventions.toString());
+            assertEquals("Method names use camelCase", methods.getRule());
+            assertEquals(CodingConvention.ConventionScope.PROJECT, methods.getScope());
+            // "close" is lowercase and fits camelCase as well
+            assertEquals(38.0 / 40, methods.getAdherenceScore(), 1e-9);
+            assertEquals("placeOrder", methods.getExample());
+            assertTrue(methods.isEnforced());
+
+            assertEquals("Class names use PascalCase", find(conventions, "Class naming").getRule());
+            assertEquals("Constant names use UPPER_SNAKE_CASE", find(conventions, "Constant naming").getRule());
+            assertEquals("Imports are sorted alphabetically", find(conventions, "Import ordering").getRule());
+            assertEquals("Fields come first, then constructors, then methods",
+                    find(conventions, "Member ordering").getRule());
+            // Members sit one 4-space step inside their class
+            assertEquals("Indent with 4 spaces", find(conventions, "Indentation").getRule());
+            assertNull(find(conventions, "Brace placement"));
+        }
+
+        @Test
+        @DisplayName("Should learn indentation and brace placement from source text")
+        void shouldLearnFromSource() {
+            String allman = "class A\n{\n\tvoid run()\n\t{\n\t\tif (ready)\n\t\t{\n\t\t\tgo();\n\t\t}\n\t}\n}\n";
+            String kr = "class B {\n  void run() {\n    go();\n  }\n}\n";
+            for (int i = 0; i < 10; i++) {
+                String path = "src/p/A" + i + ".java";
+                learner.accept(path, file(path, "p", "A" + i, "run", List.of()), allman);
+            }
+            learner.accept("src/p/B.java", file("src/p/B.java", "p", "B", "run", List.of()), kr);
+
+            List<CodingConvention> conventions = learner.getConventions();
+            assertEquals("Indent with tabs", find(conventions, "Indentation").getRule());
+            CodingConvention braces = find(conventions, "Brace placement");
+            assertEquals("Opening braces go on their own line", braces.getRule());
+            assertEquals(30.0 / 32, braces.getAdherenceScore(), 1e-9);
+        }
+
+        @Test
+        @DisplayName("Should report packages that deviate from the project style")
+        void shouldReportDeviatingPackages() {
+            for (int i = 0; i < 40; i++) {
+                String path = "src/core/C" + i + ".java";
+                learner.accept(path, file(path, "app.core", "Core" + i, "runTask", List.of()));
+            }
+            for (int i = 0; i < 10; i++) {
+                String path = "src/legacy/L" + i + ".java";
+                learner.accept(path, file(path, "app.legacy", "Legacy" + i, "run_task", List.of()));
+            }
+
+            List<CodingConvention> conventions = learner.getConventions();
+            assertEquals("Method names use camelCase", find(conventions, "Method naming").getRule());
+            CodingConvention legacy = find(conventions, "Method naming in app.legacy");
+            assertNotNull(legacy, conventions.toString());
+            assertEquals("Method names use snake_case", legacy.getRule());
+            assertEquals(CodingConvention.ConventionScope.MODULE, legacy.getScope());
+            assertNull(find(conventions, "Method naming in app.core"));
+        }
+
+        @Test
+        @DisplayName("Should answer packages beyond the tracked limit from the sketch")
+        void shouldQueryUntrackedPackages() {
+            ConventionLearner untracked = new ConventionLearner(1024, 4, 0);
+            for (int i = 0; i < 10; i++) {
+                String path = "lib/util/U" + i + ".py";
+                ClassNode type = new ClassNode("helper_" + i, SourceLocation.at(path, 1, 1), List.of(), Map.of());
+                untracked.accept(path, new ModuleNode("module", "module", SourceLocation.at(path, 1, 1),
+                        List.of(type), Map.of()));
+            }
+
+            assertEquals(0, untracked.getStatistics().get("trackedPackages"));
+            List<CodingConvention> conventions = untracked.getPackageConventions("lib/util");
+            assertEquals("Class names use snake_case", find(conventions, "Class naming in lib/util").getRule());
+            assertTrue(untracked.getPackageConventions("lib/other").isEmpty());
+        }
+
+        @Test
+        @DisplayName("Should replace a re-read file's counts and forget removed files")
+        void shouldReplaceRereadFiles() {
+            for (int i = 0; i < 10; i++) {
+                String path = "src/shop/F" + i + ".java";
+                learner.accept(path, file(path, "shop", "Order" + i, "placeOrder", List.of()));
+            }
+            Map<String, Object> stats = learner.getStatistics();
+            String conventions = learner.getConventions().toString();
+            String packageConventions = learner.getPackageConventions("shop").toString();
+
+            for (int pass = 0; pass < 3; pass++) {
+                for (int i = 0; i < 10; i++) {
+                    String path = "src/shop/F" + i + ".java";
+                    learner.accept(path, file(path, "shop", "Order" + i, "placeOrder", List.of()));
+                }
+            }
+            assertEquals(stats, learner.getStatistics());
+            assertEquals(conventions, learner.getConventions().toString());
+            assertEquals(packageConventions, learner.getPackageConventions("shop").toString());
+
+            // A file rewritten in another style moves its counts over
+            learner.accept("src/shop/F0.java", file("src/shop/F0.java", "shop", "Order0", "place_order", List.of()));
+            assertEquals(stats.get("observations"), learner.getStatistics().get("observations"));
+
+            for (int i = 0; i < 10; i++) {
+                learner.forget("src/shop/F" + i + ".java");
+            }
+            learner.forget("src/shop/Missing.java");
+            assertEquals(0L, learner.getStatistics().get("observations"));
+            assertEquals(0, learner.getStatistics().get("learnedFiles"));
+            assertTrue(learner.getConventions().isEmpty());
+            assertTrue(learner.getPackageConventions("shop").isEmpty());
+        }
+
+        @Test
+        @DisplayName("Should not report aspects without enough support")
+        void shouldRequireSupport() {
+            learner.accept("A.java", file("A.java", "p", "A", "run", List.of("b.B", "a.A")));
+
+            assertNull(find(learner.getConventions(), "Import ordering"));
+            assertTrue(new ConventionLearner().learnConventions(null).isEmpty());
+        }
+    }
+
+    @Nested
+    @DisplayName("Merge")
+    class Merge {
+
+        @Test
+        @DisplayName("Should merge parallel workers into what one learner sees")
+        void shouldMergeWorkers() {
+            ConventionLearner first = new ConventionLearner();
+            ConventionLearner second = new ConventionLearner();
+            for (int i = 0; i < 30; i++) {
+                String path = "src/F" + i + ".java";
+                ModuleNode root = file(path, i % 3 == 0 ? "app.legacy" : "app.core", "Type" + i,
+                        i % 3 == 0 ? "run_task" : "runTask", List.of("x.B", "x.A"));
+                learner.accept(path, root);
+                (i < 15 ? first : second).accept(path, root);
+            }
+            first.merge(second);
+
+            assertEquals(learner.getConventions().toString(), first.getConventions().toString());
+            assertEquals(learner.getStatistics(), first.getStatistics());
+            assertThrows(IllegalArgumentException.class, () -> first.merge(new ConventionLearner(64, 2, 16)));
+        }
+
+        @Test
+        @DisplayName("Should count a re-read file once towards file totals")
+        void shouldCountDistinctFiles() {
+            ModuleNode root = file("A.java", "p", "A", "run", List.of());
+            learner.accept("A.java", root);
+            ConventionLearner other = new ConventionLearner();
+            other.accept("A.java", root);
+            learner.merge(other);
+            learner.merge(learner);
+
+            assertEquals(1L, learner.getStatistics().get("files"));
+            assertEquals(1L, learner.getStatistics().get("packages"));
+        }
+    }
+
+    @Nested
+    @DisplayName("Streaming")
+    class Streaming {
+
+        @Test
+        @DisplayName("Should estimate file and package totals in capped memory")
+        void shouldStreamInFixedMemory() {
+            List<ModuleNode> files = streamedFiles(2_000, 100);
+            ConventionLearner small = new ConventionLearner();
+            small.accept(files.get(0).getLocation().getFilePath(), files.get(0), STREAMED_SOURCE);
+            long memoryAfterOne = (long) small.getStatistics().get("sketchBytes");
+
+            for (ModuleNode root : files) {
+                learner.accept(root.getLocation().getFilePath(), root, STREAMED_SOURCE);
+            }
+
+            Map<String, Object> stats = learner.getStatistics();
+            assertEquals(2_000, (long) stats.get("files"), 2_000 * 0.03);
+            assertEquals(100, (long) stats.get("packages"), 100 * 0.05);
+            // Only the per-package file sketches grow, and they are capped
+            assertTrue((long) stats.get("sketchBytes") <= memoryAfterOne + 100L * 128);
+            assertEquals("Method names use camelCase", find(learner.getConventions(), "Method naming").getRule());
+        }
+    }
+}
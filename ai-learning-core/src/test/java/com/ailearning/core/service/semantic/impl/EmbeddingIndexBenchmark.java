@@ -0,0 +1,65 @@
+package com.ailearning.core.service.semantic.impl;
+
+import com.ailearning.core.model.ast.ASTNode;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Timings of the HNSW embedding index against a brute-force scan, run with the benchmark profile.
+ */
+@Tag("benchmark")
+class EmbeddingIndexBenchmark {
+
+    private static final Logger logger = LoggerFactory.getLogger(EmbeddingIndexBenchmark.class);
+
+    @Test
+    @DisplayName("Answer nearest-neighbor queries by brute-force scan and HNSW search")
+    void nearestNeighbors() {
+        EmbeddingIndex index = new EmbeddingIndex();
+        Map<String, ASTNode> trees = EmbeddingIndexTest.randomFiles(new Random(15), 2000, 4);
+        long buildStart = System.nanoTime();
+        trees.forEach(index::indexFile);
+        long buildNanos = System.nanoTime() - buildStart;
+        List<ASTNode> nodes = EmbeddingIndexTest.indexedNodes(trees);
+        float[][] vectors = nodes.stream().map(index.getEmbedder()::embed).toArray(float[][]::new);
+        List<float[]> queries = new ArrayList<>();
+        Random random = new Random(16);
+        for (int q = 0; q < 500; q++) {
+            queries.add(index.getEmbedder().embedText(
+                    EmbeddingIndexTest.word(random) + " " + EmbeddingIndexTest.word(random)));
+        }
+
+        long scanStart = System.nanoTime();
+        double scanTotal = 0.0;
+        for (float[] query : queries) {
+            float best = -1.0f;
+            for (float[] vector : vectors) {
+                best = Math.max(best, CodeEmbedder.dot(query, vector));
+            }
+            scanTotal += best;
+        }
+        long scanNanos = System.nanoTime() - scanStart;
+
+        Random queryWords = new Random(16);
+        long indexStart = System.nanoTime();
+        double indexTotal = 0.0;
+        for (int q = 0; q < queries.size(); q++) {
+            indexTotal += index.findRelated(EmbeddingIndexTest.word(queryWords) + " "
+                    + EmbeddingIndexTest.word(queryWords), 1).get(0).getSimilarity();
+        }
+        long indexNanos = System.nanoTime() - indexStart;
+
+        logger.info("{} embeddings (built in {} ms), {} queries: scan {} ms vs HNSW {} ms ({}x), recall {}",
+                nodes.size(), buildNanos / 1_000_000, queries.size(), scanNanos / 1_000_000,
+                indexNanos / 1_000_000, String.format("%.1f", (double) scanNanos / Math.max(1, indexNanos)),
+                String.format("%.3f", indexTotal / scanTotal));
+    }
+}
@@ -0,0 +1,283 @@
+package com.ailearning.core.service.semantic.impl;
+
+import com.ailearning.core.model.ast.ASTNode;
+import com.ailearning.core.model.ast.ClassNode;
+import com.ailearning.core.model.ast.ExpressionNode;
+import com.ailearning.core.model.ast.MethodNode;
+import com.ailearning.core.model.ast.SourceLocation;
+import com.ailearning.core.model.ast.StatementNode;
+import com.ailearning.core.model.ast.VariableNode;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for the local embedding index and its HNSW graph.
+ */
+class EmbeddingIndexTest {
+
+    private static final String[] STATEMENTS = {"if", "for", "while", "return", "expression", "throw", "try"};
+    private static final String[] WORDS = {"get", "set", "user", "order", "total", "load", "save", "item", "cache",
+            "parse", "config", "file", "invoice", "payment", "account", "report", "token", "session"};
+    private static final String[] TYPES = {"long", "String", "User", "Order", "boolean", "Config", "Session"};
+
+    private EmbeddingIndex index;
+
+    @BeforeEach
+    void setUp() {
+        index = new EmbeddingIndex();
+    }
+
+    private static MethodNode method(String file, int line, String name, String returnType, List<String> locals,
+                                     String... statements) {
+        List<ASTNode> body = new ArrayList<>();
+        for (String local : locals) {
+            body.add(new VariableNode(local, SourceLocation.at(file, line + 1, 9), List.of(), Map.of("type", "int")));
+        }
+        for (int i = 0; i < statements.length; i++) {
+            SourceLocation location = SourceLocation.at(file, line + i + 2, 9);
+            body.add(new StatementNode(statements[i], location,
+                    List.of(new ExpressionNode("methodcall", location, List.of(), Map.of())), Map.of()));
+        }
+        return new MethodNode(name, SourceLocation.at(file, line, 5), body, Map.of("returnType", returnType));
+    }
+
+    private static MethodNode randomMethod(Random random, String file, int line) {
+        String[] statements = new String[2 + random.nextInt(6)];
+        for (int s = 0; s < statements.length; s++) {
+            statements[s] = STATEMENTS[random.nextInt(STATEMENTS.length)];
+        }
+        List<String> locals = new ArrayList<>();
+        for (int l = random.nextInt(3); l > 0; l--) {
+            locals.add(word(random) + capitalize(word(random)));
+        }
+        String name = word(random) + capitalize(word(random)) + capitalize(word(random));
+        return method(file, line, name, TYPES[random.nextInt(TYPES.length)], locals, statements);
+    }
+
+    /** One class per file holding a few random methods. */
+    static Map<String, ASTNode> randomFiles(Random random, int files, int methodsPerFile) {
+        Map<String, ASTNode> trees = new LinkedHashMap<>();
+        for (int f = 0; f < files; f++) {
+            String file = "F" + f + ".java";
+            List<ASTNode> methods = new ArrayList<>();
+            for (int m = 0; m < methodsPerFile; m++) {
+                methods.add(randomMethod(random, file, 10 * m + 2));
+            }
+            trees.put(file, new ClassNode("Type" + f, SourceLocation.at(file, 1, 1), methods, Map.of()));
+        }
+        return trees;
+    }
+
+    static String word(Random random) {
+        return WORDS[random.nextInt(WORDS.length)];
+    }
+
+    private static String capitalize(String word) {
+        return Character.toUpperCase(word.charAt(0)) + word.substring(1);
+    }
+
+    static List<ASTNode> indexedNodes(Map<String, ASTNode> trees) {
+        List<ASTNode> nodes = new ArrayList<>();
+        for (ASTNode root : trees.values()) {
+            nodes.add(root);
+            nodes.addAll(root.getChildren());
+        }
+        return nodes;
+    }
+
+    @Nested
+    @DisplayName("Embedding")
+    class Embedding {
+
+        @Test
+        @DisplayName("Should embed equal trees identically into unit vectors")
+        void shouldEmbedDeterministically() {
+            CodeEmbedder embedder = new CodeEmbedder();
+            float[] first = embedder.embed(method("A.java", 1, "loadUser", "User", List.of("id"), "if", "return"));
+            float[] second = embedder.embed(method("B.java", 9, "loadUser", "User", List.of("id"), "if", "return"));
+
+            assertArrayEquals(first, second);
+            assertEquals(1.0, CodeEmbedder.dot(first, first), 1e-5);
+            assertEquals(0.0, CodeEmbedder.dot(embedder.embedText("  ..."), first));
+        }
+
+        @Test
+        @DisplayName("Should place a text query closest to code with the same words")
+        void shouldMatchQueryWords() {
+            CodeEmbedder embedder = new CodeEmbedder();
+            float[] query = embedder.embedText("load user session");
+            float[] related = embedder.embed(method("A.java", 1, "loadUserSession", "Session", List.of(), "return"));
+            float[] unrelated = embedder.embed(method("B.java", 1, "parseInvoiceTotal", "long", List.of(), "return"));
+
+            assertTrue(CodeEmbedder.dot(query, related) > CodeEmbedder.dot(query, unrelated) + 0.3);
+        }
+    }
+
+    @Nested
+    @DisplayName("Search")
+    class Search {
+
+        @Test
+        @DisplayName("Should find nearly all of the exact nearest neighbors")
+        void shouldMatchBruteForceRecall() {
+            Map<String, ASTNode> trees = randomFiles(new Random(11), 600, 4);
+            trees.forEach(index::indexFile);
+            List<ASTNode> nodes = indexedNodes(trees);
+            List<float[]> vectors = nodes.stream().map(index.getEmbedder()::embed).toList();
+            int k = 10;
+
+            Random random = new Random(12);
+            int found = 0;
+            int queries = 100;
+            for (int q = 0; q < queries; q++) {
+                int target = random.nextInt(nodes.size());
+                float[] exact = new float[nodes.size() - 1];
+                int n = 0;
+                for (int i = 0; i < nodes.size(); i++) {
+                    if (i != target) {
+                        exact[n++] = CodeEmbedder.dot(vectors.get(target), vectors.get(i));
+                    }
+                }
+                Arrays.sort(exact);
+                float kthBest = exact[exact.length - k];
+
+                List<EmbeddingIndex.Match> matches = index.findSimilar(nodes.get(target), k);
+                assertEquals(k, matches.size());
+                // Counted by score so that ties between equal vectors do not matter
+                for (EmbeddingIndex.Match match : matches) {
+                    assertNotSame(nodes.get(target), match.getNode());
+                    if (match.getSimilarity() >= kthBest - 1e-5) {
+                        found++;
+                    }
+                }
+            }
+            double recall = (double) found / (queries * k);
+            assertTrue(recall >= 0.9, "recall " + recall);
+        }
+
+        @Test
+        @DisplayName("Should replace a re-indexed file and forget a removed one")
+        void shouldFollowFileChanges() {
+            MethodNode original = method("A.java", 3, "loadUserSession", "Session", List.of(), "if", "return");
+            MethodNode edited = method("A.java", 3, "parseInvoiceTotal", "long", List.of(), "for", "return");
+            index.indexFile("A.java", original);
+            index.indexFile("B.java", method("B.java", 7, "saveOrderReport", "void", List.of(), "throw"));
+
+            assertSame(original, index.findRelated("user session", 1).get(0).getNode());
+
+            index.indexFile("A.java", edited);
+            assertEquals(2, index.size());
+            List<EmbeddingIndex.Match> matches = index.findRelated("user session", 5);
+            assertTrue(matches.stream().noneMatch(match -> match.getNode() == original));
+            assertSame(edited, index.findRelated("invoice total", 1).get(0).getNode());
+
+            index.removeFile("A.java");
+            assertEquals(1, index.size());
+            assertEquals("B.java", index.findRelated("invoice total", 5).get(0).getFilePath());
+            assertTrue(index.findRelated("   ", 5).isEmpty());
+        }
+
+        @Test
+        @DisplayName("Should compact deleted entries and keep answering correctly")
+        void shouldCompactDeletedEntries() {
+            Map<String, ASTNode> trees = randomFiles(new Random(13), 300, 3);
+            trees.forEach(index::indexFile);
+            List<String> files = new ArrayList<>(trees.keySet());
+            for (String file : files.subList(0, 200)) {
+                index.removeFile(file);
+            }
+
+            assertTrue((long) index.getStatistics().get("compactions") > 0);
+            assertEquals(100 * 4, index.size());
+            ASTNode kept = trees.get(files.get(250)).getChildren().get(1);
+            List<EmbeddingIndex.Match> matches = index.findSimilar(kept, 20);
+            assertFalse(matches.isEmpty());
+            for (EmbeddingIndex.Match match : matches) {
+                assertTrue(files.indexOf(match.getFilePath()) >= 200, match.getFilePath());
+            }
+        }
+    }
+
+    @Nested
+    @DisplayName("Persistence")
+    class Persistence {
+
+        @TempDir
+        Path directory;
+
+        @Test
+        @DisplayName("Should answer the same queries after a save and load")
+        void shouldRoundTripThroughDisk() throws Exception {
+            Map<String, ASTNode> trees = randomFiles(new Random(14), 50, 3);
+            trees.forEach(index::indexFile);
+            index.removeFile("F0.java");
+            Path file = directory.resolve("embeddings.idx");
+
+            index.save(file);
+            EmbeddingIndex loaded = EmbeddingIndex.load(file);
+
+            assertEquals(index.size(), loaded.size());
+            for (String query : List.of("load user", "invoice payment", "parse config file")) {
+                List<EmbeddingIndex.Match> before = index.findRelated(query, 5);
+                List<EmbeddingIndex.Match> after = loaded.findRelated(query, 5);
+                assertEquals(before.size(), after.size());
+                for (int i = 0; i < before.size(); i++) {
+                    assertEquals(before.get(i).getFilePath(), after.get(i).getFilePath());
+                    assertEquals(before.get(i).getLine(), after.get(i).getLine());
+                    assertEquals(before.get(i).getSimilarity(), after.get(i).getSimilarity(), 1e-6);
+                    assertNull(after.get(i).getNode());
+                }
+            }
+
+            // Indexing a file again attaches its trees
+            String path = loaded.findRelated("load user", 1).get(0).getFilePath();
+            loaded.indexFile(path, trees.get(path));
+            assertNotNull(loaded.findRelated("load user", 1).get(0).getNode());
+        }
+
+        @Test
+        @DisplayName("Should start empty from a missing or corrupt file and persist on request")
+        void shouldOpenMissingOrCorruptFile() throws Exception {
+            Path file = directory.resolve("embeddings.idx");
+            EmbeddingIndex opened = EmbeddingIndex.open(file);
+            assertEquals(0, opened.size());
+
+            String source = Files.writeString(directory.resolve("A.java"), "class A {}").toString();
+            opened.indexFile(source, method(source, 1, "loadUser", "User", List.of(), "return"));
+            assertTrue(opened.persist());
+            assertEquals(1, EmbeddingIndex.open(file).size());
+
+            Files.write(file, new byte[]{1, 2, 3});
+            assertEquals(0, EmbeddingIndex.open(file).size());
+        }
+
+        @Test
+        @DisplayName("Should drop entries of files deleted since the index was saved")
+        void shouldDropDeletedFilesOnOpen() throws Exception {
+            Path file = directory.resolve("embeddings.idx");
+            Path kept = Files.writeString(directory.resolve("Kept.java"), "class Kept {}");
+            Path removed = Files.writeString(directory.resolve("Removed.java"), "class Removed {}");
+            EmbeddingIndex opened = EmbeddingIndex.open(file);
+            opened.indexFile(kept.toString(), method(kept.toString(), 1, "loadUser", "User", List.of(), "return"));
+            opened.indexFile(removed.toString(), method(removed.toString(), 1, "loadUser", "User", List.of(), "return"));
+            assertTrue(opened.persist());
+
+            Files.delete(removed);
+            EmbeddingIndex reopened = EmbeddingIndex.open(file);
+
+            assertEquals(1, reopened.size());
+            List<EmbeddingIndex.Match> matches = reopened.findRelated("load user", 5);
+            assertEquals(1, matches.size());
+            assertEquals(kept.toString(), matches.get(0).getFilePath());
+        }
+    }
+}
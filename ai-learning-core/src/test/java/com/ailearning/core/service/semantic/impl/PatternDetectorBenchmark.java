@@ -0,0 +1,47 @@
+package com.ailearning.core.service.semantic.impl;
+
+import com.ailearning.core.model.ast.ClassNode;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Timings of single-pass pattern detection on fresh and cached trees, run with the benchmark profile.
+ */
+@Tag("benchmark")
+class PatternDetectorBenchmark {
+
+    private static final Logger logger = LoggerFactory.getLogger(PatternDetectorBenchmark.class);
+
+    @Test
+    @DisplayName("Detect patterns in 2000 fresh and cached trees")
+    void detectionTime() {
+        List<ClassNode> files = new ArrayList<>();
+        for (int f = 0; f < 2000; f++) {
+            files.add(PatternDetectorTest.registry("F" + f + ".java"));
+        }
+        PatternDetector uncached = new PatternDetector(new PatternDetector().getMatchers(), 0);
+        long freshStart = System.nanoTime();
+        int fresh = 0;
+        for (ClassNode file : files) {
+            fresh += uncached.detectPatterns(file, "java").size();
+        }
+        long freshNanos = System.nanoTime() - freshStart;
+
+        PatternDetector cached = new PatternDetector(uncached.getMatchers(), 4096);
+        files.forEach(file -> cached.detectPatterns(file, "java"));
+        long cachedStart = System.nanoTime();
+        for (ClassNode file : files) {
+            cached.detectPatterns(file, "java");
+        }
+        long cachedNanos = System.nanoTime() - cachedStart;
+
+        logger.info("{} trees ({} patterns): single-pass detection {} ms, cached {} ms",
+                files.size(), fresh, freshNanos / 1_000_000, cachedNanos / 1_000_000);
+    }
+}
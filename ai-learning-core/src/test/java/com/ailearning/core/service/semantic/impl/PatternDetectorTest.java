@@ -0,0 +1,219 @@
+package com.ailearning.core.service.semantic.impl;
+
+import com.ailearning.core.model.CodePattern;
+import com.ailearning.core.model.ast.ASTNode;
+import com.ailearning.core.model.ast.ClassNode;
+import com.ailearning.core.model.ast.ExpressionNode;
+import com.ailearning.core.model.ast.MethodNode;
+import com.ailearning.core.model.ast.SourceLocation;
+import com.ailearning.core.model.ast.StatementNode;
+import com.ailearning.core.model.ast.VariableNode;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for the compiled pattern-matcher pipeline.
+ */
+class PatternDetectorTest {
+
+    private PatternDetector detector;
+
+    @BeforeEach
+    void setUp() {
+        detector = new PatternDetector();
+    }
+
+    private static ExpressionNode expression(String file, String kind, Map<String, Object> attributes,
+                                             ASTNode... children) {
+        return new ExpressionNode(kind, SourceLocation.at(file, 6, 9), List.of(children), attributes);
+    }
+
+    private static StatementNode statement(String file, int line, String kind, ASTNode... children) {
+        return new StatementNode(kind, SourceLocation.at(file, line, 9), List.of(children), Map.of());
+    }
+
+    /**
+     * A singleton with a null check, a loop and a try-with-resources.
+     */
+    static ClassNode registry(String file) {
+        ExpressionNode nullCheck = expression(file, "binary", Map.of(),
+                expression(file, "name", Map.of()), expression(file, "nullliteral", Map.of()));
+        MethodNode getInstance = new MethodNode("getInstance", SourceLocation.at(file, 5, 5),
+                List.of(statement(file, 6, "if", nullCheck),
+                        statement(file, 7, "foreach", statement(file, 8, "expression")),
+                        statement(file, 9, "try", expression(file, "variabledeclaration", Map.of()))),
+                Map.of("modifiers", List.of("public", "static"), "returnType", "Registry"));
+        MethodNode constructor = new MethodNode("Registry", SourceLocation.at(file, 3, 5), List.of(),
+                Map.of("modifiers", List.of("private")));
+        VariableNode instance = new VariableNode("instance", SourceLocation.at(file, 2, 5), List.of(),
+                Map.of("type", "Registry", "field", true, "modifiers", List.of("private", "static")));
+        return new ClassNode("Registry", SourceLocation.at(file, 1, 1), List.of(constructor, getInstance, instance),
+                Map.of("modifiers", List.of("public")));
+    }
+
+    private static List<String> names(List<CodePattern> patterns) {
+        return patterns.stream().map(CodePattern::getName).toList();
+    }
+
+    /**
+     * Matcher counting the nodes it is handed.
+     */
+    private static final class CountingMatcher extends PatternDetector.PatternMatcher {
+        final AtomicInteger calls = new AtomicInteger();
+        final List<String> seen = new ArrayList<>();
+
+        CountingMatcher(String name, Set<String> selectors, Set<String> attributes, Set<String> languages) {
+            super(name, CodePattern.PatternType.IDIOM, CodePattern.PatternCategory.MAINTAINABILITY, "test",
+                    selectors, attributes, languages);
+        }
+
+        @Override
+        protected double match(ASTNode node) {
+            calls.incrementAndGet();
+            seen.add(node.getNodeType() + ":" + node.getName());
+            return 0.5;
+        }
+    }
+
+    @Nested
+    @DisplayName("Dispatch")
+    class Dispatch {
+
+        @Test
+        @DisplayName("Should hand each matcher only the nodes it selects")
+        void shouldDispatchBySelector() {
+            CountingMatcher classes = new CountingMatcher("Classes", Set.of("class"), Set.of(), Set.of());
+            CountingMatcher loops = new CountingMatcher("Loops", Set.of("statement:foreach", "statement:for"),
+                    Set.of(), Set.of());
+            PatternDetector custom = new PatternDetector(List.of(classes, loops), 16);
+
+            List<CodePattern> patterns = custom.detectPatterns(registry("R.java"), "java");
+
+            assertEquals(List.of("class:Registry"), classes.seen);
+            assertEquals(List.of("statement:foreach"), loops.seen);
+            assertEquals(List.of("Classes", "Loops"), names(patterns));
+            assertEquals("R.java:7", patterns.get(1).getLocation());
+        }
+
+        @Test
+        @DisplayName("Should skip nodes missing required attributes or in other languages")
+        void shouldFilterByAttributesAndLanguage() {
+            CountingMatcher typed = new CountingMatcher("Typed", Set.of("method"), Set.of("returnType"), Set.of());
+            CountingMatcher pythonOnly = new CountingMatcher("Python", Set.of("class"), Set.of(), Set.of("python"));
+            PatternDetector custom = new PatternDetector(List.of(typed, pythonOnly), 0);
+
+            custom.detectPatterns(registry("R.java"), "Java");
+
+            assertEquals(List.of("method:getInstance"), typed.seen);
+            assertEquals(0, pythonOnly.calls.get());
+        }
+    }
+
+    @Nested
+    @DisplayName("Detection")
+    class Detection {
+
+        @Test
+        @DisplayName("Should detect patterns from structure rather than source text")
+        void shouldDetectBuiltInPatterns() {
+            List<String> found = names(detector.detectPatterns(registry("R.java"), "java"));
+
+            assertTrue(found.containsAll(List.of("Singleton", "NullCheck", "LoopPattern", "ExceptionHandling",
+                    "ResourceManagement")), found.toString());
+            assertFalse(found.contains("GodClass"));
+            assertFalse(found.contains("Observer"));
+        }
+
+        @Test
+        @DisplayName("Should apply language-specific matchers only to their language")
+        void shouldRespectLanguage() {
+            List<String> found = names(detector.detectPatterns(registry("R.java"), "python"));
+
+            assertTrue(found.contains("ExceptionHandling"));
+            assertFalse(found.contains("ResourceManagement"));
+        }
+
+        @Test
+        @DisplayName("Should carry recommendations on anti-patterns")
+        void shouldRecommendOnAntiPatterns() {
+            List<ASTNode> statements = new ArrayList<>();
+            for (int i = 0; i < 40; i++) {
+                statements.add(statement("L.java", i + 2, "expression"));
+            }
+            MethodNode longMethod = new MethodNode("process", SourceLocation.at("L.java", 1, 1), statements, Map.of());
+
+            CodePattern pattern = detector.detectPatterns(longMethod, "java").get(0);
+            assertEquals("LongMethod", pattern.getName());
+            assertTrue(pattern.isProblematic());
+            assertNotNull(pattern.getRecommendation());
+        }
+    }
+
+    @Nested
+    @DisplayName("Cache")
+    class Cache {
+
+        @Test
+        @DisplayName("Should reuse results for the same tree and recompute for a new version")
+        void shouldCachePerTree() {
+            CountingMatcher classes = new CountingMatcher("Classes", Set.of("class"), Set.of(), Set.of());
+            PatternDetector custom = new PatternDetector(List.of(classes), 16);
+            ClassNode version1 = registry("R.java");
+
+            List<CodePattern> first = custom.detectPatterns(version1, "java");
+            assertEquals(first, custom.detectPatterns(version1, "java"));
+            assertEquals(1, classes.calls.get());
+
+            custom.detectPatterns(registry("R.java"), "java");
+            assertEquals(2, classes.calls.get());
+            custom.detectPatterns(version1, "python");
+            assertEquals(3, classes.calls.get());
+
+            Map<String, Object> stats = custom.getStatistics();
+            assertEquals(1L, stats.get("cacheHits"));
+            assertEquals(3L, stats.get("cacheMisses"));
+            custom.invalidateFile("R.java");
+            assertEquals(0, custom.getStatistics().get("cachedResults"));
+        }
+
+        @Test
+        @DisplayName("Should evict the least recently used results")
+        void shouldBoundCache() {
+            PatternDetector small = new PatternDetector(List.of(), 2);
+            ClassNode a = registry("A.java");
+            small.detectPatterns(a, "java");
+            small.detectPatterns(registry("B.java"), "java");
+            small.detectPatterns(a, "java");
+            small.detectPatterns(registry("C.java"), "java");
+
+            assertEquals(2, small.getStatistics().get("cachedResults"));
+            small.detectPatterns(a, "java");
+            assertEquals(2L, small.getStatistics().get("cacheHits"));
+        }
+
+        @Test
+        @DisplayName("Should report invocations, matches and time per matcher")
+        @SuppressWarnings("unchecked")
+        void shouldReportMatcherTimings() {
+            detector.detectPatterns(registry("R.java"), "java");
+
+            Map<String, Object> matchers = (Map<String, Object>) detector.getStatistics().get("matchers");
+            Map<String, Object> loops = (Map<String, Object>) matchers.get("LoopPattern");
+            assertEquals(1L, loops.get("invocations"));
+            assertEquals(1L, loops.get("matches"));
+            Map<String, Object> singleton = (Map<String, Object>) matchers.get("Singleton");
+            assertEquals(1L, singleton.get("invocations"));
+            assertTrue((long) singleton.get("totalNanos") > 0);
+        }
+    }
+}
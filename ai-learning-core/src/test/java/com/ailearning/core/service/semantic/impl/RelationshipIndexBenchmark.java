@@ -0,0 +1,75 @@
+package com.ailearning.core.service.semantic.impl;
+
+import com.ailearning.core.model.ast.ASTNode;
+import com.ailearning.core.model.ast.ClassNode;
+import com.ailearning.core.model.ast.ModuleNode;
+import com.ailearning.core.model.ast.SourceLocation;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static com.ailearning.core.service.semantic.impl.RelationshipIndexTest.call;
+import static com.ailearning.core.service.semantic.impl.RelationshipIndexTest.creation;
+import static com.ailearning.core.service.semantic.impl.RelationshipIndexTest.field;
+import static com.ailearning.core.service.semantic.impl.RelationshipIndexTest.method;
+import static com.ailearning.core.service.semantic.impl.RelationshipIndexTest.statement;
+
+/**
+ * Timings of the relationship index against re-running the mapper, run with the benchmark profile.
+ */
+@Tag("benchmark")
+class RelationshipIndexBenchmark {
+
+    private static final Logger logger = LoggerFactory.getLogger(RelationshipIndexBenchmark.class);
+
+    @Test
+    @DisplayName("Answer repeated file queries by mapping again and from the index")
+    void repeatedQueries() {
+        List<ModuleNode> files = new ArrayList<>();
+        for (int f = 0; f < 500; f++) {
+            String file = "F" + f + ".java";
+            List<ASTNode> members = new ArrayList<>();
+            for (int m = 0; m < 20; m++) {
+                members.add(method(file, "m" + m, "Result" + (m % 7),
+                        List.of(Map.of("name", "p", "type", "Param" + (m % 5))),
+                        statement(file, call(file, "helper" + (m % 3), "delegate"), creation(file, "Value" + m))));
+                members.add(field(file, "f" + m, "Dependency" + (m % 11), "private"));
+            }
+            ClassNode type = new ClassNode("Type" + f, SourceLocation.at(file, 2, 1), members,
+                    Map.of("superclass", "Base" + (f % 10), "interfaces", List.of("Service")));
+            files.add(new ModuleNode("compilation_unit", "compilation_unit", SourceLocation.at(file, 1, 1),
+                    List.of(type), Map.of("imports", List.of("lib.Dependency"))));
+        }
+        RelationshipMapper mapper = new RelationshipMapper();
+        RelationshipIndex index = new RelationshipIndex();
+        files.forEach(file -> index.indexFile(file.getLocation().getFilePath(), file));
+
+        long mapStart = System.nanoTime();
+        long mapped = 0;
+        for (int round = 0; round < 5; round++) {
+            for (ModuleNode file : files) {
+                mapped += mapper.mapRelationships(file, null).size();
+            }
+        }
+        long mapNanos = System.nanoTime() - mapStart;
+
+        long indexStart = System.nanoTime();
+        long indexed = 0;
+        for (int round = 0; round < 5; round++) {
+            for (ModuleNode file : files) {
+                indexed += index.getRelationships(file).size();
+            }
+        }
+        long indexNanos = System.nanoTime() - indexStart;
+
+        logger.info("{} relationships, {} file queries: mapping {} ms ({} found) vs index {} ms ({} found) ({}x)",
+                index.size(), 5 * files.size(), mapNanos / 1_000_000, mapped, indexNanos / 1_000_000, indexed,
+                String.format("%.1f", (double) mapNanos / Math.max(1, indexNanos)));
+    }
+}
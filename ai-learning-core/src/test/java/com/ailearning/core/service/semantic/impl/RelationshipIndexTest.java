@@ -0,0 +1,208 @@
+package com.ailearning.core.service.semantic.impl;
+
+import com.ailearning.core.model.Relationship;
+import com.ailearning.core.model.ast.ASTNode;
+import com.ailearning.core.model.ast.ClassNode;
+import com.ailearning.core.model.ast.ExpressionNode;
+import com.ailearning.core.model.ast.MethodNode;
+import com.ailearning.core.model.ast.ModuleNode;
+import com.ailearning.core.model.ast.SourceLocation;
+import com.ailearning.core.model.ast.StatementNode;
+import com.ailearning.core.model.ast.VariableNode;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for attribute-driven relationship mapping and the project-wide relationship index.
+ */
+class RelationshipIndexTest {
+
+    private RelationshipIndex index;
+
+    @BeforeEach
+    void setUp() {
+        index = new RelationshipIndex();
+    }
+
+    static ExpressionNode call(String file, String methodName, String scope) {
+        Map<String, Object> attributes = new HashMap<>();
+        attributes.put("expressionType", "methodcall");
+        attributes.put("methodName", methodName);
+        if (scope != null) {
+            attributes.put("scope", scope);
+        }
+        return new ExpressionNode("methodcall", SourceLocation.at(file, 5, 9), List.of(), attributes);
+    }
+
+    static ExpressionNode creation(String file, String type) {
+        return new ExpressionNode("objectcreation", SourceLocation.at(file, 6, 9), List.of(),
+                Map.of("expressionType", "objectcreation", "createdType", type));
+    }
+
+    static StatementNode statement(String file, ASTNode... expressions) {
+        return new StatementNode("expression", SourceLocation.at(file, 5, 9), List.of(expressions), Map.of());
+    }
+
+    static VariableNode field(String file, String name, String type, String... modifiers) {
+        return new VariableNode(name, SourceLocation.at(file, 3, 5), List.of(),
+                Map.of("type", type, "field", true, "modifiers", List.of(modifiers)));
+    }
+
+    static MethodNode method(String file, String name, String returnType, List<Map<String, String>> parameters,
+                             ASTNode... body) {
+        return new MethodNode(name, SourceLocation.at(file, 4, 5), List.of(body),
+                Map.of("returnType", returnType, "parameters", parameters, "throws", List.of()));
+    }
+
+    /**
+     * {@code class OrderService extends BaseService implements Auditable} with
+     * a repository field, a constant and one method calling into both.
+     */
+    private static ModuleNode orderService(String file) {
+        MethodNode place = method(file, "place", "Order", List.of(Map.of("name", "request", "type", "OrderRequest")),
+                statement(file, call(file, "save", "repository"), call(file, "validate", null)),
+                statement(file, creation(file, "Order")));
+        ClassNode service = new ClassNode("OrderService", SourceLocation.at(file, 2, 1),
+                List.of(place, field(file, "repository", "OrderRepository", "private", "final"),
+                        field(file, "LIMITS", "Map<String, Integer>", "private", "static", "final"),
+                        field(file, "count", "int", "private")),
+                Map.of("superclass", "BaseService", "interfaces", List.of("Auditable"),
+                        "modifiers", List.of("public")));
+        return new ModuleNode("compilation_unit", "compilation_unit", SourceLocation.at(file, 1, 1), List.of(service),
+                Map.of("package", "shop", "imports", List.of("java.util.Map", "shop.data.OrderRepository")));
+    }
+
+    private static ModuleNode subclass(String file, String name, String superclass) {
+        ClassNode type = new ClassNode(name, SourceLocation.at(file, 2, 1), List.of(),
+                Map.of("superclass", superclass));
+        return new ModuleNode("compilation_unit", "compilation_unit", SourceLocation.at(file, 1, 1), List.of(type),
+                Map.of());
+    }
+
+    private static boolean contains(List<Relationship> relationships, String from, String to,
+                                    Relationship.RelationshipType type) {
+        return relationships.contains(new Relationship(from, to, type));
+    }
+
+    @Nested
+    @DisplayName("Mapping")
+    class Mapping {
+
+        @Test
+        @DisplayName("Should read class relationships from parser attributes")
+        void shouldMapClassAttributes() {
+            List<Relationship> relationships = new RelationshipMapper().mapRelationships(orderService("O.java"), null);
+
+            assertTrue(contains(relationships, "OrderService", "BaseService", Relationship.RelationshipType.INHERITS_FROM));
+            assertTrue(contains(relationships, "OrderService", "Auditable", Relationship.RelationshipType.IMPLEMENTS));
+            assertTrue(contains(relationships, "OrderService", "shop.data.OrderRepository",
+                    Relationship.RelationshipType.IMPORTS));
+            assertTrue(contains(relationships, "OrderService", "OrderService.place",
+                    Relationship.RelationshipType.CONTAINS));
+            assertTrue(contains(relationships, "OrderService", "OrderRepository",
+                    Relationship.RelationshipType.DEPENDS_ON));
+            // Static fields are references, primitive fields add nothing
+            assertTrue(contains(relationships, "OrderService", "Map", Relationship.RelationshipType.REFERENCES));
+            assertFalse(relationships.stream().anyMatch(relationship -> relationship.getTo().equals("int")));
+        }
+
+        @Test
+        @DisplayName("Should map method signatures, calls and object creation")
+        void shouldMapMethodBodies() {
+            List<Relationship> relationships = new RelationshipMapper().mapRelationships(orderService("O.java"), null);
+
+            assertTrue(contains(relationships, "OrderService.place", "Order", Relationship.RelationshipType.DEPENDS_ON));
+            assertTrue(contains(relationships, "OrderService.place", "OrderRequest",
+                    Relationship.RelationshipType.DEPENDS_ON));
+            assertTrue(contains(relationships, "OrderService.place", "save", Relationship.RelationshipType.CALLS));
+            assertTrue(contains(relationships, "OrderService.place", "OrderService.validate",
+                    Relationship.RelationshipType.CALLS));
+            assertTrue(contains(relationships, "OrderService.place", "Order", Relationship.RelationshipType.USES));
+            assertEquals(relationships.size(), relationships.stream().distinct().count());
+        }
+    }
+
+    @Nested
+    @DisplayName("Lookup")
+    class Lookup {
+
+        @Test
+        @DisplayName("Should answer subtree queries with what the mapper computes")
+        void shouldMatchMapperForSubtrees() {
+            ModuleNode root = orderService("O.java");
+            index.indexFile("O.java", root);
+            RelationshipMapper mapper = new RelationshipMapper();
+
+            assertEquals(mapper.mapRelationships(root, null), index.getRelationships(root));
+            // The class run includes the file's imports, which a class-only walk cannot see
+            ClassNode service = (ClassNode) root.getChildren().get(0);
+            assertEquals(index.getRelationships(root), index.getRelationships(service));
+            // A method alone cannot see its class, so compare against the class-wide run
+            MethodNode place = service.getMethods().get(0);
+            List<Relationship> forMethod = index.getRelationships(place);
+            assertTrue(forMethod.stream().allMatch(relationship ->
+                    relationship.getFrom().equals("OrderService") || relationship.getFrom().startsWith("OrderService.place")));
+            assertTrue(contains(forMethod, "OrderService.place", "save", Relationship.RelationshipType.CALLS));
+
+            assertNull(index.getRelationships(orderService("O.java")));
+        }
+
+        @Test
+        @DisplayName("Should look up relationships by source, target and kind")
+        void shouldLookUpByKey() {
+            index.indexFile("O.java", orderService("O.java"));
+            index.indexFile("A.java", subclass("A.java", "AdminService", "BaseService"));
+
+            assertEquals(2, index.getIncoming("BaseService", Relationship.RelationshipType.INHERITS_FROM).size());
+            assertEquals(2, index.getByType(Relationship.RelationshipType.INHERITS_FROM).size());
+            assertTrue(index.getIncoming("BaseService", Relationship.RelationshipType.CALLS).isEmpty());
+            List<Relationship> calls = index.getOutgoing("OrderService.place", Relationship.RelationshipType.CALLS);
+            assertEquals(2, calls.size());
+            assertTrue(index.getOutgoing("OrderService").size() > index.getOutgoing("OrderService",
+                    Relationship.RelationshipType.CONTAINS).size());
+            assertTrue(index.getOutgoing("Unknown").isEmpty());
+        }
+    }
+
+    @Nested
+    @DisplayName("Incremental")
+    class Incremental {
+
+        @Test
+        @DisplayName("Should replace a re-indexed file and drop a removed one")
+        void shouldFollowFileChanges() {
+            index.indexFile("A.java", subclass("A.java", "AdminService", "BaseService"));
+            index.indexFile("A.java", subclass("A.java", "AdminService", "AuditedService"));
+
+            assertTrue(index.getIncoming("BaseService").isEmpty());
+            assertEquals(1, index.getIncoming("AuditedService").size());
+
+            index.removeFile("A.java");
+            assertEquals(0, index.size());
+            assertTrue(index.getByType(Relationship.RelationshipType.INHERITS_FROM).isEmpty());
+            assertEquals(0, index.getStatistics().get("indexedNodes"));
+        }
+
+        @Test
+        @DisplayName("Should keep a relationship while another file still produces it")
+        void shouldCountSharedRelationships() {
+            // Two versions of a class in different files, as during a move
+            index.indexFile("old/A.java", subclass("old/A.java", "AdminService", "BaseService"));
+            index.indexFile("new/A.java", subclass("new/A.java", "AdminService", "BaseService"));
+            assertEquals(1, index.size());
+
+            index.removeFile("old/A.java");
+            assertEquals(1, index.getIncoming("BaseService").size());
+            index.removeFile("new/A.java");
+            assertTrue(index.getIncoming("BaseService").isEmpty());
+        }
+    }
+}
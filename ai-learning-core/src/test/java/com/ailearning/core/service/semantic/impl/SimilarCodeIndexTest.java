@@ -0,0 +1,142 @@
+package com.ailearning.core.service.semantic.impl;
+
+import com.ailearning.core.model.ast.ASTNode;
+import com.ailearning.core.model.ast.ClassNode;
+import com.ailearning.core.model.ast.ExpressionNode;
+import com.ailearning.core.model.ast.MethodNode;
+import com.ailearning.core.model.ast.SourceLocation;
+import com.ailearning.core.model.ast.StatementNode;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for the MinHash/LSH similar-code index.
+ */
+class SimilarCodeIndexTest {
+
+    private static final String[] STATEMENTS = {"if", "for", "while", "return", "expression", "try", "switch", "throw"};
+    private static final String[] EXPRESSIONS = {"methodcall", "name", "binary", "literal", "assign", "fieldaccess"};
+
+    private SimilarCodeIndex index;
+
+    @BeforeEach
+    void setUp() {
+        index = new SimilarCodeIndex();
+    }
+
+    @Test
+    @DisplayName("Should find a near-duplicate method among unrelated code")
+    void shouldFindNearDuplicate() {
+        Random random = new Random(11);
+        MethodNode original = method("Orders.java", "calculateOrderTotal", "OrderTotal", shape(random, 10));
+        index.indexFile("Orders.java", classOf("Orders.java", List.of(original)));
+        indexNoise(random, 200);
+
+        int[] editedShape = shape(new Random(11), 10);
+        editedShape[0] = (editedShape[0] + 1) % (STATEMENTS.length * EXPRESSIONS.length);
+        MethodNode edited = method("Query.java", "calculateOrderTotal", "OrderTotal", editedShape);
+
+        List<SimilarCodeIndex.Candidate> candidates = index.findCandidates(edited, 5);
+
+        assertFalse(candidates.isEmpty());
+        assertSame(original, candidates.get(0).getNode());
+        assertTrue(candidates.get(0).getEstimatedSimilarity() > 0.5);
+    }
+
+    @Test
+    @DisplayName("Should never return the target itself")
+    void shouldExcludeTarget() {
+        MethodNode method = method("A.java", "loadUser", "User", new int[]{1, 2, 3});
+        index.indexFile("A.java", classOf("A.java", List.of(method)));
+
+        assertTrue(index.findCandidates(method, 10).stream().noneMatch(candidate -> candidate.getNode() == method));
+    }
+
+    @Test
+    @DisplayName("Should replace and remove a file's entries incrementally")
+    void shouldUpdateFilesIncrementally() {
+        MethodNode first = method("A.java", "saveUser", "User", new int[]{1, 2, 3, 4});
+        MethodNode query = method("Q.java", "saveUser", "User", new int[]{1, 2, 3, 4});
+        index.indexFile("A.java", classOf("A.java", List.of(first)));
+        assertEquals(2, index.size());
+        assertTrue(containsNode(index.findCandidates(query, 10), first));
+
+        MethodNode replacement = method("A.java", "deleteOrder", "Order", new int[]{5, 6});
+        index.indexFile("A.java", classOf("A.java", List.of(replacement)));
+        assertEquals(2, index.size());
+        assertFalse(containsNode(index.findCandidates(query, 10), first));
+
+        index.removeFile("A.java");
+        assertEquals(0, index.size());
+        assertTrue(index.findCandidates(query, 10).isEmpty());
+        assertEquals(0, index.getStatistics().get("files"));
+    }
+
+    @Test
+    @DisplayName("Should order candidates by estimated similarity")
+    void shouldOrderCandidates() {
+        Random random = new Random(5);
+        indexNoise(random, 100);
+
+        List<SimilarCodeIndex.Candidate> candidates = index.findCandidates(
+                method("Q.java", "processRequest", "Response", shape(random, 8)), 20);
+
+        for (int i = 1; i < candidates.size(); i++) {
+            assertTrue(candidates.get(i - 1).getEstimatedSimilarity() >= candidates.get(i).getEstimatedSimilarity());
+        }
+        assertTrue(candidates.size() <= 20);
+    }
+
+    private void indexNoise(Random random, int files) {
+        String[] words = {"get", "set", "user", "order", "item", "parse", "load", "save", "cache", "event", "path"};
+        for (int f = 0; f < files; f++) {
+            String file = "Noise" + f + ".java";
+            List<ASTNode> methods = new ArrayList<>();
+            for (int m = 0; m < 5; m++) {
+                String name = words[random.nextInt(words.length)] + words[random.nextInt(words.length)].toUpperCase();
+                methods.add(method(file, name, "Result" + random.nextInt(50), shape(random, 3 + random.nextInt(8))));
+            }
+            index.indexFile(file, classOf(file, methods));
+        }
+    }
+
+    private static int[] shape(Random random, int statements) {
+        int[] shape = new int[statements];
+        for (int i = 0; i < statements; i++) {
+            shape[i] = random.nextInt(STATEMENTS.length * EXPRESSIONS.length);
+        }
+        return shape;
+    }
+
+    /**
+     * Builds a method whose body has one statement per shape value, each with
+     * a single expression child.
+     */
+    private static MethodNode method(String file, String name, String returnType, int[] shape) {
+        List<ASTNode> body = new ArrayList<>();
+        for (int i = 0; i < shape.length; i++) {
+            SourceLocation location = SourceLocation.at(file, i + 2, 9);
+            ExpressionNode expression = new ExpressionNode(EXPRESSIONS[shape[i] % EXPRESSIONS.length], location,
+                    List.of(), Map.of());
+            body.add(new StatementNode(STATEMENTS[shape[i] / EXPRESSIONS.length], location, List.of(expression),
+                    Map.of()));
+        }
+        return new MethodNode(name, SourceLocation.at(file, 1, 5), body, Map.of("returnType", returnType));
+    }
+
+    private static ClassNode classOf(String file, List<ASTNode> members) {
+        return new ClassNode(file.replace(".java", ""), SourceLocation.at(file, 1, 1), members, Map.of());
+    }
+
+    private static boolean containsNode(List<SimilarCodeIndex.Candidate> candidates, ASTNode node) {
+        return candidates.stream().anyMatch(candidate -> candidate.getNode() == node);
+    }
+}
@@ -0,0 +1,51 @@
+package com.ailearning.core.service.semantic.impl;
+
+import com.ailearning.core.model.ast.ASTNode;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Timings of memoized similarity kernels against per-pair extraction, run with the benchmark profile.
+ */
+@Tag("benchmark")
+class SimilarityCalculatorBenchmark {
+
+    private static final Logger logger = LoggerFactory.getLogger(SimilarityCalculatorBenchmark.class);
+
+    @Test
+    @DisplayName("Rank candidates by per-pair tokenizing and set copies and by memoized kernels")
+    void ranking() {
+        SimilarityCalculator calculator = new SimilarityCalculator();
+        List<ASTNode> nodes = SimilarityCalculatorTest.randomMethods(new Random(9), 300);
+
+        long perPairStart = System.nanoTime();
+        double perPairTotal = 0.0;
+        for (ASTNode target : nodes) {
+            for (ASTNode candidate : nodes) {
+                perPairTotal += SimilarityCalculatorTest.perPairScore(target, candidate);
+            }
+        }
+        long perPairNanos = System.nanoTime() - perPairStart;
+
+        long memoizedStart = System.nanoTime();
+        double memoizedTotal = 0.0;
+        for (ASTNode target : nodes) {
+            NodeFeatures features = calculator.getFeatures(target);
+            for (ASTNode candidate : nodes) {
+                memoizedTotal += SimilarityCalculatorTest.memoizedScore(features, calculator.getFeatures(candidate));
+            }
+        }
+        long memoizedNanos = System.nanoTime() - memoizedStart;
+
+        logger.info("{} pairs: per-pair extraction {} ms vs memoized kernels {} ms ({}x), score difference {}",
+                nodes.size() * nodes.size(), perPairNanos / 1_000_000, memoizedNanos / 1_000_000,
+                String.format("%.1f", (double) perPairNanos / Math.max(1, memoizedNanos)),
+                Math.abs(perPairTotal - memoizedTotal));
+    }
+}
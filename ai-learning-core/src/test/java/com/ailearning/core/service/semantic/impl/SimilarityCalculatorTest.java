@@ -0,0 +1,252 @@
+package com.ailearning.core.service.semantic.impl;
+
+import com.ailearning.core.model.ast.ASTNode;
+import com.ailearning.core.model.ast.ClassNode;
+import com.ailearning.core.model.ast.ExpressionNode;
+import com.ailearning.core.model.ast.MethodNode;
+import com.ailearning.core.model.ast.SourceLocation;
+import com.ailearning.core.model.ast.StatementNode;
+import com.ailearning.core.model.ast.VariableNode;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for feature-based similarity scoring.
+ */
+class SimilarityCalculatorTest {
+
+    private static final String[] STATEMENTS = {"if", "for", "while", "return", "expression", "throw"};
+    private static final String[] WORDS = {"get", "set", "user", "order", "total", "load", "save", "item", "cache"};
+
+    private SimilarityCalculator calculator;
+
+    @BeforeEach
+    void setUp() {
+        calculator = new SimilarityCalculator();
+    }
+
+    private static MethodNode method(String file, String name, String returnType, List<String> parameterTypes,
+                                     String... statements) {
+        List<ASTNode> body = new ArrayList<>();
+        for (int i = 0; i < statements.length; i++) {
+            SourceLocation location = SourceLocation.at(file, i + 2, 9);
+            body.add(new StatementNode(statements[i], location,
+                    List.of(new ExpressionNode("methodcall", location, List.of(), Map.of())), Map.of()));
+        }
+        List<Map<String, String>> parameters = new ArrayList<>();
+        for (String type : parameterTypes) {
+            parameters.add(Map.of("name", "p" + parameters.size(), "type", type));
+        }
+        return new MethodNode(name, SourceLocation.at(file, 1, 5), body,
+                Map.of("returnType", returnType, "parameters", parameters));
+    }
+
+    static List<ASTNode> randomMethods(Random random, int count) {
+        List<ASTNode> nodes = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            String[] statements = new String[3 + random.nextInt(8)];
+            for (int s = 0; s < statements.length; s++) {
+                statements[s] = STATEMENTS[random.nextInt(STATEMENTS.length)];
+            }
+            String name = WORDS[random.nextInt(WORDS.length)] + WORDS[random.nextInt(WORDS.length)];
+            nodes.add(method("F" + i + ".java", name, "Result", List.of("long"), statements));
+        }
+        return nodes;
+    }
+
+    /** Name, histogram and text scores of the string/set based comparison the kernels replace. */
+    static double perPairScore(ASTNode target, ASTNode candidate) {
+        return setJaccard(target.getName(), candidate.getName())
+                + mapDistribution(target.getNodeTypeHistogram(), candidate.getNodeTypeHistogram())
+                + setJaccard(target.toString(), candidate.toString());
+    }
+
+    static double memoizedScore(NodeFeatures features, NodeFeatures other) {
+        return SimilarityCalculator.jaccardSimilarity(features.lexicalTokens(), other.lexicalTokens())
+                + SimilarityCalculator.distributionSimilarity(features.histogramTypes(), features.histogramCounts(),
+                other.histogramTypes(), other.histogramCounts())
+                + SimilarityCalculator.jaccardSimilarity(features.genericTokens(), other.genericTokens());
+    }
+
+    private static double setJaccard(String text1, String text2) {
+        Set<String> tokens1 = tokenize(text1);
+        Set<String> tokens2 = tokenize(text2);
+        if (tokens1.isEmpty() && tokens2.isEmpty()) return 1.0;
+        Set<String> intersection = new HashSet<>(tokens1);
+        intersection.retainAll(tokens2);
+        Set<String> union = new HashSet<>(tokens1);
+        union.addAll(tokens2);
+        return (double) intersection.size() / union.size();
+    }
+
+    private static Set<String> tokenize(String text) {
+        Set<String> tokens = new HashSet<>();
+        for (String token : text.toLowerCase().split("\\W+")) {
+            if (!token.isEmpty()) {
+                tokens.add(token);
+            }
+        }
+        return tokens;
+    }
+
+    private static double mapDistribution(Map<String, Integer> dist1, Map<String, Integer> dist2) {
+        Set<String> allTypes = new HashSet<>(dist1.keySet());
+        allTypes.addAll(dist2.keySet());
+        if (allTypes.isEmpty()) return 1.0;
+        double similarity = 0.0;
+        for (String type : allTypes) {
+            int count1 = dist1.getOrDefault(type, 0);
+            int count2 = dist2.getOrDefault(type, 0);
+            similarity += 1.0 - ((double) Math.abs(count1 - count2) / Math.max(count1, count2));
+        }
+        return similarity / allTypes.size();
+    }
+
+    @Nested
+    @DisplayName("Scoring")
+    class Scoring {
+
+        @Test
+        @DisplayName("Should score a copy of a method as identical")
+        void shouldScoreCopyAsIdentical() {
+            MethodNode original = method("A.java", "loadUser", "User", List.of("long"), "if", "return");
+            MethodNode copy = method("B.java", "loadUser", "User", List.of("long"), "if", "return");
+
+            assertEquals(1.0, calculator.calculateSimilarity(original, copy), 1e-9);
+        }
+
+        @Test
+        @DisplayName("Should rank a closer method above a distant one")
+        void shouldRankCloserMethodHigher() {
+            MethodNode target = method("A.java", "loadUser", "User", List.of("long"), "if", "for", "return");
+            MethodNode close = method("B.java", "loadUsers", "User", List.of("long"), "if", "for", "return");
+            MethodNode distant = method("C.java", "saveOrder", "void", List.of("Order", "boolean"), "throw");
+
+            assertTrue(calculator.calculateSimilarity(target, close) > calculator.calculateSimilarity(target, distant));
+        }
+
+        @Test
+        @DisplayName("Should compare classes by members and fields")
+        void shouldCompareClassesByMembers() {
+            ClassNode users = new ClassNode("UserService", SourceLocation.at("A.java", 1, 1), List.of(
+                    method("A.java", "loadUser", "User", List.of(), "return"),
+                    new VariableNode("repository", SourceLocation.at("A.java", 2, 5), List.of(),
+                            Map.of("type", "UserRepository"))), Map.of());
+            ClassNode sameShape = new ClassNode("UserServiceImpl", SourceLocation.at("B.java", 1, 1), List.of(
+                    method("B.java", "loadUser", "User", List.of(), "return"),
+                    new VariableNode("repository", SourceLocation.at("B.java", 2, 5), List.of(),
+                            Map.of("type", "UserRepository"))), Map.of());
+            MethodNode method = method("C.java", "loadUser", "User", List.of(), "return");
+
+            double classSimilarity = calculator.calculateSimilarity(users, sameShape);
+            assertTrue(classSimilarity > 0.8);
+            // Cross-type comparisons are scaled down
+            assertTrue(calculator.calculateSimilarity(users, method) <= 0.5);
+        }
+
+        @Test
+        @DisplayName("Should memoize features per node")
+        void shouldMemoizeFeatures() {
+            MethodNode node = method("A.java", "loadUser", "User", List.of("long"), "if");
+
+            NodeFeatures first = calculator.getFeatures(node);
+            calculator.calculateSimilarity(node, method("B.java", "saveUser", "void", List.of(), "return"));
+
+            assertSame(first, calculator.getFeatures(node));
+            assertEquals(2, calculator.getCachedFeatureCount());
+            assertEquals("method", first.getNodeType());
+            assertEquals(3, first.getDepth());
+        }
+    }
+
+    @Nested
+    @DisplayName("Kernels")
+    class Kernels {
+
+        @Test
+        @DisplayName("Should match set-based Jaccard on sorted id arrays")
+        void shouldMatchSetJaccard() {
+            Random random = new Random(3);
+            for (int round = 0; round < 200; round++) {
+                Set<Integer> set1 = randomSet(random);
+                Set<Integer> set2 = randomSet(random);
+                Set<Integer> intersection = new HashSet<>(set1);
+                intersection.retainAll(set2);
+                Set<Integer> union = new HashSet<>(set1);
+                union.addAll(set2);
+                double expected = union.isEmpty() ? 1.0 : (double) intersection.size() / union.size();
+
+                assertEquals(expected, SimilarityCalculator.jaccardSimilarity(sorted(set1), sorted(set2)), 1e-12);
+            }
+        }
+
+        @Test
+        @DisplayName("Should match map-based distribution similarity on sorted histograms")
+        void shouldMatchMapDistribution() {
+            Random random = new Random(4);
+            for (int round = 0; round < 200; round++) {
+                Map<Integer, Integer> histogram1 = randomHistogram(random);
+                Map<Integer, Integer> histogram2 = randomHistogram(random);
+                Set<Integer> types = new HashSet<>(histogram1.keySet());
+                types.addAll(histogram2.keySet());
+                double expected = 0.0;
+                for (int type : types) {
+                    int count1 = histogram1.getOrDefault(type, 0);
+                    int count2 = histogram2.getOrDefault(type, 0);
+                    expected += 1.0 - (double) Math.abs(count1 - count2) / Math.max(count1, count2);
+                }
+                expected = types.isEmpty() ? 1.0 : expected / types.size();
+
+                int[] types1 = sorted(histogram1.keySet());
+                int[] types2 = sorted(histogram2.keySet());
+                double actual = SimilarityCalculator.distributionSimilarity(types1, countsOf(histogram1, types1),
+                        types2, countsOf(histogram2, types2));
+                assertEquals(expected, actual, 1e-12);
+            }
+        }
+
+        @Test
+        @DisplayName("Should score memoized features like per-pair tokenizing and set copies")
+        void shouldMatchPerPairExtraction() {
+            List<ASTNode> nodes = randomMethods(new Random(9), 40);
+            for (ASTNode target : nodes) {
+                NodeFeatures features = calculator.getFeatures(target);
+                for (ASTNode candidate : nodes) {
+                    assertEquals(perPairScore(target, candidate),
+                            memoizedScore(features, calculator.getFeatures(candidate)), 1e-9);
+                }
+            }
+        }
+
+        private Set<Integer> randomSet(Random random) {
+            Set<Integer> set = new HashSet<>();
+            int size = random.nextInt(12);
+            for (int i = 0; i < size; i++) {
+                set.add(random.nextInt(20));
+            }
+            return set;
+        }
+
+        private Map<Integer, Integer> randomHistogram(Random random) {
+            Map<Integer, Integer> histogram = new HashMap<>();
+            for (int type : randomSet(random)) {
+                histogram.put(type, 1 + random.nextInt(9));
+            }
+            return histogram;
+        }
+
+        private int[] sorted(Set<Integer> ids) {
+            return ids.stream().mapToInt(Integer::intValue).sorted().toArray();
+        }
+
+        private int[] countsOf(Map<Integer, Integer> histogram, int[] types) {
+            return Arrays.stream(types).map(histogram::get).toArray();
+        }
+    }
+}
@@ -1,5 +1,6 @@
 package com.ailearning.lsp.launcher;
 
+import com.ailearning.core.service.impl.DefaultCodeAnalyzer;
 import com.ailearning.lsp.server.AILearningLanguageServer;
 import org.eclipse.lsp4j.jsonrpc.Launcher;
 import org.eclipse.lsp4j.launch.LSPLauncher;
@@ -19,6 +20,12 @@ public class LSPServerLauncher {
     
     private static final Logger logger = LoggerFactory.getLogger(LSPServerLauncher.class);
     
+    /**
+     * Analyzer shared by every client connection, so all sessions draw on one
+     * bounded analysis pool and one result cache.
+     */
+    private static final DefaultCodeAnalyzer SHARED_ANALYZER = new DefaultCodeAnalyzer();
+    
     /**
      * Launch the language server with standard input/output streams
      */
@@ -27,7 +34,7 @@ public class LSPServerLauncher {
         
         try {
             // Create the language server instance
-            AILearningLanguageServer server = new AILearningLanguageServer();
+            AILearningLanguageServer server = new AILearningLanguageServer(SHARED_ANALYZER);
             
             // Create the launcher
             Launcher<LanguageClient> launcher = LSPLauncher.createServerLauncher(server, in, out);
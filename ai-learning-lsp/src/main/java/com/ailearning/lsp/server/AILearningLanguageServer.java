@@ -1,5 +1,7 @@
 package com.ailearning.lsp.server;
 
+import com.ailearning.core.service.CodeAnalyzer;
+import com.ailearning.core.service.impl.DefaultCodeAnalyzer;
 import org.eclipse.lsp4j.*;
 import org.eclipse.lsp4j.services.*;
 import org.slf4j.Logger;
@@ -7,6 +9,7 @@ import org.slf4j.LoggerFactory;
 
 import java.util.concurrent.CompletableFuture;
 import java.util.List;
+import java.util.Objects;
 import java.util.ArrayList;
 
 /**
@@ -17,13 +20,35 @@ public class AILearningLanguageServer implements LanguageServer, LanguageClientA
     
     private static final Logger logger = LoggerFactory.getLogger(AILearningLanguageServer.class);
     
+    private final CodeAnalyzer codeAnalyzer;
+    private final boolean ownsAnalyzer;
     private final AILearningTextDocumentService textDocumentService;
     private final AILearningWorkspaceService workspaceService;
     private LanguageClient client;
     private int errorCode = 1;
 
+    /**
+     * Creates a server with its own code analyzer, shut down with the server.
+     */
     public AILearningLanguageServer() {
-        this.textDocumentService = new AILearningTextDocumentService();
+        this(new DefaultCodeAnalyzer(), true);
+    }
+
+    /**
+     * Creates a server that analyzes through a shared code analyzer. The
+     * analyzer's executor and result cache are shared with every other
+     * server using it, and it is left running when this server shuts down.
+     *
+     * @param codeAnalyzer the shared analyzer
+     */
+    public AILearningLanguageServer(CodeAnalyzer codeAnalyzer) {
+        this(Objects.requireNonNull(codeAnalyzer, "Code analyzer cannot be null"), false);
+    }
+
+    private AILearningLanguageServer(CodeAnalyzer codeAnalyzer, boolean ownsAnalyzer) {
+        this.codeAnalyzer = codeAnalyzer;
+        this.ownsAnalyzer = ownsAnalyzer;
+        this.textDocumentService = new AILearningTextDocumentService(codeAnalyzer);
         this.workspaceService = new AILearningWorkspaceService();
         logger.info("AI Learning Language Server initialized");
     }
@@ -143,6 +168,9 @@ public class AILearningLanguageServer implements LanguageServer, LanguageClientA
         // Cleanup services
         textDocumentService.shutdown();
         workspaceService.shutdown();
+        if (ownsAnalyzer && codeAnalyzer instanceof DefaultCodeAnalyzer ownedAnalyzer) {
+            ownedAnalyzer.shutdown();
+        }
         
         errorCode = 0;
         return CompletableFuture.completedFuture(null);
@@ -1,5 +1,8 @@
 package com.ailearning.lsp.server;
 
+import com.ailearning.core.model.AnalysisResult;
+import com.ailearning.core.model.CodeIssue;
+import com.ailearning.core.service.CodeAnalyzer;
 import org.eclipse.lsp4j.*;
 import org.eclipse.lsp4j.services.LanguageClient;
 import org.eclipse.lsp4j.services.TextDocumentService;
@@ -22,10 +25,23 @@ public class AILearningTextDocumentService implements TextDocumentService {
     private static final Logger logger = LoggerFactory.getLogger(AILearningTextDocumentService.class);
     
     private final Map<String, TextDocumentItem> documents = new ConcurrentHashMap<>();
+    private final CodeAnalyzer codeAnalyzer;
     private LanguageClient client;
     private ClientCapabilities clientCapabilities;
     private boolean initialized = false;
 
+    public AILearningTextDocumentService() {
+        this(null); // Placeholder diagnostics only
+    }
+
+    /**
+     * Create the service with a code analyzer whose issues are published as diagnostics.
+     * Unchanged documents reuse the analyzer's cached analysis.
+     */
+    public AILearningTextDocumentService(CodeAnalyzer codeAnalyzer) {
+        this.codeAnalyzer = codeAnalyzer;
+    }
+
     /**
      * Initialize the service with client capabilities
      */
@@ -283,10 +299,11 @@ public class AILearningTextDocumentService implements TextDocumentService {
     private void analyzeDocument(TextDocumentItem document) {
         if (client == null) return;
         
-        CompletableFuture.runAsync(() -> {
+        analyzeIssues(document).thenAcceptAsync(issues -> {
             try {
                 // Perform document analysis
                 List<Diagnostic> diagnostics = performAnalysis(document);
+                diagnostics.addAll(issues);
                 
                 // Publish diagnostics
                 PublishDiagnosticsParams params = new PublishDiagnosticsParams();
@@ -302,6 +319,67 @@ public class AILearningTextDocumentService implements TextDocumentService {
         });
     }
 
+    /**
+     * Run the code analyzer on the document and convert its issues to diagnostics.
+     * Documents in languages the analyzer does not support get no issue diagnostics.
+     */
+    private CompletableFuture<List<Diagnostic>> analyzeIssues(TextDocumentItem document) {
+        String languageId = document.getLanguageId();
+        if (codeAnalyzer == null || languageId == null || !codeAnalyzer.supportsLanguage(languageId)) {
+            return CompletableFuture.completedFuture(List.of());
+        }
+        return codeAnalyzer.analyzeCode(document.getText(), languageId)
+                .thenApply(result -> toDiagnostics(result, document.getText()))
+                .exceptionally(e -> {
+                    logger.warn("Code analysis failed for {}: {}", document.getUri(), e.getMessage());
+                    return List.of();
+                });
+    }
+
+    /**
+     * Convert analysis issues, security findings included, to diagnostics spanning
+     * the rest of the issue's line. Issues without a message are skipped, since a
+     * diagnostic must have one.
+     */
+    private List<Diagnostic> toDiagnostics(AnalysisResult result, String text) {
+        List<Diagnostic> diagnostics = new ArrayList<>();
+        String[] lines = text.split("\n", -1);
+        for (CodeIssue issue : result.getIssues()) {
+            if (issue.getMessage() == null || issue.getMessage().isBlank()) {
+                continue;
+            }
+            int line = Math.min(Math.max(issue.getLineNumber() - 1, 0), lines.length - 1);
+            int end = lines[line].length();
+            int start = Math.min(Math.max(issue.getColumnNumber(), 0), end);
+            
+            Diagnostic diagnostic = new Diagnostic();
+            diagnostic.setRange(new Range(new Position(line, start), new Position(line, end)));
+            diagnostic.setSeverity(toSeverity(issue.getSeverity()));
+            diagnostic.setMessage(issue.getMessage());
+            if (issue.getRuleId() != null) {
+                diagnostic.setCode(issue.getRuleId());
+            }
+            diagnostic.setSource("AI Learning Companion");
+            
+            diagnostics.add(diagnostic);
+        }
+        return diagnostics;
+    }
+
+    private DiagnosticSeverity toSeverity(CodeIssue.Severity severity) {
+        if (severity == null) {
+            return DiagnosticSeverity.Information;
+        }
+        switch (severity) {
+            case ERROR:
+                return DiagnosticSeverity.Error;
+            case WARNING:
+                return DiagnosticSeverity.Warning;
+            default:
+                return DiagnosticSeverity.Information;
+        }
+    }
+
     /**
      * Perform analysis on document and return diagnostics
      */
@@ -1,5 +1,6 @@
 package com.ailearning.lsp.server;
 
+import com.ailearning.core.service.impl.DefaultCodeAnalyzer;
 import org.eclipse.lsp4j.*;
 import org.eclipse.lsp4j.services.LanguageClient;
 import org.junit.jupiter.api.BeforeEach;
@@ -10,6 +11,7 @@ import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
 
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
@@ -94,6 +96,24 @@ class AILearningLanguageServerTest {
             // Then
             assertNull(result);
         }
+
+        @Test
+        @DisplayName("Should leave a shared analyzer running after shutdown")
+        void shouldLeaveSharedAnalyzerRunningAfterShutdown() throws Exception {
+            // Given
+            DefaultCodeAnalyzer sharedAnalyzer = new DefaultCodeAnalyzer();
+            AILearningLanguageServer sharedServer = new AILearningLanguageServer(sharedAnalyzer);
+
+            try {
+                // When
+                sharedServer.shutdown().get();
+
+                // Then
+                assertNotNull(sharedAnalyzer.analyzeCode("int x = 1;", "java").get(5, TimeUnit.SECONDS));
+            } finally {
+                sharedAnalyzer.shutdown();
+            }
+        }
     }
 
     @Nested
@@ -1,5 +1,9 @@
 package com.ailearning.lsp.server;
 
+import com.ailearning.core.model.AnalysisResult;
+import com.ailearning.core.model.CodeIssue;
+import com.ailearning.core.model.ComplexityMetrics;
+import com.ailearning.core.service.CodeAnalyzer;
 import org.eclipse.lsp4j.*;
 import org.eclipse.lsp4j.services.LanguageClient;
 import org.junit.jupiter.api.BeforeEach;
@@ -9,6 +13,7 @@ import org.junit.jupiter.api.Nested;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
 
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.concurrent.CompletableFuture;
 
@@ -334,4 +339,52 @@ class AILearningTextDocumentServiceTest {
             assertDoesNotThrow(() -> service.didChange(changeParams));
         }
     }
-}
\ No newline at end of file
+
+    @Nested
+    @DisplayName("Issue Diagnostics")
+    class IssueDiagnostics {
+
+        private final CodeAnalyzer analyzer = mock(CodeAnalyzer.class);
+        private AILearningTextDocumentService analyzed;
+
+        @BeforeEach
+        void setUp() {
+            analyzed = new AILearningTextDocumentService(analyzer);
+            analyzed.initialize(new ClientCapabilities());
+            analyzed.connect(mockClient);
+            analyzed.initialized();
+        }
+
+        @Test
+        @DisplayName("Should not analyze documents in unsupported languages")
+        void shouldSkipUnsupportedLanguages() {
+            when(analyzer.supportsLanguage("cobol")).thenReturn(false);
+
+            analyzed.didOpen(new DidOpenTextDocumentParams(new TextDocumentItem(
+                "file:///report.cbl", "cobol", 1, "IDENTIFICATION DIVISION."
+            )));
+
+            verify(mockClient, timeout(1000)).publishDiagnostics(any(PublishDiagnosticsParams.class));
+            verify(analyzer, never()).analyzeCode(any(), any());
+        }
+
+        @Test
+        @DisplayName("Should publish security findings as diagnostics")
+        void shouldPublishSecurityIssues() {
+            CodeIssue issue = CodeIssue.securityIssue("Hardcoded password", "unknown", 1, "CWE-798");
+            AnalysisResult result = new AnalysisResult("analysis", "unknown", AnalysisResult.AnalysisStatus.SUCCESS,
+                "Analysis found 1 issues", List.of(issue), List.of(), ComplexityMetrics.empty(),
+                LocalDateTime.now(), 0);
+            when(analyzer.supportsLanguage("java")).thenReturn(true);
+            when(analyzer.analyzeCode(any(), eq("java"))).thenReturn(CompletableFuture.completedFuture(result));
+
+            analyzed.didOpen(new DidOpenTextDocumentParams(new TextDocumentItem(
+                "file:///Login.java", "java", 1, "String password = \"secret\";"
+            )));
+
+            verify(mockClient, timeout(1000)).publishDiagnostics(argThat(params -> params.getDiagnostics().stream()
+                .anyMatch(diagnostic -> "Hardcoded password".equals(diagnostic.getMessage())
+                    && diagnostic.getSeverity() == DiagnosticSeverity.Error)));
+        }
+    }
+}